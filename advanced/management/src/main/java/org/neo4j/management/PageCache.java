@@ -31,6 +31,12 @@ public interface PageCache
     @Description( "Number of page faults" )
     long getFaults();
 
+    @Description( "Number of page pins that found their page already in memory" )
+    long getHits();
+
+    @Description( "Ratio of page pins that found their page already in memory, out of all hits and faults" )
+    double getHitRatio();
+
     @Description( "Number of page evictions" )
     long getEvictions();
 
@@ -57,4 +63,10 @@ public interface PageCache
 
     @Description( "Number of exceptions caught during page eviction" )
     public long getEvictionExceptions();
+
+    @Description( "Number of read-ahead batches issued for sequential scans" )
+    long getReadAheads();
+
+    @Description( "Number of pages faulted in by read-ahead" )
+    long getReadAheadPages();
 }
@@ -58,6 +58,21 @@ public final class PageCacheBean extends ManagementBeanProvider
             return pageCacheMonitor.countFaults();
         }
 
+        @Override
+        public long getHits()
+        {
+            return pageCacheMonitor.countHits();
+        }
+
+        @Override
+        public double getHitRatio()
+        {
+            long hits = pageCacheMonitor.countHits();
+            long faults = pageCacheMonitor.countFaults();
+            long total = hits + faults;
+            return total == 0 ? 1.0 : ((double) hits) / total;
+        }
+
         @Override
         public long getEvictions()
         {
@@ -111,5 +126,17 @@ public final class PageCacheBean extends ManagementBeanProvider
         {
             return pageCacheMonitor.countEvictionExceptions();
         }
+
+        @Override
+        public long getReadAheads()
+        {
+            return pageCacheMonitor.countReadAheads();
+        }
+
+        @Override
+        public long getReadAheadPages()
+        {
+            return pageCacheMonitor.countReadAheadPages();
+        }
     }
 }
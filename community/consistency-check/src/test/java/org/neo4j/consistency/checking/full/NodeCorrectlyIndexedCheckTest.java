@@ -220,6 +220,19 @@ public class NodeCorrectlyIndexedCheckTest
                     return emptyIterator();
                 }
 
+                @Override
+                public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                                Number upper, boolean includeUpper )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
                 @Override
                 public PrimitiveLongIterator scan()
                 {
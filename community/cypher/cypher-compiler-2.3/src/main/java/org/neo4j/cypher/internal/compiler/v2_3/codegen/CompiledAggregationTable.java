@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.neo4j.cypher.internal.compiler.v2_3.CypherTypeException;
+
+/**
+ * The groups of a compiled Aggregation. The generated code looks up the group of every row by its grouping key and
+ * updates the aggregates of that group with the values of the row, then iterates over the groups once all rows are
+ * seen. Without grouping keys there is a single group, which is produced even when there were no rows.
+ */
+public final class CompiledAggregationTable implements Iterable<CompiledAggregationTable.Group>
+{
+    public enum Aggregate
+    {
+        COUNT_STAR, COUNT, SUM, MIN, MAX, COLLECT
+    }
+
+    private final int keyCount;
+    private final Aggregate[] aggregates;
+    private final Map<Key, Group> groups = new LinkedHashMap<>();
+
+    public CompiledAggregationTable( int keyCount, Aggregate... aggregates )
+    {
+        this.keyCount = keyCount;
+        this.aggregates = aggregates;
+    }
+
+    public Group group( Object... key )
+    {
+        // a single null is passed as a null array rather than as an array holding null
+        Key lookup = new Key( key == null ? new Object[]{null} : key );
+        Group group = groups.get( lookup );
+        if ( group == null )
+        {
+            group = new Group( lookup.values, aggregates );
+            groups.put( lookup, group );
+        }
+        return group;
+    }
+
+    @Override
+    public Iterator<Group> iterator()
+    {
+        if ( keyCount == 0 && groups.isEmpty() )
+        {
+            return Collections.singletonList( new Group( new Object[0], aggregates ) ).iterator();
+        }
+        return groups.values().iterator();
+    }
+
+    public static final class Group
+    {
+        private final Object[] key;
+        private final Aggregate[] aggregates;
+        private final Object[] state;
+
+        private Group( Object[] key, Aggregate[] aggregates )
+        {
+            this.key = key;
+            this.aggregates = aggregates;
+            this.state = new Object[aggregates.length];
+        }
+
+        public Object key( int offset )
+        {
+            return key[offset];
+        }
+
+        /**
+         * The id of a node or relationship used as grouping key
+         */
+        public long longKey( int offset )
+        {
+            return ((Number) key[offset]).longValue();
+        }
+
+        public void update( int aggregate, Object value )
+        {
+            Object current = state[aggregate];
+            switch ( aggregates[aggregate] )
+            {
+            case COUNT_STAR:
+                state[aggregate] = current == null ? 1L : (Long) current + 1;
+                break;
+            case COUNT:
+                if ( value != null )
+                {
+                    state[aggregate] = current == null ? 1L : (Long) current + 1;
+                }
+                break;
+            case SUM:
+                if ( value != null )
+                {
+                    if ( !(value instanceof Number) )
+                    {
+                        throw new CypherTypeException( "SUM() can only handle numerical values, or null.", null );
+                    }
+                    state[aggregate] = CompiledMathHelper.add( current == null ? 0L : current, value );
+                }
+                break;
+            case MIN:
+                if ( value != null && (current == null || CompiledSortTable.compare( value, current ) < 0) )
+                {
+                    state[aggregate] = value;
+                }
+                break;
+            case MAX:
+                if ( value != null && (current == null || CompiledSortTable.compare( value, current ) > 0) )
+                {
+                    state[aggregate] = value;
+                }
+                break;
+            case COLLECT:
+                if ( value != null )
+                {
+                    if ( current == null )
+                    {
+                        current = state[aggregate] = new ArrayList<>();
+                    }
+                    @SuppressWarnings( "unchecked" )
+                    ArrayList<Object> collected = (ArrayList<Object>) current;
+                    collected.add( value );
+                }
+                break;
+            default:
+                throw new IllegalStateException( "Unknown aggregate " + aggregates[aggregate] );
+            }
+        }
+
+        public Object result( int aggregate )
+        {
+            Object current = state[aggregate];
+            if ( current != null )
+            {
+                return current;
+            }
+            switch ( aggregates[aggregate] )
+            {
+            case COUNT_STAR:
+            case COUNT:
+            case SUM:
+                return 0L;
+            case COLLECT:
+                return new ArrayList<>();
+            default:
+                return null;
+            }
+        }
+    }
+
+    private static final class Key
+    {
+        private final Object[] values;
+        private final int hashCode;
+
+        Key( Object[] values )
+        {
+            this.values = values;
+            this.hashCode = Arrays.deepHashCode( values );
+        }
+
+        @Override
+        public boolean equals( Object other )
+        {
+            return other instanceof Key && Arrays.deepEquals( values, ((Key) other).values );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
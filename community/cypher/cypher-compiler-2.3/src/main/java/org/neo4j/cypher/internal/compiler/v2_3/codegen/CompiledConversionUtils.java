@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen;
+
+import org.neo4j.cypher.internal.compiler.v2_3.CypherTypeException;
+
+/**
+ * This is a helper class used by compiled plans for converting values to the primitive types the generated code
+ * works with
+ */
+public final class CompiledConversionUtils
+{
+    /**
+     * Do not instantiate this class
+     */
+    private CompiledConversionUtils()
+    {
+    }
+
+    /**
+     * Converts the value given to SKIP or LIMIT to the number of rows to skip or produce
+     */
+    public static long coerceToCount( Object value )
+    {
+        if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte )
+        {
+            long count = ((Number) value).longValue();
+            if ( count < 0 )
+            {
+                throw new CypherTypeException( "Expected a non-negative number of rows, got: " + count, null );
+            }
+            return count;
+        }
+        throw new CypherTypeException( "Expected an integer number of rows, got: " + value, null );
+    }
+}
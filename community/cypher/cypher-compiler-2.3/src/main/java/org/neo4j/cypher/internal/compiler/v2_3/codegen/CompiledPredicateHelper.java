@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import org.neo4j.cypher.internal.compiler.v2_3.CypherTypeException;
+import org.neo4j.cypher.internal.compiler.v2_3.IncomparableValuesException;
+
+/**
+ * This is a helper class used by compiled plans for evaluating predicates, using the three-valued logic of Cypher:
+ * a predicate evaluates to {@link Boolean#TRUE}, {@link Boolean#FALSE} or {@code null}.
+ */
+public final class CompiledPredicateHelper
+{
+    /**
+     * Do not instantiate this class
+     */
+    private CompiledPredicateHelper()
+    {
+    }
+
+    public static Object equal( Object lhs, Object rhs )
+    {
+        if ( lhs == null || rhs == null )
+        {
+            return null;
+        }
+        return equivalent( lhs, rhs );
+    }
+
+    public static Object not( Object value )
+    {
+        if ( value == null )
+        {
+            return null;
+        }
+        return !asBoolean( value );
+    }
+
+    public static Object and( Object lhs, Object rhs )
+    {
+        if ( isFalse( lhs ) || isFalse( rhs ) )
+        {
+            return Boolean.FALSE;
+        }
+        if ( lhs == null || rhs == null )
+        {
+            return null;
+        }
+        return Boolean.TRUE;
+    }
+
+    public static Object or( Object lhs, Object rhs )
+    {
+        if ( isTrue( lhs ) || isTrue( rhs ) )
+        {
+            return Boolean.TRUE;
+        }
+        if ( lhs == null || rhs == null )
+        {
+            return null;
+        }
+        return Boolean.FALSE;
+    }
+
+    public static Object lessThan( Object lhs, Object rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? null : comparison < 0;
+    }
+
+    public static Object lessThanOrEqual( Object lhs, Object rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? null : comparison <= 0;
+    }
+
+    public static Object greaterThan( Object lhs, Object rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? null : comparison > 0;
+    }
+
+    public static Object greaterThanOrEqual( Object lhs, Object rhs )
+    {
+        Integer comparison = compare( lhs, rhs );
+        return comparison == null ? null : comparison >= 0;
+    }
+
+    /**
+     * Only {@code true} passes a filter, both {@code false} and {@code null} reject the row
+     */
+    public static boolean isTrue( Object value )
+    {
+        return value != null && asBoolean( value );
+    }
+
+    private static boolean isFalse( Object value )
+    {
+        return value != null && !asBoolean( value );
+    }
+
+    private static boolean asBoolean( Object value )
+    {
+        if ( value instanceof Boolean )
+        {
+            return (Boolean) value;
+        }
+        throw new CypherTypeException( "Don't know how to treat that as a predicate: " + value, null );
+    }
+
+    private static Integer compare( Object lhs, Object rhs )
+    {
+        if ( lhs == null || rhs == null )
+        {
+            return null;
+        }
+        if ( lhs instanceof Number && rhs instanceof Number )
+        {
+            return compareNumbers( (Number) lhs, (Number) rhs );
+        }
+        if ( isTextual( lhs ) && isTextual( rhs ) )
+        {
+            return String.valueOf( lhs ).compareTo( String.valueOf( rhs ) );
+        }
+        if ( lhs instanceof Boolean && rhs instanceof Boolean )
+        {
+            return Boolean.compare( (Boolean) lhs, (Boolean) rhs );
+        }
+        throw new IncomparableValuesException( lhs.getClass().getSimpleName(), rhs.getClass().getSimpleName() );
+    }
+
+    private static boolean equivalent( Object lhs, Object rhs )
+    {
+        if ( lhs == rhs )
+        {
+            return true;
+        }
+        if ( lhs == null || rhs == null )
+        {
+            return false;
+        }
+        if ( lhs instanceof Number && rhs instanceof Number )
+        {
+            return compareNumbers( (Number) lhs, (Number) rhs ) == 0;
+        }
+        if ( isTextual( lhs ) && isTextual( rhs ) )
+        {
+            return String.valueOf( lhs ).equals( String.valueOf( rhs ) );
+        }
+        if ( isCollection( lhs ) && isCollection( rhs ) )
+        {
+            int size = sizeOf( lhs );
+            if ( size != sizeOf( rhs ) )
+            {
+                return false;
+            }
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( !equivalent( elementAt( lhs, i ), elementAt( rhs, i ) ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return lhs.equals( rhs );
+    }
+
+    private static int compareNumbers( Number lhs, Number rhs )
+    {
+        if ( isIntegral( lhs ) && isIntegral( rhs ) )
+        {
+            return Long.compare( lhs.longValue(), rhs.longValue() );
+        }
+        return Double.compare( lhs.doubleValue(), rhs.doubleValue() );
+    }
+
+    private static boolean isIntegral( Number number )
+    {
+        return number instanceof Long || number instanceof Integer ||
+               number instanceof Short || number instanceof Byte;
+    }
+
+    private static boolean isTextual( Object value )
+    {
+        return value instanceof String || value instanceof Character;
+    }
+
+    private static boolean isCollection( Object value )
+    {
+        return value instanceof List<?> || value.getClass().isArray();
+    }
+
+    private static int sizeOf( Object collection )
+    {
+        return collection instanceof List<?> ? ((List<?>) collection).size() : Array.getLength( collection );
+    }
+
+    private static Object elementAt( Object collection, int index )
+    {
+        return collection instanceof List<?> ? ((List<?>) collection).get( index ) : Array.get( collection, index );
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.neo4j.cypher.internal.compiler.v2_3.IncomparableValuesException;
+
+/**
+ * The rows collected by a compiled Sort, in the order given by the sort keys they were added with. Rows are sorted
+ * the first time they are iterated over, and rows with equal keys keep the order they were added in.
+ *
+ * @param <V> the generated type that holds the values of a row
+ */
+public final class CompiledSortTable<V> implements Iterable<V>
+{
+    public enum Order
+    {
+        ASCENDING, DESCENDING
+    }
+
+    private final Order[] orders;
+    private final ArrayList<Row<V>> rows = new ArrayList<>();
+    private boolean sorted = true;
+
+    public CompiledSortTable( Order... orders )
+    {
+        this.orders = orders;
+    }
+
+    public void add( V value, Object... keys )
+    {
+        rows.add( new Row<>( value, keys ) );
+        sorted = false;
+    }
+
+    @Override
+    public Iterator<V> iterator()
+    {
+        if ( !sorted )
+        {
+            Collections.sort( rows, new Comparator<Row<V>>()
+            {
+                @Override
+                public int compare( Row<V> lhs, Row<V> rhs )
+                {
+                    for ( int i = 0; i < orders.length; i++ )
+                    {
+                        int comparison = CompiledSortTable.compare( lhs.keys[i], rhs.keys[i] );
+                        if ( comparison != 0 )
+                        {
+                            return orders[i] == Order.ASCENDING ? comparison : -comparison;
+                        }
+                    }
+                    return 0;
+                }
+            } );
+            sorted = true;
+        }
+        final Iterator<Row<V>> inner = rows.iterator();
+        return new Iterator<V>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return inner.hasNext();
+            }
+
+            @Override
+            public V next()
+            {
+                return inner.next().value;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Compares two values the way ORDER BY does: values of the same type by their natural order, numbers of
+     * different types by their numeric value, and {@code null} after everything else.
+     */
+    public static int compare( Object lhs, Object rhs )
+    {
+        if ( lhs == null || rhs == null )
+        {
+            return lhs == null ? (rhs == null ? 0 : 1) : -1;
+        }
+        if ( lhs instanceof Comparable && lhs.getClass().isInstance( rhs ) )
+        {
+            @SuppressWarnings( "unchecked" )
+            Comparable<Object> comparable = (Comparable<Object>) lhs;
+            return comparable.compareTo( rhs );
+        }
+        if ( lhs instanceof Number && rhs instanceof Number )
+        {
+            if ( lhs instanceof Long || rhs instanceof Long )
+            {
+                return asBigDecimal( (Number) lhs ).compareTo( asBigDecimal( (Number) rhs ) );
+            }
+            return Double.compare( ((Number) lhs).doubleValue(), ((Number) rhs).doubleValue() );
+        }
+        if ( (lhs instanceof String || lhs instanceof Character) && (rhs instanceof String || rhs instanceof Character) )
+        {
+            return lhs.toString().compareTo( rhs.toString() );
+        }
+        throw new IncomparableValuesException( lhs.getClass().getSimpleName(), rhs.getClass().getSimpleName() );
+    }
+
+    private static BigDecimal asBigDecimal( Number number )
+    {
+        return number instanceof Long ? BigDecimal.valueOf( number.longValue() ) : BigDecimal.valueOf( number.doubleValue() );
+    }
+
+    private static final class Row<V>
+    {
+        private final V value;
+        private final Object[] keys;
+
+        Row( V value, Object[] keys )
+        {
+            this.value = value;
+            this.keys = keys;
+        }
+    }
+}
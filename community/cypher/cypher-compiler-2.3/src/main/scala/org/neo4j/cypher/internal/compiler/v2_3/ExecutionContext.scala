@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_3
 
 import mutation.UpdateAction
-import pipes.MutableMaps
+import pipes.{LongSlot, MutableMaps, SlottedMap}
 import collection.{immutable, Iterator}
 import collection.mutable.{Queue, Map => MutableMap}
 
@@ -36,6 +36,10 @@ case class ExecutionContext(m: MutableMap[String, Any] = MutableMaps.empty,
 
   def get(key: String): Option[Any] = m.get(key)
 
+  override def apply(key: String): Any = m(key)
+
+  override def contains(key: String): Boolean = m.contains(key)
+
   def iterator: Iterator[(String, Any)] = m.iterator
 
   override def size = m.size
@@ -96,6 +100,38 @@ case class ExecutionContext(m: MutableMap[String, Any] = MutableMaps.empty,
     createWithNewMap(newMap)
   }
 
+  // Rows of slotted plans keep nodes and relationships in the long slots resolved when the plan was built
+
+  def newWithEntity(slot: LongSlot, entity: AnyRef) = m match {
+    case slotted: SlottedMap if slotted.slots eq slot.configuration =>
+      val newMap = slotted.clone()
+      newMap.setEntityAt(slot, entity)
+      createWithNewMap(newMap)
+    case _ =>
+      newWith1(slot.name, entity)
+  }
+
+  def newWithEntities(slot1: LongSlot, entity1: AnyRef, slot2: LongSlot, entity2: AnyRef) = m match {
+    case slotted: SlottedMap if (slotted.slots eq slot1.configuration) && (slotted.slots eq slot2.configuration) =>
+      val newMap = slotted.clone()
+      newMap.setEntityAt(slot1, entity1)
+      newMap.setEntityAt(slot2, entity2)
+      createWithNewMap(newMap)
+    case _ =>
+      newWith2(slot1.name, entity1, slot2.name, entity2)
+  }
+
+  def getEntity(slot: LongSlot): Option[Any] = m match {
+    case slotted: SlottedMap if slotted.slots eq slot.configuration => slotted.getEntityAt(slot)
+    case _ => m.get(slot.name)
+  }
+
+  // the entity id in the slot, or SlottedMap.ABSENT if the row does not hold an entity id there
+  def longAt(slot: LongSlot): Long = m match {
+    case slotted: SlottedMap if slotted.slots eq slot.configuration => slotted.getLongAt(slot.offset)
+    case _ => SlottedMap.ABSENT
+  }
+
   override def clone(): ExecutionContext = createWithNewMap(m.clone())
 
   protected def createWithNewMap(newMap: MutableMap[String, Any]) = {
@@ -124,6 +124,14 @@ case class NotLike(lhs: Expression, pattern: LikePattern, caseInsensitive: Boole
   )
 }
 
+case class StartsWith(lhs: Expression, rhs: Expression)(val position: InputPosition) extends Expression with BinaryOperatorExpression with InfixFunctionTyping {
+  val signatures = Vector(
+    Signature(argumentTypes = Vector(CTString, CTString), outputType = CTBoolean)
+  )
+
+  override def canonicalOperatorSymbol = "STARTS WITH"
+}
+
 case class IsNull(lhs: Expression)(val position: InputPosition) extends Expression with RightUnaryOperatorExpression with PostfixFunctionTyping {
   val signatures = Vector(
     Signature(argumentTypes = Vector(CTAny), outputType = CTBoolean)
@@ -51,6 +51,7 @@ object ExpressionConverters {
       case e: ast.In => e.asCommandIn
       case e: ast.Like => e.asCommandRegex
       case e: ast.NotLike => e.asCommandNegatedRegex
+      case e: ast.StartsWith => e.asCommandStartsWith
       case e: ast.IsNull => e.asCommandIsNull
       case e: ast.IsNotNull => e.asCommandIsNotNull
       case e: ast.LessThan => e.asCommandLessThan
@@ -232,6 +233,11 @@ object ExpressionConverters {
       commands.Not(ast.Like(e.lhs, e.pattern, e.caseInsensitive)(e.position).asCommandPredicate)
     }
 
+  implicit class StartsWithConverter(val e: ast.StartsWith) extends AnyVal {
+    def asCommandStartsWith =
+      commands.StartsWith(e.lhs.asCommandExpression, e.rhs.asCommandExpression)
+  }
+
   implicit class InConverter(val e: ast.In) extends AnyVal {
     def asCommandIn =
       commands.AnyInCollection(
@@ -51,6 +51,8 @@ class CodeGenContext(val semanticTable: SemanticTable, idMap: immutable.Map[Logi
 
   def variableNames(): Set[String] = variables.keySet.toSet
 
+  def projectionNames(): Set[String] = projections.keySet.toSet
+
   def addProbeTable(plan: CodeGenPlan, codeThunk: JoinData) {
     probeTables.put(plan, codeThunk)
   }
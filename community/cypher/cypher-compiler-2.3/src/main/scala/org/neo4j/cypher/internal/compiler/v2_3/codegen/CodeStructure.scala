@@ -40,6 +40,7 @@ import org.neo4j.graphdb.Result.{ResultRow, ResultVisitor}
 import org.neo4j.graphdb.{Relationship, Direction, GraphDatabaseService, Node}
 import org.neo4j.helpers.collection.MapUtil
 import org.neo4j.kernel.api.exceptions.KernelException
+import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.kernel.api.properties.Property
 import org.neo4j.kernel.api.{ReadOperations, Statement, StatementTokenNameLookup, TokenNameLookup}
 import org.neo4j.kernel.impl.api.store.RelationshipIterator
@@ -57,6 +58,10 @@ sealed trait JoinTableType
 
 case object LongToCountTable extends JoinTableType
 case class LongToListTable(structure:Map[String,CypherType], localMap:Map[String,String]) extends JoinTableType
+// the rows of a Sort, sortKeys are the fields of the structure to sort by together with whether they sort descending
+case class SortTable(structure:Map[String,CypherType], localMap:Map[String,String], sortKeys:Seq[(String,Boolean)]) extends JoinTableType
+// the groups of an Aggregation, keys and aggregates hold the local each of them is loaded into when scanning the table
+case class AggregationTable(keys:Seq[(String,CypherType)], aggregates:Seq[(String,CompiledAggregationTable.Aggregate)]) extends JoinTableType
 
 trait MethodStructure[E] {
 
@@ -72,6 +77,16 @@ trait MethodStructure[E] {
 
   def updateProbeTableCount(tableVar: String, keyVar: String): Unit
 
+  def setField(structure: Map[String, CypherType], value: E, fieldType: CypherType, fieldName: String, fieldValue: E): Unit
+
+  def updateSortTable(tableVar: String, tableType: SortTable, element: E): Unit
+
+  def aggregationGroup(groupVar: String, tableVar: String, keys: Seq[E]): Unit
+
+  def updateAggregate(groupVar: String, aggregate: Int, value: E): Unit
+
+  def scanTable(tableVar: String, tableType: JoinTableType)(block: MethodStructure[E]=>Unit): Unit
+
   def allocateProbeTable(tableVar: String, tableType: JoinTableType): Unit
 
   def method(resultType: JoinTableType, resultVar: String, methodName: String)(block: MethodStructure[E]=>Unit): Unit
@@ -88,6 +103,34 @@ trait MethodStructure[E] {
 
   def constant(value: Object): E
 
+  // predicates
+  def not(value: E): E
+
+  def and(lhs: E, rhs: E): E
+
+  def or(lhs: E, rhs: E): E
+
+  def equalTo(lhs: E, rhs: E): E
+
+  def lessThan(lhs: E, rhs: E): E
+
+  def lessThanOrEqual(lhs: E, rhs: E): E
+
+  def greaterThan(lhs: E, rhs: E): E
+
+  def greaterThanOrEqual(lhs: E, rhs: E): E
+
+  def isTrue(predicate: E): E
+
+  // counters
+  def declareCounter(name: String, initialValue: E): Unit
+
+  def decreaseCounter(name: String): Unit
+
+  def counterIsPositive(name: String): E
+
+  def counterIsZero(name: String): E
+
   // parameters
   def expectParameter(key: String): Unit
 
@@ -129,9 +172,20 @@ trait MethodStructure[E] {
 
   def lookupPropertyKey(propName: String, propVar: String)
 
+  def nodeHasLabel(nodeIdVar: String, labelIdVar: String, predicateVar: String): Unit
+
+  def newIndexDescriptor(descriptorVar: String, labelId: Int, propertyKeyId: Int): Unit
+
+  def indexSeek(iterVar: String, descriptorVar: String, value: E): Unit
+
   // code structure
   def whileLoop(test: E)(block: MethodStructure[E]=>Unit): Unit
 
+  def ifStatement(test: E)(block: MethodStructure[E]=>Unit): Unit
+
+  // stops producing rows, used when no more rows can be produced by the current method
+  def returnEarly(): Unit
+
   // results
   def materializeNode(nodeIdVar: String): E
 
@@ -254,7 +308,7 @@ private class AuxGenerator(val packageName: String, val generator: codegen.CodeG
   }
 }
 
-private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator, tracing: Boolean = true, event: Option[String] = None, var locals:Map[String,LocalVariable]=Map.empty) extends MethodStructure[Expression] {
+private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator, tracing: Boolean = true, event: Option[String] = None, var locals:Map[String,LocalVariable]=Map.empty, returnValue: Option[String] = None) extends MethodStructure[Expression] {
 
   import CodeStructure.typeRef
 
@@ -293,6 +347,20 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
       block(copy(generator = body))
     }
 
+  override def ifStatement(test: Expression)(block: MethodStructure[Expression] => Unit) =
+    using(generator.ifStatement(test)) { body =>
+      block(copy(generator = body))
+    }
+
+  override def returnEarly() = returnValue match {
+    case Some(resultVar) =>
+      // we are building a probe table, which is complete as it is
+      generator.returns(generator.load(resultVar))
+    case None =>
+      generator.expression(Expression.invoke(generator.self(), fields.success))
+      generator.returns()
+  }
+
   override def setInRow(column: String, value: Expression) =
     generator.expression(Expression.invoke(resultRow, Methods.set, Expression.constant(column), value))
 
@@ -335,6 +403,39 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
 
   override def constant(value: Object) = Expression.constant(value)
 
+  override def not(value: Expression) = Expression.invoke(Methods.not, value)
+
+  override def and(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.and, lhs, rhs)
+
+  override def or(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.or, lhs, rhs)
+
+  override def equalTo(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.equal, lhs, rhs)
+
+  override def lessThan(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.lessThan, lhs, rhs)
+
+  override def lessThanOrEqual(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.lessThanOrEqual, lhs, rhs)
+
+  override def greaterThan(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.greaterThan, lhs, rhs)
+
+  override def greaterThanOrEqual(lhs: Expression, rhs: Expression) = Expression.invoke(Methods.greaterThanOrEqual, lhs, rhs)
+
+  override def isTrue(predicate: Expression) = Expression.invoke(Methods.isTrue, predicate)
+
+  override def declareCounter(name: String, initialValue: Expression) = {
+    val counter = generator.declare(typeRef[Long], name)
+    locals = locals + (name -> counter)
+    generator.assign(counter, Expression.invoke(Methods.coerceToCount, initialValue))
+  }
+
+  override def decreaseCounter(name: String) = {
+    val counter = locals(name)
+    generator.assign(counter, Expression.sub(counter, Expression.constant(1L)))
+  }
+
+  override def counterIsPositive(name: String) = Expression.gt(locals(name), Expression.constant(0L))
+
+  override def counterIsZero(name: String) = Expression.eq(locals(name), Expression.constant(0L))
+
   override def nodeGetAllRelationships(iterVar: String, nodeVar: String, direction: Direction) = {
     val local = generator.declare(typeRef[RelationshipIterator], iterVar)
     Templates.handleExceptions(generator, fields.ro) { body =>
@@ -394,7 +495,7 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
     generator.assign(returnType, resultVar, Expression.invoke(generator.self(),MethodReference.methodReference(generator.owner(),returnType, methodName)))
     using(generator.classGenerator().generateMethod(returnType, methodName)) { body =>
       body.assign(typeRef[RelationshipDataExtractor], "rel", Templates.newRelationshipDataExtractor)
-      block(copy(generator = body, event = None))
+      block(copy(generator = body, event = None, returnValue = Some(resultVar)))
       body.returns(body.load(resultVar))
     }
   }
@@ -407,6 +508,8 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
       case LongToCountTable => typeRef[PrimitiveLongIntMap]
       case LongToListTable(structure,_) => TypeReference.parameterizedType(classOf[PrimitiveLongObjectMap[_]],
         TypeReference.parameterizedType(classOf[util.ArrayList[_]], aux.typeReference(structure)))
+      case SortTable(structure,_,_) => TypeReference.parameterizedType(classOf[CompiledSortTable[_]], aux.typeReference(structure))
+      case AggregationTable(_,_) => typeRef[CompiledAggregationTable]
     }
     returnType
   }
@@ -414,6 +517,20 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
   private def allocate(resultType: JoinTableType): Expression = resultType match {
     case LongToCountTable => Templates.newCountingMap
     case LongToListTable(_,_) => Templates.newLongObjectMap
+    case SortTable(_,_,sortKeys) =>
+      val tableType = joinTableType(resultType)
+      Expression.invoke(Expression.newInstance(tableType),
+        MethodReference.constructorReference(tableType, typeRef[Array[CompiledSortTable.Order]]),
+        sortKeys.map {
+          case (_, false) => Templates.ascending
+          case (_, true) => Templates.descending
+        }: _*)
+    case AggregationTable(keys, aggregates) =>
+      Expression.invoke(Expression.newInstance(typeRef[CompiledAggregationTable]),
+        MethodReference.constructorReference(typeRef[CompiledAggregationTable], typeRef[Int], typeRef[Array[CompiledAggregationTable.Aggregate]]),
+        Expression.constant(Int.box(keys.size)) +: aggregates.map {
+          case (_, aggregate) => Expression.get(CodeStructure.staticField[CompiledAggregationTable.Aggregate, CompiledAggregationTable.Aggregate](aggregate.name()))
+        }: _*)
   }
 
   override def updateProbeTableCount(tableVar: String, keyVar: String) = {
@@ -452,12 +569,64 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
           block(copy(generator=forEach))
         }
       }
+    case _ =>
+      throw new IllegalArgumentException(s"Can not probe $tableType")
   }
 
   override def putField(structure: Map[String, CypherType],value: Expression, fieldType: CypherType, fieldName: String, localVar: String) = {
     generator.put(value, field(structure, fieldType, fieldName), generator.load(localVar))
   }
 
+  override def setField(structure: Map[String, CypherType], value: Expression, fieldType: CypherType, fieldName: String, fieldValue: Expression) =
+    generator.put(value, field(structure, fieldType, fieldName), fieldValue)
+
+  override def updateSortTable(tableVar: String, tableType: SortTable, element: Expression) = {
+    val keys = tableType.sortKeys.map {
+      case (fieldName, _) => Expression.get(element, field(tableType.structure, tableType.structure(fieldName), fieldName))
+    }
+    generator.expression(Expression.invoke(generator.load(tableVar), Methods.sortTableAdd, element +: keys: _*))
+  }
+
+  override def aggregationGroup(groupVar: String, tableVar: String, keys: Seq[Expression]) =
+    generator.assign(typeRef[CompiledAggregationTable.Group], groupVar,
+      Expression.invoke(generator.load(tableVar), Methods.aggregationTableGroup, keys: _*))
+
+  override def updateAggregate(groupVar: String, aggregate: Int, value: Expression) =
+    generator.expression(Expression.invoke(generator.load(groupVar), Methods.groupUpdate, Expression.constant(Int.box(aggregate)), value))
+
+  override def scanTable(tableVar: String, tableType: JoinTableType)(block: MethodStructure[Expression] => Unit) = {
+    val rowVar = s"${tableVar}Row"
+    tableType match {
+      case SortTable(structure, localMap, _) =>
+        val valueType = aux.typeReference(structure)
+        using(generator.forEach(Parameter.param(valueType, rowVar), generator.load(tableVar))) { forEach =>
+          localMap.foreach {
+            case (local, fieldName) =>
+              val fieldType = CodeStructure.lowerType(structure(fieldName))
+              forEach.assign(fieldType, local, Expression.get(forEach.load(rowVar), FieldReference.field(valueType, fieldType, fieldName)))
+          }
+          block(copy(generator = forEach))
+        }
+      case AggregationTable(keys, aggregates) =>
+        using(generator.forEach(Parameter.param(typeRef[CompiledAggregationTable.Group], rowVar), generator.load(tableVar))) { forEach =>
+          keys.zipWithIndex.foreach {
+            case ((local, keyType), offset) =>
+              val keyMethod = if (keyType == symbols.CTAny) Methods.groupKey else Methods.groupLongKey
+              forEach.assign(CodeStructure.lowerType(keyType), local,
+                Expression.invoke(forEach.load(rowVar), keyMethod, Expression.constant(Int.box(offset))))
+          }
+          aggregates.zipWithIndex.foreach {
+            case ((local, _), offset) =>
+              forEach.assign(typeRef[Object], local,
+                Expression.invoke(forEach.load(rowVar), Methods.groupResult, Expression.constant(Int.box(offset))))
+          }
+          block(copy(generator = forEach))
+        }
+      case _ =>
+        throw new IllegalArgumentException(s"Can not scan $tableType")
+    }
+  }
+
   override def updateProbeTable(structure: Map[String, CypherType], tableVar: String, keyVar: String, element: Expression) = {
     // compute the participating types
     val valueType = aux.typeReference(structure)
@@ -519,6 +688,27 @@ private case class Method(fields: Fields, generator: CodeBlock, aux:AuxGenerator
     }
   }
 
+  override def nodeHasLabel(nodeIdVar: String, labelIdVar: String, predicateVar: String) = {
+    val local = locals(predicateVar)
+    Templates.handleExceptions(generator, fields.ro) { body =>
+      body.assign(local, Expression.invoke(Methods.boxBoolean,
+        Expression.invoke(readOperations, Methods.nodeHasLabel, body.load(nodeIdVar), body.load(labelIdVar))))
+    }
+  }
+
+  override def newIndexDescriptor(descriptorVar: String, labelId: Int, propertyKeyId: Int) =
+    generator.assign(typeRef[IndexDescriptor], descriptorVar, Expression.invoke(
+      Expression.newInstance(typeRef[IndexDescriptor]),
+      MethodReference.constructorReference(typeRef[IndexDescriptor], typeRef[Int], typeRef[Int]),
+      Expression.constant(Int.box(labelId)), Expression.constant(Int.box(propertyKeyId))))
+
+  override def indexSeek(iterVar: String, descriptorVar: String, value: Expression) = {
+    val local = generator.declare(typeRef[PrimitiveLongIterator], iterVar)
+    Templates.handleExceptions(generator, fields.ro) { body =>
+      body.assign(local, Expression.invoke(readOperations, Methods.nodesGetFromIndexLookup, body.load(descriptorVar), value))
+    }
+  }
+
   override def lookupPropertyKey(propName: String, propIdVar: String) =
     generator.assign(typeRef[Int], propIdVar, Expression.invoke(readOperations, Methods.propertyKeyGetForName ,Expression.constant(propName)))
 
@@ -549,6 +739,17 @@ private object Methods {
   val nodeGetRelationships = method[ReadOperations, RelationshipIterator]("nodeGetRelationships", typeRef[Long], typeRef[Direction], typeRef[Array[Int]])
   val mathAdd = method[CompiledMathHelper, Object]("add", typeRef[Object], typeRef[Object])
   val mathSub = method[CompiledMathHelper, Object]("subtract", typeRef[Object], typeRef[Object])
+  val not = method[CompiledPredicateHelper, Object]("not", typeRef[Object])
+  val and = method[CompiledPredicateHelper, Object]("and", typeRef[Object], typeRef[Object])
+  val or = method[CompiledPredicateHelper, Object]("or", typeRef[Object], typeRef[Object])
+  val equal = method[CompiledPredicateHelper, Object]("equal", typeRef[Object], typeRef[Object])
+  val lessThan = method[CompiledPredicateHelper, Object]("lessThan", typeRef[Object], typeRef[Object])
+  val lessThanOrEqual = method[CompiledPredicateHelper, Object]("lessThanOrEqual", typeRef[Object], typeRef[Object])
+  val greaterThan = method[CompiledPredicateHelper, Object]("greaterThan", typeRef[Object], typeRef[Object])
+  val greaterThanOrEqual = method[CompiledPredicateHelper, Object]("greaterThanOrEqual", typeRef[Object], typeRef[Object])
+  val isTrue = method[CompiledPredicateHelper, Boolean]("isTrue", typeRef[Object])
+  val coerceToCount = method[CompiledConversionUtils, Long]("coerceToCount", typeRef[Object])
+  val boxBoolean = method[java.lang.Boolean, java.lang.Boolean]("valueOf", typeRef[Boolean])
   val mapGet = method[util.Map[String, Object], Object]("get", typeRef[String])
   val mapContains = method[util.Map[String, Object], Boolean]("containsKey", typeRef[String])
   val labelGetForName = method[ReadOperations, Int]("labelGetForName", typeRef[String])
@@ -558,6 +759,8 @@ private object Methods {
   val nodeGetProperty = method[ReadOperations, Object]("nodeGetProperty")
   val relationshipGetProperty = method[ReadOperations, Object]("relationshipGetProperty")
   val nodesGetForLabel = method[ReadOperations, PrimitiveLongIterator]("nodesGetForLabel", typeRef[Long])
+  val nodesGetFromIndexLookup = method[ReadOperations, PrimitiveLongIterator]("nodesGetFromIndexLookup", typeRef[IndexDescriptor], typeRef[Object])
+  val nodeHasLabel = method[ReadOperations, Boolean]("nodeHasLabel", typeRef[Long], typeRef[Int])
   val nextLong = method[PrimitiveLongIterator, Long]("next")
   val getNodeById = method[GraphDatabaseService, Node]("getNodeById")
   val getRelationshipById = method[GraphDatabaseService, Relationship]("getRelationshipById")
@@ -567,6 +770,12 @@ private object Methods {
   val dbHit = method[QueryExecutionEvent, Unit]("dbHit")
   val row = method[QueryExecutionEvent, Unit]("row")
   val value = method[Property, Object]("value", typeRef[Object])
+  val sortTableAdd = method[CompiledSortTable[_], Unit]("add", typeRef[Object], typeRef[Array[Object]])
+  val aggregationTableGroup = method[CompiledAggregationTable, CompiledAggregationTable.Group]("group", typeRef[Array[Object]])
+  val groupUpdate = method[CompiledAggregationTable.Group, Unit]("update", typeRef[Int], typeRef[Object])
+  val groupKey = method[CompiledAggregationTable.Group, Object]("key", typeRef[Int])
+  val groupLongKey = method[CompiledAggregationTable.Group, Long]("longKey", typeRef[Int])
+  val groupResult = method[CompiledAggregationTable.Group, Object]("result", typeRef[Int])
 }
 
 private object Templates {
@@ -605,6 +814,8 @@ private object Templates {
   val incoming = Expression.get(staticField[Direction, Direction](Direction.INCOMING.name()))
   val outgoing = Expression.get(staticField[Direction, Direction](Direction.OUTGOING.name()))
   val both = Expression.get(staticField[Direction, Direction](Direction.BOTH.name()))
+  val ascending = Expression.get(staticField[CompiledSortTable.Order, CompiledSortTable.Order](CompiledSortTable.Order.ASCENDING.name()))
+  val descending = Expression.get(staticField[CompiledSortTable.Order, CompiledSortTable.Order](CompiledSortTable.Order.DESCENDING.name()))
   val newResultRow = Expression.invoke(Expression.newInstance(typeRef[ResultRowImpl]), MethodReference.constructorReference(typeRef[ResultRowImpl]))
   val newRelationshipDataExtractor = Expression.invoke(Expression.newInstance(typeRef[RelationshipDataExtractor]), MethodReference.constructorReference(typeRef[RelationshipDataExtractor]))
 
@@ -21,8 +21,13 @@ package org.neo4j.cypher.internal.compiler.v2_3.codegen
 
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
 import org.neo4j.cypher.internal.compiler.v2_3.codegen.ir._
+import org.neo4j.cypher.internal.compiler.v2_3.commands.SingleQueryExpression
+import org.neo4j.cypher.internal.compiler.v2_3.functions
+import org.neo4j.cypher.internal.compiler.v2_3.pipes.Descending
 import org.neo4j.cypher.internal.compiler.v2_3.planner.CantCompileQueryException
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans.{Limit, Skip}
+import org.neo4j.cypher.internal.compiler.v2_3.symbols.{CTAny, CTNode, CTRelationship, CypherType}
 import org.neo4j.helpers.ThisShouldNotHappenError
 
 object LogicalPlanConverter {
@@ -33,10 +38,16 @@ object LogicalPlanConverter {
       case p: SingleRow => p
       case p: AllNodesScan => p
       case p: NodeByLabelScan => p
+      case p: NodeIndexSeek => p
       case p: ProduceResult => p
       case p: Expand => p
       case p: NodeHashJoin => p
       case p: Projection => p
+      case p: Selection => p
+      case p: Limit => p
+      case p: Skip => p
+      case p: Aggregation => p
+      case p: Sort => p
 
       case _ =>
         throw new CantCompileQueryException(s"$logicalPlan is not yet supported")
@@ -74,6 +85,24 @@ object LogicalPlanConverter {
     }
   }
 
+  private implicit class NodeIndexSeekCodeGen(val logicalPlan: NodeIndexSeek) extends LeafCodeGenPlan {
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      val valueExpr = logicalPlan.valueExpr match {
+        case SingleQueryExpression(expr) => expr
+        case other => throw new CantCompileQueryException(s"Index seek on $other not yet supported")
+      }
+      val nodeVar = context.namer.newVarName()
+      val descriptorVar = context.namer.newVarName()
+      context.addVariable(logicalPlan.idName.name, nodeVar)
+      val value = createProjectionInstruction(logicalPlan, valueExpr, context)
+      val (methodHandle, actions) = context.popParent().consume(context, this)
+      val opName = context.registerOperator(logicalPlan)
+      val seek = IndexSeek(opName, logicalPlan.label.nameId.id, logicalPlan.propertyKey.nameId.id, descriptorVar, value)
+      (methodHandle, Seq(WhileLoop(nodeVar, seek, actions)))
+    }
+  }
+
   private implicit class NodeHashJoinCodeGen(val logicalPlan: NodeHashJoin) extends CodeGenPlan {
 
     override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
@@ -186,57 +215,277 @@ object LogicalPlanConverter {
 
       (methodHandle, Project(projectionInstructions, action))
     }
+  }
+
+  private implicit class SelectionCodeGen(val logicalPlan: Selection) extends CodeGenPlan {
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      logicalPlan.lhs.get.asCodeGenPlan.produce(context)
+    }
 
-    private def createProjectionInstruction(logicalPlan: Projection, expression: Expression, context: CodeGenContext): ProjectionInstruction = {
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val predicates = logicalPlan.predicates.map(createProjectionInstruction(logicalPlan, _, context))
+      val opName = context.registerOperator(logicalPlan)
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      (methodHandle, SelectionC(opName, predicates, action))
+    }
+  }
 
-      expression match {
-        case node@Identifier(name) if context.semanticTable.isNode(node) =>
-          ProjectNode(context.getVariable(name))
+  private implicit class LimitCodeGen(val logicalPlan: Limit) extends CodeGenPlan {
 
-        case rel@Identifier(name) if context.semanticTable.isRelationship(rel) =>
-          ProjectRelationship(context.getVariable(name))
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      logicalPlan.lhs.get.asCodeGenPlan.produce(context)
+    }
 
-        case Property(node@Identifier(name), propKey) if context.semanticTable.isNode(node) =>
-          val token = propKey.id(context.semanticTable).map(_.id)
-          val opName = context.registerOperator(logicalPlan)
-          ProjectNodeProperty(opName, token, propKey.name, context.getVariable(name), context.namer)
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val count = createProjectionInstruction(logicalPlan, logicalPlan.count, context)
+      val counterVar = context.namer.newVarName()
+      val opName = context.registerOperator(logicalPlan)
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      (methodHandle, LimitC(opName, counterVar, count, action))
+    }
+  }
+
+  private implicit class SkipCodeGen(val logicalPlan: Skip) extends CodeGenPlan {
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      logicalPlan.lhs.get.asCodeGenPlan.produce(context)
+    }
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val count = createProjectionInstruction(logicalPlan, logicalPlan.count, context)
+      val counterVar = context.namer.newVarName()
+      val opName = context.registerOperator(logicalPlan)
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      (methodHandle, SkipC(opName, counterVar, count, action))
+    }
+  }
+
+  private implicit class AggregationCodeGen(val logicalPlan: Aggregation) extends CodeGenPlan {
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      val (Some(symbol), childInstructions) = logicalPlan.lhs.get.asCodeGenPlan.produce(context)
+      val opName = context.registerOperator(logicalPlan)
+      val buildTable = MethodInvocation(Some(opName), symbol, context.namer.newMethodName(), childInstructions)
+      val table = context.getProbeTable(this)
+
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      (methodHandle, Seq(buildTable, ScanTable(table, action)))
+    }
 
-        case Property(rel@Identifier(name), propKey) if context.semanticTable.isRelationship(rel) =>
-          val token = propKey.id(context.semanticTable).map(_.id)
-          val opName = context.registerOperator(logicalPlan)
-          ProjectRelProperty(opName, token, propKey.name, context.getVariable(name), context.namer)
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(logicalPlan)
+      val tableVar = context.namer.newVarName()
+      val groupingExpressions = logicalPlan.groupingExpressions.toSeq
+      val aggregationExpressions = logicalPlan.aggregationExpression.toSeq
+
+      // nodes and relationships are grouped by their ids, so the rest of the query can keep using them as such
+      val keyTypes: Seq[CypherType] = groupingExpressions.map {
+        case (_, id: Identifier) if context.semanticTable.isNode(id) => CTNode
+        case (_, id: Identifier) if context.semanticTable.isRelationship(id) => CTRelationship
+        case _ => CTAny
+      }
+      val keys = groupingExpressions.zip(keyTypes).map {
+        case ((_, Identifier(name)), CTNode | CTRelationship) => ProjectLocal(context.getVariable(name))
+        case ((_, expression), _) => createProjectionInstruction(logicalPlan, expression, context)
+      }
+      val (aggregates, values) = aggregationExpressions.map {
+        case (_, expression) => createAggregate(logicalPlan, expression, context)
+      }.unzip
+
+      // after the aggregation only the grouping keys and the aggregates are left, read from each group of the table
+      val keyLocals = groupingExpressions.zip(keyTypes).map {
+        case ((name, _), keyType) =>
+          val local = context.namer.newVarName()
+          keyType match {
+            case CTNode =>
+              context.addVariable(name, local)
+              context.addProjection(name, ProjectNode(local))
+            case CTRelationship =>
+              context.addVariable(name, local)
+              context.addProjection(name, ProjectRelationship(local))
+            case _ =>
+              context.addProjection(name, ProjectLocal(local))
+          }
+          local -> keyType
+      }
+      val aggregateLocals = aggregationExpressions.zip(aggregates).map {
+        case ((name, _), aggregate) =>
+          val local = context.namer.newVarName()
+          context.addProjection(name, ProjectLocal(local))
+          local -> aggregate
+      }
 
-        case Parameter(name) => ProjectParameter(name)
+      val tableType = AggregationTable(keyLocals, aggregateLocals)
+      context.addProbeTable(this, JoinData(Map.empty, tableVar, tableType, opName))
 
-        case lit: IntegerLiteral => ProjectLiteral(lit.value)
+      val groupVar = context.namer.newVarName()
+      (Some(JoinTableMethod(tableVar, tableType)), BuildAggregationTable(opName, tableVar, tableType, groupVar, keys, values))
+    }
+  }
 
-        case lit: DoubleLiteral => ProjectLiteral(lit.value)
+  private implicit class SortCodeGen(val logicalPlan: Sort) extends CodeGenPlan {
 
-        case lit: StringLiteral => ProjectLiteral(lit.value)
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      val (Some(symbol), childInstructions) = logicalPlan.lhs.get.asCodeGenPlan.produce(context)
+      val opName = context.registerOperator(logicalPlan)
+      val buildTable = MethodInvocation(Some(opName), symbol, context.namer.newMethodName(), childInstructions)
+      val table = context.getProbeTable(this)
 
-        case lit: Literal => ProjectLiteral(lit.value)
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      (methodHandle, Seq(buildTable, ScanTable(table, action)))
+    }
 
-        case Collection(exprs) =>
-          ProjectCollection(exprs.map(e => createProjectionInstruction(logicalPlan, e, context)))
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(logicalPlan)
+      val tableVar = context.namer.newVarName()
+      val available = logicalPlan.lhs.get.availableSymbols.map(_.name)
+
+      // node and relationship ids are kept in the same locals, projected values are evaluated before sorting
+      val variables = (available intersect context.variableNames()).toSeq.map { name =>
+        context.namer.newVarName() -> context.getVariable(name)
+      }.toMap
+      val projections = (available intersect context.projectionNames()).toSeq.map { name =>
+        name -> (context.namer.newVarName(), context.getProjection(name))
+      }.toMap
+
+      val sortKeys = logicalPlan.sortItems.map { item =>
+        val (fieldName, _) = projections.getOrElse(item.id,
+          throw new CantCompileQueryException(s"Sorting on ${item.id} is not yet supported"))
+        fieldName -> item.isInstanceOf[Descending]
+      }
 
-        case Add(lhs, rhs) =>
-          val leftOp = createProjectionInstruction(logicalPlan, lhs, context)
-          val rightOp = createProjectionInstruction(logicalPlan, rhs, context)
-          ProjectAddition(leftOp, rightOp)
+      val projectionLocals = projections.map {
+        case (name, (fieldName, _)) =>
+          val local = context.namer.newVarName()
+          context.addProjection(name, ProjectLocal(local))
+          local -> fieldName
+      }
+      val structure: Map[String, CypherType] =
+        variables.map { case (fieldName, _) => fieldName -> (CTNode: CypherType) } ++
+          projections.values.map { case (fieldName, _) => fieldName -> (CTAny: CypherType) }
+      val localMap = variables.map { case (fieldName, local) => local -> fieldName } ++ projectionLocals
 
-        case Subtract(lhs, rhs) =>
-          val leftOp = createProjectionInstruction(logicalPlan, lhs, context)
-          val rightOp = createProjectionInstruction(logicalPlan, rhs, context)
-          ProjectSubtraction(leftOp, rightOp)
+      val tableType = SortTable(structure, localMap, sortKeys)
+      context.addProbeTable(this, JoinData(Map.empty, tableVar, tableType, opName))
 
-        case MapExpression(items: Seq[(PropertyKeyName, Expression)]) =>
-          val map = items.map {
-            case (key, expr) => (key.name, createProjectionInstruction(logicalPlan, expr, context))
-          }.toMap
-          ProjectMap(map)
+      val values = projections.values.toMap
+      (Some(JoinTableMethod(tableVar, tableType)), BuildSortTable(opName, tableVar, tableType, variables, values, context.namer))
+    }
+  }
 
-        case other => throw new CantCompileQueryException(s"Projection of $other not yet supported")
+  private def createAggregate(logicalPlan: LogicalPlan, expression: Expression, context: CodeGenContext):
+  (CompiledAggregationTable.Aggregate, Option[ProjectionInstruction]) = expression match {
+    case _: CountStar =>
+      (CompiledAggregationTable.Aggregate.COUNT_STAR, None)
+
+    case invocation@FunctionInvocation(_, false, IndexedSeq(value)) =>
+      val aggregate = invocation.function match {
+        case Some(functions.Count) => CompiledAggregationTable.Aggregate.COUNT
+        case Some(functions.Sum) => CompiledAggregationTable.Aggregate.SUM
+        case Some(functions.Min) => CompiledAggregationTable.Aggregate.MIN
+        case Some(functions.Max) => CompiledAggregationTable.Aggregate.MAX
+        case Some(functions.Collect) => CompiledAggregationTable.Aggregate.COLLECT
+        case _ => throw new CantCompileQueryException(s"Aggregation of $expression not yet supported")
       }
+      (aggregate, Some(createProjectionInstruction(logicalPlan, value, context)))
+
+    case other => throw new CantCompileQueryException(s"Aggregation of $other not yet supported")
+  }
+
+  private def createProjectionInstruction(logicalPlan: LogicalPlan, expression: Expression, context: CodeGenContext): ProjectionInstruction = {
+
+    expression match {
+      case node@Identifier(name) if context.semanticTable.isNode(node) =>
+        ProjectNode(context.getVariable(name))
+
+      case rel@Identifier(name) if context.semanticTable.isRelationship(rel) =>
+        ProjectRelationship(context.getVariable(name))
+
+      case Property(node@Identifier(name), propKey) if context.semanticTable.isNode(node) =>
+        val token = propKey.id(context.semanticTable).map(_.id)
+        val opName = context.registerOperator(logicalPlan)
+        ProjectNodeProperty(opName, token, propKey.name, context.getVariable(name), context.namer)
+
+      case Property(rel@Identifier(name), propKey) if context.semanticTable.isRelationship(rel) =>
+        val token = propKey.id(context.semanticTable).map(_.id)
+        val opName = context.registerOperator(logicalPlan)
+        ProjectRelProperty(opName, token, propKey.name, context.getVariable(name), context.namer)
+
+      case Parameter(name) => ProjectParameter(name)
+
+      case lit: IntegerLiteral => ProjectLiteral(lit.value)
+
+      case lit: DoubleLiteral => ProjectLiteral(lit.value)
+
+      case lit: StringLiteral => ProjectLiteral(lit.value)
+
+      case _: BooleanLiteral =>
+        throw new CantCompileQueryException("Boolean literals are not yet supported")
+
+      case lit: Literal => ProjectLiteral(lit.value)
+
+      case Collection(exprs) =>
+        ProjectCollection(exprs.map(e => createProjectionInstruction(logicalPlan, e, context)))
+
+      case Add(lhs, rhs) =>
+        val leftOp = createProjectionInstruction(logicalPlan, lhs, context)
+        val rightOp = createProjectionInstruction(logicalPlan, rhs, context)
+        ProjectAddition(leftOp, rightOp)
+
+      case Subtract(lhs, rhs) =>
+        val leftOp = createProjectionInstruction(logicalPlan, lhs, context)
+        val rightOp = createProjectionInstruction(logicalPlan, rhs, context)
+        ProjectSubtraction(leftOp, rightOp)
+
+      case MapExpression(items: Seq[(PropertyKeyName, Expression)]) =>
+        val map = items.map {
+          case (key, expr) => (key.name, createProjectionInstruction(logicalPlan, expr, context))
+        }.toMap
+        ProjectMap(map)
+
+      case HasLabels(node@Identifier(name), labels) if context.semanticTable.isNode(node) =>
+        val opName = context.registerOperator(logicalPlan)
+        val nodeIdVar = context.getVariable(name)
+        labels.map(label => ProjectHasLabel(opName, nodeIdVar, label.name, context.namer))
+          .reduceLeft[ProjectionInstruction](ProjectAnd(_, _))
+
+      case Not(inner) =>
+        ProjectNot(createProjectionInstruction(logicalPlan, inner, context))
+
+      case And(lhs, rhs) =>
+        ProjectAnd(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case Or(lhs, rhs) =>
+        ProjectOr(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case Ands(exprs) =>
+        exprs.toSeq.map(e => createProjectionInstruction(logicalPlan, e, context)).reduceLeft[ProjectionInstruction](ProjectAnd(_, _))
+
+      case Ors(exprs) =>
+        exprs.toSeq.map(e => createProjectionInstruction(logicalPlan, e, context)).reduceLeft[ProjectionInstruction](ProjectOr(_, _))
+
+      case Equals(lhs, rhs) =>
+        ProjectEquals(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case LessThan(lhs, rhs) =>
+        ProjectLessThan(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case LessThanOrEqual(lhs, rhs) =>
+        ProjectLessThanOrEqual(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case GreaterThan(lhs, rhs) =>
+        ProjectGreaterThan(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case GreaterThanOrEqual(lhs, rhs) =>
+        ProjectGreaterThanOrEqual(createProjectionInstruction(logicalPlan, lhs, context), createProjectionInstruction(logicalPlan, rhs, context))
+
+      case other => throw new CantCompileQueryException(s"Projection of $other not yet supported")
     }
   }
 }
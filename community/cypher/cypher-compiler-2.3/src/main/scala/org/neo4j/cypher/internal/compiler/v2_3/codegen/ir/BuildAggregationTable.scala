@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v2_3.codegen.{AggregationTable, MethodStructure}
+
+/*
+ * Looks up the group of the current row and updates its aggregates. Aggregates that do not take a value, like
+ * count(*), are given no value instruction.
+ */
+case class BuildAggregationTable(id: String, tableVar: String, tableType: AggregationTable, groupVar: String,
+                                 keys: Seq[ProjectionInstruction], values: Seq[Option[ProjectionInstruction]])
+  extends Instruction {
+
+  override def init[E](generator: MethodStructure[E]) = {
+    generator.allocateProbeTable(tableVar, tableType)
+    super.init(generator)
+  }
+
+  override def body[E](generator: MethodStructure[E]) = {
+    generator.aggregationGroup(groupVar, tableVar, keys.map(_.generateExpression(generator)))
+    values.zipWithIndex.foreach {
+      case (value, aggregate) =>
+        generator.updateAggregate(groupVar, aggregate, value.map(_.generateExpression(generator)).getOrElse(generator.constant(null)))
+    }
+  }
+
+  override protected def operatorId = Some(id)
+
+  override protected def children = keys ++ values.flatten
+}
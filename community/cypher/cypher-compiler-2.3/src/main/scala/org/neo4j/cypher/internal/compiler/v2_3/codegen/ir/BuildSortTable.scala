@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v2_3.codegen.{MethodStructure, Namer, SortTable}
+import org.neo4j.cypher.internal.compiler.v2_3.symbols._
+
+/*
+ * Adds the current row to the rows of a Sort. Node and relationship ids are kept as they are, so the instructions
+ * after the Sort can keep using them, while projections are evaluated here since they can only be evaluated in the
+ * method that has the values they depend on.
+ */
+case class BuildSortTable(id: String, tableVar: String, tableType: SortTable, variables: Map[String, String],
+                          projections: Map[String, ProjectionInstruction], namer: Namer) extends Instruction {
+
+  override def init[E](generator: MethodStructure[E]) = generator.allocateProbeTable(tableVar, tableType)
+
+  override def body[E](generator: MethodStructure[E]) = {
+    val value = generator.newTableValue(namer.newVarName(), tableType.structure)
+    variables.foreach {
+      case (fieldName, localName) => generator.putField(tableType.structure, value, CTNode, fieldName, localName)
+    }
+    projections.foreach {
+      case (fieldName, projection) =>
+        generator.setField(tableType.structure, value, CTAny, fieldName, projection.generateExpression(generator))
+    }
+    generator.updateSortTable(tableVar, tableType, value)
+  }
+
+  override protected def operatorId = Some(id)
+
+  override protected def children = Seq.empty
+}
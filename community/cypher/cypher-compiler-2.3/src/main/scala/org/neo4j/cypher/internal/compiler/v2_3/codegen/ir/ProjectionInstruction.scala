@@ -113,6 +113,16 @@ case class ProjectLiteral(value:Object) extends ProjectionInstruction {
   override protected def children = Seq.empty
 }
 
+// a value that was evaluated earlier and kept in a local, like the results of a Sort or an Aggregation
+case class ProjectLocal(localVar: String) extends ProjectionInstruction {
+
+  override def init[E](generator: MethodStructure[E]) = {}
+
+  override def generateExpression[E](structure: MethodStructure[E]) = structure.load(localVar)
+
+  override protected def children = Seq.empty
+}
+
 case class ProjectNode(nodeIdVar: String) extends ProjectionInstruction {
 
   override def init[E](generator: MethodStructure[E]) = {}
@@ -196,3 +206,81 @@ case class Project(projections: Seq[ProjectionInstruction], parent: Instruction)
 
   override protected def children = projections :+ parent
 }
+
+case class ProjectNot(value: ProjectionInstruction) extends ProjectionInstruction {
+
+  override def init[E](generator: MethodStructure[E]) = value.init(generator)
+
+  override def generateExpression[E](structure: MethodStructure[E]) = structure.not(value.generateExpression(structure))
+
+  override def children = Seq(value)
+}
+
+// Base class for binary predicates, which are evaluated using ternary logic
+sealed abstract class ProjectBinaryPredicate extends ProjectionInstruction {
+
+  def lhs: ProjectionInstruction
+
+  def rhs: ProjectionInstruction
+
+  protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E): E
+
+  override def init[E](generator: MethodStructure[E]) = {
+    lhs.init(generator)
+    rhs.init(generator)
+  }
+
+  override def generateExpression[E](structure: MethodStructure[E]) =
+    combine(structure, lhs.generateExpression(structure), rhs.generateExpression(structure))
+
+  override def children = Seq(lhs, rhs)
+}
+
+case class ProjectAnd(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.and(lhsValue, rhsValue)
+}
+
+case class ProjectOr(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.or(lhsValue, rhsValue)
+}
+
+case class ProjectEquals(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.equalTo(lhsValue, rhsValue)
+}
+
+case class ProjectLessThan(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.lessThan(lhsValue, rhsValue)
+}
+
+case class ProjectLessThanOrEqual(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.lessThanOrEqual(lhsValue, rhsValue)
+}
+
+case class ProjectGreaterThan(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.greaterThan(lhsValue, rhsValue)
+}
+
+case class ProjectGreaterThanOrEqual(lhs: ProjectionInstruction, rhs: ProjectionInstruction) extends ProjectBinaryPredicate {
+  override protected def combine[E](structure: MethodStructure[E], lhsValue: E, rhsValue: E) = structure.greaterThanOrEqual(lhsValue, rhsValue)
+}
+
+case class ProjectHasLabel(id: String, nodeIdVar: String, labelName: String, namer: Namer) extends ProjectionInstruction {
+
+  private val labelIdVar = namer.newVarName()
+
+  override def init[E](generator: MethodStructure[E]) = generator.lookupLabelId(labelIdVar, labelName)
+
+  override def generateExpression[E](structure: MethodStructure[E]): E = {
+    val localName = namer.newVarName()
+    structure.declareProperty(localName)
+    structure.trace(id) { body =>
+      body.nodeHasLabel(nodeIdVar, labelIdVar, localName)
+      body.incrementDbHits()
+    }
+    structure.load(localName)
+  }
+
+  override protected def operatorId = Some(id)
+
+  override protected def children = Seq.empty
+}
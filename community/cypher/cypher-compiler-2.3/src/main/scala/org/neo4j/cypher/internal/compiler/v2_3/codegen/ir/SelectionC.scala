@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v2_3.codegen.MethodStructure
+
+case class SelectionC(id: String, predicates: Seq[ProjectionInstruction], action: Instruction) extends Instruction {
+
+  override def init[E](generator: MethodStructure[E]) = {
+    predicates.foreach(_.init(generator))
+    action.init(generator)
+  }
+
+  // predicates are evaluated one at a time, so later predicates are only evaluated when the earlier ones hold
+  override def body[E](generator: MethodStructure[E]) = filter(predicates, generator)
+
+  private def filter[E](remaining: Seq[ProjectionInstruction], generator: MethodStructure[E]): Unit = remaining match {
+    case Seq() =>
+      generator.trace(id)(_.incrementRows())
+      action.body(generator)
+    case predicate +: rest =>
+      generator.ifStatement(generator.isTrue(predicate.generateExpression(generator))) { body =>
+        filter(rest, body)
+      }
+  }
+
+  override protected def operatorId = Some(id)
+
+  override protected def children = predicates :+ action
+}
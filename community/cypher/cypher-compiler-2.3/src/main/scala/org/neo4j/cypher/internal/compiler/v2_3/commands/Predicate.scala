@@ -298,6 +298,26 @@ case class RegularExpression(lhsExpr: Expression, regexExpr: Expression)(implici
   def symbolTableDependencies = lhsExpr.symbolTableDependencies ++ regexExpr.symbolTableDependencies
 }
 
+case class StartsWith(lhsExpr: Expression, prefixExpr: Expression) extends Predicate {
+  def isMatch(m: ExecutionContext)(implicit state: QueryState): Option[Boolean] = (lhsExpr(m), prefixExpr(m)) match {
+    case (lhs: String, prefix: String) =>
+      Some(lhs.startsWith(prefix))
+    case _ =>
+      // null, or a value that isn't a string, on either side
+      None
+  }
+
+  override def toString: String = lhsExpr.toString() + " STARTS WITH " + prefixExpr.toString()
+
+  def containsIsNull = false
+
+  def rewrite(f: (Expression) => Expression) = f(StartsWith(lhsExpr.rewrite(f), prefixExpr.rewrite(f)))
+
+  def arguments = Seq(lhsExpr, prefixExpr)
+
+  def symbolTableDependencies = lhsExpr.symbolTableDependencies ++ prefixExpr.symbolTableDependencies
+}
+
 case class NonEmpty(collection: Expression) extends Predicate with CollectionSupport {
   def isMatch(m: ExecutionContext)(implicit state: QueryState): Option[Boolean] = {
     collection(m) match {
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.commands
+
+/*
+ Describes the part of an index that a range seek reads, parametrized on how the end points are expressed
+ (ast expressions during planning, command expressions at runtime, and values once evaluated).
+ */
+final case class Bound[+V](endPoint: V, inclusive: Boolean) {
+  def map[P](f: V => P): Bound[P] = copy(endPoint = f(endPoint))
+}
+
+sealed trait SeekRange[+V] {
+  def map[P](f: V => P): SeekRange[P]
+}
+
+// At least one of the bounds is always present
+final case class InequalitySeekRange[+V](lower: Option[Bound[V]], upper: Option[Bound[V]]) extends SeekRange[V] {
+  def map[P](f: V => P): InequalitySeekRange[P] = InequalitySeekRange(lower.map(_.map(f)), upper.map(_.map(f)))
+}
+
+final case class PrefixSeekRange[+V](prefix: V) extends SeekRange[V] {
+  def map[P](f: V => P): PrefixSeekRange[P] = PrefixSeekRange(f(prefix))
+}
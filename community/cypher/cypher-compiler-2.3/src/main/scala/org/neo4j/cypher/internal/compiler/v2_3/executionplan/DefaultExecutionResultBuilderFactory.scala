@@ -26,6 +26,9 @@ import org.neo4j.cypher.internal.compiler.v2_3.spi.{CSVResources, QueryContext}
 import org.neo4j.cypher.internal.compiler.v2_3.{ExplainMode, ExecutionMode}
 import org.neo4j.graphdb.GraphDatabaseService
 import org.neo4j.graphdb.QueryExecutionType.QueryType
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+import org.neo4j.kernel.GraphDatabaseAPI
+import org.neo4j.kernel.configuration.Config
 
 case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String]) extends ExecutionResultBuilderFactory {
   def create(): ExecutionResultBuilder =
@@ -58,7 +61,8 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     def build(graph: GraphDatabaseService, queryId: AnyRef, planType: ExecutionMode, params: Map[String, Any], notificationLogger: InternalNotificationLogger): InternalExecutionResult = {
       taskCloser.addTask(queryContext.close)
-      val state = new QueryState(queryContext, externalResource, params, pipeDecorator, queryId = queryId)
+      val state = new QueryState(queryContext, externalResource, params, pipeDecorator, queryId = queryId,
+        slots = pipeInfo.slots, spill = spillConfiguration(graph))
       try {
         try {
           createResults(state, planType, notificationLogger)
@@ -100,6 +104,15 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     private def queryContext = maybeQueryContext.get
 
+    // rows are spilled with entities as ids, which is only safe when the query does not change the graph
+    private def spillConfiguration(graph: GraphDatabaseService): Option[SpillConfiguration] = graph match {
+      case db: GraphDatabaseAPI if !pipeInfo.updating =>
+        val budget = db.getDependencyResolver.resolveDependency(classOf[Config]).get(GraphDatabaseSettings.cypher_spill_memory_budget)
+        Some(new SpillConfiguration(budget.longValue(), SpillConfiguration.directoryIn(db.getStoreDir), taskCloser))
+      case _ =>
+        None
+    }
+
     private def buildResultIterator(results: Iterator[ExecutionContext], isUpdating: Boolean): ResultIterator = {
       val closingIterator = new ClosingIterator(results, taskCloser, exceptionDecorator)
       val resultIterator = if (isUpdating) closingIterator.toEager else closingIterator
@@ -63,7 +63,8 @@ case class PipeInfo(pipe: Pipe,
                     updating: Boolean,
                     periodicCommit: Option[PeriodicCommitInfo] = None,
                     fingerprint: Option[PlanFingerprint] = None,
-                    plannerUsed: PlannerName)
+                    plannerUsed: PlannerName,
+                    slots: Option[SlotAllocation] = None)
 
 case class PeriodicCommitInfo(size: Option[Long]) {
   def batchRowCount = size.getOrElse(/* defaultSize */ 1000L)
@@ -139,7 +140,7 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService, statsDivergenceThreshold
 
   private def buildInterpreted(pipeInfo: PipeInfo, planContext: PlanContext, inputQuery: PreparedQuery) = {
     val abstractQuery = inputQuery.abstractQuery
-    val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner) = pipeInfo
+    val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner, _) = pipeInfo
 
     val columns = getQueryResultColumns(abstractQuery, pipe.symbols)
     val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns)
@@ -106,6 +106,7 @@ trait Expressions extends Parser
       | "[" ~~ optional(Expression) ~~ ".." ~~ optional(Expression) ~~ "]" ~~>> (ast.CollectionSlice(_: ast.Expression, _, _))
       | group(operator("=~") ~~ Expression2) ~~>> (ast.RegexMatch(_: ast.Expression, _))
       | group(keyword("IN") ~~ Expression2) ~~>> (ast.In(_: ast.Expression, _))
+      | group(keyword("STARTS WITH") ~~ Expression2) ~~>> (ast.StartsWith(_: ast.Expression, _))
       | group(keyword("LIKE") ~~ LikePattern) ~~>> (ast.Like(_: ast.Expression, _))
       | group(keyword("NOT LIKE") ~~ LikePattern) ~~>> (ast.NotLike(_: ast.Expression, _))
       | group(keyword("ILIKE") ~~ LikePattern) ~~>> (ast.Like(_: ast.Expression, _, true))
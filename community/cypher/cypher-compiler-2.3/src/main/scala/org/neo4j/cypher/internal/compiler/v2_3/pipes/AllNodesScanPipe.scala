@@ -28,8 +28,9 @@ case class AllNodesScanPipe(ident: String)(val estimatedCardinality: Option[Doub
                            (implicit pipeMonitor: PipeMonitor) extends Pipe with RonjaPipe {
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
-    state.query.nodeOps.all.map(n => baseContext.newWith1(ident, n))
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext(this))
+    val slot = state.longSlot(this, ident)
+    state.query.nodeOps.all.map(n => baseContext.newWithEntity(slot, n))
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
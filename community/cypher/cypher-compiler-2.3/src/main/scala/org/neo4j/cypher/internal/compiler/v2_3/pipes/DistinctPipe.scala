@@ -19,12 +19,14 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
+import org.neo4j.collection.primitive.Primitive
 import org.neo4j.cypher.internal.compiler.v2_3._
-import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.{Expression, Identifier}
 import org.neo4j.cypher.internal.compiler.v2_3.executionplan.Effects._
 import org.neo4j.cypher.internal.compiler.v2_3.helpers.Eagerly
 import org.neo4j.cypher.internal.compiler.v2_3.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v2_3.symbols._
+import org.neo4j.graphdb.Node
 
 import scala.collection.mutable
 
@@ -41,17 +43,51 @@ case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])(val
 
     // Run the return item expressions, and replace the execution context's with their values
     val returnExpressions = input.map(ctx => {
-      val newMap = Eagerly.mutableMapValues(expressions, (expression: Expression) => expression(ctx)(state))
+      val newMap = state.newRowMap(this)
+      expressions.foreach {
+        case (name, expression) => newMap.update(name, expression(ctx)(state))
+      }
       ctx.copy(m = newMap)
     })
 
+    nodeKey match {
+      case Some(key) => distinctNodes(returnExpressions, state.longSlot(this, key))
+      case None => distinctValues(returnExpressions)
+    }
+  }
+
+  // DISTINCT on a single node only needs to remember node ids, which fit in a primitive set without boxing
+  private lazy val nodeKey: Option[String] = expressions.toSeq match {
+    case Seq((key, Identifier(name))) if source.symbols.identifiers.get(name) == Some(CTNode) => Some(key)
+    case _ => None
+  }
+
+  private def distinctNodes(input: Iterator[ExecutionContext], slot: LongSlot): Iterator[ExecutionContext] = {
+    val seen = Primitive.longSet()
+    var seenNull = false
+
+    input.filter { ctx =>
+      val id = ctx.longAt(slot)
+      if (id >= 0) seen.add(id)
+      else ctx(slot.name) match {
+        case n: Node => seen.add(n.getId)
+        case null =>
+          val first = !seenNull
+          seenNull = true
+          first
+        case x => throw new CypherTypeException(s"Expected ${slot.name} to be a node, but it was $x")
+      }
+    }
+  }
+
+  private def distinctValues(input: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
     /*
      * The filtering is done by extracting from the context the values of all return expressions, and keeping them
      * in a set.
      */
     var seen = mutable.Set[NiceHasher]()
 
-    returnExpressions.filter {
+    input.filter {
        case ctx =>
          val values = new NiceHasher(keyNames.map(ctx).toSeq)
 
@@ -53,10 +53,9 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
     val result = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
     val keyNames: Seq[String] = keyExpressions.toSeq
     val aggregationNames: Seq[String] = aggregations.map(_._1).toSeq
-    val mapSize = keyNames.size + aggregationNames.size
 
     def createResults(key: NiceHasher, aggregator: scala.Seq[AggregationFunction], ctx: ExecutionContext): ExecutionContext = {
-      val newMap = MutableMaps.create(mapSize)
+      val newMap = state.newRowMap(this)
 
       //add key values
       (keyNames zip key.original).foreach(newMap += _)
@@ -68,7 +67,7 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
     }
 
     def createEmptyResult(params: Map[String, Any]): Iterator[ExecutionContext] = {
-      val newMap = MutableMaps.empty
+      val newMap = state.newRowMap(this)
       val aggregationNamesAndFunctions = aggregationNames zip aggregations.map(_._2.createAggregationFunction.result)
 
       aggregationNamesAndFunctions.toMap
@@ -76,19 +75,50 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
       Iterator.single(ExecutionContext(newMap))
     }
 
-    input.foreach(ctx => {
-      val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
+    def aggregate(table: MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])], groupValues: NiceHasher,
+                  ctx: ExecutionContext) {
       val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
-      val (_, functions) = result.getOrElseUpdate(groupValues, (ctx, aggregateFunctions))
+      val (_, functions) = table.getOrElseUpdate(groupValues, (ctx, aggregateFunctions))
       functions.foreach(func => func(ctx)(state))
+    }
+
+    // once a new group can not be reserved, rows of groups that are not already on the heap are hash partitioned
+    // into spill files by their grouping key, and each partition is aggregated on its own afterwards
+    val spill = state.spill
+    var partitions: Array[SpillPartition] = null
+    var reserved = 0L
+
+    input.foreach(ctx => {
+      val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
+      lazy val bytes = spill.map(_.reserve(ctx, reserved)).getOrElse(0L)
+      if (result.contains(groupValues)) {
+        aggregate(result, groupValues, ctx)
+      } else if (partitions == null && bytes != SpillConfiguration.NOT_RESERVED) {
+        reserved += bytes
+        aggregate(result, groupValues, ctx)
+      } else {
+        if (partitions == null)
+          partitions = Array.fill(SpillConfiguration.partitionCount)(new SpillPartition(spill.get, "cypher-aggregation-"))
+        partitions((groupValues.hashCode() & Int.MaxValue) % partitions.length).add(ctx)
+      }
     })
 
     if (result.isEmpty && keyNames.isEmpty) {
       createEmptyResult(state.params)
     } else {
-      result.map {
+      val inMemory = result.map {
         case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
       }.toIterator
+
+      val spilled = if (partitions == null) Iterator.empty else partitions.iterator.flatMap { partition =>
+        val partitionResult = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
+        partition.rows(state).foreach(ctx => aggregate(partitionResult, new NiceHasher(keyNames.map(ctx)), ctx))
+        partitionResult.iterator.map {
+          case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
+        }
+      }
+
+      spill.map(_.releaseAfter(reserved, inMemory ++ spilled)).getOrElse(inMemory ++ spilled)
     }
   }
 
@@ -35,14 +35,18 @@ case class ExpandAllPipe(source: Pipe,
   extends PipeWithSource(source, pipeMonitor) with RonjaPipe {
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val fromSlot = state.longSlot(this, fromName)
+    val relSlot = state.longSlot(this, relName)
+    val toSlot = state.longSlot(this, toName)
+
     input.flatMap {
       row =>
-        getFromNode(row) match {
+        getFromNode(row, fromSlot) match {
           case n: Node =>
             val relationships: Iterator[Relationship] = state.query.getRelationshipsForIds(n, dir, types.types(state.query))
             relationships.map {
               case r =>
-                row.newWith2(relName, r, toName, r.getOtherNode(n))
+                row.newWithEntities(relSlot, r, toSlot, r.getOtherNode(n))
             }
 
           case null => None
@@ -54,8 +58,8 @@ case class ExpandAllPipe(source: Pipe,
 
   def typeNames = types.names
 
-  def getFromNode(row: ExecutionContext): Any =
-    row.getOrElse(fromName, throw new InternalException(s"Expected to find a node at $fromName but found nothing"))
+  def getFromNode(row: ExecutionContext, fromSlot: LongSlot): Any =
+    row.getEntity(fromSlot).getOrElse(throw new InternalException(s"Expected to find a node at $fromName but found nothing"))
 
   def planDescriptionWithoutCardinality =
     source.planDescription.andThen(this.id, "Expand(All)", identifiers, ExpandExpression(fromName, relName, typeNames, toName, dir))
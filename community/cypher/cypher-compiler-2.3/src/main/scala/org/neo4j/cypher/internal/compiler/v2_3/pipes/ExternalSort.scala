@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import java.io._
+import java.util.{Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.compiler.v2_3.ExecutionContext
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Sorts rows keeping only as many of them on the heap as the query's memory budget allows. Whenever a row can not be
+ * reserved, the buffered rows are sorted and written to a spill file as a run, and the runs are merged lazily as the
+ * result is consumed. At most `fanIn` runs are merged at once, so when there are more runs they are first merged into
+ * longer runs, over as many passes as needed. If a row holds a value that can not be spilled, the remaining rows are
+ * sorted in memory instead.
+ */
+class ExternalSort(configuration: SpillConfiguration, lessThan: (ExecutionContext, ExecutionContext) => Boolean,
+                   state: QueryState, fanIn: Int = ExternalSort.defaultFanIn) {
+
+  require(fanIn >= 2, s"Can not merge runs with a fan-in of $fanIn")
+
+  private case class Run(file: File, size: Int)
+
+  private val runs = ArrayBuffer[Run]()
+  // rows are read back in the layout of the pipeline they were sorted in
+  private var slots: SlotConfiguration = null
+
+  def sort(input: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+    val buffer = ArrayBuffer[ExecutionContext]()
+    var spilling = true
+    var reserved = 0L
+
+    input.foreach { row =>
+      var bytes = if (spilling) configuration.reserve(row, reserved) else 0L
+      if (bytes == SpillConfiguration.NOT_RESERVED) {
+        spilling = writeRun(buffer.sortWith(lessThan))
+        if (spilling) {
+          configuration.release(reserved)
+          buffer.clear()
+          reserved = 0L
+          // an operator holding nothing is always granted a row
+          bytes = configuration.reserve(row, reserved)
+        } else {
+          bytes = 0L
+        }
+      }
+      reserved += bytes
+      buffer += row
+    }
+
+    val inMemory = buffer.sortWith(lessThan)
+    val result =
+      if (runs.isEmpty) inMemory.iterator
+      else {
+        // the rows still in memory take up one of the merge's inputs
+        while (runs.size + 1 > fanIn)
+          mergePass()
+        merge((runs.map(readRun) :+ inMemory.iterator).toIndexedSeq)
+      }
+    configuration.releaseAfter(reserved, result)
+  }
+
+  private def writeRun(rows: Seq[ExecutionContext]): Boolean = {
+    val file = configuration.newFile("cypher-sort-")
+    if (rows.nonEmpty)
+      slots = SlottedMap.slotsOf(rows.head.m)
+    val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))
+    var written = false
+    try {
+      val writer = new RowSpillWriter(out)
+      out.writeInt(rows.size)
+      rows.foreach(writer.write)
+      written = true
+    } catch {
+      case _: UnspillableValueException =>
+    } finally {
+      out.close()
+      if (written)
+        runs += Run(file, rows.size)
+      else
+        file.delete()
+    }
+    written
+  }
+
+  // merges the runs fanIn at a time into longer runs; rows read back from runs can always be written again
+  private def mergePass() {
+    val merged = runs.grouped(fanIn).map { group =>
+      if (group.size == 1) group.head
+      else {
+        val file = configuration.newFile("cypher-sort-")
+        val size = group.map(_.size).sum
+        val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))
+        try {
+          val writer = new RowSpillWriter(out)
+          out.writeInt(size)
+          merge(group.map(readRun).toIndexedSeq).foreach(writer.write)
+        } finally {
+          out.close()
+        }
+        Run(file, size)
+      }
+    }.toList
+    runs.clear()
+    runs ++= merged
+  }
+
+  private def readRun(run: Run): Iterator[ExecutionContext] = {
+    val file = run.file
+    val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+    configuration.closeOnCleanUp(in)
+    val reader = new RowSpillReader(in, state, slots)
+
+    new Iterator[ExecutionContext] {
+      private var remaining = in.readInt()
+
+      def hasNext = remaining > 0
+
+      def next() = {
+        if (!hasNext)
+          Iterator.empty.next()
+
+        val row = reader.read()
+        remaining -= 1
+        if (remaining == 0) {
+          in.close()
+          file.delete()
+        }
+        row
+      }
+    }
+  }
+
+  // rows that compare equal are taken from the earliest run first, which keeps the sort stable
+  private def merge(sources: IndexedSeq[Iterator[ExecutionContext]]): Iterator[ExecutionContext] = {
+    val heads = new PriorityQueue[(ExecutionContext, Int)](sources.size, new Comparator[(ExecutionContext, Int)] {
+      def compare(a: (ExecutionContext, Int), b: (ExecutionContext, Int)) =
+        if (lessThan(a._1, b._1)) -1
+        else if (lessThan(b._1, a._1)) 1
+        else Integer.compare(a._2, b._2)
+    })
+
+    for (index <- sources.indices if sources(index).hasNext)
+      heads.add(sources(index).next() -> index)
+
+    new Iterator[ExecutionContext] {
+      def hasNext = !heads.isEmpty
+
+      def next() = {
+        if (!hasNext)
+          Iterator.empty.next()
+
+        val (row, index) = heads.poll()
+        if (sources(index).hasNext)
+          heads.add(sources(index).next() -> index)
+        row
+      }
+    }
+  }
+}
+
+object ExternalSort {
+  // how many runs are merged at once, which bounds the open files and the read buffers of one merge
+  val defaultFanIn = 64
+}
@@ -35,8 +35,9 @@ case class NodeByLabelScanPipe(ident: String, label: LazyLabel)
     label.id(state.query) match {
       case Some(labelId) =>
         val nodes = state.query.getNodesByLabel(labelId.id)
-        val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
-        nodes.map(n => baseContext.newWith1(ident, n))
+        val baseContext = state.initialContext.getOrElse(state.newExecutionContext(this))
+        val slot = state.longSlot(this, ident)
+        nodes.map(n => baseContext.newWithEntity(slot, n))
       case None =>
         Iterator.empty
     }
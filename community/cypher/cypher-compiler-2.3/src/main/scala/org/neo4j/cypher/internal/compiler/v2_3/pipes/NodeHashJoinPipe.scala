@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
+import org.neo4j.collection.primitive.{Primitive, PrimitiveLongObjectMap, PrimitiveLongObjectVisitor}
 import org.neo4j.cypher.internal.compiler.v2_3.{CypherTypeException, ExecutionContext}
 import org.neo4j.cypher.internal.compiler.v2_3.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_3.planDescription.InternalPlanDescription.Arguments.KeyNames
@@ -41,13 +42,18 @@ case class NodeHashJoinPipe(nodeIdentifiers: Set[String], left: Pipe, right: Pip
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
-    val table = buildProbeTable(input)
+    val slots = cachedIdentifiers.map(state.longSlot(this, _))
+
+    if (slots.length == 1)
+      return joinOnSingleNode(input, rhsIterator, slots.head, state)
+
+    val table = buildProbeTable(input, slots)
 
     if (table.isEmpty)
       return Iterator.empty
 
     val result = for {context: ExecutionContext <- rhsIterator
-                      joinKey <- computeKey(context)}
+                      joinKey <- computeKey(context, slots)}
     yield {
       val seq = table.getOrElse(joinKey, mutable.MutableList.empty)
       seq.map(context ++ _)
@@ -78,11 +84,12 @@ case class NodeHashJoinPipe(nodeIdentifiers: Set[String], left: Pipe, right: Pip
 
   def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
 
-  private def buildProbeTable(input: Iterator[ExecutionContext]): mutable.HashMap[Vector[Long], mutable.MutableList[ExecutionContext]] = {
+  private def buildProbeTable(input: Iterator[ExecutionContext],
+                              slots: IndexedSeq[LongSlot]): mutable.HashMap[Vector[Long], mutable.MutableList[ExecutionContext]] = {
     val table = new mutable.HashMap[Vector[Long], mutable.MutableList[ExecutionContext]]
 
     for {context <- input
-         joinKey <- computeKey(context)} {
+         joinKey <- computeKey(context, slots)} {
       val seq = table.getOrElseUpdate(joinKey, mutable.MutableList.empty)
       seq += context
     }
@@ -90,17 +97,199 @@ case class NodeHashJoinPipe(nodeIdentifiers: Set[String], left: Pipe, right: Pip
     table
   }
 
-  private val cachedIdentifiers = nodeIdentifiers.toIndexedSeq
+  // joining on a single node is by far the most common case, so it gets a probe table keyed on primitive node ids
+  private def joinOnSingleNode(input: Iterator[ExecutionContext], rhsIterator: Iterator[ExecutionContext],
+                               nodeSlot: LongSlot, state: QueryState): Iterator[ExecutionContext] = {
+    val table = Primitive.longObjectMap[mutable.MutableList[ExecutionContext]]()
+    val buildRows = input.buffered
+    val reserved = buildSingleNodeProbeTable(table, buildRows, nodeSlot, state.spill)
+
+    if (buildRows.hasNext) {
+      state.spill.get.release(reserved)
+      return joinPartitioned(table, buildRows, rhsIterator, nodeSlot, state)
+    }
+
+    if (table.isEmpty)
+      return Iterator.empty
+
+    val result = probe(table, rhsIterator, nodeSlot)
+    state.spill.map(_.releaseAfter(reserved, result)).getOrElse(result)
+  }
+
+  private def probe(table: PrimitiveLongObjectMap[mutable.MutableList[ExecutionContext]],
+                    rhsIterator: Iterator[ExecutionContext], nodeSlot: LongSlot): Iterator[ExecutionContext] =
+    rhsIterator.flatMap { context =>
+      val nodeId = computeSingleNodeKey(context, nodeSlot)
+      val matches = if (nodeId == NO_NODE) null else table.get(nodeId)
+      if (matches == null) Iterator.empty else matches.iterator.map(context ++ _)
+    }
+
+  // reads input rows until one can not be reserved, leaving the rest unconsumed; returns how many bytes were reserved
+  private def buildSingleNodeProbeTable(table: PrimitiveLongObjectMap[mutable.MutableList[ExecutionContext]],
+                                        input: BufferedIterator[ExecutionContext], nodeSlot: LongSlot,
+                                        spill: Option[SpillConfiguration]): Long = {
+    var reserved = 0L
+    var fits = true
+
+    while (fits && input.hasNext) {
+      val bytes = spill.map(_.reserve(input.head, reserved)).getOrElse(0L)
+      fits = bytes != SpillConfiguration.NOT_RESERVED
+      if (fits) {
+        reserved += bytes
+        val context = input.next()
+        val nodeId = computeSingleNodeKey(context, nodeSlot)
+        if (nodeId != NO_NODE)
+          addToTable(table, nodeId, context)
+      }
+    }
+
+    reserved
+  }
+
+  private def addToTable(table: PrimitiveLongObjectMap[mutable.MutableList[ExecutionContext]], nodeId: Long,
+                         context: ExecutionContext) {
+    var seq = table.get(nodeId)
+    if (seq == null) {
+      seq = mutable.MutableList.empty
+      table.put(nodeId, seq)
+    }
+    seq += context
+  }
+
+  /*
+   * The build side did not fit in the query's memory budget. Both sides are hash partitioned on the node id into spill
+   * files and the join is then done one partition at a time, so only one partition of the build side is on the heap.
+   */
+  private def joinPartitioned(table: PrimitiveLongObjectMap[mutable.MutableList[ExecutionContext]],
+                              input: Iterator[ExecutionContext], rhsIterator: Iterator[ExecutionContext],
+                              nodeSlot: LongSlot, state: QueryState): Iterator[ExecutionContext] = {
+    val configuration = state.spill.get
+    val buildPartitions = newPartitions(configuration, "cypher-hashjoin-build-")
+    val probePartitions = newPartitions(configuration, "cypher-hashjoin-probe-")
+
+    partitionTable(buildPartitions, table, 0)
+    partitionInto(buildPartitions, input, nodeSlot, 0)
+    partitionInto(probePartitions, rhsIterator, nodeSlot, 0)
+
+    joinPartitions(buildPartitions, probePartitions, nodeSlot, 0, state)
+  }
+
+  private def joinPartitions(buildPartitions: Array[SpillPartition], probePartitions: Array[SpillPartition],
+                             nodeSlot: LongSlot, level: Int, state: QueryState): Iterator[ExecutionContext] =
+    (0 until SPILL_PARTITIONS).iterator.flatMap { i =>
+      if (buildPartitions(i).isEmpty || probePartitions(i).isEmpty) {
+        buildPartitions(i).discard()
+        probePartitions(i).discard()
+        Iterator.empty
+      } else {
+        joinPartition(buildPartitions(i), probePartitions(i), nodeSlot, level, state)
+      }
+    }
+
+  /*
+   * Loads one build partition, reserving each row. A partition that does not fit is split again, together with its
+   * probe partition, using a hash seeded by the next level. Past the last level the rows share so few node ids that
+   * splitting would not help, so the partition is loaded whole.
+   */
+  private def joinPartition(buildPartition: SpillPartition, probePartition: SpillPartition, nodeSlot: LongSlot,
+                            level: Int, state: QueryState): Iterator[ExecutionContext] = {
+    val configuration = state.spill.get
+    val table = Primitive.longObjectMap[mutable.MutableList[ExecutionContext]]()
+    val buildRows = buildPartition.rows(state).buffered
+    val canSplit = level + 1 < MAX_PARTITION_LEVELS
+    var reserved = 0L
+    var overBudget = false
+
+    while (buildRows.hasNext && !overBudget) {
+      val bytes = configuration.reserve(buildRows.head, reserved)
+      if (bytes != SpillConfiguration.NOT_RESERVED)
+        reserved += bytes
+      else
+        overBudget = canSplit
+
+      if (!overBudget) {
+        val row = buildRows.next()
+        addToTable(table, computeSingleNodeKey(row, nodeSlot), row)
+      }
+    }
+
+    if (overBudget) {
+      configuration.release(reserved)
+      val buildPartitions = newPartitions(configuration, "cypher-hashjoin-build-")
+      val probePartitions = newPartitions(configuration, "cypher-hashjoin-probe-")
 
-  private def computeKey(context: ExecutionContext): Option[Vector[Long]] = {
-    val key = new Array[Long](cachedIdentifiers.length)
+      partitionTable(buildPartitions, table, level + 1)
+      partitionInto(buildPartitions, buildRows, nodeSlot, level + 1)
+      partitionInto(probePartitions, probePartition.rows(state), nodeSlot, level + 1)
 
-    for (idx <- 0 until cachedIdentifiers.length) {
-      key(idx) = context(cachedIdentifiers(idx)) match {
-        case n: Node => n.getId
-        case null => return None
-        case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
+      joinPartitions(buildPartitions, probePartitions, nodeSlot, level + 1, state)
+    } else {
+      configuration.releaseAfter(reserved, probe(table, probePartition.rows(state), nodeSlot))
+    }
+  }
+
+  private def newPartitions(configuration: SpillConfiguration, prefix: String): Array[SpillPartition] =
+    Array.fill(SPILL_PARTITIONS)(new SpillPartition(configuration, prefix))
+
+  // moves the rows of the table into the partitions, emptying the table
+  private def partitionTable(partitions: Array[SpillPartition],
+                             table: PrimitiveLongObjectMap[mutable.MutableList[ExecutionContext]], level: Int) {
+    table.visitEntries(new PrimitiveLongObjectVisitor[mutable.MutableList[ExecutionContext], RuntimeException] {
+      def visited(nodeId: Long, rows: mutable.MutableList[ExecutionContext]): Boolean = {
+        val partition = partitions(partitionOf(nodeId, level))
+        rows.foreach(partition.add)
+        false
       }
+    })
+    table.close()
+  }
+
+  private def partitionInto(partitions: Array[SpillPartition], rows: Iterator[ExecutionContext], nodeSlot: LongSlot,
+                            level: Int) {
+    rows.foreach { context =>
+      val nodeId = computeSingleNodeKey(context, nodeSlot)
+      if (nodeId != NO_NODE)
+        partitions(partitionOf(nodeId, level)).add(context)
+    }
+  }
+
+  // each level mixes the node id with its own seed, so that rows falling into one partition are spread out again
+  private def partitionOf(nodeId: Long, level: Int): Int = {
+    var h = nodeId ^ (level * 0x9E3779B97F4A7C15L)
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L
+    h = h ^ (h >>> 33)
+    (h.toInt & Int.MaxValue) % SPILL_PARTITIONS
+  }
+
+  // four levels of sixteen partitions split the build side into up to 65536 partitions
+  private val MAX_PARTITION_LEVELS = 4
+
+  private val SPILL_PARTITIONS = SpillConfiguration.partitionCount
+
+  // slotted rows hand out the node id without touching the node, other rows are read by name
+  private def computeSingleNodeKey(context: ExecutionContext, nodeSlot: LongSlot): Long = {
+    val id = context.longAt(nodeSlot)
+    if (id != SlottedMap.ABSENT) id
+    else context(nodeSlot.name) match {
+      case n: Node => n.getId
+      case null => NO_NODE
+      case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
+    }
+  }
+
+  // the same as SlottedMap.NULL_ID, so that null nodes in slotted rows need no special casing
+  private val NO_NODE = -1L
+
+  private val cachedIdentifiers = nodeIdentifiers.toIndexedSeq
+
+  private def computeKey(context: ExecutionContext, slots: IndexedSeq[LongSlot]): Option[Vector[Long]] = {
+    val key = new Array[Long](slots.length)
+
+    for (idx <- 0 until slots.length) {
+      key(idx) = computeSingleNodeKey(context, slots(idx))
+      if (key(idx) == NO_NODE)
+        return None
     }
     Some(key.toVector)
   }
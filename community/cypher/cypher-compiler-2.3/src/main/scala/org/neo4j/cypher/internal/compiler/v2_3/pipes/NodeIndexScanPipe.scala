@@ -39,9 +39,10 @@ case class NodeIndexScanPipe(ident: String,
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext(this))
     val resultNodes = state.query.indexScan(descriptor)
-    resultNodes.map(node => baseContext.newWith1(ident, node))
+    val slot = state.longSlot(this, ident)
+    resultNodes.map(node => baseContext.newWithEntity(slot, node))
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_3._
+import org.neo4j.cypher.internal.compiler.v2_3.ast.{LabelToken, PropertyKeyToken}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{Bound, InequalitySeekRange, PrefixSeekRange, SeekRange}
+import org.neo4j.cypher.internal.compiler.v2_3.executionplan.{Effects, ReadsLabel, ReadsNodeProperty, ReadsNodes}
+import org.neo4j.cypher.internal.compiler.v2_3.planDescription.InternalPlanDescription.Arguments.Index
+import org.neo4j.cypher.internal.compiler.v2_3.planDescription.{NoChildren, PlanDescriptionImpl}
+import org.neo4j.cypher.internal.compiler.v2_3.symbols.{CTNode, SymbolTable}
+import org.neo4j.graphdb.Node
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+case class NodeIndexSeekByRangePipe(ident: String,
+                                    label: LabelToken,
+                                    propertyKey: PropertyKeyToken,
+                                    range: SeekRange[Expression])
+                                   (val estimatedCardinality: Option[Double] = None)(implicit pipeMonitor: PipeMonitor)
+  extends Pipe with Comparer with RonjaPipe {
+
+  private val descriptor = new IndexDescriptor(label.nameId.id, propertyKey.nameId.id)
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
+    //register as parent so that stats are associated with this pipe
+    state.decorator.registerParentPipe(this)
+
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext(this))
+    val resultNodes = range.map(expression => expression(baseContext)(state)) match {
+      case PrefixSeekRange(prefix: String) =>
+        state.query.indexSeekByPrefix(descriptor, prefix)
+
+      // Like STARTS WITH, nothing starts with null or with a value that isn't a string
+      case PrefixSeekRange(_) =>
+        Iterator.empty
+
+      case InequalitySeekRange(lower, upper) if (lower ++ upper).exists(_.endPoint == null) =>
+        Iterator.empty
+
+      case InequalitySeekRange(lower, upper) if (lower ++ upper).forall(_.endPoint.isInstanceOf[Number]) =>
+        state.query.indexSeekByNumberRange(descriptor,
+          lower.map(_.endPoint.asInstanceOf[Number]).orNull, lower.exists(_.inclusive),
+          upper.map(_.endPoint.asInstanceOf[Number]).orNull, upper.exists(_.inclusive))
+
+      // The index only supports numeric ranges, anything else is compared the same way a filter would
+      case InequalitySeekRange(lower, upper) =>
+        filteredIndexScan(lower, upper)(state)
+    }
+    val slot = state.longSlot(this, ident)
+    resultNodes.map(node => baseContext.newWithEntity(slot, node))
+  }
+
+  private def filteredIndexScan(lower: Option[Bound[Any]], upper: Option[Bound[Any]])
+                               (implicit state: QueryState): Iterator[Node] =
+    state.query.indexScan(descriptor).filter { node =>
+      val value = state.query.nodeOps.getProperty(node.getId, propertyKey.nameId.id)
+      lower.forall(bound => within(compare(value, bound.endPoint), bound.inclusive)) &&
+        upper.forall(bound => within(compare(bound.endPoint, value), bound.inclusive))
+    }
+
+  private def within(comparison: Int, inclusive: Boolean) = comparison > 0 || (inclusive && comparison == 0)
+
+  def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
+
+  def planDescriptionWithoutCardinality =
+    new PlanDescriptionImpl(this.id, "NodeIndexSeekByRange", NoChildren, Seq(Index(label.name, propertyKey.name)), identifiers)
+
+  def symbols: SymbolTable = new SymbolTable(Map(ident -> CTNode))
+
+  override def monitor = pipeMonitor
+
+  def dup(sources: List[Pipe]): Pipe = {
+    require(sources.isEmpty)
+    this
+  }
+
+  def sources: Seq[Pipe] = Seq.empty
+
+  override def localEffects = Effects(ReadsNodes, ReadsLabel(label.name), ReadsNodeProperty(propertyKey.name))
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
@@ -51,9 +51,10 @@ case class NodeIndexSeekPipe(ident: String,
     state.decorator.registerParentPipe(this)
 
     val index = indexFactory(state)
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext(this))
     val resultNodes = indexQuery(valueExpr, baseContext, state, index, label.name, propertyKey.name)
-    resultNodes.map(node => baseContext.newWith1(ident, node))
+    val slot = state.longSlot(this, ident)
+    resultNodes.map(node => baseContext.newWithEntity(slot, node))
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
@@ -31,12 +31,12 @@ case class ProduceResultsPipe(source: Pipe, columns: Seq[String])(val estimatedC
 
     input.map {
       original =>
-        val m = MutableMaps.create(columns.size)
+        val result = state.newExecutionContext(this)
         columns.foreach {
-          case (name) => m.put(name, original(name))
+          case (name) => result.update(name, original(name))
         }
 
-        ExecutionContext(m)
+        result
     }
   }
 
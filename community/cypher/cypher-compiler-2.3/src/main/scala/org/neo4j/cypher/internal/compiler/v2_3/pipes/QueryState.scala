@@ -25,13 +25,17 @@ import org.neo4j.cypher.internal.compiler.v2_3._
 import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.PathValueBuilder
 import org.neo4j.cypher.internal.compiler.v2_3.spi.QueryContext
 
+import scala.collection.mutable.{Map => MutableMap}
+
 case class QueryState(query: QueryContext,
                       resources: ExternalResource,
                       params: Map[String, Any],
                       decorator: PipeDecorator,
                       timeReader: TimeReader = new TimeReader,
                       var initialContext: Option[ExecutionContext] = None,
-                      queryId: AnyRef = UUID.randomUUID().toString) {
+                      queryId: AnyRef = UUID.randomUUID().toString,
+                      slots: Option[SlotAllocation] = None,
+                      spill: Option[SpillConfiguration] = None) {
 
   private var _pathValueBuilder: PathValueBuilder = null
 
@@ -45,6 +49,20 @@ case class QueryState(query: QueryContext,
 
   def readTimeStamp(): Long = timeReader.getTime
 
+  // a new row laid out for the pipeline of the given pipe
+  def newExecutionContext(pipe: Pipe): ExecutionContext = ExecutionContext(newRowMap(pipe))
+
+  def newRowMap(pipe: Pipe): MutableMap[String, Any] = {
+    val configuration = if (slots.isEmpty) null else slots.get.configurationOf(pipe)
+    if (configuration == null) MutableMaps.empty else configuration.newRow(query)
+  }
+
+  // the long slot the pipe keeps the identifier in; rows that are not slotted fall back to the name
+  def longSlot(pipe: Pipe, name: String): LongSlot = {
+    val slot = if (slots.isEmpty) null else slots.get.longSlot(pipe, name)
+    if (slot == null) LongSlot.unresolved(name) else slot
+  }
+
   def getParam(key: String): Any =
     params.getOrElse(key, throw new ParameterNotFoundException("Expected a parameter named " + key))
 
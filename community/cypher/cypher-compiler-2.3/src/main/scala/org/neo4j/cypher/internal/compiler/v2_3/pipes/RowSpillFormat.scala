@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import java.io.{DataInputStream, DataOutputStream}
+import java.nio.charset.StandardCharsets
+
+import org.neo4j.cypher.internal.compiler.v2_3.ExecutionContext
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable.ArrayBuffer
+import scala.reflect.ClassTag
+
+/*
+ * Binary format used by operators that spill rows to temporary files.
+ *
+ * Each row is written as its number of entries followed by key/value pairs. Keys are written in full the first time
+ * they are seen and as an index into the keys seen so far after that. Nodes and relationships are written as their
+ * ids and looked up again when read back, which is why only rows of read-only queries may be spilled.
+ */
+object RowSpillFormat {
+  private[pipes] final val NULL: Byte = 0
+  private[pipes] final val TRUE: Byte = 1
+  private[pipes] final val FALSE: Byte = 2
+  private[pipes] final val BYTE: Byte = 3
+  private[pipes] final val SHORT: Byte = 4
+  private[pipes] final val INT: Byte = 5
+  private[pipes] final val LONG: Byte = 6
+  private[pipes] final val FLOAT: Byte = 7
+  private[pipes] final val DOUBLE: Byte = 8
+  private[pipes] final val CHAR: Byte = 9
+  private[pipes] final val STRING: Byte = 10
+  private[pipes] final val NODE: Byte = 11
+  private[pipes] final val RELATIONSHIP: Byte = 12
+  private[pipes] final val LIST: Byte = 13
+  private[pipes] final val MAP: Byte = 14
+  private[pipes] final val ARRAY: Byte = 15
+
+  private[pipes] final val NEW_KEY = -1
+
+  def canSpill(row: ExecutionContext): Boolean = row.forall {
+    case (_, value) => canSpillValue(value)
+  }
+
+  private def canSpillValue(value: Any): Boolean = value match {
+    case null | _: Boolean | _: Byte | _: Short | _: Int | _: Long | _: Float | _: Double | _: Char | _: String |
+         _: Node | _: Relationship => true
+    case m: collection.Map[_, _] => m.forall {
+      case (_: String, v) => canSpillValue(v)
+      case _ => false
+    }
+    case s: Seq[_] => s.forall(canSpillValue)
+    case a: Array[_] => SPILLABLE_ARRAYS.contains(a.getClass.getComponentType)
+    case _ => false
+  }
+
+  private val SPILLABLE_ARRAYS: Set[Class[_]] = Set(classOf[Boolean], classOf[Byte], classOf[Short], classOf[Int],
+    classOf[Long], classOf[Float], classOf[Double], classOf[Char], classOf[String])
+}
+
+// Thrown for values that have no binary representation, e.g. paths. Callers then keep their rows on the heap.
+class UnspillableValueException(value: Any) extends RuntimeException(s"Can not spill value of ${value.getClass}")
+
+class RowSpillWriter(out: DataOutputStream) {
+  import RowSpillFormat._
+
+  private val keys = new java.util.HashMap[String, Integer]()
+
+  def write(row: ExecutionContext) {
+    out.writeInt(row.size)
+    row.foreach {
+      case (key, value) =>
+        writeKey(key)
+        writeValue(value)
+    }
+  }
+
+  private def writeKey(key: String) {
+    val index = keys.get(key)
+    if (index == null) {
+      out.writeInt(NEW_KEY)
+      writeString(key)
+      keys.put(key, keys.size())
+    } else {
+      out.writeInt(index)
+    }
+  }
+
+  private def writeValue(value: Any): Unit = value match {
+    case null => out.writeByte(NULL)
+    case b: Boolean => out.writeByte(if (b) TRUE else FALSE)
+    case b: Byte => out.writeByte(BYTE); out.writeByte(b)
+    case s: Short => out.writeByte(SHORT); out.writeShort(s)
+    case i: Int => out.writeByte(INT); out.writeInt(i)
+    case l: Long => out.writeByte(LONG); out.writeLong(l)
+    case f: Float => out.writeByte(FLOAT); out.writeFloat(f)
+    case d: Double => out.writeByte(DOUBLE); out.writeDouble(d)
+    case c: Char => out.writeByte(CHAR); out.writeChar(c)
+    case s: String => out.writeByte(STRING); writeString(s)
+    case n: Node => out.writeByte(NODE); out.writeLong(n.getId)
+    case r: Relationship => out.writeByte(RELATIONSHIP); out.writeLong(r.getId)
+    case m: collection.Map[_, _] =>
+      out.writeByte(MAP)
+      out.writeInt(m.size)
+      m.foreach {
+        case (key: String, v) =>
+          writeString(key)
+          writeValue(v)
+        case _ => throw new UnspillableValueException(value)
+      }
+    case s: Seq[_] =>
+      out.writeByte(LIST)
+      out.writeInt(s.size)
+      s.foreach(writeValue)
+    case a: Array[_] =>
+      val elementType = a.getClass.getComponentType
+      out.writeByte(ARRAY)
+      out.writeByte(elementTypeTag(elementType, value))
+      out.writeInt(a.length)
+      a.foreach(writeValue)
+    case _ => throw new UnspillableValueException(value)
+  }
+
+  private def elementTypeTag(elementType: Class[_], value: Any): Byte =
+    if (elementType == classOf[Boolean]) TRUE
+    else if (elementType == classOf[Byte]) BYTE
+    else if (elementType == classOf[Short]) SHORT
+    else if (elementType == classOf[Int]) INT
+    else if (elementType == classOf[Long]) LONG
+    else if (elementType == classOf[Float]) FLOAT
+    else if (elementType == classOf[Double]) DOUBLE
+    else if (elementType == classOf[Char]) CHAR
+    else if (elementType == classOf[String]) STRING
+    else throw new UnspillableValueException(value)
+
+  private def writeString(s: String) {
+    val bytes = s.getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+}
+
+class RowSpillReader(in: DataInputStream, state: QueryState, slots: SlotConfiguration = null) {
+  import RowSpillFormat._
+
+  private val keys = new ArrayBuffer[String]()
+
+  def read(): ExecutionContext = {
+    val row = if (slots == null) ExecutionContext.empty else ExecutionContext(slots.newRow(state.query))
+    var remaining = in.readInt()
+    while (remaining > 0) {
+      val key = readKey()
+      row += key -> readValue()
+      remaining -= 1
+    }
+    row
+  }
+
+  private def readKey(): String = in.readInt() match {
+    case NEW_KEY =>
+      val key = readString()
+      keys += key
+      key
+    case index => keys(index)
+  }
+
+  private def readValue(): Any = readValue(in.readByte())
+
+  private def readValue(tag: Byte): Any = tag match {
+    case NULL => null
+    case TRUE => true
+    case FALSE => false
+    case BYTE => in.readByte()
+    case SHORT => in.readShort()
+    case INT => in.readInt()
+    case LONG => in.readLong()
+    case FLOAT => in.readFloat()
+    case DOUBLE => in.readDouble()
+    case CHAR => in.readChar()
+    case STRING => readString()
+    case NODE => state.query.nodeOps.getById(in.readLong())
+    case RELATIONSHIP => state.query.relationshipOps.getById(in.readLong())
+    case MAP =>
+      val size = in.readInt()
+      (0 until size).map(_ => readString() -> readValue()).toMap
+    case LIST =>
+      val size = in.readInt()
+      (0 until size).map(_ => readValue()).toVector
+    case ARRAY => readArray()
+  }
+
+  private def readArray(): Any = {
+    val elementTag = in.readByte()
+    val length = in.readInt()
+    def elements[T: ClassTag]: Array[T] = Array.fill(length)(readValue().asInstanceOf[T])
+    elementTag match {
+      case TRUE => elements[Boolean]
+      case BYTE => elements[Byte]
+      case SHORT => elements[Short]
+      case INT => elements[Int]
+      case LONG => elements[Long]
+      case FLOAT => elements[Float]
+      case DOUBLE => elements[Double]
+      case CHAR => elements[Char]
+      case STRING => elements[String]
+    }
+  }
+
+  private def readString(): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+}
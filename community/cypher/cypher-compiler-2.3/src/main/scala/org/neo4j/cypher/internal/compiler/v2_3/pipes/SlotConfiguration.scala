@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_3.planDescription.Id
+import org.neo4j.cypher.internal.compiler.v2_3.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_3.symbols._
+
+import scala.collection.mutable.ArrayBuffer
+
+/*
+A slot is the place of one identifier in the rows of a pipeline. Nodes and relationships get a long slot holding
+their id, everything else a reference slot.
+*/
+sealed trait Slot {
+  def name: String
+  def offset: Int
+  def configuration: SlotConfiguration
+}
+
+final case class LongSlot(name: String, offset: Int, typ: CypherType)(val configuration: SlotConfiguration) extends Slot
+
+object LongSlot {
+  // stands in for a slot when the plan has no slots, so that pipes can keep one code path
+  def unresolved(name: String): LongSlot = LongSlot(name, -1, CTAny)(null)
+}
+
+final case class RefSlot(name: String, offset: Int)(val configuration: SlotConfiguration) extends Slot
+
+/*
+The layout of the rows of one pipeline. Slots are handed out while the pipe tree is built, and the configuration is
+then shared by all rows of all executions of that plan, so it must not be changed once the plan has been built.
+*/
+final class SlotConfiguration {
+
+  private val slots = new java.util.HashMap[String, Slot]()
+  private val longSlots = new ArrayBuffer[LongSlot]()
+  private val refNames = new ArrayBuffer[String]()
+
+  def numberOfLongs: Int = longSlots.size
+
+  def numberOfReferences: Int = refNames.size
+
+  def longSlotAt(offset: Int): LongSlot = longSlots(offset)
+
+  def refNameAt(offset: Int): String = refNames(offset)
+
+  /*
+  Returns the slot of the identifier, or null if the identifier was not known when the plan was built
+   */
+  def slotFor(name: String): Slot = slots.get(name)
+
+  def newLong(name: String, typ: CypherType): LongSlot = {
+    val slot = LongSlot(name, longSlots.size, typ)(this)
+    longSlots += slot
+    slots.put(name, slot)
+    slot
+  }
+
+  def newReference(name: String): RefSlot = {
+    val slot = RefSlot(name, refNames.size)(this)
+    refNames += name
+    slots.put(name, slot)
+    slot
+  }
+
+  // the first pipe to introduce an identifier decides its slot
+  def allocate(name: String, typ: CypherType): Slot = {
+    val existing = slotFor(name)
+    if (existing != null) existing
+    else if (typ == CTNode || typ == CTRelationship) newLong(name, typ)
+    else newReference(name)
+  }
+
+  def newRow(query: QueryContext): SlottedMap = new SlottedMap(this, query)
+
+  override def toString =
+    (longSlots.map(_.name + ": Long") ++ refNames).mkString("SlotConfiguration(", ", ", ")")
+}
+
+object SlotConfiguration {
+  def apply(identifiers: (String, CypherType)*): SlotConfiguration = {
+    val configuration = new SlotConfiguration
+    identifiers.foreach {
+      case (name, typ) => configuration.allocate(name, typ)
+    }
+    configuration
+  }
+}
+
+/*
+The slot configurations of all pipelines of a plan. A pipeline ends at a pipe that builds its rows from scratch
+rather than extending the rows of its sources, so each row is only as wide as the identifiers of its own pipeline.
+Everything else, both sides of joins and the inner side of applies included, extends the rows it is handed and
+shares the configuration of the pipe above it.
+*/
+final class SlotAllocation private(byPipe: java.util.HashMap[Id, SlotConfiguration]) {
+
+  def configurationOf(pipe: Pipe): SlotConfiguration = byPipe.get(pipe.id)
+
+  /*
+  Returns the long slot the pipe writes or reads the identifier through, or null if the identifier is not kept in
+  a long slot. Pipes look their slots up once per execution, not once per row.
+   */
+  def longSlot(pipe: Pipe, name: String): LongSlot = {
+    val configuration = configurationOf(pipe)
+    if (configuration == null) null
+    else configuration.slotFor(name) match {
+      case slot: LongSlot => slot
+      case _ => null
+    }
+  }
+}
+
+object SlotAllocation {
+
+  def allocate(root: Pipe): SlotAllocation = {
+    val byPipe = new java.util.HashMap[Id, SlotConfiguration]()
+
+    def visit(pipe: Pipe, configuration: SlotConfiguration) {
+      byPipe.put(pipe.id, configuration)
+      val sourceConfiguration = if (startsPipeline(pipe)) new SlotConfiguration else configuration
+      pipe.sources.foreach(visit(_, sourceConfiguration))
+      pipe.symbols.identifiers.foreach {
+        case (name, typ) => configuration.allocate(name, typ)
+      }
+    }
+
+    visit(root, new SlotConfiguration)
+    new SlotAllocation(byPipe)
+  }
+
+  private def startsPipeline(pipe: Pipe) = pipe match {
+    case _: ProduceResultsPipe | _: EagerAggregationPipe | _: DistinctPipe => true
+    case _ => false
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_3.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_3.symbols._
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable
+
+/*
+A row map that keeps the values of the identifiers known at plan time in arrays, at the offsets handed out by its
+SlotConfiguration. Copying a row is then a couple of array copies instead of re-hashing every entry, and merging two
+rows built from the same configuration is a walk over their arrays.
+
+Nodes and relationships are kept as their ids in a long array, so pipes that only need the id read it through
+their LongSlot without unboxing. The entity the id was taken from is kept next to it, so that reading the
+identifier by name does not have to look the entity up again; rows that only got an id look the entity up on
+first read. A value that is not an entity of the type of its long slot is kept as is in the entity array.
+
+Identifiers that were not known when the plan was built are kept in an overflow map, so a SlottedMap can always
+stand in for any other row map.
+*/
+final class SlottedMap private(val slots: SlotConfiguration,
+                               query: QueryContext,
+                               private val longs: Array[Long],
+                               private val entities: Array[AnyRef],
+                               private val refs: Array[AnyRef],
+                               private var overflow: mutable.Map[String, Any]) extends mutable.Map[String, Any] {
+
+  import SlottedMap._
+
+  def this(slots: SlotConfiguration, query: QueryContext) =
+    this(slots, query, SlottedMap.newLongs(slots.numberOfLongs), new Array[AnyRef](slots.numberOfLongs),
+      SlottedMap.newRefs(slots.numberOfReferences), null)
+
+  /*
+  Returns the id held in the long slot, NULL_ID if the identifier is null, or ABSENT if the identifier is either
+  not set or holds a value that is not an entity of the slot's type
+   */
+  def getLongAt(offset: Int): Long = {
+    val id = longs(offset)
+    if (id == NOT_AN_ENTITY) ABSENT else id
+  }
+
+  def setLongAt(offset: Int, id: Long) {
+    longs(offset) = id
+    entities(offset) = null
+  }
+
+  def setEntityAt(slot: LongSlot, entity: AnyRef) {
+    val offset = slot.offset
+    entities(offset) = entity
+    longs(offset) = entity match {
+      case null => NULL_ID
+      case n: Node if slot.typ == CTNode => n.getId
+      case r: Relationship if slot.typ == CTRelationship => r.getId
+      case _ => NOT_AN_ENTITY
+    }
+  }
+
+  def getEntityAt(slot: LongSlot): Option[Any] =
+    if (longs(slot.offset) == ABSENT) None else Some(entityAt(slot))
+
+  def get(key: String): Option[Any] = slots.slotFor(key) match {
+    case slot: LongSlot =>
+      getEntityAt(slot)
+    case RefSlot(_, offset) =>
+      val value = refs(offset)
+      if (value eq Absent) None else Some(value)
+    case _ =>
+      if (overflow == null) None else overflow.get(key)
+  }
+
+  override def apply(key: String): Any = slots.slotFor(key) match {
+    case slot: LongSlot =>
+      if (longs(slot.offset) == ABSENT) default(key) else entityAt(slot)
+    case RefSlot(_, offset) =>
+      val value = refs(offset)
+      if (value eq Absent) default(key) else value
+    case _ =>
+      if (overflow == null) default(key) else overflow.getOrElse(key, default(key))
+  }
+
+  override def contains(key: String): Boolean = slots.slotFor(key) match {
+    case LongSlot(_, offset, _) => longs(offset) != ABSENT
+    case RefSlot(_, offset) => !(refs(offset) eq Absent)
+    case _ => overflow != null && overflow.contains(key)
+  }
+
+  override def update(key: String, value: Any) {
+    slots.slotFor(key) match {
+      case slot: LongSlot => setEntityAt(slot, value.asInstanceOf[AnyRef])
+      case RefSlot(_, offset) => refs(offset) = value.asInstanceOf[AnyRef]
+      case _ => overflowMap.update(key, value)
+    }
+  }
+
+  override def put(key: String, value: Any): Option[Any] = {
+    val previous = get(key)
+    update(key, value)
+    previous
+  }
+
+  def +=(kv: (String, Any)) = {
+    update(kv._1, kv._2)
+    this
+  }
+
+  def -=(key: String) = {
+    slots.slotFor(key) match {
+      case LongSlot(_, offset, _) => setLongAt(offset, ABSENT)
+      case RefSlot(_, offset) => refs(offset) = Absent
+      case _ => if (overflow != null) overflow -= key
+    }
+    this
+  }
+
+  override def ++=(xs: TraversableOnce[(String, Any)]): this.type = xs match {
+    case other: SlottedMap if other.slots eq slots =>
+      var i = 0
+      while (i < longs.length) {
+        if (other.longs(i) != ABSENT) {
+          longs(i) = other.longs(i)
+          entities(i) = other.entities(i)
+        }
+        i += 1
+      }
+      i = 0
+      while (i < refs.length) {
+        val value = other.refs(i)
+        if (!(value eq Absent))
+          refs(i) = value
+        i += 1
+      }
+      if (other.overflow != null)
+        overflowMap ++= other.overflow
+      this
+
+    case _ =>
+      super.++=(xs)
+  }
+
+  def iterator: Iterator[(String, Any)] = {
+    val slottedLongs = longs.indices.iterator.filter(i => longs(i) != ABSENT).map { i =>
+      val slot = slots.longSlotAt(i)
+      slot.name -> entityAt(slot)
+    }
+    val slottedRefs = refs.indices.iterator.filter(i => !(refs(i) eq Absent)).map(i => slots.refNameAt(i) -> refs(i))
+    val slotted = slottedLongs ++ slottedRefs
+    if (overflow == null) slotted else slotted ++ overflow.iterator
+  }
+
+  override def size: Int = {
+    var result = if (overflow == null) 0 else overflow.size
+    var i = 0
+    while (i < longs.length) {
+      if (longs(i) != ABSENT)
+        result += 1
+      i += 1
+    }
+    i = 0
+    while (i < refs.length) {
+      if (!(refs(i) eq Absent))
+        result += 1
+      i += 1
+    }
+    result
+  }
+
+  override def empty: SlottedMap = new SlottedMap(slots, query)
+
+  override def clone(): SlottedMap =
+    new SlottedMap(slots, query, longs.clone(), entities.clone(), refs.clone(),
+      if (overflow == null) null else overflow.clone())
+
+  private def entityAt(slot: LongSlot): AnyRef = {
+    val offset = slot.offset
+    val id = longs(offset)
+    if (id == NULL_ID || id == NOT_AN_ENTITY) {
+      entities(offset)
+    } else {
+      var entity = entities(offset)
+      if (entity == null) {
+        entity = if (slot.typ == CTNode) query.nodeOps.getById(id) else query.relationshipOps.getById(id)
+        entities(offset) = entity
+      }
+      entity
+    }
+  }
+
+  private def overflowMap: mutable.Map[String, Any] = {
+    if (overflow == null)
+      overflow = MutableMaps.empty
+    overflow
+  }
+}
+
+object SlottedMap {
+  // values of long slots that are not entity ids
+  final val ABSENT = Long.MinValue
+  final val NULL_ID = -1L
+  private final val NOT_AN_ENTITY = -2L
+
+  private object Absent
+
+  private def newLongs(size: Int): Array[Long] = {
+    val longs = new Array[Long](size)
+    java.util.Arrays.fill(longs, ABSENT)
+    longs
+  }
+
+  private def newRefs(size: Int): Array[AnyRef] = {
+    val refs = new Array[AnyRef](size)
+    java.util.Arrays.fill(refs, Absent)
+    refs
+  }
+
+  // the configuration of the row, or null if the row is not slotted
+  def slotsOf(row: collection.Map[String, Any]): SlotConfiguration = row match {
+    case slotted: SlottedMap => slotted.slots
+    case _ => null
+  }
+}
@@ -33,8 +33,13 @@ case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])
                    (val estimatedCardinality: Option[Double] = None)(implicit monitor: PipeMonitor)
   extends PipeWithSource(source, monitor) with Comparer with RonjaPipe with NoEffectsPipe {
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toList.
-      sortWith((a, b) => compareBy(a, b, orderBy)(state)).iterator
+    state.spill match {
+      case Some(configuration) =>
+        new ExternalSort(configuration, (a, b) => compareBy(a, b, orderBy)(state), state).sort(input)
+      case None =>
+        input.toList.
+          sortWith((a, b) => compareBy(a, b, orderBy)(state)).iterator
+    }
 
   def planDescriptionWithoutCardinality = source.planDescription.andThen(this.id, "Sort", identifiers, KeyNames(orderBy.map(_.id)))
 
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import java.io._
+
+import org.neo4j.cypher.internal.compiler.v2_3.{ExecutionContext, TaskCloser}
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * How many bytes, as estimated from the values of the rows, the eager operators of one query may keep on the heap
+ * together before they spill rows to files in the given directory. Operators reserve a row before buffering it, and
+ * are always granted a small share of the budget so that each of them can make progress. The files are removed by the
+ * cleaner when the query is closed.
+ */
+class SpillConfiguration(val byteBudget: Long, directory: File, cleaner: TaskCloser) {
+
+  private val minimumBytes = byteBudget / 64
+  private var reserved = 0L
+
+  /**
+   * @param row the row the calling operator is about to buffer
+   * @param bytesHeld how many bytes the calling operator already holds
+   * @return the estimated size of the row, which the operator hands back with [[release]], or
+   *         [[SpillConfiguration.NOT_RESERVED]] if it should spill what it holds instead
+   */
+  def reserve(row: ExecutionContext, bytesHeld: Long): Long = {
+    val bytes = SpillConfiguration.estimatedSize(row)
+    if (reserved + bytes <= byteBudget || bytesHeld == 0 || bytesHeld + bytes <= minimumBytes) {
+      reserved += bytes
+      bytes
+    } else {
+      SpillConfiguration.NOT_RESERVED
+    }
+  }
+
+  def release(bytes: Long) {
+    reserved -= bytes
+  }
+
+  // hands reserved bytes back once the operator's output has been consumed
+  def releaseAfter(bytes: Long, result: Iterator[ExecutionContext]): Iterator[ExecutionContext] =
+    result ++ {
+      release(bytes)
+      Iterator.empty
+    }
+
+  def newFile(prefix: String): File = {
+    directory.mkdirs()
+    val file = File.createTempFile(prefix, ".run", directory)
+    cleaner.addTask(_ => file.delete())
+    file
+  }
+
+  def closeOnCleanUp(resource: Closeable) {
+    cleaner.addTask(_ => resource.close())
+  }
+}
+
+object SpillConfiguration {
+  val NOT_RESERVED = -1L
+
+  // how many files operators that spill by hash partitioning split their input into
+  val partitionCount = 16
+
+  // spill files live next to the store rather than in java.io.tmpdir, which is often a small tmpfs
+  def directoryIn(storeDir: String) = new File(storeDir, "cypher-spill")
+
+  // rough heap footprint of a row: the row and its map entries, plus the values, collections counted element by element
+  def estimatedSize(row: ExecutionContext): Long = {
+    var size = ROW_OVERHEAD
+    row.foreach {
+      case (_, value) => size += ENTRY_OVERHEAD + estimatedSize(value)
+    }
+    size
+  }
+
+  private def estimatedSize(value: Any): Long = value match {
+    case null => 0
+    case s: String => STRING_OVERHEAD + 2L * s.length
+    case m: collection.Map[_, _] =>
+      m.foldLeft(COLLECTION_OVERHEAD) {
+        case (size, (k, v)) => size + ENTRY_OVERHEAD + estimatedSize(k) + estimatedSize(v)
+      }
+    case t: Traversable[_] => t.foldLeft(COLLECTION_OVERHEAD)((size, v) => size + REFERENCE + estimatedSize(v))
+    case a: Array[_] => a.foldLeft(COLLECTION_OVERHEAD)((size, v) => size + REFERENCE + estimatedSize(v))
+    case _: Node | _: Relationship => ENTITY_SIZE
+    case _ => BOXED_SIZE
+  }
+
+  private val ROW_OVERHEAD = 64L
+  private val ENTRY_OVERHEAD = 32L
+  private val COLLECTION_OVERHEAD = 32L
+  private val STRING_OVERHEAD = 40L
+  private val REFERENCE = 8L
+  private val ENTITY_SIZE = 32L
+  private val BOXED_SIZE = 16L
+}
+
+/**
+ * Rows written to one spill file, in the order they were added. Rows holding values that have no binary format are
+ * kept on the heap and handed back after the spilled ones.
+ */
+class SpillPartition(configuration: SpillConfiguration, prefix: String) {
+
+  // the file is only created once the first row is spilled
+  private var file: File = null
+  private var out: DataOutputStream = null
+  private var writer: RowSpillWriter = null
+  private val kept = ArrayBuffer[ExecutionContext]()
+  private var spilled = 0
+  // rows are read back in the layout of the pipeline they were spilled from
+  private var slots: SlotConfiguration = null
+
+  def add(row: ExecutionContext) {
+    if (RowSpillFormat.canSpill(row)) {
+      if (writer == null) {
+        open()
+        slots = SlottedMap.slotsOf(row.m)
+      }
+      writer.write(row)
+      spilled += 1
+    } else {
+      kept += row
+    }
+  }
+
+  def isEmpty = spilled == 0 && kept.isEmpty
+
+  // can only be read once; the file is deleted when all spilled rows have been read
+  def rows(state: QueryState): Iterator[ExecutionContext] = {
+    if (spilled == 0)
+      return kept.iterator
+
+    out.close()
+    val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+    configuration.closeOnCleanUp(in)
+    val reader = new RowSpillReader(in, state, slots)
+
+    val fromFile = new Iterator[ExecutionContext] {
+      private var remaining = spilled
+
+      def hasNext = remaining > 0
+
+      def next() = {
+        if (!hasNext)
+          Iterator.empty.next()
+
+        val row = reader.read()
+        remaining -= 1
+        if (remaining == 0) {
+          in.close()
+          file.delete()
+        }
+        row
+      }
+    }
+    fromFile ++ kept.iterator
+  }
+
+  def discard() {
+    if (file != null) {
+      out.close()
+      file.delete()
+    }
+    kept.clear()
+  }
+
+  private def open() {
+    file = configuration.newFile(prefix)
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))
+    configuration.closeOnCleanUp(out)
+    writer = new RowSpillWriter(out)
+  }
+}
@@ -43,6 +43,9 @@ object LogicalPlan2PlanDescription extends ((LogicalPlan, Map[LogicalPlan, Id])
       case NodeIndexSeek(IdName(id), label, propKey, value, arguments) =>
         PlanDescriptionImpl(id = idMap(plan), "NodeIndexSeek", NoChildren, Seq(Index(label.name, propKey.name)), symbols)
 
+      case NodeIndexSeekByRange(IdName(id), label, propKey, range, arguments) =>
+        PlanDescriptionImpl(id = idMap(plan), "NodeIndexSeekByRange", NoChildren, Seq(Index(label.name, propKey.name)), symbols)
+
       case NodeIndexUniqueSeek(IdName(id), label, propKey, value, arguments) =>
         PlanDescriptionImpl(id = idMap(plan), "NodeIndexUniqueSeek", NoChildren, Seq(Index(label.name, propKey.name)), symbols)
 
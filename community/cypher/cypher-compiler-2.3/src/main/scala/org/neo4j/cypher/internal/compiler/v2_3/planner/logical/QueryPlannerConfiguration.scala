@@ -46,6 +46,9 @@ object QueryPlannerConfiguration {
       // MATCH n WHERE n.prop IN ... RETURN n
       indexSeekLeafPlanner,
 
+      // MATCH n WHERE n.prop > ... RETURN n, MATCH n WHERE n.prop STARTS WITH ... RETURN n
+      indexSeekByRangeLeafPlanner,
+
       // MATCH n WHERE has(n.prop) RETURN n
       indexScanLeafPlanner,
 
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.cardinality
 
 import org.neo4j.cypher.internal.compiler.v2_3.LabelId
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{InequalitySeekRange, PrefixSeekRange, SeekRange}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans.{IdName, _}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.{Cardinality, Selectivity}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.{Selections, SemanticTable}
@@ -71,6 +72,15 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
     case _: Equals =>
       GraphStatistics.DEFAULT_EQUALITY_SELECTIVITY
 
+    // WHERE x.prop STARTS WITH ...
+    case AsPrefixRangeSeekable(seekable) =>
+      calculateSelectivityForRange(seekable, PrefixSeekRange(seekable.prefix), selections)
+
+    // WHERE x.prop >= ...
+    case AsInequalityRangeSeekable(seekable) =>
+      val range = if (seekable.isLower) InequalitySeekRange(Some(seekable.bound), None) else InequalitySeekRange(None, Some(seekable.bound))
+      calculateSelectivityForRange(seekable, range, selections)
+
     // WHERE <expr> >= <expr>
     case _: GreaterThan | _: GreaterThanOrEqual | _: LessThan | _: LessThanOrEqual =>
       GraphStatistics.DEFAULT_RANGE_SELECTIVITY
@@ -114,6 +124,37 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
     selectivity
   }
 
+  private def calculateSelectivityForRange(seekable: RangeSeekable[_],
+                                           range: SeekRange[Expression],
+                                           selections: Selections)
+                                          (implicit semanticTable: SemanticTable): Selectivity = {
+    val endPoints = range match {
+      case PrefixSeekRange(prefix) => Seq(prefix)
+      case InequalitySeekRange(lower, upper) => (lower ++ upper).map(_.endPoint).toSeq
+    }
+    // Only ranges over literal values can be estimated from the values in the index, since parameters are not
+    // known when planning. Other ranges can still only match nodes that have the property at all.
+    val literalRange = if (endPoints.forall(e => e.isInstanceOf[NumberLiteral] || e.isInstanceOf[StringLiteral]))
+      Some(range.map(_.asInstanceOf[Literal].value: Any))
+    else
+      None
+
+    val labels = selections.labelsOnNode(IdName(seekable.name))
+    val indexRangeSelectivities = labels.toSeq.flatMap {
+      labelName =>
+        (labelName.id, seekable.propertyKey.id) match {
+          case (Some(labelId), Some(propertyKeyId)) =>
+            literalRange.flatMap(stats.indexRangeSelectivity(labelId, propertyKeyId, _)) orElse
+              stats.indexPropertyExistsSelectivity(labelId, propertyKeyId).map(_ * DEFAULT_RANGE_SELECTIVITY)
+
+          case _ =>
+            Some(Selectivity.ZERO)
+        }
+    }
+
+    combiner.orTogetherSelectivities(indexRangeSelectivities).getOrElse(DEFAULT_RANGE_SELECTIVITY)
+  }
+
   private def calculateSelectivityForPropertyExistence(identifier: String,
                                                       selections: Selections,
                                                       propertyKey: PropertyKeyName)
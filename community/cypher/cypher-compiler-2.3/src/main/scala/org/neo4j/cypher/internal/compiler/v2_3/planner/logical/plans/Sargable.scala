@@ -21,7 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans
 
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
 import org.neo4j.cypher.internal.compiler.v2_3.ast.convert.commands.ExpressionConverters._
-import org.neo4j.cypher.internal.compiler.v2_3.commands.{ManyQueryExpression, QueryExpression, SingleQueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{Bound, ManyQueryExpression, QueryExpression, SingleQueryExpression}
 import org.neo4j.cypher.internal.compiler.v2_3.functions
 import org.neo4j.cypher.internal.compiler.v2_3.helpers.{Many, One, Zero, ZeroOneOrMany}
 import org.neo4j.cypher.internal.compiler.v2_3.pipes.{ManySeekArgs, SingleSeekArg, SeekArgs}
@@ -54,6 +54,37 @@ object AsPropertySeekable {
   }
 }
 
+object AsPrefixRangeSeekable {
+  def unapply(v: Any) = v match {
+    case startsWith@StartsWith(prop@Property(ident: Identifier, _), prefix)
+      if !prefix.dependencies(ident) =>
+      Some(PrefixRangeSeekable(startsWith, ident, prop, prefix))
+    case _ =>
+      None
+  }
+}
+
+object AsInequalityRangeSeekable {
+  def unapply(v: Any) = v match {
+    case inequality@GreaterThan(prop@Property(ident: Identifier, _), rhs) => seekable(inequality, ident, prop, rhs, isLower = true, inclusive = false)
+    case inequality@GreaterThanOrEqual(prop@Property(ident: Identifier, _), rhs) => seekable(inequality, ident, prop, rhs, isLower = true, inclusive = true)
+    case inequality@LessThan(prop@Property(ident: Identifier, _), rhs) => seekable(inequality, ident, prop, rhs, isLower = false, inclusive = false)
+    case inequality@LessThanOrEqual(prop@Property(ident: Identifier, _), rhs) => seekable(inequality, ident, prop, rhs, isLower = false, inclusive = true)
+    case inequality@GreaterThan(lhs, prop@Property(ident: Identifier, _)) => seekable(inequality, ident, prop, lhs, isLower = false, inclusive = false)
+    case inequality@GreaterThanOrEqual(lhs, prop@Property(ident: Identifier, _)) => seekable(inequality, ident, prop, lhs, isLower = false, inclusive = true)
+    case inequality@LessThan(lhs, prop@Property(ident: Identifier, _)) => seekable(inequality, ident, prop, lhs, isLower = true, inclusive = false)
+    case inequality@LessThanOrEqual(lhs, prop@Property(ident: Identifier, _)) => seekable(inequality, ident, prop, lhs, isLower = true, inclusive = true)
+    case _ => None
+  }
+
+  private def seekable(expr: Expression, ident: Identifier, property: Property, endPoint: Expression,
+                       isLower: Boolean, inclusive: Boolean) =
+    if (endPoint.dependencies(ident))
+      None
+    else
+      Some(InequalityRangeSeekable(expr, ident, property, Bound(endPoint, inclusive), isLower))
+}
+
 object AsPropertyScannable {
   def unapply(v: Any) = v match {
     case func@FunctionInvocation(_, _, IndexedSeq(property@Property(ident: Identifier, _)))
@@ -84,6 +115,25 @@ case class PropertySeekable(expr: Property, ident: Identifier, args: SeekableArg
   def propertyKey = expr.propertyKey
 }
 
+sealed trait RangeSeekable[T <: Expression] extends Sargable[T] {
+  def property: Property
+  def dependencies: Set[Identifier]
+
+  def propertyKey = property.propertyKey
+}
+
+case class PrefixRangeSeekable(expr: StartsWith, ident: Identifier, property: Property, prefix: Expression)
+  extends RangeSeekable[StartsWith] {
+
+  def dependencies = prefix.dependencies
+}
+
+case class InequalityRangeSeekable(expr: Expression, ident: Identifier, property: Property, bound: Bound[Expression], isLower: Boolean)
+  extends RangeSeekable[Expression] {
+
+  def dependencies = bound.endPoint.dependencies
+}
+
 sealed trait Scannable[T <: Expression] extends Sargable[T]
 
 case class PropertyScannable(expr: FunctionInvocation, ident: Identifier, property: Property)
@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.steps
 
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
-import org.neo4j.cypher.internal.compiler.v2_3.commands.{ManyQueryExpression, QueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{InequalitySeekRange, ManyQueryExpression, PrefixSeekRange, QueryExpression, SeekRange}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.QueryGraph
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical._
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
@@ -107,6 +107,58 @@ object indexSeekLeafPlanner extends AbstractIndexSeekLeafPlanner {
   private def uniqueIndex(label: String, property: String)(implicit context: LogicalPlanningContext) = context.planContext.getUniqueIndexRule(label, property)
 }
 
+object indexSeekByRangeLeafPlanner extends LeafPlanner {
+  def apply(qg: QueryGraph)(implicit context: LogicalPlanningContext) = {
+    implicit val semanticTable = context.semanticTable
+    val predicates: Seq[Expression] = qg.selections.flatPredicates
+    val labelPredicateMap: Map[IdName, Set[HasLabels]] = qg.selections.labelPredicates
+    val arguments = qg.argumentIds.map(n => Identifier(n.name)(null))
+
+    def isPlannable(seekable: RangeSeekable[_]) =
+      seekable.dependencies.forall(arguments) && !arguments(seekable.ident)
+
+    val prefixRanges: Seq[(Identifier, PropertyKeyName, SeekRange[Expression], Seq[Expression])] =
+      predicates.collect {
+        case predicate@AsPrefixRangeSeekable(seekable) if isPlannable(seekable) =>
+          (seekable.ident, seekable.propertyKey, PrefixSeekRange(seekable.prefix), Seq(predicate))
+      }
+
+    // Several inequalities on the same property are combined into a single range, using at most one bound
+    // for each end of it and leaving any other inequality to be solved by a later selection
+    val inequalityRanges: Seq[(Identifier, PropertyKeyName, SeekRange[Expression], Seq[Expression])] =
+      predicates.collect {
+        case AsInequalityRangeSeekable(seekable) if isPlannable(seekable) => seekable
+      }.groupBy(seekable => (seekable.ident, seekable.propertyKey)).toSeq.map {
+        case ((ident, propertyKey), seekables) =>
+          val lower = seekables.find(_.isLower)
+          val upper = seekables.find(!_.isLower)
+          (ident, propertyKey, InequalitySeekRange(lower.map(_.bound), upper.map(_.bound)), (lower ++ upper).map(_.expr).toSeq)
+      }
+
+    (prefixRanges ++ inequalityRanges).flatMap {
+      case (ident, propertyKeyName, range, solvedPredicates) =>
+        val name = ident.name
+        val idName = IdName(name)
+        val propertyName = propertyKeyName.name
+        for (labelPredicate <- labelPredicateMap.getOrElse(idName, Set.empty);
+             labelName <- labelPredicate.labels;
+             indexDescriptor <- findIndexesFor(labelName.name, propertyName);
+             labelId <- labelName.id)
+        yield {
+          val hint = qg.hints.collectFirst {
+            case hint @ UsingIndexHint(Identifier(`name`), `labelName`, Identifier(`propertyName`)) => hint
+          }
+          context.logicalPlanProducer.planNodeIndexSeekByRange(idName, LabelToken(labelName, labelId),
+            PropertyKeyToken(propertyKeyName, propertyKeyName.id.head), range, solvedPredicates :+ labelPredicate,
+            hint, qg.argumentIds)
+        }
+    }
+  }
+
+  private def findIndexesFor(label: String, property: String)(implicit context: LogicalPlanningContext) =
+    context.planContext.getIndexRule(label, property) orElse context.planContext.getUniqueIndexRule(label, property)
+}
+
 object legacyHintLeafPlanner extends LeafPlanner {
   def apply(qg: QueryGraph)(implicit context: LogicalPlanningContext) = {
     qg.hints.toSeq.collect {
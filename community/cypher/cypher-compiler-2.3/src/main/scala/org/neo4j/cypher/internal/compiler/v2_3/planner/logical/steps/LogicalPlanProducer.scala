@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.steps
 
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
-import org.neo4j.cypher.internal.compiler.v2_3.commands.QueryExpression
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{QueryExpression, SeekRange}
 import org.neo4j.cypher.internal.compiler.v2_3.helpers.CollectionSupport
 import org.neo4j.cypher.internal.compiler.v2_3.pipes.{LazyLabel, SortDescription}
 import org.neo4j.cypher.internal.compiler.v2_3.planner._
@@ -173,6 +173,22 @@ case class LogicalPlanProducer(cardinalityModel: CardinalityModel) extends Colle
     NodeIndexSeek(idName, label, propertyKey, valueExpr, argumentIds)(solved)
   }
 
+  def planNodeIndexSeekByRange(idName: IdName,
+                               label: ast.LabelToken,
+                               propertyKey: ast.PropertyKeyToken,
+                               range: SeekRange[Expression],
+                               solvedPredicates: Seq[Expression] = Seq.empty,
+                               solvedHint: Option[UsingIndexHint] = None,
+                               argumentIds: Set[IdName])(implicit context: LogicalPlanningContext) = {
+    val solved = PlannerQuery(graph = QueryGraph.empty
+      .addPatternNodes(idName)
+      .addPredicates(solvedPredicates: _*)
+      .addHints(solvedHint)
+      .addArgumentIds(argumentIds.toSeq)
+    )
+    NodeIndexSeekByRange(idName, label, propertyKey, range, argumentIds)(solved)
+  }
+
   def planNodeIndexScan(idName: IdName,
                         label: ast.LabelToken,
                         propertyKey: ast.PropertyKeyToken,
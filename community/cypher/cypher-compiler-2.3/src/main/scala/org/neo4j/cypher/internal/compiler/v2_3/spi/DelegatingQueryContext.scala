@@ -83,6 +83,13 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   def indexScan(index: IndexDescriptor): Iterator[Node] = manyDbHits(inner.indexScan(index))
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean,
+                             upper: Number, includeUpper: Boolean): Iterator[Node] =
+    manyDbHits(inner.indexSeekByNumberRange(index, lower, includeLower, upper, includeUpper))
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] =
+    manyDbHits(inner.indexSeekByPrefix(index, prefix))
+
   def getNodesByLabel(id: Int): Iterator[Node] = manyDbHits(inner.getNodesByLabel(id))
 
   def upgrade(context: QueryContext): LockingQueryContext = inner.upgrade(context)
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.spi
 
+import org.neo4j.cypher.internal.compiler.v2_3.commands.SeekRange
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.{Cardinality, Selectivity}
 import org.neo4j.cypher.internal.compiler.v2_3.{LabelId, PropertyKeyId, RelTypeId}
 
@@ -50,6 +51,15 @@ trait GraphStatistics {
       indexPropertyExistsSelectivity(:X, prop) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE has(x.prop)|
    */
   def indexPropertyExistsSelectivity(label: LabelId, property: PropertyKeyId): Option[Selectivity]
+
+  /*
+      Probability of any node with the given label, to have a value for the property that lies in the given range
+
+      indexRangeSelectivity(:X, prop, range) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE x.prop > 5 AND x.prop < 10|
+
+      Statistics that have no knowledge of how values are distributed leave this to the default range selectivity
+   */
+  def indexRangeSelectivity(label: LabelId, property: PropertyKeyId, range: SeekRange[Any]): Option[Selectivity] = None
 }
 
 class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatistics {
@@ -64,6 +74,9 @@ class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatisti
 
   override def indexPropertyExistsSelectivity(label: LabelId, property: PropertyKeyId): Option[Selectivity] =
     delegate.indexPropertyExistsSelectivity(label, property)
+
+  override def indexRangeSelectivity(label: LabelId, property: PropertyKeyId, range: SeekRange[Any]): Option[Selectivity] =
+    delegate.indexRangeSelectivity(label, property, range)
 }
 
 class StatisticsCompletingGraphStatistics(delegate: GraphStatistics)
@@ -106,4 +106,8 @@ case class InstrumentedGraphStatistics(inner: GraphStatistics, snapshot: Mutable
     snapshot.map.getOrElseUpdate(IndexPropertyExistsSelectivity(label, property), selectivity.fold(0.0)(_.factor))
     selectivity
   }
+
+  // Depends on the range literals of a particular query, so it is not part of the snapshot
+  override def indexRangeSelectivity(label: LabelId, property: PropertyKeyId, range: SeekRange[Any]): Option[Selectivity] =
+    inner.indexRangeSelectivity(label, property, range)
 }
@@ -79,6 +79,12 @@ trait QueryContext extends TokenContext {
 
   def indexScan(index: IndexDescriptor): Iterator[Node]
 
+  // A null bound leaves that end of the range open
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean,
+                             upper: Number, includeUpper: Boolean): Iterator[Node]
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node]
+
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node]
 
   def getNodesByLabel(id: Int): Iterator[Node]
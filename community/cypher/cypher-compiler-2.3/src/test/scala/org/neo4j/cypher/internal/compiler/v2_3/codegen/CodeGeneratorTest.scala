@@ -27,8 +27,9 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.cypher.internal.compiler.v2_3.ast._
 import org.neo4j.cypher.internal.compiler.v2_3.executionplan.ExecutionPlanBuilder.tracer
 import org.neo4j.cypher.internal.compiler.v2_3.executionplan.InternalExecutionResult
-import org.neo4j.cypher.internal.compiler.v2_3.pipes.LazyLabel
+import org.neo4j.cypher.internal.compiler.v2_3.pipes.{Ascending, Descending, LazyLabel}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans.{Limit, Skip}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.{LogicalPlanningTestSupport, SemanticTable}
 import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
 import org.neo4j.cypher.internal.compiler.v2_3.{CostBasedPlannerName, NormalMode, ParameterNotFoundException, TaskCloser}
@@ -405,6 +406,161 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     result.toSet should equal(Set(Map("a" -> Map("FOO" -> 1))))
   }
 
+  test("all nodes scan + selection on label") { // MATCH (a) WHERE a:T2 RETURN a
+    //given
+    val selection = Selection(Seq(HasLabels(ident("a"), Seq(LabelName("T2")(pos)))(pos)),
+      AllNodesScan(IdName("a"), Set.empty)(solved))(solved)
+    val plan = ProduceResult(List("a"), List.empty, List.empty, Projection(selection, Map("a" -> ident("a")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getNodesFromResult(compiled, "a")
+    result should equal(List(
+      Map("a" -> fNode),
+      Map("a" -> gNode)))
+  }
+
+  test("all nodes scan + selection on negated label") { // MATCH (a) WHERE NOT a:T1 RETURN a
+    //given
+    val selection = Selection(Seq(Not(HasLabels(ident("a"), Seq(LabelName("T1")(pos)))(pos))(pos)),
+      AllNodesScan(IdName("a"), Set.empty)(solved))(solved)
+    val plan = ProduceResult(List("a"), List.empty, List.empty, Projection(selection, Map("a" -> ident("a")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getNodesFromResult(compiled, "a")
+    result should equal(List(
+      Map("a" -> dNode),
+      Map("a" -> eNode),
+      Map("a" -> fNode),
+      Map("a" -> gNode)))
+  }
+
+  test("selection filters out rows when the predicate is null") { // RETURN 1 AS a WHERE {FOO} < 2
+    //given
+    val predicate = LessThan(Parameter("FOO")(pos), SignedDecimalIntegerLiteral("2")(pos))(pos)
+    val plan = ProduceResult(List.empty, List.empty, List("a"),
+      Projection(Selection(Seq(predicate), SingleRow()(solved))(solved), Map("a" -> SignedDecimalIntegerLiteral("1")(pos)))(solved))
+
+    //when
+    val compiledWithMatch = compileAndExecute(plan, Map("FOO" -> Long.box(1L)))
+    val compiledWithNull = compileAndExecute(plan, Map("FOO" -> null))
+
+    //then
+    getResult(compiledWithMatch, "a") should equal(List(Map("a" -> 1)))
+    getResult(compiledWithNull, "a") shouldBe empty
+  }
+
+  test("all nodes scan + limit") { // MATCH a RETURN a LIMIT 2
+    //given
+    val limit = Limit(AllNodesScan(IdName("a"), Set.empty)(solved), SignedDecimalIntegerLiteral("2")(pos))(solved)
+    val plan = ProduceResult(List("a"), List.empty, List.empty, Projection(limit, Map("a" -> ident("a")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getNodesFromResult(compiled, "a")
+    result should equal(List(
+      Map("a" -> aNode),
+      Map("a" -> bNode)))
+  }
+
+  test("label scan + limit from parameter") { // MATCH (a:T1) RETURN a LIMIT {FOO}
+    //given
+    val limit = Limit(NodeByLabelScan(IdName("a"), LazyLabel("T1"), Set.empty)(solved), Parameter("FOO")(pos))(solved)
+    val plan = ProduceResult(List("a"), List.empty, List.empty, Projection(limit, Map("a" -> ident("a")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan, Map("FOO" -> Long.box(0L)))
+
+    //then
+    getNodesFromResult(compiled, "a") shouldBe empty
+  }
+
+  test("all nodes scan + skip") { // MATCH a RETURN a SKIP 5
+    //given
+    val skip = Skip(AllNodesScan(IdName("a"), Set.empty)(solved), SignedDecimalIntegerLiteral("5")(pos))(solved)
+    val plan = ProduceResult(List("a"), List.empty, List.empty, Projection(skip, Map("a" -> ident("a")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getNodesFromResult(compiled, "a")
+    result should equal(List(
+      Map("a" -> fNode),
+      Map("a" -> gNode)))
+  }
+
+  test("aggregation grouped by node") { // MATCH (a)-[r]->(b) RETURN b, count(*), collect(a)
+    //given
+    val collect = FunctionInvocation(FunctionName("collect")(pos), distinct = false, IndexedSeq(ident("a")))(pos)
+    val aggregation = Aggregation(expandAll, Map("b" -> ident("b")),
+      Map("count(*)" -> CountStar()(pos), "collect(a)" -> collect))(solved)
+    val plan = ProduceResult(List("b"), List.empty, List("count(*)", "collect(a)"), aggregation)
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "count(*)", "collect(a)")
+    result should equal(List(
+      Map("b" -> dNode, "count(*)" -> 3, "collect(a)" -> List(aNode, bNode, fNode)),
+      Map("b" -> eNode, "count(*)" -> 2, "collect(a)" -> List(cNode, gNode))))
+  }
+
+  test("aggregation without grouping keys produces a row even without input") { // MATCH a WITH a LIMIT 0 RETURN count(*)
+    //given
+    val limit = Limit(AllNodesScan(IdName("a"), Set.empty)(solved), SignedDecimalIntegerLiteral("0")(pos))(solved)
+    val aggregation = Aggregation(limit, Map.empty, Map("count(*)" -> CountStar()(pos)))(solved)
+    val plan = ProduceResult(List.empty, List.empty, List("count(*)"), aggregation)
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getResult(compiled, "count(*)") should equal(List(Map("count(*)" -> 0)))
+  }
+
+  test("sort on the result of an aggregation") { // MATCH (a)-[r]->(b) WITH b, count(*) AS c ORDER BY c RETURN b, c
+    //given
+    val aggregation = Aggregation(expandAll, Map("b" -> ident("b")), Map("c" -> CountStar()(pos)))(solved)
+    val ascending = ProduceResult(List("b"), List.empty, List("c"), Sort(aggregation, Seq(Ascending("c")))(solved))
+    val descending = ProduceResult(List("b"), List.empty, List("c"), Sort(aggregation, Seq(Descending("c")))(solved))
+
+    //when
+    val compiledAscending = compileAndExecute(ascending)
+    val compiledDescending = compileAndExecute(descending)
+
+    //then
+    getResult(compiledAscending, "b", "c") should equal(List(Map("b" -> eNode, "c" -> 2), Map("b" -> dNode, "c" -> 3)))
+    getResult(compiledDescending, "b", "c") should equal(List(Map("b" -> dNode, "c" -> 3), Map("b" -> eNode, "c" -> 2)))
+  }
+
+  test("sort keeps the nodes of the sorted rows") { // MATCH (a)-[r]->(b) WITH a, b ORDER BY {FOO} RETURN a, b
+    //given
+    val projection = Projection(expandAll, Map("a" -> ident("a"), "b" -> ident("b"), "key" -> Parameter("FOO")(pos)))(solved)
+    val sort = Sort(projection, Seq(Ascending("key")))(solved)
+    val plan = ProduceResult(List("a", "b"), List.empty, List.empty,
+      Projection(sort, Map("a" -> ident("a"), "b" -> ident("b")))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan, Map("FOO" -> Long.box(1L)))
+
+    //then
+    getNodesFromResult(compiled, "a", "b") should equal(List(
+      Map("a" -> aNode, "b" -> dNode),
+      Map("a" -> bNode, "b" -> dNode),
+      Map("a" -> cNode, "b" -> eNode),
+      Map("a" -> fNode, "b" -> dNode),
+      Map("a" -> gNode, "b" -> eNode)))
+  }
+
   test("close transaction after successfully exhausting result") {
     // given
     val plan = ProduceResult(List.empty, List.empty, List("a"), Projection(SingleRow()(solved), Map("a" -> SignedDecimalIntegerLiteral("1")(null)))(solved))
@@ -507,6 +663,9 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     result.toSet should equal(Set(Map(name -> 1)))
   }
 
+  private def expandAll = Expand(AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"), Direction.OUTGOING, Seq.empty,
+    IdName("b"), IdName("r"), ExpandAll)(solved)
+
   private def compile(plan: LogicalPlan) = {
     generator.generate(plan, newMockedPlanContext, Clock.SYSTEM_CLOCK, semanticTable, CostBasedPlannerName.default)
   }
@@ -584,6 +743,15 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
       primitiveIterator(nodeIds)
     }
   })
+  when(ro.nodeHasLabel(anyLong(), anyInt())).thenAnswer(new Answer[Boolean] {
+    override def answer(invocationOnMock: InvocationOnMock): Boolean = {
+      val node = invocationOnMock.getArguments.apply(0).asInstanceOf[Long].toInt
+      val labelToken = invocationOnMock.getArguments.apply(1).asInstanceOf[Int]
+      labelTokens.exists {
+        case (label, token) => token == labelToken && nodesForLabel(label).contains(allNodes(node))
+      }
+    }
+  })
   when(ro.nodeGetRelationships(anyLong(), any[Direction])).thenAnswer(new Answer[PrimitiveLongIterator] {
     override def answer(invocationOnMock: InvocationOnMock): PrimitiveLongIterator = {
       val node = invocationOnMock.getArguments.apply(0).asInstanceOf[Long].toInt
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen
+
+import org.neo4j.cypher.internal.compiler.v2_3.CypherTypeException
+import org.neo4j.cypher.internal.compiler.v2_3.codegen.CompiledAggregationTable.Aggregate._
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+import scala.collection.JavaConverters._
+
+class CompiledAggregationTableTest extends CypherFunSuite {
+
+  test("aggregates the values of each group") {
+    val table = new CompiledAggregationTable(1, COUNT_STAR, COUNT, SUM, MIN, MAX, COLLECT)
+
+    Seq("a" -> Long.box(3L), "b" -> Long.box(1L), "a" -> null, "a" -> Double.box(1.5)).foreach {
+      case (key, value) =>
+        val group = table.group(key)
+        (0 until 6).foreach(group.update(_, value))
+    }
+
+    val groups = table.asScala.map(group => group.key(0) -> (0 until 6).map(group.result)).toList
+    groups should equal(List(
+      "a" -> Seq(3L, 2L, 4.5, 1.5, 3L, List[Any](3L, 1.5).asJava),
+      "b" -> Seq(1L, 1L, 1L, 1L, 1L, List(1L).asJava)))
+  }
+
+  test("groups by all keys, comparing arrays by their elements") {
+    val table = new CompiledAggregationTable(2, COUNT_STAR)
+
+    table.group("a", Array(1, 2)).update(0, null)
+    table.group("a", Array(1, 2)).update(0, null)
+    table.group("a", Array(1)).update(0, null)
+
+    table.asScala.map(_.result(0)).toList should equal(List(2L, 1L))
+  }
+
+  test("produces a single group when there are no keys, even without rows") {
+    val table = new CompiledAggregationTable(0, COUNT_STAR, SUM, MAX, COLLECT)
+
+    table.asScala.map(group => (0 until 4).map(group.result)).toList should equal(List(Seq(0L, 0L, null, List.empty.asJava)))
+  }
+
+  test("produces no groups when there are keys but no rows") {
+    new CompiledAggregationTable(1, COUNT_STAR).asScala shouldBe empty
+  }
+
+  test("groups by node ids") {
+    val table = new CompiledAggregationTable(1, COUNT_STAR)
+
+    table.group(Long.box(42L)).update(0, null)
+
+    table.iterator().next().longKey(0) should equal(42L)
+  }
+
+  test("only numbers can be summed") {
+    val group = new CompiledAggregationTable(0, SUM).group()
+
+    a [CypherTypeException] should be thrownBy group.update(0, "a")
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen
+
+import org.neo4j.cypher.internal.compiler.v2_3.{CypherTypeException, IncomparableValuesException}
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+class CompiledPredicateHelperTest extends CypherFunSuite {
+
+  private val TRUE = java.lang.Boolean.TRUE
+  private val FALSE = java.lang.Boolean.FALSE
+
+  test("and follows ternary logic") {
+    CompiledPredicateHelper.and(TRUE, TRUE) should equal(TRUE)
+    CompiledPredicateHelper.and(TRUE, FALSE) should equal(FALSE)
+    CompiledPredicateHelper.and(null, FALSE) should equal(FALSE)
+    CompiledPredicateHelper.and(TRUE, null) should equal(null)
+  }
+
+  test("or follows ternary logic") {
+    CompiledPredicateHelper.or(FALSE, FALSE) should equal(FALSE)
+    CompiledPredicateHelper.or(FALSE, TRUE) should equal(TRUE)
+    CompiledPredicateHelper.or(null, TRUE) should equal(TRUE)
+    CompiledPredicateHelper.or(FALSE, null) should equal(null)
+  }
+
+  test("not of null is null") {
+    CompiledPredicateHelper.not(TRUE) should equal(FALSE)
+    CompiledPredicateHelper.not(null) should equal(null)
+  }
+
+  test("equality compares numbers by value") {
+    CompiledPredicateHelper.equal(Long.box(1L), Double.box(1.0)) should equal(TRUE)
+    CompiledPredicateHelper.equal(Int.box(1), Long.box(2L)) should equal(FALSE)
+    CompiledPredicateHelper.equal(Long.box(1L), null) should equal(null)
+  }
+
+  test("equality compares collections element by element") {
+    CompiledPredicateHelper.equal(java.util.Arrays.asList(Long.box(1L), "a"), Array[AnyRef](Int.box(1), "a")) should equal(TRUE)
+    CompiledPredicateHelper.equal(java.util.Arrays.asList(Long.box(1L)), java.util.Arrays.asList(Long.box(1L), "a")) should equal(FALSE)
+  }
+
+  test("comparisons on numbers and strings") {
+    CompiledPredicateHelper.lessThan(Long.box(1L), Double.box(1.5)) should equal(TRUE)
+    CompiledPredicateHelper.greaterThanOrEqual("b", "a") should equal(TRUE)
+    CompiledPredicateHelper.lessThanOrEqual(null, Long.box(1L)) should equal(null)
+  }
+
+  test("comparing incomparable values fails") {
+    an [IncomparableValuesException] should be thrownBy CompiledPredicateHelper.lessThan("a", Long.box(1L))
+  }
+
+  test("only true passes a filter") {
+    CompiledPredicateHelper.isTrue(TRUE) shouldBe true
+    CompiledPredicateHelper.isTrue(FALSE) shouldBe false
+    CompiledPredicateHelper.isTrue(null) shouldBe false
+    a [CypherTypeException] should be thrownBy CompiledPredicateHelper.isTrue("true")
+  }
+
+  test("limit and skip counts must be non-negative integers") {
+    CompiledConversionUtils.coerceToCount(Long.box(3L)) should equal(3L)
+    a [CypherTypeException] should be thrownBy CompiledConversionUtils.coerceToCount(Long.box(-1L))
+    a [CypherTypeException] should be thrownBy CompiledConversionUtils.coerceToCount(Double.box(1.5))
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.codegen
+
+import org.neo4j.cypher.internal.compiler.v2_3.IncomparableValuesException
+import org.neo4j.cypher.internal.compiler.v2_3.codegen.CompiledSortTable.Order._
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+import scala.collection.JavaConverters._
+
+class CompiledSortTableTest extends CypherFunSuite {
+
+  test("sorts rows by their keys in the given order") {
+    val table = new CompiledSortTable[String](ASCENDING, DESCENDING)
+
+    table.add("c", Long.box(2L), "x")
+    table.add("a", Long.box(1L), "x")
+    table.add("d", Long.box(2L), "w")
+    table.add("b", Long.box(1L), "w")
+
+    table.asScala.toList should equal(List("a", "b", "c", "d"))
+  }
+
+  test("keeps rows with equal keys in the order they were added") {
+    val table = new CompiledSortTable[String](ASCENDING)
+
+    table.add("a", Long.box(1L))
+    table.add("b", Long.box(1L))
+    table.add("c", Long.box(0L))
+
+    table.asScala.toList should equal(List("c", "a", "b"))
+  }
+
+  test("sorts nulls last and numbers by value") {
+    val table = new CompiledSortTable[String](ASCENDING)
+
+    table.add("null", null)
+    table.add("two", Long.box(2L))
+    table.add("one and a half", Double.box(1.5))
+
+    table.asScala.toList should equal(List("one and a half", "two", "null"))
+  }
+
+  test("sorting incomparable values fails") {
+    an [IncomparableValuesException] should be thrownBy CompiledSortTable.compare("a", Long.box(1L))
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.commands
+
+import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.{Literal, Null}
+import org.neo4j.cypher.internal.compiler.v2_3.pipes.QueryStateHelper
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+class StartsWithTest extends CypherFunSuite {
+  test("should match strings starting with the prefix") {
+    StartsWith(Literal("apple"), Literal("ap")).isMatch(null)(QueryStateHelper.empty) should equal(Some(true))
+    StartsWith(Literal("apple"), Literal("")).isMatch(null)(QueryStateHelper.empty) should equal(Some(true))
+  }
+
+  test("should not match strings not starting with the prefix") {
+    StartsWith(Literal("apple"), Literal("pe")).isMatch(null)(QueryStateHelper.empty) should equal(Some(false))
+  }
+
+  test("should not match if either side evaluates to null") {
+    StartsWith(Null(), Literal("ap")).isMatch(null)(QueryStateHelper.empty) should equal(None)
+    StartsWith(Literal("apple"), Null()).isMatch(null)(QueryStateHelper.empty) should equal(None)
+  }
+
+  test("should not match if either side is not a string") {
+    StartsWith(Literal(42), Literal("4")).isMatch(null)(QueryStateHelper.empty) should equal(None)
+    StartsWith(Literal("42"), Literal(4)).isMatch(null)(QueryStateHelper.empty) should equal(None)
+  }
+}
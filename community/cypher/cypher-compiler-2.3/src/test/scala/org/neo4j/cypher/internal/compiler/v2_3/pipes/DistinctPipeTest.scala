@@ -19,9 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
+import org.mockito.Mockito._
 import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.{Expression, Identifier, Literal, Multiply}
 import org.neo4j.cypher.internal.compiler.v2_3.symbols._
 import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
 
 class DistinctPipeTest extends CypherFunSuite {
 
@@ -61,6 +63,23 @@ class DistinctPipeTest extends CypherFunSuite {
     result.toList should equal( List(Map("x" -> 1)))
   }
 
+  test("distinct_on_nodes_keeps_first_occurrence_of_each_node") {
+    //GIVEN
+    val node1 = mock[Node]
+    when(node1.getId).thenReturn(1L)
+    val node2 = mock[Node]
+    when(node2.getId).thenReturn(2L)
+    val source = new FakePipe(List(
+      Map("n" -> node1), Map("n" -> null), Map("n" -> node2), Map("n" -> node1), Map("n" -> null)), "n" -> CTNode)
+    val pipe = new DistinctPipe(source, Map("n" -> Identifier("n")))()
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.empty)
+
+    //THEN
+    result.toList should equal(List(Map("n" -> node1), Map("n" -> null), Map("n" -> node2)))
+  }
+
   def createDistinctPipe(input: List[Map[String, Int]], expressions: Map[String, Expression] = Map("x" -> Identifier("x"))) = {
     val source = new FakePipe(input, "x" -> CTNumber)
     new DistinctPipe(source, expressions)()
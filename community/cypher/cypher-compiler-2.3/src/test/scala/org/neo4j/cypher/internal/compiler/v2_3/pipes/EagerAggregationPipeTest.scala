@@ -19,7 +19,9 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
-import org.neo4j.cypher.internal.compiler.v2_3.SyntaxException
+import java.nio.file.Files
+
+import org.neo4j.cypher.internal.compiler.v2_3.{ExecutionContext, SyntaxException, TaskCloser}
 import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions._
 import org.neo4j.cypher.internal.compiler.v2_3.commands.values.TokenType.PropertyKey
 import org.neo4j.cypher.internal.compiler.v2_3.symbols._
@@ -102,6 +104,24 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> 3)))
   }
 
+  test("should aggregate groups that do not fit in the memory budget on disk") {
+    val source = new FakePipe((0 until 100).map(i => Map[String, Any]("name" -> s"name-${i % 40}", "age" -> i)),
+      "name" -> CTString, "age" -> CTInteger)
+    val spillDirectory = Files.createTempDirectory("spill").toFile
+    val rowSize = SpillConfiguration.estimatedSize(ExecutionContext.from("name" -> "name-10", "age" -> 10))
+    val state = QueryStateHelper.empty.copy(spill = Some(new SpillConfiguration(8 * rowSize, spillDirectory, new TaskCloser)))
+
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"),
+      Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Identifier("age"))))()
+
+    val result = aggregationPipe.createResults(state).map(_.m.toMap).toList
+
+    result should have size 40
+    result.toSet should equal((0 until 40).map(i => Map[String, Any]("name" -> s"name-$i",
+      "count(*)" -> (if (i < 20) 3 else 2), "sum(age)" -> (i until 100 by 40).sum)).toSet)
+    spillDirectory.list() shouldBe empty
+  }
+
   private def createSymbolTableFor(name: String): (String, CypherType) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
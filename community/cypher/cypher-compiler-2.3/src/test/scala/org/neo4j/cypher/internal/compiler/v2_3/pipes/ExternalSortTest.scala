@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import java.nio.file.Files
+
+import org.neo4j.cypher.internal.compiler.v2_3.{ExecutionContext, TaskCloser}
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+class ExternalSortTest extends CypherFunSuite {
+
+  private val spillDirectory = Files.createTempDirectory("spill").toFile
+
+  private val byX = (a: ExecutionContext, b: ExecutionContext) => a("x").asInstanceOf[Long] < b("x").asInstanceOf[Long]
+
+  private val rowSize = SpillConfiguration.estimatedSize(ExecutionContext.from("x" -> 0L))
+
+  private def budgetOf(rows: Int) = new SpillConfiguration(rows * rowSize, spillDirectory, new TaskCloser)
+
+  test("sorts input that does not fit in the memory budget") {
+    // given
+    val sort = new ExternalSort(budgetOf(3), byX, QueryStateHelper.empty)
+    val input = Seq(5L, 3L, 9L, 1L, 8L, 2L, 7L, 4L, 6L, 0L)
+
+    // when
+    val result = sort.sort(input.map(x => ExecutionContext.from("x" -> x)).iterator)
+
+    // then
+    result.map(_("x")).toList should equal(input.sorted)
+  }
+
+  test("keeps rows that compare equal in input order") {
+    // given
+    val sort = new ExternalSort(budgetOf(2), byX, QueryStateHelper.empty)
+    val input = Seq(1L -> "a", 0L -> "b", 1L -> "c", 0L -> "d", 1L -> "e")
+
+    // when
+    val result = sort.sort(input.map { case (x, y) => ExecutionContext.from("x" -> x, "y" -> y) }.iterator)
+
+    // then
+    result.map(_("y")).toList should equal(List("b", "d", "a", "c", "e"))
+  }
+
+  test("sorts in memory when rows can not be spilled") {
+    // given
+    val sort = new ExternalSort(budgetOf(1), byX, QueryStateHelper.empty)
+    val unspillable = new Object
+    val input = Seq(ExecutionContext.from("x" -> 2L, "y" -> unspillable), ExecutionContext.from("x" -> 1L, "y" -> unspillable))
+
+    // when
+    val result = sort.sort(input.iterator)
+
+    // then
+    result.map(_("x")).toList should equal(List(1L, 2L))
+  }
+
+  test("shares the memory budget with other operators of the query") {
+    // given
+    val queryDirectory = Files.createTempDirectory("spill").toFile
+    val configuration = new SpillConfiguration(64 * rowSize, queryDirectory, new TaskCloser)
+    (0 until 64).foreach(_ => configuration.reserve(ExecutionContext.from("x" -> 0L), 0))
+    val sort = new ExternalSort(configuration, byX, QueryStateHelper.empty)
+
+    // when
+    val result = sort.sort((0L until 3L).reverse.map(x => ExecutionContext.from("x" -> x)).iterator)
+
+    // then
+    queryDirectory.list() should have size 2
+    result.map(_("x")).toList should equal(List(0L, 1L, 2L))
+    queryDirectory.list() shouldBe empty
+  }
+
+  test("reserves rows by the size of their values") {
+    // given
+    val queryDirectory = Files.createTempDirectory("spill").toFile
+    val sort = new ExternalSort(new SpillConfiguration(64 * rowSize, queryDirectory, new TaskCloser), byX,
+      QueryStateHelper.empty)
+    val large = (0 until 1000).map(_.toString).toList
+
+    // when
+    val result = sort.sort((0L until 3L).reverse.map(x => ExecutionContext.from("x" -> x, "y" -> large)).iterator)
+
+    // then
+    queryDirectory.list() should have size 2
+    result.map(_("x")).toList should equal(List(0L, 1L, 2L))
+    queryDirectory.list() shouldBe empty
+  }
+
+  test("merges more runs than the fan-in over several passes") {
+    // given
+    val queryDirectory = Files.createTempDirectory("spill").toFile
+    val sort = new ExternalSort(new SpillConfiguration(rowSize, queryDirectory, new TaskCloser), byX,
+      QueryStateHelper.empty, fanIn = 3)
+    val input = (0L until 20L).map(x => (x * 7) % 20 -> x.toString)
+
+    // when
+    val result = sort.sort(input.map { case (x, y) => ExecutionContext.from("x" -> x, "y" -> y) }.iterator)
+
+    // then
+    queryDirectory.list().length should be <= 2
+    result.map(_("x")).toList should equal((0L until 20L).toList)
+    queryDirectory.list() shouldBe empty
+  }
+}
@@ -19,8 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
+import java.nio.file.Files
+
 import org.mockito.Matchers._
-import org.neo4j.cypher.internal.compiler.v2_3.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_3.{ExecutionContext, TaskCloser}
+import org.neo4j.cypher.internal.compiler.v2_3.spi.{Operations, QueryContext}
 import org.neo4j.cypher.internal.compiler.v2_3.symbols._
 import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.{CypherFunSuite, TestableIterator}
 import org.neo4j.graphdb.Node
@@ -107,6 +110,30 @@ class NodeHashJoinPipeTest extends CypherFunSuite {
     ))
   }
 
+  test("should work when the outer pipe produces multiple rows with the same join key") {
+    // given
+    val node1 = newMockedNode(1)
+    val node2 = newMockedNode(2)
+    val queryState = QueryStateHelper.empty
+
+    val left = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(
+      Iterator(row("b" -> node1, "a" -> 10), row("b" -> node2, "a" -> 20), row("b" -> node1, "a" -> 30)))
+
+    val right = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(right.createResults(queryState)).thenReturn(Iterator(row("b" -> node1, "c" -> 40), row("b" -> node2, "c" -> 50)))
+
+    // when
+    val result = NodeHashJoinPipe(Set("b"), left, right)().createResults(queryState)
+
+    // then
+    result.toList should equal(List(
+      Map("a" -> 10, "b" -> node1, "c" -> 40),
+      Map("a" -> 30, "b" -> node1, "c" -> 40),
+      Map("a" -> 20, "b" -> node2, "c" -> 50)
+    ))
+  }
+
   test("should work when the outer pipe produces rows with a null key") {
     // given
     val node1 = newMockedNode(1)
@@ -207,8 +234,68 @@ class NodeHashJoinPipeTest extends CypherFunSuite {
     lhsIterator.fetched should equal(0)
   }
 
+  test("should spill both sides to disk when the build side exceeds the memory budget") {
+    // given
+    val nodes = (0 until 40).map(newMockedNode)
+    val query = mock[QueryContext]
+    val nodeOps = mock[Operations[Node]]
+    when(query.nodeOps).thenReturn(nodeOps)
+    nodes.foreach(node => when(nodeOps.getById(node.getId)).thenReturn(node))
+    val cleaner = new TaskCloser
+    val spillDirectory = Files.createTempDirectory("spill").toFile
+    val queryState = QueryStateHelper.emptyWith(query = query).copy(spill = Some(new SpillConfiguration(5 * rowSize(nodes.head), spillDirectory, cleaner)))
+
+    val left = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(
+      nodes.iterator.map(node => row("b" -> node, "a" -> node.getId)) ++ Iterator(row("b" -> null, "a" -> -1L)))
+
+    val right = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(right.createResults(queryState)).thenReturn(
+      nodes.iterator.filter(_.getId % 3 == 0).map(node => row("b" -> node, "c" -> node.getId * 10)))
+
+    // when
+    val result = NodeHashJoinPipe(Set("b"), left, right)().createResults(queryState).toList
+
+    // then
+    result.toSet should equal(nodes.filter(_.getId % 3 == 0).map(node =>
+      Map("a" -> node.getId, "b" -> node, "c" -> node.getId * 10)).toSet)
+    result should have size 14
+    spillDirectory.list() shouldBe empty
+  }
+
+  test("should split build partitions that exceed the memory budget again") {
+    // given
+    val nodes = (0 until 200).map(newMockedNode)
+    val query = mock[QueryContext]
+    val nodeOps = mock[Operations[Node]]
+    when(query.nodeOps).thenReturn(nodeOps)
+    nodes.foreach(node => when(nodeOps.getById(node.getId)).thenReturn(node))
+    val cleaner = new TaskCloser
+    val spillDirectory = Files.createTempDirectory("spill").toFile
+    val queryState = QueryStateHelper.emptyWith(query = query).copy(spill = Some(new SpillConfiguration(2 * rowSize(nodes.head), spillDirectory, cleaner)))
+
+    // every node is on the build side twice, and node 7 so often that no split can make it fit
+    val left = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(
+      (nodes ++ nodes ++ Seq.fill(20)(nodes(7))).iterator.map(node => row("b" -> node)))
+
+    val right = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(right.createResults(queryState)).thenReturn(
+      nodes.iterator.filter(_.getId % 10 == 7).map(node => row("b" -> node, "c" -> node.getId)))
+
+    // when
+    val result = NodeHashJoinPipe(Set("b"), left, right)().createResults(queryState).toList
+
+    // then
+    result.map(_("c")).groupBy(identity).mapValues(_.size) should equal(
+      nodes.filter(_.getId % 10 == 7).map(node => (node.getId: Any) -> (if (node.getId == 7) 22 else 2)).toMap)
+    spillDirectory.list() shouldBe empty
+  }
+
   private def row(values: (String, Any)*) = ExecutionContext.from(values: _*)
 
+  private def rowSize(node: Node) = SpillConfiguration.estimatedSize(row("b" -> node))
+
   private def newMockedNode(id: Int) = {
     val node = mock[Node]
     when(node.getId).thenReturn(id)
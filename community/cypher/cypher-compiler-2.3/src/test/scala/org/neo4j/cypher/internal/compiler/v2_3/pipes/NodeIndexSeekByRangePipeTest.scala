@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.compiler.v2_3.ast.{LabelToken, PropertyKeyToken, _}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.{Expression, Literal}
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{Bound, InequalitySeekRange, PrefixSeekRange, SeekRange}
+import org.neo4j.cypher.internal.compiler.v2_3.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_3.{LabelId, PropertyKeyId}
+import org.neo4j.graphdb.Node
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+class NodeIndexSeekByRangePipeTest extends CypherFunSuite with AstConstructionTestSupport {
+
+  private implicit val monitor = mock[PipeMonitor]
+
+  private val label = LabelToken(LabelName("LabelName")_, LabelId(11))
+  private val propertyKey = PropertyKeyToken(PropertyKeyName("PropertyName")_, PropertyKeyId(10))
+  private val descriptor = new IndexDescriptor(label.nameId.id, propertyKey.nameId.id)
+  private val node = mock[Node]
+
+  test("should seek the index by prefix") {
+    // given
+    val query = mock[QueryContext]
+    when(query.indexSeekByPrefix(descriptor, "ab")).thenReturn(Iterator(node))
+
+    // when
+    val result = seek(query, PrefixSeekRange(Literal("ab")))
+
+    // then
+    result should equal(List(node))
+  }
+
+  test("should find nothing for a prefix that is null or not a string") {
+    // given
+    val query = mock[QueryContext]
+
+    // when
+    val nullPrefix = seek(query, PrefixSeekRange(Literal(null)))
+    val numberPrefix = seek(query, PrefixSeekRange(Literal(42)))
+
+    // then
+    nullPrefix shouldBe empty
+    numberPrefix shouldBe empty
+    verifyZeroInteractions(query)
+  }
+
+  test("should seek the index by a range of numbers") {
+    // given
+    val query = mock[QueryContext]
+    when(query.indexSeekByNumberRange(descriptor, 10, true, 20.5, false)).thenReturn(Iterator(node))
+
+    // when
+    val result = seek(query, InequalitySeekRange(Some(Bound(Literal(10), inclusive = true)),
+                                                 Some(Bound(Literal(20.5), inclusive = false))))
+
+    // then
+    result should equal(List(node))
+  }
+
+  test("should leave out the bound that is missing from a range of numbers") {
+    // given
+    val query = mock[QueryContext]
+    when(query.indexSeekByNumberRange(descriptor, null, false, 20, true)).thenReturn(Iterator(node))
+
+    // when
+    val result = seek(query, InequalitySeekRange(None, Some(Bound(Literal(20), inclusive = true))))
+
+    // then
+    result should equal(List(node))
+  }
+
+  test("should find nothing for a range with a null bound") {
+    // given
+    val query = mock[QueryContext]
+
+    // when
+    val result = seek(query, InequalitySeekRange(Some(Bound(Literal(null), inclusive = true)),
+                                                 Some(Bound(Literal(20), inclusive = false))))
+
+    // then
+    result shouldBe empty
+    verifyZeroInteractions(query)
+  }
+
+  test("should filter a scan of the index by a range that isn't of numbers") {
+    // given
+    val (a, b, c) = (nodeWithId(1), nodeWithId(2), nodeWithId(3))
+    val nodeOps = mock[Operations[Node]]
+    doReturn("a").when(nodeOps).getProperty(1, propertyKey.nameId.id)
+    doReturn("b").when(nodeOps).getProperty(2, propertyKey.nameId.id)
+    doReturn("c").when(nodeOps).getProperty(3, propertyKey.nameId.id)
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(query.indexScan(descriptor)).thenReturn(Iterator(a, b, c))
+
+    // when
+    val result = seek(query, InequalitySeekRange(Some(Bound(Literal("a"), inclusive = false)),
+                                                 Some(Bound(Literal("c"), inclusive = true))))
+
+    // then
+    result should equal(List(b, c))
+  }
+
+  private def seek(query: QueryContext, range: SeekRange[Expression]): List[Node] = {
+    val pipe = NodeIndexSeekByRangePipe("n", label, propertyKey, range)()
+    pipe.createResults(QueryStateHelper.emptyWith(query = query)).map(_("n")).toList
+  }
+
+  private def nodeWithId(id: Long): Node = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.compiler.v2_3.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_3.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.{Node, Relationship}
+
+class RowSpillFormatTest extends CypherFunSuite {
+
+  test("rows survive a round trip") {
+    // given
+    val node = mock[Node]
+    when(node.getId).thenReturn(7L)
+    val relationship = mock[Relationship]
+    when(relationship.getId).thenReturn(11L)
+    val state = stateWith(node, relationship)
+
+    val first = ExecutionContext.from(
+      "null" -> null, "bool" -> true, "int" -> 42, "long" -> 42L, "double" -> 3.14, "string" -> "aåb",
+      "node" -> node, "rel" -> relationship, "list" -> List(1L, "two", null), "map" -> Map("a" -> 1L, "b" -> List(2L)))
+    val second = ExecutionContext.from("string" -> "again", "node" -> node)
+    val array = Array(1L, 2L, 3L)
+    val third = ExecutionContext.from("array" -> array)
+
+    // when
+    val bytes = new ByteArrayOutputStream()
+    val writer = new RowSpillWriter(new DataOutputStream(bytes))
+    Seq(first, second, third).foreach(writer.write)
+    val reader = new RowSpillReader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray)), state)
+
+    // then
+    reader.read() should equal(first)
+    reader.read() should equal(second)
+    reader.read()("array").asInstanceOf[Array[Long]].toList should equal(array.toList)
+  }
+
+  test("values without a binary format can not be spilled") {
+    val writer = new RowSpillWriter(new DataOutputStream(new ByteArrayOutputStream()))
+
+    an [UnspillableValueException] should be thrownBy writer.write(ExecutionContext.from("x" -> new Object))
+  }
+
+  test("rows are spillable only when all their values have a binary format") {
+    RowSpillFormat.canSpill(ExecutionContext.from("x" -> 1L, "y" -> List("a", Map("b" -> Array(1, 2))))) should equal(true)
+    RowSpillFormat.canSpill(ExecutionContext.from("x" -> 1L, "y" -> List(new Object))) should equal(false)
+    RowSpillFormat.canSpill(ExecutionContext.from("x" -> Array(new Object))) should equal(false)
+  }
+
+  private def stateWith(node: Node, relationship: Relationship) = {
+    val query = mock[QueryContext]
+    val nodeOps = mock[Operations[Node]]
+    val relationshipOps = mock[Operations[Relationship]]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(query.relationshipOps).thenReturn(relationshipOps)
+    when(nodeOps.getById(node.getId)).thenReturn(node)
+    when(relationshipOps.getById(relationship.getId)).thenReturn(relationship)
+    QueryStateHelper.emptyWith(query = query)
+  }
+}
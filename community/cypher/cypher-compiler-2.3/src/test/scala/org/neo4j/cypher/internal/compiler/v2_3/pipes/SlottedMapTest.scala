@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.pipes
+
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.compiler.v2_3.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_3.commands.expressions.Identifier
+import org.neo4j.cypher.internal.compiler.v2_3.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.compiler.v2_3.symbols._
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class SlottedMapTest extends CypherFunSuite {
+
+  val slots = SlotConfiguration("a" -> CTAny, "b" -> CTAny, "c" -> CTAny)
+
+  test("stores slotted identifiers and nulls") {
+    val map = slots.newRow(null)
+    map("a") = 1
+    map("b") = null
+
+    map.get("a") should equal(Some(1))
+    map.get("b") should equal(Some(null))
+    map.get("c") should equal(None)
+    map.contains("b") should equal(true)
+    map.contains("c") should equal(false)
+    map.size should equal(2)
+  }
+
+  test("keeps identifiers unknown at plan time in the overflow") {
+    val map = slots.newRow(null)
+    map("a") = 1
+    map("x") = 2
+
+    map("x") should equal(2)
+    map.toMap should equal(Map("a" -> 1, "x" -> 2))
+
+    map -= "x"
+    map -= "a"
+
+    map shouldBe empty
+  }
+
+  test("clones do not share values with the original") {
+    val original = slots.newRow(null)
+    original("a") = 1
+
+    val clone = original.clone()
+    clone("a") = 2
+    clone("b") = 3
+
+    original.toMap should equal(Map("a" -> 1))
+    clone.toMap should equal(Map("a" -> 2, "b" -> 3))
+  }
+
+  test("merging rows only overwrites the slots set on the right hand side") {
+    val lhs = ExecutionContext(slots.newRow(null)).newWith2("a", 1, "b", 2)
+    val rhs = ExecutionContext(slots.newRow(null)).newWith2("b", 3, "y", 4)
+
+    (lhs ++ rhs).toMap should equal(Map("a" -> 1, "b" -> 3, "y" -> 4))
+    lhs.toMap should equal(Map("a" -> 1, "b" -> 2))
+  }
+
+  test("throws on missing identifiers like any other map") {
+    val map = slots.newRow(null)
+
+    intercept[NoSuchElementException](map("a"))
+    intercept[NoSuchElementException](map("x"))
+  }
+
+  test("keeps nodes as their ids in long slots") {
+    val configuration = SlotConfiguration("n" -> CTNode, "x" -> CTAny)
+    val slot = configuration.slotFor("n").asInstanceOf[LongSlot]
+    val node = newMockedNode(12)
+
+    val row = ExecutionContext(configuration.newRow(null)).newWithEntity(slot, node)
+
+    row.longAt(slot) should equal(12L)
+    row("n") should equal(node)
+    row.toMap should equal(Map("n" -> node))
+  }
+
+  test("keeps null and values that are not entities in long slots") {
+    val configuration = SlotConfiguration("n" -> CTNode)
+    val slot = configuration.slotFor("n").asInstanceOf[LongSlot]
+    val map = configuration.newRow(null)
+
+    map("n") = null
+    map.getLongAt(slot.offset) should equal(SlottedMap.NULL_ID)
+    map.get("n") should equal(Some(null))
+
+    map("n") = "not a node"
+    map.getLongAt(slot.offset) should equal(SlottedMap.ABSENT)
+    map.get("n") should equal(Some("not a node"))
+
+    map -= "n"
+    map.getLongAt(slot.offset) should equal(SlottedMap.ABSENT)
+    map.contains("n") should equal(false)
+  }
+
+  test("looks up the entity of a long slot that only holds an id when it is read by name") {
+    val configuration = SlotConfiguration("n" -> CTNode)
+    val slot = configuration.slotFor("n").asInstanceOf[LongSlot]
+    val node = newMockedNode(12)
+    val query = mock[QueryContext]
+    val nodeOps = mock[Operations[Node]]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(nodeOps.getById(12)).thenReturn(node)
+    val map = configuration.newRow(query)
+
+    map.setLongAt(slot.offset, 12)
+
+    map("n") should equal(node)
+    map("n") should equal(node)
+    verify(nodeOps, times(1)).getById(12)
+  }
+
+  test("rows of another configuration are extended by name") {
+    val configuration = SlotConfiguration("n" -> CTNode)
+    val slot = configuration.slotFor("n").asInstanceOf[LongSlot]
+    val node = newMockedNode(12)
+
+    val row = ExecutionContext(slots.newRow(null)).newWithEntity(slot, node)
+
+    row.longAt(slot) should equal(SlottedMap.ABSENT)
+    row.toMap should equal(Map("n" -> node))
+  }
+
+  test("allocates nodes to long slots and everything else to reference slots") {
+    implicit val monitor = mock[PipeMonitor]
+    val pipe = CartesianProductPipe(AllNodesScanPipe("a")(), AllNodesScanPipe("b")())()
+
+    val configuration = SlotAllocation.allocate(pipe).configurationOf(pipe)
+
+    configuration.numberOfLongs should equal(2)
+    configuration.numberOfReferences should equal(0)
+    configuration.slotFor("a") should equal(LongSlot("a", 0, CTNode)(configuration))
+    configuration.slotFor("b") should equal(LongSlot("b", 1, CTNode)(configuration))
+    configuration.slotFor("c") should equal(null)
+  }
+
+  test("sizes rows per pipeline") {
+    implicit val monitor = mock[PipeMonitor]
+    val scan = AllNodesScanPipe("a")()
+    val expand = ExpandAllPipe(scan, "a", "r", "b", org.neo4j.graphdb.Direction.OUTGOING, LazyTypes.empty)()
+    val distinct = DistinctPipe(expand, Map("c" -> Identifier("b")))()
+
+    val allocation = SlotAllocation.allocate(distinct)
+
+    val below = allocation.configurationOf(scan)
+    allocation.configurationOf(expand) should be theSameInstanceAs below
+    below.numberOfLongs should equal(3)
+
+    val above = allocation.configurationOf(distinct)
+    above should not be theSameInstanceAs(below)
+    above.numberOfLongs should equal(1)
+    above.slotFor("c") should equal(LongSlot("c", 0, CTNode)(above))
+    above.slotFor("a") should equal(null)
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
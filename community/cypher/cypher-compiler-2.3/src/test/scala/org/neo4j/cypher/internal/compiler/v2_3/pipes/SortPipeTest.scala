@@ -19,7 +19,10 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_3.pipes
 
+import java.nio.file.Files
+
 import org.junit.Assert._
+import org.neo4j.cypher.internal.compiler.v2_3.{ExecutionContext, TaskCloser}
 import org.neo4j.cypher.internal.compiler.v2_3.symbols._
 import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
 import org.scalatest.mock.MockitoSugar
@@ -91,4 +94,22 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       MutableMap("y" -> 2),
       MutableMap("y" -> null)), sortPipe.createResults(QueryStateHelper.empty).toList)
   }
+
+  test("spilled runs left behind by an abandoned result are deleted when the query is closed") {
+    val spillDirectory = Files.createTempDirectory("spill").toFile
+    val cleaner = new TaskCloser
+    val rowSize = SpillConfiguration.estimatedSize(ExecutionContext.from("y" -> 10))
+    val state = QueryStateHelper.empty.copy(spill = Some(new SpillConfiguration(2 * rowSize, spillDirectory, cleaner)))
+    val source = new FakePipe((1 to 10).reverse.map(y => Map[String, Any]("y" -> y)), "y" -> CTNumber)
+    val sortPipe = new SortPipe(source, List(Ascending("y")))()
+
+    val result = sortPipe.createResults(state)
+    assertEquals(MutableMap("y" -> 1), result.next())
+    assertEquals(MutableMap("y" -> 2), result.next())
+    assertTrue(spillDirectory.list().nonEmpty)
+
+    cleaner.close(success = true)
+
+    assertEquals(List(), spillDirectory.list().toList)
+  }
 }
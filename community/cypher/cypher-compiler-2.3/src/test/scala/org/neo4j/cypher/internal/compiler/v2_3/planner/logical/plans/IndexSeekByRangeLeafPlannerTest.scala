@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_3.planner.logical.plans
+
+import org.neo4j.cypher.internal.compiler.v2_3.ast._
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{Bound, InequalitySeekRange, PrefixSeekRange}
+import org.neo4j.cypher.internal.compiler.v2_3.planner.BeLikeMatcher._
+import org.neo4j.cypher.internal.compiler.v2_3.planner._
+import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.steps.indexSeekByRangeLeafPlanner
+import org.neo4j.cypher.internal.compiler.v2_3.test_helpers.CypherFunSuite
+
+class IndexSeekByRangeLeafPlannerTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
+
+  val idName = IdName("n")
+  val hasLabels: Expression = HasLabels(ident("n"), Seq(LabelName("Awesome") _)) _
+  val property: Expression = Property(ident("n"), PropertyKeyName("prop") _)_
+  val lit10: Expression = SignedDecimalIntegerLiteral("10") _
+  val lit20: Expression = SignedDecimalIntegerLiteral("20") _
+  val greaterThan: Expression = GreaterThan(property, lit10) _
+  val lessThanOrEqual: Expression = LessThanOrEqual(property, lit20) _
+  val startsWith: Expression = StartsWith(property, StringLiteral("prefix") _) _
+
+  test("does not plan range seek when no index exist") {
+    new given {
+      qg = queryGraph(greaterThan, hasLabels)
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = indexSeekByRangeLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans shouldBe empty
+    }
+  }
+
+  test("plans a single range seek for inequalities on both ends of the range") {
+    new given {
+      qg = queryGraph(greaterThan, lessThanOrEqual, hasLabels)
+
+      indexOn("Awesome", "prop")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = indexSeekByRangeLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans should beLike {
+        case Seq(NodeIndexSeekByRange(`idName`, _, _, InequalitySeekRange(Some(Bound(`lit10`, false)), Some(Bound(`lit20`, true))), _)) => ()
+      }
+      resultPlans.map(_.solved.graph.selections.flatPredicates.toSet) should equal(Seq(Set(greaterThan, lessThanOrEqual, hasLabels)))
+    }
+  }
+
+  test("plans range seek with the property on the right hand side of the inequality") {
+    new given {
+      qg = queryGraph(LessThan(lit10, property) _, hasLabels)
+
+      uniqueIndexOn("Awesome", "prop")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = indexSeekByRangeLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans should beLike {
+        case Seq(NodeIndexSeekByRange(`idName`, _, _, InequalitySeekRange(Some(Bound(`lit10`, false)), None), _)) => ()
+      }
+    }
+  }
+
+  test("plans prefix seek for starts with") {
+    new given {
+      qg = queryGraph(startsWith, hasLabels)
+
+      indexOn("Awesome", "prop")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = indexSeekByRangeLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans should beLike {
+        case Seq(NodeIndexSeekByRange(`idName`, _, _, PrefixSeekRange(StringLiteral("prefix")), _)) => ()
+      }
+    }
+  }
+
+  test("does not plan range seek when the bound depends on the node itself") {
+    new given {
+      qg = queryGraph(GreaterThan(property, Property(ident("n"), PropertyKeyName("other") _) _) _, hasLabels)
+
+      indexOn("Awesome", "prop")
+    }.withLogicalPlanningContext { (cfg, ctx) =>
+      // when
+      val resultPlans = indexSeekByRangeLeafPlanner(cfg.qg)(ctx)
+
+      // then
+      resultPlans shouldBe empty
+    }
+  }
+
+  private def queryGraph(predicates: Expression*) =
+    QueryGraph(
+      selections = Selections(predicates.map(Predicate(Set(idName), _)).toSet),
+      patternNodes = Set(idName)
+    )
+}
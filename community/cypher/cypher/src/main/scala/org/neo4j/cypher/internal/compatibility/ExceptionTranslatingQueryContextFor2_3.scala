@@ -91,6 +91,13 @@ class ExceptionTranslatingQueryContextFor2_3(inner: QueryContext) extends Delega
   override def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] =
     translateException(super.exactIndexSearch(index, value))
 
+  override def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean,
+                                      upper: Number, includeUpper: Boolean): Iterator[Node] =
+    translateException(super.indexSeekByNumberRange(index, lower, includeLower, upper, includeUpper))
+
+  override def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] =
+    translateException(super.indexSeekByPrefix(index, prefix))
+
   override def getNodesByLabel(id: Int): Iterator[Node] =
     translateException(super.getNodesByLabel(id))
 
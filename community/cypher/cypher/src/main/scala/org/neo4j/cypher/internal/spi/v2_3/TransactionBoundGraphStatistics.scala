@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.spi.v2_3
 
+import org.neo4j.cypher.internal.compiler.v2_3.commands.{InequalitySeekRange, PrefixSeekRange, SeekRange}
 import org.neo4j.cypher.internal.compiler.v2_3.planner.logical.{Cardinality, Selectivity}
 import org.neo4j.cypher.internal.compiler.v2_3.spi.{GraphStatistics, StatisticsCompletingGraphStatistics}
 import org.neo4j.cypher.internal.compiler.v2_3.{LabelId, PropertyKeyId, RelTypeId}
@@ -64,6 +65,32 @@ object TransactionBoundGraphStatistics {
         case e: IndexNotFoundKernelException => None
       }
 
+    override def indexRangeSelectivity(label: LabelId, property: PropertyKeyId, range: SeekRange[Any]): Option[Selectivity] =
+      try {
+        val indexDescriptor = new IndexDescriptor( label, property )
+        val histogram = statement.readOperations().indexHistogram( indexDescriptor )
+        if (histogram.sampleSize() == 0)
+          None
+        else {
+          // Fraction of the index entries that lie in the range, strings with a prefix lie between it and its successor
+          val entrySelectivity = range match {
+            case InequalitySeekRange(lower, upper) =>
+              histogram.rangeSelectivity(lower.map(_.endPoint.asInstanceOf[AnyRef]).orNull, lower.exists(_.inclusive),
+                                         upper.map(_.endPoint.asInstanceOf[AnyRef]).orNull, upper.exists(_.inclusive))
+            case PrefixSeekRange(prefix) =>
+              val prefixString = String.valueOf(prefix)
+              histogram.rangeSelectivity(prefixString, true, prefixString + Character.MAX_VALUE, false)
+          }
+          val labeledNodes = statement.readOperations().countsForNode( label ).toDouble
+          val indexSize = statement.readOperations().indexSize( indexDescriptor )
+
+          Selectivity.of(entrySelectivity * indexSize / labeledNodes)
+        }
+      }
+      catch {
+        case e: IndexNotFoundKernelException => None
+      }
+
     def nodesWithLabelCardinality(labelId: Option[LabelId]): Cardinality =
       statement.readOperations().countsForNode(labelId)
 
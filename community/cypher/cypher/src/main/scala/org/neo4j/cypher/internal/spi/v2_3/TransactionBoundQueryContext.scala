@@ -134,6 +134,14 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
   def indexScan(index: IndexDescriptor) =
     mapToScala(statement.readOperations().nodesGetFromIndexScan(index))(nodeOps.getById)
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean,
+                             upper: Number, includeUpper: Boolean) =
+    mapToScala(statement.readOperations()
+      .nodesGetFromIndexRangeSeekByNumber(index, lower, includeLower, upper, includeUpper))(nodeOps.getById)
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByPrefix(index, prefix))(nodeOps.getById)
+
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node] = {
     val nodeId: Long = statement.readOperations().nodeGetUniqueFromIndexLookup(index, value)
     if (StatementConstants.NO_SUCH_NODE == nodeId) None else Some(nodeOps.getById(nodeId))
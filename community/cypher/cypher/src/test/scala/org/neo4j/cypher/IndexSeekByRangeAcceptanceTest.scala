@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+import org.neo4j.graphdb.Node
+
+class IndexSeekByRangeAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+  test("should use index for a prefix seek") {
+    // Given
+    val (london, lund) = setUpDatabaseForTests()
+
+    // When
+    val result = executeWithAllPlanners("MATCH (n:City) WHERE n.name STARTS WITH 'L' RETURN n")
+
+    // Then
+    result.columnAs[Node]("n").toSet should equal(Set(london, lund))
+    result.executionPlanDescription().toString should include("NodeIndexSeekByRange")
+  }
+
+  test("should find nothing for a prefix seek with a null or non-string prefix") {
+    // Given
+    setUpDatabaseForTests()
+
+    // When
+    val nullPrefix = executeWithAllPlanners("MATCH (n:City) WHERE n.name STARTS WITH {prefix} RETURN n", "prefix" -> null)
+    val numberPrefix = executeWithAllPlanners("MATCH (n:City) WHERE n.name STARTS WITH {prefix} RETURN n", "prefix" -> 42)
+
+    // Then
+    nullPrefix shouldBe empty
+    numberPrefix shouldBe empty
+    numberPrefix.executionPlanDescription().toString should include("NodeIndexSeekByRange")
+  }
+
+  test("should use index for a numeric range seek") {
+    // Given
+    val (london, _) = setUpDatabaseForTests()
+
+    // When
+    val result = executeWithAllPlanners("MATCH (n:City) WHERE n.population > 5000000 RETURN n")
+
+    // Then
+    result.columnAs[Node]("n").toList should equal(List(london))
+    result.executionPlanDescription().toString should include("NodeIndexSeekByRange")
+  }
+
+  test("should use index for a numeric range seek with both bounds") {
+    // Given
+    val (_, lund) = setUpDatabaseForTests()
+
+    // When
+    val result = executeWithAllPlanners("MATCH (n:City) WHERE n.population >= 100000 AND n.population < 200000 RETURN n")
+
+    // Then
+    result.columnAs[Node]("n").toList should equal(List(lund))
+    result.executionPlanDescription().toString should include("NodeIndexSeekByRange")
+  }
+
+  test("should use index for a string range seek") {
+    // Given
+    val (london, lund) = setUpDatabaseForTests()
+
+    // When
+    val result = executeWithAllPlanners("MATCH (n:City) WHERE n.name > 'K' AND n.name <= 'Lund' RETURN n")
+
+    // Then
+    result.columnAs[Node]("n").toSet should equal(Set(london, lund))
+    result.executionPlanDescription().toString should include("NodeIndexSeekByRange")
+  }
+
+  private def setUpDatabaseForTests(): (Node, Node) = {
+    graph.createIndex("City", "name")
+    graph.createIndex("City", "population")
+    val london = createLabeledNode(Map("name" -> "London", "population" -> 8600000), "City")
+    val lund = createLabeledNode(Map("name" -> "Lund", "population" -> 118000), "City")
+    createLabeledNode(Map("name" -> "Malmo", "population" -> 320000), "City")
+    createLabeledNode(Map("name" -> "Berlin", "population" -> 3500000), "City")
+    for (i <- 1 to 50) createLabeledNode(Map("name" -> s"Town $i", "population" -> i), "City")
+    (london, lund)
+  }
+}
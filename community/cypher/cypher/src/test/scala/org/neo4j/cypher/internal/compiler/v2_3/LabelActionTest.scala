@@ -125,6 +125,10 @@ class SnitchingQueryContext extends QueryContext {
 
   def indexScan(index: IndexDescriptor): Iterator[Node] = ???
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean): Iterator[Node] = ???
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] = ???
+
   def getNodesByLabel(id: Int): Iterator[Node] = ???
 
   def upgrade(context: QueryContext): LockingQueryContext = ???
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.performance
+
+import java.io.File
+
+import org.neo4j.cypher.ExecutionEngine
+import org.neo4j.graphdb.factory.{GraphDatabaseFactory, GraphDatabaseSettings}
+import org.neo4j.graphdb.{DynamicLabel, DynamicRelationshipType, GraphDatabaseService}
+import org.neo4j.io.fs.FileUtils
+
+import scala.util.Random
+
+/*
+ * Compares the compiled runtime with the interpreted pipes, one operator at a time. Each query is run with both
+ * runtimes on the same store and the mean time per execution is printed next to the speedup.
+ *
+ * Hint errors are turned on, so a query the compiled runtime can not handle fails instead of quietly measuring the
+ * interpreted runtime twice. Use -Doperators=SELECTION,LIMIT to pick operators, and -Dnodes, -Dwarmup and
+ * -Diterations to change the store size and how often each query runs.
+ */
+object CompiledRuntimeMicroBenchmark {
+
+  case class Operator(name: String, query: String)
+
+  val operators = Seq(
+    Operator("ALL_NODES_SCAN", "MATCH (n) RETURN n"),
+    Operator("LABEL_SCAN", "MATCH (n:Person) RETURN n"),
+    Operator("EXPAND", "MATCH (a:Person)-[r:KNOWS]->(b) RETURN a, r, b"),
+    Operator("SELECTION", "MATCH (n:Person) WHERE n.age > 40 AND n.age <= 60 RETURN n"),
+    Operator("INDEX_SEEK", "MATCH (n:Person) WHERE n.id = 4242 RETURN n"),
+    Operator("SKIP", "MATCH (n:Person) RETURN n SKIP 50000"),
+    Operator("LIMIT", "MATCH (a:Person)-[:KNOWS]->(b) RETURN a, b LIMIT 1000"),
+    Operator("AGGREGATION", "MATCH (n:Person) RETURN n.age, count(*), sum(n.id), min(n.id), max(n.id), collect(n.id)"),
+    Operator("SORT", "MATCH (n:Person) RETURN n, n.age AS age ORDER BY age")
+  )
+
+  def main(args: Array[String]) {
+    val names = Option(System.getProperty("operators")).map(_.split(",").toSet)
+    val nodes = Integer.getInteger("nodes", 100000)
+    val warmup = Integer.getInteger("warmup", 10)
+    val iterations = Integer.getInteger("iterations", 20)
+
+    val storeDir = new File("target/compiled-runtime-benchmark")
+    FileUtils.deleteRecursively(storeDir)
+    val db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder(storeDir.getAbsolutePath)
+      .setConfig(GraphDatabaseSettings.cypher_hints_error, "true")
+      .newGraphDatabase()
+    try {
+      populate(db, nodes)
+      val engine = new ExecutionEngine(db)
+
+      for (operator <- operators if names.forall(_.contains(operator.name))) {
+        val interpreted = meanMillis(engine, s"CYPHER runtime=interpreted ${operator.query}", warmup, iterations)
+        val compiled = meanMillis(engine, s"CYPHER runtime=compiled ${operator.query}", warmup, iterations)
+        println(f"${operator.name}%-16s interpreted $interpreted%10.3f ms   compiled $compiled%10.3f ms   " +
+          f"speedup ${interpreted / compiled}%6.2fx")
+      }
+    } finally {
+      db.shutdown()
+    }
+  }
+
+  private def meanMillis(engine: ExecutionEngine, query: String, warmup: Int, iterations: Int): Double = {
+    (0 until warmup).foreach(_ => engine.execute(query).length)
+
+    val start = System.nanoTime()
+    (0 until iterations).foreach(_ => engine.execute(query).length)
+    (System.nanoTime() - start) / 1000000.0 / iterations
+  }
+
+  private def populate(db: GraphDatabaseService, nodes: Int) {
+    val person = DynamicLabel.label("Person")
+    val knows = DynamicRelationshipType.withName("KNOWS")
+    val random = new Random(42)
+    val batch = 10000
+
+    for (first <- 0 until nodes by batch) {
+      val tx = db.beginTx()
+      try {
+        for (id <- first until Math.min(first + batch, nodes)) {
+          val node = db.createNode(person)
+          node.setProperty("id", id)
+          node.setProperty("age", random.nextInt(100))
+        }
+        tx.success()
+      } finally {
+        tx.close()
+      }
+    }
+
+    for (first <- 0 until nodes by batch) {
+      val tx = db.beginTx()
+      try {
+        for (id <- first until Math.min(first + batch, nodes); _ <- 0 until 5) {
+          db.getNodeById(id).createRelationshipTo(db.getNodeById(random.nextInt(nodes)), knows)
+        }
+        tx.success()
+      } finally {
+        tx.close()
+      }
+    }
+
+    val tx = db.beginTx()
+    try {
+      db.schema().indexFor(person).on("id").create()
+      tx.success()
+    } finally {
+      tx.close()
+    }
+
+    val awaitTx = db.beginTx()
+    try {
+      db.schema().awaitIndexesOnline(10, java.util.concurrent.TimeUnit.MINUTES)
+      awaitTx.success()
+    } finally {
+      awaitTx.close()
+    }
+  }
+}
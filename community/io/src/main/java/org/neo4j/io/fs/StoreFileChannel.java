@@ -21,6 +21,7 @@ package org.neo4j.io.fs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
@@ -38,6 +39,14 @@ public class StoreFileChannel implements StoreChannel
         this.channel = channel.channel;
     }
 
+    /**
+     * @see java.nio.channels.FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)
+     */
+    public MappedByteBuffer map( FileChannel.MapMode mode, long position, long size ) throws IOException
+    {
+        return channel.map( mode, position, size );
+    }
+
     @Override
     public long write( ByteBuffer[] srcs ) throws IOException
     {
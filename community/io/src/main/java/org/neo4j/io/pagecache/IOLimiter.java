@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+/**
+ * Can be handed to {@link PageCache#flushAndForce(IOLimiter)} to control the rate at which dirty pages are
+ * written out, so that a long running flush, like a background check point, doesn't starve other IO.
+ *
+ * The flushing thread calls {@link #maybeLimitIO(long, int)} after every batch of written pages, and the
+ * limiter may then decide to block that thread for a while.
+ */
+public interface IOLimiter
+{
+    /**
+     * The stamp to pass in to the first call to {@link #maybeLimitIO(long, int)} of a flush.
+     */
+    long INITIAL_STAMP = 0;
+
+    /**
+     * @param previousStamp the stamp returned from the previous call to this method, or {@link #INITIAL_STAMP}
+     * if this is the first call for this flush.
+     * @param recentlyCompletedIOs number of pages written since the previous call to this method.
+     * @return the stamp to pass in to the next call to this method.
+     */
+    long maybeLimitIO( long previousStamp, int recentlyCompletedIOs );
+
+    /**
+     * Never blocks, i.e. lets flushes run as fast as they can.
+     */
+    IOLimiter unlimited = new IOLimiter()
+    {
+        @Override
+        public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs )
+        {
+            return INITIAL_STAMP;
+        }
+    };
+}
@@ -21,6 +21,7 @@ package org.neo4j.io.pagecache;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A page caching mechanism that allows caching multiple files and accessing their data
@@ -41,9 +42,22 @@ public interface PageCache extends AutoCloseable
      */
     PagedFile map( File file, int pageSize ) throws IOException;
 
+    /**
+     * List a snapshot of the files that are currently mapped by this page cache.
+     *
+     * Note that the returned paged files may be unmapped at any time, so callers that want to do IO on them should
+     * map the files themselves, to make sure they stay mapped for the duration of that IO.
+     */
+    List<PagedFile> listExistingMappings() throws IOException;
+
     /** Flush all dirty pages */
     void flushAndForce() throws IOException;
 
+    /**
+     * Flush all dirty pages, at a rate decided by the given {@link IOLimiter}.
+     */
+    void flushAndForce( IOLimiter limiter ) throws IOException;
+
     /** Flush all dirty pages and close the page cache. */
     void close() throws IOException;
 
@@ -299,6 +299,14 @@ public interface PageCursor extends AutoCloseable
      */
     boolean next( long pageId ) throws IOException;
 
+    /**
+     * Returns true if the cursor is pinned to the page it is currently positioned at, such that the page can be
+     * accessed. This is always the case after next() has returned true, unless the cursor was requested with
+     * {@link PagedFile#PF_NO_FAULT} and the page was not in memory. In that case, the cursor is positioned at the
+     * page, as reported by {@link #getCurrentPageId()}, but it must not be read from or written to.
+     */
+    boolean isPinned();
+
     /**
      * Relinquishes all resources associated with this cursor, including the
      * cursor itself. The cursor cannot be used after this call.
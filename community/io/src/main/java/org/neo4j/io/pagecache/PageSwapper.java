@@ -45,6 +45,21 @@ public interface PageSwapper
      */
     int read( long filePageId, Page page ) throws IOException;
 
+    /**
+     * Read a range of consecutive file pages, starting from the given startFilePageId, from the concrete file on
+     * the file system into the given pages. The page at the given arrayOffset receives the start file page, and so
+     * on, for the given number of pages. Implementations should use vectored IO where possible.
+     *
+     * Returns the total number of bytes read in from the file. Pages that lie, wholly or partially, beyond the end
+     * of the file will have their remaining contents filled with zeros.
+     *
+     * Note: It is possible for the channel to be asynchronously closed while
+     * this operation is taking place. For instance, if the current thread is
+     * interrupted. If this happens, then the implementation must reopen the
+     * channel and the operation must be retried.
+     */
+    long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException;
+
     /**
      * Write the contents of the given page, to the concrete file on the file
      * system, at the located indicated by the given filePageId.
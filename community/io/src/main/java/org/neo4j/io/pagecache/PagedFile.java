@@ -19,6 +19,7 @@
  */
 package org.neo4j.io.pagecache;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -53,15 +54,25 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     *
+     * When a cursor with this flag is observed to move sequentially forward through the file, the page cache will
+     * asynchronously fault in a window of pages ahead of it. The window grows as long as the access pattern stays
+     * sequential, and collapses when the cursor jumps around. Pages that are faulted in or pinned by such a cursor
+     * are considered low priority by the page replacement policy.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
-     * Do not load in the page if it is not loaded already. Only useful with
-     * exclusive locking when you want to overwrite the whole page anyway.
+     * Do not load in the page if it is not loaded already.
+     *
+     * The cursor will only pin pages that are already in memory, and it will never do any IO, nor cause any
+     * evictions, nor wait for other threads to fault pages in. If a page is not in memory, then next() still
+     * moves the cursor to it, but {@link PageCursor#isPinned()} returns false, and the page must not be accessed.
+     * This is useful for speculatively probing the cache, and dealing with the misses separately.
      */
-    int PF_NO_FAULT = 1 << 4; // TBD
+    int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Do not update page access statistics. Pages faulted in by such a cursor are considered low priority by the
+     * page replacement policy.
      */
     int PF_TRANSIENT = 1 << 5;
 
@@ -138,6 +149,11 @@ public interface PagedFile extends AutoCloseable
      */
     int pageSize();
 
+    /**
+     * Get the file that is mapped by this paged file.
+     */
+    File file();
+
     /**
      * Flush all dirty pages into the file channel, and force the file channel to disk.
      *
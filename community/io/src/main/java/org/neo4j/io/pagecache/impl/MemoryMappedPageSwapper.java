@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.pagecache.Page;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static java.lang.String.format;
+
+/**
+ * A PageSwapper implementation that reads pages from a read-only memory mapping of the file, and writes pages
+ * through a file channel.
+ *
+ * Page faults thus become plain memory copies from the mapping, without a system call per page, which pays off
+ * for read-mostly workloads where the store files fit in the memory of the operating system. Writes go through
+ * the channel, and rely on the operating system having a unified buffer cache, which makes them visible in the
+ * mapping.
+ *
+ * The file is mapped in segments, because a single mapping cannot be larger than 2 GiB. The segments are mapped
+ * lazily, and only up to the end of the file, so a mapping never grows the file. Segments that cover the end of the
+ * file are remapped when the file grows.
+ *
+ * The mappings are explicitly unmapped when the swapper is closed or truncated. Page faults copy from the mappings
+ * while holding the read lock of the mappingLock, and closing and truncating take the write lock, so no page fault
+ * can touch a mapping that is being unmapped. Segments that are replaced when the file grows are unmapped at the
+ * same time, because a racing page fault may still be copying from them.
+ */
+public class MemoryMappedPageSwapper implements PageSwapper
+{
+    // Exponent of 2 of the maximum size, in bytes, of each mapped segment of the file
+    private static final int segmentSizePower = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.MemoryMappedPageSwapper.segmentSizePower", 30 );
+
+    private static final long fileSizeOffset =
+            UnsafeUtil.getFieldOffset( MemoryMappedPageSwapper.class, "fileSize" );
+
+    private static final ThreadLocal<ByteBuffer> proxyCache = new ThreadLocal<>();
+
+    private static ByteBuffer proxy( long buffer, int bufferLength ) throws IOException
+    {
+        ByteBuffer buf = proxyCache.get();
+        if ( buf != null )
+        {
+            UnsafeUtil.initDirectByteBuffer( buf, buffer, bufferLength );
+            return buf;
+        }
+        try
+        {
+            buf = UnsafeUtil.newDirectByteBuffer( buffer, bufferLength );
+        }
+        catch ( Exception e )
+        {
+            throw new IOException( e );
+        }
+        proxyCache.set( buf );
+        return buf;
+    }
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int filePageSize;
+    private final int pagesPerSegment;
+    private final long segmentSize;
+    private volatile PageEvictionCallback onEviction;
+    private volatile StoreFileChannel channel;
+
+    // Replaced, never modified, under synchronized(this). See segment().
+    private volatile MappedByteBuffer[] segments;
+
+    // Segments that have been replaced by larger mappings. Guarded by synchronized(this).
+    private final List<MappedByteBuffer> retiredSegments = new ArrayList<>();
+
+    // Page faults hold the read lock while they use the mappings. Unmapping takes the write lock.
+    // The write lock must be taken before the monitor of this swapper, never the other way around.
+    private final ReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+    // Guarded by synchronized(this). See tryReopen() and close().
+    private boolean closed;
+
+    // Accessed through unsafe
+    private volatile long fileSize;
+
+    public MemoryMappedPageSwapper(
+            File file,
+            FileSystemAbstraction fs,
+            StoreFileChannel channel,
+            int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        this.fs = fs;
+        this.file = file;
+        this.channel = channel;
+        this.filePageSize = filePageSize;
+        this.onEviction = onEviction;
+        // Segments hold a whole number of file pages, so no page straddles two mappings.
+        this.pagesPerSegment = Math.max( 1, (int) ((1L << segmentSizePower) / filePageSize) );
+        this.segmentSize = ((long) pagesPerSegment) * filePageSize;
+        this.segments = new MappedByteBuffer[0];
+        increaseFileSizeTo( channel.size() );
+    }
+
+    private void increaseFileSizeTo( long newFileSize )
+    {
+        long currentFileSize;
+        do
+        {
+            currentFileSize = getCurrentFileSize();
+        }
+        while ( currentFileSize < newFileSize && !UnsafeUtil.compareAndSwapLong(
+                this, fileSizeOffset, currentFileSize, newFileSize ) );
+    }
+
+    private long getCurrentFileSize()
+    {
+        return UnsafeUtil.getLongVolatile( this, fileSizeOffset );
+    }
+
+    /**
+     * Get the mapped segment with the given index, such that it covers at least the given number of bytes, or as
+     * much of that as the file currently holds. Returns null if the segment lies entirely beyond the end of the file.
+     */
+    private MappedByteBuffer segment( int segmentIndex, long requiredLength ) throws IOException
+    {
+        MappedByteBuffer[] segs = segments;
+        if ( segmentIndex < segs.length )
+        {
+            MappedByteBuffer segment = segs[segmentIndex];
+            if ( segment != null && segment.capacity() >= requiredLength )
+            {
+                return segment;
+            }
+        }
+        return mapSegment( segmentIndex, requiredLength );
+    }
+
+    private synchronized MappedByteBuffer mapSegment( int segmentIndex, long requiredLength ) throws IOException
+    {
+        MappedByteBuffer[] segs = segments;
+        MappedByteBuffer segment = segmentIndex < segs.length ? segs[segmentIndex] : null;
+        if ( segment != null && segment.capacity() >= requiredLength )
+        {
+            // Someone got ahead of us.
+            return segment;
+        }
+
+        long segmentStart = segmentIndex * segmentSize;
+        // Only map what is actually in the file. Mapping beyond the end of the file would grow it.
+        long length = Math.min( segmentSize, channel.size() - segmentStart );
+        if ( length <= 0 )
+        {
+            return null;
+        }
+        if ( segment != null && segment.capacity() >= length )
+        {
+            // The file has not grown beyond what we've already mapped.
+            return segment;
+        }
+
+        segment = channel.map( FileChannel.MapMode.READ_ONLY, segmentStart, length );
+        MappedByteBuffer[] newSegs = segs;
+        if ( segmentIndex >= segs.length )
+        {
+            newSegs = new MappedByteBuffer[segmentIndex + 1];
+            System.arraycopy( segs, 0, newSegs, 0, segs.length );
+        }
+        else
+        {
+            newSegs = segs.clone();
+        }
+        if ( newSegs[segmentIndex] != null )
+        {
+            retiredSegments.add( newSegs[segmentIndex] );
+        }
+        newSegs[segmentIndex] = segment;
+        segments = newSegs;
+        return segment;
+    }
+
+    private int swapIn( long filePageId, Page page, long fileOffset ) throws IOException
+    {
+        long address = page.address();
+        int segmentIndex = (int) (filePageId / pagesPerSegment);
+        long segmentOffset = (filePageId % pagesPerSegment) * filePageSize;
+        int readTotal = 0;
+        Lock lock = mappingLock.readLock();
+        lock.lock();
+        try
+        {
+            MappedByteBuffer segment = segment( segmentIndex, segmentOffset + filePageSize );
+            if ( segment != null )
+            {
+                readTotal = (int) Math.max( 0, Math.min( filePageSize, segment.capacity() - segmentOffset ) );
+                UnsafeUtil.copyMemory(
+                        UnsafeUtil.getDirectByteBufferAddress( segment ) + segmentOffset, address, readTotal );
+            }
+
+            // Zero-fill the rest.
+            UnsafeUtil.setMemory( address + readTotal, filePageSize - readTotal, MuninnPageCache.ZERO_BYTE );
+            return readTotal;
+        }
+        catch ( IOException e )
+        {
+            throw e;
+        }
+        catch ( Throwable e )
+        {
+            String msg = format(
+                    "Read failed after %s of %s bytes from fileOffset %s",
+                    readTotal, filePageSize, fileOffset );
+            throw new IOException( msg, e );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private int swapOut( Page page, long fileOffset, StoreChannel channel ) throws IOException
+    {
+        try
+        {
+            ByteBuffer bufferProxy = proxy( page.address(), filePageSize );
+            bufferProxy.position( 0 );
+            channel.writeAll( bufferProxy, fileOffset );
+        }
+        catch ( IOException e )
+        {
+            throw e;
+        }
+        catch ( Throwable e )
+        {
+            throw new IOException( e );
+        }
+        return filePageSize;
+    }
+
+    private void clear( Page page )
+    {
+        UnsafeUtil.setMemory( page.address(), page.size(), MuninnPageCache.ZERO_BYTE );
+    }
+
+    @Override
+    public int read( long filePageId, Page page ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        try
+        {
+            if ( fileOffset < getCurrentFileSize() )
+            {
+                return swapIn( filePageId, page, fileOffset );
+            }
+            else
+            {
+                clear( page );
+            }
+        }
+        catch ( ClosedChannelException e )
+        {
+            // Mapping a segment can close the channel if we are interrupted.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            int bytesRead = read( filePageId, page );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return bytesRead;
+        }
+        return 0;
+    }
+
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        // Reading from the mapping involves no system calls, so there is nothing to gain from vectoring.
+        long readTotal = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            readTotal += read( startFilePageId + i, pages[arrayOffset + i] );
+        }
+        return readTotal;
+    }
+
+    @Override
+    public int write( long filePageId, Page page ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        increaseFileSizeTo( fileOffset + filePageSize );
+        try
+        {
+            return swapOut( page, fileOffset, channel );
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            int bytesWritten = write( filePageId, page );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return bytesWritten;
+        }
+    }
+
+    @Override
+    public void evicted( long filePageId, Page page )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId, page );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    private long pageIdToPosition( long pageId )
+    {
+        return filePageSize * pageId;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        { return true; }
+        if ( o == null || getClass() != o.getClass() )
+        { return false; }
+
+        MemoryMappedPageSwapper that = (MemoryMappedPageSwapper) o;
+
+        return file.equals( that.file );
+
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return file.hashCode();
+    }
+
+    /**
+     * Reopens the channel if it has been closed and the close() method on
+     * this swapper has not been called. In other words, if the channel has
+     * been "accidentally" closed by an interrupt or the like.
+     *
+     * The mapped segments stay valid when the channel is closed, so they are kept.
+     *
+     * @see SingleFilePageSwapper
+     */
+    private synchronized void tryReopen( ClosedChannelException closedException ) throws ClosedChannelException
+    {
+        if ( channel.isOpen() )
+        {
+            // Someone got ahead of us, presumably. Nothing to do.
+            return;
+        }
+
+        if ( closed )
+        {
+            // We've been explicitly closed, so we shouldn't reopen the
+            // channel.
+            throw closedException;
+        }
+
+        try
+        {
+            channel = (StoreFileChannel) fs.open( file, "rw" );
+        }
+        catch ( IOException e )
+        {
+            closedException.addSuppressed( e );
+            throw closedException;
+        }
+    }
+
+    /**
+     * Unmap all segments. The caller must hold the write lock of the mappingLock.
+     */
+    private synchronized void unmapSegments()
+    {
+        List<MappedByteBuffer> mapped = new ArrayList<>( retiredSegments );
+        for ( MappedByteBuffer segment : segments )
+        {
+            if ( segment != null )
+            {
+                mapped.add( segment );
+            }
+        }
+        segments = new MappedByteBuffer[0];
+        retiredSegments.clear();
+
+        for ( MappedByteBuffer segment : mapped )
+        {
+            try
+            {
+                UnsafeUtil.freeDirectByteBuffer( segment );
+            }
+            catch ( IOException ignore )
+            {
+                // The platform does not let us unmap it. We no longer reference the segment, so the garbage
+                // collector will unmap it eventually.
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        Lock lock = mappingLock.writeLock();
+        lock.lock();
+        try
+        {
+            synchronized ( this )
+            {
+                closed = true;
+                channel.close();
+                unmapSegments();
+
+                // Eagerly relinquish our reference to the onEviction callback. See SingleFilePageSwapper#close().
+                onEviction = null;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        try
+        {
+            channel.force( false );
+        }
+        catch ( ClosedChannelException e )
+        {
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            force();
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public long getLastPageId() throws IOException
+    {
+        long channelSize = getCurrentFileSize();
+        if ( channelSize == 0 )
+        {
+            return PageCursor.UNBOUND_PAGE_ID;
+        }
+        long div = channelSize / filePageSize;
+        long mod = channelSize % filePageSize;
+        return mod == 0? div - 1 : div;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MemoryMappedPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file +
+                '}';
+    }
+}
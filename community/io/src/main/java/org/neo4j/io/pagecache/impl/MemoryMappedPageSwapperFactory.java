@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+/**
+ * A factory for MemoryMappedPageSwapper instances.
+ *
+ * Memory mapping is only possible for files on the real file system. For files on other file system abstractions,
+ * this factory falls back to creating SingleFilePageSwapper instances.
+ *
+ * @see org.neo4j.io.pagecache.impl.MemoryMappedPageSwapper
+ */
+public class MemoryMappedPageSwapperFactory implements PageSwapperFactory
+{
+    private FileSystemAbstraction fs;
+
+    @Override
+    public void setFileSystemAbstraction( FileSystemAbstraction fs )
+    {
+        this.fs = fs;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        StoreChannel channel = fs.open( file, "rw" );
+        if ( channel instanceof StoreFileChannel )
+        {
+            return new MemoryMappedPageSwapper( file, fs, (StoreFileChannel) channel, filePageSize, onEviction );
+        }
+        channel.close();
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction );
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "mmap";
+    }
+}
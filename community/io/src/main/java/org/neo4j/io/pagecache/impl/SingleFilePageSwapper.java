@@ -68,6 +68,7 @@ public class SingleFilePageSwapper implements PageSwapper
             UnsafeUtil.getFieldOffset( SingleFilePageSwapper.class, "fileSize" );
 
     private static final ThreadLocal<ByteBuffer> proxyCache = new ThreadLocal<>();
+    private static final ThreadLocal<ByteBuffer[]> vectorProxyCache = new ThreadLocal<>();
 
     private static ByteBuffer proxy( long buffer, int bufferLength ) throws IOException
     {
@@ -95,6 +96,43 @@ public class SingleFilePageSwapper implements PageSwapper
         return buf;
     }
 
+    private static ByteBuffer[] proxies( Page[] pages, int arrayOffset, int length, int bufferLength )
+            throws IOException
+    {
+        ByteBuffer[] bufs = vectorProxyCache.get();
+        if ( bufs == null || bufs.length < length )
+        {
+            ByteBuffer[] newBufs = new ByteBuffer[length];
+            if ( bufs != null )
+            {
+                System.arraycopy( bufs, 0, newBufs, 0, bufs.length );
+            }
+            bufs = newBufs;
+            vectorProxyCache.set( bufs );
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long address = pages[arrayOffset + i].address();
+            if ( bufs[i] == null )
+            {
+                try
+                {
+                    bufs[i] = UnsafeUtil.newDirectByteBuffer( address, bufferLength );
+                }
+                catch ( Exception e )
+                {
+                    throw new IOException( e );
+                }
+            }
+            else
+            {
+                UnsafeUtil.initDirectByteBuffer( bufs[i], address, bufferLength );
+            }
+            bufs[i].position( 0 );
+        }
+        return bufs;
+    }
+
     private final FileSystemAbstraction fs;
     private final File file;
     private final int filePageSize;
@@ -188,6 +226,54 @@ public class SingleFilePageSwapper implements PageSwapper
         }
     }
 
+    private long swapIn( StoreChannel channel, Page[] pages, int arrayOffset, int length, long fileOffset )
+            throws IOException
+    {
+        long bytesToRead = ((long) filePageSize) * length;
+        long readTotal = 0;
+        try
+        {
+            ByteBuffer[] bufferProxies = proxies( pages, arrayOffset, length, filePageSize );
+            // Scattering reads are relative to the channel position, so we have to make sure that nobody else is
+            // doing a vectored read through the same channel at the same time. Plain page faults use positional
+            // reads, and are not affected.
+            synchronized ( channel )
+            {
+                channel.position( fileOffset );
+                long read;
+                do
+                {
+                    read = channel.read( bufferProxies, 0, length );
+                }
+                while ( read != -1 && (readTotal += read) < bytesToRead );
+            }
+
+            // Zero-fill the rest of the pages that we didn't fully read, because we hit the end of the file.
+            for ( int i = 0; i < length; i++ )
+            {
+                long pageStart = ((long) filePageSize) * i;
+                int pageRead = (int) Math.max( 0, Math.min( filePageSize, readTotal - pageStart ) );
+                if ( pageRead < filePageSize )
+                {
+                    long address = pages[arrayOffset + i].address();
+                    UnsafeUtil.setMemory( address + pageRead, filePageSize - pageRead, MuninnPageCache.ZERO_BYTE );
+                }
+            }
+            return readTotal;
+        }
+        catch ( IOException e )
+        {
+            throw e;
+        }
+        catch ( Throwable e )
+        {
+            String msg = format(
+                    "Vectored read failed after %s of %s bytes from fileOffset %s",
+                    readTotal, bytesToRead, fileOffset );
+            throw new IOException( msg, e );
+        }
+    }
+
     private int swapOut( Page page, long fileOffset, StoreChannel channel ) throws IOException
     {
         try
@@ -245,6 +331,42 @@ public class SingleFilePageSwapper implements PageSwapper
         return 0;
     }
 
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( startFilePageId );
+        try
+        {
+            if ( fileOffset < getCurrentFileSize() )
+            {
+                return swapIn( channel( startFilePageId ), pages, arrayOffset, length, fileOffset );
+            }
+            else
+            {
+                for ( int i = 0; i < length; i++ )
+                {
+                    clear( pages[arrayOffset + i] );
+                }
+            }
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( startFilePageId, e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            long bytesRead = read( startFilePageId, pages, arrayOffset, length );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return bytesRead;
+        }
+        return 0;
+    }
+
     @Override
     public int write( long filePageId, Page page ) throws IOException
     {
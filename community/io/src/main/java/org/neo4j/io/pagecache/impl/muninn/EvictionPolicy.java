@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The page replacement policies that the {@link MuninnPageCache} can use for deciding which pages to evict.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The classic CLOCK algorithm: every access raises the usage counter of a page, and the eviction clock arm
+     * decrements it, and evicts the pages whose counters reach zero.
+     */
+    clock
+            {
+                @Override
+                ReplacementPolicy newReplacementPolicy( int maxPages )
+                {
+                    return new ClockReplacementPolicy();
+                }
+            },
+
+    /**
+     * A variant of CLOCK that separates the pages into a cold and a hot set, in the style of 2Q and CLOCK-Pro.
+     * Pages enter the cache as cold, and must be accessed again before the clock arm comes around, in order to be
+     * promoted to hot. Pages that are faulted in by large sequential scans, that is, with
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD} or
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT}, are never promoted by the scan itself, which prevents
+     * a single scan from flushing the working set out of the cache.
+     */
+    scan_resistant
+            {
+                @Override
+                ReplacementPolicy newReplacementPolicy( int maxPages )
+                {
+                    return new ScanResistantReplacementPolicy( maxPages );
+                }
+            };
+
+    abstract ReplacementPolicy newReplacementPolicy( int maxPages );
+}
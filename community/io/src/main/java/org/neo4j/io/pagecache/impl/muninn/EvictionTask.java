@@ -20,22 +20,26 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 /**
- * This Runnable runs the eviction algorithm. Only one is expected for each page cache.
+ * This Runnable runs the eviction algorithm for a single partition of the page cache. One is expected for each
+ * partition.
  *
  * Interrupting the thread running this runnable, will be interpreted as a shutdown signal.
  *
- * @see MuninnPageCache#continuouslySweepPages()
+ * @see MuninnPageCache#continuouslySweepPages(PagePartition)
  */
 final class EvictionTask extends BackgroundTask
 {
-    public EvictionTask( MuninnPageCache pageCache )
+    private final PagePartition partition;
+
+    public EvictionTask( MuninnPageCache pageCache, PagePartition partition )
     {
         super( pageCache );
+        this.partition = partition;
     }
 
     @Override
     protected void run( MuninnPageCache pageCache )
     {
-        pageCache.continuouslySweepPages();
+        pageCache.continuouslySweepPages( partition );
     }
 }
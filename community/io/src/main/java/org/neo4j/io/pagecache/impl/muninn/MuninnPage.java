@@ -53,6 +53,10 @@ final class MuninnPage extends StampedLock implements Page
     // accessed through unsafe
     private volatile byte usageStamp;
 
+    // Bookkeeping owned by the ReplacementPolicy of the page cache, such as
+    // whether the page is hot or cold. Like the usage stamp, this is benignly racy.
+    byte replacementState;
+
     // Next pointer in the freelist of available pages. This is either a
     // MuninnPage object, or a FreePage object. See the comment on the
     // MuninnPageCache.freelist field.
@@ -137,6 +141,12 @@ final class MuninnPage extends StampedLock implements Page
         return usage == 0;
     }
 
+    /** Returns true if the usage stamp is non-zero, without changing it. */
+    public boolean isUsed()
+    {
+        return UnsafeUtil.getByteVolatile( this, usageStampOffset ) != 0;
+    }
+
     public byte getByte( int offset )
     {
         checkBounds( offset + 1 );
@@ -364,6 +374,22 @@ final class MuninnPage extends StampedLock implements Page
             PageSwapper swapper,
             long filePageId,
             PageFaultEvent faultEvent ) throws IOException
+    {
+        prepareFault( swapper, filePageId );
+        int bytesRead = swapper.read( filePageId, this );
+        faultEvent.addBytesRead( bytesRead );
+        faultEvent.setCachePageId( getCachePageId() );
+        completeFault( swapper );
+    }
+
+    /**
+     * Assign the given filePageId to this page, as the first part of a page fault. The contents of the page are
+     * then expected to be read in by the caller, for instance as part of a vectored read, after which
+     * {@link #completeFault(PageSwapper)} must be called.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    void prepareFault( PageSwapper swapper, long filePageId )
     {
         assert isWriteLocked(): "Cannot fault page without write-lock";
         if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
@@ -384,9 +410,16 @@ final class MuninnPage extends StampedLock implements Page
         // the file page, so any subsequent thread that finds the page in their
         // translation table will re-do the page fault.
         this.filePageId = filePageId; // Page now considered isLoaded()
-        int bytesRead = swapper.read( filePageId, this );
-        faultEvent.addBytesRead( bytesRead );
-        faultEvent.setCachePageId( getCachePageId() );
+    }
+
+    /**
+     * Bind this page to the given swapper, once its contents have been successfully read in.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    void completeFault( PageSwapper swapper )
+    {
+        assert isWriteLocked(): "Cannot fault page without write-lock";
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
     }
 
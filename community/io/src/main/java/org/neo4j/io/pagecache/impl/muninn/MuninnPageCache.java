@@ -21,21 +21,27 @@ package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionEventOpportunity;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
-import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 /**
@@ -92,12 +98,21 @@ public class MuninnPageCache implements PageCache
     public static final byte ZERO_BYTE =
             (byte) (Boolean.getBoolean( "org.neo4j.io.pagecache.impl.muninn.MuninnPage.brandedZeroByte" )? 0x0F : 0);
 
-    // Keep this many pages free and ready for use in faulting.
+    // Keep this many pages free and ready for use in faulting, in each partition.
     // This will be truncated to be no more than half of the number of pages
-    // in the cache.
+    // in the partition.
     private static final int pagesToKeepFree = Integer.getInteger(
             "org.neo4j.io.pagecache.impl.muninn.pagesToKeepFree", 30 );
 
+    // The cache pages are divided into this many partitions, each with their own freelist and eviction thread.
+    // Threads fault pages into the partition that their thread id hashes to, and only steal from other partitions
+    // when their own partition has nothing left to evict. The default, 0, picks one partition per 8 processors,
+    // but no more partitions than there are multiples of minPagesPerPartition pages in the cache.
+    private static final int pagePartitions = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.pagePartitions", 0 );
+    private static final int minPagesPerPartition = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.minPagesPerPartition", 1 << 16 );
+
     // The background flush task will only spend a certain amount of time doing IO, to avoid saturating the IO
     // subsystem during times when there is more important work to be done. It will do this by measuring how much
     // time it spends on each flush, and then accumulate a sleep debt. Once the sleep debt grows beyond this
@@ -130,14 +145,26 @@ public class MuninnPageCache implements PageCache
     private static final long backgroundFlushLongBreak = Long.getLong(
             "org.neo4j.io.pagecache.impl.muninn.backgroundFlushLongBreak", 1000 );
 
+    // The read-ahead window of a cursor that scans a file sequentially with PF_READ_AHEAD starts out at this many
+    // pages, and then doubles as the scan progresses, up to the readAheadMaxPages limit.
+    private static final int readAheadInitialPages = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadInitialPages", 4 );
+
+    // The read-ahead window will never grow beyond this many pages. It is further truncated to be no more than a
+    // sixteenth of the number of pages in the cache, such that read-ahead cannot crowd out everything else. This
+    // means that read-ahead is effectively disabled for caches with fewer than 16 pages.
+    private static final int readAheadMaxPages = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadMaxPages", 32 );
+
+    // Read-ahead is only a hint, so if the read-ahead thread falls behind by more than this many requests, then any
+    // new requests are dropped, and the cursors will fault the pages in themselves.
+    private static final int readAheadQueueCapacity = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadQueueCapacity", 64 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -158,12 +185,15 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final CursorPool cursorPool;
     private final PageCacheTracer tracer;
+    private final ReplacementPolicy replacementPolicy;
     private final MuninnPage[] pages;
     private final AtomicInteger backgroundFlushPauseRequests;
+    private final int readAheadMaxWindow;
+    private final BlockingQueue<ReadAheadRequest> readAheadQueue;
 
+    // The pages are divided into partitions, and each partition has its own freelist.
     // The freelist is a thread-safe linked-list of 2 types of objects. A link
     // can either be a MuninnPage or a FreePage.
     // Initially, most of the links are MuninnPages that are ready for the
@@ -176,24 +206,16 @@ public class MuninnPageCache implements PageCache
     // exhibit the ABA-problem. In other words, eviction will never add
     // MuninnPages to the freelist; it will only add free pages through a new
     // FreePage object.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    private final PagePartition[] partitions;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
     // The thread that does background flushing.
     private volatile Thread flushThread;
+    // The thread that services the read-ahead requests.
+    private volatile Thread readAheadThread;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
@@ -212,6 +234,27 @@ public class MuninnPageCache implements PageCache
             int maxPages,
             int cachePageSize,
             PageCacheTracer tracer )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, EvictionPolicy.clock );
+    }
+
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, evictionPolicy, computePartitionCount( maxPages ) );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy,
+            int partitionCount )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -220,20 +263,54 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.cursorPool = new CursorPool();
         this.tracer = tracer;
+        this.replacementPolicy = evictionPolicy.newReplacementPolicy( maxPages );
         this.pages = new MuninnPage[maxPages];
         this.backgroundFlushPauseRequests = new AtomicInteger();
+        this.readAheadMaxWindow = Math.min( readAheadMaxPages, maxPages / 16 );
+        this.readAheadQueue = new ArrayBlockingQueue<>( readAheadQueueCapacity );
         this.printExceptionsOnClose = true;
 
         MemoryReleaser memoryReleaser = new MemoryReleaser( maxPages );
+        for ( int pageIndex = 0; pageIndex < maxPages; pageIndex++ )
+        {
+            pages[pageIndex] = new MuninnPage( cachePageSize, memoryReleaser );
+        }
+
+        // Every partition must have at least two pages, like the page cache as a whole.
+        partitionCount = Math.max( 1, Math.min( partitionCount, maxPages / 2 ) );
+        this.partitions = new PagePartition[partitionCount];
+        for ( int i = 0; i < partitionCount; i++ )
+        {
+            int firstPage = (int) (((long) maxPages * i) / partitionCount);
+            int endPage = (int) (((long) maxPages * (i + 1)) / partitionCount);
+            int keepFree = Math.min( pagesToKeepFree, (endPage - firstPage) / 2 );
+            PagePartition partition = new PagePartition( i, firstPage, endPage, keepFree );
+            partitions[i] = partition;
+            partition.getAndSetFreelistHead( buildFreelist( firstPage, endPage, keepFree ) );
+        }
+    }
+
+    private static int computePartitionCount( int maxPages )
+    {
+        int partitionCount = pagePartitions;
+        if ( partitionCount <= 0 )
+        {
+            partitionCount = Math.min(
+                    Runtime.getRuntime().availableProcessors() / 8,
+                    maxPages / Math.max( minPagesPerPartition, 1 ) );
+        }
+        return partitionCount;
+    }
+
+    private Object buildFreelist( int firstPage, int endPage, int keepFree )
+    {
         Object pageList = null;
-        int pageIndex = maxPages;
-        while ( pageIndex --> 0 )
+        int pageIndex = endPage;
+        while ( pageIndex --> firstPage )
         {
-            MuninnPage page = new MuninnPage( cachePageSize, memoryReleaser );
-            pages[pageIndex] = page;
+            MuninnPage page = pages[pageIndex];
 
             if ( pageList == null )
             {
@@ -254,7 +331,7 @@ public class MuninnPageCache implements PageCache
                 pageList = page;
             }
         }
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, pageList );
+        return pageList;
     }
 
     private static void verifyHacks()
@@ -348,8 +425,12 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( PagePartition partition : partitions )
+            {
+                backgroundThreadExecutor.execute( new EvictionTask( this, partition ) );
+            }
             backgroundThreadExecutor.execute( new FlushTask( this ) );
+            backgroundThreadExecutor.execute( new ReadAheadTask( this ) );
         }
         catch ( Exception e )
         {
@@ -433,23 +514,71 @@ public class MuninnPageCache implements PageCache
     }
 
     @Override
-    public synchronized void flushAndForce() throws IOException
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
     {
         assertNotClosed();
-        flushAllPages();
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            list.add( current.pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
+    @Override
+    public void flushAndForce() throws IOException
+    {
+        flushAndForce( IOLimiter.unlimited );
+    }
+
+    @Override
+    public void flushAndForce( IOLimiter limiter ) throws IOException
+    {
+        // Only collecting the mapped files is done under the monitor, such that a long, and possibly rate
+        // limited, flush doesn't block mapping and unmapping files in the meantime.
+        List<MuninnPagedFile> files = retainMappedFiles();
+        try
+        {
+            flushAllPages( files, limiter );
+        }
+        finally
+        {
+            for ( MuninnPagedFile file : files )
+            {
+                unmap( file );
+            }
+        }
         clearEvictorException();
     }
 
-    private void flushAllPages() throws IOException
+    /**
+     * Increments the reference count of all mapped files, so that they stay mapped while being flushed.
+     * Each of them must be {@link #unmap(MuninnPagedFile) unmapped} afterwards.
+     */
+    private synchronized List<MuninnPagedFile> retainMappedFiles() throws IOException
+    {
+        assertNotClosed();
+        List<MuninnPagedFile> files = new ArrayList<>();
+        FileMapping fileMapping = mappedFiles;
+        while ( fileMapping != null )
+        {
+            fileMapping.pagedFile.incrementRefCount();
+            files.add( fileMapping.pagedFile );
+            fileMapping = fileMapping.next;
+        }
+        return files;
+    }
+
+    private void flushAllPages( List<MuninnPagedFile> files, IOLimiter limiter ) throws IOException
     {
         try ( MajorFlushEvent cacheFlush = tracer.beginCacheFlush() )
         {
             FlushEventOpportunity flushOpportunity = cacheFlush.flushEventOpportunity();
-            FileMapping fileMapping = mappedFiles;
-            while ( fileMapping != null )
+            for ( MuninnPagedFile file : files )
             {
-                fileMapping.pagedFile.flushAndForceInternal( flushOpportunity );
-                fileMapping = fileMapping.next;
+                file.flushAndForceInternal( flushOpportunity, limiter );
             }
         }
     }
@@ -486,10 +615,15 @@ public class MuninnPageCache implements PageCache
             pages[i] = null;
         }
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( PagePartition partition : partitions )
+        {
+            interrupt( partition.evictionThread );
+            partition.evictionThread = null;
+        }
         interrupt( flushThread );
         flushThread = null;
+        interrupt( readAheadThread );
+        readAheadThread = null;
     }
 
     private void interrupt( Thread thread )
@@ -542,9 +676,39 @@ public class MuninnPageCache implements PageCache
         return pageCacheId;
     }
 
-    MuninnPage grabFreePage( PageFaultEvent faultEvent ) throws IOException
+    int partitionCount()
+    {
+        return partitions.length;
+    }
+
+    MuninnPage grabFreePage( EvictionEventOpportunity evictionOpportunity ) throws IOException
+    {
+        // We first look for a free page in the partition of the current thread, and if its freelist is empty, then
+        // we do our own eviction to get a free page. Only if our own partition has nothing to evict, do we go and
+        // steal pages from the other partitions.
+        PagePartition partition = partitionOfCurrentThread();
+        MuninnPage page = pollFreelist( partition );
+        if ( page != null )
+        {
+            return page;
+        }
+        partition.unparkEvictor();
+        return cooperativelyEvict( partition, evictionOpportunity );
+    }
+
+    private PagePartition partitionOfCurrentThread()
+    {
+        PagePartition[] partitions = this.partitions;
+        if ( partitions.length == 1 )
+        {
+            return partitions[0];
+        }
+        return partitions[(int) (Thread.currentThread().getId() % partitions.length)];
+    }
+
+    private MuninnPage pollFreelist( PagePartition partition ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the partitions field before making changes to
         // this part of the code.
         // Whatever the case, we're going to the head-pointer of the freelist,
         // and in doing so, we can discover a number of things.
@@ -558,8 +722,7 @@ public class MuninnPageCache implements PageCache
         // We can discover a null-pointer, in which case the freelist has just
         // been emptied for whatever it contained before. New FreePage objects
         // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
+        // going to wait around for that to happen, so we return null.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
@@ -568,16 +731,15 @@ public class MuninnPageCache implements PageCache
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
+            current = partition.getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                return cooperativelyEvict( faultEvent );
+                return null;
             }
             else if ( current instanceof MuninnPage )
             {
                 MuninnPage page = (MuninnPage) current;
-                if ( compareAndSetFreelistHead( page, page.nextFree ) )
+                if ( partition.compareAndSetFreelistHead( page, page.nextFree ) )
                 {
                     return page;
                 }
@@ -590,7 +752,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( partition.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.page;
                 }
@@ -598,34 +760,66 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private MuninnPage cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
+    private MuninnPage cooperativelyEvict(
+            PagePartition homePartition, EvictionEventOpportunity evictionOpportunity ) throws IOException
     {
-        int clockArm = ThreadLocalRandom.current().nextInt( pages.length );
-        MuninnPage page;
-        boolean evicted = false;
-        do
+        PagePartition partition = homePartition;
+        for (;;)
+        {
+            MuninnPage page = cooperativelyEvictOnce( partition, evictionOpportunity );
+            if ( page != null )
+            {
+                return page;
+            }
+
+            // A full revolution of the clock arm over this partition did not give us a page, so we move on to the
+            // next partition, where we first try the freelist before we start evicting.
+            partition = partitions[(partition.index + 1) % partitions.length];
+            if ( partition != homePartition )
+            {
+                page = pollFreelist( partition );
+                if ( page != null )
+                {
+                    return page;
+                }
+                partition.unparkEvictor();
+            }
+        }
+    }
+
+    /**
+     * Do a single revolution of the clock arm over the given partition, and evict the first page we can.
+     * @return the evicted page, or {@code null} if no page could be evicted.
+     */
+    private MuninnPage cooperativelyEvictOnce(
+            PagePartition partition, EvictionEventOpportunity evictionOpportunity ) throws IOException
+    {
+        int pageCount = partition.pageCount();
+        int clockArm = partition.firstPage + ThreadLocalRandom.current().nextInt( pageCount );
+        for ( int i = 0; i < pageCount; i++ )
         {
             assertHealthy();
 
-            if ( clockArm == pages.length )
+            if ( clockArm == partition.endPage )
             {
-                clockArm = 0;
+                clockArm = partition.firstPage;
             }
 
-            page = pages[clockArm];
+            MuninnPage page = pages[clockArm];
             if ( page == null )
             {
                 throw new IllegalStateException(
                         "The PageCache has been shut down" );
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && replacementPolicy.shouldEvict( page ) )
             {
                 long stamp = page.tryWriteLock();
                 if ( stamp != 0 )
                 {
                     // We got the write lock. Time to evict the page!
-                    try ( EvictionEvent evictionEvent = faultEvent.beginEviction() )
+                    boolean evicted;
+                    try ( EvictionEvent evictionEvent = evictionOpportunity.beginEviction() )
                     {
                         evicted = page.isLoaded() && evictPage( page, evictionEvent );
                     }
@@ -633,88 +827,58 @@ public class MuninnPageCache implements PageCache
                     {
                         page.unlockWrite( stamp );
                     }
+                    if ( evicted )
+                    {
+                        return page;
+                    }
                 }
             }
             clockArm++;
         }
-        while ( !evicted );
-        return page;
-    }
-
-    private void unparkEvictor()
-    {
-        if ( evictorParked )
-        {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
-        }
-    }
-
-    private void parkEvictor( long parkNanos )
-    {
-        // Only called from the background eviction thread!
-        evictorParked = true;
-        LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private Object getAndSetFreelistHead( Object newFreelistHead )
-    {
-        return UnsafeUtil.getAndSetObject(
-                this, freelistOffset, newFreelistHead );
+        return null;
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
+     * Scan through all the pages in the given partition, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( PagePartition partition )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        partition.evictionThread = Thread.currentThread();
+        int clockArm = partition.firstPage;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( partition );
             try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( partition, pageCountToEvict, clockArm, evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
-        // the freelist. This signal is looked out for in grabFreePage.
-        getAndSetFreelistHead( shutdownSignal );
+        // the freelist. This signal is looked out for in pollFreelist.
+        partition.getAndSetFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( PagePartition partition )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
+        int keepFree = partition.keepFree;
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            partition.parkEvictor( parkNanos );
             if ( Thread.currentThread().isInterrupted() || closed )
             {
                 return 0;
             }
 
-            Object freelistHead = getFreelistHead();
+            Object freelistHead = partition.getFreelistHead();
 
             if ( freelistHead == null )
             {
@@ -732,11 +896,24 @@ public class MuninnPageCache implements PageCache
     }
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        for ( PagePartition partition : partitions )
+        {
+            if ( clockArm < partition.endPage )
+            {
+                return evictPages( partition, pageCountToEvict, clockArm, evictionRunEvent );
+            }
+        }
+        throw new IllegalArgumentException( "Clock arm " + clockArm + " is beyond the last page in the cache" );
+    }
+
+    private int evictPages(
+            PagePartition partition, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed ) {
-            if ( clockArm == pages.length )
+            if ( clockArm == partition.endPage )
             {
-                clockArm = 0;
+                clockArm = partition.firstPage;
             }
             MuninnPage page = pages[clockArm];
 
@@ -746,7 +923,7 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && replacementPolicy.shouldEvict( page ) )
             {
                 long stamp = page.tryWriteLock();
                 if ( stamp != 0 )
@@ -780,13 +957,13 @@ public class MuninnPageCache implements PageCache
                         FreePage freePage = null;
                         do
                         {
-                            current = getFreelistHead();
+                            current = partition.getFreelistHead();
                             freePage = freePage == null?
                                        new FreePage( page ) : freePage;
                             freePage.setNext( (FreePage) current );
                             nextListHead = freePage;
                         }
-                        while ( !compareAndSetFreelistHead(
+                        while ( !partition.compareAndSetFreelistHead(
                                 current, nextListHead ) );
                     }
                 }
@@ -800,9 +977,12 @@ public class MuninnPageCache implements PageCache
 
     private boolean evictPage( MuninnPage page, EvictionEvent evictionEvent )
     {
+        PageSwapper swapper = page.getSwapper();
+        long filePageId = page.getFilePageId();
         try
         {
             page.evict( evictionEvent );
+            replacementPolicy.evicted( page, swapper, filePageId );
             clearEvictorException();
             return true;
         }
@@ -833,6 +1013,56 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    ReplacementPolicy replacementPolicy()
+    {
+        return replacementPolicy;
+    }
+
+    int readAheadInitialWindow()
+    {
+        return Math.min( readAheadInitialPages, readAheadMaxWindow );
+    }
+
+    int readAheadMaxWindow()
+    {
+        return readAheadMaxWindow;
+    }
+
+    /**
+     * Ask the read-ahead thread to fault in the given range of file pages. The request is silently dropped if the
+     * read-ahead thread is too far behind.
+     */
+    void requestReadAhead( MuninnPagedFile pagedFile, long startFilePageId, int pageCount )
+    {
+        readAheadQueue.offer( new ReadAheadRequest( pagedFile, startFilePageId, pageCount ) );
+    }
+
+    /**
+     * Take read-ahead requests off of the queue, and perform them one by one, until the page cache is closed.
+     */
+    void continuouslyReadAhead()
+    {
+        Thread thread = Thread.currentThread();
+        readAheadThread = thread;
+
+        try
+        {
+            while ( !closed && !thread.isInterrupted() )
+            {
+                ReadAheadRequest request = readAheadQueue.poll( 10, TimeUnit.MILLISECONDS );
+                if ( request != null )
+                {
+                    request.pagedFile.readAhead( request.startFilePageId, request.pageCount );
+                }
+            }
+        }
+        catch ( InterruptedException ignore )
+        {
+            // This is our shutdown signal.
+        }
+        readAheadQueue.clear();
+    }
+
     void pauseBackgroundFlushTask()
     {
         backgroundFlushPauseRequests.getAndIncrement();
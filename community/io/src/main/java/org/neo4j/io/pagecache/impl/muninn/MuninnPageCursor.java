@@ -25,6 +25,7 @@ import java.io.IOException;
 import org.neo4j.concurrent.BinaryLatch;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
@@ -44,6 +45,11 @@ abstract class MuninnPageCursor implements PageCursor
     private boolean claimed;
     private int offset;
 
+    // Read-ahead state; only used when the PF_READ_AHEAD flag is given. See readAhead().
+    private long readAheadPreviousPageId;
+    private long readAheadEnd;
+    private int readAheadWindow;
+
     public final void initialise( MuninnPagedFile pagedFile, long pageId, int pf_flags )
     {
         this.pagedFile = pagedFile;
@@ -72,6 +78,9 @@ abstract class MuninnPageCursor implements PageCursor
         nextPageId = pageId;
         currentPageId = UNBOUND_PAGE_ID;
         lastPageId = pagedFile.getLastPageId();
+        readAheadPreviousPageId = UNBOUND_PAGE_ID;
+        readAheadEnd = 0;
+        readAheadWindow = 0;
     }
 
     public final void reset( MuninnPage page )
@@ -96,6 +105,12 @@ abstract class MuninnPageCursor implements PageCursor
         claimed = false;
     }
 
+    @Override
+    public final boolean isPinned()
+    {
+        return page != null;
+    }
+
     @Override
     public final long getCurrentPageId()
     {
@@ -116,12 +131,58 @@ abstract class MuninnPageCursor implements PageCursor
     }
 
     /**
-     * Pin the desired file page to this cursor, page faulting it into memory if it isn't there already.
+     * Called before each pin when the PF_READ_AHEAD flag is given. If the cursor is moving sequentially forward
+     * through the file, then we ask the page cache to fault in a window of pages ahead of the cursor, so that the IO
+     * overlaps with the work the cursor does on the pages it already has. The window starts out small, and doubles
+     * every time the cursor gets half-way through the pages it has already asked for, up to the maximum size that the
+     * page cache allows. Any non-sequential movement collapses the window again.
+     * @param filePageId The file page id that this cursor is about to pin.
+     */
+    protected final void readAhead( long filePageId )
+    {
+        long previousPageId = readAheadPreviousPageId;
+        readAheadPreviousPageId = filePageId;
+        if ( previousPageId == UNBOUND_PAGE_ID || filePageId != previousPageId + 1 )
+        {
+            readAheadWindow = 0;
+            readAheadEnd = filePageId + 1;
+            return;
+        }
+
+        MuninnPageCache pageCache = pagedFile.pageCache;
+        int maxWindow = pageCache.readAheadMaxWindow();
+        long pagesAlreadyRequested = readAheadEnd - filePageId - 1;
+        if ( maxWindow == 0 || pagesAlreadyRequested > readAheadWindow / 2 )
+        {
+            return;
+        }
+
+        readAheadWindow = readAheadWindow == 0?
+                          pageCache.readAheadInitialWindow() : Math.min( readAheadWindow * 2, maxWindow );
+        long start = Math.max( readAheadEnd, filePageId + 1 );
+        long end = Math.min( start + readAheadWindow, lastPageId + 1 );
+        if ( start < end )
+        {
+            pageCache.requestReadAhead( pagedFile, start, (int) (end - start) );
+            readAheadEnd = end;
+        }
+    }
+
+    /**
+     * Pin the desired file page to this cursor, page faulting it into memory if it isn't there already and the
+     * cursor was not requested with PF_NO_FAULT.
      * @param filePageId The file page id we want to pin this cursor to.
      * @param exclusive 'true' if we will be taking an exclusive lock on the page as part of the pin.
+     * @return {@code true} if the cursor got pinned to the page, or {@code false} if the page was not in memory and
+     * the cursor was not allowed to fault it in.
      * @throws IOException if anything goes wrong with the pin, most likely during a page fault.
      */
-    protected void pin( long filePageId, boolean exclusive ) throws IOException
+    protected boolean pin( long filePageId, boolean exclusive ) throws IOException
+    {
+        return pin( filePageId, exclusive, (pf_flags & PagedFile.PF_NO_FAULT) == 0 );
+    }
+
+    protected boolean pin( long filePageId, boolean exclusive, boolean allowFault ) throws IOException
     {
         PageSwapper swapper = pagedFile.swapper;
         pinEvent = pagedFile.tracer.beginPin( exclusive, filePageId, swapper );
@@ -143,11 +204,18 @@ abstract class MuninnPageCursor implements PageCursor
         // in a latch. If that CAS succeeds, we page fault, set the slot to the faulted in page and open the latch.
         // If the CAS failed, we retry the look up and start over from the top.
         Object item;
+        boolean faulted = false;
         do
         {
             item = UnsafeUtil.getObjectVolatile( chunk, chunkOffset );
             if ( item == null )
             {
+                if ( !allowFault )
+                {
+                    // The page is not in memory, and we are not allowed to bring it in.
+                    pinEvent.done();
+                    return false;
+                }
                 // Looks like there's no mapping, so we'd like to do a page fault.
                 BinaryLatch latch = new BinaryLatch();
                 if ( UnsafeUtil.compareAndSwapObject( chunk, chunkOffset, null, latch ) )
@@ -155,6 +223,7 @@ abstract class MuninnPageCursor implements PageCursor
                     // We managed to inject our latch, so we now own the right to perform the page fault. We also
                     // have a duty to eventually release and remove the latch, no matter what happens now.
                     item = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
+                    faulted = true;
                 }
             }
             else if ( item.getClass() == MuninnPage.class )
@@ -174,14 +243,36 @@ abstract class MuninnPageCursor implements PageCursor
             else
             {
                 // We found a latch, so someone else is already doing a page fault for this page. So we'll just wait
-                // for them to finish, and grab the page then.
+                // for them to finish, and grab the page then. Unless we're not allowed to wait for IO, in which case
+                // we treat the page as not being in memory.
+                if ( !allowFault )
+                {
+                    pinEvent.done();
+                    return false;
+                }
                 BinaryLatch latch = (BinaryLatch) item;
                 latch.await();
                 item = null;
             }
         }
         while ( item == null );
-        pinCursorToPage( (MuninnPage) item, filePageId, swapper );
+        MuninnPage page = (MuninnPage) item;
+        if ( !faulted )
+        {
+            pinEvent.hit();
+            pagedFile.pageCache.replacementPolicy().touch( page, isLowPriorityAccess() );
+        }
+        pinCursorToPage( page, filePageId, swapper );
+        return true;
+    }
+
+    /**
+     * Pages that are accessed by sequential scans are not by themselves likely to be accessed again soon, so the
+     * replacement policy may choose to evict them sooner than other pages.
+     */
+    private boolean isLowPriorityAccess()
+    {
+        return (pf_flags & (PagedFile.PF_READ_AHEAD | PagedFile.PF_TRANSIENT)) != 0;
     }
 
     private MuninnPage pageFault(
@@ -229,6 +320,7 @@ abstract class MuninnPageCursor implements PageCursor
             assertPagedFileStillMapped();
             page.initBuffer();
             page.fault( swapper, filePageId, faultEvent );
+            pagedFile.pageCache.replacementPolicy().admit( page, swapper, filePageId, isLowPriorityAccess() );
         }
         catch ( Throwable throwable )
         {
@@ -22,15 +22,18 @@ package org.neo4j.io.pagecache.impl.muninn;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.concurrent.BinaryLatch;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.EvictionEventOpportunity;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
-import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.ReadAheadEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 final class MuninnPagedFile implements PagedFile
@@ -42,6 +45,10 @@ final class MuninnPagedFile implements PagedFile
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( MuninnPage[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( MuninnPage[].class );
 
+    // The number of written pages in between consulting the IOLimiter of a flush
+    private static final int ioLimiterBatchSize = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.ioLimiterBatchSize", 128 );
+
     private static final long referenceCounterOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "referenceCounter" );
     private static final long lastPageIdOffset =
@@ -149,7 +156,8 @@ final class MuninnPagedFile implements PagedFile
         return filePageSize;
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
@@ -169,15 +177,17 @@ final class MuninnPagedFile implements PagedFile
     {
         try ( MajorFlushEvent flushEvent = tracer.beginFileFlush( swapper ) )
         {
-            flushAndForceInternal( flushEvent.flushEventOpportunity() );
+            flushAndForceInternal( flushEvent.flushEventOpportunity(), IOLimiter.unlimited );
         }
     }
 
-    void flushAndForceInternal( FlushEventOpportunity flushOpportunity ) throws IOException
+    void flushAndForceInternal( FlushEventOpportunity flushOpportunity, IOLimiter limiter ) throws IOException
     {
         pageCache.pauseBackgroundFlushTask();
         try
         {
+            long limiterStamp = IOLimiter.INITIAL_STAMP;
+            int pagesFlushedSinceLimiterCheck = 0;
             for ( Object[] chunk : translationTable )
             {
                 for ( Object element : chunk )
@@ -188,12 +198,23 @@ final class MuninnPagedFile implements PagedFile
                         long stamp = page.readLock();
                         try
                         {
+                            if ( page.isDirty() )
+                            {
+                                pagesFlushedSinceLimiterCheck++;
+                            }
                             page.flush( swapper, page.getFilePageId(), flushOpportunity );
                         }
                         finally
                         {
                             page.unlockRead( stamp );
                         }
+
+                        // Consult the limiter outside of the page lock, since it may decide to block for a while
+                        if ( pagesFlushedSinceLimiterCheck == ioLimiterBatchSize )
+                        {
+                            limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesFlushedSinceLimiterCheck );
+                            pagesFlushedSinceLimiterCheck = 0;
+                        }
                     }
                 }
             }
@@ -268,11 +289,140 @@ final class MuninnPagedFile implements PagedFile
     /**
      * Grab a free page for the purpose of page faulting. Possibly blocking if
      * none are immediately available.
-     * @param faultEvent The trace event for the current page fault.
+     * @param evictionOpportunity The trace event for the current page fault or read-ahead.
+     */
+    MuninnPage grabFreePage( EvictionEventOpportunity evictionOpportunity ) throws IOException
+    {
+        return pageCache.grabFreePage( evictionOpportunity );
+    }
+
+    /**
+     * Fault in the file pages in the given range, that are not already in memory, using vectored reads.
+     *
+     * This is called from the read-ahead thread, on behalf of cursors that scan the file with the PF_READ_AHEAD
+     * flag. Read-ahead is only a hint, so this never waits for pages that are being faulted in by other threads, and
+     * it quietly gives up if anything goes wrong. The cursors will then just fault the pages in themselves.
+     * @param startFilePageId The first file page id to read ahead.
+     * @param pageCount The number of pages in the read-ahead window.
      */
-    MuninnPage grabFreePage( PageFaultEvent faultEvent ) throws IOException
+    void readAhead( long startFilePageId, int pageCount )
     {
-        return pageCache.grabFreePage( faultEvent );
+        long endFilePageId = Math.min( startFilePageId + pageCount, getLastPageId() + 1 );
+        if ( getRefCount() == 0 || startFilePageId >= endFilePageId )
+        {
+            return;
+        }
+
+        ReadAheadEvent readAheadEvent = tracer.beginReadAhead( startFilePageId, pageCount, swapper );
+        int length = (int) (endFilePageId - startFilePageId);
+        MuninnPage[] pages = new MuninnPage[length];
+        long[] stamps = new long[length];
+        BinaryLatch[] latches = new BinaryLatch[length];
+        try
+        {
+            long filePageId = startFilePageId;
+            while ( filePageId < endFilePageId )
+            {
+                int runLength = readAheadRun( filePageId, endFilePageId, pages, stamps, latches, readAheadEvent );
+                // If the run is empty, then the first page was already in memory, or being faulted in by someone
+                // else, so we just skip it.
+                filePageId += Math.max( runLength, 1 );
+            }
+            readAheadEvent.done();
+        }
+        catch ( Throwable throwable )
+        {
+            readAheadEvent.done( throwable );
+        }
+    }
+
+    /**
+     * Claim the translation table slots of as many consecutive file pages as possible, starting with the given
+     * startFilePageId, and then read them all in with a single vectored read.
+     *
+     * Just like in the page faults done by cursors, the slots are claimed by CAS'ing in latches, and we have the duty
+     * to eventually release and remove those latches, no matter what happens. The free pages we grab are write
+     * locked until their binding is complete.
+     * @return The number of file pages in the run.
+     */
+    private int readAheadRun(
+            long startFilePageId,
+            long endFilePageId,
+            MuninnPage[] pages,
+            long[] stamps,
+            BinaryLatch[] latches,
+            ReadAheadEvent readAheadEvent ) throws IOException
+    {
+        int length = 0;
+        boolean success = false;
+        try
+        {
+            for ( long filePageId = startFilePageId; filePageId < endFilePageId; filePageId++ )
+            {
+                BinaryLatch latch = new BinaryLatch();
+                if ( !UnsafeUtil.compareAndSwapObject(
+                        chunkFor( filePageId ), computeChunkOffset( filePageId ), null, latch ) )
+                {
+                    break;
+                }
+                latches[length] = latch;
+                length++;
+                MuninnPage page = grabFreePage( readAheadEvent );
+                stamps[length - 1] = page.writeLock();
+                pages[length - 1] = page;
+                page.initBuffer();
+                page.prepareFault( swapper, filePageId );
+            }
+
+            if ( length > 0 )
+            {
+                // Check if we're racing with unmapping, before we reopen the file channel by reading from it.
+                if ( getRefCount() == 0 )
+                {
+                    throw new IllegalStateException( "File has been unmapped" );
+                }
+                long bytesRead = swapper.read( startFilePageId, pages, 0, length );
+                for ( int i = 0; i < length; i++ )
+                {
+                    pages[i].completeFault( swapper );
+                    pageCache.replacementPolicy().admit( pages[i], swapper, startFilePageId + i, true );
+                }
+                readAheadEvent.addBytesRead( bytesRead );
+                readAheadEvent.addPagesRead( length );
+            }
+            success = true;
+        }
+        finally
+        {
+            for ( int i = 0; i < length; i++ )
+            {
+                long filePageId = startFilePageId + i;
+                MuninnPage page = pages[i];
+                // We must publish the page in the translation table before we unlock it, because otherwise it could
+                // get evicted while our latch is still in its slot.
+                UnsafeUtil.putObjectVolatile(
+                        chunkFor( filePageId ), computeChunkOffset( filePageId ), success ? page : null );
+                if ( page != null )
+                {
+                    page.unlockWrite( stamps[i] );
+                }
+                latches[i].release();
+                pages[i] = null;
+                latches[i] = null;
+            }
+        }
+        return length;
+    }
+
+    private Object[] chunkFor( long filePageId )
+    {
+        int chunkId = computeChunkId( filePageId );
+        Object[][] tt = translationTable;
+        if ( tt.length <= chunkId )
+        {
+            tt = expandCapacity( chunkId );
+        }
+        return tt[chunkId];
     }
 
     /**
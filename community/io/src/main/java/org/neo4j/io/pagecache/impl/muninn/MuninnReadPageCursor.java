@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache.impl.muninn;
 import java.io.IOException;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 
 final class MuninnReadPageCursor extends MuninnPageCursor
 {
@@ -56,6 +57,10 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         unpinCurrentPage();
+        if ( (pf_flags & PagedFile.PF_READ_AHEAD) != 0 )
+        {
+            readAhead( nextPageId );
+        }
         pin( nextPageId, false );
         currentPageId = nextPageId;
         nextPageId++;
@@ -76,7 +81,6 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( MuninnPage page, long filePageId, PageSwapper swapper )
     {
         reset( page );
-        page.incrementUsage();
     }
 
     @Override
@@ -91,6 +95,11 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     @Override
     public boolean shouldRetry() throws IOException
     {
+        if ( page == null )
+        {
+            // A PF_NO_FAULT cursor that did not get pinned; there is nothing to retry.
+            return false;
+        }
         boolean needsRetry = optimisticLock && !page.validate( lockStamp );
         if ( needsRetry )
         {
@@ -117,7 +126,8 @@ final class MuninnReadPageCursor extends MuninnPageCursor
                 // is closed; we don't want unpinCurrentPage() to try unlocking
                 // this page.
                 page = null;
-                pin( currentPageId, false );
+                // The page was in memory when we pinned it, so we fault it back in regardless of PF_NO_FAULT.
+                pin( currentPageId, false, true );
             }
         }
         return needsRetry;
@@ -55,6 +55,10 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             }
         }
         unpinCurrentPage();
+        if ( (pf_flags & PagedFile.PF_READ_AHEAD) != 0 )
+        {
+            readAhead( nextPageId );
+        }
         pin( nextPageId, true );
         currentPageId = nextPageId;
         nextPageId++;
@@ -81,7 +85,6 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // that happens, dirty contents in memory will no longer have a chance
         // to get flushed.
         assertPagedFileStillMapped();
-        page.incrementUsage();
         page.markAsDirty();
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * The page replacement policy decides which pages the eviction clock arm should evict.
+ *
+ * All methods are called on hot paths, and must not block or allocate.
+ * They are allowed to be benignly racy, since the usage counters they update are only heuristics.
+ */
+interface ReplacementPolicy
+{
+    /**
+     * The given page has just been faulted in, and is write locked by the calling thread.
+     *
+     * @param lowPriority {@code true} if the page was faulted in by a sequential scan or by read-ahead,
+     * which is not by itself a sign that the page will be accessed again.
+     */
+    void admit( MuninnPage page, PageSwapper swapper, long filePageId, boolean lowPriority );
+
+    /**
+     * The given page was already in memory when it was pinned.
+     *
+     * @param lowPriority {@code true} if the page was pinned by a sequential scan.
+     */
+    void touch( MuninnPage page, boolean lowPriority );
+
+    /**
+     * The clock arm has reached the given loaded page.
+     *
+     * @return {@code true} if the page should be evicted.
+     */
+    boolean shouldEvict( MuninnPage page );
+
+    /**
+     * The given page, which was bound to the given file page, has been evicted.
+     */
+    void evicted( MuninnPage page, PageSwapper swapper, long filePageId );
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * @see EvictionPolicy#scan_resistant
+ *
+ * Every page is either cold, cold-by-scan, or hot, which is tracked in {@link MuninnPage#replacementState}.
+ * <ul>
+ *     <li>Pages are admitted as cold, or cold-by-scan if they were faulted in by a sequential scan.</li>
+ *     <li>When the clock arm reaches a cold page that has been accessed since it was admitted, the page is
+ *     promoted to hot. Otherwise, the page is evicted.</li>
+ *     <li>When the clock arm reaches a hot page, its usage counter is decremented, and the page is demoted to
+ *     cold when the counter reaches zero.</li>
+ *     <li>Accesses from sequential scans do not count towards the promotion of cold pages.</li>
+ * </ul>
+ * Evicted pages that were not cold-by-scan are remembered in a fixed-size table of "ghost" entries. If a ghost
+ * page is faulted back in before its entry is overwritten, then it was evicted too early, and it is admitted
+ * directly as hot.
+ */
+final class ScanResistantReplacementPolicy implements ReplacementPolicy
+{
+    private static final byte COLD = 0;
+    private static final byte COLD_BY_SCAN = 1;
+    private static final byte HOT = 2;
+
+    // Direct-mapped table of recently evicted file pages. Collisions simply overwrite older entries.
+    private final long[] ghosts;
+    private final int ghostMask;
+
+    ScanResistantReplacementPolicy( int maxPages )
+    {
+        int capacity = Integer.highestOneBit( Math.max( maxPages / 2, 1 ) );
+        ghosts = new long[capacity];
+        ghostMask = capacity - 1;
+    }
+
+    @Override
+    public void admit( MuninnPage page, PageSwapper swapper, long filePageId, boolean lowPriority )
+    {
+        if ( lowPriority )
+        {
+            page.replacementState = COLD_BY_SCAN;
+            return;
+        }
+
+        long key = ghostKey( swapper, filePageId );
+        int index = ghostIndex( key );
+        if ( ghosts[index] == key )
+        {
+            ghosts[index] = 0;
+            page.replacementState = HOT;
+            page.incrementUsage();
+        }
+        else
+        {
+            page.replacementState = COLD;
+        }
+    }
+
+    @Override
+    public void touch( MuninnPage page, boolean lowPriority )
+    {
+        if ( !lowPriority )
+        {
+            if ( page.replacementState == COLD_BY_SCAN )
+            {
+                page.replacementState = COLD;
+            }
+            page.incrementUsage();
+        }
+        else if ( page.replacementState == HOT )
+        {
+            page.incrementUsage();
+        }
+    }
+
+    @Override
+    public boolean shouldEvict( MuninnPage page )
+    {
+        if ( page.replacementState == HOT )
+        {
+            if ( page.decrementUsage() )
+            {
+                page.replacementState = COLD;
+            }
+            return false;
+        }
+        if ( page.isUsed() )
+        {
+            page.replacementState = HOT;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void evicted( MuninnPage page, PageSwapper swapper, long filePageId )
+    {
+        if ( page.replacementState != COLD_BY_SCAN )
+        {
+            long key = ghostKey( swapper, filePageId );
+            ghosts[ghostIndex( key )] = key;
+        }
+    }
+
+    private static long ghostKey( PageSwapper swapper, long filePageId )
+    {
+        long key = (filePageId * 0x9E3779B97F4A7C15L) ^ System.identityHashCode( swapper );
+        return key == 0 ? 1 : key; // zero marks an empty slot
+    }
+
+    private int ghostIndex( long key )
+    {
+        return (int) (key ^ (key >>> 32)) & ghostMask;
+    }
+}
@@ -30,6 +30,11 @@ public interface PageCacheMonitor
      */
     public long countFaults();
 
+    /**
+     * @return The number of page pins that found their page already in memory thus far.
+     */
+    public long countHits();
+
     /**
      * @return The number of page evictions observed thus far.
      */
@@ -74,4 +79,14 @@ public interface PageCacheMonitor
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     public long countEvictionExceptions();
+
+    /**
+     * @return The number of read-ahead batches observed thus far.
+     */
+    public long countReadAheads();
+
+    /**
+     * @return The number of pages that have been faulted in by read-ahead thus far.
+     */
+    public long countReadAheadPages();
 }
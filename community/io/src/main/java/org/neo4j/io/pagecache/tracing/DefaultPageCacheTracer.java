@@ -81,6 +81,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     }
 
     protected final AtomicLong faults = new AtomicLong();
+    protected final AtomicLong hits = new AtomicLong();
     protected final AtomicLong evictions = new AtomicLong();
     protected final AtomicLong pins = new AtomicLong();
     protected final AtomicLong unpins = new AtomicLong();
@@ -90,6 +91,8 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLong readAheads = new AtomicLong();
+    protected final AtomicLong readAheadPages = new AtomicLong();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -203,6 +206,39 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         }
     };
 
+    private final ReadAheadEvent readAheadEvent = new ReadAheadEvent()
+    {
+        @Override
+        public void addBytesRead( long bytes )
+        {
+            bytesRead.getAndAdd( bytes );
+        }
+
+        @Override
+        public void addPagesRead( int pages )
+        {
+            readAheadPages.getAndAdd( pages );
+        }
+
+        @Override
+        public void done()
+        {
+            readAheads.getAndIncrement();
+        }
+
+        @Override
+        public void done( Throwable throwable )
+        {
+            done();
+        }
+
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            return evictionEvent;
+        }
+    };
+
     private final PinEvent pinTracingEvent = new PinEvent()
     {
         @Override
@@ -210,6 +246,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.getAndIncrement();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -230,6 +272,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.getAndIncrement();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -306,6 +354,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return pinTracingEvent;
     }
 
+    @Override
+    public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper )
+    {
+        return readAheadEvent;
+    }
+
     @Override
     public MajorFlushEvent beginFileFlush( PageSwapper swapper )
     {
@@ -324,6 +378,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return faults.get();
     }
 
+    @Override
+    public long countHits()
+    {
+        return hits.get();
+    }
+
     @Override
     public long countEvictions()
     {
@@ -377,4 +437,16 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public long countReadAheads()
+    {
+        return readAheads.get();
+    }
+
+    @Override
+    public long countReadAheadPages()
+    {
+        return readAheadPages.get();
+    }
 }
@@ -58,6 +58,12 @@ public interface PageCacheTracer extends PageCacheMonitor
             return PinEvent.NULL;
         }
 
+        @Override
+        public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper )
+        {
+            return ReadAheadEvent.NULL;
+        }
+
         @Override
         public MajorFlushEvent beginFileFlush( PageSwapper swapper )
         {
@@ -76,6 +82,12 @@ public interface PageCacheTracer extends PageCacheMonitor
             return 0;
         }
 
+        @Override
+        public long countHits()
+        {
+            return 0;
+        }
+
         @Override
         public long countEvictions()
         {
@@ -130,6 +142,18 @@ public interface PageCacheTracer extends PageCacheMonitor
             return 0;
         }
 
+        @Override
+        public long countReadAheads()
+        {
+            return 0;
+        }
+
+        @Override
+        public long countReadAheadPages()
+        {
+            return 0;
+        }
+
         @Override
         public String toString()
         {
@@ -161,6 +185,12 @@ public interface PageCacheTracer extends PageCacheMonitor
      */
     public PinEvent beginPin( boolean exclusiveLock, long filePageId, PageSwapper swapper );
 
+    /**
+     * A batch of consecutive file pages is to be read ahead, starting from the given file page id. The page count
+     * is the current size of the read-ahead window, which grows as long as the sequential access pattern persists.
+     */
+    public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper );
+
     /**
      * A PagedFile wants to flush all its bound pages.
      */
@@ -22,7 +22,7 @@ package org.neo4j.io.pagecache.tracing;
 /**
  * Begin a page fault as part of a pin event.
  */
-public interface PageFaultEvent
+public interface PageFaultEvent extends EvictionEventOpportunity
 {
     /**
      * A PageFaultEvent that does nothing.
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+/**
+ * A read-ahead is a batch of consecutive file pages that are faulted into the cache ahead of time, because a
+ * cursor with the {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD} flag has been observed to be scanning
+ * the file sequentially.
+ */
+public interface ReadAheadEvent extends EvictionEventOpportunity
+{
+    /**
+     * A ReadAheadEvent that does nothing.
+     */
+    ReadAheadEvent NULL = new ReadAheadEvent()
+    {
+        @Override
+        public void addBytesRead( long bytes )
+        {
+        }
+
+        @Override
+        public void addPagesRead( int pages )
+        {
+        }
+
+        @Override
+        public void done()
+        {
+        }
+
+        @Override
+        public void done( Throwable throwable )
+        {
+        }
+
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            return EvictionEvent.NULL;
+        }
+    };
+
+    /**
+     * Add up a number of bytes that has been read from the backing file as part of this read-ahead.
+     */
+    void addBytesRead( long bytes );
+
+    /**
+     * Add up a number of file pages that have been faulted into the cache as part of this read-ahead.
+     * This can be less than the requested window size, if some of the pages were already in memory.
+     */
+    void addPagesRead( int pages );
+
+    /**
+     * The read-ahead completed successfully.
+     */
+    void done();
+
+    /**
+     * The read-ahead did not complete successfully, but instead caused the given Throwable to be thrown.
+     */
+    void done( Throwable throwable );
+}
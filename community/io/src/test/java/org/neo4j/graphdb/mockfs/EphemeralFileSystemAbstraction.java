@@ -647,7 +647,26 @@ public class EphemeralFileSystemAbstraction implements FileSystemAbstraction
         public long read( ByteBuffer[] dsts, int offset, int length ) throws IOException
         {
             checkIfClosedOrInterrupted();
-            throw new UnsupportedOperationException();
+            long total = 0;
+            for ( int i = offset; i < offset + length; i++ )
+            {
+                ByteBuffer dst = dsts[i];
+                if ( !dst.hasRemaining() )
+                {
+                    continue;
+                }
+                int read = data.read( this, dst );
+                if ( read == -1 )
+                {
+                    return total == 0? -1 : total;
+                }
+                total += read;
+                if ( dst.hasRemaining() )
+                {
+                    break;
+                }
+            }
+            return total;
         }
 
         @Override
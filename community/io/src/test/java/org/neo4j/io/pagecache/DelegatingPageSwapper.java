@@ -41,6 +41,11 @@ public class DelegatingPageSwapper implements PageSwapper
         return delegate.read( filePageId, page );
     }
 
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        return delegate.read( startFilePageId, pages, arrayOffset, length );
+    }
+
     public void close() throws IOException
     {
         delegate.close();
@@ -66,6 +71,7 @@ public class DelegatingPageSwapper implements PageSwapper
         return delegate.write( filePageId, page );
     }
 
+    @Override
     public long getLastPageId() throws IOException
     {
         return delegate.getLastPageId();
@@ -601,6 +601,68 @@ public abstract class PageCacheTest<T extends PageCache>
         }
     }
 
+    @Test( timeout = 10000 )
+    public void mustBeAbleToMapFilesWhileFlushingWithIOLimiter() throws Exception
+    {
+        // A background check point flushes with a limiter, which may take a long time. In the meantime
+        // other files must still be possible to map.
+        final AtomicBoolean mapWhenForcing = new AtomicBoolean();
+        final AtomicBoolean mappedWhileForcing = new AtomicBoolean();
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public void force( boolean metaData ) throws IOException
+                    {
+                        if ( mapWhenForcing.compareAndSet( true, false ) )
+                        {
+                            Future<?> mapping = executor.submit( new Callable<Void>()
+                            {
+                                @Override
+                                public Void call() throws Exception
+                                {
+                                    try ( PagedFile ignore = pageCache.map( new File( "b" ), filePageSize ) )
+                                    {
+                                        return null;
+                                    }
+                                }
+                            } );
+                            try
+                            {
+                                mapping.get( 5, TimeUnit.SECONDS );
+                                mappedWhileForcing.set( true );
+                            }
+                            catch ( InterruptedException | ExecutionException | TimeoutException e )
+                            {
+                                throw new IOException( e );
+                            }
+                        }
+                        super.force( metaData );
+                    }
+                };
+            }
+        };
+        getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+
+        try ( PagedFile pagedFile = pageCache.map( file, filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putInt( 1 );
+            }
+
+            mapWhenForcing.set( true );
+            pageCache.flushAndForce( IOLimiter.unlimited );
+        }
+
+        assertTrue( mappedWhileForcing.get() );
+    }
+
     private DelegatingFileSystemAbstraction writeAndForceCountingFs( final AtomicInteger writeCounter,
                                                                      final AtomicInteger forceCounter )
     {
@@ -856,6 +918,39 @@ public abstract class PageCacheTest<T extends PageCache>
         }
     }
 
+    @Test( timeout = 1000 )
+    public void noFaultCursorMustOnlyPinPagesThatAreAlreadyInMemory() throws IOException
+    {
+        generateFileWithRecords( file, recordsPerFilePage * 2, recordSize );
+        PageCache cache = getPageCache( fs, maxPages, pageCachePageSize, PageCacheTracer.NULL );
+        try ( PagedFile pagedFile = cache.map( file, filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.isPinned() );
+                verifyRecordsMatchExpected( cursor );
+
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( 1L ) );
+                assertFalse( cursor.isPinned() );
+                assertFalse( cursor.shouldRetry() );
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.isPinned() );
+                verifyRecordsMatchExpected( cursor );
+            }
+        }
+    }
+
     @Test( timeout = 1000, expected = IllegalArgumentException.class )
     public void specifyingBothSharedAndExclusiveLocksMustThrow() throws IOException
     {
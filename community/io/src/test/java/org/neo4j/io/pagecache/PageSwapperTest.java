@@ -20,9 +20,7 @@
 package org.neo4j.io.pagecache;
 
 import org.junit.After;
-import org.junit.AfterClass;
 import org.junit.Before;
-import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
@@ -51,24 +49,43 @@ public abstract class PageSwapperTest
         }
     };
 
-    protected static EphemeralFileSystemAbstraction fs;
     protected static final int cachePageSize = 32;
 
-    @BeforeClass
-    public static void setUp()
+    protected FileSystemAbstraction fs;
+
+    @Before
+    public void setUp()
     {
-        Thread.interrupted(); // Clear stray interrupts
-        fs = new EphemeralFileSystemAbstraction();
+        fs = createFileSystem();
     }
 
-    @AfterClass
-    public static void tearDown()
+    @After
+    public void tearDown()
     {
-        fs.shutdown();
+        if ( fs instanceof EphemeralFileSystemAbstraction )
+        {
+            ((EphemeralFileSystemAbstraction) fs).shutdown();
+        }
     }
 
     protected abstract PageSwapperFactory swapperFactory( FileSystemAbstraction fs );
 
+    /**
+     * The file system the swappers are tested on. Swappers that only work on real files can override this.
+     */
+    protected FileSystemAbstraction createFileSystem()
+    {
+        return new EphemeralFileSystemAbstraction();
+    }
+
+    /**
+     * The file with the given name, on the file system given by {@link #createFileSystem()}.
+     */
+    protected File file( String name )
+    {
+        return new File( name );
+    }
+
     private ByteBufferPage createPage( int cachePageSize )
     {
         return new ByteBufferPage( ByteBuffer.allocateDirect( cachePageSize ) );
@@ -84,7 +101,7 @@ public abstract class PageSwapperTest
     @Test
     public void swappingOutMustNotSwallowInterrupts() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         ByteBufferPage page = createPage( cachePageSize );
@@ -100,7 +117,7 @@ public abstract class PageSwapperTest
     @Test
     public void forcingMustNotSwallowInterrupts() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         PageSwapperFactory swapperFactory = swapperFactory( fs );
@@ -119,7 +136,7 @@ public abstract class PageSwapperTest
         int z = ThreadLocalRandom.current().nextInt();
 
         ByteBufferPage page = createPage( cachePageSize );
-        File file = new File( "a" );
+        File file = file( "a" );
         StoreChannel channel = fs.create( file );
         ByteBuffer buf = ByteBuffer.allocate( cachePageSize );
         buf.putLong( x );
@@ -158,7 +175,7 @@ public abstract class PageSwapperTest
         page.putLong( x, 0 );
         page.putLong( y, 8 );
         page.putInt( z, 16 );
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         PageSwapperFactory swapperFactory = swapperFactory( fs );
@@ -188,7 +205,7 @@ public abstract class PageSwapperTest
     @Test
     public void mustReopenChannelWhenForceFailsWithAsynchronousCloseException() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         PageSwapperFactory swapperFactory = swapperFactory( fs );
@@ -209,7 +226,7 @@ public abstract class PageSwapperTest
     @Test
     public void readMustNotReopenExplicitlyClosedChannel() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         StoreChannel channel = fs.create( file );
         ByteBuffer buf = ByteBuffer.allocate( cachePageSize );
         channel.writeAll( buf );
@@ -234,7 +251,7 @@ public abstract class PageSwapperTest
     @Test
     public void writeMustNotReopenExplicitlyClosedChannel() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         ByteBufferPage page = createPage( cachePageSize );
@@ -256,7 +273,7 @@ public abstract class PageSwapperTest
     @Test
     public void forceMustNotReopenExplicitlyClosedChannel() throws IOException
     {
-        File file = new File( "a" );
+        File file = file( "a" );
         fs.create( file ).close();
 
         PageSwapperFactory swapperFactory = swapperFactory( fs );
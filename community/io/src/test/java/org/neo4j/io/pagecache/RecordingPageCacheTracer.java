@@ -34,6 +34,7 @@ import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.ReadAheadEvent;
 
 public class RecordingPageCacheTracer implements PageCacheTracer
 {
@@ -95,6 +96,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
             {
             }
 
+            @Override
+            public void hit()
+            {
+            }
+
             @Override
             public PageFaultEvent beginPageFault()
             {
@@ -136,6 +142,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         };
     }
 
+    @Override
+    public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper )
+    {
+        return ReadAheadEvent.NULL;
+    }
+
     @Override
     public MajorFlushEvent beginFileFlush( PageSwapper swapper )
     {
@@ -154,6 +166,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countHits()
+    {
+        return 0;
+    }
+
     @Override
     public long countEvictions()
     {
@@ -208,6 +226,18 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countReadAheads()
+    {
+        return 0;
+    }
+
+    @Override
+    public long countReadAheadPages()
+    {
+        return 0;
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
@@ -87,6 +87,12 @@ public class StubPageCursor implements PageCursor
         return false;
     }
 
+    @Override
+    public boolean isPinned()
+    {
+        return true;
+    }
+
     @Override
     public void close()
     {
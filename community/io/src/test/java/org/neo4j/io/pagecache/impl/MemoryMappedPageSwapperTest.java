@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageSwapperTest;
+import org.neo4j.test.TargetDirectory;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.neo4j.test.ByteArrayMatcher.byteArray;
+
+public class MemoryMappedPageSwapperTest extends PageSwapperTest
+{
+    @Rule
+    public TargetDirectory.TestDirectory dir = TargetDirectory.testDirForTest( getClass() );
+
+    @Override
+    protected PageSwapperFactory swapperFactory( FileSystemAbstraction fs )
+    {
+        MemoryMappedPageSwapperFactory factory = new MemoryMappedPageSwapperFactory();
+        factory.setFileSystemAbstraction( fs );
+        return factory;
+    }
+
+    // Files are only memory mapped on the real file system. Other file systems get the striped swapper.
+    @Override
+    protected FileSystemAbstraction createFileSystem()
+    {
+        return new DefaultFileSystemAbstraction();
+    }
+
+    @Override
+    protected File file( String name )
+    {
+        return dir.file( name );
+    }
+
+    private File createFile( byte[] bytes ) throws IOException
+    {
+        File file = file( "file" );
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( wrap( bytes ) );
+        channel.close();
+        return file;
+    }
+
+    @Test
+    public void mustCreateMemoryMappedSwapperForFilesOnTheRealFileSystem() throws IOException
+    {
+        File file = createFile( new byte[0] );
+
+        PageSwapper swapper = swapperFactory( fs ).createPageSwapper( file, 4, null );
+        try
+        {
+            assertThat( swapper, instanceOf( MemoryMappedPageSwapper.class ) );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    public void vectoredReadMustFillPagesWithDataAndZeroFillBeyondEndOfFile() throws IOException
+    {
+        File file = createFile( new byte[] {
+                // --- page 0:
+                1, 2, 3, 4,
+                // --- page 1:
+                5, 6, 7, 8,
+                // --- page 2:
+                9, 10
+        } );
+
+        PageSwapper swapper = swapperFactory( fs ).createPageSwapper( file, 4, null );
+        ByteBuffer[] targets = new ByteBuffer[4];
+        ByteBufferPage[] pages = new ByteBufferPage[targets.length];
+        for ( int i = 0; i < targets.length; i++ )
+        {
+            targets[i] = ByteBuffer.allocateDirect( 4 );
+            pages[i] = new ByteBufferPage( targets[i] );
+        }
+        long bytesRead = swapper.read( 1, pages, 0, 3 );
+        swapper.close();
+
+        assertThat( bytesRead, is( 6L ) );
+        assertThat( array( targets[0] ), byteArray( new byte[]{ 5, 6, 7, 8 } ) );
+        assertThat( array( targets[1] ), byteArray( new byte[]{ 9, 10, 0, 0 } ) );
+        assertThat( array( targets[2] ), byteArray( new byte[]{ 0, 0, 0, 0 } ) );
+    }
+
+    @Test
+    public void readMustObservePagesWrittenBeyondThePreviouslyMappedEndOfFile() throws IOException
+    {
+        File file = createFile( new byte[] { 1, 2 } );
+
+        PageSwapper swapper = swapperFactory( fs ).createPageSwapper( file, 4, null );
+        ByteBuffer target = ByteBuffer.allocateDirect( 4 );
+        ByteBufferPage page = new ByteBufferPage( target );
+        swapper.read( 0, page );
+        assertThat( array( target ), byteArray( new byte[]{ 1, 2, 0, 0 } ) );
+
+        swapper.write( 0, new ByteBufferPage( wrap( new byte[]{ 1, 2, 3, 4 } ) ) );
+        swapper.write( 1, new ByteBufferPage( wrap( new byte[]{ 5, 6, 7, 8 } ) ) );
+
+        swapper.read( 0, page );
+        assertThat( array( target ), byteArray( new byte[]{ 1, 2, 3, 4 } ) );
+        swapper.read( 1, page );
+        assertThat( array( target ), byteArray( new byte[]{ 5, 6, 7, 8 } ) );
+        assertThat( swapper.getLastPageId(), is( 1L ) );
+        swapper.close();
+    }
+
+    private byte[] array( ByteBuffer target )
+    {
+        target.clear();
+        byte[] array = new byte[target.capacity()];
+        while ( target.position() < target.capacity() )
+        {
+            array[target.position()] = target.get();
+        }
+        return array;
+    }
+
+    private ByteBuffer wrap( byte[] bytes )
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( bytes.length );
+        for ( byte b : bytes )
+        {
+            buffer.put( b );
+        }
+        buffer.clear();
+        return buffer;
+    }
+}
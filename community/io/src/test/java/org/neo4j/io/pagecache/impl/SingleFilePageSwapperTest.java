@@ -32,6 +32,7 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PageSwapperTest;
 
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.neo4j.test.ByteArrayMatcher.byteArray;
 
@@ -85,6 +86,38 @@ public class SingleFilePageSwapperTest extends PageSwapperTest
         assertThat( array( target ), byteArray( new byte[]{ 5, 6, 0, 0 } ) );
     }
 
+    @Test
+    public void vectoredReadMustFillPagesWithDataAndZeroFillBeyondEndOfFile() throws IOException
+    {
+        byte[] bytes = new byte[] {
+                // --- page 0:
+                1, 2, 3, 4,
+                // --- page 1:
+                5, 6, 7, 8,
+                // --- page 2:
+                9, 10
+        };
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( wrap( bytes ) );
+        channel.close();
+
+        PageSwapperFactory factory = swapperFactory( fs );
+        PageSwapper swapper = factory.createPageSwapper( file, 4, null );
+        ByteBuffer[] targets = new ByteBuffer[4];
+        ByteBufferPage[] pages = new ByteBufferPage[targets.length];
+        for ( int i = 0; i < targets.length; i++ )
+        {
+            targets[i] = ByteBuffer.allocateDirect( 4 );
+            pages[i] = new ByteBufferPage( targets[i] );
+        }
+        long bytesRead = swapper.read( 1, pages, 0, 3 );
+
+        assertThat( bytesRead, is( 6L ) );
+        assertThat( array( targets[0] ), byteArray( new byte[]{ 5, 6, 7, 8 } ) );
+        assertThat( array( targets[1] ), byteArray( new byte[]{ 9, 10, 0, 0 } ) );
+        assertThat( array( targets[2] ), byteArray( new byte[]{ 0, 0, 0, 0 } ) );
+    }
+
     @Test
     public void swappingOutMustWritePageToFile() throws IOException
     {
@@ -21,6 +21,7 @@ package org.neo4j.io.pagecache.impl.muninn;
 
 import org.junit.Test;
 
+import org.neo4j.io.pagecache.impl.MemoryMappedPageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.stress.Condition;
 import org.neo4j.io.pagecache.stress.PageCacheStressTest;
@@ -49,4 +50,19 @@ public class MuninnPageCacheStressIT
 
         runner.run();
     }
+
+    @Test
+    public void shouldHandleTheStressOfOneMillionEvictionsWithMemoryMappedSwapper() throws Exception
+    {
+        DefaultPageCacheTracer monitor = new DefaultPageCacheTracer();
+        Condition condition = numberOfEvictions( monitor, 1_000_000 );
+
+        PageCacheStressTest runner = new PageCacheStressTest.Builder()
+                .with( monitor )
+                .with( condition )
+                .with( new MemoryMappedPageSwapperFactory() )
+                .build();
+
+        runner.run();
+    }
 }
@@ -24,6 +24,9 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 
@@ -36,11 +39,14 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheTracer;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -49,6 +55,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Fault;
@@ -305,4 +312,168 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
             // Good.
         }
     }
+
+    @Test( timeout = 10000 )
+    public void sequentialScanWithReadAheadMustFaultInPagesAheadOfTheCursor() throws Exception
+    {
+        int pageCount = 256;
+        writePageIdsTo( file, pageCount );
+
+        // With 128 pages in the cache, the read-ahead window starts out at 4 pages.
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = createPageCache( fs, 128, 8, tracer );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            // Moving from page 0 to page 1 is sequential, which asks for pages 2 to 5 to be read ahead.
+            assertTrue( cursor.next() );
+            assertThat( readLong( cursor ), is( 0L ) );
+            assertTrue( cursor.next() );
+            assertThat( readLong( cursor ), is( 1L ) );
+
+            // The read-ahead happens asynchronously, so we have to wait for the pages to be faulted in.
+            while ( tracer.countReadAheadPages() < 4 )
+            {
+                Thread.sleep( 10 );
+            }
+            assertThat( tracer.countFaults(), is( 2L ) );
+
+            // The cursor must now find the read-ahead pages already in memory.
+            for ( long i = 2; i < 6; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertThat( readLong( cursor ), is( i ) );
+            }
+            assertThat( tracer.countFaults(), is( 2L ) );
+
+            for ( long i = 6; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertThat( readLong( cursor ), is( i ) );
+            }
+            assertFalse( cursor.next() );
+        }
+
+        assertThat( tracer.countReadAheads(), greaterThan( 0L ) );
+        pagedFile.close();
+    }
+
+    private long readLong( PageCursor cursor ) throws IOException
+    {
+        long value;
+        do
+        {
+            value = cursor.getLong();
+        }
+        while ( cursor.shouldRetry() );
+        return value;
+    }
+
+    @Test( timeout = 30000 )
+    public void partitionedPageCacheMustFaultPagesConcurrentlyAcrossPartitions() throws Exception
+    {
+        final int pageCount = 256;
+        writePageIdsTo( file, pageCount );
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, 32, 8, PageCacheTracer.NULL, EvictionPolicy.clock, 4 );
+        assertThat( pageCache.partitionCount(), is( 4 ) );
+        final PagedFile pagedFile = pageCache.map( file, 8 );
+
+        List<Future<?>> futures = new ArrayList<>();
+        for ( int t = 0; t < 8; t++ )
+        {
+            futures.add( executor.submit( new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+                    {
+                        for ( long i = 0; i < pageCount; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                            long value;
+                            do
+                            {
+                                value = cursor.getLong();
+                            }
+                            while ( cursor.shouldRetry() );
+                            assertThat( value, is( i ) );
+                        }
+                    }
+                    return null;
+                }
+            } ) );
+        }
+        for ( Future<?> future : futures )
+        {
+            future.get();
+        }
+        pagedFile.close();
+        pageCache.close();
+    }
+
+    @Test
+    public void clockPolicyMustCountEveryAccessRegardlessOfPriority()
+    {
+        ReplacementPolicy policy = EvictionPolicy.clock.newReplacementPolicy( 16 );
+        MemoryReleaser memoryReleaser = new MemoryReleaser( 1 );
+        MuninnPage page = new MuninnPage( 8, memoryReleaser );
+
+        policy.admit( page, null, 0, true );
+        policy.touch( page, true );
+
+        assertFalse( policy.shouldEvict( page ) );
+        assertTrue( policy.shouldEvict( page ) );
+    }
+
+    @Test
+    public void scanResistantPolicyMustEvictPagesFromScansBeforeRecentlyUsedPages()
+    {
+        ReplacementPolicy policy = EvictionPolicy.scan_resistant.newReplacementPolicy( 16 );
+        MemoryReleaser memoryReleaser = new MemoryReleaser( 2 );
+        MuninnPage usedPage = new MuninnPage( 8, memoryReleaser );
+        MuninnPage scannedPage = new MuninnPage( 8, memoryReleaser );
+
+        policy.admit( usedPage, null, 0, false );
+        policy.touch( usedPage, false );
+        policy.admit( scannedPage, null, 1, true );
+        policy.touch( scannedPage, true );
+
+        assertTrue( policy.shouldEvict( scannedPage ) );
+        assertFalse( policy.shouldEvict( usedPage ) );
+    }
+
+    @Test
+    public void scanResistantPolicyMustAdmitRecentlyEvictedPagesAsHot()
+    {
+        ReplacementPolicy policy = EvictionPolicy.scan_resistant.newReplacementPolicy( 16 );
+        MemoryReleaser memoryReleaser = new MemoryReleaser( 1 );
+        MuninnPage page = new MuninnPage( 8, memoryReleaser );
+
+        policy.admit( page, null, 42, false );
+        assertTrue( policy.shouldEvict( page ) );
+        policy.evicted( page, null, 42 );
+
+        // Faulting the page back in right after it was evicted means that it was evicted too early.
+        policy.admit( page, null, 42, false );
+        assertFalse( policy.shouldEvict( page ) );
+    }
+
+    private void writePageIdsTo( File file, int pageCount ) throws IOException
+    {
+        StoreChannel channel = fs.create( file );
+        ByteBuffer buf = ByteBuffer.allocate( 8 );
+        for ( long i = 0; i < pageCount; i++ )
+        {
+            buf.clear();
+            buf.putLong( i );
+            buf.flip();
+            channel.writeAll( buf );
+        }
+        channel.close();
+    }
 }
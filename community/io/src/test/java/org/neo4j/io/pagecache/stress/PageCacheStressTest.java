@@ -67,6 +67,7 @@ public class PageCacheStressTest
 
     private final PageCacheTracer tracer;
     private final Condition condition;
+    private final PageSwapperFactory swapperFactory;
 
     private final String workingDirectory;
 
@@ -81,6 +82,7 @@ public class PageCacheStressTest
 
         this.tracer = builder.tracer;
         this.condition = builder.condition;
+        this.swapperFactory = builder.swapperFactory;
 
         this.workingDirectory = builder.workingDirectory;
     }
@@ -88,7 +90,6 @@ public class PageCacheStressTest
     public void run() throws Exception
     {
         DefaultFileSystemAbstraction fs = new DefaultFileSystemAbstraction();
-        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
         swapperFactory.setFileSystemAbstraction( fs );
         PageCache pageCacheUnderTest = new MuninnPageCache(
                 swapperFactory, numberOfCachePages, cachePageSize, tracer );
@@ -149,6 +150,7 @@ public class PageCacheStressTest
 
         PageCacheTracer tracer = NULL;
         Condition condition;
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
 
         String workingDirectory = getProperty( "java.io.tmpdir" );
 
@@ -178,6 +180,12 @@ public class PageCacheStressTest
             return this;
         }
 
+        public Builder with( PageSwapperFactory swapperFactory )
+        {
+            this.swapperFactory = swapperFactory;
+            return this;
+        }
+
         public Builder withNumberOfPages( int value )
         {
             this.numberOfPages = value;
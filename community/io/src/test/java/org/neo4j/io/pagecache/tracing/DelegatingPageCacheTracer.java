@@ -87,6 +87,11 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.beginPin( exclusiveLock, filePageId, swapper );
     }
 
+    public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper )
+    {
+        return delegate.beginReadAhead( startFilePageId, pageCount, swapper );
+    }
+
     public void unmappedFile( File file )
     {
         delegate.unmappedFile( file );
@@ -112,8 +117,23 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.countFaults();
     }
 
+    public long countHits()
+    {
+        return delegate.countHits();
+    }
+
     public long countEvictions()
     {
         return delegate.countEvictions();
     }
+
+    public long countReadAheads()
+    {
+        return delegate.countReadAheads();
+    }
+
+    public long countReadAheadPages()
+    {
+        return delegate.countReadAheadPages();
+    }
 }
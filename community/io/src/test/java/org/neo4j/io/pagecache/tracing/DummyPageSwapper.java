@@ -40,6 +40,12 @@ public class DummyPageSwapper implements PageSwapper
         return 0;
     }
 
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        return 0;
+    }
+
     @Override
     public int write( long filePageId, Page page ) throws IOException
     {
@@ -43,6 +43,7 @@ import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.ReadAheadEvent;
 
 /**
  * This PageCacheTracer records a linearized history of the internal page cache events.
@@ -348,6 +349,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private long filePageId;
         private File file;
         private int cachePageId;
+        private boolean hit;
 
         public PinHEvent( boolean exclusiveLock, long filePageId, PageSwapper swapper )
         {
@@ -362,6 +364,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void hit()
+        {
+            this.hit = true;
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -384,6 +392,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             print( out, file );
             out.append( ", exclusiveLock:" );
             out.print( exclusiveLock );
+            out.append( ", hit:" );
+            out.print( hit );
         }
     }
 
@@ -439,6 +449,73 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         }
     }
 
+    public class ReadAheadHEvent extends IntervalHEven implements ReadAheadEvent
+    {
+        private long startFilePageId;
+        private int pageCount;
+        private File file;
+        private long bytesRead;
+        private int pagesRead;
+        private boolean pageEvictedByReadAhead;
+        private Throwable exception;
+
+        public ReadAheadHEvent( long startFilePageId, int pageCount, PageSwapper swapper )
+        {
+            this.startFilePageId = startFilePageId;
+            this.pageCount = pageCount;
+            this.file = swapper.file();
+        }
+
+        @Override
+        public void addBytesRead( long bytes )
+        {
+            bytesRead += bytes;
+        }
+
+        @Override
+        public void addPagesRead( int pages )
+        {
+            pagesRead += pages;
+        }
+
+        @Override
+        public void done()
+        {
+            close();
+        }
+
+        @Override
+        public void done( Throwable throwable )
+        {
+            this.exception = throwable;
+            done();
+        }
+
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            pageEvictedByReadAhead = true;
+            return add( new EvictionHEvent() );
+        }
+
+        @Override
+        void printBody( PrintStream out, String exceptionLinePrefix )
+        {
+            out.print( ", startFilePageId:" );
+            out.print( startFilePageId );
+            out.print( ", pageCount:" );
+            out.print( pageCount );
+            out.print( ", pagesRead:" );
+            out.print( pagesRead );
+            out.print( ", bytesRead:" );
+            out.print( bytesRead );
+            out.print( ", pageEvictedByReadAhead:" );
+            out.print( pageEvictedByReadAhead );
+            print( out, file );
+            print( out, exception, exceptionLinePrefix );
+        }
+    }
+
     public class MajorFlushHEvent extends IntervalHEven implements MajorFlushEvent, FlushEventOpportunity
     {
         private File file;
@@ -541,6 +618,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return add( new PinHEvent( exclusiveLock, filePageId, swapper ));
     }
 
+    @Override
+    public ReadAheadEvent beginReadAhead( long startFilePageId, int pageCount, PageSwapper swapper )
+    {
+        return add( new ReadAheadHEvent( startFilePageId, pageCount, swapper ) );
+    }
+
     @Override
     public MajorFlushEvent beginFileFlush( PageSwapper swapper )
     {
@@ -559,6 +642,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countHits()
+    {
+        return 0;
+    }
+
     @Override
     public long countEvictions()
     {
@@ -613,6 +702,18 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long countReadAheads()
+    {
+        return 0;
+    }
+
+    @Override
+    public long countReadAheadPages()
+    {
+        return 0;
+    }
+
     private class HistoryPrinter implements Consumer<HEvent>
     {
         private final List<HEvent> concurrentIntervals;
@@ -41,6 +41,7 @@ import static org.neo4j.helpers.Settings.DEFAULT;
 import static org.neo4j.helpers.Settings.DURATION;
 import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.INTEGER;
+import static org.neo4j.helpers.Settings.LONG;
 import static org.neo4j.helpers.Settings.NO_DEFAULT;
 import static org.neo4j.helpers.Settings.PATH;
 import static org.neo4j.helpers.Settings.STRING;
@@ -114,6 +115,12 @@ public abstract class GraphDatabaseSettings
     @Description("The minimum lifetime of a query plan before a query is considered for replanning")
     public static Setting<Long> cypher_min_replan_interval = setting( "dbms.cypher.min_replan_interval", DURATION, "1s" );
 
+    @Description( "The estimated number of bytes the sorts, aggregations and hash joins of a single read-only Cypher " +
+                  "query may hold on the heap together. Beyond this they spill rows to temporary files in the store " +
+                  "directory." )
+    public static final Setting<Long> cypher_spill_memory_budget =
+            setting( "dbms.cypher.spill_memory_budget", BYTES, "256m", min( 1024L ) );
+
     @Description( "Determines if Cypher will allow using file URLs when loading data using `LOAD CSV`. Setting this "
                   + "value to `false` will cause Neo4j to fail `LOAD CSV` clauses that load data from the file system." )
     public static Setting<Boolean> allow_file_urls = setting( "allow_file_urls", BOOLEAN, TRUE );
@@ -172,6 +179,15 @@ public abstract class GraphDatabaseSettings
     public static final Setting<Integer> index_sampling_update_percentage =
             setting("index_sampling_update_percentage", INTEGER, "5", min( 0 ) );
 
+    @Description("Number of values kept in the sample of each index, that is maintained as the index is updated and " +
+                 "that the value histogram of the index is built from")
+    public static final Setting<Integer> index_sampling_value_sample_size =
+            setting("index_sampling_value_sample_size", INTEGER, "10000", min( 1 ) );
+
+    @Description("Number of buckets in the value histogram of each index")
+    public static final Setting<Integer> index_sampling_histogram_buckets =
+            setting("index_sampling_histogram_buckets", INTEGER, "100", min( 1 ) );
+
     // Lucene settings
     @Description( "The maximum number of open Lucene index searchers." )
     public static Setting<Integer> lucene_searcher_cache_size = setting("lucene_searcher_cache_size",INTEGER, Integer.toString( Integer.MAX_VALUE ), min( 1 ));
@@ -189,6 +205,78 @@ public abstract class GraphDatabaseSettings
                   "`0` means that no rotation will automatically occur based on file size. " )
     public static final Setting<Long> logical_log_rotation_threshold = setting( "logical_log_rotation_threshold", BYTES, "250M", min( 1024*1024L /*1Mb*/ ) );
 
+    @Description( "The maximum time that a committing transaction waits for other transactions to be appended to " +
+                  "the transaction log, so that they can all be made durable with a single force of the log. " +
+                  "Trades commit latency for throughput on workloads with many small concurrent transactions. " +
+                  "`0` means that the log is forced right away." )
+    public static final Setting<Long> group_commit_max_delay =
+            setting( "dbms.tx_log.group_commit.max_delay", DURATION, "0ms", min( 0L ) );
+
+    @Description( "The number of transactions waiting for the transaction log to be forced at which the log is " +
+                  "forced without waiting out the rest of `dbms.tx_log.group_commit.max_delay`." )
+    public static final Setting<Integer> group_commit_max_batch_size =
+            setting( "dbms.tx_log.group_commit.max_batch_size", INTEGER, "64", min( 1 ) );
+
+    @Description( "Pre-allocate transaction log files to the size of `logical_log_rotation_threshold`, zero filled " +
+                  "in the background ahead of log rotation, so that appending to the log doesn't change the file " +
+                  "size. This makes forcing the log cheaper on file systems like ext4 and XFS, at the cost of " +
+                  "keeping one spare log file on disk." )
+    public static final Setting<Boolean> transaction_log_preallocation =
+            setting( "dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "Reuse transaction log files removed by log pruning as pre-allocated log files, instead of " +
+                  "deleting them. Only has an effect if `dbms.tx_log.preallocate` is enabled." )
+    public static final Setting<Boolean> transaction_log_recycle_pruned_files =
+            setting( "dbms.tx_log.recycle_pruned_files", BOOLEAN, TRUE );
+
+    @Description( "Flush the store by fuzzy check points taken in the background, instead of as part of log " +
+                  "rotation. Rotation then only switches to a new log file, so committing transactions aren't " +
+                  "held up by it, and recovery replays transactions from the latest check point. Log files are " +
+                  "kept for as long as recovery may need them, regardless of `keep_logical_logs`." )
+    public static final Setting<Boolean> check_point_background =
+            setting( "dbms.checkpoint.background", BOOLEAN, FALSE );
+
+    @Description( "The time in between background check points. Only has an effect if " +
+                  "`dbms.checkpoint.background` is enabled." )
+    public static final Setting<Long> check_point_interval_time =
+            setting( "dbms.checkpoint.interval.time", DURATION, "5m", min( 1L ) );
+
+    @Description( "The maximum number of store pages written per second by background check points, so that they " +
+                  "leave IO for committing transactions and queries. `-1` means unlimited." )
+    public static final Setting<Integer> check_point_iops_limit =
+            setting( "dbms.checkpoint.iops.limit", INTEGER, "1000" );
+
+    @Description( "The number of created, or deleted, nodes and relationships a single transaction keeps on the " +
+                  "heap. Beyond this the ids of these nodes and relationships are moved off heap, so that very " +
+                  "large transactions put less pressure on the heap. `-1` keeps them on the heap." )
+    public static final Setting<Integer> tx_state_off_heap_threshold =
+            setting( "dbms.tx_state.off_heap_threshold", INTEGER, "-1" );
+
+    @Description( "The most changes a single transaction may hold, counting each created or deleted entity and " +
+                  "each added, changed or removed property or label, and when committing, each changed record. " +
+                  "A transaction making more changes fails and is rolled back, instead of growing until the heap " +
+                  "is exhausted. `-1` means no limit." )
+    public static final Setting<Long> tx_state_max_changes =
+            setting( "dbms.tx_state.max_changes", LONG, "-1" );
+
+    @Description( "The number of threads applying recovered transactions to the store. Transactions writing " +
+                  "disjoint sets of records are applied concurrently, while transactions changing the schema, " +
+                  "tokens or legacy indexes are applied on their own. `1` recovers one transaction at a time." )
+    public static final Setting<Integer> recovery_parallelism =
+            setting( "dbms.recovery.parallelism", INTEGER, "4", min( 1 ) );
+
+    @Description( "The number of threads reading the node store when populating several indexes at once. Index " +
+                  "populations that start while another one is scanning the store are batched up, and each batch " +
+                  "is populated from a single scan of the store." )
+    public static final Setting<Integer> index_population_parallelism =
+            setting( "dbms.index_population.parallelism", INTEGER, "4", min( 1 ) );
+
+    @Description( "Use the native label scan store, which keeps the nodes of each label as bitmaps in a file managed " +
+                  "by the page cache, instead of the Lucene based one. The native store is built from the node " +
+                  "store the first time it is used." )
+    public static final Setting<Boolean> native_label_scan_store =
+            setting( "dbms.label_scan_store.native", BOOLEAN, FALSE );
+
     @Description("Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities.")
     @Internal
@@ -253,11 +341,40 @@ public abstract class GraphDatabaseSettings
         return "2g";
     }
 
-    @Description( "Specify which page swapper should use to do paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+    @Description( "Specify which page swapper should use to do paged IO. The default, `striped`, reads and " +
+                  "writes pages through file channels. The `mmap` swapper reads pages from memory mapped store " +
+                  "files instead, which avoids a system call per page fault for read-mostly databases whose store " +
+                  "files fit in memory. Other swappers are only used when integrating with proprietary storage " +
+                  "technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.pagecache.swapper", STRING, (String) null );
 
+    @Description( "The page replacement policy that the page cache uses for deciding which pages to evict. " +
+                  "The `clock` policy evicts the least recently used pages. The `scan_resistant` policy " +
+                  "additionally prevents large sequential scans from evicting the frequently used pages." )
+    public static final Setting<String> pagecache_eviction_policy =
+            setting( "dbms.pagecache.eviction_policy", options( "clock", "scan_resistant" ), "clock" );
+
+    @Description( "Periodically record which pages of the store files are in the page cache, and use that profile " +
+                  "to fault the same pages back into the page cache when the database starts up." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.pagecache.warmup.enabled", BOOLEAN, FALSE );
+
+    @Description( "The interval at which the profile of the pages in the page cache is recorded." )
+    public static final Setting<Long> pagecache_warmup_profiling_interval =
+            setting( "dbms.pagecache.warmup.profile.interval", DURATION, "1m" );
+
+    @Description( "Warm up the page cache in the background, after the database has become available, instead of " +
+                  "delaying the availability of the database until the warm up has completed." )
+    public static final Setting<Boolean> pagecache_warmup_async =
+            setting( "dbms.pagecache.warmup.async", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of nodes whose relationships are kept in the relationship chain cache, " +
+                  "grouped by type and direction, so that traversals that revisit the same nodes don't have to " +
+                  "read their relationship chains from the store again. The cache is disabled when this is 0." )
+    public static final Setting<Integer> relationship_chain_cache_size =
+            setting( "dbms.relationship_chain_cache.size", INTEGER, "0", min( 0 ) );
+
     @Deprecated
     @Obsoleted( "This is no longer used" )
     @Description( "Log memory mapping statistics regularly." )
@@ -24,8 +24,10 @@ import java.io.IOException;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
 import org.neo4j.kernel.impl.transaction.log.LogFile;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogRotation;
 import org.neo4j.kernel.impl.transaction.log.LogRotationControl;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointer;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 
@@ -39,15 +41,28 @@ public class LogRotationImpl
     private final LogFile logFile;
     private final LogRotationControl logRotationControl;
     private final KernelHealth kernelHealth;
+    private final CheckPointer checkPointer;
     private final Log msgLog;
 
     public LogRotationImpl( Monitor monitor, LogFile logFile,
             LogRotationControl logRotationControl, KernelHealth kernelHealth, LogProvider logProvider )
+    {
+        this( monitor, logFile, logRotationControl, kernelHealth, logProvider, null );
+    }
+
+    /**
+     * @param checkPointer if not {@code null} the store is left for its background check points to flush,
+     * and rotation merely switches to a new log file carrying the latest check point over.
+     */
+    public LogRotationImpl( Monitor monitor, LogFile logFile,
+            LogRotationControl logRotationControl, KernelHealth kernelHealth, LogProvider logProvider,
+            CheckPointer checkPointer )
     {
         this.monitor = monitor;
         this.logFile = logFile;
         this.logRotationControl = logRotationControl;
         this.kernelHealth = kernelHealth;
+        this.checkPointer = checkPointer;
 
         msgLog = logProvider.getLog( getClass() );
     }
@@ -100,6 +115,21 @@ public class LogRotationImpl
          */
         kernelHealth.assertHealthy( IOException.class );
 
+        if ( checkPointer != null )
+        {
+            /*
+             * Transactions in the current log file get into the store by check points, and recovery starts
+             * from the latest one of those. Carry it over into the new log file so that recovery finds it there.
+             */
+            LogPosition checkPoint = checkPointer.lastCheckPoint();
+            msgLog.info( PrintFormat.prefix( currentVersion ) + " Preparing new log file, carrying over check point " +
+                    checkPoint + "..." );
+            logFile.rotate( checkPoint );
+
+            monitor.finishedRotating( currentVersion );
+            return;
+        }
+
         /*
          * First we flush the store. If we fail now or during the flush, on recovery we'll discover
          * the current log file and replay it. Everything will be ok.
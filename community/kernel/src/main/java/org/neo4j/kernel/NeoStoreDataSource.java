@@ -76,6 +76,7 @@ import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider;
 import org.neo4j.kernel.impl.api.state.ConstraintIndexCreator;
 import org.neo4j.kernel.impl.api.store.CacheLayer;
 import org.neo4j.kernel.impl.api.store.DiskLayer;
+import org.neo4j.kernel.impl.api.store.RelationshipChainCache;
 import org.neo4j.kernel.impl.api.store.SchemaCache;
 import org.neo4j.kernel.impl.api.store.StoreReadLayer;
 import org.neo4j.kernel.impl.cache.BridgingCacheAccess;
@@ -91,6 +92,7 @@ import org.neo4j.kernel.impl.index.LegacyIndexStore;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.store.NeoStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.StoreFactory;
@@ -104,10 +106,12 @@ import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.LogFile;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.LogFileRecoverer;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogRotation;
 import org.neo4j.kernel.impl.transaction.log.LogRotationControl;
+import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.LoggingLogFileMonitor;
 import org.neo4j.kernel.impl.transaction.log.LogicalTransactionStore;
@@ -118,6 +122,10 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.log.ReadableVersionableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.TransactionOffsetIndex;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointLocator;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointer;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.IOPSLimiter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReaderFactory;
@@ -168,6 +176,8 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         CacheAccessBackDoor cacheAccess();
 
         SchemaCache schemaCache();
+
+        RelationshipChainCache relationshipChainCache();
     }
 
     private interface IndexingModule
@@ -203,6 +213,11 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         LogRotationControl logRotationControl();
 
         LogRotation logRotation();
+
+        /**
+         * @return the background check pointer, or {@code null} if the store is flushed on log rotation instead.
+         */
+        CheckPointer checkPointer();
     }
 
     private interface KernelModule
@@ -446,7 +461,7 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
             // TODO The only reason this is here is because of the provider-stuff for DiskLayer. Remove when possible:
             this.neoStoreModule = neoStoreModule;
 
-            CacheModule cacheModule = buildCaches( neoStoreModule.neoStore(), nodeManager,
+            CacheModule cacheModule = buildCaches( config, neoStoreModule.neoStore(), nodeManager,
                     labelTokens, relationshipTypeTokens, propertyKeyTokenHolder );
 
             IndexingModule indexingModule = buildIndexing( config, scheduler, indexProvider, lockService,
@@ -455,11 +470,13 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
 
             StoreLayerModule storeLayerModule = buildStoreLayer( config, neoStoreModule.neoStore(),
                     propertyKeyTokenHolder, labelTokens, relationshipTypeTokens,
-                    indexingModule.indexingService(), cacheModule.schemaCache() );
+                    indexingModule.indexingService(), cacheModule.schemaCache(),
+                    cacheModule.relationshipChainCache() );
 
             TransactionLogModule transactionLogModule =
                     buildTransactionLogs( storeDir, config, logProvider, indexingModule.labelScanStore(),
-                            fs, neoStoreModule.neoStore(), cacheModule.cacheAccess(), indexingModule.indexingService(),
+                            fs, neoStoreModule.neoStore(), cacheModule.cacheAccess(),
+                            cacheModule.relationshipChainCache(), indexingModule.indexingService(),
                             indexProviders.values() );
 
             buildRecovery( fs, cacheModule.cacheAccess(), indexingModule.indexingService(),
@@ -475,6 +492,9 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                     cacheModule.updateableSchemaState(), indexingModule.labelScanStore(),
                     indexingModule.schemaIndexProviderMap() );
 
+            // Added last, so that it starts after recovery, and takes its final profile before the stores are closed
+            life.add( new PageCacheWarmer( fs, pageCache, scheduler, storeDir, config,
+                    logProvider.getLog( PageCacheWarmer.class ) ) );
 
             // Do these assignments last so that we can ensure no cyclical dependencies exist
             this.cacheModule = cacheModule;
@@ -574,7 +594,7 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         };
     }
 
-    private CacheModule buildCaches( final NeoStore neoStore, NodeManager nodeManager,
+    private CacheModule buildCaches( Config config, final NeoStore neoStore, NodeManager nodeManager,
             LabelTokenHolder labelTokens, RelationshipTypeTokenHolder relationshipTypeTokens,
             PropertyKeyTokenHolder propertyKeyTokenHolder )
     {
@@ -585,6 +605,9 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         final CacheAccessBackDoor cacheAccess = new BridgingCacheAccess( schemaCache, updateableSchemaState,
                 propertyKeyTokenHolder, relationshipTypeTokens, labelTokens );
 
+        final RelationshipChainCache relationshipChainCache = new RelationshipChainCache(
+                config.get( GraphDatabaseSettings.relationship_chain_cache_size ) );
+
         life.add( new LifecycleAdapter()
         {
             @Override
@@ -618,6 +641,12 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
             {
                 return cacheAccess;
             }
+
+            @Override
+            public RelationshipChainCache relationshipChainCache()
+            {
+                return relationshipChainCache;
+            }
         };
     }
 
@@ -632,7 +661,8 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                 new IndexSamplingConfig( config ), scheduler, providerMap,
                 new NeoStoreIndexStoreView( lockService, neoStore ), tokenNameLookup, updateableSchemaState,
                 toList( new SchemaStorage( neoStore.getSchemaStore() ).allIndexRules() ), logProvider,
-                indexingServiceMonitor );
+                indexingServiceMonitor, config.get( GraphDatabaseSettings.index_population_parallelism ),
+                fs, new File( new File( new File( storeDir, "schema" ), "index" ), "valuesamples.db" ) );
         final IntegrityValidator integrityValidator = new IntegrityValidator( neoStore, indexingService );
 
         final IndexUpdatesValidator indexUpdatesValidator = dependencies.satisfyDependency(
@@ -683,7 +713,7 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
             PropertyKeyTokenHolder propertyKeyTokenHolder, LabelTokenHolder labelTokens,
             RelationshipTypeTokenHolder relationshipTypeTokens,
             IndexingService indexingService,
-            SchemaCache schemaCache )
+            SchemaCache schemaCache, RelationshipChainCache relationshipChainCache )
     {
         Supplier<NeoStore> neoStoreSupplier = new Supplier<NeoStore>()
         {
@@ -697,7 +727,7 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         final StoreReadLayer storeLayer;
         storeLayer = new CacheLayer( new DiskLayer( propertyKeyTokenHolder, labelTokens, relationshipTypeTokens,
                 new SchemaStorage( neoStore.getSchemaStore() ), neoStoreSupplier, indexingService ),
-                indexingService, schemaCache );
+                indexingService, schemaCache, relationshipChainCache );
 
         return new StoreLayerModule()
         {
@@ -712,7 +742,7 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
     private TransactionLogModule buildTransactionLogs( File storeDir, Config config, LogProvider logProvider,
             LabelScanStore labelScanStore,
             FileSystemAbstraction fileSystemAbstraction,
-            NeoStore neoStore, CacheAccessBackDoor cacheAccess,
+            final NeoStore neoStore, CacheAccessBackDoor cacheAccess, RelationshipChainCache relationshipChainCache,
             IndexingService indexingService,
             Iterable<IndexImplementation> indexProviders )
     {
@@ -725,11 +755,20 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                 new TransactionRepresentationStoreApplier(
                         indexingService, alwaysCreateNewWriter( labelScanStore ), neoStore,
                         cacheAccess, lockService, new LegacyIndexApplierLookup.Direct( legacyIndexProviderLookup ),
-                        indexConfigStore, legacyIndexTransactionOrdering ) );
+                        indexConfigStore, legacyIndexTransactionOrdering, relationshipChainCache ) );
+
+        long rotateAtSize = config.get( GraphDatabaseSettings.logical_log_rotation_threshold );
+        LogFilePreallocator logFilePreallocator = null;
+        if ( config.get( GraphDatabaseSettings.transaction_log_preallocation ) )
+        {
+            logFilePreallocator = life.add( new LogFilePreallocator( fileSystemAbstraction, scheduler, storeDir,
+                    PhysicalLogFile.DEFAULT_NAME, rotateAtSize,
+                    config.get( GraphDatabaseSettings.transaction_log_recycle_pruned_files ),
+                    logProvider.getLog( LogFilePreallocator.class ) ) );
+        }
 
-        final PhysicalLogFile logFile = new PhysicalLogFile( fileSystemAbstraction, logFiles,
-                config.get( GraphDatabaseSettings.logical_log_rotation_threshold ), neoStore,
-                neoStore, physicalLogMonitor, transactionMetadataCache );
+        final PhysicalLogFile logFile = new PhysicalLogFile( fileSystemAbstraction, logFiles, rotateAtSize, neoStore,
+                neoStore, physicalLogMonitor, transactionMetadataCache, logFilePreallocator );
 
         final PhysicalLogFileInformation.LogVersionToTimestamp
                 logInformation = new PhysicalLogFileInformation.LogVersionToTimestamp()
@@ -757,22 +796,59 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
         final LogFileInformation logFileInformation =
                 new PhysicalLogFileInformation( logFiles, transactionMetadataCache, neoStore, logInformation );
 
+        final LogRotationControl logRotationControl = new LogRotationControl( neoStore, indexingService, labelScanStore,
+                indexProviders, pageCache );
+
+        final CheckPointer checkPointer;
+        LogVersionRepository logVersionsToPrune = neoStore;
+        if ( config.get( GraphDatabaseSettings.check_point_background ) )
+        {
+            int iopsLimit = config.get( GraphDatabaseSettings.check_point_iops_limit );
+            checkPointer = new CheckPointer( logFile, neoStore, logRotationControl, kernelHealth, scheduler,
+                    config.get( GraphDatabaseSettings.check_point_interval_time ),
+                    iopsLimit > 0 ? new IOPSLimiter( iopsLimit ) : null, logProvider.getLog( CheckPointer.class ) );
+            logVersionsToPrune = new LogVersionRepository()
+            {
+                @Override
+                public long getCurrentLogVersion()
+                {
+                    // Recovery starts from the latest check point, so keep the log files from there and onwards
+                    return Math.min( neoStore.getCurrentLogVersion(), checkPointer.lastCheckPoint().getLogVersion() );
+                }
+
+                @Override
+                public long incrementAndGetVersion()
+                {
+                    throw new UnsupportedOperationException( "Only for deciding which log files to prune" );
+                }
+            };
+        }
+        else
+        {
+            checkPointer = null;
+        }
+
         LogPruneStrategy logPruneStrategy = LogPruneStrategyFactory.fromConfigValue( fs, logFileInformation,
-                logFiles, neoStore, config.get( config.get( GraphDatabaseFacadeFactory.Configuration.ephemeral) ? GraphDatabaseFacadeFactory.Configuration.ephemeral_keep_logical_logs : GraphDatabaseSettings.keep_logical_logs ) );
+                logFiles, logVersionsToPrune, config.get( config.get( GraphDatabaseFacadeFactory.Configuration.ephemeral) ? GraphDatabaseFacadeFactory.Configuration.ephemeral_keep_logical_logs : GraphDatabaseSettings.keep_logical_logs ),
+                logFilePreallocator );
 
         monitors.addMonitorListener( new LogPruning( logPruneStrategy, logProvider ) );
 
-        final LogRotationControl logRotationControl = new LogRotationControl( neoStore, indexingService, labelScanStore,
-                indexProviders );
-
         final LogRotation logRotation = new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ),
-                logFile, logRotationControl, kernelHealth, logProvider );
+                logFile, logRotationControl, kernelHealth, logProvider, checkPointer );
 
         final LogicalTransactionStore logicalTransactionStore = new PhysicalLogicalTransactionStore( logFile,
-                logRotation, transactionMetadataCache, neoStore, legacyIndexTransactionOrdering, kernelHealth );
+                logRotation, transactionMetadataCache, neoStore, legacyIndexTransactionOrdering, kernelHealth,
+                transactionMonitor, config.get( GraphDatabaseSettings.group_commit_max_delay ),
+                config.get( GraphDatabaseSettings.group_commit_max_batch_size ),
+                new TransactionOffsetIndex( fileSystemAbstraction, logFiles ) );
 
         life.add( logFile );
         life.add( logicalTransactionStore );
+        if ( checkPointer != null )
+        {
+            life.add( checkPointer );
+        }
 
         return new TransactionLogModule()
         {
@@ -817,6 +893,12 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
             {
                 return logRotation;
             }
+
+            @Override
+            public CheckPointer checkPointer()
+            {
+                return checkPointer;
+            }
         };
     }
 
@@ -848,11 +930,12 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                         legacyIndexApplierLookup, indexConfigStore, IdOrderingQueue.BYPASS );
 
         RecoveryVisitor recoveryVisitor = new RecoveryVisitor( neoStore, storeRecoverer, indexUpdatesValidator,
-                recoveryVisitorMonitor );
+                recoveryVisitorMonitor, config.get( GraphDatabaseSettings.recovery_parallelism ) );
 
         LogEntryReader<ReadableVersionableLogChannel> logEntryReader = new LogEntryReaderFactory().versionable();
         final Visitor<LogVersionedStoreChannel,IOException> logFileRecoverer =
                 new LogFileRecoverer( logEntryReader, recoveryVisitor );
+        final CheckPointLocator checkPointLocator = new CheckPointLocator( logEntryReader );
 
         Recovery recovery = new Recovery( new Recovery.SPI()
         {
@@ -877,6 +960,23 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                 return neoStore.getCurrentLogVersion();
             }
 
+            @Override
+            public long getHighestLogVersion()
+            {
+                long version = neoStore.getCurrentLogVersion();
+                while ( fileSystemAbstraction.fileExists( logFiles.getLogFileForVersion( version + 1 ) ) )
+                {
+                    version++;
+                }
+                return version;
+            }
+
+            @Override
+            public void setCurrentLogVersion( long version )
+            {
+                neoStore.setCurrentLogVersion( version );
+            }
+
             @Override
             public Visitor<LogVersionedStoreChannel,IOException> getRecoverer()
             {
@@ -890,6 +990,12 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                 return PhysicalLogFile.openForVersion( logFiles, fileSystemAbstraction,
                         recoveryVersion );
             }
+
+            @Override
+            public LogPosition getLastCheckPoint( LogVersionedStoreChannel channel ) throws IOException
+            {
+                return checkPointLocator.lastCheckPointIn( channel );
+            }
         }, recoveryMonitor );
 
         life.add( recovery );
@@ -951,7 +1057,9 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                         statementOperations, updateableSchemaState, schemaWriteGuard, schemaIndexProviderMap,
                         transactionHeaderInformationFactory, storeLayer, transactionCommitProcess,
                         indexConfigStore,
-                        legacyIndexProviderLookup, hooks, transactionMonitor, life, tracers ) );
+                        legacyIndexProviderLookup, hooks, transactionMonitor, life, tracers,
+                        config.get( GraphDatabaseSettings.tx_state_off_heap_threshold ),
+                        config.get( GraphDatabaseSettings.tx_state_max_changes ) ) );
 
         final Kernel kernel = new Kernel( kernelTransactions, hooks, kernelHealth, transactionMonitor );
 
@@ -999,7 +1107,12 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
                 {
                     try
                     {
-                        dependencies.satisfyDependency( method.invoke( module ) );
+                        Object dependency = method.invoke( module );
+                        // Optional components, like the check pointer, are null when they are disabled
+                        if ( dependency != null )
+                        {
+                            dependencies.satisfyDependency( dependency );
+                        }
                     }
                     catch ( IllegalAccessException | InvocationTargetException e )
                     {
@@ -1051,6 +1164,13 @@ public class NeoStoreDataSource implements NeoStoreSupplier, Lifecycle, IndexPro
 
         LogRotationControl logRotationControl = transactionLogModule.logRotationControl();
 
+        // Background check points use the log file, so they need to be stopped before we grab its monitor below
+        CheckPointer checkPointer = transactionLogModule.checkPointer();
+        if ( checkPointer != null )
+        {
+            checkPointer.stopBackgroundCheckPoints();
+        }
+
         // First kindly await all committing transactions to close. Do this without interfering with the
         // log file monitor. Keep in mind that at this point the availability guard is raised and some time spent
         // awaiting active transaction to close, on a more coarse-grained level, so no new transactions
@@ -22,10 +22,13 @@ package org.neo4j.kernel;
 import java.io.IOException;
 
 import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogRecoveryCheck;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
 /**
  * This is the process of doing a recovery on the transaction log and store, and is executed
  * at startup of {@link org.neo4j.kernel.NeoStoreDataSource}.
@@ -45,8 +48,21 @@ public class Recovery extends LifecycleAdapter
     {
         void forceEverything();
         long getCurrentLogVersion();
+
+        /**
+         * @return the highest version of existing log files, which may be higher than
+         * {@link #getCurrentLogVersion()} if rotation, without flushing the store, was interrupted by a crash.
+         */
+        long getHighestLogVersion();
+        void setCurrentLogVersion( long version );
         Visitor<LogVersionedStoreChannel, IOException> getRecoverer();
         LogVersionedStoreChannel getLogFile( long recoveryVersion ) throws IOException;
+
+        /**
+         * @return the position carried by the last {@link org.neo4j.kernel.impl.transaction.log.entry.CheckPoint}
+         * in the given log file, or {@code null} if there is none.
+         */
+        LogPosition getLastCheckPoint( LogVersionedStoreChannel channel ) throws IOException;
     }
 
     private final SPI spi;
@@ -63,20 +79,54 @@ public class Recovery extends LifecycleAdapter
     @Override
     public void init() throws Throwable
     {
-        long recoveryVersion = spi.getCurrentLogVersion();
-        try ( LogVersionedStoreChannel toRecover = spi.getLogFile( recoveryVersion ))
+        long currentVersion = spi.getCurrentLogVersion();
+        long highestVersion = spi.getHighestLogVersion();
+        if ( highestVersion != currentVersion )
+        {
+            spi.setCurrentLogVersion( highestVersion );
+        }
+
+        // Find where to start replaying transactions from, i.e. the latest check point. Log files are
+        // searched backwards, but not further back than the version the store knows about, since rotation
+        // either flushes the store or carries the latest check point over into the new log file.
+        // Without any check point, start from the beginning of that version.
+        boolean recoveryRequired = false;
+        LogPosition recoveryPosition = null;
+        for ( long version = highestVersion; version >= currentVersion && recoveryPosition == null; version-- )
         {
-            if ( LogRecoveryCheck.recoveryRequired( toRecover ) )
-            {   // There's already data in here, which means recovery will need to be performed.
-                monitor.recoveryRequired( toRecover.getVersion() );
-                spi.getRecoverer().visit( toRecover );
-                recoveredLog = true;
-                monitor.logRecovered();
-
-                // intentionally keep it open since we're continuing using the underlying channel for the writer below
-                spi.forceEverything();
+            try ( LogVersionedStoreChannel channel = spi.getLogFile( version ) )
+            {
+                if ( LogRecoveryCheck.recoveryRequired( channel ) )
+                {   // There's already data in here, which means recovery will need to be performed.
+                    recoveryRequired = true;
+                    recoveryPosition = spi.getLastCheckPoint( channel );
+                }
             }
         }
+
+        if ( recoveryRequired )
+        {
+            if ( recoveryPosition == null )
+            {
+                recoveryPosition = new LogPosition( currentVersion, LOG_HEADER_SIZE );
+            }
+            monitor.recoveryRequired( recoveryPosition.getLogVersion() );
+            for ( long version = recoveryPosition.getLogVersion(); version <= highestVersion; version++ )
+            {
+                try ( LogVersionedStoreChannel toRecover = spi.getLogFile( version ) )
+                {
+                    if ( version == recoveryPosition.getLogVersion() )
+                    {
+                        toRecover.position( recoveryPosition.getByteOffset() );
+                    }
+                    spi.getRecoverer().visit( toRecover );
+                }
+            }
+            recoveredLog = true;
+            monitor.logRecovered();
+
+            spi.forceEverything();
+        }
     }
 
     @Override
@@ -62,6 +62,27 @@ interface DataRead
     PrimitiveLongIterator nodesGetFromIndexScan( IndexDescriptor index )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns an iterator with the nodes whose numeric value lies in the given range, a {@code null} bound
+     * leaves that end of the range open.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( IndexDescriptor index,
+                                                              Number lower, boolean includeLower,
+                                                              Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Returns an iterator with the nodes whose string value starts with the given prefix.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException;
+
     /**
      * @return an iterator over all nodes in the database.
      */
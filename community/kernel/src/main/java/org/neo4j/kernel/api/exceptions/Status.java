@@ -121,6 +121,8 @@ public interface Status
         MarkedAsFailed( ClientError, "Transaction was marked as both successful and failed. Failure takes precedence" +
                 " and so this transaction was rolled back although it may have looked like it was going to be " +
                 "committed" ),
+        StateSizeExceeded( ClientError, "The transaction made more changes than a single transaction is " +
+                "allowed to hold, and was rolled back. Split the changes over several smaller transactions." ),
         ;
 
 
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.exceptions;
+
+/**
+ * Thrown when a change is made to transaction state that already holds as many changes as it is allowed to,
+ * see {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#tx_state_max_changes}. This fails the transaction
+ * before it grows large enough to exhaust the heap of the database.
+ */
+public class TransactionStateSizeExceededException extends RuntimeException implements Status.HasStatus
+{
+    public TransactionStateSizeExceededException( long maxChanges )
+    {
+        super( "Transaction state holds more than " + maxChanges + " changes, which is the most allowed for a " +
+               "single transaction. Split the changes over several smaller transactions." );
+    }
+
+    @Override
+    public Status status()
+    {
+        return Status.Transaction.StateSizeExceeded;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An equi-depth histogram of the values in an index, built from a sample of its entries. Values that are more
+ * frequent than the depth of a bucket get a bucket of their own, so that selectivity estimates of equality
+ * predicates on skewed values stay close to their actual frequency.
+ * <p>
+ * Numbers, strings and booleans are histogrammed, each in buckets of their own. Other values, e.g. arrays, are not
+ * part of the sample.
+ */
+public class IndexHistogram
+{
+    public static final IndexHistogram EMPTY =
+            new IndexHistogram( 0, 0, new Object[0], new Object[0], new int[0], new int[0] );
+
+    private static final int NUMBER = 0, STRING = 1, BOOLEAN = 2;
+
+    private final long indexSize;
+    private final int sampleSize;
+    // Bucket bounds are inclusive, and the buckets are sorted by these bounds
+    private final Object[] lowerBounds;
+    private final Object[] upperBounds;
+    private final int[] counts;
+    private final int[] distinctCounts;
+
+    private IndexHistogram( long indexSize, int sampleSize, Object[] lowerBounds, Object[] upperBounds, int[] counts,
+            int[] distinctCounts )
+    {
+        this.indexSize = indexSize;
+        this.sampleSize = sampleSize;
+        this.lowerBounds = lowerBounds;
+        this.upperBounds = upperBounds;
+        this.counts = counts;
+        this.distinctCounts = distinctCounts;
+    }
+
+    /**
+     * @param indexSize the number of entries in the index that the sample was taken from.
+     * @param sample values sampled uniformly from the index, will be sorted by this method.
+     * @param buckets the number of buckets to aim for.
+     */
+    public static IndexHistogram equiDepth( long indexSize, Object[] sample, int buckets )
+    {
+        if ( sample.length == 0 )
+        {
+            return new IndexHistogram( indexSize, 0, new Object[0], new Object[0], new int[0], new int[0] );
+        }
+        Arrays.sort( sample, VALUE_ORDER );
+        int depth = Math.max( 1, (sample.length + buckets - 1) / buckets );
+        BucketsBuilder builder = new BucketsBuilder();
+        int runStart = 0;
+        while ( runStart < sample.length )
+        {
+            Object value = sample[runStart];
+            int runEnd = runStart + 1;
+            while ( runEnd < sample.length && VALUE_ORDER.compare( sample[runEnd], value ) == 0 )
+            {
+                runEnd++;
+            }
+            int run = runEnd - runStart;
+            if ( run >= depth )
+            {
+                // Frequent value, gets a bucket of its own
+                builder.close();
+                builder.add( value, run );
+                builder.close();
+            }
+            else
+            {
+                if ( builder.isOpen() && groupOf( builder.lower ) != groupOf( value ) )
+                {
+                    builder.close();
+                }
+                builder.add( value, run );
+                if ( builder.count >= depth )
+                {
+                    builder.close();
+                }
+            }
+            runStart = runEnd;
+        }
+        builder.close();
+        return builder.build( indexSize, sample.length );
+    }
+
+    public long indexSize()
+    {
+        return indexSize;
+    }
+
+    public int sampleSize()
+    {
+        return sampleSize;
+    }
+
+    public int buckets()
+    {
+        return counts.length;
+    }
+
+    /**
+     * @return the estimated fraction of the entries in the index that have the given value. A value that isn't
+     * in the sample is assumed to be rarer than any that is.
+     */
+    public double equalitySelectivity( Object value )
+    {
+        if ( sampleSize == 0 || groupOf( value ) < 0 )
+        {
+            return 0d;
+        }
+        int bucket = bucketOf( value );
+        if ( bucket >= 0 )
+        {
+            return ((double) counts[bucket]) / distinctCounts[bucket] / sampleSize;
+        }
+        return sampleSize >= indexSize ? 0d : 0.5d / sampleSize;
+    }
+
+    /**
+     * @param lower the lower bound of the range, or {@code null} if unbounded.
+     * @param upper the upper bound of the range, or {@code null} if unbounded.
+     * @return the estimated fraction of the entries in the index that have values in the given range. Only values
+     * of the same kind as the bounds are considered to be in the range, e.g. numbers for numeric bounds.
+     */
+    public double rangeSelectivity( Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive )
+    {
+        if ( sampleSize == 0 )
+        {
+            return 0d;
+        }
+        int group = groupOf( lower != null ? lower : upper );
+        if ( lower != null && upper != null && groupOf( upper ) != group )
+        {
+            return 0d;
+        }
+
+        double sampled = 0;
+        for ( int bucket = 0; bucket < counts.length; bucket++ )
+        {
+            if ( group != groupOf( lowerBounds[bucket] ) && (lower != null || upper != null) )
+            {
+                continue;
+            }
+            sampled += counts[bucket] * fractionInRange( bucket, lower, lowerInclusive, upper, upperInclusive );
+        }
+        return sampled / sampleSize;
+    }
+
+    private double fractionInRange( int bucket, Object lower, boolean lowerInclusive, Object upper,
+            boolean upperInclusive )
+    {
+        Object bucketLower = lowerBounds[bucket];
+        Object bucketUpper = upperBounds[bucket];
+        if ( lower != null && !above( bucketUpper, lower, lowerInclusive ) ||
+             upper != null && !below( bucketLower, upper, upperInclusive ) )
+        {
+            return 0d;
+        }
+        if ( (lower == null || above( bucketLower, lower, lowerInclusive )) &&
+             (upper == null || below( bucketUpper, upper, upperInclusive )) )
+        {
+            return 1d;
+        }
+        double fraction = 1d;
+        if ( lower != null && !above( bucketLower, lower, lowerInclusive ) )
+        {
+            fraction -= excludedShare( bucket, bucketLower, lower, bucketUpper );
+        }
+        if ( upper != null && !below( bucketUpper, upper, upperInclusive ) )
+        {
+            fraction -= excludedShare( bucket, bucketUpper, upper, bucketLower );
+        }
+        return Math.max( 0d, fraction );
+    }
+
+    /**
+     * @return the share of the values in the bucket that lie between one of its bounds and a bound of the range.
+     */
+    private double excludedShare( int bucket, Object bucketBound, Object rangeBound, Object otherBucketBound )
+    {
+        if ( VALUE_ORDER.compare( bucketBound, rangeBound ) == 0 )
+        {
+            return 1d / distinctCounts[bucket];
+        }
+        if ( bucketBound instanceof Number )
+        {
+            // Assume that the values are evenly spread out in the bucket
+            double from = ((Number) bucketBound).doubleValue();
+            double width = Math.abs( ((Number) otherBucketBound).doubleValue() - from );
+            if ( width > 0 )
+            {
+                return Math.min( 1d, Math.abs( ((Number) rangeBound).doubleValue() - from ) / width );
+            }
+        }
+        return 0.5d;
+    }
+
+    private static boolean above( Object value, Object bound, boolean inclusive )
+    {
+        int comparison = VALUE_ORDER.compare( value, bound );
+        return comparison > 0 || inclusive && comparison == 0;
+    }
+
+    private static boolean below( Object value, Object bound, boolean inclusive )
+    {
+        int comparison = VALUE_ORDER.compare( value, bound );
+        return comparison < 0 || inclusive && comparison == 0;
+    }
+
+    private int bucketOf( Object value )
+    {
+        int low = 0, high = counts.length - 1;
+        while ( low <= high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( VALUE_ORDER.compare( upperBounds[mid], value ) < 0 )
+            {
+                low = mid + 1;
+            }
+            else if ( VALUE_ORDER.compare( lowerBounds[mid], value ) > 0 )
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( getClass().getSimpleName() )
+                .append( "[indexSize:" ).append( indexSize ).append( ", sampleSize:" ).append( sampleSize );
+        for ( int bucket = 0; bucket < counts.length; bucket++ )
+        {
+            builder.append( ", [" ).append( lowerBounds[bucket] ).append( ".." ).append( upperBounds[bucket] )
+                   .append( "]:" ).append( counts[bucket] ).append( '/' ).append( distinctCounts[bucket] );
+        }
+        return builder.append( ']' ).toString();
+    }
+
+    /**
+     * @return whether or not the given value can be part of a histogram.
+     */
+    public static boolean isHistogrammable( Object value )
+    {
+        return groupOf( value ) >= 0;
+    }
+
+    private static int groupOf( Object value )
+    {
+        if ( value instanceof Number )
+        {
+            return NUMBER;
+        }
+        if ( value instanceof String || value instanceof Character )
+        {
+            return STRING;
+        }
+        if ( value instanceof Boolean )
+        {
+            return BOOLEAN;
+        }
+        return -1;
+    }
+
+    private static boolean isIntegral( Object value )
+    {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static final Comparator<Object> VALUE_ORDER = new Comparator<Object>()
+    {
+        @Override
+        public int compare( Object a, Object b )
+        {
+            int groupA = groupOf( a ), groupB = groupOf( b );
+            if ( groupA != groupB )
+            {
+                return groupA - groupB;
+            }
+            switch ( groupA )
+            {
+            case NUMBER:
+                if ( isIntegral( a ) && isIntegral( b ) )
+                {
+                    return Long.compare( ((Number) a).longValue(), ((Number) b).longValue() );
+                }
+                return Double.compare( ((Number) a).doubleValue(), ((Number) b).doubleValue() );
+            case STRING:
+                return a.toString().compareTo( b.toString() );
+            default:
+                return Boolean.compare( (Boolean) a, (Boolean) b );
+            }
+        }
+    };
+
+    private static class BucketsBuilder
+    {
+        private final List<Object> lowerBounds = new ArrayList<>();
+        private final List<Object> upperBounds = new ArrayList<>();
+        private final List<Integer> counts = new ArrayList<>();
+        private final List<Integer> distinctCounts = new ArrayList<>();
+        private Object lower, upper;
+        private int count, distinct;
+
+        boolean isOpen()
+        {
+            return lower != null;
+        }
+
+        void add( Object value, int occurrences )
+        {
+            if ( lower == null )
+            {
+                lower = value;
+            }
+            upper = value;
+            count += occurrences;
+            distinct++;
+        }
+
+        void close()
+        {
+            if ( lower != null )
+            {
+                lowerBounds.add( lower );
+                upperBounds.add( upper );
+                counts.add( count );
+                distinctCounts.add( distinct );
+                lower = upper = null;
+                count = distinct = 0;
+            }
+        }
+
+        IndexHistogram build( long indexSize, int sampleSize )
+        {
+            int[] countArray = new int[counts.size()];
+            int[] distinctArray = new int[counts.size()];
+            for ( int i = 0; i < countArray.length; i++ )
+            {
+                countArray[i] = counts.get( i );
+                distinctArray[i] = distinctCounts.get( i );
+            }
+            return new IndexHistogram( indexSize, sampleSize, lowerBounds.toArray(), upperBounds.toArray(),
+                    countArray, distinctArray );
+        }
+    }
+}
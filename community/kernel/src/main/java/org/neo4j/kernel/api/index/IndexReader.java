@@ -41,6 +41,16 @@ public interface IndexReader extends Resource
      */
     PrimitiveLongIterator lookup( Object value );
 
+    /**
+     * Index range seek over numeric values. A {@code null} bound leaves that end of the range open.
+     */
+    PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower, Number upper, boolean includeUpper );
+
+    /**
+     * Index seek for all string values starting with the given prefix
+     */
+    PrimitiveLongIterator rangeSeekByPrefix( String prefix );
+
     /**
      * Index scan for all objects
      */
@@ -80,6 +90,19 @@ public interface IndexReader extends Resource
             return delegate.lookup( value );
         }
 
+        @Override
+        public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                        Number upper, boolean includeUpper )
+        {
+            return delegate.rangeSeekByNumber( lower, includeLower, upper, includeUpper );
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+        {
+            return delegate.rangeSeekByPrefix( prefix );
+        }
+
         @Override
         public PrimitiveLongIterator scan()
         {
@@ -125,6 +148,19 @@ public interface IndexReader extends Resource
             return PrimitiveLongCollections.emptyIterator();
         }
 
+        @Override
+        public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                        Number upper, boolean includeUpper )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
         @Override
         public PrimitiveLongIterator scan()
         {
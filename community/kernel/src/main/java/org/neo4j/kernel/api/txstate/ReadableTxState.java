@@ -47,6 +47,12 @@ public interface ReadableTxState
 
     boolean hasChanges();
 
+    /**
+     * @return whether more changes have been made than this state was configured to hold, in which case the
+     * transaction cannot be committed.
+     */
+    boolean hasExceededChangeLimit();
+
     // ENTITY RELATED
 
     /** Returns all nodes that, in this tx, have had labelId removed. */
@@ -136,4 +142,9 @@ public interface ReadableTxState
     Long indexCreatedForConstraint( UniquenessConstraint constraint );
 
     ReadableDiffSets<Long> indexUpdates( IndexDescriptor index, Object value );
+
+    ReadableDiffSets<Long> indexUpdatesForRangeSeekByNumber( IndexDescriptor index, Number lower, boolean includeLower,
+                                                             Number upper, boolean includeUpper );
+
+    ReadableDiffSets<Long> indexUpdatesForRangeSeekByPrefix( IndexDescriptor index, String prefix );
 }
@@ -36,6 +36,11 @@ import org.neo4j.kernel.api.properties.Property;
  */
 public interface TransactionState extends ReadableTxState
 {
+    /**
+     * Frees any memory this state holds outside of the heap. The state must not be used after this.
+     */
+    void release();
+
     // ENTITY RELATED
 
     void relationshipDoCreate( long id, int relationshipTypeId, long startNodeId, long endNodeId );
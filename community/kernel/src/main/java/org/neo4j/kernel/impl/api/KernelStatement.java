@@ -34,6 +34,8 @@ import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.api.txstate.LegacyIndexTransactionState;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.api.txstate.TxStateHolder;
+import org.neo4j.kernel.impl.api.store.StoreReadLayer;
+import org.neo4j.kernel.impl.api.store.StoreStatement;
 import org.neo4j.kernel.impl.locking.Locks;
 
 public class KernelStatement implements TxStateHolder, Statement
@@ -42,21 +44,24 @@ public class KernelStatement implements TxStateHolder, Statement
     protected final TxStateHolder txStateHolder;
     protected final IndexReaderFactory indexReaderFactory;
     protected final LabelScanStore labelScanStore;
+    private final StoreReadLayer storeLayer;
     private final KernelTransactionImplementation transaction;
     private final OperationsFacade facade;
     private LabelScanReader labelScanReader;
+    private StoreStatement storeStatement;
     private int referenceCount;
     private boolean closed;
 
     public KernelStatement( KernelTransactionImplementation transaction, IndexReaderFactory indexReaderFactory,
                             LabelScanStore labelScanStore, TxStateHolder txStateHolder, Locks.Client locks,
-                            StatementOperationParts operations )
+                            StatementOperationParts operations, StoreReadLayer storeLayer )
     {
         this.transaction = transaction;
         this.locks = locks;
         this.indexReaderFactory = indexReaderFactory;
         this.txStateHolder = txStateHolder;
         this.labelScanStore = labelScanStore;
+        this.storeLayer = storeLayer;
         this.facade = new OperationsFacade( this, operations );
     }
 
@@ -152,6 +157,15 @@ public class KernelStatement implements TxStateHolder, Statement
         return labelScanReader;
     }
 
+    public StoreStatement getStoreStatement()
+    {
+        if ( storeStatement == null )
+        {
+            storeStatement = storeLayer.acquireStatement();
+        }
+        return storeStatement;
+    }
+
     final void acquire()
     {
         referenceCount++;
@@ -184,6 +198,11 @@ public class KernelStatement implements TxStateHolder, Statement
             labelScanReader.close();
         }
 
+        if ( null != storeStatement )
+        {
+            storeStatement.close();
+        }
+
         transaction.releaseStatement( this );
     }
 }
@@ -155,6 +155,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     // Event tracing
     private final TransactionTracer tracer;
     private TransactionEvent transactionEvent;
+    private final int txStateOffHeapThreshold;
+    private final long maxTxStateChanges;
 
 
     public KernelTransactionImplementation( StatementOperationParts operations,
@@ -173,6 +175,30 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                                             Pool<KernelTransactionImplementation> pool,
                                             Clock clock,
                                             TransactionTracer tracer )
+    {
+        this( operations, schemaWriteGuard, labelScanStore, indexService, schemaState, recordState, providerMap,
+                neoStore, locks, hooks, constraintIndexCreator, headerInformationFactory, commitProcess,
+                transactionMonitor, storeLayer, legacyIndexTransactionState, pool, clock, tracer, -1, -1 );
+    }
+
+    public KernelTransactionImplementation( StatementOperationParts operations,
+                                            SchemaWriteGuard schemaWriteGuard, LabelScanStore labelScanStore,
+                                            IndexingService indexService,
+                                            UpdateableSchemaState schemaState,
+                                            TransactionRecordState recordState,
+                                            SchemaIndexProviderMap providerMap, NeoStore neoStore,
+                                            Locks.Client locks, TransactionHooks hooks,
+                                            ConstraintIndexCreator constraintIndexCreator,
+                                            TransactionHeaderInformationFactory headerInformationFactory,
+                                            TransactionCommitProcess commitProcess,
+                                            TransactionMonitor transactionMonitor,
+                                            StoreReadLayer storeLayer,
+                                            LegacyIndexTransactionState legacyIndexTransactionState,
+                                            Pool<KernelTransactionImplementation> pool,
+                                            Clock clock,
+                                            TransactionTracer tracer,
+                                            int txStateOffHeapThreshold,
+                                            long maxTxStateChanges )
     {
         this.operations = operations;
         this.schemaWriteGuard = schemaWriteGuard;
@@ -193,6 +219,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.clock = clock;
         this.schemaStorage = new SchemaStorage( neoStore.getSchemaStore() );
         this.tracer = tracer;
+        this.txStateOffHeapThreshold = txStateOffHeapThreshold;
+        this.maxTxStateChanges = maxTxStateChanges;
     }
 
     /** Reset this transaction to a vanilla state, turning it into a logically new transaction. */
@@ -255,7 +283,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         if ( currentStatement == null )
         {
             currentStatement = new KernelStatement( this, new IndexReaderFactory.Caching( indexService ),
-                    labelScanStore, this, locks, operations );
+                    labelScanStore, this, locks, operations, storeLayer );
         }
         currentStatement.acquire();
         return currentStatement;
@@ -308,7 +336,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         if ( txState == null )
         {
-            txState = new TxState();
+            txState = new TxState( txStateOffHeapThreshold, maxTxStateChanges );
         }
         return txState;
     }
@@ -392,7 +420,15 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         closing = true;
         try
         {
-            if ( failure || !success )
+            if ( txState != null && txState.hasExceededChangeLimit() )
+            {
+                // The change that went over the limit has failed, but the transaction may still be marked as
+                // successful, so don't leave it up to the client to not commit it
+                rollback();
+                throw new TransactionFailureException( Status.Transaction.StateSizeExceeded,
+                        "Transaction rolled back since it made more than " + maxTxStateChanges + " changes" );
+            }
+            else if ( failure || !success )
             {
                 rollback();
                 if ( success )
@@ -457,6 +493,12 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             }
 
             prepareRecordChangesFromTransactionState();
+            if ( maxTxStateChanges > 0 && recordState.changeSize() > maxTxStateChanges )
+            {
+                // Don't go on to also build a command for every changed record
+                throw new TransactionFailureException( Status.Transaction.StateSizeExceeded,
+                        "Transaction rolled back since it changed more than " + maxTxStateChanges + " records" );
+            }
 
             // Convert changes into commands and commit
             if ( hasChanges() )
@@ -578,6 +620,10 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     /** Release resources held up by this transaction & return it to the transaction pool. */
     private void release()
     {
+        if ( txState != null )
+        {
+            txState.release();
+        }
         locks.releaseAll();
         pool.release( this );
     }
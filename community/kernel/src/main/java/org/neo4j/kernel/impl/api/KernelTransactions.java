@@ -84,6 +84,8 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
     private final TransactionMonitor transactionMonitor;
     private final LifeSupport dataSourceLife;
     private final Tracers tracers;
+    private final int txStateOffHeapThreshold;
+    private final long maxTxStateChanges;
 
     // End Tx Dependencies
 
@@ -115,6 +117,27 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
                                TransactionHooks hooks, TransactionMonitor transactionMonitor,
                                LifeSupport dataSourceLife,
                                Tracers tracers )
+    {
+        this( neoStoreTransactionContextSupplier, neoStore, locks, integrityValidator, constraintIndexCreator,
+                indexingService, labelScanStore, statementOperations, updateableSchemaState, schemaWriteGuard,
+                providerMap, txHeaderFactory, storeLayer, transactionCommitProcess, indexConfigStore,
+                legacyIndexProviderLookup, hooks, transactionMonitor, dataSourceLife, tracers, -1, -1 );
+    }
+
+    public KernelTransactions( NeoStoreTransactionContextSupplier neoStoreTransactionContextSupplier,
+                               NeoStore neoStore, Locks locks, IntegrityValidator integrityValidator,
+                               ConstraintIndexCreator constraintIndexCreator,
+                               IndexingService indexingService, LabelScanStore labelScanStore,
+                               StatementOperationParts statementOperations,
+                               UpdateableSchemaState updateableSchemaState, SchemaWriteGuard schemaWriteGuard,
+                               SchemaIndexProviderMap providerMap, TransactionHeaderInformationFactory txHeaderFactory,
+                               StoreReadLayer storeLayer,
+                               TransactionCommitProcess transactionCommitProcess,
+                               IndexConfigStore indexConfigStore,
+                               LegacyIndexProviderLookup legacyIndexProviderLookup,
+                               TransactionHooks hooks, TransactionMonitor transactionMonitor,
+                               LifeSupport dataSourceLife,
+                               Tracers tracers, int txStateOffHeapThreshold, long maxTxStateChanges )
     {
         this.neoStoreTransactionContextSupplier = neoStoreTransactionContextSupplier;
         this.neoStore = neoStore;
@@ -136,6 +159,8 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
         this.transactionMonitor = transactionMonitor;
         this.dataSourceLife = dataSourceLife;
         this.tracers = tracers;
+        this.txStateOffHeapThreshold = txStateOffHeapThreshold;
+        this.maxTxStateChanges = maxTxStateChanges;
     }
 
     /**
@@ -158,7 +183,8 @@ public class KernelTransactions extends LifecycleAdapter implements Factory<Kern
                     labelScanStore, indexingService, updateableSchemaState, recordState, providerMap,
                     neoStore, locksClient, hooks, constraintIndexCreator, transactionHeaderInformationFactory,
                     transactionCommitProcess, transactionMonitor, storeLayer,
-                    legacyIndexTransactionState, localTxPool, Clock.SYSTEM_CLOCK, tracers.transactionTracer );
+                    legacyIndexTransactionState, localTxPool, Clock.SYSTEM_CLOCK, tracers.transactionTracer,
+                    txStateOffHeapThreshold, maxTxStateChanges );
 
             allTransactions.add( tx );
 
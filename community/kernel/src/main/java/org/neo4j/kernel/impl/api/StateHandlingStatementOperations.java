@@ -51,6 +51,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexHistogram;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -164,7 +165,7 @@ public class StateHandlingStatementOperations implements
         {
             try
             {
-                storeLayer.relationshipVisit( relationshipId, new RelationshipVisitor<RuntimeException>()
+                storeLayer.relationshipVisit( state, relationshipId, new RelationshipVisitor<RuntimeException>()
                 {
                     @Override
                     public void visit( long relId, int type, long startNode, long endNode )
@@ -252,7 +253,7 @@ public class StateHandlingStatementOperations implements
             }
         }
 
-        return storeLayer.nodeHasLabel( nodeId, labelId );
+        return storeLayer.nodeHasLabel( state, nodeId, labelId );
     }
 
     @Override
@@ -603,6 +604,38 @@ public class StateHandlingStatementOperations implements
         return resourceIterator( changeFilteredMatches, committed );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexRangeSeekByNumber( state, index,
+                lower, includeLower, upper, includeUpper );
+        PrimitiveLongIterator changeFilteredMatches = committed;
+        if ( state.hasTxStateWithChanges() )
+        {
+            changeFilteredMatches = filterIndexStateChanges( state, state.txState()
+                    .indexUpdatesForRangeSeekByNumber( index, lower, includeLower, upper, includeUpper ), committed );
+        }
+        return resourceIterator( changeFilteredMatches, committed );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                     String prefix )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
+        PrimitiveLongIterator changeFilteredMatches = committed;
+        if ( state.hasTxStateWithChanges() )
+        {
+            changeFilteredMatches = filterIndexStateChanges( state,
+                    state.txState().indexUpdatesForRangeSeekByPrefix( index, prefix ), committed );
+        }
+        return resourceIterator( changeFilteredMatches, committed );
+    }
+
     private PrimitiveLongIterator filterExactIndexMatches( final KernelStatement state, IndexDescriptor index,
             Object value, PrimitiveLongResourceIterator committed )
     {
@@ -614,15 +647,20 @@ public class StateHandlingStatementOperations implements
     {
         if ( state.hasTxStateWithChanges() )
         {
-            ReadableDiffSets<Long> labelPropertyChanges = state.txState().indexUpdates( index, value );
-            ReadableDiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
-
-            // Apply to actual index lookup
-            return nodes.augmentWithRemovals( labelPropertyChanges.augment( nodeIds ) );
+            return filterIndexStateChanges( state, state.txState().indexUpdates( index, value ), nodeIds );
         }
         return nodeIds;
     }
 
+    private PrimitiveLongIterator filterIndexStateChanges( KernelStatement state,
+            ReadableDiffSets<Long> labelPropertyChanges, PrimitiveLongIterator nodeIds )
+    {
+        ReadableDiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
+
+        // Apply to actual index lookup
+        return nodes.augmentWithRemovals( labelPropertyChanges.augment( nodeIds ) );
+    }
+
     @Override
     public Property nodeSetProperty( KernelStatement state, long nodeId, DefinedProperty property )
             throws EntityNotFoundException
@@ -757,7 +795,7 @@ public class StateHandlingStatementOperations implements
             return Property.noNodeProperty( nodeId, propertyKeyId );
         }
 
-        return storeLayer.nodeGetProperty( nodeId, propertyKeyId );
+        return storeLayer.nodeGetProperty( state, nodeId, propertyKeyId );
     }
 
     @Override
@@ -811,7 +849,7 @@ public class StateHandlingStatementOperations implements
             }
             return Property.noRelationshipProperty( relationshipId, propertyKeyId );
         }
-        return storeLayer.relationshipGetProperty( relationshipId, propertyKeyId );
+        return storeLayer.relationshipGetProperty( state, relationshipId, propertyKeyId );
     }
 
     @Override
@@ -902,6 +940,13 @@ public class StateHandlingStatementOperations implements
         return storeLayer.indexUniqueValuesPercentage( descriptor );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( KernelStatement statement, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return storeLayer.indexHistogram( descriptor );
+    }
+
     @Override
     public RelationshipIterator nodeGetRelationships( KernelStatement state, long nodeId, Direction direction,
                                                        int[] relTypes ) throws EntityNotFoundException
@@ -1011,14 +1056,14 @@ public class StateHandlingStatementOperations implements
 
             if( !state.txState().nodeIsAddedInThisTx( nodeId ))
             {
-                degree = storeLayer.nodeGetDegree( nodeId, direction, relType );
+                degree = storeLayer.nodeGetDegree( state, nodeId, direction, relType );
             }
 
             return state.txState().augmentNodeDegree( nodeId, degree, direction, relType );
         }
         else
         {
-            return storeLayer.nodeGetDegree( nodeId, direction, relType );
+            return storeLayer.nodeGetDegree( state, nodeId, direction, relType );
         }
     }
 
@@ -1035,13 +1080,13 @@ public class StateHandlingStatementOperations implements
 
             if( !state.txState().nodeIsAddedInThisTx( nodeId ))
             {
-                degree = storeLayer.nodeGetDegree( nodeId, direction );
+                degree = storeLayer.nodeGetDegree( state, nodeId, direction );
             }
             return state.txState().augmentNodeDegree( nodeId, degree, direction );
         }
         else
         {
-            return storeLayer.nodeGetDegree( nodeId, direction );
+            return storeLayer.nodeGetDegree( state, nodeId, direction );
         }
     }
 
@@ -1243,7 +1288,7 @@ public class StateHandlingStatementOperations implements
                 return;
             }
         }
-        storeLayer.relationshipVisit( relId, visitor );
+        storeLayer.relationshipVisit( statement, relId, visitor );
     }
 
     @Override
@@ -25,6 +25,7 @@ import org.neo4j.concurrent.WorkSync;
 import org.neo4j.helpers.Provider;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
+import org.neo4j.kernel.impl.api.store.RelationshipChainCache;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.locking.LockGroup;
@@ -36,6 +37,7 @@ import org.neo4j.kernel.impl.transaction.command.HighIdTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.NeoCommandHandler;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.RelationshipChainCacheInvalidationApplier;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.impl.util.function.Optional;
 import org.neo4j.unsafe.batchinsert.LabelScanWriter;
@@ -55,6 +57,7 @@ public class TransactionRepresentationStoreApplier
     private final IndexConfigStore indexConfigStore;
     private final LegacyIndexApplierLookup legacyIndexProviderLookup;
     private final IdOrderingQueue legacyIndexTransactionOrdering;
+    private final RelationshipChainCache relationshipChainCache;
 
     private final WorkSync<Provider<LabelScanWriter>,IndexTransactionApplier.LabelUpdateWork> labelScanStoreSync;
 
@@ -62,6 +65,16 @@ public class TransactionRepresentationStoreApplier
             IndexingService indexingService, Provider<LabelScanWriter> labelScanWriters, NeoStore neoStore,
             CacheAccessBackDoor cacheAccess, LockService lockService, LegacyIndexApplierLookup legacyIndexProviderLookup,
             IndexConfigStore indexConfigStore, IdOrderingQueue legacyIndexTransactionOrdering )
+    {
+        this( indexingService, labelScanWriters, neoStore, cacheAccess, lockService, legacyIndexProviderLookup,
+                indexConfigStore, legacyIndexTransactionOrdering, RelationshipChainCache.DISABLED );
+    }
+
+    public TransactionRepresentationStoreApplier(
+            IndexingService indexingService, Provider<LabelScanWriter> labelScanWriters, NeoStore neoStore,
+            CacheAccessBackDoor cacheAccess, LockService lockService, LegacyIndexApplierLookup legacyIndexProviderLookup,
+            IndexConfigStore indexConfigStore, IdOrderingQueue legacyIndexTransactionOrdering,
+            RelationshipChainCache relationshipChainCache )
     {
         this.indexingService = indexingService;
         this.labelScanWriters = labelScanWriters;
@@ -71,6 +84,7 @@ public class TransactionRepresentationStoreApplier
         this.legacyIndexProviderLookup = legacyIndexProviderLookup;
         this.indexConfigStore = indexConfigStore;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
+        this.relationshipChainCache = relationshipChainCache;
         labelScanStoreSync = new WorkSync<>( labelScanWriters );
     }
 
@@ -89,6 +103,13 @@ public class TransactionRepresentationStoreApplier
         {
             storeApplier = new CacheInvalidationTransactionApplier( storeApplier, neoStore, cacheAccess );
         }
+        if ( relationshipChainCache.isEnabled() )
+        {
+            // Unlike the other caches, the relationship chain cache isn't updated from transaction state,
+            // so it needs invalidation regardless of where the transaction comes from
+            storeApplier = new RelationshipChainCacheInvalidationApplier( storeApplier, neoStore,
+                    relationshipChainCache );
+        }
 
         // Schema index application
         IndexTransactionApplier indexApplier = new IndexTransactionApplier( indexingService, indexUpdates,
@@ -125,6 +146,6 @@ public class TransactionRepresentationStoreApplier
     {
         return new TransactionRepresentationStoreApplier( indexingService, labelScanWriters, neoStore, cacheAccess,
                                                           lockService, legacyIndexProviderLookup, indexConfigStore,
-                                                          legacyIndexTransactionOrdering );
+                                                          legacyIndexTransactionOrdering, relationshipChainCache );
     }
 }
@@ -20,6 +20,8 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -50,12 +52,15 @@ import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 
 /**
  * Represents one job of initially populating an index over existing data in the database.
- * Scans the store directly.
+ * Scans the store directly, through an {@link IndexPopulationScanner} which may share the scan with other jobs.
  */
 public class IndexPopulationJob implements Runnable
 {
     // NOTE: unbounded queue expected here
     private final Queue<NodePropertyUpdate> queue = new ConcurrentLinkedQueue<>();
+    // Updates taken from the queue, for nodes that the scan hasn't fed to the populator yet
+    private final PriorityQueue<DeferredUpdate> deferred = new PriorityQueue<>( 16, DeferredUpdate.NODE_ORDER );
+    private long deferredCount;
     private final IndexDescriptor descriptor;
 
     private final IndexConfiguration config;
@@ -65,6 +70,7 @@ public class IndexPopulationJob implements Runnable
     private final IndexPopulator populator;
     private final FlippableIndexProxy flipper;
     private final IndexStoreView storeView;
+    private final IndexPopulationScanner scanner;
     private final UpdateableSchemaState updateableSchemaState;
     private final String indexUserDescription;
     private final FailedIndexProxyFactory failureDelegate;
@@ -73,7 +79,7 @@ public class IndexPopulationJob implements Runnable
     private final IndexCountsRemover indexCountsRemover;
     private final CountDownLatch doneSignal = new CountDownLatch( 1 );
 
-    private volatile StoreScan<IndexPopulationFailedKernelException> storeScan;
+    private volatile IndexPopulationScanner.PopulationScan<IndexPopulationFailedKernelException> storeScan;
     private volatile boolean cancelled;
 
     public IndexPopulationJob(IndexDescriptor descriptor,
@@ -84,6 +90,7 @@ public class IndexPopulationJob implements Runnable
                               IndexPopulator populator,
                               FlippableIndexProxy flipper,
                               IndexStoreView storeView,
+                              IndexPopulationScanner scanner,
                               UpdateableSchemaState updateableSchemaState,
                               LogProvider logProvider,
                               IndexingService.Monitor monitor )
@@ -94,6 +101,7 @@ public class IndexPopulationJob implements Runnable
         this.populator = populator;
         this.flipper = flipper;
         this.storeView = storeView;
+        this.scanner = scanner;
         this.updateableSchemaState = updateableSchemaState;
         this.indexUserDescription = indexUserDescription;
         this.failureDelegate = failureDelegateFactory;
@@ -211,7 +219,7 @@ public class IndexPopulationJob implements Runnable
 
     private void indexAllNodes() throws IndexPopulationFailedKernelException
     {
-        storeScan = storeView.visitNodesWithPropertyAndLabel( descriptor,
+        storeScan = scanner.visitNodesWithPropertyAndLabel( descriptor,
                 new Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>()
                 {
                     @Override
@@ -248,24 +256,38 @@ public class IndexPopulationJob implements Runnable
     private void populateFromQueueIfAvailable( final long currentlyIndexedNodeId )
             throws IndexEntryConflictException, IndexCapacityExceededException, IOException
     {
-        if ( !queue.isEmpty() )
+        // Updates for nodes that the scan is still to read are dropped, since the scan will see their effect.
+        // A shared scan may however have read nodes ahead of feeding them to us, so updates for nodes that have
+        // been read but not fed are deferred, and applied in order once the scan has fed their node.
+        while ( !queue.isEmpty() )
+        {
+            // no need to check for null as nobody else is emptying this queue
+            NodePropertyUpdate update = queue.poll();
+            // The scan moves on concurrently, so how far it has read must be looked at after the update was taken.
+            // A node whose range is claimed from now on is read after the transaction behind the update wrote it.
+            if ( update.getNodeId() < unreadFrom( currentlyIndexedNodeId ) )
+            {
+                deferred.add( new DeferredUpdate( update, deferredCount++ ) );
+            }
+        }
+        if ( !deferred.isEmpty() && deferred.peek().update.getNodeId() <= currentlyIndexedNodeId )
         {
             try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
             {
                 do
                 {
-                    // no need to check for null as nobody else is emptying this queue
-                    NodePropertyUpdate update = queue.poll();
-                    // TODO: We see updates twice here from IndexStatisticsTest
-                    if ( update.getNodeId() <= currentlyIndexedNodeId )
-                    {
-                        updater.process( update );
-                    }
-                } while ( !queue.isEmpty() );
+                    updater.process( deferred.poll().update );
+                } while ( !deferred.isEmpty() && deferred.peek().update.getNodeId() <= currentlyIndexedNodeId );
             }
         }
     }
 
+    private long unreadFrom( long currentlyIndexedNodeId )
+    {
+        return currentlyIndexedNodeId == Long.MAX_VALUE
+               ? Long.MAX_VALUE : Math.max( currentlyIndexedNodeId + 1, storeScan.unreadFrom() );
+    }
+
     public Future<Void> cancel()
     {
         // Stop the population
@@ -298,4 +320,26 @@ public class IndexPopulationJob implements Runnable
         doneSignal.await();
     }
 
+    private static class DeferredUpdate
+    {
+        static final Comparator<DeferredUpdate> NODE_ORDER = new Comparator<DeferredUpdate>()
+        {
+            @Override
+            public int compare( DeferredUpdate o1, DeferredUpdate o2 )
+            {
+                int byNode = Long.compare( o1.update.getNodeId(), o2.update.getNodeId() );
+                return byNode != 0 ? byNode : Long.compare( o1.order, o2.order );
+            }
+        };
+
+        private final NodePropertyUpdate update;
+        private final long order;
+
+        DeferredUpdate( NodePropertyUpdate update, long order )
+        {
+            this.update = update;
+            this.order = order;
+        }
+    }
+
 }
@@ -0,0 +1,635 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.util.JobScheduler;
+
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.indexPopulation;
+
+/**
+ * Runs the store scans of {@link IndexPopulationJob index population jobs}. Populations that want to scan the store
+ * while another scan is running are batched up, and each batch is then served by a single pass over the node store.
+ * <p>
+ * A pass splits the node store into ranges of node ids which several workers read in parallel, also when the batch
+ * has only one population. The ranges are fed to the populations in node id order on the thread of one of the
+ * populations, so that each population still sees its nodes in order and from one thread at a time. That thread
+ * reads the next range itself when no worker has claimed it yet, so a pass makes progress even if no worker runs.
+ */
+public class IndexPopulationScanner
+{
+    static final int NODES_PER_RANGE = 10_000;
+    private static final int MAX_RANGES_AHEAD_PER_WORKER = 4;
+
+    private final IndexStoreView storeView;
+    private final JobScheduler scheduler;
+    private final int workers;
+    private final List<Population<?>> waiting = new ArrayList<>();
+    private boolean scanning;
+
+    public IndexPopulationScanner( IndexStoreView storeView, JobScheduler scheduler, int workers )
+    {
+        this.storeView = storeView;
+        this.scheduler = scheduler;
+        this.workers = workers;
+    }
+
+    /**
+     * Retrieve all nodes in the database with a given label and property, like
+     * {@link IndexStoreView#visitNodesWithPropertyAndLabel(IndexDescriptor, Visitor)}, but sharing the scan with
+     * other populations that are running at the same time.
+     *
+     * @return a {@link StoreScan} to start and to stop the scan.
+     */
+    public <FAILURE extends Exception> PopulationScan<FAILURE> visitNodesWithPropertyAndLabel(
+            IndexDescriptor descriptor, Visitor<NodePropertyUpdate, FAILURE> visitor )
+    {
+        return new Population<>( descriptor, visitor );
+    }
+
+    /**
+     * The scan of one population, which may read nodes from the store some time before feeding them.
+     */
+    public interface PopulationScan<FAILURE extends Exception> extends StoreScan<FAILURE>
+    {
+        /**
+         * @return a node id from which all nodes are still to be read from the store by this scan, or {@code -1} if
+         * nodes are fed as soon as they have been read, in which case that is the node after the last one fed.
+         */
+        long unreadFrom();
+    }
+
+    /**
+     * Waits until the given population has been served or stopped, or until it is its turn to serve all the
+     * populations that are waiting.
+     *
+     * @return the batch to serve, or {@code null} if the given population needs no more serving.
+     */
+    private synchronized BatchScan awaitTurn( Population<?> population )
+    {
+        boolean interrupted = false;
+        waiting.add( population );
+        while ( scanning && !population.served && !population.isStopped() )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if ( population.served || population.isStopped() )
+        {
+            waiting.remove( population );
+            return null;
+        }
+        BatchScan batch = new BatchScan( new ArrayList<>( waiting ) );
+        waiting.clear();
+        scanning = true;
+        return batch;
+    }
+
+    private synchronized void stopped( Population<?> population )
+    {
+        waiting.remove( population );
+        notifyAll();
+    }
+
+    private void serve( BatchScan batch )
+    {
+        try
+        {
+            batch.run();
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                for ( Population<?> population : batch.populations )
+                {
+                    population.served = true;
+                }
+                scanning = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private class Population<FAILURE extends Exception> implements PopulationScan<FAILURE>
+    {
+        private static final int IDLE = 0, FEEDING = 1, STOPPED = 2;
+
+        private final IndexDescriptor descriptor;
+        private final Visitor<NodePropertyUpdate, FAILURE> visitor;
+        private final AtomicInteger state = new AtomicInteger( IDLE );
+        // Released once this population is stopped and no thread is feeding it
+        private final CountDownLatch feedingStopped = new CountDownLatch( 1 );
+        private volatile BatchScan batch; // set by the scanner
+        private volatile Throwable failure;
+        private boolean served; // guarded by the scanner
+
+        Population( IndexDescriptor descriptor, Visitor<NodePropertyUpdate, FAILURE> visitor )
+        {
+            this.descriptor = descriptor;
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void run() throws FAILURE
+        {
+            if ( isStopped() )
+            {
+                return;
+            }
+            BatchScan batch = awaitTurn( this );
+            if ( batch != null )
+            {
+                serve( batch );
+            }
+            if ( isStopped() )
+            {
+                // The batch this population is in may be feeding it on another thread right now
+                awaitFeedingStopped();
+            }
+            rethrowFailure();
+        }
+
+        @Override
+        public void stop()
+        {
+            if ( state.getAndSet( STOPPED ) == IDLE )
+            {
+                feedingStopped.countDown();
+            }
+            // else the thread feeding this population releases it once done, or it was already stopped
+            stopped( this );
+            BatchScan scan = batch;
+            if ( scan != null )
+            {
+                scan.populationStopped();
+            }
+        }
+
+        @Override
+        public long unreadFrom()
+        {
+            BatchScan scan = batch;
+            return scan == null ? -1 : scan.unreadFrom();
+        }
+
+        boolean isStopped()
+        {
+            return state.get() == STOPPED;
+        }
+
+        /**
+         * Only ever called by the thread running the batch this population is in.
+         *
+         * @return {@code false} if this population is no longer interested in any more updates.
+         */
+        boolean feed( List<NodePropertyUpdate> updates )
+        {
+            if ( failure != null || !state.compareAndSet( IDLE, FEEDING ) )
+            {
+                return false;
+            }
+            try
+            {
+                for ( NodePropertyUpdate update : updates )
+                {
+                    if ( update.getPropertyKeyId() == descriptor.getPropertyKeyId() &&
+                         update.forLabel( descriptor.getLabelId() ) )
+                    {
+                        visitor.visit( update );
+                    }
+                }
+            }
+            catch ( Throwable t )
+            {
+                failure = t;
+            }
+            finally
+            {
+                if ( !state.compareAndSet( FEEDING, IDLE ) )
+                {
+                    // Stopped while being fed, hand it over to the thread waiting for that
+                    feedingStopped.countDown();
+                }
+            }
+            return failure == null && !isStopped();
+        }
+
+        void fail( Throwable cause )
+        {
+            if ( failure == null )
+            {
+                failure = cause;
+            }
+        }
+
+        private void awaitFeedingStopped()
+        {
+            boolean interrupted = false;
+            while ( true )
+            {
+                try
+                {
+                    feedingStopped.await();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private void rethrowFailure() throws FAILURE
+        {
+            Throwable cause = failure;
+            if ( cause == null )
+            {
+                return;
+            }
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            // Any other exception was thrown by the visitor
+            throw (FAILURE) cause;
+        }
+    }
+
+    /**
+     * One pass over the node store for several populations. Workers claim and read ranges of node ids, while the
+     * thread running the batch feeds the ranges that have been read to the populations, in order.
+     */
+    private class BatchScan
+    {
+        private final List<Population<?>> populations;
+        private final int[] labelIds;
+        private final int[] propertyKeyIds;
+        private final Map<Long, List<NodePropertyUpdate>> readRanges = new HashMap<>();
+        private final List<StoreScan<RuntimeException>> runningScans = new ArrayList<>();
+        private long nextRange;
+        private long fedRanges;
+        private int activeWorkers;
+        private boolean endReached;
+        private boolean aborted;
+        private Throwable failure;
+
+        BatchScan( List<Population<?>> populations )
+        {
+            this.populations = populations;
+            List<Integer> labels = new ArrayList<>();
+            List<Integer> propertyKeys = new ArrayList<>();
+            for ( Population<?> population : populations )
+            {
+                if ( !labels.contains( population.descriptor.getLabelId() ) )
+                {
+                    labels.add( population.descriptor.getLabelId() );
+                }
+                if ( !propertyKeys.contains( population.descriptor.getPropertyKeyId() ) )
+                {
+                    propertyKeys.add( population.descriptor.getPropertyKeyId() );
+                }
+            }
+            this.labelIds = toIntArray( labels );
+            this.propertyKeyIds = toIntArray( propertyKeys );
+            for ( Population<?> population : populations )
+            {
+                population.batch = this;
+            }
+        }
+
+        void run()
+        {
+            try
+            {
+                startWorkers();
+                for ( long range = 0; ; range++ )
+                {
+                    List<NodePropertyUpdate> updates = claimRange( range ) ? readRange( range ) : awaitRange( range );
+                    if ( updates == null || !feed( updates ) )
+                    {
+                        break;
+                    }
+                }
+            }
+            catch ( Throwable t )
+            {
+                fail( t );
+            }
+            finally
+            {
+                abortAndAwaitWorkers();
+            }
+
+            if ( failure != null )
+            {
+                for ( Population<?> population : populations )
+                {
+                    population.fail( failure );
+                }
+            }
+        }
+
+        private void startWorkers()
+        {
+            Runnable worker = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if ( workerStarted() )
+                    {
+                        try
+                        {
+                            readRanges();
+                        }
+                        finally
+                        {
+                            workerDone();
+                        }
+                    }
+                }
+            };
+            for ( int i = 0; i < workers; i++ )
+            {
+                scheduler.schedule( indexPopulation, worker );
+            }
+        }
+
+        private void readRanges()
+        {
+            try
+            {
+                long range;
+                while ( (range = claimRange()) != -1 )
+                {
+                    List<NodePropertyUpdate> updates = readRange( range );
+                    if ( updates != null )
+                    {
+                        rangeRead( range, updates );
+                    }
+                }
+            }
+            catch ( Throwable t )
+            {
+                fail( t );
+            }
+        }
+
+        /**
+         * @return the updates of the nodes in the given range, or {@code null} if the pass was aborted meanwhile.
+         */
+        private List<NodePropertyUpdate> readRange( long range )
+        {
+            final List<NodePropertyUpdate> updates = new ArrayList<>();
+            StoreScan<RuntimeException> scan = storeView.visitNodesInRange( range * NODES_PER_RANGE,
+                    (range + 1) * NODES_PER_RANGE, labelIds, propertyKeyIds,
+                    new Visitor<NodePropertyUpdate, RuntimeException>()
+                    {
+                        @Override
+                        public boolean visit( NodePropertyUpdate update )
+                        {
+                            updates.add( update );
+                            return false;
+                        }
+                    } );
+            if ( !scanStarted( scan ) )
+            {
+                return null;
+            }
+            try
+            {
+                scan.run();
+            }
+            finally
+            {
+                scanDone( scan );
+            }
+            return isAborted() ? null : updates;
+        }
+
+        private boolean feed( List<NodePropertyUpdate> updates )
+        {
+            boolean anyInterested = false;
+            for ( Population<?> population : populations )
+            {
+                anyInterested |= population.feed( updates );
+            }
+            return anyInterested;
+        }
+
+        /**
+         * @return the id of the next range for a worker to read, or {@code -1} if the workers should stop reading.
+         */
+        private synchronized long claimRange() throws InterruptedException
+        {
+            while ( !aborted && nextRange >= fedRanges + (long) MAX_RANGES_AHEAD_PER_WORKER * workers )
+            {
+                wait();
+            }
+            return claimNextRange();
+        }
+
+        /**
+         * Claims the given range, which is the next one to feed, for the feeding thread to read itself.
+         *
+         * @return {@code false} if a worker has claimed the range already, or if the pass has ended before it.
+         */
+        private synchronized boolean claimRange( long range )
+        {
+            fedRanges = range;
+            notifyAll();
+            return range == nextRange && claimNextRange() != -1;
+        }
+
+        private long claimNextRange()
+        {
+            if ( !aborted && !endReached && nextRange * NODES_PER_RANGE >= storeView.nodeHighId() )
+            {
+                // Nodes created from now on will not be read, and so must be fed from their updates alone
+                endReached = true;
+            }
+            return aborted || endReached ? -1 : nextRange++;
+        }
+
+        synchronized long unreadFrom()
+        {
+            // Ranges are claimed before they are read, and never past the high id, so all existing nodes
+            // at or after the first unclaimed range are still to be read
+            return endReached || aborted ? Long.MAX_VALUE : nextRange * NODES_PER_RANGE;
+        }
+
+        private synchronized void rangeRead( long range, List<NodePropertyUpdate> updates )
+        {
+            readRanges.put( range, updates );
+            notifyAll();
+        }
+
+        /**
+         * @return the updates read by a worker from the given range, or {@code null} if the pass has ended before it.
+         */
+        private synchronized List<NodePropertyUpdate> awaitRange( long range ) throws InterruptedException
+        {
+            List<NodePropertyUpdate> updates;
+            while ( (updates = readRanges.remove( range )) == null )
+            {
+                // A range that isn't claimed by now never will be
+                if ( aborted || range >= nextRange )
+                {
+                    return null;
+                }
+                wait();
+            }
+            return updates;
+        }
+
+        private synchronized boolean workerStarted()
+        {
+            if ( aborted )
+            {
+                return false;
+            }
+            activeWorkers++;
+            return true;
+        }
+
+        private synchronized void workerDone()
+        {
+            activeWorkers--;
+            notifyAll();
+        }
+
+        private synchronized boolean scanStarted( StoreScan<RuntimeException> scan )
+        {
+            if ( aborted )
+            {
+                return false;
+            }
+            runningScans.add( scan );
+            return true;
+        }
+
+        private synchronized void scanDone( StoreScan<RuntimeException> scan )
+        {
+            runningScans.remove( scan );
+        }
+
+        private synchronized boolean isAborted()
+        {
+            return aborted;
+        }
+
+        /**
+         * Aborts this pass, stopping the ranges being read, once all its populations have been stopped.
+         */
+        void populationStopped()
+        {
+            List<StoreScan<RuntimeException>> scansToStop;
+            synchronized ( this )
+            {
+                for ( Population<?> population : populations )
+                {
+                    if ( !population.isStopped() )
+                    {
+                        return;
+                    }
+                }
+                aborted = true;
+                notifyAll();
+                scansToStop = new ArrayList<>( runningScans );
+            }
+            for ( StoreScan<RuntimeException> scan : scansToStop )
+            {
+                scan.stop();
+            }
+        }
+
+        private synchronized void fail( Throwable cause )
+        {
+            if ( failure == null )
+            {
+                failure = cause;
+            }
+            aborted = true;
+            notifyAll();
+        }
+
+        private synchronized void abortAndAwaitWorkers()
+        {
+            aborted = true;
+            notifyAll();
+            boolean interrupted = false;
+            while ( activeWorkers > 0 )
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static int[] toIntArray( List<Integer> values )
+    {
+        int[] result = new int[values.size()];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            result[i] = values.get( i );
+        }
+        return result;
+    }
+}
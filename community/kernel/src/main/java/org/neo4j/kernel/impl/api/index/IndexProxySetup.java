@@ -41,6 +41,7 @@ public class IndexProxySetup
 {
     private final IndexSamplingConfig samplingConfig;
     private final IndexStoreView storeView;
+    private final IndexPopulationScanner populationScanner;
     private final SchemaIndexProviderMap providerMap;
     private final UpdateableSchemaState updateableSchemaState;
     private final TokenNameLookup tokenNameLookup;
@@ -49,6 +50,7 @@ public class IndexProxySetup
 
     public IndexProxySetup( IndexSamplingConfig samplingConfig,
                             IndexStoreView storeView,
+                            IndexPopulationScanner populationScanner,
                             SchemaIndexProviderMap providerMap,
                             UpdateableSchemaState updateableSchemaState,
                             TokenNameLookup tokenNameLookup,
@@ -57,6 +59,7 @@ public class IndexProxySetup
     {
         this.samplingConfig = samplingConfig;
         this.storeView = storeView;
+        this.populationScanner = populationScanner;
         this.providerMap = providerMap;
         this.updateableSchemaState = updateableSchemaState;
         this.tokenNameLookup = tokenNameLookup;
@@ -90,7 +93,8 @@ public class IndexProxySetup
 
         PopulatingIndexProxy populatingIndex =
                 new PopulatingIndexProxy( scheduler, descriptor, config, failureDelegateFactory, populator, flipper,
-                        storeView, updateableSchemaState, logProvider, indexUserDescription, providerDescriptor, monitor );
+                        storeView, populationScanner, updateableSchemaState, logProvider, indexUserDescription,
+                        providerDescriptor, monitor );
         flipper.flipTo( populatingIndex );
 
         // Prepare for flipping to online mode
@@ -47,6 +47,21 @@ public interface IndexStoreView extends PropertyAccessor
             Visitor<NodePropertyUpdate, FAILURE> propertyUpdateVisitor,
             Visitor<NodeLabelUpdate, FAILURE> labelUpdateVisitor );
 
+    /**
+     * Retrieve the nodes with ids in the range [{@code fromNodeId}, {@code toNodeId}) which has got one or more of
+     * the given labels AND one or more of the given property key ids. Scans over disjoint ranges can be run
+     * concurrently.
+     *
+     * @return a {@link StoreScan} to start and to stop the scan.
+     */
+    <FAILURE extends Exception> StoreScan<FAILURE> visitNodesInRange( long fromNodeId, long toNodeId,
+            int[] labelIds, int[] propertyKeyIds, Visitor<NodePropertyUpdate, FAILURE> propertyUpdateVisitor );
+
+    /**
+     * @return the high id of the node store, i.e. all nodes in the database have ids lower than this.
+     */
+    long nodeHighId();
+
     Iterable<NodePropertyUpdate> nodeAsUpdates( long nodeId );
 
     DoubleLongRegister indexUpdatesAndSize( IndexDescriptor descriptor, DoubleLongRegister output );
@@ -37,6 +37,7 @@ import org.neo4j.function.BiConsumer;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.api.TokenNameLookup;
 import org.neo4j.kernel.api.exceptions.index.IndexActivationFailedKernelException;
 import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
@@ -45,6 +46,7 @@ import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelExceptio
 import org.neo4j.kernel.api.exceptions.schema.ConstraintVerificationFailedKernelException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexHistogram;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -56,6 +58,7 @@ import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingController;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingControllerFactory;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingMode;
+import org.neo4j.kernel.impl.api.index.sampling.IndexValueSamples;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.util.JobScheduler;
@@ -90,6 +93,7 @@ import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 public class IndexingService extends LifecycleAdapter
 {
     private final IndexSamplingController samplingController;
+    private final IndexValueSamples valueSamples;
     private final IndexProxySetup proxySetup;
     private final IndexStoreView storeView;
     private final SchemaIndexProviderMap providerMap;
@@ -156,6 +160,7 @@ public class IndexingService extends LifecycleAdapter
                                IndexStoreView storeView,
                                Iterable<IndexRule> indexRules,
                                IndexSamplingController samplingController,
+                               IndexValueSamples valueSamples,
                                TokenNameLookup tokenNameLookup,
                                LogProvider logProvider,
                                Monitor monitor )
@@ -166,6 +171,7 @@ public class IndexingService extends LifecycleAdapter
         this.storeView = storeView;
         this.indexRules = indexRules;
         this.samplingController = samplingController;
+        this.valueSamples = valueSamples;
         this.tokenNameLookup = tokenNameLookup;
         this.monitor = monitor;
         this.log = logProvider.getLog( getClass() );
@@ -179,6 +185,39 @@ public class IndexingService extends LifecycleAdapter
                                           UpdateableSchemaState updateableSchemaState,
                                           Iterable<IndexRule> indexRules,
                                           LogProvider logProvider, Monitor monitor )
+    {
+        return create( samplingConfig, scheduler, providerMap, storeView, tokenNameLookup, updateableSchemaState,
+                indexRules, logProvider, monitor, 1 );
+    }
+
+    public static IndexingService create( IndexSamplingConfig samplingConfig,
+                                          JobScheduler scheduler,
+                                          SchemaIndexProviderMap providerMap,
+                                          IndexStoreView storeView,
+                                          TokenNameLookup tokenNameLookup,
+                                          UpdateableSchemaState updateableSchemaState,
+                                          Iterable<IndexRule> indexRules,
+                                          LogProvider logProvider, Monitor monitor,
+                                          int populationParallelism )
+    {
+        return create( samplingConfig, scheduler, providerMap, storeView, tokenNameLookup, updateableSchemaState,
+                indexRules, logProvider, monitor, populationParallelism, null, null );
+    }
+
+    /**
+     * @param fs the file system of the file that the value samples of the indexes are kept in between restarts,
+     * or {@code null} to not keep them.
+     */
+    public static IndexingService create( IndexSamplingConfig samplingConfig,
+                                          JobScheduler scheduler,
+                                          SchemaIndexProviderMap providerMap,
+                                          IndexStoreView storeView,
+                                          TokenNameLookup tokenNameLookup,
+                                          UpdateableSchemaState updateableSchemaState,
+                                          Iterable<IndexRule> indexRules,
+                                          LogProvider logProvider, Monitor monitor,
+                                          int populationParallelism,
+                                          FileSystemAbstraction fs, File valueSamplesFile )
     {
         if ( providerMap == null || providerMap.getDefaultProvider() == null )
         {
@@ -189,15 +228,18 @@ public class IndexingService extends LifecycleAdapter
         }
 
         IndexMapReference indexMapRef = new IndexMapReference();
-        IndexSamplingControllerFactory factory =
-                new IndexSamplingControllerFactory( samplingConfig, storeView, scheduler, tokenNameLookup, logProvider );
+        IndexValueSamples valueSamples =
+                new IndexValueSamples( samplingConfig, fs, valueSamplesFile, logProvider );
+        IndexSamplingControllerFactory factory = new IndexSamplingControllerFactory(
+                samplingConfig, valueSamples, storeView, scheduler, tokenNameLookup, logProvider );
         IndexSamplingController indexSamplingController = factory.create( indexMapRef );
-        IndexProxySetup proxySetup = new IndexProxySetup(
-                samplingConfig, storeView, providerMap, updateableSchemaState, tokenNameLookup, scheduler, logProvider
-        );
+        IndexPopulationScanner populationScanner =
+                new IndexPopulationScanner( storeView, scheduler, populationParallelism );
+        IndexProxySetup proxySetup = new IndexProxySetup( samplingConfig, storeView, populationScanner, providerMap,
+                updateableSchemaState, tokenNameLookup, scheduler, logProvider );
 
         return new IndexingService( proxySetup, providerMap, indexMapRef, storeView, indexRules,
-                indexSamplingController, tokenNameLookup, logProvider, monitor );
+                indexSamplingController, valueSamples, tokenNameLookup, logProvider, monitor );
     }
 
     /**
@@ -207,6 +249,7 @@ public class IndexingService extends LifecycleAdapter
     public void init()
     {
         IndexMap indexMap = indexMapRef.indexMapSnapshot();
+        Set<IndexDescriptor> onlineDescriptors = new HashSet<>();
 
         for ( IndexRule indexRule : indexRules )
         {
@@ -239,9 +282,14 @@ public class IndexingService extends LifecycleAdapter
                     throw new IllegalArgumentException( "" + initialState );
             }
             indexMap.putIndexProxy( indexId, indexProxy );
+            if ( initialState == InternalIndexState.ONLINE )
+            {
+                onlineDescriptors.add( descriptor );
+            }
         }
 
         indexMapRef.setIndexMap( indexMap );
+        valueSamples.load( onlineDescriptors );
     }
 
     // Recovery semantics: This is to be called after init, and after the database has run recovery.
@@ -316,6 +364,7 @@ public class IndexingService extends LifecycleAdapter
     {
         state = State.STOPPED;
         closeAllIndexes();
+        valueSamples.store();
     }
 
     public DoubleLongRegister indexUpdatesAndSize( long indexId ) throws IndexNotFoundKernelException
@@ -351,6 +400,12 @@ public class IndexingService extends LifecycleAdapter
         }
     }
 
+    public IndexHistogram indexHistogram( long indexId ) throws IndexNotFoundKernelException
+    {
+        final IndexProxy indexProxy = indexMapRef.getOnlineIndexProxy( indexId );
+        return valueSamples.histogram( indexProxy.getDescriptor() );
+    }
+
     /*
      * Creates an index.
      *
@@ -384,6 +439,7 @@ public class IndexingService extends LifecycleAdapter
             return;
         }
         final IndexDescriptor descriptor = new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() );
+        valueSamples.remove( descriptor );
         SchemaIndexProvider.Descriptor providerDescriptor = rule.getProviderDescriptor();
         boolean constraint = rule.isConstraintIndex();
         if ( state == State.RUNNING )
@@ -416,7 +472,11 @@ public class IndexingService extends LifecycleAdapter
                     "Can't queue recovered node ids " + nodeIds + " while indexing service is " + state );
         }
 
-        recoveredNodeIds.addAll( nodeIds.iterator() );
+        // Recovery may apply transactions from multiple threads
+        synchronized ( recoveredNodeIds )
+        {
+            recoveredNodeIds.addAll( nodeIds.iterator() );
+        }
     }
 
     public ValidatedIndexUpdates validate( Iterable<NodePropertyUpdate> updates )
@@ -457,7 +517,7 @@ public class IndexingService extends LifecycleAdapter
             }
 
             ValidatedIndexUpdates validatedUpdates =
-                    newValidatedIndexUpdates( updaterMap, updatesByIndex, aggregatedReservation );
+                    newValidatedIndexUpdates( updaterMap, updatesByIndex, aggregatedReservation, valueSamples );
 
             updaterMapShouldBeClosed = false;
 
@@ -503,7 +563,8 @@ public class IndexingService extends LifecycleAdapter
     }
 
     private static ValidatedIndexUpdates newValidatedIndexUpdates( final IndexUpdaterMap indexUpdaters,
-            final Map<IndexDescriptor,List<NodePropertyUpdate>> updatesByIndex, final Reservation reservation )
+            final Map<IndexDescriptor,List<NodePropertyUpdate>> updatesByIndex, final Reservation reservation,
+            final IndexValueSamples valueSamples )
     {
         return new ValidatedIndexUpdates()
         {
@@ -519,6 +580,7 @@ public class IndexingService extends LifecycleAdapter
                     for ( NodePropertyUpdate update : updates )
                     {
                         updater.process( update );
+                        valueSamples.update( indexDescriptor, update );
                     }
                 }
             }
@@ -674,6 +736,7 @@ public class IndexingService extends LifecycleAdapter
     {
         long indexId = rule.getId();
         IndexProxy index = indexMapRef.removeIndexProxy( indexId );
+        valueSamples.remove( new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() ) );
         if ( state == State.RUNNING )
         {
             assert index != null : "Index " + rule + " doesn't exists";
@@ -692,6 +755,10 @@ public class IndexingService extends LifecycleAdapter
     public void triggerIndexSampling( IndexSamplingMode mode )
     {
         log.info( "Manual trigger for sampling all indexes [" + mode + "]" );
+        if ( mode == IndexSamplingMode.TRIGGER_REBUILD_ALL )
+        {
+            valueSamples.clear();
+        }
         samplingController.sampleIndexes( mode );
     }
 
@@ -699,6 +766,10 @@ public class IndexingService extends LifecycleAdapter
     {
         String description = descriptor.userDescription( tokenNameLookup );
         log.info( "Manual trigger for sampling index " + description + " [" + mode + "]" );
+        if ( mode == IndexSamplingMode.TRIGGER_REBUILD_ALL )
+        {   // samples the values from the store again, rather than trusting the sample kept up to date
+            valueSamples.remove( descriptor );
+        }
         samplingController.sampleIndex( descriptor, mode );
     }
 
@@ -63,6 +63,7 @@ public class PopulatingIndexProxy implements IndexProxy
                                  IndexPopulator writer,
                                  FlippableIndexProxy flipper,
                                  IndexStoreView storeView,
+                                 IndexPopulationScanner populationScanner,
                                  UpdateableSchemaState updateableSchemaState,
                                  LogProvider logProvider,
                                  String indexUserDescription,
@@ -74,7 +75,7 @@ public class PopulatingIndexProxy implements IndexProxy
         this.configuration = configuration;
         this.providerDescriptor = providerDescriptor;
         this.job = new IndexPopulationJob( descriptor, configuration, providerDescriptor,
-                indexUserDescription, failureDelegateFactory, writer, flipper, storeView,
+                indexUserDescription, failureDelegateFactory, writer, flipper, storeView, populationScanner,
                 updateableSchemaState, logProvider, monitor );
     }
 
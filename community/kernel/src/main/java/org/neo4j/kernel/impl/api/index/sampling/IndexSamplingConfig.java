@@ -27,12 +27,16 @@ public class IndexSamplingConfig
     private final int bufferSize;
     private final double updateRatio;
     private final boolean backgroundSampling;
+    private final int valueSampleSize;
+    private final int histogramBuckets;
 
     public IndexSamplingConfig( Config config )
     {
         this.bufferSize = config.get( GraphDatabaseSettings.index_sampling_buffer_size ).intValue();
         this.updateRatio = ((double) config.get( GraphDatabaseSettings.index_sampling_update_percentage )) / 100.0d;
         this.backgroundSampling = config.get( GraphDatabaseSettings.index_background_sampling_enabled );
+        this.valueSampleSize = config.get( GraphDatabaseSettings.index_sampling_value_sample_size );
+        this.histogramBuckets = config.get( GraphDatabaseSettings.index_sampling_histogram_buckets );
     }
 
     public int bufferSize()
@@ -55,6 +59,16 @@ public class IndexSamplingConfig
         return backgroundSampling;
     }
 
+    public int valueSampleSize()
+    {
+        return valueSampleSize;
+    }
+
+    public int histogramBuckets()
+    {
+        return histogramBuckets;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -72,6 +86,8 @@ public class IndexSamplingConfig
 
         return backgroundSampling == that.backgroundSampling &&
                bufferSize == that.bufferSize &&
+               valueSampleSize == that.valueSampleSize &&
+               histogramBuckets == that.histogramBuckets &&
                Double.compare( that.updateRatio, updateRatio ) == 0;
     }
 
@@ -82,6 +98,8 @@ public class IndexSamplingConfig
         long temp = Double.doubleToLongBits( updateRatio );
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         result = 31 * result + (backgroundSampling ? 1 : 0);
+        result = 31 * result + valueSampleSize;
+        result = 31 * result + histogramBuckets;
         return result;
     }
 }
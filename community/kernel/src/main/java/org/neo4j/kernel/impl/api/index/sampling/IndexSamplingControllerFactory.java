@@ -34,16 +34,18 @@ import static org.neo4j.register.Registers.newDoubleLongRegister;
 public class IndexSamplingControllerFactory
 {
     private final IndexSamplingConfig config;
+    private final IndexValueSamples valueSamples;
     private final IndexStoreView storeView;
     private final JobScheduler scheduler;
     private final TokenNameLookup tokenNameLookup;
     private final LogProvider logProvider;
 
-    public IndexSamplingControllerFactory( IndexSamplingConfig config, IndexStoreView storeView,
-                                           JobScheduler scheduler, TokenNameLookup tokenNameLookup,
-                                           LogProvider logProvider )
+    public IndexSamplingControllerFactory( IndexSamplingConfig config, IndexValueSamples valueSamples,
+                                           IndexStoreView storeView, JobScheduler scheduler,
+                                           TokenNameLookup tokenNameLookup, LogProvider logProvider )
     {
         this.config = config;
+        this.valueSamples = valueSamples;
         this.storeView = storeView;
         this.scheduler = scheduler;
         this.tokenNameLookup = tokenNameLookup;
@@ -53,7 +55,7 @@ public class IndexSamplingControllerFactory
     public IndexSamplingController create( IndexMapSnapshotProvider snapshotProvider )
     {
         OnlineIndexSamplingJobFactory jobFactory =
-                new OnlineIndexSamplingJobFactory( storeView, tokenNameLookup, logProvider );
+                new OnlineIndexSamplingJobFactory( storeView, valueSamples, tokenNameLookup, logProvider );
         Predicate<IndexDescriptor> samplingUpdatePredicate = createSamplingPredicate();
         IndexSamplingJobQueue<IndexDescriptor> jobQueue = new IndexSamplingJobQueue<>( samplingUpdatePredicate );
         IndexSamplingJobTracker jobTracker = new IndexSamplingJobTracker( config, scheduler );
@@ -72,6 +74,11 @@ public class IndexSamplingControllerFactory
             @Override
             public boolean test( IndexDescriptor descriptor )
             {
+                if ( !valueSamples.isSampled( descriptor ) )
+                {
+                    // The values of the index haven't been sampled since startup or since it was created
+                    return true;
+                }
                 storeView.indexUpdatesAndSize( descriptor, output );
                 long updates = output.readFirst();
                 long size = output.readSecond();
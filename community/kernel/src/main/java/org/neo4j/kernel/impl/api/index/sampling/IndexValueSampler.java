@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.neo4j.helpers.ArrayUtil;
+import org.neo4j.kernel.api.index.IndexHistogram;
+import org.neo4j.register.Register.DoubleLong;
+
+/**
+ * Keeps a uniform sample of the values in an index, as values are added to and removed from it. Values are sampled
+ * with a reservoir, and removals are compensated for by later additions, as in random pairing. This keeps the sample
+ * uniform without ever having to re-scan the index.
+ * <p>
+ * The slots that each value takes in the sample are kept in a hash map, so that removing a value doesn't have to
+ * search the sample for it.
+ */
+public class IndexValueSampler
+{
+    private static final Class<?>[] VALUE_TYPES = {Boolean.class, Byte.class, Short.class, Character.class,
+            Integer.class, Long.class, Float.class, Double.class, String.class};
+    private static final Class<?>[] ARRAY_TYPES = {boolean.class, byte.class, short.class, char.class,
+            int.class, long.class, float.class, double.class, String.class};
+    private static final int ARRAY = VALUE_TYPES.length;
+
+    private final Object[] sample;
+    // For each slot in the sample, where the slot is in the slots of its value
+    private final int[] positions;
+    private final Map<Object,Slots> slotsByValue = new HashMap<>();
+    private final Random random;
+    private int sampled;
+    private long size;
+    // Removals not yet compensated for by additions, of values that were in the sample and values that weren't
+    private long removedFromSample;
+    private long removedOutsideSample;
+    private volatile boolean complete;
+
+    public IndexValueSampler( int sampleSize )
+    {
+        this( sampleSize, new Random() );
+    }
+
+    IndexValueSampler( int sampleSize, Random random )
+    {
+        this.sample = new Object[sampleSize];
+        this.positions = new int[sampleSize];
+        this.random = random;
+    }
+
+    public synchronized void include( Object value )
+    {
+        Object key = keyOf( value );
+        size++;
+        long uncompensated = removedFromSample + removedOutsideSample;
+        if ( uncompensated > 0 )
+        {
+            if ( random.nextDouble() * uncompensated < removedFromSample )
+            {
+                place( sampled++, key );
+                removedFromSample--;
+            }
+            else
+            {
+                removedOutsideSample--;
+            }
+        }
+        else if ( sampled < sample.length )
+        {
+            place( sampled++, key );
+        }
+        else
+        {
+            long slot = (long) (random.nextDouble() * size);
+            if ( slot < sample.length )
+            {
+                release( (int) slot );
+                place( (int) slot, key );
+            }
+        }
+    }
+
+    public synchronized void exclude( Object value )
+    {
+        if ( size == 0 )
+        {
+            return;
+        }
+        size--;
+        Slots slots = slotsByValue.get( keyOf( value ) );
+        if ( slots != null )
+        {
+            int slot = slots.slots[slots.count - 1];
+            release( slot );
+            int last = --sampled;
+            if ( slot != last )
+            {
+                Object moved = sample[last];
+                release( last );
+                place( slot, moved );
+            }
+            removedFromSample++;
+        }
+        else
+        {
+            removedOutsideSample++;
+        }
+    }
+
+    private void place( int slot, Object key )
+    {
+        Slots slots = slotsByValue.get( key );
+        if ( slots == null )
+        {
+            slots = new Slots();
+            slotsByValue.put( key, slots );
+        }
+        positions[slot] = slots.add( slot );
+        sample[slot] = key;
+    }
+
+    private void release( int slot )
+    {
+        Object key = sample[slot];
+        Slots slots = slotsByValue.get( key );
+        int moved = slots.remove( positions[slot] );
+        if ( moved != -1 )
+        {
+            positions[moved] = positions[slot];
+        }
+        if ( slots.count == 0 )
+        {
+            slotsByValue.remove( key );
+        }
+        sample[slot] = null;
+    }
+
+    /**
+     * Marks that all values in the index have been included, up until then the sampler only knows of some of them.
+     */
+    public void markComplete()
+    {
+        complete = true;
+    }
+
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * Writes the number of unique values in the sample and the size of the sample to the given register, the way
+     * that a full sampling of the index does.
+     *
+     * @return the number of values in the index.
+     */
+    public synchronized long sampleIndex( DoubleLong.Out result )
+    {
+        result.write( slotsByValue.size(), sampled );
+        return size;
+    }
+
+    public IndexHistogram histogram( int buckets )
+    {
+        Object[] values;
+        long indexSize;
+        synchronized ( this )
+        {
+            values = new Object[sampled];
+            int histogrammable = 0;
+            for ( int i = 0; i < sampled; i++ )
+            {
+                if ( IndexHistogram.isHistogrammable( sample[i] ) )
+                {
+                    values[histogrammable++] = sample[i];
+                }
+            }
+            values = Arrays.copyOf( values, histogrammable );
+            // The histogram only covers the values that can be ordered, so its size is estimated from their share
+            indexSize = sampled == 0 ? 0 : Math.round( (double) size * histogrammable / sampled );
+        }
+        return IndexHistogram.equiDepth( indexSize, values, buckets );
+    }
+
+    synchronized void writeTo( DataOutput out ) throws IOException
+    {
+        out.writeInt( sample.length );
+        out.writeLong( size );
+        out.writeLong( removedFromSample );
+        out.writeLong( removedOutsideSample );
+        out.writeInt( sampled );
+        for ( int i = 0; i < sampled; i++ )
+        {
+            Object value = sample[i];
+            if ( value instanceof ArrayValue )
+            {
+                Object array = ((ArrayValue) value).array;
+                int length = Array.getLength( array );
+                out.writeByte( ARRAY );
+                out.writeByte( typeOf( ARRAY_TYPES, array.getClass().getComponentType() ) );
+                out.writeInt( length );
+                for ( int j = 0; j < length; j++ )
+                {
+                    writeValue( out, Array.get( array, j ) );
+                }
+            }
+            else
+            {
+                writeValue( out, value );
+            }
+        }
+    }
+
+    /**
+     * Reads a sample written by {@link #writeTo(DataOutput)}, which is complete if it was complete when written.
+     *
+     * @return the sampler, or {@code null} if the sample was written for another sample size.
+     */
+    static IndexValueSampler readFrom( DataInput in, int sampleSize ) throws IOException
+    {
+        if ( in.readInt() != sampleSize )
+        {
+            return null;
+        }
+        IndexValueSampler sampler = new IndexValueSampler( sampleSize );
+        sampler.size = in.readLong();
+        sampler.removedFromSample = in.readLong();
+        sampler.removedOutsideSample = in.readLong();
+        int sampled = in.readInt();
+        if ( sampled < 0 || sampled > sampleSize )
+        {
+            throw new IOException( "Sample of " + sampled + " values doesn't fit a sample size of " + sampleSize );
+        }
+        for ( int i = 0; i < sampled; i++ )
+        {
+            int type = in.readByte();
+            Object value;
+            if ( type == ARRAY )
+            {
+                Class<?> componentType = ARRAY_TYPES[checkType( in.readByte() )];
+                int length = in.readInt();
+                if ( length < 0 )
+                {
+                    throw new IOException( "Negative length of array index value " + length );
+                }
+                value = Array.newInstance( componentType, length );
+                for ( int j = 0; j < Array.getLength( value ); j++ )
+                {
+                    Array.set( value, j, readValue( in, in.readByte() ) );
+                }
+            }
+            else
+            {
+                value = readValue( in, type );
+            }
+            sampler.place( sampler.sampled++, keyOf( value ) );
+        }
+        sampler.markComplete();
+        return sampler;
+    }
+
+    private static void writeValue( DataOutput out, Object value ) throws IOException
+    {
+        int type = typeOf( VALUE_TYPES, value.getClass() );
+        out.writeByte( type );
+        switch ( type )
+        {
+        case 0:
+            out.writeBoolean( (Boolean) value );
+            break;
+        case 1:
+            out.writeByte( (Byte) value );
+            break;
+        case 2:
+            out.writeShort( (Short) value );
+            break;
+        case 3:
+            out.writeChar( (Character) value );
+            break;
+        case 4:
+            out.writeInt( (Integer) value );
+            break;
+        case 5:
+            out.writeLong( (Long) value );
+            break;
+        case 6:
+            out.writeFloat( (Float) value );
+            break;
+        case 7:
+            out.writeDouble( (Double) value );
+            break;
+        default:
+            String string = (String) value;
+            out.writeInt( string.length() );
+            out.writeChars( string );
+        }
+    }
+
+    private static Object readValue( DataInput in, int type ) throws IOException
+    {
+        switch ( checkType( type ) )
+        {
+        case 0:
+            return in.readBoolean();
+        case 1:
+            return in.readByte();
+        case 2:
+            return in.readShort();
+        case 3:
+            return in.readChar();
+        case 4:
+            return in.readInt();
+        case 5:
+            return in.readLong();
+        case 6:
+            return in.readFloat();
+        case 7:
+            return in.readDouble();
+        default:
+            int length = in.readInt();
+            if ( length < 0 )
+            {
+                throw new IOException( "Negative length of string index value " + length );
+            }
+            char[] chars = new char[length];
+            for ( int i = 0; i < chars.length; i++ )
+            {
+                chars[i] = in.readChar();
+            }
+            return new String( chars );
+        }
+    }
+
+    private static int typeOf( Class<?>[] types, Class<?> type ) throws IOException
+    {
+        for ( int i = 0; i < types.length; i++ )
+        {
+            if ( types[i] == type )
+            {
+                return i;
+            }
+        }
+        throw new IOException( "Can't write index values of type " + type.getName() );
+    }
+
+    private static int checkType( int type ) throws IOException
+    {
+        if ( type < 0 || type >= ARRAY )
+        {
+            throw new IOException( "Unknown type of index value " + type );
+        }
+        return type;
+    }
+
+    private static Object keyOf( Object value )
+    {
+        return value.getClass().isArray() ? new ArrayValue( value ) : value;
+    }
+
+    /**
+     * The slots in the sample that hold one value.
+     */
+    private static class Slots
+    {
+        private int[] slots = new int[1];
+        private int count;
+
+        /**
+         * @return the position of the added slot.
+         */
+        int add( int slot )
+        {
+            if ( count == slots.length )
+            {
+                slots = Arrays.copyOf( slots, count * 2 );
+            }
+            slots[count] = slot;
+            return count++;
+        }
+
+        /**
+         * Removes the slot at the given position by moving the last slot into its place.
+         *
+         * @return the slot that was moved into the position, or {@code -1} if it was the last one.
+         */
+        int remove( int position )
+        {
+            count--;
+            if ( position == count )
+            {
+                return -1;
+            }
+            slots[position] = slots[count];
+            return slots[position];
+        }
+    }
+
+    /**
+     * Gives arrays the equality of their items, so that they can be looked up in the sample.
+     */
+    private static class ArrayValue
+    {
+        private final Object array;
+
+        ArrayValue( Object array )
+        {
+            this.array = array;
+        }
+
+        @Override
+        public boolean equals( Object other )
+        {
+            return other instanceof ArrayValue && ArrayUtil.equals( array, ((ArrayValue) other).array );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ArrayUtil.hashCode( array );
+        }
+    }
+}
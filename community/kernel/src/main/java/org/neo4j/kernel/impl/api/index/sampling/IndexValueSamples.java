@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexHistogram;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.api.index.IndexStoreView;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.register.Register.DoubleLong;
+
+/**
+ * The {@link IndexValueSampler value samples} of the indexes, kept up to date by the updates applied to the indexes.
+ * An index gets its sample the first time that it's sampled, after that the sample is maintained incrementally.
+ * <p>
+ * The samples are written to a file at shutdown, and read back at startup. The file is deleted once it has been
+ * read, so that samples that missed the updates of a crash are never read back.
+ */
+public class IndexValueSamples
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private final ConcurrentMap<IndexDescriptor,IndexValueSampler> samplers = new ConcurrentHashMap<>();
+    private final int sampleSize;
+    private final int buckets;
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final Log log;
+
+    public IndexValueSamples( IndexSamplingConfig config )
+    {
+        this( config, null, null, NullLogProvider.getInstance() );
+    }
+
+    /**
+     * @param fs the file system of the file to keep the samples in between restarts, or {@code null} to not keep
+     * them at all.
+     */
+    public IndexValueSamples( IndexSamplingConfig config, FileSystemAbstraction fs, File file,
+            LogProvider logProvider )
+    {
+        this( config.valueSampleSize(), config.histogramBuckets(), fs, file, logProvider );
+    }
+
+    public IndexValueSamples( int sampleSize, int buckets )
+    {
+        this( sampleSize, buckets, null, null, NullLogProvider.getInstance() );
+    }
+
+    IndexValueSamples( int sampleSize, int buckets, FileSystemAbstraction fs, File file, LogProvider logProvider )
+    {
+        this.sampleSize = sampleSize;
+        this.buckets = buckets;
+        this.fs = fs;
+        this.file = file;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    public void update( IndexDescriptor descriptor, NodePropertyUpdate update )
+    {
+        IndexValueSampler sampler = samplers.get( descriptor );
+        if ( sampler == null )
+        {
+            return;
+        }
+        switch ( update.getUpdateMode() )
+        {
+        case ADDED:
+            sampler.include( update.getValueAfter() );
+            break;
+        case CHANGED:
+            sampler.exclude( update.getValueBefore() );
+            sampler.include( update.getValueAfter() );
+            break;
+        case REMOVED:
+            sampler.exclude( update.getValueBefore() );
+            break;
+        default:
+            throw new IllegalStateException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    public boolean isSampled( IndexDescriptor descriptor )
+    {
+        IndexValueSampler sampler = samplers.get( descriptor );
+        return sampler != null && sampler.isComplete();
+    }
+
+    /**
+     * Samples the values of the given index from the store. Updates applied while this is going on are included
+     * in the sample too, so the sample is approximate in the face of concurrent updates to the same nodes.
+     */
+    public void sample( IndexDescriptor descriptor, IndexStoreView storeView )
+    {
+        final IndexValueSampler sampler = new IndexValueSampler( sampleSize );
+        samplers.put( descriptor, sampler );
+        storeView.visitNodesWithPropertyAndLabel( descriptor, new Visitor<NodePropertyUpdate,RuntimeException>()
+        {
+            @Override
+            public boolean visit( NodePropertyUpdate update )
+            {
+                sampler.include( update.getValueAfter() );
+                return false;
+            }
+        } ).run();
+        sampler.markComplete();
+    }
+
+    /**
+     * Writes the number of unique values in the value sample of the given index, and the size of the sample, to the
+     * given register. This gives the same counts as a full sampling of the index, without scanning it.
+     *
+     * @return the number of values in the index, or {@code -1} if its values haven't been sampled, for example if
+     * it was dropped while it was being sampled.
+     */
+    public long sampleIndex( IndexDescriptor descriptor, DoubleLong.Out result )
+    {
+        IndexValueSampler sampler = samplers.get( descriptor );
+        return sampler != null && sampler.isComplete() ? sampler.sampleIndex( result ) : -1;
+    }
+
+    public void remove( IndexDescriptor descriptor )
+    {
+        samplers.remove( descriptor );
+    }
+
+    public void clear()
+    {
+        samplers.clear();
+    }
+
+    /**
+     * @return the histogram of the values in the given index, or {@link IndexHistogram#EMPTY} if it hasn't been
+     * sampled yet.
+     */
+    public IndexHistogram histogram( IndexDescriptor descriptor )
+    {
+        IndexValueSampler sampler = samplers.get( descriptor );
+        return sampler != null && sampler.isComplete() ? sampler.histogram( buckets ) : IndexHistogram.EMPTY;
+    }
+
+    /**
+     * Reads back the samples written at the last shutdown, of those of the given indexes that they were written for.
+     */
+    public void load( Set<IndexDescriptor> descriptors )
+    {
+        if ( fs == null || !fs.fileExists( file ) )
+        {
+            return;
+        }
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) ) )
+        {
+            if ( in.readInt() != FORMAT_VERSION )
+            {
+                log.warn( "Index value samples of an unknown format found, the indexes will be sampled again." );
+                return;
+            }
+            for ( int count = in.readInt(); count > 0; count-- )
+            {
+                IndexDescriptor descriptor = new IndexDescriptor( in.readInt(), in.readInt() );
+                IndexValueSampler sampler = IndexValueSampler.readFrom( in, sampleSize );
+                if ( sampler != null && descriptors.contains( descriptor ) )
+                {
+                    samplers.put( descriptor, sampler );
+                }
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            log.warn( "Unable to read index value samples, the indexes will be sampled again.", e );
+            samplers.clear();
+        }
+        finally
+        {
+            fs.deleteFile( file );
+        }
+    }
+
+    /**
+     * Writes the complete samples to the file that they are {@link #load(Set) loaded} from at startup.
+     */
+    public void store()
+    {
+        if ( fs == null )
+        {
+            return;
+        }
+        Map<IndexDescriptor,byte[]> written = new HashMap<>();
+        for ( Map.Entry<IndexDescriptor,IndexValueSampler> entry : samplers.entrySet() )
+        {
+            if ( entry.getValue().isComplete() )
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try
+                {
+                    entry.getValue().writeTo( new DataOutputStream( bytes ) );
+                    written.put( entry.getKey(), bytes.toByteArray() );
+                }
+                catch ( IOException e )
+                {
+                    // Has a value that can't be written, so it's left to be sampled again after restart
+                    log.warn( "Unable to write the value sample of " + entry.getKey(), e );
+                }
+            }
+        }
+        try
+        {
+            fs.mkdirs( file.getParentFile() );
+            try ( DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream( fs.openAsOutputStream( file, false ) ) ) )
+            {
+                out.writeInt( FORMAT_VERSION );
+                out.writeInt( written.size() );
+                for ( Map.Entry<IndexDescriptor,byte[]> entry : written.entrySet() )
+                {
+                    out.writeInt( entry.getKey().getLabelId() );
+                    out.writeInt( entry.getKey().getPropertyKeyId() );
+                    out.write( entry.getValue() );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Unable to write index value samples, the indexes will be sampled again after restart.", e );
+            fs.deleteFile( file );
+        }
+    }
+}
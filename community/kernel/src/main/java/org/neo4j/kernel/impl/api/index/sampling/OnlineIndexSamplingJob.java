@@ -20,9 +20,7 @@
 package org.neo4j.kernel.impl.api.index.sampling;
 
 import org.neo4j.kernel.impl.util.DurationLogger;
-import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
-import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.api.index.IndexProxy;
 import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.logging.Log;
@@ -38,17 +36,20 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
     private final IndexDescriptor indexDescriptor;
     private final IndexProxy indexProxy;
     private final IndexStoreView storeView;
+    private final IndexValueSamples valueSamples;
     private final Log log;
     private final String indexUserDescription;
 
     public OnlineIndexSamplingJob( IndexProxy indexProxy,
                                    IndexStoreView storeView,
+                                   IndexValueSamples valueSamples,
                                    String indexUserDescription,
                                    LogProvider logProvider )
     {
         this.indexDescriptor = indexProxy.getDescriptor();
         this.indexProxy = indexProxy;
         this.storeView = storeView;
+        this.valueSamples = valueSamples;
         this.log = logProvider.getLog( getClass() );
         this.indexUserDescription = indexUserDescription;
     }
@@ -64,37 +65,32 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
     {
         try( DurationLogger durationLogger = new DurationLogger( log, "Sampling index " + indexUserDescription ) )
         {
-            try
+            if ( !valueSamples.isSampled( indexDescriptor ) )
             {
-                try ( IndexReader reader = indexProxy.newReader() )
-                {
-                    Register.DoubleLongRegister sample = Registers.newDoubleLongRegister();
-                    final long indexSize = reader.sampleIndex( sample );
+                // The first sampling since startup, or since the index was created, samples the values of the index
+                // from the store. From then on the value sample is kept up to date by the updates to the index, and
+                // the index is sampled from it, without scanning anything.
+                valueSamples.sample( indexDescriptor, storeView );
+            }
+            Register.DoubleLongRegister sample = Registers.newDoubleLongRegister();
+            long indexSize = valueSamples.sampleIndex( indexDescriptor, sample );
 
-                    // check again if the index is online before saving the counts in the store
-                    if ( indexProxy.getState() == ONLINE )
-                    {
-                        long unique = sample.readFirst();
-                        long sampleSize = sample.readSecond();
-                        storeView.replaceIndexCounts( indexDescriptor, unique, sampleSize, indexSize );
-                        durationLogger.markAsFinished();
-                        log.info(
-                            format( "Sampled index %s with %d unique values in sample of avg size %d taken from " +
-                                    "index containing %d entries",
-                                    indexUserDescription, unique, sampleSize, indexSize ) );
-                    }
-                    else
-                    {
-                        durationLogger.markAsAborted( "Index no longer ONLINE" );
-                    }
-                }
+            // check again if the index is online before saving the counts in the store
+            if ( indexSize >= 0 && indexProxy.getState() == ONLINE )
+            {
+                long unique = sample.readFirst();
+                long sampleSize = sample.readSecond();
+                storeView.replaceIndexCounts( indexDescriptor, unique, sampleSize, indexSize );
+                durationLogger.markAsFinished();
+                log.info(
+                    format( "Sampled index %s with %d unique values in sample of avg size %d taken from " +
+                            "index containing %d entries",
+                            indexUserDescription, unique, sampleSize, indexSize ) );
             }
-            catch ( IndexNotFoundKernelException e )
+            else
             {
-                durationLogger.markAsAborted(
-                        "Attempted to sample missing/already deleted index " + indexUserDescription );
+                durationLogger.markAsAborted( "Index no longer ONLINE" );
             }
         }
     }
-
 }
@@ -27,12 +27,15 @@ import org.neo4j.logging.LogProvider;
 public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
 {
     private final IndexStoreView storeView;
+    private final IndexValueSamples valueSamples;
     private final LogProvider logProvider;
     private final TokenNameLookup nameLookup;
 
-    public OnlineIndexSamplingJobFactory( IndexStoreView storeView, TokenNameLookup nameLookup, LogProvider logProvider )
+    public OnlineIndexSamplingJobFactory( IndexStoreView storeView, IndexValueSamples valueSamples,
+                                          TokenNameLookup nameLookup, LogProvider logProvider )
     {
         this.storeView = storeView;
+        this.valueSamples = valueSamples;
         this.logProvider = logProvider;
         this.nameLookup = nameLookup;
     }
@@ -41,6 +44,6 @@ public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
     public IndexSamplingJob create( IndexProxy indexProxy )
     {
         final String indexUserDescription = indexProxy.getDescriptor().userDescription( nameLookup );
-        return new OnlineIndexSamplingJob( indexProxy, storeView, indexUserDescription, logProvider );
+        return new OnlineIndexSamplingJob( indexProxy, storeView, valueSamples, indexUserDescription, logProvider );
     }
 }
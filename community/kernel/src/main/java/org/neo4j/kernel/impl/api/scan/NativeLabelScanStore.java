@@ -0,0 +1,833 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.api.exceptions.index.IndexCapacityExceededException;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static java.util.Arrays.binarySearch;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asResourceIterator;
+import static org.neo4j.helpers.collection.IteratorUtil.iterator;
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * A {@link LabelScanStore} that keeps, for each label, a bitmap of the nodes that have it. The bitmaps are stored as
+ * (label id, node range) entries in a single file, managed by the {@link PageCache}, so that label updates at commit
+ * are a matter of flipping bits in place.
+ * <p>
+ * The file is a sequence of fixed size slots. The first slot holds a header, and every other slot holds either an
+ * entry or nothing. The slots of the entries of each label are looked up in memory, by label and range, and these
+ * lookup tables are built by reading through the file when the store is initialized. A label scan visits the ranges
+ * of its label in order, which gives the nodes in ascending id order.
+ * <p>
+ * Readers see the updates of a writer as they are made, range by range, rather than a snapshot as of when they
+ * were created.
+ */
+public class NativeLabelScanStore implements LabelScanStore
+{
+    static final int WORDS_PER_ENTRY = 16;
+    static final int NODES_PER_ENTRY = WORDS_PER_ENTRY * Long.SIZE;
+    // in use (int), label id (int), range (long)
+    private static final int ENTRY_HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = ENTRY_HEADER_SIZE + WORDS_PER_ENTRY * 8;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SLOT = 0;
+    private static final int CLEAN = 1;
+    private static final int DIRTY = 2;
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File storeFile;
+    // We get in a full store stream here in case we need to fully rebuild the store if it's missing or incomplete.
+    private final FullStoreChangeStream fullStoreStream;
+    private final Log log;
+    private final Lock writeLock = new ReentrantLock( true );
+
+    private PagedFile pagedFile;
+    private int entriesPerPage;
+    private boolean needsRebuild;
+    private volatile LabelRanges[] labelRanges = new LabelRanges[0];
+    // Guarded by the write lock
+    private int highSlot;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+
+    public NativeLabelScanStore( PageCache pageCache, FileSystemAbstraction fs, File storeFile,
+            FullStoreChangeStream fullStoreStream, LogProvider logProvider )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.storeFile = storeFile;
+        this.fullStoreStream = fullStoreStream;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        if ( !fs.fileExists( storeFile ) )
+        {
+            log.info( "No native label scan store found, this might just be first use. Preparing to rebuild." );
+            fs.mkdirs( storeFile.getParentFile() );
+            needsRebuild = true;
+        }
+        if ( pageCache.pageSize() < ENTRY_SIZE )
+        {
+            throw new IllegalArgumentException( "The page size of the page cache, " + pageCache.pageSize() +
+                    " bytes, is too small for the entries of the native label scan store, which are " +
+                    ENTRY_SIZE + " bytes" );
+        }
+        int filePageSize = pageCache.pageSize() - pageCache.pageSize() % ENTRY_SIZE;
+        entriesPerPage = filePageSize / ENTRY_SIZE;
+        pagedFile = pageCache.map( storeFile, filePageSize );
+
+        if ( !needsRebuild && !isClean() )
+        {
+            log.warn( "Native label scan store was not shut down cleanly. Preparing to rebuild." );
+            needsRebuild = true;
+        }
+        highSlot = HEADER_SLOT + 1;
+        if ( !needsRebuild && !loadEntries() )
+        {
+            log.warn( "Native label scan store has conflicting entries. Preparing to rebuild." );
+            needsRebuild = true;
+        }
+        if ( needsRebuild )
+        {
+            clearEntries();
+            pagedFile.close();
+            fs.deleteFile( storeFile );
+            pagedFile = pageCache.map( storeFile, filePageSize );
+        }
+    }
+
+    @Override
+    public void start() throws IOException, IndexCapacityExceededException
+    {
+        if ( needsRebuild )
+        {   // we saw in init() that we need to rebuild the store, so do it here after the
+            // neostore has been properly started.
+            log.info( "Rebuilding native label scan store, this may take a while" );
+            try ( LabelScanWriter writer = newWriter() )
+            {
+                for ( NodeLabelUpdate update : fullStoreStream )
+                {
+                    writer.write( update );
+                }
+            }
+            log.info( "Native label scan store rebuilt (roughly " + fullStoreStream.highestNodeId() + " nodes)" );
+            needsRebuild = false;
+        }
+        // Until shutdown, the entries on disk may be behind, or half way through, the updates made to them, so the
+        // store is marked as dirty, and only marked as clean again once everything has been flushed at shutdown.
+        pagedFile.flushAndForce();
+        writeHeader( DIRTY );
+        pagedFile.flushAndForce();
+    }
+
+    @Override
+    public void stop()
+    {   // Not needed
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        if ( !needsRebuild )
+        {   // a store that was never completely built is left as it is, to be rebuilt next time
+            pagedFile.flushAndForce();
+            writeHeader( CLEAN );
+            pagedFile.flushAndForce();
+        }
+        pagedFile.close();
+        pagedFile = null;
+        clearEntries();
+    }
+
+    private void clearEntries()
+    {
+        labelRanges = new LabelRanges[0];
+        highSlot = HEADER_SLOT + 1;
+        freeSlotCount = 0;
+    }
+
+    @Override
+    public void force() throws UnderlyingStorageException
+    {
+        try
+        {
+            pagedFile.flushAndForce();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotStoreFiles() throws IOException
+    {
+        pagedFile.flushAndForce();
+        return asResourceIterator( iterator( storeFile ) );
+    }
+
+    @Override
+    public LabelScanReader newReader()
+    {
+        return new LabelScanReader()
+        {
+            @Override
+            public PrimitiveLongIterator nodesWithLabel( int labelId )
+            {
+                return new NodesWithLabel( labelId );
+            }
+
+            @Override
+            public Iterator<Long> labelsForNode( long nodeId )
+            {
+                long range = nodeId / NODES_PER_ENTRY;
+                int bit = (int) (nodeId % NODES_PER_ENTRY);
+                long[] words = new long[WORDS_PER_ENTRY];
+                LabelRanges[] labels = labelRanges;
+                List<Long> result = new ArrayList<>();
+                for ( int labelId = 0; labelId < labels.length; labelId++ )
+                {
+                    if ( labels[labelId] != null && readEntry( labelId, range, labels[labelId].slot( range ), words ) &&
+                         isSet( words, bit ) )
+                    {
+                        result.add( (long) labelId );
+                    }
+                }
+                return result.iterator();
+            }
+
+            @Override
+            public void close()
+            {   // Nothing to close
+            }
+        };
+    }
+
+    @Override
+    public LabelScanWriter newWriter()
+    {
+        // Only a single writer is allowed at any point in time, the lock is released when the writer is closed
+        writeLock.lock();
+        return new NativeLabelScanWriter();
+    }
+
+    @Override
+    public AllEntriesLabelScanReader newAllEntriesReader()
+    {
+        final LabelRanges[] labels = labelRanges;
+        long rangesLimit = 0;
+        for ( LabelRanges ranges : labels )
+        {
+            if ( ranges != null )
+            {
+                rangesLimit = Math.max( rangesLimit, ranges.limit() );
+            }
+        }
+        final long maxCount = rangesLimit;
+        return new AllEntriesLabelScanReader()
+        {
+            @Override
+            public long maxCount()
+            {
+                return maxCount;
+            }
+
+            @Override
+            public Iterator<NodeLabelRange> iterator()
+            {
+                return new AllEntriesIterator( labels, maxCount );
+            }
+
+            @Override
+            public void close()
+            {   // Nothing to close
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + storeFile + "]";
+    }
+
+    private long pageIdOf( int slot )
+    {
+        return slot / entriesPerPage;
+    }
+
+    private int offsetOf( int slot )
+    {
+        return (slot % entriesPerPage) * ENTRY_SIZE;
+    }
+
+    private boolean isClean() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageIdOf( HEADER_SLOT ), PF_SHARED_LOCK ) )
+        {
+            boolean clean = false;
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.setOffset( offsetOf( HEADER_SLOT ) );
+                    clean = cursor.getInt() == FORMAT_VERSION && cursor.getInt() == CLEAN;
+                } while ( cursor.shouldRetry() );
+            }
+            return clean;
+        }
+    }
+
+    private void writeHeader( int state ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageIdOf( HEADER_SLOT ), PF_EXCLUSIVE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.setOffset( offsetOf( HEADER_SLOT ) );
+                    cursor.putInt( FORMAT_VERSION );
+                    cursor.putInt( state );
+                } while ( cursor.shouldRetry() );
+            }
+        }
+    }
+
+    /**
+     * Reads the header of every slot in the file, to build the lookup tables of the labels and the list of free slots.
+     *
+     * @return {@code false} if the file has entries that can't be right, like two entries of the same label and range,
+     * in which case the file can't be trusted and the store has to be rebuilt.
+     */
+    private boolean loadEntries() throws IOException
+    {
+        List<Integer> unused = new ArrayList<>();
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            while ( cursor.next() )
+            {
+                int firstSlot = (int) (cursor.getCurrentPageId() * entriesPerPage);
+                for ( int i = 0; i < entriesPerPage; i++ )
+                {
+                    int slot = firstSlot + i;
+                    if ( slot == HEADER_SLOT )
+                    {
+                        continue;
+                    }
+                    boolean inUse;
+                    int labelId;
+                    long range;
+                    do
+                    {
+                        cursor.setOffset( i * ENTRY_SIZE );
+                        inUse = cursor.getInt() != 0;
+                        labelId = cursor.getInt();
+                        range = cursor.getLong();
+                    } while ( cursor.shouldRetry() );
+
+                    if ( inUse )
+                    {
+                        if ( labelId < 0 || range < 0 || (range >>> CHUNK_SHIFT) > Integer.MAX_VALUE ||
+                             rangesOf( labelId, true ).slot( range ) != 0 )
+                        {
+                            return false;
+                        }
+                        rangesOf( labelId, true ).set( range, slot );
+                        highSlot = slot + 1;
+                    }
+                    else
+                    {
+                        unused.add( slot );
+                    }
+                }
+            }
+        }
+        for ( int slot : unused )
+        {
+            if ( slot < highSlot )
+            {
+                freeSlot( slot );
+            }
+        }
+        return true;
+    }
+
+    private LabelRanges rangesOf( int labelId, boolean create )
+    {
+        LabelRanges[] labels = labelRanges;
+        if ( labelId < labels.length && labels[labelId] != null )
+        {
+            return labels[labelId];
+        }
+        if ( !create )
+        {
+            return null;
+        }
+        LabelRanges[] copy = Arrays.copyOf( labels, Math.max( labels.length, labelId + 1 ) );
+        copy[labelId] = new LabelRanges();
+        labelRanges = copy;
+        return copy[labelId];
+    }
+
+    /**
+     * Reads the bitmap of the entry in the given slot into {@code words}.
+     *
+     * @return {@code false} if the slot doesn't hold the entry of the given label and range, for example if it was
+     * freed and reused since the slot was looked up.
+     */
+    private boolean readEntry( int labelId, long range, int slot, long[] words )
+    {
+        if ( slot == 0 )
+        {
+            return false;
+        }
+        try ( PageCursor cursor = pagedFile.io( pageIdOf( slot ), PF_SHARED_LOCK ) )
+        {
+            boolean found = false;
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.setOffset( offsetOf( slot ) );
+                    found = cursor.getInt() != 0 & cursor.getInt() == labelId & cursor.getLong() == range;
+                    for ( int i = 0; i < WORDS_PER_ENTRY; i++ )
+                    {
+                        words[i] = cursor.getLong();
+                    }
+                } while ( cursor.shouldRetry() );
+            }
+            return found;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    private static boolean isSet( long[] words, int bit )
+    {
+        return (words[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) != 0;
+    }
+
+    private void freeSlot( int slot )
+    {
+        if ( freeSlotCount == freeSlots.length )
+        {
+            freeSlots = Arrays.copyOf( freeSlots, freeSlotCount * 2 );
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private int allocateSlot()
+    {
+        return freeSlotCount > 0 ? freeSlots[--freeSlotCount] : highSlot++;
+    }
+
+    /**
+     * Maps the ranges of one label to the slots of their entries. The slots are kept in chunks of consecutive ranges,
+     * so that ranges can be looked up directly and visited in order.
+     */
+    private static class LabelRanges
+    {
+        private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+
+        int slot( long range )
+        {
+            AtomicIntegerArray[] current = chunks;
+            long chunk = range >>> CHUNK_SHIFT;
+            if ( chunk >= current.length || current[(int) chunk] == null )
+            {
+                return 0;
+            }
+            return current[(int) chunk].get( (int) (range & CHUNK_MASK) );
+        }
+
+        /**
+         * @return the first range after the given one that may have an entry.
+         */
+        long nextCandidate( long range )
+        {
+            AtomicIntegerArray[] current = chunks;
+            long next = range + 1;
+            int chunk = (int) (next >>> CHUNK_SHIFT);
+            while ( chunk < current.length && current[chunk] == null )
+            {
+                chunk++;
+                next = (long) chunk << CHUNK_SHIFT;
+            }
+            return next;
+        }
+
+        long limit()
+        {
+            return (long) chunks.length << CHUNK_SHIFT;
+        }
+
+        // Only called by the writer
+        void set( long range, int slot )
+        {
+            AtomicIntegerArray[] current = chunks;
+            int chunk = (int) (range >>> CHUNK_SHIFT);
+            if ( chunk >= current.length || current[chunk] == null )
+            {
+                if ( slot == 0 )
+                {
+                    return;
+                }
+                AtomicIntegerArray[] copy = Arrays.copyOf( current, Math.max( current.length, chunk + 1 ) );
+                copy[chunk] = new AtomicIntegerArray( CHUNK_SIZE );
+                chunks = current = copy;
+            }
+            current[chunk].set( (int) (range & CHUNK_MASK), slot );
+        }
+    }
+
+    private class NodesWithLabel extends PrimitiveLongBaseIterator
+    {
+        private final int labelId;
+        private final LabelRanges ranges;
+        private final long[] words = new long[WORDS_PER_ENTRY];
+        private long range = -1;
+        private int bit = NODES_PER_ENTRY;
+
+        NodesWithLabel( int labelId )
+        {
+            this.labelId = labelId;
+            this.ranges = rangesOf( labelId, false );
+        }
+
+        @Override
+        protected boolean fetchNext()
+        {
+            if ( ranges == null )
+            {
+                return false;
+            }
+            while ( true )
+            {
+                while ( bit < NODES_PER_ENTRY )
+                {
+                    long word = words[bit / Long.SIZE] >>> (bit % Long.SIZE);
+                    if ( word == 0 )
+                    {
+                        // nothing more in this word, skip to the next one
+                        bit = (bit / Long.SIZE + 1) * Long.SIZE;
+                        continue;
+                    }
+                    bit += Long.numberOfTrailingZeros( word );
+                    return next( range * NODES_PER_ENTRY + bit++ );
+                }
+
+                range = ranges.nextCandidate( range );
+                if ( range >= ranges.limit() )
+                {
+                    return false;
+                }
+                bit = readEntry( labelId, range, ranges.slot( range ), words ) ? 0 : NODES_PER_ENTRY;
+            }
+        }
+    }
+
+    private class AllEntriesIterator implements Iterator<NodeLabelRange>
+    {
+        private final LabelRanges[] labels;
+        private final long rangesLimit;
+        private final long[] words = new long[WORDS_PER_ENTRY];
+        private long range;
+        private int id;
+        private NodeLabelRange next;
+
+        AllEntriesIterator( LabelRanges[] labels, long rangesLimit )
+        {
+            this.labels = labels;
+            this.rangesLimit = rangesLimit;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( next == null && range < rangesLimit )
+            {
+                next = readRange( range++ );
+            }
+            return next != null;
+        }
+
+        @Override
+        public NodeLabelRange next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            NodeLabelRange result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private NodeLabelRange readRange( long range )
+        {
+            List<Long>[] labelsOfNodes = null;
+            for ( int labelId = 0; labelId < labels.length; labelId++ )
+            {
+                if ( labels[labelId] == null || !readEntry( labelId, range, labels[labelId].slot( range ), words ) )
+                {
+                    continue;
+                }
+                for ( int bit = 0; bit < NODES_PER_ENTRY; bit++ )
+                {
+                    if ( isSet( words, bit ) )
+                    {
+                        if ( labelsOfNodes == null )
+                        {
+                            @SuppressWarnings( "unchecked" )
+                            List<Long>[] lists = new List[NODES_PER_ENTRY];
+                            labelsOfNodes = lists;
+                        }
+                        if ( labelsOfNodes[bit] == null )
+                        {
+                            labelsOfNodes[bit] = new ArrayList<>();
+                        }
+                        labelsOfNodes[bit].add( (long) labelId );
+                    }
+                }
+            }
+            return labelsOfNodes == null ? null : new NativeNodeLabelRange( id++, range, labelsOfNodes );
+        }
+    }
+
+    private static class NativeNodeLabelRange implements NodeLabelRange
+    {
+        private final int id;
+        private final long[] nodeIds;
+        private final long[][] labelIds;
+
+        NativeNodeLabelRange( int id, long range, List<Long>[] labelsOfNodes )
+        {
+            this.id = id;
+            int count = 0;
+            for ( List<Long> labels : labelsOfNodes )
+            {
+                count += labels == null ? 0 : 1;
+            }
+            this.nodeIds = new long[count];
+            this.labelIds = new long[count][];
+            int index = 0;
+            for ( int bit = 0; bit < labelsOfNodes.length; bit++ )
+            {
+                List<Long> labels = labelsOfNodes[bit];
+                if ( labels != null )
+                {
+                    nodeIds[index] = range * NODES_PER_ENTRY + bit;
+                    labelIds[index] = new long[labels.size()];
+                    for ( int i = 0; i < labels.size(); i++ )
+                    {
+                        labelIds[index][i] = labels.get( i );
+                    }
+                    index++;
+                }
+            }
+        }
+
+        @Override
+        public int id()
+        {
+            return id;
+        }
+
+        @Override
+        public long[] nodes()
+        {
+            return nodeIds;
+        }
+
+        @Override
+        public long[] labels( long nodeId )
+        {
+            int index = binarySearch( nodeIds, nodeId );
+            if ( index < 0 )
+            {
+                throw new IllegalArgumentException( "Unknown nodeId: " + nodeId );
+            }
+            return labelIds[index];
+        }
+    }
+
+    private class NativeLabelScanWriter implements LabelScanWriter
+    {
+        @Override
+        public void write( NodeLabelUpdate update ) throws IOException
+        {
+            long nodeId = update.getNodeId();
+            long[] before = update.getLabelsBefore();
+            long[] after = update.getLabelsAfter();
+            for ( long labelId : before )
+            {
+                if ( binarySearch( after, labelId ) < 0 )
+                {
+                    clear( (int) labelId, nodeId );
+                }
+            }
+            for ( long labelId : after )
+            {
+                if ( binarySearch( before, labelId ) < 0 )
+                {
+                    set( (int) labelId, nodeId );
+                }
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            writeLock.unlock();
+        }
+
+        private void set( int labelId, long nodeId ) throws IOException
+        {
+            long range = nodeId / NODES_PER_ENTRY;
+            int bit = (int) (nodeId % NODES_PER_ENTRY);
+            LabelRanges ranges = rangesOf( labelId, true );
+            int slot = ranges.slot( range );
+            boolean created = slot == 0;
+            if ( created )
+            {
+                slot = allocateSlot();
+            }
+            try ( PageCursor cursor = pagedFile.io( pageIdOf( slot ), PF_EXCLUSIVE_LOCK ) )
+            {
+                if ( cursor.next() )
+                {
+                    do
+                    {
+                        int offset = offsetOf( slot );
+                        if ( created )
+                        {
+                            cursor.setOffset( offset );
+                            cursor.putInt( 1 );
+                            cursor.putInt( labelId );
+                            cursor.putLong( range );
+                            for ( int i = 0; i < WORDS_PER_ENTRY; i++ )
+                            {
+                                cursor.putLong( 0 );
+                            }
+                        }
+                        int wordOffset = offset + ENTRY_HEADER_SIZE + (bit / Long.SIZE) * 8;
+                        long word = cursor.getLong( wordOffset );
+                        cursor.putLong( wordOffset, word | (1L << (bit % Long.SIZE)) );
+                    } while ( cursor.shouldRetry() );
+                }
+            }
+            if ( created )
+            {
+                // Only publish the entry once it's been written, readers check it when they read it anyway
+                ranges.set( range, slot );
+            }
+        }
+
+        private void clear( int labelId, long nodeId ) throws IOException
+        {
+            long range = nodeId / NODES_PER_ENTRY;
+            int bit = (int) (nodeId % NODES_PER_ENTRY);
+            LabelRanges ranges = rangesOf( labelId, false );
+            int slot = ranges == null ? 0 : ranges.slot( range );
+            if ( slot == 0 )
+            {
+                return;
+            }
+            boolean empty = true;
+            try ( PageCursor cursor = pagedFile.io( pageIdOf( slot ), PF_EXCLUSIVE_LOCK ) )
+            {
+                if ( cursor.next() )
+                {
+                    do
+                    {
+                        int offset = offsetOf( slot );
+                        int wordOffset = offset + ENTRY_HEADER_SIZE + (bit / Long.SIZE) * 8;
+                        long word = cursor.getLong( wordOffset );
+                        cursor.putLong( wordOffset, word & ~(1L << (bit % Long.SIZE)) );
+
+                        empty = true;
+                        for ( int i = 0; i < WORDS_PER_ENTRY && empty; i++ )
+                        {
+                            empty = cursor.getLong( offset + ENTRY_HEADER_SIZE + i * 8 ) == 0;
+                        }
+                        if ( empty )
+                        {
+                            cursor.putInt( offset, 0 );
+                        }
+                    } while ( cursor.shouldRetry() );
+                }
+            }
+            if ( empty )
+            {
+                ranges.set( range, 0 );
+                freeSlot( slot );
+            }
+        }
+    }
+}
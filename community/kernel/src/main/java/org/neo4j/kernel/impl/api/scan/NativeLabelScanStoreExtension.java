@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.File;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.kernel.impl.transaction.state.NeoStoreSupplier;
+
+import static org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.fullStoreLabelUpdateStream;
+
+/**
+ * Provides the {@link NativeLabelScanStore}. It's prioritized over the other label scan stores when
+ * {@link GraphDatabaseSettings#native_label_scan_store} is enabled and loses to them otherwise.
+ */
+@Service.Implementation( KernelExtensionFactory.class )
+public class NativeLabelScanStoreExtension extends KernelExtensionFactory<NativeLabelScanStoreExtension.Dependencies>
+{
+    private static final int ENABLED_PRIORITY = 100;
+    private static final int DISABLED_PRIORITY = 0;
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache getPageCache();
+
+        NeoStoreSupplier getNeoStoreSupplier();
+
+        LogService getLogService();
+    }
+
+    public NativeLabelScanStoreExtension()
+    {
+        super( "native-scan-store" );
+    }
+
+    @Override
+    public LabelScanStoreProvider newInstance( KernelContext context, Dependencies dependencies ) throws Throwable
+    {
+        boolean enabled = dependencies.getConfig().get( GraphDatabaseSettings.native_label_scan_store );
+
+        NativeLabelScanStore scanStore = new NativeLabelScanStore( dependencies.getPageCache(), context.fileSystem(),
+
+                // <db>/schema/label/native/labelscan.db
+                new File( new File( new File( new File( context.storeDir(), "schema" ), "label" ), "native" ),
+                        "labelscan.db" ),
+
+                fullStoreLabelUpdateStream( dependencies.getNeoStoreSupplier() ),
+                dependencies.getLogService().getInternalLogProvider() );
+
+        return new LabelScanStoreProvider( scanStore, enabled ? ENABLED_PRIORITY : DISABLED_PRIORITY );
+    }
+}
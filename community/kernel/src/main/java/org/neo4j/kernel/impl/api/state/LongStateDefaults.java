@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state;
+
+import java.util.Iterator;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.helpers.collection.Iterables;
+
+/**
+ * The same as {@link StateDefaults}, but for state keyed by entity id, which is held in a
+ * {@link PrimitiveLongObjectMap} so that large transactions don't box an id per touched entity.
+ *
+ * @param <RO>  The read-only version of the value type stored in the state
+ * @param <RW>  The read/write version of the value type stored in the state
+ */
+abstract class LongStateDefaults<RO, RW extends RO>
+{
+    final RO get( TxState state, long key )
+    {
+        PrimitiveLongObjectMap<RW> map = getMap( state );
+        if ( map == null )
+        {
+            return defaultValue();
+        }
+        RO value = map.get( key );
+        return value == null ? defaultValue() : value;
+    }
+
+    final RW getOrCreate( TxState state, long key )
+    {
+        PrimitiveLongObjectMap<RW> map = getMap( state );
+        if ( map == null )
+        {
+            setMap( state, map = Primitive.longObjectMap() );
+        }
+        RW value = map.get( key );
+        if ( value == null )
+        {
+            map.put( key, value = createValue( key, state ) );
+        }
+        return value;
+    }
+
+    final Iterable<RO> values( TxState state )
+    {
+        final PrimitiveLongObjectMap<RW> map = getMap( state );
+        if ( map == null )
+        {
+            return Iterables.empty();
+        }
+        return new Iterable<RO>()
+        {
+            @Override
+            public Iterator<RO> iterator()
+            {
+                final PrimitiveLongIterator keys = map.iterator();
+                return new Iterator<RO>()
+                {
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public RO next()
+                    {
+                        return map.get( keys.next() );
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    /** Implemented for the value holder - get the map from the state field. */
+    abstract PrimitiveLongObjectMap<RW> getMap( TxState state );
+
+    /** Implemented for the value holder - set the map to the state field. */
+    abstract void setMap( TxState state, PrimitiveLongObjectMap<RW> map );
+
+    /** Implemented for the value type - initializes state by creating a new instance. */
+    abstract RW createValue( long key, TxState state );
+
+    /** Implemented for the value type - returns a default read-only version of the value type. */
+    abstract RO defaultValue();
+}
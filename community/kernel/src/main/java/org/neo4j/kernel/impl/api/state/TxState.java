@@ -20,7 +20,6 @@
 package org.neo4j.kernel.impl.api.state;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -28,12 +27,16 @@ import java.util.Set;
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
+import org.neo4j.collection.primitive.PrimitiveIntObjectVisitor;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.function.Function;
 import org.neo4j.function.Predicate;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
+import org.neo4j.kernel.api.exceptions.TransactionStateSizeExceededException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -46,9 +49,10 @@ import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.DiffSetsVisitor;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongRelationshipDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableDiffSets;
 import org.neo4j.kernel.impl.util.diffsets.ReadableRelationshipDiffSets;
-import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
 
 import static org.neo4j.helpers.collection.Iterables.map;
 import static org.neo4j.kernel.api.properties.Property.property;
@@ -81,32 +85,32 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             state.labelStatesMap = map;
         }
     };
-    private Map<Long/*Node ID*/, NodeState.Mutable> nodeStatesMap;
+    private PrimitiveLongObjectMap<NodeState.Mutable> nodeStatesMap;
     private static final NodeState.Defaults NODE_STATE = new NodeState.Defaults()
     {
         @Override
-        Map<Long, NodeState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<NodeState.Mutable> getMap( TxState state )
         {
             return state.nodeStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, NodeState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<NodeState.Mutable> map )
         {
             state.nodeStatesMap = map;
         }
     };
-    private Map<Long/*Relationship ID*/, RelationshipState.Mutable> relationshipStatesMap;
+    private PrimitiveLongObjectMap<RelationshipState.Mutable> relationshipStatesMap;
     private static final RelationshipState.Defaults RELATIONSHIP_STATE = new RelationshipState.Defaults()
     {
         @Override
-        Map<Long, RelationshipState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<RelationshipState.Mutable> getMap( TxState state )
         {
             return state.relationshipStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, RelationshipState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<RelationshipState.Mutable> map )
         {
             state.relationshipStatesMap = map;
         }
@@ -124,25 +128,46 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     private PropertyChanges propertyChangesForNodes;
 
     // Tracks added and removed nodes, not modified nodes
-    private DiffSets<Long> nodes;
+    private PrimitiveLongDiffSets nodes;
 
     // Tracks added and removed relationships, not modified relationships
-    private RelationshipDiffSets<Long> relationships;
+    private PrimitiveLongRelationshipDiffSets relationships;
 
     // This is temporary. It is needed until we've removed nodes and rels from the global cache, to tell
     // that they were created and then deleted in the same tx. This is here just to set a save point to
     // get a large set of changes in, and is meant to be removed in the coming days in a follow-up commit.
-    private final Set<Long> nodesDeletedInTx = new HashSet<>();
-    private final Set<Long> relationshipsDeletedInTx = new HashSet<>();
+    private PrimitiveLongSet nodesDeletedInTx;
+    private PrimitiveLongSet relationshipsDeletedInTx;
 
     private Map<UniquenessConstraint, Long> createdConstraintIndexesByConstraint;
 
     private Map<String, Map<String, String>> createdNodeLegacyIndexes;
     private Map<String, Map<String, String>> createdRelationshipLegacyIndexes;
 
-    private PrimitiveIntObjectMap<Map<DefinedProperty, DiffSets<Long>>> indexUpdates;
+    private PrimitiveIntObjectMap<Map<DefinedProperty, PrimitiveLongDiffSets>> indexUpdates;
 
     private boolean hasChanges;
+    private long changes;
+    private final int offHeapThreshold;
+    private final long maxChanges;
+
+    public TxState()
+    {
+        this( -1, -1 );
+    }
+
+    /**
+     * @param offHeapThreshold the number of created, or deleted, nodes and relationships, and of nodes changed
+     * for a single indexed property value, to keep on the heap before moving their ids off heap, or {@code -1}
+     * to always keep them on the heap. The state must be {@link #release() released} when done with.
+     * @param maxChanges the number of changes, including property and label changes, this state may hold before
+     * further changes are refused with a {@link TransactionStateSizeExceededException}, or {@code -1} for no limit.
+     */
+    public TxState( int offHeapThreshold, long maxChanges )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+        this.maxChanges = maxChanges;
+    }
 
     @Override
     public void accept( final TxStateVisitor visitor )
@@ -381,6 +406,51 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return hasChanges;
     }
 
+    @Override
+    public boolean hasExceededChangeLimit()
+    {
+        return maxChanges > 0 && changes > maxChanges;
+    }
+
+    private void changed()
+    {
+        hasChanges = true;
+        changes++;
+        if ( hasExceededChangeLimit() )
+        {
+            throw new TransactionStateSizeExceededException( maxChanges );
+        }
+    }
+
+    @Override
+    public void release()
+    {
+        if ( nodes != null )
+        {
+            nodes.close();
+        }
+        if ( relationships != null )
+        {
+            relationships.close();
+        }
+        if ( indexUpdates != null )
+        {
+            indexUpdates.visitEntries(
+                    new PrimitiveIntObjectVisitor<Map<DefinedProperty,PrimitiveLongDiffSets>,RuntimeException>()
+            {
+                @Override
+                public boolean visited( int label, Map<DefinedProperty,PrimitiveLongDiffSets> updates )
+                {
+                    for ( PrimitiveLongDiffSets diffs : updates.values() )
+                    {
+                        diffs.close();
+                    }
+                    return false;
+                }
+            } );
+        }
+    }
+
     @Override
     public Iterable<NodeState> modifiedNodes()
     {
@@ -453,7 +523,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     public void nodeDoCreate( long id )
     {
         nodes().add( id );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -461,6 +531,10 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( nodes().remove( nodeId ) )
         {
+            if ( nodesDeletedInTx == null )
+            {
+                nodesDeletedInTx = Primitive.longSet();
+            }
             nodesDeletedInTx.add( nodeId );
         }
 
@@ -478,7 +552,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
                 nodeState.clear();
             }
         }
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -498,15 +572,15 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
         getOrCreateRelationshipState( id ).setMetaData( startNodeId, endNodeId, relationshipTypeId );
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
     public boolean nodeIsDeletedInThisTx( long nodeId )
     {
-        return addedAndRemovedNodes().isRemoved( nodeId )
+        return (nodes != null && nodes.isRemoved( nodeId ))
                 // Temporary until we've stopped adding nodes to the global cache during tx.
-                || nodesDeletedInTx.contains( nodeId );
+                || (nodesDeletedInTx != null && nodesDeletedInTx.contains( nodeId ));
     }
 
     @Override
@@ -520,6 +594,10 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( relationships().remove( id ) )
         {
+            if ( relationshipsDeletedInTx == null )
+            {
+                relationshipsDeletedInTx = Primitive.longSet();
+            }
             relationshipsDeletedInTx.add( id );
         }
 
@@ -542,7 +620,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
         }
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -563,7 +641,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         return addedAndRemovedRelationships().isRemoved( relationshipId )
                 // Temporary until we stop adding rels to the global cache during tx
-                || relationshipsDeletedInTx.contains( relationshipId );
+                || (relationshipsDeletedInTx != null && relationshipsDeletedInTx.contains( relationshipId ));
     }
 
     @Override
@@ -581,7 +659,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             nodeState.addProperty( newProperty );
             nodePropertyChanges().addProperty( nodeId, newProperty.propertyKeyId(), newProperty.value() );
         }
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -595,7 +673,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateRelationshipState( relationshipId ).addProperty( newProperty );
         }
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -609,7 +687,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         {
             getOrCreateGraphState().addProperty( newProperty );
         }
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -618,21 +696,21 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         getOrCreateNodeState( nodeId ).removeProperty( removedProperty );
         nodePropertyChanges().removeProperty( nodeId, removedProperty.propertyKeyId(),
                 removedProperty.value() );
-        hasChanges = true;
+        changed();
     }
 
     @Override
     public void relationshipDoRemoveProperty( long relationshipId, DefinedProperty removedProperty )
     {
         getOrCreateRelationshipState( relationshipId ).removeProperty( removedProperty );
-        hasChanges = true;
+        changed();
     }
 
     @Override
     public void graphDoRemoveProperty( DefinedProperty removedProperty )
     {
         getOrCreateGraphState().removeProperty( removedProperty );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -640,7 +718,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).add( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).add( labelId );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -648,7 +726,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         getOrCreateLabelStateNodeDiffSets( labelId ).remove( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).remove( labelId );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -660,7 +738,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         }
         createdLabelTokens.put( id, labelName );
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -672,7 +750,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         }
         createdPropertyKeyTokens.put( id, propertyKeyName );
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -684,7 +762,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         }
         createdRelationshipTypeTokens.put( id, labelName );
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -712,7 +790,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             diff.add( descriptor );
             getOrCreateLabelState( descriptor.getLabelId() ).getOrCreateIndexChanges().add( descriptor );
         }
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -720,7 +798,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         constraintIndexChangesDiffSets().add( descriptor );
         getOrCreateLabelState( descriptor.getLabelId() ).getOrCreateConstraintIndexChanges().add( descriptor );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -728,7 +806,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         indexChangesDiffSets().remove( descriptor );
         getOrCreateLabelState( descriptor.getLabelId() ).getOrCreateIndexChanges().remove( descriptor );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -736,7 +814,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         constraintIndexChangesDiffSets().remove( descriptor );
         getOrCreateLabelState( descriptor.getLabelId() ).getOrCreateConstraintIndexChanges().remove( descriptor );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -795,11 +873,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return ReadableDiffSets.Empty.ifNull( nodes );
     }
 
-    private DiffSets<Long> nodes()
+    private PrimitiveLongDiffSets nodes()
     {
         if ( nodes == null )
         {
-            nodes = new DiffSets<>();
+            nodes = new PrimitiveLongDiffSets( offHeapThreshold );
         }
         return nodes;
     }
@@ -860,11 +938,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return ReadableRelationshipDiffSets.Empty.ifNull( relationships );
     }
 
-    private RelationshipDiffSets<Long> relationships()
+    private PrimitiveLongRelationshipDiffSets relationships()
     {
         if ( relationships == null )
         {
-            relationships = new RelationshipDiffSets<>( this );
+            relationships = new PrimitiveLongRelationshipDiffSets( this, offHeapThreshold );
         }
         return relationships;
     }
@@ -905,7 +983,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         constraintsChangesDiffSets().add( constraint );
         createdConstraintIndexesByConstraint().put( constraint, indexId );
         getOrCreateLabelState( constraint.label() ).getOrCreateConstraintsChanges().add( constraint );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -950,7 +1028,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
         constraintIndexDoDrop( new IndexDescriptor( constraint.label(), constraint.propertyKeyId() ));
         getOrCreateLabelState( constraint.label() ).getOrCreateConstraintsChanges().remove( constraint );
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -1008,15 +1086,67 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
                                  property( descriptor.getPropertyKeyId(), value ) ) );
     }
 
+    @Override
+    public ReadableDiffSets<Long> indexUpdatesForRangeSeekByNumber( IndexDescriptor descriptor,
+                                                                    final Number lower, final boolean includeLower,
+                                                                    final Number upper, final boolean includeUpper )
+    {
+        return ReadableDiffSets.Empty.ifNull( getIndexUpdates( descriptor.getLabelId(),
+                descriptor.getPropertyKeyId(), new Predicate<Object>()
+                {
+                    @Override
+                    public boolean test( Object value )
+                    {
+                        if ( !(value instanceof Number) )
+                        {
+                            return false;
+                        }
+                        double number = ((Number) value).doubleValue();
+                        if ( lower != null )
+                        {
+                            int compare = Double.compare( number, lower.doubleValue() );
+                            if ( compare < 0 || (compare == 0 && !includeLower) )
+                            {
+                                return false;
+                            }
+                        }
+                        if ( upper != null )
+                        {
+                            int compare = Double.compare( number, upper.doubleValue() );
+                            if ( compare > 0 || (compare == 0 && !includeUpper) )
+                            {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                } ) );
+    }
+
+    @Override
+    public ReadableDiffSets<Long> indexUpdatesForRangeSeekByPrefix( IndexDescriptor descriptor, final String prefix )
+    {
+        return ReadableDiffSets.Empty.ifNull( getIndexUpdates( descriptor.getLabelId(),
+                descriptor.getPropertyKeyId(), new Predicate<Object>()
+                {
+                    @Override
+                    public boolean test( Object value )
+                    {
+                        return (value instanceof String || value instanceof Character) &&
+                               value.toString().startsWith( prefix );
+                    }
+                } ) );
+    }
+
     @Override
     public void indexDoUpdateProperty( IndexDescriptor descriptor, long nodeId,
                                        DefinedProperty propertyBefore, DefinedProperty propertyAfter )
     {
-        DiffSets<Long> before = getIndexUpdates( descriptor.getLabelId(), true, propertyBefore );
+        PrimitiveLongDiffSets before = getIndexUpdates( descriptor.getLabelId(), true, propertyBefore );
         if ( before != null )
         {
             before.remove( nodeId );
-            if ( before.getRemoved().contains( nodeId ) )
+            if ( before.isRemoved( nodeId ) )
             {
                 getOrCreateNodeState( nodeId ).addIndexDiff( before );
             }
@@ -1026,11 +1156,11 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
         }
 
-        DiffSets<Long> after = getIndexUpdates( descriptor.getLabelId(), true, propertyAfter );
+        PrimitiveLongDiffSets after = getIndexUpdates( descriptor.getLabelId(), true, propertyAfter );
         if ( after != null )
         {
             after.add( nodeId );
-            if ( after.getAdded().contains( nodeId ) )
+            if ( after.isAdded( nodeId ) )
             {
                 getOrCreateNodeState( nodeId ).addIndexDiff( after );
             }
@@ -1041,7 +1171,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         }
     }
 
-    private DiffSets<Long> getIndexUpdates( int label, boolean create, DefinedProperty property )
+    private PrimitiveLongDiffSets getIndexUpdates( int label, boolean create, DefinedProperty property )
     {
         if ( property == null )
         {
@@ -1055,7 +1185,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
             indexUpdates = Primitive.intObjectMap();
         }
-        Map<DefinedProperty, DiffSets<Long>> updates = indexUpdates.get( label );
+        Map<DefinedProperty, PrimitiveLongDiffSets> updates = indexUpdates.get( label );
         if ( updates == null )
         {
             if ( !create )
@@ -1064,32 +1194,71 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             }
             indexUpdates.put( label, updates = new HashMap<>() );
         }
-        DiffSets<Long> diffs = updates.get( property );
+        PrimitiveLongDiffSets diffs = updates.get( property );
         if ( diffs == null && create )
         {
-            updates.put( property, diffs = new DiffSets<>() );
+            updates.put( property, diffs = new PrimitiveLongDiffSets( offHeapThreshold ) );
         }
         return diffs;
     }
 
-    private DiffSets<Long> getIndexUpdates( int label, int propertyKeyId )
+    private PrimitiveLongDiffSets getIndexUpdates( int label, int propertyKeyId )
     {
         if ( indexUpdates == null )
         {
             return null;
         }
-        Map<DefinedProperty,DiffSets<Long>> updates = indexUpdates.get( label );
+        Map<DefinedProperty,PrimitiveLongDiffSets> updates = indexUpdates.get( label );
         if ( updates == null )
         {
             return null;
         }
-        DiffSets<Long> diffs = new DiffSets<>();
-        for ( Map.Entry<DefinedProperty,DiffSets<Long>> entry : updates.entrySet() )
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets();
+        for ( Map.Entry<DefinedProperty,PrimitiveLongDiffSets> entry : updates.entrySet() )
         {
             if ( entry.getKey().propertyKeyId() == propertyKeyId )
             {
-                diffs.addAll( entry.getValue().getAdded().iterator() );
-                diffs.removeAll( entry.getValue().getRemoved().iterator() );
+                diffs.addAll( entry.getValue().addedIterator() );
+                diffs.removeAll( entry.getValue().removedIterator() );
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Unlike {@link #getIndexUpdates(int, int)} the added and removed nodes are not cancelled out against each other,
+     * a node that changed from one matching value to another should stay in the result.
+     */
+    private PrimitiveLongDiffSets getIndexUpdates( int label, int propertyKeyId, Predicate<Object> valueFilter )
+    {
+        if ( indexUpdates == null )
+        {
+            return null;
+        }
+        Map<DefinedProperty,PrimitiveLongDiffSets> updates = indexUpdates.get( label );
+        if ( updates == null )
+        {
+            return null;
+        }
+        PrimitiveLongSet added = Primitive.longSet();
+        PrimitiveLongSet removed = Primitive.longSet();
+        for ( Map.Entry<DefinedProperty,PrimitiveLongDiffSets> entry : updates.entrySet() )
+        {
+            DefinedProperty property = entry.getKey();
+            if ( property.propertyKeyId() == propertyKeyId && valueFilter.test( property.value() ) )
+            {
+                added.addAll( entry.getValue().addedIterator() );
+                removed.addAll( entry.getValue().removedIterator() );
+            }
+        }
+        PrimitiveLongDiffSets diffs = new PrimitiveLongDiffSets();
+        diffs.addAll( added.iterator() );
+        for ( PrimitiveLongIterator removedIds = removed.iterator(); removedIds.hasNext(); )
+        {
+            long removedId = removedIds.next();
+            if ( !added.contains( removedId ) )
+            {
+                diffs.remove( removedId );
             }
         }
         return diffs;
@@ -1145,7 +1314,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
         createdNodeLegacyIndexes.put(indexName, customConfig);
 
-        hasChanges = true;
+        changed();
     }
 
     @Override
@@ -1160,6 +1329,6 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
         createdRelationshipLegacyIndexes.put(indexName, customConfig);
 
-        hasChanges = true;
+        changed();
     }
 }
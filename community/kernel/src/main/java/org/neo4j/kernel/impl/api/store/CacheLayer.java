@@ -56,6 +56,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexHistogram;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -99,15 +100,26 @@ public class CacheLayer implements StoreReadLayer
     private final SchemaCache schemaCache;
     private final DiskLayer diskLayer;
     private final IndexingService indexingService;
+    private final RelationshipChainCache relationshipChainCache;
 
     public CacheLayer(
             DiskLayer diskLayer,
             IndexingService indexingService,
             SchemaCache schemaCache )
+    {
+        this( diskLayer, indexingService, schemaCache, RelationshipChainCache.DISABLED );
+    }
+
+    public CacheLayer(
+            DiskLayer diskLayer,
+            IndexingService indexingService,
+            SchemaCache schemaCache,
+            RelationshipChainCache relationshipChainCache )
     {
         this.diskLayer = diskLayer;
         this.indexingService = indexingService;
         this.schemaCache = schemaCache;
+        this.relationshipChainCache = relationshipChainCache;
     }
 
     @Override
@@ -117,9 +129,9 @@ public class CacheLayer implements StoreReadLayer
     }
 
     @Override
-    public boolean nodeHasLabel( long nodeId, int labelId ) throws EntityNotFoundException
+    public boolean nodeHasLabel( KernelStatement state, long nodeId, int labelId ) throws EntityNotFoundException
     {
-        return diskLayer.nodeHasLabel( nodeId, labelId );
+        return diskLayer.nodeHasLabel( state, nodeId, labelId );
     }
 
     @Override
@@ -215,9 +227,10 @@ public class CacheLayer implements StoreReadLayer
     }
 
     @Override
-    public Property nodeGetProperty( long nodeId, int propertyKeyId ) throws EntityNotFoundException
+    public Property nodeGetProperty( KernelStatement state, long nodeId, int propertyKeyId )
+            throws EntityNotFoundException
     {
-        return diskLayer.nodeGetProperty( nodeId, propertyKeyId );
+        return diskLayer.nodeGetProperty( state, nodeId, propertyKeyId );
     }
 
     @Override
@@ -234,10 +247,10 @@ public class CacheLayer implements StoreReadLayer
     }
 
     @Override
-    public Property relationshipGetProperty( long relationshipId, int propertyKeyId )
+    public Property relationshipGetProperty( KernelStatement state, long relationshipId, int propertyKeyId )
             throws EntityNotFoundException
     {
-        return diskLayer.relationshipGetProperty( relationshipId, propertyKeyId );
+        return diskLayer.relationshipGetProperty( state, relationshipId, propertyKeyId );
     }
 
     @Override
@@ -313,6 +326,25 @@ public class CacheLayer implements StoreReadLayer
         return diskLayer.nodesGetFromIndexScan( state, schemaCache.indexId( index ) );
     }
 
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByNumber( state, schemaCache.indexId( index ),
+                lower, includeLower, upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state,
+                                                                             IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByPrefix( state, schemaCache.indexId( index ), prefix );
+    }
+
     @Override
     public IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey )
     {
@@ -338,6 +370,12 @@ public class CacheLayer implements StoreReadLayer
         return indexingService.indexUniqueValuesPercentage( schemaCache.indexId( descriptor ) );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return indexingService.indexHistogram( schemaCache.indexId( descriptor ) );
+    }
+
     @Override
     public String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
     {
@@ -414,6 +452,10 @@ public class CacheLayer implements StoreReadLayer
     public RelationshipIterator nodeListRelationships( long nodeId, Direction direction )
             throws EntityNotFoundException
     {
+        if ( relationshipChainCache.isEnabled() )
+        {
+            return relationshipChainCache.chains( nodeId, diskLayer ).relationships( direction );
+        }
         return diskLayer.nodeListRelationships( nodeId, direction );
     }
 
@@ -421,21 +463,36 @@ public class CacheLayer implements StoreReadLayer
     public RelationshipIterator nodeListRelationships( long nodeId, Direction direction,
                                                         int[] relTypes ) throws EntityNotFoundException
     {
+        if ( relationshipChainCache.isEnabled() )
+        {
+            return relationshipChainCache.chains( nodeId, diskLayer ).relationships( direction, relTypes );
+        }
         return diskLayer.nodeListRelationships( nodeId, direction, relTypes );
     }
 
     @Override
-    public int nodeGetDegree( long nodeId, Direction direction )
+    public int nodeGetDegree( KernelStatement state, long nodeId, Direction direction )
             throws EntityNotFoundException
     {
-        return diskLayer.nodeGetDegree( nodeId, direction );
+        // Degrees are cheap to get from the store for dense nodes, so only use already cached chains here
+        RelationshipChainCache.Chains chains = relationshipChainCache.cachedChains( nodeId );
+        if ( chains != null )
+        {
+            return chains.degree( direction );
+        }
+        return diskLayer.nodeGetDegree( state, nodeId, direction );
     }
 
     @Override
-    public int nodeGetDegree( long nodeId, Direction direction, int relType )
+    public int nodeGetDegree( KernelStatement state, long nodeId, Direction direction, int relType )
             throws EntityNotFoundException
     {
-        return diskLayer.nodeGetDegree( nodeId, direction, relType );
+        RelationshipChainCache.Chains chains = relationshipChainCache.cachedChains( nodeId );
+        if ( chains != null )
+        {
+            return chains.degree( direction, relType );
+        }
+        return diskLayer.nodeGetDegree( state, nodeId, direction, relType );
     }
 
     @Override
@@ -458,6 +515,19 @@ public class CacheLayer implements StoreReadLayer
         diskLayer.relationshipVisit( relationshipId, relationshipVisitor );
     }
 
+    @Override
+    public <EXCEPTION extends Exception> void relationshipVisit( KernelStatement state, long relationshipId,
+            RelationshipVisitor<EXCEPTION> relationshipVisitor ) throws EntityNotFoundException, EXCEPTION
+    {
+        diskLayer.relationshipVisit( state, relationshipId, relationshipVisitor );
+    }
+
+    @Override
+    public StoreStatement acquireStatement()
+    {
+        return diskLayer.acquireStatement();
+    }
+
     @Override
     public Cursor expand( Cursor inputCursor, NeoRegister.Node.In nodeId, Register.Object.In<int[]> types,
                           Register.Object.In<Direction> expandDirection, NeoRegister.Relationship.Out relId,
@@ -32,6 +32,7 @@ import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBase
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.function.Function;
+import org.neo4j.function.IntPredicate;
 import org.neo4j.function.Predicate;
 import org.neo4j.function.Predicates;
 import org.neo4j.function.Supplier;
@@ -49,6 +50,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexHistogram;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
@@ -85,7 +87,6 @@ import org.neo4j.kernel.impl.util.register.NeoRegister;
 import org.neo4j.register.Register;
 
 import static org.neo4j.collection.primitive.PrimitiveIntCollections.asSet;
-import static org.neo4j.collection.primitive.PrimitiveLongCollections.count;
 import static org.neo4j.function.IntPredicates.alwaysTrue;
 import static org.neo4j.helpers.collection.Iterables.filter;
 import static org.neo4j.helpers.collection.Iterables.map;
@@ -179,11 +180,11 @@ public class DiskLayer implements StoreReadLayer
     }
 
     @Override
-    public boolean nodeHasLabel( long nodeId, int labelId ) throws EntityNotFoundException
+    public boolean nodeHasLabel( KernelStatement state, long nodeId, int labelId ) throws EntityNotFoundException
     {
-        try
+        try ( StoreLabelCursor labels = state.getStoreStatement().nodeGetLabels( nodeId ) )
         {
-            return PrimitiveIntCollections.indexOf( nodeGetLabels( nodeId ), labelId ) != -1;
+            return labels.seek( labelId );
         }
         catch ( InvalidRecordException e )
         {
@@ -242,55 +243,55 @@ public class DiskLayer implements StoreReadLayer
     }
 
     @Override
-    public int nodeGetDegree( long nodeId, Direction direction ) throws EntityNotFoundException
+    public int nodeGetDegree( KernelStatement state, long nodeId, Direction direction )
+            throws EntityNotFoundException
     {
-        NodeRecord node = nodeStore.loadRecord( nodeId, null );
-        if ( node == null )
-        {
-            throw new EntityNotFoundException( EntityType.NODE, nodeId );
-        }
-
-        if ( node.isDense() )
-        {
-            long groupId = node.getNextRel();
-            long count = 0;
-            while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
-            {
-                RelationshipGroupRecord group = relationshipGroupStore.getRecord( groupId );
-                count += nodeDegreeByDirection( nodeId, group, direction );
-                groupId = group.getNext();
-            }
-            return (int) count;
-        }
-
-        return count( nodeListRelationships( nodeId, direction ) );
+        return nodeGetDegree( state, nodeId, direction, alwaysTrue() );
     }
 
     @Override
-    public int nodeGetDegree( long nodeId, Direction direction, int relType ) throws EntityNotFoundException
+    public int nodeGetDegree( KernelStatement state, long nodeId, Direction direction, int relType )
+            throws EntityNotFoundException
     {
-        NodeRecord node = nodeStore.loadRecord( nodeId, null );
-        if ( node == null )
-        {
-            throw new EntityNotFoundException( EntityType.NODE, nodeId );
-        }
+        return nodeGetDegree( state, nodeId, direction, state.getStoreStatement().relationshipType( relType ) );
+    }
 
-        if ( node.isDense() )
+    private int nodeGetDegree( KernelStatement state, long nodeId, Direction direction, IntPredicate types )
+            throws EntityNotFoundException
+    {
+        try ( StoreSingleNodeCursor node = state.getStoreStatement().acquireSingleNodeCursor( nodeId ) )
         {
-            long groupId = node.getNextRel();
-            while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+            if ( !node.next() )
             {
-                RelationshipGroupRecord group = relationshipGroupStore.getRecord( groupId );
-                if ( group.getType() == relType )
+                throw new EntityNotFoundException( EntityType.NODE, nodeId );
+            }
+
+            if ( node.isDense() )
+            {
+                long groupId = node.nextRelationshipId();
+                long count = 0;
+                while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
                 {
-                    return (int) nodeDegreeByDirection( nodeId, group, direction );
+                    RelationshipGroupRecord group = relationshipGroupStore.getRecord( groupId );
+                    if ( types.test( group.getType() ) )
+                    {
+                        count += nodeDegreeByDirection( nodeId, group, direction );
+                    }
+                    groupId = group.getNext();
                 }
-                groupId = group.getNext();
+                return (int) count;
             }
-            return 0;
-        }
 
-        return count( nodeListRelationships( nodeId, direction, new int[] {relType} ) );
+            int count = 0;
+            try ( StoreNodeRelationshipCursor relationships = node.relationships( direction, types ) )
+            {
+                while ( relationships.next() )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
     }
 
     private long nodeDegreeByDirection( long nodeId, RelationshipGroupRecord group, Direction direction )
@@ -489,6 +490,24 @@ public class DiskLayer implements StoreReadLayer
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state,
+                                                                             IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey )
     {
@@ -634,6 +653,12 @@ public class DiskLayer implements StoreReadLayer
         return indexService.indexUniqueValuesPercentage( indexId( descriptor ) );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return indexService.indexHistogram( indexId( descriptor ) );
+    }
+
     @Override
     public String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
     {
@@ -713,12 +738,10 @@ public class DiskLayer implements StoreReadLayer
     }
 
     @Override
-    public Property relationshipGetProperty( long relationshipId, int propertyKeyId ) throws EntityNotFoundException
+    public Property relationshipGetProperty( KernelStatement state, long relationshipId, int propertyKeyId )
+            throws EntityNotFoundException
     {
-        IteratingPropertyReceiver properties = propertyLoader.relLoadProperties( relationshipId,
-                new IteratingPropertyReceiver() );
-        Property property = property( properties, propertyKeyId );
-        return property != null ? property : Property.noRelationshipProperty( relationshipId, propertyKeyId );
+        return state.getStoreStatement().relationshipGetProperty( relationshipId, propertyKeyId );
     }
 
     @Override
@@ -728,25 +751,10 @@ public class DiskLayer implements StoreReadLayer
     }
 
     @Override
-    public Property nodeGetProperty( long nodeId, int propertyKeyId ) throws EntityNotFoundException
-    {
-        IteratingPropertyReceiver properties = propertyLoader.nodeLoadProperties( nodeId,
-                new IteratingPropertyReceiver() );
-        Property property = property( properties, propertyKeyId );
-        return property != null ? property : Property.noNodeProperty( nodeId, propertyKeyId );
-    }
-
-    private Property property( IteratingPropertyReceiver properties, int propertyKeyId )
+    public Property nodeGetProperty( KernelStatement state, long nodeId, int propertyKeyId )
+            throws EntityNotFoundException
     {
-        while ( properties.hasNext() )
-        {
-            DefinedProperty property = properties.next();
-            if ( property.propertyKeyId() == propertyKeyId )
-            {
-                return property;
-            }
-        }
-        return null;
+        return state.getStoreStatement().nodeGetProperty( nodeId, propertyKeyId );
     }
 
     @Override
@@ -812,6 +820,23 @@ public class DiskLayer implements StoreReadLayer
         return resourceIterator( reader.scan(), reader );
     }
 
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, long index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return resourceIterator( reader.rangeSeekByNumber( lower, includeLower, upper, includeUpper ), reader );
+    }
+
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, long index,
+                                                                             String prefix )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return resourceIterator( reader.rangeSeekByPrefix( prefix ), reader );
+    }
+
     @Override
     public Iterator<Token> propertyKeyGetAllTokens()
     {
@@ -866,6 +891,22 @@ public class DiskLayer implements StoreReadLayer
         relationshipVisitor.visit( relationshipId, record.getType(), record.getFirstNode(), record.getSecondNode() );
     }
 
+    @Override
+    public <EXCEPTION extends Exception> void relationshipVisit( KernelStatement state, long relationshipId,
+            RelationshipVisitor<EXCEPTION> relationshipVisitor ) throws EntityNotFoundException, EXCEPTION
+    {
+        try ( StoreSingleRelationshipCursor relationship =
+                      state.getStoreStatement().acquireSingleRelationshipCursor( relationshipId ) )
+        {
+            if ( !relationship.next() )
+            {
+                throw new EntityNotFoundException( EntityType.RELATIONSHIP, relationshipId );
+            }
+            relationshipVisitor.visit( relationshipId, relationship.type(), relationship.startNode(),
+                    relationship.endNode() );
+        }
+    }
+
     @Override
     public long highestNodeIdInUse()
     {
@@ -996,6 +1037,12 @@ public class DiskLayer implements StoreReadLayer
         relationshipStore.freeId( id );
     }
 
+    @Override
+    public StoreStatement acquireStatement()
+    {
+        return new StoreStatement( neoStore );
+    }
+
     @Override
     public Cursor expand( Cursor inputCursor, NeoRegister.Node.In nodeId, Register.Object.In<int[]> types, Register
             .Object.In<Direction> expandDirection, NeoRegister.Relationship.Out relId, NeoRegister.RelType.Out
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import java.util.Arrays;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.cache.ClockCache;
+
+/**
+ * A cache of decoded relationship chains, keyed by node id. For each cached node it keeps the ids of its
+ * relationships, grouped by relationship type and direction, in primitive arrays, such that listing the
+ * relationships of a node that is visited over and over, like a super node, doesn't have to walk the
+ * relationship chain in the store every time.
+ *
+ * The cache only ever contains committed data. Entries are {@link #invalidate(long) invalidated} by the
+ * {@link org.neo4j.kernel.impl.transaction.command.RelationshipChainCacheInvalidationApplier} as transactions
+ * are applied to the store. Loads that race with an invalidation are not cached, since they may have observed
+ * a partially applied transaction.
+ *
+ * A cache with a size of zero is disabled, and never caches anything.
+ */
+public class RelationshipChainCache
+{
+    public static final RelationshipChainCache DISABLED = new RelationshipChainCache( 0 );
+
+    // The order of the chains of each type in the cached arrays
+    private static final int OUT = 0, IN = 1, LOOP = 2, CHAINS_PER_TYPE = 3;
+
+    private final ClockCache<Long,Chains> cache;
+
+    // Incremented on every invalidation, so that loaders can tell if they raced with one.
+    private volatile long invalidations;
+
+    public RelationshipChainCache( int maxNodes )
+    {
+        this.cache = maxNodes > 0 ? new ClockCache<Long,Chains>( "RelationshipChainCache", maxNodes ) : null;
+    }
+
+    public boolean isEnabled()
+    {
+        return cache != null;
+    }
+
+    /**
+     * Get the cached relationship chains of the given node, loading them from the given store if they are not
+     * already cached.
+     */
+    public Chains chains( long nodeId, StoreReadLayer store ) throws EntityNotFoundException
+    {
+        Chains chains = cache.get( nodeId );
+        if ( chains == null )
+        {
+            long invalidationsBeforeLoad = invalidations;
+            chains = Chains.load( nodeId, store.nodeListRelationships( nodeId, Direction.BOTH ) );
+            synchronized ( this )
+            {
+                if ( invalidations == invalidationsBeforeLoad )
+                {
+                    cache.put( nodeId, chains );
+                }
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * Get the cached relationship chains of the given node, or null if they are not cached.
+     */
+    public Chains cachedChains( long nodeId )
+    {
+        return cache != null ? cache.get( nodeId ) : null;
+    }
+
+    /**
+     * Called when the relationship chains of the given node, or the node itself, have changed in the store.
+     */
+    public void invalidate( long nodeId )
+    {
+        if ( cache != null )
+        {
+            synchronized ( this )
+            {
+                invalidations++;
+                cache.remove( nodeId );
+            }
+        }
+    }
+
+    public void clear()
+    {
+        if ( cache != null )
+        {
+            synchronized ( this )
+            {
+                invalidations++;
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * The relationships of a single node. The relationships of each type are laid out as the outgoing, the
+     * incoming and then the loop relationships, and the types are sorted in ascending order.
+     */
+    public static class Chains
+    {
+        private final long nodeId;
+        private final int[] types;
+        // Start index in relationships for each chain, with a trailing end index
+        private final int[] chainStarts;
+        private final long[] relationships;
+        private final long[] otherNodes;
+
+        private Chains( long nodeId, int[] types, int[] chainStarts, long[] relationships, long[] otherNodes )
+        {
+            this.nodeId = nodeId;
+            this.types = types;
+            this.chainStarts = chainStarts;
+            this.relationships = relationships;
+            this.otherNodes = otherNodes;
+        }
+
+        static Chains load( long nodeId, RelationshipIterator iterator )
+        {
+            ChainsBuilder builder = new ChainsBuilder( nodeId );
+            while ( iterator.hasNext() )
+            {
+                iterator.relationshipVisit( iterator.next(), builder );
+            }
+            return builder.build();
+        }
+
+        public RelationshipIterator relationships( Direction direction )
+        {
+            return new ChainsIterator( this, types, direction );
+        }
+
+        public RelationshipIterator relationships( Direction direction, int[] relTypes )
+        {
+            return new ChainsIterator( this, relTypes, direction );
+        }
+
+        public int degree( Direction direction )
+        {
+            int degree = 0;
+            for ( int type : types )
+            {
+                degree += degree( direction, type );
+            }
+            return degree;
+        }
+
+        public int degree( Direction direction, int relType )
+        {
+            int typeIndex = Arrays.binarySearch( types, relType );
+            if ( typeIndex < 0 )
+            {
+                return 0;
+            }
+            int degree = chainLength( typeIndex * CHAINS_PER_TYPE + LOOP );
+            if ( direction != Direction.INCOMING )
+            {
+                degree += chainLength( typeIndex * CHAINS_PER_TYPE + OUT );
+            }
+            if ( direction != Direction.OUTGOING )
+            {
+                degree += chainLength( typeIndex * CHAINS_PER_TYPE + IN );
+            }
+            return degree;
+        }
+
+        private int chainLength( int chain )
+        {
+            return chainStarts[chain + 1] - chainStarts[chain];
+        }
+    }
+
+    private static class ChainsBuilder implements RelationshipVisitor<RuntimeException>
+    {
+        private final long nodeId;
+        private int size;
+        private long[] relationships = new long[16];
+        private long[] otherNodes = new long[16];
+        private int[] types = new int[16];
+        private int[] chainsInType = new int[16];
+
+        ChainsBuilder( long nodeId )
+        {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public void visit( long relId, int type, long startNode, long endNode )
+        {
+            if ( size == relationships.length )
+            {
+                int newLength = size * 2;
+                relationships = Arrays.copyOf( relationships, newLength );
+                otherNodes = Arrays.copyOf( otherNodes, newLength );
+                types = Arrays.copyOf( types, newLength );
+                chainsInType = Arrays.copyOf( chainsInType, newLength );
+            }
+            relationships[size] = relId;
+            types[size] = type;
+            if ( startNode == endNode )
+            {
+                otherNodes[size] = nodeId;
+                chainsInType[size] = LOOP;
+            }
+            else if ( startNode == nodeId )
+            {
+                otherNodes[size] = endNode;
+                chainsInType[size] = OUT;
+            }
+            else
+            {
+                otherNodes[size] = startNode;
+                chainsInType[size] = IN;
+            }
+            size++;
+        }
+
+        Chains build()
+        {
+            int[] distinctTypes = Arrays.copyOf( types, size );
+            Arrays.sort( distinctTypes );
+            int typeCount = 0;
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( i == 0 || distinctTypes[i] != distinctTypes[i - 1] )
+                {
+                    distinctTypes[typeCount++] = distinctTypes[i];
+                }
+            }
+            distinctTypes = Arrays.copyOf( distinctTypes, typeCount );
+
+            // Count the relationships in each chain, and turn the counts into start indexes
+            int[] chainStarts = new int[typeCount * CHAINS_PER_TYPE + 1];
+            int[] chainOfRelationship = new int[size];
+            for ( int i = 0; i < size; i++ )
+            {
+                int chain = Arrays.binarySearch( distinctTypes, types[i] ) * CHAINS_PER_TYPE + chainsInType[i];
+                chainOfRelationship[i] = chain;
+                chainStarts[chain + 1]++;
+            }
+            for ( int chain = 1; chain < chainStarts.length; chain++ )
+            {
+                chainStarts[chain] += chainStarts[chain - 1];
+            }
+
+            long[] chainedRelationships = new long[size];
+            long[] chainedOtherNodes = new long[size];
+            int[] cursors = Arrays.copyOf( chainStarts, chainStarts.length - 1 );
+            for ( int i = 0; i < size; i++ )
+            {
+                int index = cursors[chainOfRelationship[i]]++;
+                chainedRelationships[index] = relationships[i];
+                chainedOtherNodes[index] = otherNodes[i];
+            }
+            return new Chains( nodeId, distinctTypes, chainStarts, chainedRelationships, chainedOtherNodes );
+        }
+    }
+
+    private static class ChainsIterator extends RelationshipIterator.BaseIterator
+    {
+        private final Chains chains;
+        private final int[] relTypes;
+        private final Direction direction;
+        private int typeCursor;
+        private int chainInType = CHAINS_PER_TYPE;
+        private int index;
+        private int chainEnd;
+        private int chainOfCurrent;
+
+        ChainsIterator( Chains chains, int[] relTypes, Direction direction )
+        {
+            this.chains = chains;
+            this.relTypes = relTypes;
+            this.direction = direction;
+        }
+
+        @Override
+        protected boolean fetchNext()
+        {
+            while ( index == chainEnd )
+            {
+                if ( !nextChain() )
+                {
+                    return false;
+                }
+            }
+            return next( chains.relationships[index++] );
+        }
+
+        private boolean nextChain()
+        {
+            while ( true )
+            {
+                if ( chainInType == CHAINS_PER_TYPE )
+                {
+                    int typeIndex = -1;
+                    while ( typeIndex < 0 )
+                    {
+                        if ( typeCursor == relTypes.length )
+                        {
+                            return false;
+                        }
+                        typeIndex = Arrays.binarySearch( chains.types, relTypes[typeCursor++] );
+                    }
+                    chainOfCurrent = typeIndex * CHAINS_PER_TYPE - 1;
+                    chainInType = 0;
+                }
+                int chain = chainInType++;
+                chainOfCurrent++;
+                if ( (chain == OUT && direction == Direction.INCOMING) ||
+                     (chain == IN && direction == Direction.OUTGOING) )
+                {
+                    continue;
+                }
+                index = chains.chainStarts[chainOfCurrent];
+                chainEnd = chains.chainStarts[chainOfCurrent + 1];
+                return true;
+            }
+        }
+
+        @Override
+        public <EXCEPTION extends Exception> boolean relationshipVisit( long relationshipId,
+                RelationshipVisitor<EXCEPTION> visitor ) throws EXCEPTION
+        {
+            int current = index - 1;
+            int type = chains.types[chainOfCurrent / CHAINS_PER_TYPE];
+            long otherNode = chains.otherNodes[current];
+            if ( chainOfCurrent % CHAINS_PER_TYPE == IN )
+            {
+                visitor.visit( relationshipId, type, otherNode, chains.nodeId );
+            }
+            else
+            {
+                visitor.visit( relationshipId, type, chains.nodeId, otherNode );
+            }
+            return false;
+        }
+    }
+}
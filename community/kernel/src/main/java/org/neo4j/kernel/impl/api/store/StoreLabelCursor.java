@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.impl.store.DynamicNodeLabels;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+
+import static org.neo4j.kernel.impl.store.NodeLabelsField.fieldPointsToDynamicRecordOfLabels;
+import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsBody;
+
+/**
+ * Cursor over the labels of a node. In-lined labels are decoded straight from the label field of the node
+ * record, without creating any objects. Labels that are stored in the dynamic label store are read into an
+ * array when the cursor is initialized.
+ *
+ * Instances are pooled by the {@link StoreStatement} they are acquired from, and must be {@link #close() closed}
+ * when no longer needed.
+ */
+public class StoreLabelCursor implements Cursor
+{
+    // See InlineNodeLabels
+    private static final int LABEL_BITS = 36;
+
+    private final NodeStore nodeStore;
+    private final StoreStatement statement;
+
+    private boolean open;
+    private long labelField;
+    private int numberOfInlinedLabels;
+    private int bitsPerLabel;
+    private long[] dynamicLabels;
+    private int index;
+    private long labelId;
+
+    StoreLabelCursor( NodeStore nodeStore, StoreStatement statement )
+    {
+        this.nodeStore = nodeStore;
+        this.statement = statement;
+    }
+
+    StoreLabelCursor init( NodeRecord node )
+    {
+        open = true;
+        labelField = node.getLabelField();
+        if ( fieldPointsToDynamicRecordOfLabels( labelField ) )
+        {
+            dynamicLabels = DynamicNodeLabels.get( node, nodeStore );
+            numberOfInlinedLabels = 0;
+        }
+        else
+        {
+            dynamicLabels = null;
+            numberOfInlinedLabels = (int) ((labelField & 0xF000000000L) >>> LABEL_BITS);
+            bitsPerLabel = numberOfInlinedLabels == 0 ? 0 : LABEL_BITS / numberOfInlinedLabels;
+        }
+        reset();
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        if ( dynamicLabels != null )
+        {
+            if ( index < dynamicLabels.length )
+            {
+                labelId = dynamicLabels[index++];
+                return true;
+            }
+            return false;
+        }
+
+        if ( index < numberOfInlinedLabels )
+        {
+            long mask = (1L << bitsPerLabel) - 1;
+            labelId = (parseLabelsBody( labelField ) >>> (index * bitsPerLabel)) & mask;
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the id of the current label.
+     */
+    public int labelId()
+    {
+        return (int) labelId;
+    }
+
+    /**
+     * Move the cursor forward to the given label, and return whether or not the node has it.
+     */
+    public boolean seek( int labelId )
+    {
+        while ( next() )
+        {
+            if ( labelId() == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void reset()
+    {
+        index = 0;
+        labelId = -1;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( open && statement != null )
+        {
+            statement.release( this );
+        }
+        open = false;
+    }
+}
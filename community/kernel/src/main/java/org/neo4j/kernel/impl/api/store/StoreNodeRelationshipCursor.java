@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.function.IntPredicate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.store.InvalidRecordException;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+/**
+ * Cursor over the relationships of a node, following its relationship chain, or for dense nodes the chains of
+ * its relationship groups, like {@link org.neo4j.kernel.impl.api.StoreRelationshipIterable} does. Every
+ * relationship in the chain is read into the same record, so moving the cursor creates no objects, except for
+ * the relationship group records of dense nodes.
+ *
+ * Instances are pooled by the {@link StoreStatement} they are acquired from, and must be {@link #close() closed}
+ * when no longer needed.
+ */
+public class StoreNodeRelationshipCursor implements Cursor
+{
+    private static final long NO_NEXT_RELATIONSHIP = Record.NO_NEXT_RELATIONSHIP.intValue();
+    // Chains of a relationship group, in the order they are followed
+    private static final int OUT = 0, IN = 1, LOOP = 2;
+
+    private final RelationshipRecord relationship = new RelationshipRecord( -1 );
+    private final RelationshipStore relationshipStore;
+    private final RelationshipGroupStore groupStore;
+    private final StoreStatement statement;
+
+    private boolean open;
+    private long nodeId;
+    private boolean isDense;
+    private long firstRelationshipId;
+    private Direction direction;
+    private IntPredicate types;
+
+    private long nextRelationshipId;
+    private long nextGroupId;
+    private RelationshipGroupRecord group;
+    private int groupChain;
+
+    StoreNodeRelationshipCursor( RelationshipStore relationshipStore, RelationshipGroupStore groupStore,
+            StoreStatement statement )
+    {
+        this.relationshipStore = relationshipStore;
+        this.groupStore = groupStore;
+        this.statement = statement;
+    }
+
+    StoreNodeRelationshipCursor init( NodeRecord node, Direction direction, IntPredicate types )
+    {
+        open = true;
+        this.nodeId = node.getId();
+        this.isDense = node.isDense();
+        this.firstRelationshipId = node.getNextRel();
+        this.direction = direction;
+        this.types = types;
+        reset();
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        while ( nextRelationshipId != NO_NEXT_RELATIONSHIP )
+        {
+            relationshipStore.fillRecord( nextRelationshipId, relationship, NORMAL );
+            nextRelationshipId = followRelationshipChain();
+            if ( isDense )
+            {
+                if ( nextRelationshipId == NO_NEXT_RELATIONSHIP )
+                {
+                    nextRelationshipId = nextChainStart();
+                }
+                // Group chains are already filtered by type and direction
+                return true;
+            }
+            if ( types.test( relationship.getType() ) && directionMatches() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long followRelationshipChain()
+    {
+        if ( relationship.getFirstNode() == nodeId )
+        {
+            return relationship.getFirstNextRel();
+        }
+        if ( relationship.getSecondNode() == nodeId )
+        {
+            return relationship.getSecondNextRel();
+        }
+        throw new InvalidRecordException( "While loading relationships for Node[" + nodeId +
+                "] a Relationship[" + relationship.getId() + "] was encountered that had startNode: " +
+                relationship.getFirstNode() + " and endNode: " + relationship.getSecondNode() +
+                ", i.e. which had neither start nor end node as the node we're loading relationships for" );
+    }
+
+    private boolean directionMatches()
+    {
+        switch ( direction )
+        {
+        case BOTH: return true;
+        case OUTGOING: return relationship.getFirstNode() == nodeId;
+        case INCOMING: return relationship.getSecondNode() == nodeId;
+        default: throw new IllegalArgumentException( "Unknown direction " + direction );
+        }
+    }
+
+    private long nextChainStart()
+    {
+        while ( true )
+        {
+            if ( group != null && types.test( group.getType() ) )
+            {
+                while ( groupChain <= LOOP )
+                {
+                    long chainStart;
+                    boolean matchesDirection;
+                    switch ( groupChain++ )
+                    {
+                    case OUT:
+                        chainStart = group.getFirstOut();
+                        matchesDirection = direction != Direction.INCOMING;
+                        break;
+                    case IN:
+                        chainStart = group.getFirstIn();
+                        matchesDirection = direction != Direction.OUTGOING;
+                        break;
+                    default:
+                        chainStart = group.getFirstLoop();
+                        matchesDirection = true;
+                    }
+                    if ( matchesDirection && chainStart != NO_NEXT_RELATIONSHIP )
+                    {
+                        return chainStart;
+                    }
+                }
+            }
+
+            if ( nextGroupId == NO_NEXT_RELATIONSHIP )
+            {
+                return NO_NEXT_RELATIONSHIP;
+            }
+            group = groupStore.getRecord( nextGroupId );
+            nextGroupId = group.getNext();
+            groupChain = OUT;
+        }
+    }
+
+    /**
+     * @return the id of the current relationship.
+     */
+    public long id()
+    {
+        return relationship.getId();
+    }
+
+    /**
+     * @return the type of the current relationship.
+     */
+    public int type()
+    {
+        return relationship.getType();
+    }
+
+    /**
+     * @return the start node of the current relationship.
+     */
+    public long startNode()
+    {
+        return relationship.getFirstNode();
+    }
+
+    /**
+     * @return the end node of the current relationship.
+     */
+    public long endNode()
+    {
+        return relationship.getSecondNode();
+    }
+
+    /**
+     * @return the node on the other side of the current relationship, seen from the node this cursor was
+     * acquired for.
+     */
+    public long otherNode()
+    {
+        return relationship.getFirstNode() == nodeId ? relationship.getSecondNode() : relationship.getFirstNode();
+    }
+
+    @Override
+    public void reset()
+    {
+        group = null;
+        if ( isDense )
+        {
+            nextGroupId = firstRelationshipId;
+            nextRelationshipId = nextChainStart();
+        }
+        else
+        {
+            nextGroupId = NO_NEXT_RELATIONSHIP;
+            nextRelationshipId = firstRelationshipId;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if ( open )
+        {
+            statement.release( this );
+        }
+        open = false;
+        types = null;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.Record;
+
+/**
+ * Cursor over a chain of property records, that reads the property blocks straight out of the property store
+ * pages into arrays that are reused for every record and block in the chain. No objects are created while
+ * moving the cursor; only asking for the {@link #value() value} or the {@link #property() property} of the
+ * current row may create objects.
+ *
+ * Instances are pooled by the {@link StoreStatement} they are acquired from, and must be {@link #close() closed}
+ * when no longer needed.
+ */
+public class StorePropertyCursor implements Cursor
+{
+    private final PropertyStore propertyStore;
+    private final StoreStatement statement;
+    private final long[] blocks = new long[PropertyType.getPayloadSizeLongs()];
+    // The blocks of the current property, in an array of its exact size, since that's what PropertyType expects
+    private final long[][] blocksOfSize = new long[blocks.length + 1][];
+    private final PropertyBlock block = new PropertyBlock();
+
+    private boolean open;
+    private long firstPropertyId;
+    private long nextPropertyId;
+    private int blockIndex;
+
+    StorePropertyCursor( PropertyStore propertyStore, StoreStatement statement )
+    {
+        this.propertyStore = propertyStore;
+        this.statement = statement;
+        for ( int size = 1; size < blocksOfSize.length; size++ )
+        {
+            blocksOfSize[size] = new long[size];
+        }
+    }
+
+    StorePropertyCursor init( long firstPropertyId )
+    {
+        open = true;
+        this.firstPropertyId = firstPropertyId;
+        reset();
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        while ( true )
+        {
+            if ( blockIndex < blocks.length )
+            {
+                long header = blocks[blockIndex];
+                PropertyType type = PropertyType.getPropertyType( header, true );
+                if ( type != null )
+                {
+                    int numberOfBlocks = type.calculateNumberOfBlocksUsed( header );
+                    if ( numberOfBlocks > 0 && blockIndex + numberOfBlocks <= blocks.length )
+                    {
+                        long[] valueBlocks = blocksOfSize[numberOfBlocks];
+                        System.arraycopy( blocks, blockIndex, valueBlocks, 0, numberOfBlocks );
+                        block.setValueBlocks( valueBlocks );
+                        blockIndex += numberOfBlocks;
+                        return true;
+                    }
+                }
+                // No more blocks in this record
+                blockIndex = blocks.length;
+            }
+
+            if ( nextPropertyId == Record.NO_NEXT_PROPERTY.intValue() )
+            {
+                return false;
+            }
+            nextPropertyId = propertyStore.readPropertyBlocks( nextPropertyId, blocks );
+            blockIndex = 0;
+        }
+    }
+
+    /**
+     * @return the property key id of the current property.
+     */
+    public int propertyKeyId()
+    {
+        return block.getKeyIndexId();
+    }
+
+    /**
+     * Move the cursor forward to the property with the given key, and return whether or not there is one.
+     */
+    public boolean seek( int propertyKeyId )
+    {
+        while ( next() )
+        {
+            if ( propertyKeyId() == propertyKeyId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the value of the current property. Strings and arrays that are too big to be in-lined in the
+     * property record are read from their dynamic stores.
+     */
+    public Object value()
+    {
+        return propertyStore.getValue( block );
+    }
+
+    /**
+     * @return a new {@link DefinedProperty} holding the current property.
+     */
+    public DefinedProperty property()
+    {
+        return block.newPropertyData( propertyStore );
+    }
+
+    @Override
+    public void reset()
+    {
+        nextPropertyId = firstPropertyId;
+        blockIndex = blocks.length;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( open && statement != null )
+        {
+            statement.release( this );
+        }
+        open = false;
+    }
+}
@@ -35,6 +35,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexHistogram;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -53,7 +54,7 @@ import org.neo4j.register.Register;
  */
 public interface StoreReadLayer
 {
-    boolean nodeHasLabel( long nodeId, int labelId ) throws EntityNotFoundException;
+    boolean nodeHasLabel( KernelStatement state, long nodeId, int labelId ) throws EntityNotFoundException;
 
     boolean nodeExists( long nodeId );
 
@@ -65,10 +66,10 @@ public interface StoreReadLayer
     RelationshipIterator nodeListRelationships( long nodeId, Direction direction,
             int[] relTypes ) throws EntityNotFoundException;
 
-    int nodeGetDegree( long nodeId, Direction direction )
+    int nodeGetDegree( KernelStatement state, long nodeId, Direction direction )
             throws EntityNotFoundException;
 
-    int nodeGetDegree( long nodeId, Direction direction, int relType )
+    int nodeGetDegree( KernelStatement state, long nodeId, Direction direction, int relType )
             throws EntityNotFoundException;
 
     boolean nodeVisitDegrees( long nodeId, DegreeVisitor visitor );
@@ -94,7 +95,8 @@ public interface StoreReadLayer
 
     PrimitiveLongIterator nodeGetPropertyKeys( long nodeId ) throws EntityNotFoundException;
 
-    Property nodeGetProperty( long nodeId, int propertyKeyId ) throws EntityNotFoundException;
+    Property nodeGetProperty( KernelStatement state, long nodeId, int propertyKeyId )
+            throws EntityNotFoundException;
 
     Iterator<DefinedProperty> nodeGetAllProperties( long nodeId ) throws EntityNotFoundException;
 
@@ -103,7 +105,7 @@ public interface StoreReadLayer
     PrimitiveLongIterator relationshipGetPropertyKeys( long relationshipId )
                     throws EntityNotFoundException;
 
-    Property relationshipGetProperty( long relationshipId, int propertyKeyId )
+    Property relationshipGetProperty( KernelStatement state, long relationshipId, int propertyKeyId )
                             throws EntityNotFoundException;
 
     Iterator<DefinedProperty> relationshipGetAllProperties( long nodeId )
@@ -134,6 +136,15 @@ public interface StoreReadLayer
     PrimitiveLongResourceIterator nodesGetFromIndexScan( KernelStatement state, IndexDescriptor index )
             throws IndexNotFoundKernelException;
 
+    PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                      Number lower, boolean includeLower,
+                                                                      Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                      String prefix )
+            throws IndexNotFoundKernelException;
+
     IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey );
 
     InternalIndexState indexGetState( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
@@ -165,6 +176,9 @@ public interface StoreReadLayer
     <EXCEPTION extends Exception> void relationshipVisit( long relationshipId,
             RelationshipVisitor<EXCEPTION> relationshipVisitor ) throws EntityNotFoundException, EXCEPTION;
 
+    <EXCEPTION extends Exception> void relationshipVisit( KernelStatement state, long relationshipId,
+            RelationshipVisitor<EXCEPTION> relationshipVisitor ) throws EntityNotFoundException, EXCEPTION;
+
     long highestNodeIdInUse();
 
     PrimitiveLongIterator nodesGetAll();
@@ -185,6 +199,12 @@ public interface StoreReadLayer
 
     void releaseRelationship( long id );
 
+    /**
+     * Acquires a {@link StoreStatement}, that hands out cursors which read straight from the store, for the
+     * duration of a {@link KernelStatement}.
+     */
+    StoreStatement acquireStatement();
+
     Cursor expand( Cursor inputCursor, NeoRegister.Node.In nodeId, Register.Object.In<int[]> types,
                    Register.Object.In<Direction> expandDirection, NeoRegister.Relationship.Out relId,
                    NeoRegister.RelType.Out relType, Register.Object.Out<Direction> direction,
@@ -197,4 +217,6 @@ public interface StoreReadLayer
     long indexSize( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
     double indexUniqueValuesPercentage( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
+    IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 }
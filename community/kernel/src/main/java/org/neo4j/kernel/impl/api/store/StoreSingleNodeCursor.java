@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.function.IntPredicate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+
+/**
+ * Cursor over a single node. {@link #next()} moves the cursor onto the node if it is in use, after which its
+ * labels, properties and relationships can be read with cursors from the same {@link StoreStatement}. The node
+ * record is read into a record that is reused every time the cursor is initialized.
+ *
+ * Instances are pooled by the {@link StoreStatement} they are acquired from, and must be {@link #close() closed}
+ * when no longer needed.
+ */
+public class StoreSingleNodeCursor implements Cursor
+{
+    private final NodeRecord record = new NodeRecord( -1 );
+    private final NodeStore nodeStore;
+    private final StoreStatement statement;
+
+    private boolean open;
+    private long nodeId;
+    private boolean visited;
+
+    StoreSingleNodeCursor( NodeStore nodeStore, StoreStatement statement )
+    {
+        this.nodeStore = nodeStore;
+        this.statement = statement;
+    }
+
+    StoreSingleNodeCursor init( long nodeId )
+    {
+        open = true;
+        this.nodeId = nodeId;
+        reset();
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        if ( visited )
+        {
+            return false;
+        }
+        visited = true;
+        return nodeStore.loadRecord( nodeId, record ) != null;
+    }
+
+    /**
+     * @return the id of the current node.
+     */
+    public long id()
+    {
+        return record.getId();
+    }
+
+    /**
+     * @return whether or not the relationships of the current node are stored in relationship groups.
+     */
+    public boolean isDense()
+    {
+        return record.isDense();
+    }
+
+    /**
+     * @return the first relationship of the current node, or its first relationship group if it is
+     * {@link #isDense() dense}.
+     */
+    public long nextRelationshipId()
+    {
+        return record.getNextRel();
+    }
+
+    /**
+     * @return a cursor over the labels of the current node.
+     */
+    public StoreLabelCursor labels()
+    {
+        return statement.labelCursor( record );
+    }
+
+    /**
+     * @return a cursor over the properties of the current node.
+     */
+    public StorePropertyCursor properties()
+    {
+        return statement.propertyCursor( record.getNextProp() );
+    }
+
+    /**
+     * @return a cursor over the relationships of the current node, in the given direction and of the types
+     * accepted by the given predicate.
+     */
+    public StoreNodeRelationshipCursor relationships( Direction direction, IntPredicate types )
+    {
+        return statement.nodeRelationshipCursor( record, direction, types );
+    }
+
+    @Override
+    public void reset()
+    {
+        visited = false;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( open )
+        {
+            statement.release( this );
+        }
+        open = false;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+
+/**
+ * Cursor over a single relationship. {@link #next()} moves the cursor onto the relationship if it is in use.
+ * The relationship record is read into a record that is reused every time the cursor is initialized.
+ *
+ * Instances are pooled by the {@link StoreStatement} they are acquired from, and must be {@link #close() closed}
+ * when no longer needed.
+ */
+public class StoreSingleRelationshipCursor implements Cursor
+{
+    private final RelationshipRecord record = new RelationshipRecord( -1 );
+    private final RelationshipStore relationshipStore;
+    private final StoreStatement statement;
+
+    private boolean open;
+    private long relationshipId;
+    private boolean visited;
+
+    StoreSingleRelationshipCursor( RelationshipStore relationshipStore, StoreStatement statement )
+    {
+        this.relationshipStore = relationshipStore;
+        this.statement = statement;
+    }
+
+    StoreSingleRelationshipCursor init( long relationshipId )
+    {
+        open = true;
+        this.relationshipId = relationshipId;
+        reset();
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        if ( visited )
+        {
+            return false;
+        }
+        visited = true;
+        return relationshipStore.fillRecord( relationshipId, record, CHECK ) && record.inUse();
+    }
+
+    /**
+     * @return the id of the current relationship.
+     */
+    public long id()
+    {
+        return record.getId();
+    }
+
+    /**
+     * @return the type of the current relationship.
+     */
+    public int type()
+    {
+        return record.getType();
+    }
+
+    /**
+     * @return the start node of the current relationship.
+     */
+    public long startNode()
+    {
+        return record.getFirstNode();
+    }
+
+    /**
+     * @return the end node of the current relationship.
+     */
+    public long endNode()
+    {
+        return record.getSecondNode();
+    }
+
+    /**
+     * @return a cursor over the properties of the current relationship.
+     */
+    public StorePropertyCursor properties()
+    {
+        return statement.propertyCursor( record.getNextProp() );
+    }
+
+    @Override
+    public void reset()
+    {
+        visited = false;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( open )
+        {
+            statement.release( this );
+        }
+        open = false;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import java.util.Arrays;
+
+import org.neo4j.function.IntPredicate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.api.EntityType;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.store.NeoStore;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+
+/**
+ * The store-level resources of a {@link org.neo4j.kernel.impl.api.KernelStatement}. It hands out cursors that read
+ * straight from the store files, and keeps closed cursors around for reuse, together with the records they are
+ * initialized from, so that reading records through a statement creates no garbage once the pools are warm.
+ *
+ * A statement is used by a single thread at a time, so none of this is thread safe.
+ */
+public class StoreStatement implements AutoCloseable
+{
+    private final NodeStore nodeStore;
+    private final RelationshipStore relationshipStore;
+    private final RelationshipGroupStore relationshipGroupStore;
+    private final PropertyStore propertyStore;
+    private final NodeRecord nodeRecord = new NodeRecord( -1 );
+    private final RelationshipRecord relationshipRecord = new RelationshipRecord( -1 );
+
+    private final Pool<StorePropertyCursor> propertyCursors = new Pool<>( 4 );
+    private final Pool<StoreLabelCursor> labelCursors = new Pool<>( 2 );
+    private final Pool<StoreSingleNodeCursor> nodeCursors = new Pool<>( 2 );
+    private final Pool<StoreSingleRelationshipCursor> relationshipCursors = new Pool<>( 2 );
+    private final Pool<StoreNodeRelationshipCursor> nodeRelationshipCursors = new Pool<>( 2 );
+    private final RelationshipTypePredicate relationshipType = new RelationshipTypePredicate();
+
+    public StoreStatement( NeoStore neoStore )
+    {
+        this.nodeStore = neoStore.getNodeStore();
+        this.relationshipStore = neoStore.getRelationshipStore();
+        this.relationshipGroupStore = neoStore.getRelationshipGroupStore();
+        this.propertyStore = neoStore.getPropertyStore();
+    }
+
+    public StoreSingleNodeCursor acquireSingleNodeCursor( long nodeId )
+    {
+        StoreSingleNodeCursor cursor = nodeCursors.acquire();
+        if ( cursor == null )
+        {
+            cursor = new StoreSingleNodeCursor( nodeStore, this );
+        }
+        return cursor.init( nodeId );
+    }
+
+    public StoreSingleRelationshipCursor acquireSingleRelationshipCursor( long relationshipId )
+    {
+        StoreSingleRelationshipCursor cursor = relationshipCursors.acquire();
+        if ( cursor == null )
+        {
+            cursor = new StoreSingleRelationshipCursor( relationshipStore, this );
+        }
+        return cursor.init( relationshipId );
+    }
+
+    public StorePropertyCursor nodeGetProperties( long nodeId ) throws EntityNotFoundException
+    {
+        return propertyCursor( node( nodeId ).getNextProp() );
+    }
+
+    public StorePropertyCursor relationshipGetProperties( long relationshipId ) throws EntityNotFoundException
+    {
+        if ( !relationshipStore.fillRecord( relationshipId, relationshipRecord, RecordLoad.CHECK ) )
+        {
+            throw new EntityNotFoundException( EntityType.RELATIONSHIP, relationshipId );
+        }
+        return propertyCursor( relationshipRecord.getNextProp() );
+    }
+
+    /**
+     * Read a single property of a node, only materializing the value of that property.
+     */
+    public Property nodeGetProperty( long nodeId, int propertyKeyId ) throws EntityNotFoundException
+    {
+        try ( StorePropertyCursor properties = nodeGetProperties( nodeId ) )
+        {
+            return properties.seek( propertyKeyId ) ?
+                    properties.property() : Property.noNodeProperty( nodeId, propertyKeyId );
+        }
+    }
+
+    /**
+     * Read a single property of a relationship, only materializing the value of that property.
+     */
+    public Property relationshipGetProperty( long relationshipId, int propertyKeyId )
+            throws EntityNotFoundException
+    {
+        try ( StorePropertyCursor properties = relationshipGetProperties( relationshipId ) )
+        {
+            return properties.seek( propertyKeyId ) ?
+                    properties.property() : Property.noRelationshipProperty( relationshipId, propertyKeyId );
+        }
+    }
+
+    public StoreLabelCursor nodeGetLabels( long nodeId ) throws EntityNotFoundException
+    {
+        return labelCursor( node( nodeId ) );
+    }
+
+    private NodeRecord node( long nodeId ) throws EntityNotFoundException
+    {
+        if ( nodeStore.loadRecord( nodeId, nodeRecord ) == null )
+        {
+            throw new EntityNotFoundException( EntityType.NODE, nodeId );
+        }
+        return nodeRecord;
+    }
+
+    StorePropertyCursor propertyCursor( long firstPropertyId )
+    {
+        StorePropertyCursor cursor = propertyCursors.acquire();
+        if ( cursor == null )
+        {
+            cursor = new StorePropertyCursor( propertyStore, this );
+        }
+        return cursor.init( firstPropertyId );
+    }
+
+    StoreLabelCursor labelCursor( NodeRecord node )
+    {
+        StoreLabelCursor cursor = labelCursors.acquire();
+        if ( cursor == null )
+        {
+            cursor = new StoreLabelCursor( nodeStore, this );
+        }
+        return cursor.init( node );
+    }
+
+    StoreNodeRelationshipCursor nodeRelationshipCursor( NodeRecord node, Direction direction, IntPredicate types )
+    {
+        StoreNodeRelationshipCursor cursor = nodeRelationshipCursors.acquire();
+        if ( cursor == null )
+        {
+            cursor = new StoreNodeRelationshipCursor( relationshipStore, relationshipGroupStore, this );
+        }
+        return cursor.init( node, direction, types );
+    }
+
+    /**
+     * @return a predicate that accepts only the given relationship type. The same instance is handed out by every
+     * call, so it must not be used after the next call.
+     */
+    IntPredicate relationshipType( int type )
+    {
+        relationshipType.type = type;
+        return relationshipType;
+    }
+
+    void release( StorePropertyCursor cursor )
+    {
+        propertyCursors.release( cursor );
+    }
+
+    void release( StoreLabelCursor cursor )
+    {
+        labelCursors.release( cursor );
+    }
+
+    void release( StoreSingleNodeCursor cursor )
+    {
+        nodeCursors.release( cursor );
+    }
+
+    void release( StoreSingleRelationshipCursor cursor )
+    {
+        relationshipCursors.release( cursor );
+    }
+
+    void release( StoreNodeRelationshipCursor cursor )
+    {
+        nodeRelationshipCursors.release( cursor );
+    }
+
+    @Override
+    public void close()
+    {
+        propertyCursors.clear();
+        labelCursors.clear();
+        nodeCursors.clear();
+        relationshipCursors.clear();
+        nodeRelationshipCursors.clear();
+    }
+
+    /**
+     * Stack of closed cursors of one kind, that grows as needed.
+     */
+    private static class Pool<CURSOR>
+    {
+        private Object[] free;
+        private int size;
+
+        Pool( int initialCapacity )
+        {
+            free = new Object[initialCapacity];
+        }
+
+        @SuppressWarnings( "unchecked" )
+        CURSOR acquire()
+        {
+            return size > 0 ? (CURSOR) free[--size] : null;
+        }
+
+        void release( CURSOR cursor )
+        {
+            if ( size == free.length )
+            {
+                free = Arrays.copyOf( free, size * 2 );
+            }
+            free[size++] = cursor;
+        }
+
+        void clear()
+        {
+            Arrays.fill( free, null );
+            size = 0;
+        }
+    }
+
+    private static class RelationshipTypePredicate implements IntPredicate
+    {
+        private int type;
+
+        @Override
+        public boolean test( int value )
+        {
+            return value == type;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.neo4j.kernel.api.txstate.ReadableTxState;
 import org.neo4j.kernel.impl.api.state.NodeState;
 import org.neo4j.kernel.impl.api.state.RelationshipState;
 import org.neo4j.kernel.impl.api.store.StoreReadLayer;
+import org.neo4j.kernel.impl.api.store.StoreStatement;
 import org.neo4j.kernel.impl.core.NodeProxy;
 import org.neo4j.kernel.impl.util.diffsets.ReadableDiffSets;
 
@@ -146,7 +147,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
 
     private void takeSnapshot( ReadableTxState state, StoreReadLayer storeReadLayer )
     {
-        try
+        try ( StoreStatement storeStatement = storeReadLayer.acquireStatement() )
         {
             for ( Long nodeId : state.addedAndRemovedNodes().getRemoved() )
             {
@@ -183,7 +184,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
                     DefinedProperty property = added.next();
                     assignedNodeProperties.add( new NodePropertyEntryView( nodeState.getId(),
                             storeReadLayer.propertyKeyGetName( property.propertyKeyId() ), property.value(),
-                            committedValue( storeReadLayer, nodeState, property.propertyKeyId() ) ) );
+                            committedValue( storeStatement, nodeState, property.propertyKeyId() ) ) );
                 }
                 Iterator<Integer> removed = nodeState.removedProperties();
                 while ( removed.hasNext()  )
@@ -191,7 +192,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
                     Integer property = removed.next();
                     removedNodeProperties.add( new NodePropertyEntryView( nodeState.getId(),
                             storeReadLayer.propertyKeyGetName( property ), null,
-                            committedValue( storeReadLayer, nodeState, property ) ) );
+                            committedValue( storeStatement, nodeState, property ) ) );
                 }
                 ReadableDiffSets<Integer> labels = nodeState.labelDiffSets();
                 for ( Integer label : labels.getAdded() )
@@ -211,7 +212,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
                     DefinedProperty property = added.next();
                     assignedRelationshipProperties.add( new RelationshipPropertyEntryView( relState.getId(),
                             storeReadLayer.propertyKeyGetName( property.propertyKeyId() ), property.value(),
-                            committedValue( storeReadLayer, relState, property.propertyKeyId() ) ) );
+                            committedValue( storeStatement, relState, property.propertyKeyId() ) ) );
                 }
                 Iterator<Integer> removed = relState.removedProperties();
                 while ( removed.hasNext()  )
@@ -219,7 +220,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
                     Integer property = removed.next();
                     removedRelationshipProperties.add( new RelationshipPropertyEntryView( relState.getId(),
                             storeReadLayer.propertyKeyGetName( property ), null,
-                            committedValue( storeReadLayer, relState, property ) ) );
+                            committedValue( storeStatement, relState, property ) ) );
                 }
             }
         }
@@ -251,7 +252,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
         }, added);
     }
 
-    private Object committedValue( StoreReadLayer storeReadLayer, NodeState nodeState, int property )
+    private Object committedValue( StoreStatement storeStatement, NodeState nodeState, int property )
     {
         try
         {
@@ -259,7 +260,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
             {
                 return null;
             }
-            return storeReadLayer.nodeGetProperty( nodeState.getId(), property ).value();
+            return storeStatement.nodeGetProperty( nodeState.getId(), property ).value();
         }
         catch ( EntityNotFoundException | PropertyNotFoundException e )
         {
@@ -267,7 +268,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
         }
     }
 
-    private Object committedValue( StoreReadLayer storeReadLayer, RelationshipState relState, int property )
+    private Object committedValue( StoreStatement storeStatement, RelationshipState relState, int property )
     {
         try
         {
@@ -275,7 +276,7 @@ public class TxStateTransactionDataSnapshot implements TransactionData
             {
                 return null;
             }
-            return storeReadLayer.relationshipGetProperty( relState.getId(), property ).value();
+            return storeStatement.relationshipGetProperty( relState.getId(), property ).value();
         }
         catch ( EntityNotFoundException | PropertyNotFoundException e )
         {
@@ -27,12 +27,14 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.logging.Log;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 
@@ -94,7 +96,8 @@ public class ConfiguringPageCacheFactory
                 swapperFactory,
                 calculateMaxPages( config ),
                 calculatePageSize( config ),
-                tracer );
+                tracer,
+                EvictionPolicy.valueOf( config.get( pagecache_eviction_policy ) ) );
     }
 
     public int calculateMaxPages( Config config )
@@ -125,7 +128,8 @@ public class ConfiguringPageCacheFactory
         long pageCacheMb = (calculateMaxPages( config ) * calculatePageSize( config )) / 1024 / 1024;
         String msg = "Physical mem: " + totalPhysicalMemMb + " MiB," +
                      " Heap size: " + maxVmUsageMb + " MiB," +
-                     " Page cache size: " + pageCacheMb + " MiB.";
+                     " Page cache size: " + pageCacheMb + " MiB," +
+                     " Page cache eviction policy: " + config.get( pagecache_eviction_policy ) + ".";
 
         log.info( msg );
     }
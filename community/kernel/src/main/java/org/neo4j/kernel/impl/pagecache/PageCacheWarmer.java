@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_warmup_async;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_warmup_profiling_interval;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.pageCacheWarmup;
+
+/**
+ * Periodically records which pages of the store files are in the page cache, into a profile file next to each
+ * store file, and uses those profiles to fault the same pages back in, when the database starts up again.
+ *
+ * A profile file holds the number of pages in the store file when the profile was taken, followed by a bitmap
+ * with one bit per page, that is set if the page was in memory.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_TMP = ".tmp";
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File storeDir;
+    private final boolean enabled;
+    private final boolean async;
+    private final long profilingInterval;
+    private final Log log;
+    private final Object profileLock = new Object();
+    private volatile boolean stopped;
+    private JobScheduler.JobHandle profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File storeDir,
+            Config config, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.storeDir = storeDir;
+        this.enabled = config.get( pagecache_warmup_enabled );
+        this.async = config.get( pagecache_warmup_async );
+        this.profilingInterval = config.get( pagecache_warmup_profiling_interval );
+        this.log = log;
+    }
+
+    @Override
+    public synchronized void start() throws IOException
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        stopped = false;
+
+        if ( async )
+        {
+            scheduler.schedule( pageCacheWarmup, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    reheat();
+                }
+            } );
+        }
+        else
+        {
+            reheat();
+        }
+
+        profileJob = scheduler.scheduleRecurring( pageCacheWarmup, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    profile();
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Failed to record the page cache profile", e );
+                }
+            }
+        }, profilingInterval, profilingInterval, MILLISECONDS );
+    }
+
+    @Override
+    public synchronized void stop() throws IOException
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        stopped = true;
+        if ( profileJob != null )
+        {
+            profileJob.cancel( false );
+            profileJob = null;
+        }
+        // Take a final profile, so a cleanly restarted database comes up with the most recent working set.
+        profile();
+    }
+
+    /**
+     * Fault in the pages recorded in the profiles of all the mapped store files, in parallel.
+     *
+     * @return the number of pages that were faulted in, or found to already be in memory.
+     */
+    public long reheat()
+    {
+        long startTime = System.currentTimeMillis();
+        List<PagedFile> files;
+        try
+        {
+            files = mappedStoreFiles();
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Failed to warm up the page cache", e );
+            return 0;
+        }
+
+        final CountDownLatch done = new CountDownLatch( files.size() );
+        final AtomicLong pagesLoaded = new AtomicLong();
+        Executor executor = scheduler.executor( pageCacheWarmup );
+        for ( final PagedFile pagedFile : files )
+        {
+            executor.execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        pagesLoaded.addAndGet( reheat( pagedFile ) );
+                    }
+                    catch ( Exception e )
+                    {
+                        log.warn( "Failed to warm up the page cache for " + pagedFile.file(), e );
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }
+            } );
+        }
+
+        try
+        {
+            done.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        log.info( "Page cache warm up loaded %d pages in %d ms",
+                pagesLoaded.get(), System.currentTimeMillis() - startTime );
+        return pagesLoaded.get();
+    }
+
+    private long reheat( PagedFile pagedFile ) throws IOException
+    {
+        File file = pagedFile.file();
+        long[] profile = readProfile( profileFile( file ) );
+        if ( profile == null )
+        {
+            return 0;
+        }
+
+        long pagesLoaded = 0;
+        // We take our own mapping, so the file cannot be unmapped while we are using it. The read-ahead flag turns
+        // runs of consecutive pages into large sequential reads.
+        try ( PagedFile mapping = pageCache.map( file, pagedFile.pageSize() );
+              PageCursor cursor = mapping.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            long pageCount = Math.min( profile[0], mapping.getLastPageId() + 1 );
+            for ( long pageId = 0; pageId < pageCount && !stopped; pageId++ )
+            {
+                if ( isSet( profile, pageId ) && cursor.next( pageId ) )
+                {
+                    pagesLoaded++;
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    /**
+     * Record which pages of the mapped store files are currently in memory.
+     */
+    public void profile() throws IOException
+    {
+        synchronized ( profileLock )
+        {
+            for ( PagedFile pagedFile : mappedStoreFiles() )
+            {
+                try
+                {
+                    profile( pagedFile );
+                }
+                catch ( IllegalStateException e )
+                {
+                    // The file was unmapped while we were profiling it, so there's nothing to record.
+                }
+            }
+        }
+    }
+
+    private void profile( PagedFile pagedFile ) throws IOException
+    {
+        File file = pagedFile.file();
+        long[] profile;
+        // The no-fault flag means that we only see the pages that are already in memory, without disturbing them.
+        try ( PagedFile mapping = pageCache.map( file, pagedFile.pageSize() );
+              PageCursor cursor = mapping.io( 0, PF_SHARED_LOCK | PF_NO_FAULT | PF_TRANSIENT ) )
+        {
+            long pageCount = mapping.getLastPageId() + 1;
+            profile = new long[1 + (int) ((pageCount + 63) >>> 6)];
+            profile[0] = pageCount;
+            while ( cursor.next() )
+            {
+                long pageId = cursor.getCurrentPageId();
+                if ( pageId >= pageCount )
+                {
+                    break;
+                }
+                if ( cursor.isPinned() )
+                {
+                    profile[1 + (int) (pageId >>> 6)] |= 1L << (pageId & 63);
+                }
+            }
+        }
+        writeProfile( profileFile( file ), profile );
+    }
+
+    private List<PagedFile> mappedStoreFiles() throws IOException
+    {
+        List<PagedFile> files = new ArrayList<>();
+        for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+        {
+            if ( storeDir.getAbsoluteFile().equals( pagedFile.file().getAbsoluteFile().getParentFile() ) )
+            {
+                files.add( pagedFile );
+            }
+        }
+        return files;
+    }
+
+    private static boolean isSet( long[] profile, long pageId )
+    {
+        return (profile[1 + (int) (pageId >>> 6)] & (1L << (pageId & 63))) != 0;
+    }
+
+    static File profileFile( File storeFile )
+    {
+        return new File( storeFile.getParentFile(), storeFile.getName() + SUFFIX_CACHEPROF );
+    }
+
+    private void writeProfile( File profileFile, long[] profile ) throws IOException
+    {
+        // Write to a temporary file first, and then rename it, so we never leave a half-written profile behind.
+        File tmpFile = new File( profileFile.getParentFile(), profileFile.getName() + SUFFIX_TMP );
+        ByteBuffer buffer = ByteBuffer.allocate( profile.length * 8 );
+        buffer.asLongBuffer().put( profile );
+        try ( StoreChannel channel = fs.create( tmpFile ) )
+        {
+            channel.writeAll( buffer );
+            channel.force( false );
+        }
+        fs.deleteFile( profileFile );
+        fs.renameFile( tmpFile, profileFile );
+    }
+
+    private long[] readProfile( File profileFile ) throws IOException
+    {
+        if ( !fs.fileExists( profileFile ) )
+        {
+            return null;
+        }
+        try ( StoreChannel channel = fs.open( profileFile, "r" ) )
+        {
+            long size = channel.size();
+            if ( size < 8 || size % 8 != 0 || size > Integer.MAX_VALUE )
+            {
+                log.warn( "Ignoring malformed page cache profile %s", profileFile );
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate( (int) size );
+            while ( buffer.hasRemaining() )
+            {
+                if ( channel.read( buffer ) == -1 )
+                {
+                    return null;
+                }
+            }
+            buffer.flip();
+            long[] profile = new long[(int) (size / 8)];
+            buffer.asLongBuffer().get( profile );
+            if ( profile[0] < 0 || ((profile[0] + 63) >>> 6) != profile.length - 1 )
+            {
+                log.warn( "Ignoring malformed page cache profile %s", profileFile );
+                return null;
+            }
+            return profile;
+        }
+    }
+}
@@ -79,10 +79,22 @@ public class StoreRecoverer
             // then NOT creating a new log file (will be done the next startup)
             return false;
         }
-        try ( StoreChannel logChannel = fs.open( log, "r" ) )
+
+        // Log rotation that leaves flushing the store to background check points creates the new log file
+        // before the store knows about it, so there may be newer log files than the current version
+        long version = currentLogVersion;
+        while ( fs.fileExists( log ) )
         {
-            return LogRecoveryCheck.recoveryRequired(logChannel);
+            try ( StoreChannel logChannel = fs.open( log, "r" ) )
+            {
+                if ( LogRecoveryCheck.recoveryRequired( logChannel ) )
+                {
+                    return true;
+                }
+            }
+            log = logFiles.getLogFileForVersion( ++version );
         }
+        return false;
     }
 
     public void recover( File dataDir, Map<String, String> params, LogProvider userLogProvider )
@@ -886,6 +886,13 @@ public class NeoStore extends AbstractStore implements TransactionIdStore, LogVe
         return lastCommittingTxField.incrementAndGet();
     }
 
+    @Override
+    public long getLastCommittingTransactionId()
+    {
+        checkInitialized( lastCommittingTxField.get() );
+        return lastCommittingTxField.get();
+    }
+
     @Override
     public void transactionCommitted( long transactionId, long checksum )
     {
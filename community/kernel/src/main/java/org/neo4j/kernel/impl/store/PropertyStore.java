@@ -422,6 +422,47 @@ public class PropertyStore extends AbstractRecordStore<PropertyRecord> implement
         return getRecordFromBuffer( id, cursor );
     }
 
+    /**
+     * Read the raw property blocks of the given property record into the given array, without creating any
+     * records or blocks. The array should have room for {@link PropertyType#getPayloadSizeLongs()} longs.
+     * A zero header marks the end of the blocks in the record, like in {@link #getRecord(long)}.
+     *
+     * @return the id of the next property record in the chain.
+     * @throws InvalidRecordException if the record is not in use, just like {@link #getRecord(long)}.
+     */
+    public long readPropertyBlocks( long id, long[] blocks )
+    {
+        try ( PageCursor cursor = storeFile.io( pageIdForRecord( id ), PF_SHARED_LOCK ) )
+        {
+            long nextProp = Record.NO_NEXT_PROPERTY.intValue();
+            blocks[0] = 0;
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.setOffset( (int) (id * RECORD_SIZE % storeFile.pageSize()) );
+                    byte modifiers = cursor.getByte();
+                    long nextMod = ( modifiers & 0x0FL ) << 32;
+                    cursor.getUnsignedInt(); // previous property record, which we don't need
+                    nextProp = longFromIntAndMod( cursor.getUnsignedInt(), nextMod );
+                    for ( int i = 0; i < blocks.length; i++ )
+                    {
+                        blocks[i] = cursor.getLong();
+                    }
+                } while ( cursor.shouldRetry() );
+            }
+            if ( PropertyType.getPropertyType( blocks[0], true ) == null )
+            {
+                throw new InvalidRecordException( "PropertyRecord[" + id + "] not in use" );
+            }
+            return nextProp;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
     /*
      * It is assumed that the argument does hold a property block - all zeros is
      * a valid (not in use) block, so even if the Bits object has been exhausted a
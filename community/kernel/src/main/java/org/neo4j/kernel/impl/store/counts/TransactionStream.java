@@ -34,6 +34,7 @@ import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.log.IOCursor;
 import org.neo4j.kernel.impl.transaction.log.LogDeserializer;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
@@ -204,10 +205,11 @@ class TransactionStream
                                            commit.getTimeWritten(), -1 );
                     return new CommittedTransactionRepresentation( start, transaction, commit );
                 }
-                else
+                else if ( entry instanceof LogEntryCommand )
                 {
                     commands.add( entry.<LogEntryCommand>as().getXaCommand() );
                 }
+                // else a check point, which isn't part of any transaction
             }
             return null;
         }
@@ -329,7 +331,8 @@ class TransactionStream
             File file = new File( dir, name );
             if ( fs.fileExists( file ) && !fs.isDirectory( file ) )
             {
-                if ( name.startsWith( PhysicalLogFile.DEFAULT_NAME ) && !name.contains( "active" ) )
+                if ( name.startsWith( PhysicalLogFile.DEFAULT_NAME ) && !name.contains( "active" ) &&
+                     !name.contains( PhysicalLogFiles.OFFSET_INDEX_SUFFIX ) )
                 {
                     return true;
                 }
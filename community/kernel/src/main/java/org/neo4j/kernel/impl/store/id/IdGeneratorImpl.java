@@ -22,7 +22,6 @@ package org.neo4j.kernel.impl.store.id;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.LinkedList;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -63,6 +62,10 @@ import static org.neo4j.io.fs.FileUtils.truncateFile;
  * same file. There can only be one id generator instance per id generator file.
  * <p>
  * In case of disk/file I/O failure an <CODE>IOException</CODE> is thrown.
+ * <p>
+ * Ids that have never been used are handed out without taking the monitor of this generator, by bumping
+ * the high id with a compare-and-set. The monitor is only taken when there are defragged ids to reuse, or when
+ * freeing ids. Defragged ids are held in primitive {@link IdQueue queues}.
  */
 public class IdGeneratorImpl implements IdGenerator
 {
@@ -88,11 +91,13 @@ public class IdGeneratorImpl implements IdGenerator
 
     private final File fileName;
     private final FileSystemAbstraction fs;
-    private StoreChannel fileChannel = null;
+    private volatile StoreChannel fileChannel = null;
     // defragged ids read from file (freed in a previous session).
-    private final LinkedList<Long> idsReadFromFile = new LinkedList<>();
+    private final IdQueue idsReadFromFile;
     // ids freed in this session that haven't been flushed to disk yet
-    private final LinkedList<Long> releasedIdList = new LinkedList<>();
+    private final IdQueue releasedIdList;
+    // whether nextId() may find a defragged id to reuse, read without holding the monitor
+    private volatile boolean hasReusableIds;
 
     private final long max;
     private final boolean aggressiveReuse;
@@ -135,6 +140,8 @@ public class IdGeneratorImpl implements IdGenerator
         this.max = max;
         this.fileName = fileName;
         this.grabSize = grabSize;
+        this.idsReadFromFile = new IdQueue( grabSize );
+        this.releasedIdList = new IdQueue( grabSize );
         initGenerator();
         this.highId.set( max( this.highId.get(), highId ) );
     }
@@ -151,25 +158,37 @@ public class IdGeneratorImpl implements IdGenerator
      * @throws IllegalStateException if this id generator has been closed
      */
     @Override
-    public synchronized long nextId()
+    public long nextId()
     {
         assertStillOpen();
-        long nextDefragId = nextIdFromDefragList();
-        if ( nextDefragId != -1 )
+        if ( hasReusableIds )
         {
-            return nextDefragId;
+            synchronized ( this )
+            {
+                long nextDefragId = nextIdFromDefragList();
+                if ( nextDefragId != -1 )
+                {
+                    return nextDefragId;
+                }
+            }
         }
 
-        long id = highId.get();
-        if ( id == INTEGER_MINUS_ONE )
+        while ( true )
         {
-            // Skip the integer -1 (0xFFFFFFFF) because it represents
-            // special values, f.ex. the end of a relationships/property chain.
-            id = highId.incrementAndGet();
+            long current = highId.get();
+            long id = current;
+            if ( id == INTEGER_MINUS_ONE )
+            {
+                // Skip the integer -1 (0xFFFFFFFF) because it represents
+                // special values, f.ex. the end of a relationships/property chain.
+                id++;
+            }
+            assertIdWithinCapacity( id );
+            if ( highId.compareAndSet( current, id + 1 ) )
+            {
+                return id;
+            }
         }
-        assertIdWithinCapacity( id );
-        highId.incrementAndGet();
-        return id;
     }
 
     private void assertIdWithinCapacity( long id )
@@ -188,27 +207,32 @@ public class IdGeneratorImpl implements IdGenerator
 
     private long nextIdFromDefragList()
     {
-        if ( aggressiveReuse )
+        long id = -1;
+        if ( aggressiveReuse && !releasedIdList.isEmpty() )
         {
-            Long id = releasedIdList.poll();
-            if ( id != null )
-            {
-                defraggedIdCount--;
-                return id;
-            }
+            id = releasedIdList.removeFirst();
+            defraggedIdCount--;
         }
-
-        if ( !idsReadFromFile.isEmpty() || canReadMoreIdBatches() )
+        else if ( !idsReadFromFile.isEmpty() || canReadMoreIdBatches() )
         {
             if ( idsReadFromFile.isEmpty() )
             {
                 readIdBatch();
             }
-            long id = idsReadFromFile.removeFirst();
-            defraggedIdCount--;
-            return id;
+            if ( !idsReadFromFile.isEmpty() )
+            {
+                id = idsReadFromFile.removeFirst();
+                defraggedIdCount--;
+            }
         }
-        return -1;
+        updateHasReusableIds();
+        return id;
+    }
+
+    private void updateHasReusableIds()
+    {
+        hasReusableIds = !idsReadFromFile.isEmpty() || canReadMoreIdBatches() ||
+                (aggressiveReuse && !releasedIdList.isEmpty());
     }
 
     private void assertStillOpen()
@@ -220,21 +244,27 @@ public class IdGeneratorImpl implements IdGenerator
     }
 
     @Override
-    public synchronized IdRange nextIdBatch( int size )
+    public IdRange nextIdBatch( int size )
     {
         assertStillOpen();
 
         // Get from defrag list
         int count = 0;
         long[] defragIds = new long[size];
-        while ( count < size )
+        if ( hasReusableIds )
         {
-            long id = nextIdFromDefragList();
-            if ( id == -1 )
+            synchronized ( this )
             {
-                break;
+                while ( count < size )
+                {
+                    long id = nextIdFromDefragList();
+                    if ( id == -1 )
+                    {
+                        break;
+                    }
+                    defragIds[count++] = id;
+                }
             }
-            defragIds[count++] = id;
         }
 
         // Shrink the array to actual size
@@ -243,8 +273,13 @@ public class IdGeneratorImpl implements IdGenerator
         System.arraycopy( tmpArray, 0, defragIds, 0, count );
 
         int sizeLeftForRange = size - count;
-        long start = highId.get();
-        setHighId( start + sizeLeftForRange );
+        long start;
+        do
+        {
+            start = highId.get();
+            assertIdWithinCapacity( start + sizeLeftForRange );
+        }
+        while ( !highId.compareAndSet( start, start + sizeLeftForRange ) );
         return new IdRange( defragIds, start, sizeLeftForRange );
     }
 
@@ -314,6 +349,7 @@ public class IdGeneratorImpl implements IdGenerator
         {
             writeIdBatch( ByteBuffer.allocate( grabSize*8 ) );
         }
+        updateHasReusableIds();
     }
 
     /**
@@ -364,6 +400,7 @@ public class IdGeneratorImpl implements IdGenerator
             fileChannel = null;
             // make this generator unusable
             highId.set( -1 );
+            hasReusableIds = false;
         }
         catch ( IOException e )
         {
@@ -471,6 +508,7 @@ public class IdGeneratorImpl implements IdGenerator
             maxReadPosition = fileChannel.size();
             defraggedIdCount = (int) (maxReadPosition - HEADER_SIZE) / 8;
             readIdBatch();
+            updateHasReusableIds();
         }
         catch ( IOException e )
         {
@@ -624,9 +662,9 @@ public class IdGeneratorImpl implements IdGenerator
         {
             readIdBatch();
         }
-        for ( Long id : idsReadFromFile )
+        for ( int i = 0; i < idsReadFromFile.size(); i++ )
         {
-            System.out.print( " " + id );
+            System.out.print( " " + idsReadFromFile.get( i ) );
         }
         System.out.println( "\nNext free id: " + highId );
         close();
@@ -644,11 +682,12 @@ public class IdGeneratorImpl implements IdGenerator
         return defraggedIdCount;
     }
 
-    public void clearFreeIds()
+    public synchronized void clearFreeIds()
     {
         releasedIdList.clear();
         idsReadFromFile.clear();
         defraggedIdCount = -1;
+        hasReusableIds = false;
         try
         {
             truncateFile( fileChannel, HEADER_SIZE );
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.util.Arrays;
+
+/**
+ * First-in-first-out queue of ids, backed by a growable ring buffer of primitive longs, so that holding on to
+ * freed ids doesn't cost an object each. Not thread safe.
+ */
+class IdQueue
+{
+    private long[] ids;
+    private int head;
+    private int size;
+
+    IdQueue( int initialCapacity )
+    {
+        this.ids = new long[Math.max( 1, initialCapacity )];
+    }
+
+    void add( long id )
+    {
+        if ( size == ids.length )
+        {
+            grow();
+        }
+        ids[(head + size) % ids.length] = id;
+        size++;
+    }
+
+    long removeFirst()
+    {
+        if ( size == 0 )
+        {
+            throw new IllegalStateException( "No ids in queue" );
+        }
+        long id = ids[head];
+        head = (head + 1) % ids.length;
+        size--;
+        return id;
+    }
+
+    long get( int index )
+    {
+        if ( index < 0 || index >= size )
+        {
+            throw new IndexOutOfBoundsException( "Index " + index + ", size " + size );
+        }
+        return ids[(head + index) % ids.length];
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    void clear()
+    {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow()
+    {
+        long[] grown = new long[ids.length * 2];
+        int firstPart = Math.min( size, ids.length - head );
+        System.arraycopy( ids, head, grown, 0, firstPart );
+        System.arraycopy( ids, 0, grown, firstPart, size - firstPart );
+        ids = grown;
+        head = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        long[] copy = new long[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            copy[i] = get( i );
+        }
+        return Arrays.toString( copy );
+    }
+}
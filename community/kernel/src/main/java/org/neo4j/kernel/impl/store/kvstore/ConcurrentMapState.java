@@ -273,7 +273,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         }
     }
 
-    private static class PreviousValue extends ValueSink
+    static class PreviousValue extends ValueSink
     {
         private final byte[] proposal;
 
@@ -389,11 +389,11 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         return result;
     }
 
-    private static class Entry implements Comparable<Entry>
+    static class Entry implements Comparable<Entry>
     {
         final byte[] key, value;
 
-        private Entry( byte[] key, byte[] value )
+        Entry( byte[] key, byte[] value )
         {
             this.key = key;
             this.value = value;
@@ -406,7 +406,7 @@ class ConcurrentMapState<Key> extends ActiveState<Key>
         }
     }
 
-    private static class UpdateProvider implements DataProvider
+    static class UpdateProvider implements DataProvider
     {
         private final byte[][] data;
         private int i;
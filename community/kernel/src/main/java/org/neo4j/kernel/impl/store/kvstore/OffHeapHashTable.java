@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * An open addressing hash table of fixed size keys and values, kept in memory outside of the heap. Keys and values
+ * are handled as big endian words, i.e. longs, with the last word of each padded with zeros.
+ * <p>
+ * Writers go through {@link #beginWrite()} and {@link #endWrite()}, one at a time, and can make any number of
+ * changes in between. Readers don't lock, they read optimistically and retry if a writer was active while they
+ * were reading, as in a sequence lock. Memory is never freed explicitly, but together with its buffer when no
+ * reader can see it anymore. Readers refer to the memory that they read from until they are done with it, so that
+ * they never read memory that has been freed.
+ */
+final class OffHeapHashTable
+{
+    private static final int INITIAL_CAPACITY = 1 << 8;
+    private static final long EMPTY = 0, USED = 1;
+
+    private final int keyWords;
+    private final int valueWords;
+    private final int slotSize;
+    private final Lock writeLock = new ReentrantLock();
+    // Odd while a writer is active
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Memory memory;
+    private volatile int size;
+
+    OffHeapHashTable( int keySize, int valueSize )
+    {
+        UnsafeUtil.assertHasUnsafe();
+        this.keyWords = words( keySize );
+        this.valueWords = words( valueSize );
+        this.slotSize = (1 + keyWords + valueWords) * 8;
+        this.memory = new Memory( INITIAL_CAPACITY, slotSize );
+    }
+
+    static int words( int bytes )
+    {
+        return (bytes + 7) / 8;
+    }
+
+    int keyWords()
+    {
+        return keyWords;
+    }
+
+    int valueWords()
+    {
+        return valueWords;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Reads the value of the given key into {@code value}, without locking.
+     *
+     * @return {@code true} if the key was found, otherwise {@code false}.
+     */
+    boolean get( long[] key, long[] value )
+    {
+        while ( true )
+        {
+            long before = sequence.get();
+            if ( (before & 1) == 0 )
+            {
+                Memory current = memory;
+                long slot = find( current, key );
+                boolean found = slot >= 0;
+                if ( found )
+                {
+                    long valueAddress = current.addressOf( slot, slotSize ) + (1 + keyWords) * 8;
+                    for ( int i = 0; i < valueWords; i++ )
+                    {
+                        value[i] = UnsafeUtil.getLongVolatile( null, valueAddress + i * 8 );
+                    }
+                }
+                // Reading the memory field after the reads keeps the memory that was read reachable until here, so that
+                // it can't be freed while it's being read, even if the table has grown out of it. It also makes a
+                // reader that raced with a grow try again, in the memory that the table grew into.
+                if ( sequence.get() == before && memory == current )
+                {
+                    return found;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    void beginWrite()
+    {
+        writeLock.lock();
+        sequence.incrementAndGet();
+    }
+
+    void endWrite()
+    {
+        sequence.incrementAndGet();
+        writeLock.unlock();
+    }
+
+    /**
+     * Must be called between {@link #beginWrite()} and {@link #endWrite()}.
+     *
+     * @return the slot of the given key, or {@code -1} if it isn't in the table.
+     */
+    long slotOf( long[] key )
+    {
+        return find( memory, key );
+    }
+
+    /**
+     * Must be called between {@link #beginWrite()} and {@link #endWrite()}, for a key that isn't in the table.
+     *
+     * @return the slot that the key was put in.
+     */
+    long insert( long[] key, long[] value )
+    {
+        Memory current = memory;
+        if ( (size + 1) * 2L > current.capacity )
+        {
+            current = grow( current );
+        }
+        long slot = hash( key ) & (current.capacity - 1);
+        while ( UnsafeUtil.getLong( current.addressOf( slot, slotSize ) ) != EMPTY )
+        {
+            slot = (slot + 1) & (current.capacity - 1);
+        }
+        long address = current.addressOf( slot, slotSize );
+        writeWords( address + 8, key );
+        writeWords( address + (1 + keyWords) * 8, value );
+        UnsafeUtil.putLong( address, USED );
+        size++;
+        return slot;
+    }
+
+    /**
+     * Must be called between {@link #beginWrite()} and {@link #endWrite()}.
+     */
+    void readValue( long slot, long[] value )
+    {
+        long address = memory.addressOf( slot, slotSize ) + (1 + keyWords) * 8;
+        for ( int i = 0; i < valueWords; i++ )
+        {
+            value[i] = UnsafeUtil.getLong( address + i * 8 );
+        }
+    }
+
+    /**
+     * Must be called between {@link #beginWrite()} and {@link #endWrite()}.
+     */
+    void writeValue( long slot, long[] value )
+    {
+        writeWords( memory.addressOf( slot, slotSize ) + (1 + keyWords) * 8, value );
+    }
+
+    /**
+     * Visits all entries in the table, must not be called concurrently with writers.
+     */
+    void visit( EntryVisitor visitor )
+    {
+        Memory current = memory;
+        long[] key = new long[keyWords], value = new long[valueWords];
+        for ( long slot = 0; slot < current.capacity; slot++ )
+        {
+            long address = current.addressOf( slot, slotSize );
+            if ( UnsafeUtil.getLongVolatile( null, address ) == USED )
+            {
+                for ( int i = 0; i < keyWords; i++ )
+                {
+                    key[i] = UnsafeUtil.getLongVolatile( null, address + (1 + i) * 8 );
+                }
+                for ( int i = 0; i < valueWords; i++ )
+                {
+                    value[i] = UnsafeUtil.getLongVolatile( null, address + (1 + keyWords + i) * 8 );
+                }
+                visitor.visit( key, value );
+            }
+        }
+    }
+
+    interface EntryVisitor
+    {
+        void visit( long[] key, long[] value );
+    }
+
+    private long find( Memory current, long[] key )
+    {
+        long mask = current.capacity - 1;
+        long slot = hash( key ) & mask;
+        for ( long probes = 0; probes < current.capacity; probes++ )
+        {
+            long address = current.addressOf( slot, slotSize );
+            if ( UnsafeUtil.getLongVolatile( null, address ) == EMPTY )
+            {
+                return -1;
+            }
+            if ( keyEquals( address + 8, key ) )
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals( long address, long[] key )
+    {
+        for ( int i = 0; i < keyWords; i++ )
+        {
+            if ( UnsafeUtil.getLongVolatile( null, address + i * 8 ) != key[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Memory grow( Memory current )
+    {
+        Memory grown = new Memory( current.capacity * 2, slotSize );
+        long mask = grown.capacity - 1;
+        for ( long slot = 0; slot < current.capacity; slot++ )
+        {
+            long from = current.addressOf( slot, slotSize );
+            if ( UnsafeUtil.getLong( from ) == USED )
+            {
+                long target = hashAt( from + 8 ) & mask;
+                while ( UnsafeUtil.getLong( grown.addressOf( target, slotSize ) ) != EMPTY )
+                {
+                    target = (target + 1) & mask;
+                }
+                UnsafeUtil.copyMemory( from, grown.addressOf( target, slotSize ), slotSize );
+            }
+        }
+        memory = grown;
+        return grown;
+    }
+
+    private static void writeWords( long address, long[] words )
+    {
+        for ( int i = 0; i < words.length; i++ )
+        {
+            UnsafeUtil.putLong( address + i * 8, words[i] );
+        }
+    }
+
+    private long hash( long[] key )
+    {
+        long hash = 0;
+        for ( int i = 0; i < keyWords; i++ )
+        {
+            hash = hash * 31 + key[i];
+        }
+        return spread( hash );
+    }
+
+    private long hashAt( long address )
+    {
+        long hash = 0;
+        for ( int i = 0; i < keyWords; i++ )
+        {
+            hash = hash * 31 + UnsafeUtil.getLong( address + i * 8 );
+        }
+        return spread( hash );
+    }
+
+    private static long spread( long hash )
+    {
+        // the finalizer of MurmurHash3, so that keys that differ in few bits end up far apart
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Memory
+    {
+        // Keeps the memory from being freed for as long as the table, or a reader, refers to it
+        private final ByteBuffer buffer;
+        private final long address;
+        final long capacity;
+
+        Memory( long capacity, int slotSize )
+        {
+            long bytes = capacity * slotSize;
+            if ( bytes > Integer.MAX_VALUE )
+            {
+                throw new IllegalStateException( "Cannot grow table beyond " + (capacity / 2) + " entries" );
+            }
+            // allocated memory is zeroed, i.e. all slots are EMPTY
+            this.buffer = ByteBuffer.allocateDirect( (int) bytes );
+            this.address = UnsafeUtil.getDirectByteBufferAddress( buffer );
+            this.capacity = capacity;
+        }
+
+        long addressOf( long slot, int slotSize )
+        {
+            return address + slot * slotSize;
+        }
+    }
+}
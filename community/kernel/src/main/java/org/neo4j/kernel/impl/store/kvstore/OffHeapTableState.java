@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import org.neo4j.kernel.impl.util.ArrayQueueOutOfOrderSequence;
+import org.neo4j.kernel.impl.util.OutOfOrderSequence;
+
+/**
+ * Keeps the changes in an {@link OffHeapHashTable} rather than in a map of {@code byte[]}, which makes lookups lock
+ * free and keeps changes from producing garbage. The updates of an updater are collected while it is open, and
+ * applied to the table in one batch when it is closed.
+ */
+class OffHeapTableState<Key> extends ActiveState<Key>
+{
+    private final OffHeapHashTable changes;
+    private final File file;
+    private final AtomicLong highestAppliedVersion;
+    private final AtomicLong appliedChanges;
+    private final long previousVersion;
+    private final OutOfOrderSequence versionSequence;
+
+    OffHeapTableState( ReadableState<Key> store, File file )
+    {
+        super( store );
+        this.previousVersion = store.version();
+        this.versionSequence = new ArrayQueueOutOfOrderSequence( previousVersion, 50 );
+        this.file = file;
+        this.highestAppliedVersion = new AtomicLong( previousVersion );
+        this.changes = new OffHeapHashTable( store.keyFormat().keySize(), store.keyFormat().valueSize() );
+        this.appliedChanges = new AtomicLong();
+    }
+
+    private OffHeapTableState( Prototype<Key> prototype, ReadableState<Key> store, File file )
+    {
+        super( store );
+        this.previousVersion = store.version();
+        this.versionSequence = new ArrayQueueOutOfOrderSequence( previousVersion, 50 );
+        this.file = file;
+        this.changes = prototype.changes;
+        this.highestAppliedVersion = prototype.highestAppliedVersion;
+        this.appliedChanges = prototype.appliedChanges;
+    }
+
+    @Override
+    public String toString()
+    {
+        return super.toString() + "[" + file + "]";
+    }
+
+    @Override
+    public EntryUpdater<Key> updater( long version, Lock lock )
+    {
+        if ( versionSequence.seen( version, 0 ) )
+        {
+            throw new IllegalStateException( "Cannot apply update with given version " + version +
+                                             " when base version is " + previousVersion );
+        }
+        versionSequence.offer( version, 0 );
+        update( highestAppliedVersion, version );
+        return new Updater<>( lock, store, changes, appliedChanges );
+    }
+
+    @Override
+    public EntryUpdater<Key> unsafeUpdater( Lock lock )
+    {
+        return new Updater<>( lock, store, changes, null );
+    }
+
+    /**
+     * Collects the updates, together with the values that the keys had before this updater if they are not in the
+     * table yet, and applies them all when closed.
+     */
+    private static class Updater<Key> extends EntryUpdater<Key>
+    {
+        private AtomicLong changeCounter;
+        private final ReadableState<Key> store;
+        private final OffHeapHashTable changes;
+        private final int keyWords, valueWords;
+        private final byte[] keyBytes, valueBytes;
+        private final BigEndianByteArrayBuffer keyBuffer, valueBuffer;
+        private final long[] key, value;
+        private final ConcurrentMapState.PreviousValue previous;
+        private long[] keys, initialValues;
+        private ValueUpdate[] updates;
+        private int size;
+
+        Updater( Lock lock, ReadableState<Key> store, OffHeapHashTable changes, AtomicLong changeCounter )
+        {
+            super( lock );
+            this.changeCounter = changeCounter;
+            this.store = store;
+            this.changes = changes;
+            this.keyWords = changes.keyWords();
+            this.valueWords = changes.valueWords();
+            this.keyBuffer = new BigEndianByteArrayBuffer( keyBytes = new byte[store.keyFormat().keySize()] );
+            this.valueBuffer = new BigEndianByteArrayBuffer( valueBytes = new byte[store.keyFormat().valueSize()] );
+            this.previous = new ConcurrentMapState.PreviousValue( valueBytes );
+            this.key = new long[keyWords];
+            this.value = new long[valueWords];
+            this.updates = new ValueUpdate[8];
+            this.keys = new long[updates.length * keyWords];
+            this.initialValues = new long[updates.length * valueWords];
+        }
+
+        @Override
+        public void apply( Key key, ValueUpdate update ) throws IOException
+        {
+            ensureOpenOnSameThread();
+            if ( size == updates.length )
+            {
+                updates = Arrays.copyOf( updates, size * 2 );
+                keys = Arrays.copyOf( keys, updates.length * keyWords );
+                initialValues = Arrays.copyOf( initialValues, updates.length * valueWords );
+            }
+            keyBuffer.clear();
+            store.keyFormat().writeKey( key, keyBuffer );
+            toWords( keyBytes, this.key );
+            if ( !changes.get( this.key, value ) )
+            {
+                // look up the stored value now, so that closing the updater only touches memory
+                if ( !store.lookup( key, previous ) )
+                {
+                    valueBuffer.clear();
+                }
+                toWords( valueBytes, value );
+                System.arraycopy( value, 0, initialValues, size * valueWords, valueWords );
+            }
+            System.arraycopy( this.key, 0, keys, size * keyWords, keyWords );
+            updates[size++] = update;
+        }
+
+        @Override
+        public void close()
+        {
+            if ( updates != null )
+            {
+                try
+                {
+                    applyAll();
+                }
+                finally
+                {
+                    updates = null;
+                    if ( changeCounter != null )
+                    {
+                        changeCounter.incrementAndGet();
+                        changeCounter = null;
+                    }
+                }
+            }
+            super.close();
+        }
+
+        private void applyAll()
+        {
+            if ( size == 0 )
+            {
+                return;
+            }
+            changes.beginWrite();
+            try
+            {
+                for ( int i = 0; i < size; i++ )
+                {
+                    System.arraycopy( keys, i * keyWords, key, 0, keyWords );
+                    long slot = changes.slotOf( key );
+                    if ( slot < 0 )
+                    {
+                        System.arraycopy( initialValues, i * valueWords, value, 0, valueWords );
+                        slot = changes.insert( key, value );
+                    }
+                    changes.readValue( slot, value );
+                    toBytes( value, valueBytes );
+                    updates[i].update( valueBuffer );
+                    toWords( valueBytes, value );
+                    changes.writeValue( slot, value );
+                }
+            }
+            finally
+            {
+                changes.endWrite();
+            }
+        }
+    }
+
+    @Override
+    protected long storedVersion()
+    {
+        return previousVersion;
+    }
+
+    @Override
+    protected EntryUpdater<Key> resettingUpdater( Lock lock, final Runnable closeAction )
+    {
+        if ( hasChanges() )
+        {
+            throw new IllegalStateException( "Cannot reset when there are changes!" );
+        }
+        final int keyWords = changes.keyWords(), valueWords = changes.valueWords();
+        final BigEndianByteArrayBuffer keyBuffer = BigEndianByteArrayBuffer.buffer( keyFormat().keySize() );
+        final BigEndianByteArrayBuffer valueBuffer = BigEndianByteArrayBuffer.buffer( keyFormat().valueSize() );
+        return new EntryUpdater<Key>( lock )
+        {
+            private final long[] key = new long[keyWords], value = new long[valueWords];
+
+            @Override
+            public void apply( Key key, ValueUpdate update ) throws IOException
+            {
+                ensureOpen();
+                keyBuffer.clear();
+                keyFormat().writeKey( key, keyBuffer );
+                toWords( keyBuffer.buffer, this.key );
+                valueBuffer.clear();
+                update.update( valueBuffer );
+                toWords( valueBuffer.buffer, value );
+                changes.beginWrite();
+                try
+                {
+                    long slot = changes.slotOf( this.key );
+                    if ( slot < 0 )
+                    {
+                        changes.insert( this.key, value );
+                    }
+                    else
+                    {
+                        changes.writeValue( slot, value );
+                    }
+                }
+                finally
+                {
+                    changes.endWrite();
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                try
+                {
+                    closeAction.run();
+                }
+                finally
+                {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected PrototypeState<Key> prototype( long version )
+    {
+        return new Prototype<>( this, version );
+    }
+
+    private static void update( AtomicLong highestAppliedVersion, long version )
+    {
+        for ( long high; ; )
+        {
+            high = highestAppliedVersion.get();
+            if ( version <= high )
+            {
+                return;
+            }
+            if ( highestAppliedVersion.compareAndSet( high, version ) )
+            {
+                return;
+            }
+        }
+    }
+
+    private static class Prototype<Key> extends PrototypeState<Key>
+    {
+        final OffHeapHashTable changes;
+        final AtomicLong highestAppliedVersion, appliedChanges = new AtomicLong();
+
+        Prototype( OffHeapTableState<Key> state, long version )
+        {
+            super( state );
+            this.changes = new OffHeapHashTable( state.keyFormat().keySize(), state.keyFormat().valueSize() );
+            this.highestAppliedVersion = new AtomicLong( version );
+        }
+
+        @Override
+        protected ActiveState<Key> create( ReadableState<Key> sub, File file )
+        {
+            return new OffHeapTableState<>( this, sub, file );
+        }
+
+        @Override
+        protected EntryUpdater<Key> updater( long version, Lock lock )
+        {
+            update( highestAppliedVersion, version );
+            return new Updater<>( lock, store, changes, appliedChanges );
+        }
+
+        @Override
+        protected EntryUpdater<Key> unsafeUpdater( Lock lock )
+        {
+            return new Updater<>( lock, store, changes, null );
+        }
+
+        @Override
+        protected boolean hasChanges()
+        {
+            return changes.size() > 0;
+        }
+
+        @Override
+        protected long version()
+        {
+            return highestAppliedVersion.get();
+        }
+
+        @Override
+        protected boolean lookup( Key key, ValueSink sink ) throws IOException
+        {
+            return performLookup( store, changes, key, sink );
+        }
+
+        @Override
+        protected DataProvider dataProvider() throws IOException
+        {
+            return OffHeapTableState.dataProvider( store, changes );
+        }
+    }
+
+    @Override
+    protected long version()
+    {
+        return highestAppliedVersion.get();
+    }
+
+    @Override
+    protected long applied()
+    {
+        return appliedChanges.get();
+    }
+
+    @Override
+    protected boolean hasChanges()
+    {
+        return changes.size() > 0;
+    }
+
+    @Override
+    protected void close() throws IOException
+    {
+        store.close();
+    }
+
+    @Override
+    protected File file()
+    {
+        return file;
+    }
+
+    @Override
+    protected Factory factory()
+    {
+        return State.Strategy.OFF_HEAP_TABLE;
+    }
+
+    @Override
+    protected boolean lookup( Key key, ValueSink sink ) throws IOException
+    {
+        return performLookup( store, changes, key, sink );
+    }
+
+    private static <Key> boolean performLookup( ReadableState<Key> store, OffHeapHashTable changes,
+                                                Key key, ValueSink sink ) throws IOException
+    {
+        KeyFormat<Key> keys = store.keyFormat();
+        BigEndianByteArrayBuffer keyBuffer = BigEndianByteArrayBuffer.buffer( keys.keySize() );
+        keys.writeKey( key, keyBuffer );
+        long[] keyWords = new long[changes.keyWords()], valueWords = new long[changes.valueWords()];
+        toWords( keyBuffer.buffer, keyWords );
+        if ( changes.get( keyWords, valueWords ) )
+        {
+            byte[] value = new byte[keys.valueSize()];
+            toBytes( valueWords, value );
+            sink.value( new BigEndianByteArrayBuffer( value ) );
+            return true;
+        }
+        return store.lookup( key, sink );
+    }
+
+    /**
+     * This method is expected to be called under a lock preventing modification to the state.
+     */
+    @Override
+    public DataProvider dataProvider() throws IOException
+    {
+        return dataProvider( store, changes );
+    }
+
+    private static <Key> DataProvider dataProvider( ReadableState<Key> store, OffHeapHashTable changes )
+            throws IOException
+    {
+        if ( changes.size() == 0 )
+        {
+            return store.dataProvider();
+        }
+        else
+        {
+            KeyFormat<Key> keys = store.keyFormat();
+            return new KeyValueMerger( store.dataProvider(), new ConcurrentMapState.UpdateProvider(
+                    sortedUpdates( keys, changes ) ), keys.keySize(), keys.valueSize() );
+        }
+    }
+
+    private static <Key> byte[][] sortedUpdates( final KeyFormat<Key> keys, OffHeapHashTable changes )
+    {
+        final ConcurrentMapState.Entry[] buffer = new ConcurrentMapState.Entry[changes.size()];
+        changes.visit( new OffHeapHashTable.EntryVisitor()
+        {
+            private int i;
+
+            @Override
+            public void visit( long[] key, long[] value )
+            {
+                byte[] keyBytes = new byte[keys.keySize()], valueBytes = new byte[keys.valueSize()];
+                toBytes( key, keyBytes );
+                toBytes( value, valueBytes );
+                buffer[i++] = new ConcurrentMapState.Entry( keyBytes, valueBytes );
+            }
+        } );
+        Arrays.sort( buffer );
+        byte[][] result = new byte[buffer.length * 2][];
+        for ( int i = 0; i < buffer.length; i++ )
+        {
+            result[i * 2] = buffer[i].key;
+            result[i * 2 + 1] = buffer[i].value;
+        }
+        return result;
+    }
+
+    static void toWords( byte[] bytes, long[] words )
+    {
+        for ( int i = 0; i < words.length; i++ )
+        {
+            long word = 0;
+            for ( int j = i * 8; j < i * 8 + 8; j++ )
+            {
+                word = (word << 8) | (j < bytes.length ? bytes[j] & 0xFF : 0);
+            }
+            words[i] = word;
+        }
+    }
+
+    static void toBytes( long[] words, byte[] bytes )
+    {
+        for ( int j = 0; j < bytes.length; j++ )
+        {
+            bytes[j] = (byte) (words[j / 8] >>> (56 - (j % 8) * 8));
+        }
+    }
+}
@@ -42,6 +42,14 @@ public @interface State
             {
                 return new ConcurrentMapState<>( store, file );
             }
+        },
+        OFF_HEAP_TABLE
+        {
+            @Override
+            public <Key> ActiveState<Key> open( ReadableState<Key> store, File file )
+            {
+                return new OffHeapTableState<>( store, file );
+            }
         };
     }
 }
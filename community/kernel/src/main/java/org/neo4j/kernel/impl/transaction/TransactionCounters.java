@@ -28,6 +28,11 @@ public class TransactionCounters implements TransactionMonitor
     private final AtomicLong rolledBackTransactionCount = new AtomicLong();
     private final AtomicLong terminatedTransactionCount = new AtomicLong();
     private long peakTransactionCount; // hard to have absolutely atomic, and it doesn't need to be.
+    private final AtomicLong logForceCount = new AtomicLong();
+    private final AtomicLong forcedTransactionCount = new AtomicLong();
+    private final AtomicLong logForceTimeNanos = new AtomicLong();
+    private final AtomicLong logForceWaitTimeNanos = new AtomicLong();
+    private int peakLogForceBatchSize; // same as for peakTransactionCount
 
     @Override
     public void transactionStarted()
@@ -55,6 +60,21 @@ public class TransactionCounters implements TransactionMonitor
         terminatedTransactionCount.incrementAndGet();
     }
 
+    @Override
+    public void transactionLogForced( int batchSize, long forceTimeNanos )
+    {
+        logForceCount.incrementAndGet();
+        forcedTransactionCount.addAndGet( batchSize );
+        logForceTimeNanos.addAndGet( forceTimeNanos );
+        peakLogForceBatchSize = Math.max( peakLogForceBatchSize, batchSize );
+    }
+
+    @Override
+    public void transactionLogForceWaited( long waitTimeNanos )
+    {
+        logForceWaitTimeNanos.addAndGet( waitTimeNanos );
+    }
+
     public long getNumberOfActiveTransactions()
     {
         return activeTransactionCount.get();
@@ -87,4 +107,33 @@ public class TransactionCounters implements TransactionMonitor
     {
         return rolledBackTransactionCount.get();
     }
+
+    public long getNumberOfLogForces()
+    {
+        return logForceCount.get();
+    }
+
+    /**
+     * @return number of transactions made durable by log forces, divided by {@link #getNumberOfLogForces()}
+     * this gives the average group commit batch size.
+     */
+    public long getNumberOfForcedTransactions()
+    {
+        return forcedTransactionCount.get();
+    }
+
+    public int getPeakLogForceBatchSize()
+    {
+        return peakLogForceBatchSize;
+    }
+
+    public long getTotalLogForceTimeNanos()
+    {
+        return logForceTimeNanos.get();
+    }
+
+    public long getTotalLogForceWaitTimeNanos()
+    {
+        return logForceWaitTimeNanos.get();
+    }
 }
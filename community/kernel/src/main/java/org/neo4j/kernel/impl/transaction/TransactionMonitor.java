@@ -31,4 +31,47 @@ public interface TransactionMonitor
     void transactionFinished( boolean successful );
 
     void transactionTerminated();
+
+    /**
+     * Called when the transaction log has been forced, making a batch of appended transactions durable.
+     *
+     * @param batchSize number of committing transactions that were made durable by this force.
+     * @param forceTimeNanos time spent forcing the log, in nanoseconds.
+     */
+    void transactionLogForced( int batchSize, long forceTimeNanos );
+
+    /**
+     * Called by a committing transaction when the force covering its append has completed.
+     *
+     * @param waitTimeNanos time from having appended to the log until it was forced, in nanoseconds.
+     */
+    void transactionLogForceWaited( long waitTimeNanos );
+
+    TransactionMonitor NONE = new TransactionMonitor()
+    {
+        @Override
+        public void transactionStarted()
+        {
+        }
+
+        @Override
+        public void transactionFinished( boolean successful )
+        {
+        }
+
+        @Override
+        public void transactionTerminated()
+        {
+        }
+
+        @Override
+        public void transactionLogForced( int batchSize, long forceTimeNanos )
+        {
+        }
+
+        @Override
+        public void transactionLogForceWaited( long waitTimeNanos )
+        {
+        }
+    };
 }
@@ -33,6 +33,8 @@ public interface LogHandler
 
     void commandEntry( LogEntryCommand commandEntry ) throws IOException;
 
+    void checkPointEntry( CheckPoint checkPointEntry ) throws IOException;
+
     void endLog( boolean success ) throws IOException;
 
     public abstract class Filter implements LogHandler
@@ -68,6 +70,12 @@ public interface LogHandler
             delegate.commandEntry( commandEntry );
         }
 
+        @Override
+        public void checkPointEntry( CheckPoint checkPointEntry ) throws IOException
+        {
+            delegate.checkPointEntry( checkPointEntry );
+        }
+
         @Override
         public void endLog( boolean success ) throws IOException
         {
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.api.store.RelationshipChainCache;
+import org.neo4j.kernel.impl.store.NeoStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+
+/**
+ * Invalidates the {@link RelationshipChainCache cached relationship chains} of every node whose relationship
+ * chains are changed by the applied commands. The invalidation happens after the change has been applied to the
+ * store, so that the chains cannot be cached again from a state of the store that predates the change.
+ */
+public class RelationshipChainCacheInvalidationApplier extends NeoCommandHandler.Delegator
+{
+    private final RelationshipChainCache relationshipChainCache;
+    private final RelationshipStore relationshipStore;
+
+    public RelationshipChainCacheInvalidationApplier( NeoCommandHandler delegate, NeoStore neoStore,
+                                                      RelationshipChainCache relationshipChainCache )
+    {
+        super( delegate );
+        this.relationshipChainCache = relationshipChainCache;
+        this.relationshipStore = neoStore.getRelationshipStore();
+    }
+
+    @Override
+    public boolean visitNodeCommand( NodeCommand command ) throws IOException
+    {
+        super.visitNodeCommand( command );
+        relationshipChainCache.invalidate( command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipCommand( RelationshipCommand command ) throws IOException
+    {
+        RelationshipRecord record = command.getRecord();
+        long firstNode = record.getFirstNode();
+        long secondNode = record.getSecondNode();
+        if ( !record.inUse() )
+        {
+            // Deleted relationships may not know their nodes if they come from the log,
+            // so get them from the store before the deletion is applied.
+            RelationshipRecord stored = relationshipStore.forceGetRecord( record.getId() );
+            if ( stored != null )
+            {
+                firstNode = stored.getFirstNode();
+                secondNode = stored.getSecondNode();
+            }
+        }
+
+        super.visitRelationshipCommand( command );
+
+        relationshipChainCache.invalidate( firstNode );
+        relationshipChainCache.invalidate( secondNode );
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command ) throws IOException
+    {
+        super.visitRelationshipGroupCommand( command );
+        relationshipChainCache.invalidate( command.getRecord().getOwningNode() );
+        return false;
+    }
+}
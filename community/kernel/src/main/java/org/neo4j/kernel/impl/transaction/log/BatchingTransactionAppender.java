@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
@@ -28,7 +29,9 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.helpers.ThisShouldNotHappenError;
 import org.neo4j.kernel.KernelHealth;
+import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriterv1;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
@@ -41,6 +44,11 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches.
+ *
+ * Transaction commands are serialized by the committing thread before the log is locked, so that only the copying
+ * of already serialized bytes into the log buffer happens while holding the lock. Forces are coalesced: a thread
+ * that gets to force the log does so on behalf of every thread that appended before it, and may optionally
+ * wait for a group commit window, bounded by a max delay and a max batch size, for more threads to join in.
  */
 class BatchingTransactionAppender implements TransactionAppender
 {
@@ -73,35 +81,111 @@ class BatchingTransactionAppender implements TransactionAppender
     private final IdOrderingQueue legacyIndexTransactionOrdering;
 
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
+    // Number of appended transactions that are waiting for a force. Incremented after linking in, so it never
+    // counts more than the actual number of links, only ever lagging behind for a short while.
+    private final AtomicInteger pendingForces = new AtomicInteger();
     private final WritableLogChannel channel;
     private final TransactionMetadataCache transactionMetadataCache;
+    private final TransactionOffsetIndex transactionOffsetIndex;
     private final LogFile logFile;
     private final LogRotation logRotation;
     private final TransactionIdStore transactionIdStore;
-    private final TransactionLogWriter transactionLogWriter;
+    private final LogEntryWriter logEntryWriter;
     private final LogPositionMarker positionMarker = new LogPositionMarker();
-    private final IndexCommandDetector indexCommandDetector;
     private final KernelHealth kernelHealth;
+    private final TransactionMonitor transactionMonitor;
+    private final long groupCommitMaxDelayNanos;
+    private final int groupCommitMaxBatchSize;
     private final Lock forceLock;
+    private volatile Thread groupCommitLeader;
+    private final ThreadLocal<CommandSerializer> commandSerializers = new ThreadLocal<CommandSerializer>()
+    {
+        @Override
+        protected CommandSerializer initialValue()
+        {
+            return new CommandSerializer();
+        }
+    };
 
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
                                         TransactionMetadataCache transactionMetadataCache,
                                         TransactionIdStore transactionIdStore,
                                         IdOrderingQueue legacyIndexTransactionOrdering,
                                         KernelHealth kernelHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                kernelHealth, TransactionMonitor.NONE, 0, 1 );
+    }
+
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+                                        TransactionMetadataCache transactionMetadataCache,
+                                        TransactionIdStore transactionIdStore,
+                                        IdOrderingQueue legacyIndexTransactionOrdering,
+                                        KernelHealth kernelHealth, TransactionMonitor transactionMonitor,
+                                        long groupCommitMaxDelayMillis, int groupCommitMaxBatchSize )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                kernelHealth, transactionMonitor, groupCommitMaxDelayMillis, groupCommitMaxBatchSize, null );
+    }
+
+    /**
+     * @param groupCommitMaxDelayMillis max time the thread forcing the log waits for more transactions to be
+     * appended before forcing. {@code 0} means forcing right away.
+     * @param groupCommitMaxBatchSize number of transactions waiting for a force at which the thread forcing the
+     * log stops waiting for the group commit window.
+     * @param transactionOffsetIndex index to add the positions of appended transactions to, or {@code null} for
+     * not indexing them.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+                                        TransactionMetadataCache transactionMetadataCache,
+                                        TransactionIdStore transactionIdStore,
+                                        IdOrderingQueue legacyIndexTransactionOrdering,
+                                        KernelHealth kernelHealth, TransactionMonitor transactionMonitor,
+                                        long groupCommitMaxDelayMillis, int groupCommitMaxBatchSize,
+                                        TransactionOffsetIndex transactionOffsetIndex )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.kernelHealth = kernelHealth;
+        this.transactionMonitor = transactionMonitor;
+        this.groupCommitMaxDelayNanos = TimeUnit.MILLISECONDS.toNanos( groupCommitMaxDelayMillis );
+        this.groupCommitMaxBatchSize = groupCommitMaxBatchSize;
         this.channel = logFile.getWriter();
         this.transactionMetadataCache = transactionMetadataCache;
-        this.indexCommandDetector = new IndexCommandDetector( new CommandWriter( channel ) );
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriterv1( channel, indexCommandDetector ) );
+        this.transactionOffsetIndex = transactionOffsetIndex;
+        this.logEntryWriter = new LogEntryWriterv1( channel, new CommandWriter( channel ) );
         forceLock = new ReentrantLock();
     }
 
+    /**
+     * Serializes the commands of a transaction into a buffer. There's one per appending thread, since it's used
+     * outside of any lock.
+     */
+    private static class CommandSerializer
+    {
+        private final ByteArrayWritableChannel buffer = new ByteArrayWritableChannel( 4096, 1024 * 1024 );
+        private final IndexCommandDetector indexCommandDetector =
+                new IndexCommandDetector( new CommandWriter( buffer ) );
+        private final LogEntryWriter writer = new LogEntryWriterv1( buffer, indexCommandDetector );
+
+        CommandSerializer serialize( TransactionRepresentation transaction ) throws IOException
+        {
+            // Reset command writer so that we, after we've written the transaction, can ask it whether or
+            // not any legacy index command was written. If so then there's additional ordering to care about.
+            buffer.clear();
+            indexCommandDetector.reset();
+            writer.serialize( transaction );
+            return this;
+        }
+
+        boolean hasLegacyIndexChanges()
+        {
+            return indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+        }
+    }
+
     @Override
     public long append( TransactionRepresentation transaction, LogAppendEvent logAppendEvent ) throws IOException
     {
@@ -114,15 +198,18 @@ class BatchingTransactionAppender implements TransactionAppender
         TransactionCommitment commit;
         try
         {
+            CommandSerializer commands;
+            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+            {
+                commands = commandSerializers.get().serialize( transaction );
+            }
+
             // Synchronized with logFile to get absolute control over concurrent rotations happening
             synchronized ( logFile )
             {
-                try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
-                {
-                    transactionId = transactionIdStore.nextCommittingTransactionId();
-                    phase = 1;
-                    commit = appendToLog( transaction, transactionId );
-                }
+                transactionId = transactionIdStore.nextCommittingTransactionId();
+                phase = 1;
+                commit = appendToLog( transaction, transactionId, commands );
             }
 
             forceAfterAppend( logAppendEvent );
@@ -150,6 +237,8 @@ class BatchingTransactionAppender implements TransactionAppender
         // a checkRotation, which any thread could call at any time. Although that method was added to
         // be able to test a certain thing, so it should go away actually.
 
+        CommandSerializer commands = commandSerializers.get().serialize( transaction );
+
         // Synchronized with logFile to get absolute control over concurrent rotations happening
         synchronized ( logFile )
         {
@@ -160,7 +249,7 @@ class BatchingTransactionAppender implements TransactionAppender
                         "Received " + transaction + " with txId:" + expectedTransactionId +
                         " to be applied, but appending it ended up generating an unexpected txId:" + transactionId );
             }
-            return appendToLog( transaction, transactionId );
+            return appendToLog( transaction, transactionId, commands );
         }
     }
 
@@ -191,13 +280,9 @@ class BatchingTransactionAppender implements TransactionAppender
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not this transaction
      * contains any legacy index changes.
      */
-    private TransactionCommitment appendToLog(
-            TransactionRepresentation transaction, long transactionId ) throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId,
+            CommandSerializer commands ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any legacy index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -210,7 +295,11 @@ class BatchingTransactionAppender implements TransactionAppender
             synchronized ( channel )
             {
                 logPosition = channel.getCurrentPosition( positionMarker ).newPosition();
-                transactionLogWriter.append( transaction, transactionId );
+                logEntryWriter.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                        transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                        transaction.additionalHeader() );
+                commands.buffer.writeTo( channel );
+                logEntryWriter.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
             }
 
             long transactionChecksum = checksum(
@@ -218,8 +307,12 @@ class BatchingTransactionAppender implements TransactionAppender
             transactionMetadataCache.cacheTransactionMetadata(
                     transactionId, logPosition, transaction.getMasterId(), transaction.getAuthorId(),
                     transactionChecksum );
+            if ( transactionOffsetIndex != null )
+            {
+                transactionOffsetIndex.transactionAppended( transactionId, logPosition );
+            }
 
-            boolean hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+            boolean hasLegacyIndexChanges = commands.hasLegacyIndexChanges();
             if ( hasLegacyIndexChanges )
             {
                 // Offer this transaction id to the queue so that the legacy index applier can take part in the ordering
@@ -259,7 +352,17 @@ class BatchingTransactionAppender implements TransactionAppender
         // There's a benign race here, where we add our link before we update our next pointer.
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
+        long waitStartTime = System.nanoTime();
         threadLink.next = threadLinkHead.getAndSet( threadLink );
+        if ( pendingForces.incrementAndGet() >= groupCommitMaxBatchSize )
+        {
+            // The batch is full, let the thread waiting for the group commit window go ahead and force.
+            Thread leader = groupCommitLeader;
+            if ( leader != null )
+            {
+                LockSupport.unpark( leader );
+            }
+        }
 
         try ( LogForceWaitEvent logForceWaitEvent = logAppendEvent.beginLogForceWait() )
         {
@@ -269,6 +372,11 @@ class BatchingTransactionAppender implements TransactionAppender
                 {
                     try
                     {
+                        if ( !threadLink.done )
+                        {
+                            // Only worth waiting for others if our own append is still waiting to be forced.
+                            awaitGroupCommitWindow();
+                        }
                         forceLog( logAppendEvent );
                     }
                     finally
@@ -290,24 +398,62 @@ class BatchingTransactionAppender implements TransactionAppender
             }
             while ( !threadLink.done );
         }
+        transactionMonitor.transactionLogForceWaited( System.nanoTime() - waitStartTime );
     }
 
     private void forceLog( LogAppendEvent logAppendEvent ) throws IOException
     {
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
 
+        long forceStartTime = System.nanoTime();
         try ( LogForceEvent logForceEvent = logAppendEvent.beginLogForce() )
         {
             force();
         }
+        long forceTime = System.nanoTime() - forceStartTime;
 
-        unparkAll( links );
+        int batchSize = unparkAll( links );
+        pendingForces.addAndGet( -batchSize );
+        transactionMonitor.transactionLogForced( batchSize, forceTime );
     }
 
-    private void unparkAll( ThreadLink links )
+    /**
+     * Called by the thread about to force the log, while holding the force lock, to give other committing
+     * threads a chance to append their transactions and have them covered by the same force.
+     */
+    private void awaitGroupCommitWindow()
+    {
+        if ( groupCommitMaxDelayNanos == 0 )
+        {
+            return;
+        }
+
+        groupCommitLeader = Thread.currentThread();
+        try
+        {
+            long deadline = System.nanoTime() + groupCommitMaxDelayNanos;
+            long remaining;
+            while ( pendingForces.get() < groupCommitMaxBatchSize &&
+                    (remaining = deadline - System.nanoTime()) > 0 )
+            {
+                LockSupport.parkNanos( this, remaining );
+            }
+        }
+        finally
+        {
+            groupCommitLeader = null;
+        }
+    }
+
+    /**
+     * @return the number of threads that were unparked.
+     */
+    private int unparkAll( ThreadLink links )
     {
-        do
+        int count = 0;
+        while ( links != ThreadLink.END )
         {
+            count++;
             links.done = true;
             links.unpark();
             ThreadLink tmp;
@@ -319,7 +465,7 @@ class BatchingTransactionAppender implements TransactionAppender
             while ( tmp == null );
             links = tmp;
         }
-        while ( links != ThreadLink.END );
+        return count;
     }
 
     private void waitForLogForce()
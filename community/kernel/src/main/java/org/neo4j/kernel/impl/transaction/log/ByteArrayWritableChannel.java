@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link WritableChannel} that writes into a growable heap buffer, used for serializing a transaction
+ * before the log is locked, so that only a copy of the serialized bytes needs to happen under the lock.
+ * The contents are transferred to the real log channel with {@link #writeTo(WritableChannel)}.
+ */
+class ByteArrayWritableChannel implements WritableChannel
+{
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private ByteBuffer buffer;
+
+    ByteArrayWritableChannel( int initialCapacity, int maxRetainedCapacity )
+    {
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.buffer = ByteBuffer.allocate( initialCapacity );
+    }
+
+    /**
+     * Writes everything put into this channel since the last {@link #clear()} to the given channel.
+     */
+    public void writeTo( WritableChannel target ) throws IOException
+    {
+        target.put( buffer.array(), buffer.position() );
+    }
+
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * Discards the contents of this channel. Buffers that have grown beyond the max retained capacity
+     * are let go of, so that a single huge transaction doesn't pin that amount of memory forever.
+     */
+    public void clear()
+    {
+        if ( buffer.capacity() > maxRetainedCapacity )
+        {
+            buffer = ByteBuffer.allocate( initialCapacity );
+        }
+        else
+        {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public WritableChannel put( byte value )
+    {
+        bufferWithGuaranteedSpace( 1 ).put( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putShort( short value )
+    {
+        bufferWithGuaranteedSpace( 2 ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putInt( int value )
+    {
+        bufferWithGuaranteedSpace( 4 ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putLong( long value )
+    {
+        bufferWithGuaranteedSpace( 8 ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putFloat( float value )
+    {
+        bufferWithGuaranteedSpace( 4 ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putDouble( double value )
+    {
+        bufferWithGuaranteedSpace( 8 ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel put( byte[] value, int length )
+    {
+        bufferWithGuaranteedSpace( length ).put( value, 0, length );
+        return this;
+    }
+
+    private ByteBuffer bufferWithGuaranteedSpace( int spaceInBytes )
+    {
+        if ( buffer.remaining() < spaceInBytes )
+        {
+            int capacity = Math.max( buffer.capacity() << 1, buffer.position() + spaceInBytes );
+            ByteBuffer grown = ByteBuffer.allocate( capacity );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
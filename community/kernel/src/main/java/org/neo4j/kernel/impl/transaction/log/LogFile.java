@@ -55,6 +55,16 @@ public interface LogFile
 
     public void rotate() throws IOException;
 
+    /**
+     * Rotates to a new log file, without requiring the store to have been flushed first. The new log file
+     * starts with a {@link org.neo4j.kernel.impl.transaction.log.entry.CheckPoint check point} carrying the
+     * given position, so that recovery knows where to start replaying transactions from even before
+     * the next check point has been written to it.
+     *
+     * @param checkPoint position of the latest completed check point.
+     */
+    public void rotate( LogPosition checkPoint ) throws IOException;
+
     File currentLogFile();
 
     long currentLogVersion();
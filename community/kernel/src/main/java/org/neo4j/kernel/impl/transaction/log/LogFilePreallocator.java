@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+import static java.lang.Math.min;
+
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.transactionLogPreallocation;
+
+/**
+ * Prepares the file that the next log rotation switches to ahead of time: a spare file is sized to the
+ * rotation threshold and zero filled in the background, so that all its blocks are allocated before the first
+ * transaction is appended to it. Appends then don't change the file size, which makes forcing the log a cheaper,
+ * data only, sync on file systems like ext4 and XFS. The zeroes read as {@link LogEntryByteCodes#EMPTY} entries,
+ * which marks the end of the log.
+ *
+ * Log files removed by pruning can be handed to {@link #recycle(File)}, to be zero filled and used as a spare,
+ * instead of being deleted.
+ *
+ * The spare files live next to the log files, with suffixes that aren't log versions:
+ * <ul>
+ * <li>{@value #SUFFIX_PREALLOCATED}, a spare that is fully zero filled and forced, ready to be taken</li>
+ * <li>{@value #SUFFIX_PREALLOCATING}, a spare that is being zero filled</li>
+ * <li>{@value #SUFFIX_RECYCLED}, a pruned log file waiting to become the next spare</li>
+ * </ul>
+ */
+public class LogFilePreallocator extends LifecycleAdapter
+{
+    public static final String SUFFIX_PREALLOCATED = ".preallocated";
+    public static final String SUFFIX_PREALLOCATING = ".preallocating";
+    public static final String SUFFIX_RECYCLED = ".recycled";
+    private static final int ZEROES_SIZE = 1024 * 1024;
+
+    private final FileSystemAbstraction fileSystem;
+    private final JobScheduler scheduler;
+    private final long size;
+    private final boolean recyclePrunedFiles;
+    private final Log log;
+    private final File preallocatedFile;
+    private final File preallocatingFile;
+    private final File recycledFile;
+    private boolean preparing; // guarded by this
+    private volatile boolean stopped = true;
+
+    public LogFilePreallocator( FileSystemAbstraction fileSystem, JobScheduler scheduler, File directory, String name,
+            long size, boolean recyclePrunedFiles, Log log )
+    {
+        this.fileSystem = fileSystem;
+        this.scheduler = scheduler;
+        this.size = size;
+        this.recyclePrunedFiles = recyclePrunedFiles;
+        this.log = log;
+        this.preallocatedFile = new File( directory, name + SUFFIX_PREALLOCATED );
+        this.preallocatingFile = new File( directory, name + SUFFIX_PREALLOCATING );
+        this.recycledFile = new File( directory, name + SUFFIX_RECYCLED );
+    }
+
+    @Override
+    public synchronized void start() throws IOException
+    {
+        stopped = false;
+        if ( fileSystem.fileExists( preallocatingFile ) )
+        {
+            // Zero filling didn't complete last time around, the file can still be recycled.
+            if ( fileSystem.fileExists( recycledFile ) || !fileSystem.renameFile( preallocatingFile, recycledFile ) )
+            {
+                fileSystem.deleteFile( preallocatingFile );
+            }
+        }
+        schedulePreparation();
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Moves the spare file, if there is one ready, into place as the given log file.
+     *
+     * @param logFile the log file to create.
+     * @return {@code true} if the spare was moved to {@code logFile}, which then is zero filled from the start,
+     * or {@code false} if there was no spare ready and {@code logFile} should be created the regular way.
+     */
+    public synchronized boolean takePreallocatedFile( File logFile ) throws IOException
+    {
+        if ( preparing || !fileSystem.fileExists( preallocatedFile ) || fileSystem.fileExists( logFile ) )
+        {
+            return false;
+        }
+
+        boolean taken = fileSystem.renameFile( preallocatedFile, logFile );
+        schedulePreparation();
+        return taken;
+    }
+
+    /**
+     * Offers a pruned log file for reuse as a future spare.
+     *
+     * @param prunedLogFile log file that is no longer needed.
+     * @return {@code true} if the file was taken over for recycling, otherwise the caller should delete it.
+     */
+    public synchronized boolean recycle( File prunedLogFile ) throws IOException
+    {
+        if ( !recyclePrunedFiles || fileSystem.fileExists( recycledFile ) )
+        {
+            return false;
+        }
+
+        boolean recycled = fileSystem.renameFile( prunedLogFile, recycledFile );
+        schedulePreparation();
+        return recycled;
+    }
+
+    private void schedulePreparation()
+    {
+        if ( stopped || preparing || fileSystem.fileExists( preallocatedFile ) )
+        {
+            return;
+        }
+
+        preparing = true;
+        scheduler.schedule( transactionLogPreallocation, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                boolean prepared = false;
+                try
+                {
+                    prepared = prepare();
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Failed to pre-allocate the next transaction log file " + preallocatedFile, e );
+                }
+                finally
+                {
+                    preparationDone( prepared );
+                }
+            }
+        } );
+    }
+
+    private synchronized void preparationDone( boolean prepared )
+    {
+        preparing = false;
+        if ( !prepared )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( !fileSystem.renameFile( preallocatingFile, preallocatedFile ) )
+            {
+                log.warn( "Failed to make pre-allocated transaction log file " + preallocatedFile + " available" );
+            }
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Failed to make pre-allocated transaction log file " + preallocatedFile + " available", e );
+        }
+    }
+
+    private boolean prepare() throws IOException
+    {
+        synchronized ( this )
+        {
+            // A recycled file already has (at least) most of its blocks allocated, so prefer that one.
+            if ( !fileSystem.fileExists( preallocatingFile ) && fileSystem.fileExists( recycledFile ) )
+            {
+                fileSystem.renameFile( recycledFile, preallocatingFile );
+            }
+        }
+
+        try ( StoreChannel channel = fileSystem.open( preallocatingFile, "rw" ) )
+        {
+            if ( channel.size() > size )
+            {
+                channel.truncate( size );
+            }
+
+            // Recycled files are overwritten too, since any leftover entries would be read as part of the log.
+            ByteBuffer zeroes = ByteBuffer.allocate( ZEROES_SIZE );
+            long position = 0;
+            while ( position < size )
+            {
+                if ( stopped )
+                {
+                    return false;
+                }
+                zeroes.clear();
+                zeroes.limit( (int) min( ZEROES_SIZE, size - position ) );
+                channel.writeAll( zeroes, position );
+                position += zeroes.limit();
+            }
+            channel.force( true );
+        }
+        return true;
+    }
+}
@@ -50,16 +50,20 @@ public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,IOExce
         try ( PhysicalTransactionCursor<ReadableVersionableLogChannel> physicalTransactionCursor =
                 new PhysicalTransactionCursor<>( recoveredDataChannel, logEntryReader ) )
         {
-            long lastKnownGoodPosition = channel.position();
             while ( physicalTransactionCursor.next() && !visitor.visit( physicalTransactionCursor.get() ) )
             {
-                lastKnownGoodPosition = channel.position();
+                // Just apply them all
             }
 
-            // Now that all ok transactions have been read, if needed truncate the position to cut
-            // off any potentially broken transactions
-            if (channel.position() > lastKnownGoodPosition)
+            // Now that all ok transactions have been read, truncate the file right after the last of them, to cut
+            // off any potentially broken transaction and any zero filled space of a pre-allocated log file.
+            // The channel itself is read ahead of the entries, so the cursor keeps track of where they end.
+            // Appending then continues right after the last good entry.
+            long lastKnownGoodPosition = physicalTransactionCursor.endOfLastEntry().getByteOffset();
+            if ( channel.size() > lastKnownGoodPosition )
+            {
                 channel.truncate( lastKnownGoodPosition );
+            }
         }
         visitor.close();
         return true;
@@ -20,15 +20,34 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.neo4j.io.fs.StoreChannel;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.EMPTY;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 
 public class LogRecoveryCheck
 {
     public static boolean recoveryRequired(StoreChannel storeChannel) throws IOException
     {
-        return storeChannel.size() > LOG_HEADER_SIZE;
+        return hasAnyEntries( storeChannel );
+    }
+
+    /**
+     * @return whether or not there's anything written after the header of the given log file. A log file
+     * that is pre-allocated, see {@link LogFilePreallocator}, is zero filled, i.e. starts with an
+     * {@link org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes#EMPTY empty} entry when nothing has
+     * been written to it.
+     */
+    public static boolean hasAnyEntries( StoreChannel storeChannel ) throws IOException
+    {
+        if ( storeChannel.size() <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+        ByteBuffer firstByte = ByteBuffer.allocate( 1 );
+        storeChannel.read( firstByte, LOG_HEADER_SIZE );
+        return firstByte.get( 0 ) != EMPTY;
     }
 }
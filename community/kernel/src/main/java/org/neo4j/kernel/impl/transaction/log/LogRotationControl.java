@@ -19,11 +19,15 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
+import java.io.IOException;
 import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.graphdb.index.IndexImplementation;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 
 public class LogRotationControl
 {
@@ -31,15 +35,28 @@ public class LogRotationControl
     private final IndexingService indexingService;
     private final LabelScanStore labelScanStore;
     private final Iterable<IndexImplementation> indexProviders;
+    private final PageCache pageCache;
 
     public LogRotationControl( TransactionIdStore transactionIdStore, IndexingService indexingService,
             LabelScanStore labelScanStore,
             Iterable<IndexImplementation> indexProviders )
+    {
+        this( transactionIdStore, indexingService, labelScanStore, indexProviders, null );
+    }
+
+    /**
+     * @param pageCache if not {@code null} the dirty pages of this page cache are flushed at the rate of
+     * the {@link IOLimiter} given to {@link #forceEverything(IOLimiter)}.
+     */
+    public LogRotationControl( TransactionIdStore transactionIdStore, IndexingService indexingService,
+            LabelScanStore labelScanStore,
+            Iterable<IndexImplementation> indexProviders, PageCache pageCache )
     {
         this.transactionIdStore = transactionIdStore;
         this.indexingService = indexingService;
         this.labelScanStore = labelScanStore;
         this.indexProviders = indexProviders;
+        this.pageCache = pageCache;
     }
 
     public void awaitAllTransactionsClosed()
@@ -51,6 +68,16 @@ public class LogRotationControl
     }
 
     public void forceEverything()
+    {
+        forceEverything( IOLimiter.unlimited );
+    }
+
+    /**
+     * Like {@link #forceEverything()}, but lets the given {@link IOLimiter} decide how fast the bulk of the
+     * dirty store pages are written out. This is for background check points, which would otherwise compete
+     * with committing transactions for IO.
+     */
+    public void forceEverything( IOLimiter limiter )
     {
         indexingService.flushAll();
         labelScanStore.force();
@@ -58,6 +85,18 @@ public class LogRotationControl
         {
             index.force();
         }
+        if ( pageCache != null && limiter != IOLimiter.unlimited )
+        {
+            try
+            {
+                pageCache.flushAndForce( limiter );
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Failed to flush", e );
+            }
+        }
+        // Any pages dirtied since the limited flush above are flushed here, together with the counts store
         transactionIdStore.flush();
     }
 }
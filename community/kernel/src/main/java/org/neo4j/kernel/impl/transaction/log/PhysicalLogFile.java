@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriterv1;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -69,13 +70,28 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
     private final LogVersionRepository logVersionRepository;
     private PhysicalLogVersionedStoreChannel channel;
     private final LogVersionBridge readerLogVersionBridge;
+    private final LogFilePreallocator preallocator;
 
     public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
                             TransactionIdStore transactionIdStore,
                             LogVersionRepository logVersionRepository, Monitor monitor,
                             TransactionMetadataCache transactionMetadataCache )
+    {
+        this( fileSystem, logFiles, rotateAtSize, transactionIdStore, logVersionRepository, monitor,
+                transactionMetadataCache, null );
+    }
+
+    /**
+     * @param preallocator provides pre-allocated files for new log versions, or {@code null} for creating
+     * new log files as empty files that grow as transactions are appended.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            TransactionIdStore transactionIdStore,
+                            LogVersionRepository logVersionRepository, Monitor monitor,
+                            TransactionMetadataCache transactionMetadataCache, LogFilePreallocator preallocator )
     {
         this.fileSystem = fileSystem;
+        this.preallocator = preallocator;
         this.rotateAtSize = rotateAtSize;
         this.transactionIdStore = transactionIdStore;
         this.logVersionRepository = logVersionRepository;
@@ -102,8 +118,9 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
 
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = openLogChannelForVersion( lastLogVersionUsed );
-        // Move to the end
-        channel.position( channel.size() );
+        // Move to the end. A pre-allocated log file that nothing has been written to is zero filled beyond
+        // the header, whereas one that had been written to has been truncated by recovery.
+        channel.position( LogRecoveryCheck.hasAnyEntries( channel ) ? channel.size() : LOG_HEADER_SIZE );
 
         writer = new PhysicalWritableLogChannel( channel );
     }
@@ -112,6 +129,7 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
     public void stop() throws Throwable
     {
         writer.close();
+        truncatePreallocatedSpace( channel );
         channel.close();
     }
 
@@ -137,6 +155,39 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
         writer.setChannel( channel );
     }
 
+    @Override
+    public synchronized void rotate( LogPosition checkPoint ) throws IOException
+    {
+        synchronized ( writer )
+        {
+            /*
+             * Committing transactions aren't awaited before this kind of rotation, so there may be appended
+             * transactions still in the buffer, or not yet forced. Get them safely into the current log file
+             * before leaving it.
+             */
+            writer.emptyBufferIntoChannelAndClearIt();
+            writer.force();
+
+            long newLogVersion = logVersionRepository.getCurrentLogVersion() + 1;
+            PhysicalLogVersionedStoreChannel newLog = openLogChannelForVersion( newLogVersion );
+            truncatePreallocatedSpace( channel );
+            channel.close();
+            channel = newLog;
+            writer.setChannel( channel );
+
+            new LogEntryWriterv1( writer, new CommandWriter( writer ) ).writeCheckPointEntry( checkPoint );
+            writer.emptyBufferIntoChannelAndClearIt();
+            writer.force();
+
+            /*
+             * Only now that the new log file carries a check point do we make it the current version. If we
+             * crash before this, recovery will find the new log file anyway, since it looks for log files
+             * newer than the version in the store.
+             */
+            logVersionRepository.incrementAndGetVersion();
+        }
+    }
+
     private PhysicalLogVersionedStoreChannel rotate( LogVersionedStoreChannel currentLog )
             throws IOException
     {
@@ -154,15 +205,31 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
          * "simply overhead" for continuing to work with the new file.
          */
         PhysicalLogVersionedStoreChannel newLog = openLogChannelForVersion( newLogVersion );
+        truncatePreallocatedSpace( currentLog );
         currentLog.close();
         return newLog;
     }
 
+    /**
+     * Cuts off the zero filled space of a pre-allocated log file that we're done writing to, so that readers
+     * get to the end of it, and continue into the next log version, right after its last entry.
+     */
+    private void truncatePreallocatedSpace( LogVersionedStoreChannel log ) throws IOException
+    {
+        long position = log.position();
+        if ( log.size() > position )
+        {
+            log.truncate( position );
+        }
+    }
+
     private PhysicalLogVersionedStoreChannel openLogChannelForVersion( long forVersion ) throws IOException
     {
         File toOpen = logFiles.getLogFileForVersion( forVersion );
+        boolean preallocated = preallocator != null && preallocator.takePreallocatedFile( toOpen );
         StoreChannel storeChannel = fileSystem.open( toOpen, "rw" );
-        LogHeader header = readLogHeader( headerBuffer, storeChannel, false );
+        // A pre-allocated file is all zeroes, including where the header goes
+        LogHeader header = preallocated ? null : readLogHeader( headerBuffer, storeChannel, false );
         if ( header == null )
         {
             // Either the header is not there in full or the file was new. Don't care
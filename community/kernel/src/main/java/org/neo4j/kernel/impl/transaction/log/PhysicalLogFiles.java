@@ -24,13 +24,13 @@ import java.io.IOException;
 import java.util.regex.Pattern;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 
 import static java.lang.Math.max;
 
 import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.DEFAULT_VERSION_SUFFIX;
 import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.REGEX_DEFAULT_VERSION_SUFFIX;
-import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
 /**
@@ -55,6 +55,8 @@ public class PhysicalLogFiles
         }
     }
 
+    public static final String OFFSET_INDEX_SUFFIX = ".offsets";
+
     private final File logBaseName;
     private final Pattern logFilePattern;
     private final FileSystemAbstraction fileSystem;
@@ -76,6 +78,14 @@ public class PhysicalLogFiles
         return new File( logBaseName.getPath() + DEFAULT_VERSION_SUFFIX + version );
     }
 
+    /**
+     * @return the file of the {@link TransactionOffsetIndex} of the log file with the given version.
+     */
+    public File getOffsetIndexFileForVersion( long version )
+    {
+        return new File( getLogFileForVersion( version ).getPath() + OFFSET_INDEX_SUFFIX );
+    }
+
     public boolean versionExists( long version )
     {
         return fileSystem.fileExists( getLogFileForVersion( version ) );
@@ -86,9 +96,13 @@ public class PhysicalLogFiles
         return readLogHeader( fileSystem, getLogFileForVersion( version ) );
     }
 
-    public boolean hasAnyTransaction( long version )
+    public boolean hasAnyTransaction( long version ) throws IOException
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        // Pre-allocated logs are zero-filled past the header, so the size alone says nothing about the content
+        try ( StoreChannel channel = fileSystem.open( getLogFileForVersion( version ), "r" ) )
+        {
+            return LogRecoveryCheck.hasAnyEntries( channel );
+        }
     }
 
     public long getHighestLogVersion()
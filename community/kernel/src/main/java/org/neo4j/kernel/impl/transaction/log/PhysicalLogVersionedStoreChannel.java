@@ -69,7 +69,8 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
     @Override
     public int read( ByteBuffer dst, long position ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        // Reading at an absolute position leaves the position of this channel as it is
+        return delegateChannel.read( dst, position );
     }
 
     @Override
@@ -24,6 +24,7 @@ import java.io.IOException;
 
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache.TransactionMetadata;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
@@ -43,9 +44,13 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
     private final LogFile logFile;
     private final LogRotation logRotation;
     private final TransactionMetadataCache transactionMetadataCache;
+    private final TransactionOffsetIndex transactionOffsetIndex;
     private final TransactionIdStore transactionIdStore;
     private final IdOrderingQueue legacyIndexTransactionOrdering;
     private final KernelHealth kernelHealth;
+    private final TransactionMonitor transactionMonitor;
+    private final long groupCommitMaxDelayMillis;
+    private final int groupCommitMaxBatchSize;
     private TransactionAppender appender;
 
     public PhysicalLogicalTransactionStore(
@@ -55,13 +60,53 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
             TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering,
             KernelHealth kernelHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                kernelHealth, TransactionMonitor.NONE, 0, 1 );
+    }
+
+    public PhysicalLogicalTransactionStore(
+            LogFile logFile,
+            LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering,
+            KernelHealth kernelHealth,
+            TransactionMonitor transactionMonitor,
+            long groupCommitMaxDelayMillis,
+            int groupCommitMaxBatchSize )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                kernelHealth, transactionMonitor, groupCommitMaxDelayMillis, groupCommitMaxBatchSize, null );
+    }
+
+    /**
+     * @param transactionOffsetIndex index of where transactions are in the log files, kept up to date by the
+     * appender and used for finding transactions that aren't in the {@link TransactionMetadataCache}, or
+     * {@code null} for always scanning log files from their header.
+     */
+    public PhysicalLogicalTransactionStore(
+            LogFile logFile,
+            LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering,
+            KernelHealth kernelHealth,
+            TransactionMonitor transactionMonitor,
+            long groupCommitMaxDelayMillis,
+            int groupCommitMaxBatchSize,
+            TransactionOffsetIndex transactionOffsetIndex )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.transactionOffsetIndex = transactionOffsetIndex;
         this.transactionIdStore = transactionIdStore;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.kernelHealth = kernelHealth;
+        this.transactionMonitor = transactionMonitor;
+        this.groupCommitMaxDelayMillis = groupCommitMaxDelayMillis;
+        this.groupCommitMaxBatchSize = groupCommitMaxBatchSize;
     }
 
     @Override
@@ -69,7 +114,8 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
     {
         // We can't open the appender until 'start()' because the LogFile needs recovery to have completed first.
         this.appender = new BatchingTransactionAppender( logFile, logRotation, transactionMetadataCache,
-                transactionIdStore, legacyIndexTransactionOrdering, kernelHealth );
+                transactionIdStore, legacyIndexTransactionOrdering, kernelHealth, transactionMonitor,
+                groupCommitMaxDelayMillis, groupCommitMaxBatchSize, transactionOffsetIndex );
     }
 
     @Override
@@ -99,10 +145,23 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFile.accept( headerVisitor );
 
-            // ask LogFile
+            // ask the offset index where in that version to start looking
             TransactionPositionLocator transactionPositionLocator =
                     new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+            LogPosition indexedPosition = transactionOffsetIndex == null ? null : transactionOffsetIndex.lookup(
+                    headerVisitor.getLogPosition().getLogVersion(), headerVisitor.getPreviousLogLastTransactionId(),
+                    transactionIdToStartFrom );
+            if ( indexedPosition != null )
+            {
+                logFile.accept( transactionPositionLocator, indexedPosition );
+            }
+
+            // ask LogFile
+            if ( !transactionPositionLocator.hasFound() )
+            {
+                transactionPositionLocator = new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
+                logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+            }
             LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
@@ -192,6 +251,11 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
             return true;
         }
 
+        boolean hasFound()
+        {
+            return startEntryForFoundTransaction != null;
+        }
+
         public LogPosition getAndCacheFoundLogPosition( TransactionMetadataCache transactionMetadataCache )
                 throws NoSuchTransactionException
         {
@@ -214,6 +278,7 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
     {
         private final long transactionId;
         private LogPosition foundPosition;
+        private long previousLogLastTransactionId;
 
         public LogVersionLocator( long transactionId )
         {
@@ -228,6 +293,7 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
             if ( foundIt )
             {
                 foundPosition = position;
+                previousLogLastTransactionId = firstTransactionIdInLog - 1;
             }
             return !foundIt; // continue as long we don't find it
         }
@@ -241,5 +307,14 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
             }
             return foundPosition;
         }
+
+        /**
+         * @return the last transaction id of the log before the one found, as recorded in the header of the log
+         * that was found.
+         */
+        public long getPreviousLogLastTransactionId()
+        {
+            return previousLogLastTransactionId;
+        }
     }
 }
@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
@@ -37,6 +38,8 @@ public class PhysicalTransactionCursor<T extends ReadableLogChannel>
     private final T channel;
     private final LogEntryReader<T> entryReader;
     private CommittedTransactionRepresentation current;
+    private final LogPositionMarker endOfLastEntry = new LogPositionMarker();
+    private boolean started;
 
     public PhysicalTransactionCursor( T channel, LogEntryReader<T> entryReader )
     {
@@ -58,10 +61,26 @@ public class PhysicalTransactionCursor<T extends ReadableLogChannel>
     @Override
     public boolean next() throws IOException
     {
-        LogEntry entry = entryReader.readLogEntry( channel );
-        if ( entry == null )
+        if ( !started )
         {
-            return false;
+            channel.getCurrentPosition( endOfLastEntry );
+            started = true;
+        }
+
+        LogEntry entry;
+        while ( true )
+        {
+            entry = entryReader.readLogEntry( channel );
+            if ( entry == null )
+            {
+                return false;
+            }
+            if ( !(entry instanceof CheckPoint) )
+            {
+                break;
+            }
+            // Check points live in between transactions and aren't part of any of them
+            channel.getCurrentPosition( endOfLastEntry );
         }
 
         assert entry instanceof LogEntryStart : "Expected Start entry, read " + entry + " instead";
@@ -90,9 +109,19 @@ public class PhysicalTransactionCursor<T extends ReadableLogChannel>
                 startEntry.getLocalId(), startEntry.getTimeWritten(),
                 startEntry.getLastCommittedTxWhenTransactionStarted(), commitEntry.getTimeWritten(), -1 );
         current = new CommittedTransactionRepresentation( startEntry, transaction, commitEntry );
+        channel.getCurrentPosition( endOfLastEntry );
         return true;
     }
 
+    /**
+     * @return the position right after the last complete transaction or check point read by this cursor,
+     * i.e. where any broken or zero filled tail of the log starts.
+     */
+    public LogPosition endOfLastEntry()
+    {
+        return endOfLastEntry.newPosition();
+    }
+
     @Override
     public void close() throws IOException
     {
@@ -29,7 +29,8 @@ import static org.neo4j.helpers.Format.KB;
 
 public class PhysicalWritableLogChannel implements WritableLogChannel
 {
-    private LogVersionedStoreChannel channel;
+    // Volatile since forcing happens outside of the monitor that guards switching channel on rotation
+    private volatile LogVersionedStoreChannel channel;
     private final ByteBuffer buffer;
     private volatile boolean closed;
 
@@ -47,12 +48,19 @@ public class PhysicalWritableLogChannel implements WritableLogChannel
     @Override
     public void force() throws IOException
     {
+        LogVersionedStoreChannel channel = this.channel;
         try
         {
             channel.force( false );
         }
         catch ( ClosedChannelException e )
         {
+            if ( channel != this.channel )
+            {
+                // Rotated away from in between reading the channel and forcing it. Rotation forces the
+                // channel it rotates away from before closing it, so what we wanted forced already is.
+                return;
+            }
             handleClosedChannelException( e );
         }
     }
@@ -25,6 +25,7 @@ import java.io.IOException;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache.TransactionMetadata;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -51,7 +52,8 @@ public class ReadOnlyTransactionStore extends LifecycleAdapter implements Logica
                 monitors.newMonitor( PhysicalLogFile.Monitor.class ), transactionMetadataCache));
 
         physicalStore = life.add( new PhysicalLogicalTransactionStore( logFile, LogRotation.NO_ROTATION,
-                transactionMetadataCache, transactionIdStore, BYPASS, kernelHealth ) );
+                transactionMetadataCache, transactionIdStore, BYPASS, kernelHealth, TransactionMonitor.NONE, 0, 1,
+                new TransactionOffsetIndex( fs, logFiles ) ) );
     }
 
     @Override
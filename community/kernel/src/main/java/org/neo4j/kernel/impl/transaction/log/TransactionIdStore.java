@@ -50,6 +50,13 @@ public interface TransactionIdStore
      */
     long nextCommittingTransactionId();
 
+    /**
+     * @return the highest transaction id handed out by {@link #nextCommittingTransactionId()}. Transactions
+     * with this id, or lower, have been assigned their place in the log, although they may not yet
+     * have been {@link #transactionCommitted(long, long) committed} or {@link #transactionClosed(long) closed}.
+     */
+    long getLastCommittingTransactionId();
+
     /**
      * Signals that a transaction with the given transaction id has been committed (i.e. appended to a log).
      * Calls to this method may come in out-of-transaction-id order. The highest gap-free transaction id
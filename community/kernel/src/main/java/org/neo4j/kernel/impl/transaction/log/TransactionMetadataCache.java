@@ -19,39 +19,64 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
-import org.neo4j.kernel.impl.cache.LruCache;
-
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the start positions of recently appended or looked up transactions, and the headers of log files.
+ * <p>
+ * Both caches are direct mapped, i.e. every key has one slot, decided by its low bits, and a newer key that maps to
+ * the same slot replaces the older one. Transaction ids and log versions are handed out in sequence, so this keeps
+ * the most recent ones, like an LRU cache would, but without a lock around every access.
+ */
 public class TransactionMetadataCache
 {
-    private final LruCache<Long /*tx id*/, TransactionMetadata> txStartPositionCache;
-    private final LruCache<Long /*log version*/, Long /*last committed tx*/> logHeaderCache;
+    private final AtomicReferenceArray<CachedTransaction> txStartPositionCache;
+    private final AtomicReferenceArray<CachedHeader> logHeaderCache;
 
     public TransactionMetadataCache( int headerCacheSize, int transactionCacheSize )
     {
-        this.logHeaderCache = new LruCache<>( "Log header cache", headerCacheSize );
-        this.txStartPositionCache = new LruCache<>( "Tx start position cache", transactionCacheSize );
+        this.logHeaderCache = new AtomicReferenceArray<>( slots( headerCacheSize ) );
+        this.txStartPositionCache = new AtomicReferenceArray<>( slots( transactionCacheSize ) );
+    }
+
+    private static int slots( int size )
+    {
+        return Integer.highestOneBit( Math.max( 1, size - 1 ) ) << 1;
+    }
+
+    private static int slot( AtomicReferenceArray<?> cache, long key )
+    {
+        return (int) (key & (cache.length() - 1));
     }
 
     public void clear()
     {
-        logHeaderCache.clear();
-        txStartPositionCache.clear();
+        for ( int i = 0; i < logHeaderCache.length(); i++ )
+        {
+            logHeaderCache.set( i, null );
+        }
+        for ( int i = 0; i < txStartPositionCache.length(); i++ )
+        {
+            txStartPositionCache.set( i, null );
+        }
     }
 
     public void putHeader( long logVersion, long previousLogLastCommittedTx )
     {
-        logHeaderCache.put( logVersion, previousLogLastCommittedTx );
+        logHeaderCache.set( slot( logHeaderCache, logVersion ),
+                new CachedHeader( logVersion, previousLogLastCommittedTx ) );
     }
 
     public long getLogHeader( long logVersion )
     {
-        Long value = logHeaderCache.get( logVersion );
-        return value == null ? -1 : value;
+        CachedHeader header = logHeaderCache.get( slot( logHeaderCache, logVersion ) );
+        return header == null || header.logVersion != logVersion ? -1 : header.previousLogLastCommittedTx;
     }
 
     public TransactionMetadata getTransactionMetadata( long txId )
     {
-        return txStartPositionCache.get( txId );
+        CachedTransaction transaction = txStartPositionCache.get( slot( txStartPositionCache, txId ) );
+        return transaction == null || transaction.txId != txId ? null : transaction.metadata;
     }
 
     public TransactionMetadata cacheTransactionMetadata( long txId, LogPosition position, int masterId,
@@ -63,10 +88,34 @@ public class TransactionMetadataCache
         }
 
         TransactionMetadata result = new TransactionMetadata( masterId, authorId, position, checksum );
-        txStartPositionCache.put( txId, result );
+        txStartPositionCache.set( slot( txStartPositionCache, txId ), new CachedTransaction( txId, result ) );
         return result;
     }
 
+    private static class CachedTransaction
+    {
+        final long txId;
+        final TransactionMetadata metadata;
+
+        CachedTransaction( long txId, TransactionMetadata metadata )
+        {
+            this.txId = txId;
+            this.metadata = metadata;
+        }
+    }
+
+    private static class CachedHeader
+    {
+        final long logVersion;
+        final long previousLogLastCommittedTx;
+
+        CachedHeader( long logVersion, long previousLogLastCommittedTx )
+        {
+            this.logVersion = logVersion;
+            this.previousLogLastCommittedTx = previousLogLastCommittedTx;
+        }
+    }
+
     public static class TransactionMetadata
     {
         private final int masterId;
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+/**
+ * A sparse index from transaction id to the position of its start entry, one per log version, so that finding a
+ * transaction in an older log file means binary searching the index and scanning a short stretch of the log,
+ * rather than scanning the log file from its header.
+ * <p>
+ * A transaction is indexed when it starts at least {@code interval} bytes after the previously indexed one. The
+ * entries of the current log version are kept in memory, and written to a file next to the log file once the
+ * appender has moved on to the next version, i.e. once the log file is complete and forced. The index file starts
+ * with the last transaction id of the previous log, as found in the log header, so that an index that doesn't
+ * belong to the log file it's next to is never used. The index is only a hint: a log version without one is
+ * scanned from its header, like before.
+ */
+public class TransactionOffsetIndex
+{
+    public static final long DEFAULT_INTERVAL = 64 * 1024;
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 16;
+
+    private final FileSystemAbstraction fileSystem;
+    private final PhysicalLogFiles logFiles;
+    private final long interval;
+    // Only changed by the appending thread, which holds the log file monitor
+    private volatile Offsets current;
+
+    public TransactionOffsetIndex( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles )
+    {
+        this( fileSystem, logFiles, DEFAULT_INTERVAL );
+    }
+
+    public TransactionOffsetIndex( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long interval )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.interval = interval;
+    }
+
+    /**
+     * Called for every appended transaction, in order, while holding the log file monitor.
+     */
+    public void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        Offsets offsets = current;
+        if ( offsets == null || offsets.logVersion != startPosition.getLogVersion() )
+        {
+            if ( offsets != null )
+            {
+                write( offsets );
+            }
+            offsets = new Offsets( startPosition.getLogVersion(), 64 );
+        }
+        else if ( startPosition.getByteOffset() - offsets.lastOffset() < interval )
+        {
+            return;
+        }
+        current = offsets.add( transactionId, startPosition.getByteOffset() );
+    }
+
+    /**
+     * @param logVersion the log version that the transaction is in.
+     * @param previousLogLastTransactionId the last transaction id of the previous log, from the header of the log.
+     * @param transactionId the transaction to find.
+     * @return the position of the start entry of the closest indexed transaction at or before the given one, from
+     * which the log can be scanned for the given transaction, or {@code null} if there is no such transaction in
+     * the index.
+     */
+    public LogPosition lookup( long logVersion, long previousLogLastTransactionId, long transactionId )
+            throws IOException
+    {
+        Offsets offsets = current;
+        if ( offsets == null || offsets.logVersion != logVersion )
+        {
+            offsets = read( logVersion, previousLogLastTransactionId );
+        }
+        return offsets == null ? null : offsets.floor( transactionId );
+    }
+
+    private void write( Offsets offsets )
+    {
+        File file = logFiles.getOffsetIndexFileForVersion( offsets.logVersion );
+        File temporary = new File( file.getPath() + ".tmp" );
+        try
+        {
+            long previousLogLastTransactionId = logFiles.extractHeader( offsets.logVersion ).lastCommittedTxId;
+            int size = offsets.size;
+            ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + size * ENTRY_SIZE );
+            buffer.putLong( previousLogLastTransactionId );
+            for ( int i = 0; i < size; i++ )
+            {
+                buffer.putLong( offsets.transactionIds[i] ).putLong( offsets.offsets[i] );
+            }
+            buffer.flip();
+            try ( StoreChannel channel = fileSystem.create( temporary ) )
+            {
+                channel.writeAll( buffer );
+                channel.force( false );
+            }
+            fileSystem.deleteFile( file );
+            fileSystem.renameFile( temporary, file );
+        }
+        catch ( IOException e )
+        {
+            // The index is only an optimization, lookups in this log version will scan it from its header instead
+            fileSystem.deleteFile( temporary );
+        }
+    }
+
+    private Offsets read( long logVersion, long previousLogLastTransactionId ) throws IOException
+    {
+        File file = logFiles.getOffsetIndexFileForVersion( logVersion );
+        if ( !fileSystem.fileExists( file ) )
+        {
+            return null;
+        }
+        int entries = (int) ((fileSystem.getFileSize( file ) - HEADER_SIZE) / ENTRY_SIZE);
+        if ( entries <= 0 )
+        {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + entries * ENTRY_SIZE );
+        try ( StoreChannel channel = fileSystem.open( file, "r" ) )
+        {
+            while ( buffer.hasRemaining() && channel.read( buffer, buffer.position() ) > 0 )
+            {
+                // read until full or end of file
+            }
+        }
+        buffer.flip();
+        if ( buffer.remaining() < HEADER_SIZE || buffer.getLong() != previousLogLastTransactionId )
+        {
+            return null;
+        }
+        Offsets offsets = new Offsets( logVersion, entries );
+        long lastTransactionId = previousLogLastTransactionId, lastOffset = LOG_HEADER_SIZE - 1;
+        while ( buffer.remaining() >= ENTRY_SIZE )
+        {
+            long transactionId = buffer.getLong(), offset = buffer.getLong();
+            if ( transactionId <= lastTransactionId || offset <= lastOffset )
+            {
+                break; // not written in full
+            }
+            offsets.add( lastTransactionId = transactionId, lastOffset = offset );
+        }
+        return offsets;
+    }
+
+    private static class Offsets
+    {
+        final long logVersion;
+        final long[] transactionIds;
+        final long[] offsets;
+        volatile int size;
+
+        Offsets( long logVersion, int capacity )
+        {
+            this( logVersion, new long[capacity], new long[capacity], 0 );
+        }
+
+        private Offsets( long logVersion, long[] transactionIds, long[] offsets, int size )
+        {
+            this.logVersion = logVersion;
+            this.transactionIds = transactionIds;
+            this.offsets = offsets;
+            this.size = size;
+        }
+
+        long lastOffset()
+        {
+            return offsets[size - 1];
+        }
+
+        /**
+         * @return this, or a copy with room for more entries, with the entry added.
+         */
+        Offsets add( long transactionId, long offset )
+        {
+            int size = this.size;
+            Offsets target = this;
+            if ( size == transactionIds.length )
+            {
+                target = new Offsets( logVersion, Arrays.copyOf( transactionIds, size * 2 ),
+                        Arrays.copyOf( offsets, size * 2 ), size );
+            }
+            target.transactionIds[size] = transactionId;
+            target.offsets[size] = offset;
+            target.size = size + 1;
+            return target;
+        }
+
+        LogPosition floor( long transactionId )
+        {
+            int index = Arrays.binarySearch( transactionIds, 0, size, transactionId );
+            if ( index < 0 )
+            {
+                index = -index - 2; // the one before the insertion point
+            }
+            return index < 0 ? null : new LogPosition( logVersion, offsets[index] );
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+
+/**
+ * Something that primitive values and byte arrays can be written to. Log entries and commands are serialized
+ * into one of these, which doesn't need to be a channel of an actual log file.
+ */
+public interface WritableChannel
+{
+    WritableChannel put( byte value ) throws IOException;
+
+    WritableChannel putShort( short value ) throws IOException;
+
+    WritableChannel putInt( int value ) throws IOException;
+
+    WritableChannel putLong( long value ) throws IOException;
+
+    WritableChannel putFloat( float value ) throws IOException;
+
+    WritableChannel putDouble( double value ) throws IOException;
+
+    WritableChannel put( byte[] value, int length ) throws IOException;
+}
@@ -22,7 +22,7 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Closeable;
 import java.io.IOException;
 
-public interface WritableLogChannel extends PositionAwareChannel, Closeable
+public interface WritableLogChannel extends WritableChannel, PositionAwareChannel, Closeable
 {
     /**
     * Writes any changes not present in the channel yet and clears the buffer.
@@ -35,17 +35,24 @@ public interface WritableLogChannel extends PositionAwareChannel, Closeable
      */
     void force() throws IOException;
 
+    @Override
     WritableLogChannel put( byte value ) throws IOException;
 
+    @Override
     WritableLogChannel putShort( short value ) throws IOException;
 
+    @Override
     WritableLogChannel putInt( int value ) throws IOException;
 
+    @Override
     WritableLogChannel putLong( long value ) throws IOException;
 
+    @Override
     WritableLogChannel putFloat( float value ) throws IOException;
 
+    @Override
     WritableLogChannel putDouble( double value ) throws IOException;
 
+    @Override
     WritableLogChannel put( byte[] value, int length ) throws IOException;
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableVersionableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel.DEFAULT_READ_AHEAD_SIZE;
+
+/**
+ * Finds the latest {@link CheckPoint} in a log file, which is where recovery starts replaying transactions from.
+ */
+public class CheckPointLocator
+{
+    private final LogEntryReader<ReadableVersionableLogChannel> logEntryReader;
+
+    public CheckPointLocator( LogEntryReader<ReadableVersionableLogChannel> logEntryReader )
+    {
+        this.logEntryReader = logEntryReader;
+    }
+
+    /**
+     * @param channel log file to look in, positioned after its header.
+     * @return the position carried by the last check point in the given log file, or {@code null} if there is none.
+     */
+    public LogPosition lastCheckPointIn( LogVersionedStoreChannel channel ) throws IOException
+    {
+        // Not closed here since that would close the given channel, which is owned by the caller
+        ReadableVersionableLogChannel entries =
+                new ReadAheadLogChannel( channel, NO_MORE_CHANNELS, DEFAULT_READ_AHEAD_SIZE );
+        LogPosition lastCheckPoint = null;
+        LogEntry entry;
+        while ( (entry = logEntryReader.readLogEntry( entries )) != null )
+        {
+            if ( entry instanceof CheckPoint )
+            {
+                lastCheckPoint = entry.<CheckPoint>as().getLogPosition();
+            }
+        }
+        return lastCheckPoint;
+    }
+}
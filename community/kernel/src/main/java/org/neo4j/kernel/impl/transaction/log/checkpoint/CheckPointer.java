@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.kernel.KernelHealth;
+import org.neo4j.kernel.impl.transaction.log.CommandWriter;
+import org.neo4j.kernel.impl.transaction.log.LogFile;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.LogRotationControl;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.WritableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriterv1;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+/**
+ * Takes fuzzy check points in the background. A check point notes the current position in the log and the
+ * last transaction appended before it, awaits that transaction to be applied, flushes the store at the
+ * rate of an {@link IOPSLimiter} while transactions keep committing, and finally appends a
+ * {@link org.neo4j.kernel.impl.transaction.log.entry.CheckPoint} entry carrying the noted position to the log.
+ * Recovery starts replaying transactions from the latest check point, which means that log rotation
+ * no longer needs to flush the store, only carry the {@link #lastCheckPoint() latest check point}
+ * over into the new log file.
+ */
+public class CheckPointer extends LifecycleAdapter
+{
+    private final LogFile logFile;
+    private final TransactionIdStore transactionIdStore;
+    private final LogRotationControl logRotationControl;
+    private final KernelHealth kernelHealth;
+    private final JobScheduler scheduler;
+    private final long intervalMillis;
+    private final IOPSLimiter limiter;
+    private final Log log;
+    private final LogPositionMarker positionMarker = new LogPositionMarker();
+
+    private volatile LogPosition lastCheckPoint;
+    private long lastCheckPointTransactionId;
+    private volatile boolean stopped;
+    private JobScheduler.JobHandle job;
+
+    /**
+     * @param limiter limits the rate at which the store is flushed, or {@code null} for flushing as fast as possible.
+     */
+    public CheckPointer( LogFile logFile, TransactionIdStore transactionIdStore,
+            LogRotationControl logRotationControl, KernelHealth kernelHealth, JobScheduler scheduler,
+            long intervalMillis, IOPSLimiter limiter, Log log )
+    {
+        this.logFile = logFile;
+        this.transactionIdStore = transactionIdStore;
+        this.logRotationControl = logRotationControl;
+        this.kernelHealth = kernelHealth;
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+        this.limiter = limiter;
+        this.log = log;
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        stopped = false;
+        synchronized ( logFile )
+        {
+            LogPosition position = currentPosition();
+            lastCheckPointTransactionId = transactionIdStore.getLastCommittingTransactionId();
+            if ( position.getByteOffset() > LOG_HEADER_SIZE )
+            {
+                // The current log file already has entries, which means that recovery has been performed on it
+                // and flushed the store. Note that in the log so that the next recovery doesn't have to go
+                // back any further than this.
+                appendCheckPoint( position );
+            }
+            lastCheckPoint = position;
+        }
+
+        job = scheduler.scheduleRecurring( JobScheduler.Groups.checkPoint, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    checkPoint();
+                }
+                catch ( Throwable e )
+                {
+                    // Keep the job alive. A failed check point just means recovery may have more to replay.
+                    log.error( "Failed to check point", e );
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopBackgroundCheckPoints();
+    }
+
+    /**
+     * Stops scheduling check points and awaits any ongoing check point to finish, lifting its IO limit so
+     * that it does so quickly. Must be called before shutting down the log, and without holding its monitor.
+     */
+    public void stopBackgroundCheckPoints()
+    {
+        stopped = true;
+        if ( limiter != null )
+        {
+            limiter.disable();
+        }
+        if ( job != null )
+        {
+            job.cancel( false );
+            job = null;
+        }
+        synchronized ( this )
+        {
+            // Just await an ongoing check point
+        }
+    }
+
+    /**
+     * @return position in the log from where recovery would start replaying transactions if we crashed now.
+     * Log files from the version of this position and onwards must be kept.
+     */
+    public LogPosition lastCheckPoint()
+    {
+        return lastCheckPoint;
+    }
+
+    /**
+     * Performs a check point, unless nothing has been appended since the last one.
+     *
+     * @return {@code true} if a check point was performed.
+     */
+    public synchronized boolean checkPoint() throws IOException
+    {
+        if ( stopped )
+        {
+            return false;
+        }
+        kernelHealth.assertHealthy( IOException.class );
+
+        LogPosition position;
+        long lastCommittingTransactionId;
+        synchronized ( logFile )
+        {
+            // Appending transactions holds this monitor as well, so no transaction can end up on the wrong side
+            // of the position compared to the transaction id we note here.
+            position = currentPosition();
+            lastCommittingTransactionId = transactionIdStore.getLastCommittingTransactionId();
+        }
+        if ( lastCommittingTransactionId == lastCheckPointTransactionId )
+        {
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        if ( !awaitTransactionsClosed( lastCommittingTransactionId ) )
+        {
+            return false;
+        }
+        logRotationControl.forceEverything( limiter != null ? limiter : IOLimiter.unlimited );
+
+        // Same as for rotation, don't record that the store is safe if something went wrong in the meantime
+        kernelHealth.assertHealthy( IOException.class );
+        synchronized ( logFile )
+        {
+            appendCheckPoint( position );
+            lastCheckPoint = position;
+        }
+        lastCheckPointTransactionId = lastCommittingTransactionId;
+        log.info( "Check point at " + position + " for transactions up to " + lastCommittingTransactionId +
+                " completed in " + (System.currentTimeMillis() - startTime) + " ms" );
+        return true;
+    }
+
+    private boolean awaitTransactionsClosed( long transactionId ) throws IOException
+    {
+        while ( transactionIdStore.getLastClosedTransactionId() < transactionId )
+        {
+            if ( stopped )
+            {
+                return false;
+            }
+            // A panic may leave a transaction forever unclosed, don't wait for that
+            kernelHealth.assertHealthy( IOException.class );
+            LockSupport.parkNanos( 1_000_000 ); // 1 ms
+        }
+        return true;
+    }
+
+    private LogPosition currentPosition() throws IOException
+    {
+        return logFile.getWriter().getCurrentPosition( positionMarker ).newPosition();
+    }
+
+    private void appendCheckPoint( LogPosition position ) throws IOException
+    {
+        WritableLogChannel writer = logFile.getWriter();
+        synchronized ( writer )
+        {
+            new LogEntryWriterv1( writer, new CommandWriter( writer ) ).writeCheckPointEntry( position );
+            writer.emptyBufferIntoChannelAndClearIt();
+        }
+        writer.force();
+    }
+}
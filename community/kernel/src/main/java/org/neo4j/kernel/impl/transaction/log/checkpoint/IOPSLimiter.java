@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * Limits the number of pages written per second. Limiting is lifted for good when {@link #disable() disabled},
+ * which is useful for letting an ongoing flush finish quickly when shutting down.
+ */
+public class IOPSLimiter implements IOLimiter
+{
+    private static final long ONE_SECOND_IN_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final long nanosPerIO;
+    private volatile boolean disabled;
+
+    /**
+     * @param iops maximum number of pages to write per second.
+     */
+    public IOPSLimiter( int iops )
+    {
+        if ( iops <= 0 )
+        {
+            throw new IllegalArgumentException( "Expected a positive number of IOs per second, got " + iops );
+        }
+        this.nanosPerIO = ONE_SECOND_IN_NANOS / iops;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs )
+    {
+        long now = System.nanoTime();
+        if ( previousStamp == INITIAL_STAMP || disabled )
+        {
+            return now;
+        }
+
+        long expectedNanos = recentlyCompletedIOs * nanosPerIO;
+        long elapsedNanos = now - previousStamp;
+        if ( elapsedNanos < expectedNanos )
+        {
+            LockSupport.parkNanos( this, expectedNanos - elapsedNanos );
+            return System.nanoTime();
+        }
+        return now;
+    }
+
+    public void disable()
+    {
+        disabled = true;
+    }
+}
@@ -25,6 +25,7 @@ import org.neo4j.helpers.Clock;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.IllegalLogFormatException;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 
@@ -78,6 +79,21 @@ public class LogPruneStrategyFactory
                                                     PhysicalLogFiles files,
                                                     LogVersionRepository versionRepo,
                                                     String configValue )
+    {
+        return fromConfigValue( fileSystem, logFileInformation, files, versionRepo, configValue, null );
+    }
+
+    /**
+     * Same as {@link #fromConfigValue(FileSystemAbstraction, LogFileInformation, PhysicalLogFiles,
+     * LogVersionRepository, String)}, but offers pruned log files to the given {@link LogFilePreallocator}
+     * for recycling, if not {@code null}, before deleting them.
+     */
+    public static LogPruneStrategy fromConfigValue( FileSystemAbstraction fileSystem,
+                                                    LogFileInformation logFileInformation,
+                                                    PhysicalLogFiles files,
+                                                    LogVersionRepository versionRepo,
+                                                    String configValue,
+                                                    LogFilePreallocator recycler )
     {
         String[] tokens = configValue.split( " " );
         if ( tokens.length == 0 )
@@ -96,7 +112,7 @@ public class LogPruneStrategyFactory
                 case "false":
                     final TransactionCountThreshold thresholdToUse = new TransactionCountThreshold( 1 );
                     return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, versionRepo,
-                            thresholdToUse );
+                            thresholdToUse, recycler );
                 default:
                     throw new IllegalArgumentException( "Invalid log pruning configuration value '" + configValue +
                             "'. The form is 'all' or '<number><unit> <type>' for example '100k txs' " +
@@ -129,7 +145,8 @@ public class LogPruneStrategyFactory
                 throw new IllegalArgumentException( "Invalid log pruning configuration value '" + configValue +
                         "'. Invalid type '" + type + "', valid are files, size, txs, hours, days." );
         }
-        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, versionRepo, thresholdToUse );
+        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, versionRepo, thresholdToUse,
+                recycler );
     }
 
 }
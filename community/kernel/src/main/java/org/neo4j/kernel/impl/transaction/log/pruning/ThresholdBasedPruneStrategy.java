@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
 import java.io.File;
+import java.io.IOException;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 
@@ -35,15 +37,24 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
     private final PhysicalLogFiles files;
     private final LogVersionRepository versionRepo;
     private final Threshold threshold;
+    private final LogFilePreallocator recycler;
 
     public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
                                         PhysicalLogFiles files, LogVersionRepository versionRepo, Threshold threshold )
+    {
+        this( fileSystem, logFileInformation, files, versionRepo, threshold, null );
+    }
+
+    public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
+                                        PhysicalLogFiles files, LogVersionRepository versionRepo, Threshold threshold,
+                                        LogFilePreallocator recycler )
     {
         this.fileSystem = fileSystem;
         this.logFileInformation = logFileInformation;
         this.files = files;
         this.versionRepo = versionRepo;
         this.threshold = threshold;
+        this.recycler = recycler;
     }
 
     @Override
@@ -92,7 +103,25 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
         // we can be sure that no holes are created
         for ( long version = lower; version <= upper; version++ )
         {
-            fileSystem.deleteFile( files.getLogFileForVersion( version ) );
+            File file = files.getLogFileForVersion( version );
+            if ( !recycle( file ) )
+            {
+                fileSystem.deleteFile( file );
+            }
+            fileSystem.deleteFile( files.getOffsetIndexFileForVersion( version ) );
+        }
+    }
+
+    private boolean recycle( File file )
+    {
+        try
+        {
+            return recycler != null && recycler.recycle( file );
+        }
+        catch ( IOException e )
+        {
+            // Then it will be deleted instead
+            return false;
         }
     }
 }
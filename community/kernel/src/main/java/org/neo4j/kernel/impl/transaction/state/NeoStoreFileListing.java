@@ -32,6 +32,7 @@ import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.LegacyIndexProviderLookup;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.store.NeoStore;
 
 import static java.util.Arrays.asList;
@@ -126,7 +127,7 @@ public class NeoStoreFileListing
 
     private boolean neoStoreFile( String name )
     {
-        if ( name.endsWith( ".id" ) )
+        if ( name.endsWith( ".id" ) || name.endsWith( PageCacheWarmer.SUFFIX_CACHEPROF ) )
         {
             return false;
         }
@@ -52,6 +52,7 @@ import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.register.Register.DoubleLongRegister;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.range;
 import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 
@@ -150,32 +151,45 @@ public class NeoStoreIndexStoreView implements IndexStoreView
             @Override
             protected Update read( NodeRecord node )
             {
-                long[] labels = parseLabelsField( node ).get( nodeStore );
-                Update update = new Update( node.getId(), labels );
-                if ( !containsAnyLabel( labelIds, labels ) )
-                {
-                    return update;
-                }
-                properties: for ( PropertyBlock property : properties( node ) )
+                return readUpdate( node, labelIds, propertyKeyIds );
+            }
+
+            @Override
+            protected void process( Update update ) throws FAILURE
+            {
+                labelUpdateVisitor.visit( update.labels );
+                for ( NodePropertyUpdate propertyUpdate : update )
                 {
-                    int propertyKeyId = property.getKeyIndexId();
-                    for ( int sought : propertyKeyIds )
-                    {
-                        if ( propertyKeyId == sought )
-                        {
-                            update.add( NodePropertyUpdate
-                                                .add( node.getId(), propertyKeyId, valueOf( property ), labels ) );
-                            continue properties;
-                        }
-                    }
+                    propertyUpdateVisitor.visit( propertyUpdate );
                 }
-                return update;
+            }
+        };
+    }
+
+    @Override
+    public <FAILURE extends Exception> StoreScan<FAILURE> visitNodesInRange(
+            long fromNodeId, long toNodeId, final int[] labelIds, final int[] propertyKeyIds,
+            final Visitor<NodePropertyUpdate, FAILURE> propertyUpdateVisitor )
+    {
+        final long first = Math.max( fromNodeId, nodeStore.getNumberOfReservedLowIds() );
+        final long last = Math.min( toNodeId, nodeStore.getHighId() ) - 1;
+        return new NodeStoreScan<Update, FAILURE>()
+        {
+            @Override
+            protected PrimitiveLongIterator nodeIds()
+            {
+                return range( first, last );
+            }
+
+            @Override
+            protected Update read( NodeRecord node )
+            {
+                return readUpdate( node, labelIds, propertyKeyIds );
             }
 
             @Override
             protected void process( Update update ) throws FAILURE
             {
-                labelUpdateVisitor.visit( update.labels );
                 for ( NodePropertyUpdate propertyUpdate : update )
                 {
                     propertyUpdateVisitor.visit( propertyUpdate );
@@ -184,6 +198,12 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         };
     }
 
+    @Override
+    public long nodeHighId()
+    {
+        return nodeStore.getHighId();
+    }
+
     @Override
     public Iterable<NodePropertyUpdate> nodeAsUpdates( long nodeId )
     {
@@ -238,6 +258,30 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         throw new PropertyNotFoundException( propertyKeyId, EntityType.NODE, nodeId );
     }
 
+    private Update readUpdate( NodeRecord node, int[] labelIds, int[] propertyKeyIds )
+    {
+        long[] labels = parseLabelsField( node ).get( nodeStore );
+        Update update = new Update( node.getId(), labels );
+        if ( !containsAnyLabel( labelIds, labels ) )
+        {
+            return update;
+        }
+        properties: for ( PropertyBlock property : properties( node ) )
+        {
+            int propertyKeyId = property.getKeyIndexId();
+            for ( int sought : propertyKeyIds )
+            {
+                if ( propertyKeyId == sought )
+                {
+                    update.add( NodePropertyUpdate
+                                        .add( node.getId(), propertyKeyId, valueOf( property ), labels ) );
+                    continue properties;
+                }
+            }
+        }
+        return update;
+    }
+
     private Object valueOf( PropertyBlock property )
     {
         // Make sure the value is loaded, even if it's of a "heavy" kind.
@@ -347,10 +391,15 @@ public class NeoStoreIndexStoreView implements IndexStoreView
 
         protected abstract void process( RESULT result ) throws FAILURE;
 
+        protected PrimitiveLongIterator nodeIds()
+        {
+            return new StoreIdIterator( nodeStore );
+        }
+
         @Override
         public void run() throws FAILURE
         {
-            PrimitiveLongIterator nodeIds = new StoreIdIterator( nodeStore );
+            PrimitiveLongIterator nodeIds = nodeIds();
             continueScanning = true;
             while ( continueScanning && nodeIds.hasNext() )
             {
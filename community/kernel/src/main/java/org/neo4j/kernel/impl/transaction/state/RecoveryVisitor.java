@@ -20,7 +20,22 @@
 package org.neo4j.kernel.impl.transaction.state;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.helpers.collection.CloseableVisitor;
 import org.neo4j.kernel.impl.api.TransactionRepresentationStoreApplier;
 import org.neo4j.kernel.impl.api.index.IndexUpdatesValidator;
@@ -33,6 +48,12 @@ import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 
 import static org.neo4j.kernel.impl.api.TransactionApplicationMode.RECOVERY;
 
+/**
+ * Applies recovered transactions to the store. With a parallelism of more than one, transactions are handed to
+ * worker threads as they are read, and a transaction only waits for the earlier transactions writing any of the
+ * same records, see {@link TransactionRecordKeys}. Transactions that can't be keyed that way are barriers,
+ * applied by the reading thread once all transactions before them have been applied.
+ */
 public class RecoveryVisitor implements CloseableVisitor<CommittedTransactionRepresentation,IOException>
 {
     public interface Monitor
@@ -40,26 +61,77 @@ public class RecoveryVisitor implements CloseableVisitor<CommittedTransactionRep
         void transactionRecovered( long txId );
     }
 
+    // Bounds the memory used for transactions read ahead of application, and for tracking which records they write
+    private static final int MAX_IN_FLIGHT_PER_WORKER = 64;
+    private static final int MAX_TRACKED_RECORDS = 100_000;
+
     private final TransactionIdStore store;
     private final TransactionRepresentationStoreApplier storeApplier;
     private final IndexUpdatesValidator indexUpdatesValidator;
     private final Monitor monitor;
+    private final int parallelism;
     private long lastTransactionIdApplied = -1;
     private long lastTransactionChecksum;
 
+    private ExecutorService workers;
+    private final Deque<RecoveryTask> inFlight = new ArrayDeque<>();
+    private final PrimitiveLongObjectMap<RecoveryTask> lastTaskByRecord = Primitive.longObjectMap();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
     public RecoveryVisitor( TransactionIdStore store,
                             TransactionRepresentationStoreApplier storeApplier,
                             IndexUpdatesValidator indexUpdatesValidator,
                             Monitor monitor )
+    {
+        this( store, storeApplier, indexUpdatesValidator, monitor, 1 );
+    }
+
+    public RecoveryVisitor( TransactionIdStore store,
+                            TransactionRepresentationStoreApplier storeApplier,
+                            IndexUpdatesValidator indexUpdatesValidator,
+                            Monitor monitor, int parallelism )
     {
         this.store = store;
         this.storeApplier = storeApplier;
         this.indexUpdatesValidator = indexUpdatesValidator;
         this.monitor = monitor;
+        this.parallelism = parallelism;
     }
 
     @Override
     public boolean visit( CommittedTransactionRepresentation transaction ) throws IOException
+    {
+        if ( parallelism <= 1 )
+        {
+            apply( transaction );
+        }
+        else
+        {
+            dispatch( transaction );
+        }
+
+        lastTransactionIdApplied = transaction.getCommitEntry().getTxId();
+        lastTransactionChecksum = LogEntryStart.checksum( transaction.getStartEntry() );
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( workers != null )
+        {
+            awaitAll();
+            workers.shutdown();
+            workers = null;
+        }
+
+        if ( lastTransactionIdApplied != -1 )
+        {
+            store.setLastCommittedAndClosedTransactionId( lastTransactionIdApplied, lastTransactionChecksum );
+        }
+    }
+
+    private void apply( CommittedTransactionRepresentation transaction ) throws IOException
     {
         long txId = transaction.getCommitEntry().getTxId();
         TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
@@ -70,18 +142,92 @@ public class RecoveryVisitor implements CloseableVisitor<CommittedTransactionRep
             storeApplier.apply( txRepresentation, indexUpdates, locks, txId, RECOVERY );
         }
 
-        lastTransactionIdApplied = txId;
-        lastTransactionChecksum = LogEntryStart.checksum( transaction.getStartEntry() );
         monitor.transactionRecovered( txId );
-        return false;
     }
 
-    @Override
-    public void close() throws IOException
+    private void dispatch( CommittedTransactionRepresentation transaction ) throws IOException
     {
-        if ( lastTransactionIdApplied != -1 )
+        checkFailure();
+        TransactionRecordKeys recordKeys = TransactionRecordKeys.of( transaction.getTransactionRepresentation() );
+        if ( recordKeys.isBarrier() )
         {
-            store.setLastCommittedAndClosedTransactionId( lastTransactionIdApplied, lastTransactionChecksum );
+            awaitAll();
+            apply( transaction );
+            return;
+        }
+
+        if ( lastTaskByRecord.size() > MAX_TRACKED_RECORDS )
+        {
+            awaitAll();
+        }
+        while ( inFlight.size() >= parallelism * MAX_IN_FLIGHT_PER_WORKER )
+        {
+            await( inFlight.poll() );
+        }
+
+        Set<RecoveryTask> dependencies = new HashSet<>();
+        PrimitiveLongIterator keys = recordKeys.keys().iterator();
+        RecoveryTask task = new RecoveryTask( transaction );
+        while ( keys.hasNext() )
+        {
+            RecoveryTask previous = lastTaskByRecord.put( keys.next(), task );
+            if ( previous != null && !previous.isDone() )
+            {
+                dependencies.add( previous );
+            }
+        }
+        task.dependsOn( dependencies );
+
+        if ( workers == null )
+        {
+            workers = Executors.newFixedThreadPool( parallelism, new NamedThreadFactory( "Recovery" ) );
+        }
+        inFlight.add( task );
+        // The pool takes tasks in the order they are submitted, so the tasks a worker waits for have already
+        // been picked up by other workers, which rules out any deadlock amongst them
+        workers.execute( task );
+    }
+
+    private void awaitAll() throws IOException
+    {
+        while ( !inFlight.isEmpty() )
+        {
+            await( inFlight.poll() );
+        }
+        lastTaskByRecord.clear();
+        checkFailure();
+    }
+
+    private void await( RecoveryTask task ) throws IOException
+    {
+        try
+        {
+            task.awaitDone();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for recovered transactions to be applied" );
+        }
+    }
+
+    private void checkFailure() throws IOException
+    {
+        Throwable cause = failure.get();
+        if ( cause != null )
+        {
+            if ( workers != null )
+            {
+                workers.shutdownNow();
+                workers = null;
+            }
+            inFlight.clear();
+            lastTaskByRecord.clear();
+            if ( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+            throw new IOException( "Unable to apply recovered transaction", cause );
         }
     }
 
@@ -96,4 +242,56 @@ public class RecoveryVisitor implements CloseableVisitor<CommittedTransactionRep
     {
         return indexUpdatesValidator.validate( txRepresentation, RECOVERY );
     }
+
+    private class RecoveryTask implements Runnable
+    {
+        private final CommittedTransactionRepresentation transaction;
+        private final CountDownLatch done = new CountDownLatch( 1 );
+        private Collection<RecoveryTask> dependencies;
+
+        RecoveryTask( CommittedTransactionRepresentation transaction )
+        {
+            this.transaction = transaction;
+        }
+
+        void dependsOn( Collection<RecoveryTask> dependencies )
+        {
+            this.dependencies = new ArrayList<>( dependencies );
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                for ( RecoveryTask dependency : dependencies )
+                {
+                    dependency.awaitDone();
+                }
+                if ( failure.get() == null )
+                {
+                    apply( transaction );
+                }
+            }
+            catch ( Throwable e )
+            {
+                failure.compareAndSet( null, e );
+            }
+            finally
+            {
+                dependencies = null;
+                done.countDown();
+            }
+        }
+
+        boolean isDone()
+        {
+            return done.getCount() == 0;
+        }
+
+        void awaitDone() throws InterruptedException
+        {
+            done.await();
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+import org.neo4j.kernel.impl.transaction.command.NeoCommandHandler;
+
+/**
+ * The records a recovered transaction writes, used by {@link RecoveryVisitor} to decide which transactions
+ * can be applied concurrently. Every record written by a command is present in the command as an after-image,
+ * so two transactions with disjoint keys can be applied in any order and still leave the store as serial
+ * replay would. Counts commands carry deltas, which commute, so they don't contribute any keys.
+ * <p>
+ * Any other kind of command, i.e. schema, token, neo store and legacy index commands, makes the transaction
+ * {@link #isBarrier() a barrier}, which is applied on its own after everything before it.
+ */
+class TransactionRecordKeys extends NeoCommandHandler.Adapter implements Visitor<Command,IOException>
+{
+    private static final int TYPE_SHIFT = 58;
+    private static final long NODE = 1;
+    private static final long RELATIONSHIP = 2;
+    private static final long PROPERTY = 3;
+    private static final long RELATIONSHIP_GROUP = 4;
+    private static final long NODE_LABELS = 5;
+    private static final long STRING = 6;
+    private static final long ARRAY = 7;
+
+    private final PrimitiveLongSet keys = Primitive.longSet( 16 );
+    private boolean barrier;
+    private boolean recognized;
+
+    static TransactionRecordKeys of( TransactionRepresentation transaction ) throws IOException
+    {
+        TransactionRecordKeys keys = new TransactionRecordKeys();
+        transaction.accept( keys );
+        return keys;
+    }
+
+    PrimitiveLongSet keys()
+    {
+        return keys;
+    }
+
+    boolean isBarrier()
+    {
+        return barrier;
+    }
+
+    @Override
+    public boolean visit( Command element ) throws IOException
+    {
+        recognized = false;
+        element.handle( this );
+        barrier |= !recognized;
+        return false;
+    }
+
+    @Override
+    public boolean visitNodeCommand( NodeCommand command ) throws IOException
+    {
+        add( NODE, command.getKey() );
+        addLabelRecords( command.getBefore() );
+        addLabelRecords( command.getAfter() );
+        return recognized = true;
+    }
+
+    @Override
+    public boolean visitRelationshipCommand( RelationshipCommand command ) throws IOException
+    {
+        add( RELATIONSHIP, command.getKey() );
+        return recognized = true;
+    }
+
+    @Override
+    public boolean visitPropertyCommand( PropertyCommand command ) throws IOException
+    {
+        add( PROPERTY, command.getKey() );
+        addValueRecords( command.getBefore() );
+        addValueRecords( command.getAfter() );
+        return recognized = true;
+    }
+
+    @Override
+    public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command ) throws IOException
+    {
+        add( RELATIONSHIP_GROUP, command.getKey() );
+        return recognized = true;
+    }
+
+    @Override
+    public boolean visitNodeCountsCommand( NodeCountsCommand command )
+    {
+        return recognized = true;
+    }
+
+    @Override
+    public boolean visitRelationshipCountsCommand( RelationshipCountsCommand command ) throws IOException
+    {
+        return recognized = true;
+    }
+
+    private void addLabelRecords( NodeRecord record )
+    {
+        if ( record != null )
+        {
+            addAll( NODE_LABELS, record.getDynamicLabelRecords() );
+        }
+    }
+
+    private void addValueRecords( PropertyRecord record )
+    {
+        if ( record == null )
+        {
+            return;
+        }
+        for ( PropertyBlock block : record )
+        {
+            switch ( block.getType() )
+            {
+            case STRING:
+                addAll( STRING, block.getValueRecords() );
+                break;
+            case ARRAY:
+                addAll( ARRAY, block.getValueRecords() );
+                break;
+            default:
+                // No dynamic records for the other types
+                break;
+            }
+        }
+        for ( DynamicRecord deleted : record.getDeletedRecords() )
+        {
+            add( deleted.getType() == PropertyType.STRING.intValue() ? STRING : ARRAY, deleted.getId() );
+        }
+    }
+
+    private void addAll( long type, Iterable<DynamicRecord> records )
+    {
+        for ( DynamicRecord record : records )
+        {
+            add( type, record.getId() );
+        }
+    }
+
+    private void add( long type, long id )
+    {
+        keys.add( (type << TYPE_SHIFT) | id );
+    }
+}
@@ -116,6 +116,23 @@ public class TransactionRecordState implements RecordState
                 (neoStoreRecord != null && neoStoreRecord.changeSize() > 0);
     }
 
+    /**
+     * @return the number of records changed so far, which is also the number of commands that
+     * {@link #extractCommands(Collection)} will produce.
+     */
+    public int changeSize()
+    {
+        return context.getNodeRecords().changeSize() +
+               context.getRelRecords().changeSize() +
+               context.getPropertyRecords().changeSize() +
+               context.getSchemaRuleChanges().changeSize() +
+               context.getPropertyKeyTokenRecords().changeSize() +
+               context.getLabelTokenRecords().changeSize() +
+               context.getRelationshipTypeTokenRecords().changeSize() +
+               context.getRelGroupRecords().changeSize() +
+               (neoStoreRecord != null ? neoStoreRecord.changeSize() : 0);
+    }
+
     @Override
     public void extractCommands( Collection<Command> commands ) throws TransactionFailureException
     {
@@ -123,15 +140,7 @@ public class TransactionRecordState implements RecordState
 
         integrityValidator.validateTransactionStartKnowledge( lastCommittedTxWhenTransactionStarted );
 
-        int noOfCommands = context.getNodeRecords().changeSize() +
-                           context.getRelRecords().changeSize() +
-                           context.getPropertyRecords().changeSize() +
-                           context.getSchemaRuleChanges().changeSize() +
-                           context.getPropertyKeyTokenRecords().changeSize() +
-                           context.getLabelTokenRecords().changeSize() +
-                           context.getRelationshipTypeTokenRecords().changeSize() +
-                           context.getRelGroupRecords().changeSize() +
-                           (neoStoreRecord != null ? neoStoreRecord.changeSize() : 0);
+        int noOfCommands = changeSize();
 
         for ( RecordProxy<Integer, LabelTokenRecord, Void> record : context.getLabelTokenRecords().changes() )
         {
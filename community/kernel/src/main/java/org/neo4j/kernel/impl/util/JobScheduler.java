@@ -127,6 +127,21 @@ public interface JobScheduler extends Lifecycle
         public static final Group indexSampling = new Group( "IndexSampling", POOLED );
         public static final Group pageCacheEviction = new Group( "PageCacheEviction", POOLED );
 
+        /**
+         * Records the page cache profiles, and warms up the page cache from them.
+         */
+        public static final Group pageCacheWarmup = new Group( "PageCacheWarmup", POOLED );
+
+        /**
+         * Zero fills the next transaction log file ahead of log rotation.
+         */
+        public static final Group transactionLogPreallocation = new Group( "TransactionLogPreallocation", POOLED );
+
+        /**
+         * Flushes the store in the background and marks check points in the transaction log.
+         */
+        public static final Group checkPoint = new Group( "CheckPoint", POOLED );
+
         /**
          * Rotates internal diagnostic logs
          */
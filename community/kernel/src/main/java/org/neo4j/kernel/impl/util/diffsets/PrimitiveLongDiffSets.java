@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+
+/**
+ * {@link DiffSets} of ids, which keeps the added and removed ids in primitive sets. The methods taking
+ * primitive longs work on those sets directly, without boxing.
+ */
+public class PrimitiveLongDiffSets extends DiffSets<Long>
+{
+    private final int offHeapThreshold;
+
+    public PrimitiveLongDiffSets()
+    {
+        this( -1 );
+    }
+
+    /**
+     * @param offHeapThreshold number of added, or removed, ids to keep on the heap before moving them off heap,
+     * or {@code -1} to always keep them on the heap. Diff sets that may have moved off heap must be
+     * {@link #close() closed}.
+     */
+    public PrimitiveLongDiffSets( int offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    public boolean add( long elem )
+    {
+        boolean wasRemoved = PrimitiveLongSetAdapter.remove( removed( false ), elem );
+        // Add to the addedElements only if it was not removed from the removedElements
+        return wasRemoved || ((PrimitiveLongSetAdapter) added( true )).add( elem );
+    }
+
+    public boolean remove( long elem )
+    {
+        boolean removedFromAddedElements = PrimitiveLongSetAdapter.remove( added( false ), elem );
+        // Add to the removedElements only if it was not removed from the addedElements.
+        return removedFromAddedElements || ((PrimitiveLongSetAdapter) removed( true )).add( elem );
+    }
+
+    public void addAll( PrimitiveLongIterator elems )
+    {
+        while ( elems.hasNext() )
+        {
+            add( elems.next() );
+        }
+    }
+
+    public void removeAll( PrimitiveLongIterator elems )
+    {
+        while ( elems.hasNext() )
+        {
+            remove( elems.next() );
+        }
+    }
+
+    public boolean isAdded( long elem )
+    {
+        return PrimitiveLongSetAdapter.contains( added( false ), elem );
+    }
+
+    public boolean isRemoved( long elem )
+    {
+        return PrimitiveLongSetAdapter.contains( removed( false ), elem );
+    }
+
+    public PrimitiveLongIterator addedIterator()
+    {
+        return PrimitiveLongSetAdapter.iterator( added( false ) );
+    }
+
+    public PrimitiveLongIterator removedIterator()
+    {
+        return PrimitiveLongSetAdapter.iterator( removed( false ) );
+    }
+
+    /**
+     * Frees the memory of any added or removed ids that have been moved off heap. These diff sets must not be
+     * used after this.
+     */
+    public void close()
+    {
+        PrimitiveLongSetAdapter.close( added( false ) );
+        PrimitiveLongSetAdapter.close( removed( false ) );
+    }
+
+    @Override
+    protected Set<Long> newSet()
+    {
+        return new PrimitiveLongSetAdapter( offHeapThreshold );
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.diffsets;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+
+/**
+ * A {@link Set} of longs kept in a {@link PrimitiveLongSet}, so that diff sets of node and relationship ids
+ * don't keep a boxed {@link Long} and a map entry around for every id.
+ * <p>
+ * Once the set holds more than a given number of ids it moves them to an off-heap set, so that a transaction
+ * creating or deleting very many nodes or relationships doesn't fill up the heap. An off-heap set must be
+ * {@link #close() closed} to free its memory.
+ * <p>
+ * {@link #primitiveIterator() Iterators} go over the primitive set itself, without copying it. The set can still
+ * be modified while being iterated over: a modification made while there are unfinished iterators first copies
+ * the ids into a new set and leaves the old one to the iterators, which is needed since an off-heap set frees
+ * its memory when it grows. The old set is freed when its last iterator is exhausted, or when this set is closed.
+ */
+class PrimitiveLongSetAdapter extends AbstractSet<Long>
+{
+    private final int offHeapThreshold;
+    private Version current = new Version( Primitive.longSet(), false );
+    private List<Version> retired;
+
+    /**
+     * @param offHeapThreshold number of ids to keep on the heap before moving all of them off heap,
+     * or {@code -1} to always keep them on the heap.
+     */
+    PrimitiveLongSetAdapter( int offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    static boolean remove( Set<Long> set, long value )
+    {
+        return set instanceof PrimitiveLongSetAdapter && ((PrimitiveLongSetAdapter) set).remove( value );
+    }
+
+    static boolean contains( Set<Long> set, long value )
+    {
+        return set instanceof PrimitiveLongSetAdapter && ((PrimitiveLongSetAdapter) set).contains( value );
+    }
+
+    /**
+     * @return an iterator over the given set, which is expected to either be a {@link PrimitiveLongSetAdapter}
+     * or empty.
+     */
+    static PrimitiveLongIterator iterator( Set<Long> set )
+    {
+        return set instanceof PrimitiveLongSetAdapter ? ((PrimitiveLongSetAdapter) set).primitiveIterator()
+                                                      : PrimitiveLongCollections.emptyIterator();
+    }
+
+    /**
+     * Frees the memory of the given set if it is a {@link PrimitiveLongSetAdapter} that has moved off heap.
+     */
+    static void close( Set<Long> set )
+    {
+        if ( set instanceof PrimitiveLongSetAdapter )
+        {
+            ((PrimitiveLongSetAdapter) set).close();
+        }
+    }
+
+    boolean add( long value )
+    {
+        boolean added = writable().add( value );
+        if ( added && !current.offHeap && offHeapThreshold >= 0 && current.set.size() > offHeapThreshold )
+        {
+            current = copyOf( current.set, true );
+        }
+        return added;
+    }
+
+    boolean remove( long value )
+    {
+        return current.set.contains( value ) && writable().remove( value );
+    }
+
+    boolean contains( long value )
+    {
+        return current.set.contains( value );
+    }
+
+    boolean isOffHeap()
+    {
+        return current.offHeap;
+    }
+
+    PrimitiveLongIterator primitiveIterator()
+    {
+        final Version version = current;
+        if ( version.set.isEmpty() )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+        final PrimitiveLongIterator ids = version.set.iterator();
+        version.iterators++;
+        return new PrimitiveLongBaseIterator()
+        {
+            private boolean exhausted;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                if ( exhausted )
+                {
+                    return false;
+                }
+                if ( ids.hasNext() )
+                {
+                    return next( ids.next() );
+                }
+                exhausted = true;
+                iteratorExhausted( version );
+                return false;
+            }
+        };
+    }
+
+    void close()
+    {
+        if ( retired != null )
+        {
+            for ( Version version : retired )
+            {
+                version.set.close();
+            }
+            retired = null;
+        }
+        if ( current.offHeap )
+        {
+            current.set.close();
+            current = new Version( Primitive.longSet(), false );
+        }
+    }
+
+    /**
+     * @return the set to modify, which is the current set unless there are iterators over it,
+     * in which case the current set is first replaced by a copy.
+     */
+    private PrimitiveLongSet writable()
+    {
+        if ( current.iterators > 0 )
+        {
+            Version iterated = current;
+            current = copyOf( iterated.set, iterated.offHeap );
+            retire( iterated );
+        }
+        return current.set;
+    }
+
+    private void retire( Version version )
+    {
+        if ( version.offHeap )
+        {
+            if ( retired == null )
+            {
+                retired = new ArrayList<>();
+            }
+            retired.add( version );
+        }
+        version.retired = true;
+    }
+
+    private void iteratorExhausted( Version version )
+    {
+        if ( --version.iterators == 0 && version.retired && version.offHeap && retired != null &&
+             retired.remove( version ) )
+        {
+            version.set.close();
+        }
+    }
+
+    private static Version copyOf( PrimitiveLongSet set, boolean offHeap )
+    {
+        int capacity = Math.max( Primitive.DEFAULT_HEAP_CAPACITY, Integer.highestOneBit( set.size() ) << 1 );
+        PrimitiveLongSet copy = offHeap ? Primitive.offHeapLongSet( capacity ) : Primitive.longSet( capacity );
+        copy.addAll( set.iterator() );
+        return new Version( copy, offHeap );
+    }
+
+    @Override
+    public boolean add( Long value )
+    {
+        return add( value.longValue() );
+    }
+
+    @Override
+    public boolean remove( Object value )
+    {
+        return value instanceof Long && remove( ((Long) value).longValue() );
+    }
+
+    @Override
+    public boolean contains( Object value )
+    {
+        return value instanceof Long && contains( ((Long) value).longValue() );
+    }
+
+    @Override
+    public int size()
+    {
+        return current.set.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return current.set.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        if ( current.iterators > 0 )
+        {
+            retire( current );
+            current = new Version( Primitive.longSet(), false );
+        }
+        else if ( current.offHeap )
+        {
+            current.set.close();
+            current = new Version( Primitive.longSet(), false );
+        }
+        else
+        {
+            current.set.clear();
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        final PrimitiveLongIterator ids = primitiveIterator();
+        return new Iterator<Long>()
+        {
+            private long last;
+
+            @Override
+            public boolean hasNext()
+            {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Long next()
+            {
+                return last = ids.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                PrimitiveLongSetAdapter.this.remove( last );
+            }
+        };
+    }
+
+    /**
+     * A primitive set along with the number of iterators over it which haven't been exhausted yet.
+     */
+    private static class Version
+    {
+        private final PrimitiveLongSet set;
+        private final boolean offHeap;
+        private int iterators;
+        private boolean retired;
+
+        Version( PrimitiveLongSet set, boolean offHeap )
+        {
+            this.set = set;
+            this.offHeap = offHeap;
+        }
+    }
+}
@@ -205,7 +205,10 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
         return added( false ).size() - removed( false ).size();
     }
 
-    private Set<T> newSet()
+    /**
+     * @return a new, empty, set for keeping added or removed elements in.
+     */
+    protected Set<T> newSet()
     {
         return newSetFromMap( new VersionedHashMap<T, Boolean>() );
     }
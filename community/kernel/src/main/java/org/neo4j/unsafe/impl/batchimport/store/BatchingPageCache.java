@@ -27,11 +27,13 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
@@ -183,6 +185,13 @@ public class BatchingPageCache implements PageCache
         return min( size, (int)(Runtime.getRuntime().maxMemory() * (maxPercentageOfHeap/100f)) );
     }
 
+    @Override
+    public List<PagedFile> listExistingMappings()
+    {
+        // We don't need this where the BatchingPageCache is being used.
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {   // no need to do anything here
@@ -192,6 +201,12 @@ public class BatchingPageCache implements PageCache
         }
     }
 
+    @Override
+    public void flushAndForce( IOLimiter limiter ) throws IOException
+    {   // batch import doesn't compete with anyone for IO, so don't limit
+        flushAndForce();
+    }
+
     @Override
     public void close() throws IOException
     {
@@ -257,6 +272,13 @@ public class BatchingPageCache implements PageCache
             return pageSize;
         }
 
+        @Override
+        public File file()
+        {
+            // We don't need this where the BatchingPageCache is being used.
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void close() throws IOException
         {
@@ -534,6 +556,12 @@ public class BatchingPageCache implements PageCache
             return true;
         }
 
+        @Override
+        public boolean isPinned()
+        {
+            return pinned;
+        }
+
         @Override
         public void close()
         {   // no-op
@@ -22,6 +22,9 @@ package org.neo4j.kernel;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,6 +35,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
@@ -104,6 +108,23 @@ public class RecoveryTest
                     return logVersionRepository.getCurrentLogVersion();
                 }
 
+                @Override
+                public long getHighestLogVersion()
+                {
+                    return getCurrentLogVersion();
+                }
+
+                @Override
+                public void setCurrentLogVersion( long version )
+                {
+                }
+
+                @Override
+                public LogPosition getLastCheckPoint( LogVersionedStoreChannel channel )
+                {
+                    return null;
+                }
+
                 @Override
                 public Visitor<LogVersionedStoreChannel, IOException> getRecoverer()
                 {
@@ -153,6 +174,119 @@ public class RecoveryTest
         }
     }
 
+    @Test
+    public void shouldStartRecoveryFromLastCheckPointInOlderLogFile() throws Exception
+    {
+        // GIVEN a check point in the latest log file, pointing back into the log file before it
+        String name = "log";
+        final PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        writeSomeData( logFiles.getLogFileForVersion( 1 ), new Visitor<ByteBuffer, IOException>()
+        {
+            @Override
+            public boolean visit( ByteBuffer buffer ) throws IOException
+            {
+                writeLogHeader( buffer, 1, 3 );
+                buffer.clear();
+                buffer.position( LOG_HEADER_SIZE );
+                buffer.put( (byte) 1 );
+                buffer.putInt( 111 );
+                buffer.put( (byte) 2 );
+                buffer.putInt( 222 );
+                return true;
+            }
+        } );
+        writeSomeData( logFiles.getLogFileForVersion( 2 ), new Visitor<ByteBuffer, IOException>()
+        {
+            @Override
+            public boolean visit( ByteBuffer buffer ) throws IOException
+            {
+                writeLogHeader( buffer, 2, 3 );
+                buffer.clear();
+                buffer.position( LOG_HEADER_SIZE );
+                buffer.put( (byte) 3 );
+                return true;
+            }
+        } );
+        final LogPosition checkPoint = new LogPosition( 1, LOG_HEADER_SIZE + 5 );
+        final List<LogPosition> recoveredFrom = new ArrayList<>();
+
+        LifeSupport life = new LifeSupport();
+        Recovery.Monitor monitor = mock( Recovery.Monitor.class );
+        try
+        {
+            life.add( new Recovery( new Recovery.SPI()
+            {
+                @Override
+                public void forceEverything()
+                {
+                }
+
+                @Override
+                public long getCurrentLogVersion()
+                {
+                    return logVersionRepository.getCurrentLogVersion();
+                }
+
+                @Override
+                public long getHighestLogVersion()
+                {
+                    return 2;
+                }
+
+                @Override
+                public void setCurrentLogVersion( long version )
+                {
+                }
+
+                @Override
+                public LogPosition getLastCheckPoint( LogVersionedStoreChannel channel )
+                {
+                    return channel.getVersion() == 2 ? checkPoint : null;
+                }
+
+                @Override
+                public Visitor<LogVersionedStoreChannel, IOException> getRecoverer()
+                {
+                    return new Visitor<LogVersionedStoreChannel, IOException>()
+                    {
+                        @Override
+                        public boolean visit( LogVersionedStoreChannel element ) throws IOException
+                        {
+                            recoveredFrom.add( new LogPosition( element.getVersion(), element.position() ) );
+                            if ( element.getVersion() == 1 )
+                            {
+                                ReadableVersionableLogChannel recoveredDataChannel =
+                                        new ReadAheadLogChannel( element, NO_MORE_CHANNELS, DEFAULT_READ_AHEAD_SIZE );
+                                assertEquals( (byte) 2, recoveredDataChannel.get() );
+                                assertEquals( 222, recoveredDataChannel.getInt() );
+                            }
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public PhysicalLogVersionedStoreChannel getLogFile( long recoveryVersion ) throws IOException
+                {
+                    return PhysicalLogFile.openForVersion( logFiles, fs, recoveryVersion );
+                }
+            }, monitor ) );
+
+            // WHEN
+            life.start();
+
+            // THEN
+            assertEquals( Arrays.asList( checkPoint, new LogPosition( 2, LOG_HEADER_SIZE ) ), recoveredFrom );
+            InOrder order = inOrder( monitor );
+            order.verify( monitor, times( 1 ) ).recoveryRequired( 1 );
+            order.verify( monitor, times( 1 ) ).recoveryCompleted();
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
     private void writeSomeData( File file, Visitor<ByteBuffer, IOException> visitor ) throws IOException
     {
         try ( StoreChannel channel = fs.open( file, "rw" ) )
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndexHistogramTest
+{
+    @Test
+    public void shouldGiveFrequentValuesABucketOfTheirOwn()
+    {
+        // GIVEN
+        Object[] sample = new Object[100];
+        for ( int i = 0; i < sample.length; i++ )
+        {
+            sample[i] = i < 50 ? 7 : i;
+        }
+
+        // WHEN
+        IndexHistogram histogram = IndexHistogram.equiDepth( 1000, sample, 10 );
+
+        // THEN
+        assertEquals( 0.5, histogram.equalitySelectivity( 7 ), 0.0001 );
+        assertEquals( 0.01, histogram.equalitySelectivity( 60 ), 0.0001 );
+        assertEquals( 0.005, histogram.equalitySelectivity( 1000 ), 0.0001 );
+    }
+
+    @Test
+    public void shouldEstimateRangesByInterpolatingNumbersWithinBuckets()
+    {
+        // GIVEN
+        Object[] sample = new Object[100];
+        for ( int i = 0; i < sample.length; i++ )
+        {
+            sample[i] = (long) i;
+        }
+
+        // WHEN
+        IndexHistogram histogram = IndexHistogram.equiDepth( 100, sample, 4 );
+
+        // THEN
+        assertEquals( 0.25, histogram.rangeSelectivity( 10, true, 35.0, false ), 0.02 );
+        assertEquals( 0.5, histogram.rangeSelectivity( 50, true, null, false ), 0.02 );
+        assertEquals( 0d, histogram.rangeSelectivity( "a", true, "z", true ), 0d );
+    }
+
+    @Test
+    public void shouldKeepValuesOfDifferentKindsInSeparateBuckets()
+    {
+        // GIVEN
+        Object[] sample = {1, 2, 3, "a", "b", "c", true, false};
+
+        // WHEN
+        IndexHistogram histogram = IndexHistogram.equiDepth( 8, sample, 2 );
+
+        // THEN
+        assertEquals( 3d / 8, histogram.rangeSelectivity( 0, true, 10, true ), 0.0001 );
+        assertEquals( 2d / 8, histogram.rangeSelectivity( "a", false, null, false ), 0.0001 );
+        assertEquals( 1d / 8, histogram.equalitySelectivity( true ), 0.0001 );
+    }
+}
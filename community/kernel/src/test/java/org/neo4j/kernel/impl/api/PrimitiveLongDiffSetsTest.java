@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asSet;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.iterator;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.setOf;
+
+public class PrimitiveLongDiffSetsTest
+{
+    @Test
+    public void shouldCancelOutAddedAndRemovedIds()
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+
+        // WHEN
+        diffSets.add( 1 );
+        diffSets.add( 2 );
+        diffSets.remove( 2 );
+        diffSets.remove( 3 );
+        diffSets.add( 3 );
+        diffSets.remove( 4 );
+
+        // THEN
+        assertEquals( setOf( 1 ), asSet( diffSets.addedIterator() ) );
+        assertEquals( setOf( 4 ), asSet( diffSets.removedIterator() ) );
+        assertTrue( diffSets.isAdded( 1 ) );
+        assertFalse( diffSets.isAdded( 2 ) );
+        assertTrue( diffSets.isRemoved( 4 ) );
+        assertFalse( diffSets.isRemoved( 3 ) );
+        assertEquals( 0, diffSets.delta() );
+    }
+
+    @Test
+    public void shouldSeePrimitiveChangesThroughBoxedView()
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+
+        // WHEN
+        diffSets.add( 1 );
+        diffSets.remove( Long.valueOf( 5 ) );
+
+        // THEN
+        assertTrue( diffSets.isAdded( Long.valueOf( 1 ) ) );
+        assertTrue( diffSets.getAdded().contains( 1L ) );
+        assertTrue( diffSets.getRemoved().contains( 5L ) );
+        assertEquals( setOf( 0, 1, 2 ), asSet( diffSets.augment( iterator( 0, 2, 5 ) ) ) );
+    }
+
+    @Test
+    public void shouldAllowModificationsWhileIteratingOverAddedIds()
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets();
+        for ( long id = 0; id < 100; id++ )
+        {
+            diffSets.add( id );
+        }
+
+        // WHEN removing every id while iterating over them, like deleting all nodes created in a transaction
+        int count = 0;
+        for ( Iterator<Long> added = diffSets.getAdded().iterator(); added.hasNext(); )
+        {
+            diffSets.remove( added.next() );
+            count++;
+        }
+
+        // THEN
+        assertEquals( 100, count );
+        assertTrue( diffSets.isEmpty() );
+    }
+
+    @Test
+    public void shouldKeepAllIdsWhenMovingThemOffHeap()
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets( 10 );
+        try
+        {
+            // WHEN
+            for ( long id = 0; id < 100; id++ )
+            {
+                diffSets.add( id );
+                diffSets.remove( 1000 + id );
+            }
+            diffSets.remove( 50 );
+
+            // THEN
+            assertEquals( 99, diffSets.getAdded().size() );
+            assertEquals( 100, diffSets.getRemoved().size() );
+            assertTrue( diffSets.isAdded( 99 ) );
+            assertFalse( diffSets.isAdded( 50 ) );
+            assertTrue( diffSets.isRemoved( 1099 ) );
+            assertEquals( 99, asSet( diffSets.addedIterator() ).size() );
+        }
+        finally
+        {
+            diffSets.close();
+        }
+    }
+
+    @Test
+    public void shouldAllowGrowingOffHeapIdsWhileIteratingOverThem()
+    {
+        // GIVEN
+        PrimitiveLongDiffSets diffSets = new PrimitiveLongDiffSets( 10 );
+        try
+        {
+            for ( long id = 0; id < 20; id++ )
+            {
+                diffSets.add( id );
+            }
+            PrimitiveLongIterator added = diffSets.addedIterator();
+
+            // WHEN
+            int seen = 0;
+            while ( added.hasNext() )
+            {
+                long id = added.next();
+                assertTrue( id < 20 );
+                seen++;
+                // grows the off-heap set well past its initial capacity
+                for ( long newId = 0; newId < 100; newId++ )
+                {
+                    diffSets.add( 1000 * (id + 1) + newId );
+                }
+            }
+
+            // THEN
+            assertEquals( 20, seen );
+            assertEquals( 20 + 20 * 100, diffSets.getAdded().size() );
+            assertEquals( 20 + 20 * 100, asSet( diffSets.addedIterator() ).size() );
+        }
+        finally
+        {
+            diffSets.close();
+        }
+    }
+}
@@ -20,11 +20,14 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 
 import org.junit.After;
@@ -32,6 +35,8 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.graphdb.DynamicLabel;
@@ -43,6 +48,7 @@ import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.GraphDatabaseAPI;
 import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelException;
 import org.neo4j.kernel.api.Statement;
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
@@ -63,6 +69,9 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreSupplier;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.lifecycle.LifeRule;
 import org.neo4j.logging.AssertableLogProvider;
 import org.neo4j.logging.AssertableLogProvider.LogMatcherBuilder;
 import org.neo4j.logging.LogProvider;
@@ -77,6 +86,7 @@ import org.neo4j.test.OtherThreadExecutor.WorkerCommand;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -97,10 +107,13 @@ import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 import static org.neo4j.helpers.collection.MapUtil.genericMap;
 import static org.neo4j.helpers.collection.MapUtil.map;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.add;
 import static org.neo4j.kernel.api.index.NodePropertyUpdate.change;
 import static org.neo4j.kernel.api.index.NodePropertyUpdate.remove;
+import static org.neo4j.kernel.impl.api.index.IndexPopulationScanner.NODES_PER_RANGE;
 import static org.neo4j.kernel.impl.api.index.TestSchemaIndexProviderDescriptor.PROVIDER_DESCRIPTOR;
 import static org.neo4j.logging.AssertableLogProvider.inLog;
+import static org.neo4j.test.DoubleLatch.awaitLatch;
 
 public class IndexPopulationJobTest
 {
@@ -221,6 +234,153 @@ public class IndexPopulationJobTest
         assertEquals( expectedRemoved, populator.removed );
     }
 
+    @Test
+    public void shouldApplyConcurrentUpdatesForNodesReadAheadOnceTheScanHasFedThem() throws Exception
+    {
+        // GIVEN a store with one node in each of two ranges, where the second range is read before the first one
+        final Object value1 = "Mattias", value2 = "Jacob", changedValue = "changed";
+        createNode( map( name, value1 ), FIRST );
+        final int propertyKeyId = getPropertyKeyForName( name );
+        final long node1 = 0, node2 = NODES_PER_RANGE;
+        final CountDownLatch secondRangeRead = new CountDownLatch( 1 );
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        when( storeView.nodeHighId() ).thenReturn( node2 + 1 );
+        when( storeView.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
+                Matchers.<Visitor<NodePropertyUpdate, RuntimeException>>any() ) ).thenAnswer(
+                new Answer<StoreScan<RuntimeException>>()
+                {
+                    @Override
+                    @SuppressWarnings( "unchecked" )
+                    public StoreScan<RuntimeException> answer( InvocationOnMock invocation ) throws Throwable
+                    {
+                        final long from = (Long) invocation.getArguments()[0];
+                        final Visitor<NodePropertyUpdate, RuntimeException> visitor =
+                                (Visitor<NodePropertyUpdate, RuntimeException>) invocation.getArguments()[4];
+                        return new StoreScan<RuntimeException>()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                long[] labels = new long[]{labelId};
+                                if ( from == node1 )
+                                {
+                                    awaitLatch( secondRangeRead );
+                                    visitor.visit( add( node1, propertyKeyId, value1, labels ) );
+                                }
+                                else
+                                {
+                                    visitor.visit( add( node2, propertyKeyId, value2, labels ) );
+                                    secondRangeRead.countDown();
+                                }
+                            }
+
+                            @Override
+                            public void stop()
+                            {
+                            }
+                        };
+                    }
+                } );
+        NodeChangingWriter populator = new NodeChangingWriter( node1, node2, propertyKeyId, value2, changedValue,
+                labelId );
+        IndexPopulationJob job = newIndexPopulationJob( FIRST, name, mock( FailedIndexProxyFactory.class ),
+                populator, new FlippableIndexProxy(), storeView,
+                new IndexPopulationScanner( storeView, life.add( new Neo4jJobScheduler() ), 2 ),
+                NullLogProvider.getInstance(), false );
+        populator.setJob( job );
+
+        // WHEN the second node changes while the scan feeds the first one
+        job.run();
+
+        // THEN the change is deferred until the scan has fed the second node, rather than dropped or applied early
+        assertEquals( asList(
+                Pair.of( node1, value1 ),
+                Pair.of( node2, value2 ),
+                Pair.of( node2, changedValue ) ), new ArrayList<>( populator.added ) );
+    }
+
+    @Test
+    public void shouldDeferConcurrentUpdatesForNodesInRangesClaimedAfterTheBoundaryWasRead() throws Exception
+    {
+        // GIVEN a scan whose worker claims the range of the second node right after the feeding thread has read
+        // how far the scan has read, and then reads the second node before it changes
+        final Object value1 = "Mattias", value2 = "Jacob", changedValue = "changed";
+        createNode( map( name, value1 ), FIRST );
+        final int propertyKeyId = getPropertyKeyForName( name );
+        final long node1 = 0, node2 = NODES_PER_RANGE;
+        final long[] labels = new long[]{labelId};
+        final IndexPopulationJob[] job = new IndexPopulationJob[1];
+        IndexPopulationScanner scanner = mock( IndexPopulationScanner.class );
+        when( scanner.visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ),
+                Matchers.<Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>>any() ) ).thenAnswer(
+                new Answer<IndexPopulationScanner.PopulationScan<IndexPopulationFailedKernelException>>()
+                {
+                    @Override
+                    @SuppressWarnings( "unchecked" )
+                    public IndexPopulationScanner.PopulationScan<IndexPopulationFailedKernelException> answer(
+                            InvocationOnMock invocation ) throws Throwable
+                    {
+                        final Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException> visitor =
+                                (Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>)
+                                        invocation.getArguments()[1];
+                        return new IndexPopulationScanner.PopulationScan<IndexPopulationFailedKernelException>()
+                        {
+                            private boolean secondRangeClaimed;
+
+                            @Override
+                            public void run() throws IndexPopulationFailedKernelException
+                            {
+                                visitor.visit( add( node1, propertyKeyId, value1, labels ) );
+                                claimSecondRange();
+                                visitor.visit( add( node2, propertyKeyId, value2, labels ) );
+                            }
+
+                            @Override
+                            public long unreadFrom()
+                            {
+                                if ( secondRangeClaimed )
+                                {
+                                    return node2 + NODES_PER_RANGE;
+                                }
+                                long boundary = node2;
+                                claimSecondRange();
+                                return boundary;
+                            }
+
+                            private void claimSecondRange()
+                            {
+                                if ( !secondRangeClaimed )
+                                {
+                                    secondRangeClaimed = true;
+                                    job[0].update( change( node2, propertyKeyId, value2, labels, changedValue,
+                                            labels ) );
+                                }
+                            }
+
+                            @Override
+                            public void stop()
+                            {
+                            }
+                        };
+                    }
+                } );
+        NodeChangingWriter populator = new NodeChangingWriter( -1, node2, propertyKeyId, value2, changedValue,
+                labelId );
+        job[0] = newIndexPopulationJob( FIRST, name, mock( FailedIndexProxyFactory.class ), populator,
+                new FlippableIndexProxy(), mock( IndexStoreView.class ), scanner, NullLogProvider.getInstance(),
+                false );
+        populator.setJob( job[0] );
+
+        // WHEN
+        job[0].run();
+
+        // THEN the change is applied after the stale value that the worker read
+        assertEquals( asList(
+                Pair.of( node1, value1 ),
+                Pair.of( node2, value2 ),
+                Pair.of( node2, changedValue ) ), new ArrayList<>( populator.added ) );
+    }
+
     @Test
     public void shouldTransitionToFailedStateIfPopulationJobCrashes() throws Exception
     {
@@ -249,7 +409,8 @@ public class IndexPopulationJobTest
         FlippableIndexProxy index = mock( FlippableIndexProxy.class );
         IndexStoreView storeView = mock( IndexStoreView.class );
         ControlledStoreScan storeScan = new ControlledStoreScan();
-        when( storeView.visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ),
+        when( storeView.nodeHighId() ).thenReturn( 1L );
+        when( storeView.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
                 Matchers.<Visitor<NodePropertyUpdate, RuntimeException>>any() ) ).thenReturn( storeScan );
 
         final IndexPopulationJob job = newIndexPopulationJob( FIRST, name, populator, index, storeView,
@@ -426,8 +587,9 @@ public class IndexPopulationJobTest
 
     private class NodeChangingWriter extends IndexPopulator.Adapter
     {
-        private final Set<Pair<Long, Object>> added = new HashSet<>();
+        private final Set<Pair<Long, Object>> added = new LinkedHashSet<>();
         private IndexPopulationJob job;
+        private final long changeWhenAdding;
         private final long nodeToChange;
         private final Object newValue;
         private final Object previousValue;
@@ -436,6 +598,13 @@ public class IndexPopulationJobTest
         public NodeChangingWriter( long nodeToChange, int propertyKeyId, Object previousValue, Object newValue,
                                    int label )
         {
+            this( 2, nodeToChange, propertyKeyId, previousValue, newValue, label );
+        }
+
+        public NodeChangingWriter( long changeWhenAdding, long nodeToChange, int propertyKeyId, Object previousValue,
+                                   Object newValue, int label )
+        {
+            this.changeWhenAdding = changeWhenAdding;
             this.nodeToChange = nodeToChange;
             this.propertyKeyId = propertyKeyId;
             this.previousValue = previousValue;
@@ -446,7 +615,7 @@ public class IndexPopulationJobTest
         @Override
         public void add( long nodeId, Object propertyValue )
         {
-            if ( nodeId == 2 )
+            if ( nodeId == changeWhenAdding )
             {
                 long[] labels = new long[]{label};
                 job.update( change( nodeToChange, propertyKeyId, previousValue, labels, newValue, labels ) );
@@ -596,6 +765,7 @@ public class IndexPopulationJobTest
 
     private int labelId;
     public final @Rule CleanupRule cleanup = new CleanupRule();
+    public final @Rule LifeRule life = new LifeRule( true );
 
     @Before
     public void before() throws Exception
@@ -645,6 +815,17 @@ public class IndexPopulationJobTest
                                                       IndexPopulator populator,
                                                       FlippableIndexProxy flipper, IndexStoreView storeView,
                                                       LogProvider logProvider, boolean constraint )
+    {
+        return newIndexPopulationJob( label, propertyKey, failureDelegateFactory, populator, flipper, storeView,
+                new IndexPopulationScanner( storeView, mock( JobScheduler.class ), 1 ), logProvider, constraint );
+    }
+
+    private IndexPopulationJob newIndexPopulationJob( Label label, String propertyKey,
+                                                      FailedIndexProxyFactory failureDelegateFactory,
+                                                      IndexPopulator populator,
+                                                      FlippableIndexProxy flipper, IndexStoreView storeView,
+                                                      IndexPopulationScanner scanner,
+                                                      LogProvider logProvider, boolean constraint )
     {
         IndexDescriptor descriptor = indexDescriptor( label, propertyKey );
         flipper.setFlipTarget( mock( IndexProxyFactory.class ) );
@@ -652,7 +833,7 @@ public class IndexPopulationJobTest
                 descriptor, new IndexConfiguration( constraint ), PROVIDER_DESCRIPTOR,
                 format( ":%s(%s)", label.name(), propertyKey ),
                 failureDelegateFactory,
-                populator, flipper, storeView,
+                populator, flipper, storeView, scanner,
                 stateHolder, logProvider, IndexingService.NO_MONITOR );
     }
 
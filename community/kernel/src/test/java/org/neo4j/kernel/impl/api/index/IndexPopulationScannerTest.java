@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.test.CleanupRule;
+import org.neo4j.test.DoubleLatch;
+import org.neo4j.test.OtherThreadExecutor;
+import org.neo4j.test.OtherThreadExecutor.WorkerCommand;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.kernel.impl.api.index.IndexPopulationScanner.NODES_PER_RANGE;
+
+public class IndexPopulationScannerTest
+{
+    public final @Rule LifeRule life = new LifeRule( true );
+    public final @Rule CleanupRule cleanup = new CleanupRule();
+
+    @Test
+    public void shouldServePopulationsWaitingForTheStoreWithASingleSharedScan() throws Exception
+    {
+        // GIVEN a store with three ranges of nodes, each with one node per index
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        DoubleLatch firstScan = new DoubleLatch();
+        when( storeView.nodeHighId() ).thenReturn( NODES_PER_RANGE * 2L + 10 );
+        when( storeView.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
+                any( Visitor.class ) ) ).thenAnswer( new RangeScan( firstScan ) );
+        IndexPopulationScanner scanner = new IndexPopulationScanner( storeView, life.add( new Neo4jJobScheduler() ), 2 );
+
+        // and a population that is scanning the store on its own
+        RecordingVisitor first = new RecordingVisitor();
+        Future<Void> firstPopulation = runInOtherThread( scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 1, 1 ), first ) );
+        firstScan.awaitStart();
+
+        // WHEN two more populations want to scan the store at the same time
+        RecordingVisitor second = new RecordingVisitor();
+        RecordingVisitor third = new RecordingVisitor();
+        Future<Void> secondPopulation = runInOtherThread( scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 1, 1 ), second ) );
+        Future<Void> thirdPopulation = runInOtherThread( scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 2, 2 ), third ) );
+        firstScan.finish();
+        firstPopulation.get();
+        secondPopulation.get();
+        thirdPopulation.get();
+
+        // THEN the first one is served by a pass over the ranges of the store, and the other two by one more pass
+        verify( storeView, times( 6 ) ).visitNodesInRange( anyLong(), anyLong(), any( int[].class ),
+                any( int[].class ), any( Visitor.class ) );
+        verify( storeView, never() ).visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ),
+                any( Visitor.class ) );
+        assertEquals( asList( 0L, (long) NODES_PER_RANGE, NODES_PER_RANGE * 2L ), first.nodeIds );
+        assertEquals( asList( 0L, (long) NODES_PER_RANGE, NODES_PER_RANGE * 2L ), second.nodeIds );
+        assertEquals( asList( 1L, NODES_PER_RANGE + 1L, NODES_PER_RANGE * 2L + 1 ), third.nodeIds );
+    }
+
+    @Test
+    public void shouldServeAPopulationEvenIfNoWorkerRuns() throws Exception
+    {
+        // GIVEN
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        when( storeView.nodeHighId() ).thenReturn( NODES_PER_RANGE * 2L + 10 );
+        when( storeView.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
+                any( Visitor.class ) ) ).thenAnswer( new RangeScan( null ) );
+        IndexPopulationScanner scanner = new IndexPopulationScanner( storeView, mock( JobScheduler.class ), 2 );
+        RecordingVisitor visitor = new RecordingVisitor();
+
+        // WHEN
+        scanner.visitNodesWithPropertyAndLabel( new IndexDescriptor( 2, 2 ), visitor ).run();
+
+        // THEN
+        assertEquals( asList( 1L, NODES_PER_RANGE + 1L, NODES_PER_RANGE * 2L + 1 ), visitor.nodeIds );
+    }
+
+    @Test
+    public void shouldNotFeedAStoppedPopulationAfterItsScanHasReturned() throws Exception
+    {
+        // GIVEN two populations waiting for a scan, the second of which will be stopped while being fed
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        when( storeView.nodeHighId() ).thenReturn( NODES_PER_RANGE * 2L + 10 );
+        when( storeView.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
+                any( Visitor.class ) ) ).thenAnswer( new RangeScan( null ) );
+        IndexPopulationScanner scanner = new IndexPopulationScanner( storeView, mock( JobScheduler.class ), 1 );
+        BlockingVisitor scanning = new BlockingVisitor();
+        Future<Void> scanningPopulation = runInOtherThread( scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 1, 1 ), scanning ) );
+        scanning.latch.awaitStart();
+        RecordingVisitor first = new RecordingVisitor();
+        BlockingVisitor second = new BlockingVisitor();
+        Future<Void> firstPopulation = runInOtherThread( scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 1, 1 ), first ) );
+        StoreScan<RuntimeException> secondScan = scanner.visitNodesWithPropertyAndLabel(
+                new IndexDescriptor( 2, 2 ), second );
+        Future<Void> secondPopulation = runInOtherThread( secondScan );
+        scanning.latch.finish();
+        scanningPopulation.get();
+        second.latch.awaitStart();
+
+        // WHEN
+        secondScan.stop();
+        second.latch.finish();
+        secondPopulation.get();
+        int nodesSeenWhenReturned = second.nodeIds.size();
+        firstPopulation.get();
+
+        // THEN the node being fed when stopped is the last one the second population sees
+        assertEquals( 1, nodesSeenWhenReturned );
+        assertEquals( 1, second.nodeIds.size() );
+        assertEquals( asList( 0L, (long) NODES_PER_RANGE, NODES_PER_RANGE * 2L ), first.nodeIds );
+    }
+
+    private Future<Void> runInOtherThread( final StoreScan<RuntimeException> scan ) throws Exception
+    {
+        OtherThreadExecutor<Void> executor = cleanup.add( new OtherThreadExecutor<Void>( "Population", null ) );
+        Future<Void> future = executor.executeDontWait( new WorkerCommand<Void,Void>()
+        {
+            @Override
+            public Void doWork( Void state )
+            {
+                scan.run();
+                return null;
+            }
+        } );
+        executor.waitUntilWaiting();
+        return future;
+    }
+
+    private static class RangeScan implements Answer<StoreScan<RuntimeException>>
+    {
+        private final DoubleLatch firstRangeLatch;
+
+        RangeScan( DoubleLatch firstRangeLatch )
+        {
+            this.firstRangeLatch = firstRangeLatch;
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public StoreScan<RuntimeException> answer( InvocationOnMock invocation ) throws Throwable
+        {
+            final long from = (Long) invocation.getArguments()[0];
+            final Visitor<NodePropertyUpdate,RuntimeException> visitor =
+                    (Visitor<NodePropertyUpdate,RuntimeException>) invocation.getArguments()[4];
+            return new StoreScan<RuntimeException>()
+            {
+                @Override
+                public void run()
+                {
+                    if ( from == 0 && firstRangeLatch != null )
+                    {
+                        firstRangeLatch.startAndAwaitFinish();
+                    }
+                    visitor.visit( NodePropertyUpdate.add( from, 1, "value", new long[]{1} ) );
+                    visitor.visit( NodePropertyUpdate.add( from + 1, 2, "value", new long[]{2} ) );
+                }
+
+                @Override
+                public void stop()
+                {
+                }
+            };
+        }
+    }
+
+    private static class RecordingVisitor implements Visitor<NodePropertyUpdate,RuntimeException>
+    {
+        final List<Long> nodeIds = new ArrayList<>();
+
+        @Override
+        public boolean visit( NodePropertyUpdate update )
+        {
+            nodeIds.add( update.getNodeId() );
+            return false;
+        }
+    }
+
+    private static class BlockingVisitor extends RecordingVisitor
+    {
+        private final DoubleLatch latch = new DoubleLatch();
+
+        @Override
+        public boolean visit( NodePropertyUpdate update )
+        {
+            if ( nodeIds.isEmpty() )
+            {
+                latch.startAndAwaitFinish();
+            }
+            return super.visit( update );
+        }
+    }
+}
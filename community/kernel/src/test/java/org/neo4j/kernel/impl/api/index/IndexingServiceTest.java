@@ -207,15 +207,16 @@ public class IndexingServiceTest
         InOrder order = inOrder( populator, accessor, updater);
         order.verify( populator ).create();
         order.verify( populator ).add( 1, "value1" );
+        order.verify( populator ).verifyDeferredConstraints( storeView );
 
-
-        // invoked from indexAllNodes(), empty because the id we added (2) is bigger than the one we indexed (1)
+        // invoked when flipping, since the scan had already read the nodes up to the one we changed (2), but not
+        // fed any of them after the one we indexed (1)
         //
-        // (We don't get an update for value2 here because we mock a fake store that doesn't contain it
+        // (We don't get an add for value2 from the scan because we mock a fake store that doesn't contain it
         //  just for the purpose of testing this behavior)
         order.verify( populator ).newPopulatingUpdater( storeView );
+        order.verify( updater ).process( value2 );
         order.verify( updater ).close();
-        order.verify( populator ).verifyDeferredConstraints( storeView );
         order.verify( populator ).sampleResult( any( Register.DoubleLong.Out.class ) );
         order.verify( populator ).close( true );
         verifyNoMoreInteractions( updater );
@@ -832,14 +833,22 @@ public class IndexingServiceTest
 
         void getsProcessedByStoreScanFrom( IndexStoreView mock )
         {
-            when( mock.visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ), visitor( any( Visitor.class ) ) ) )
-                    .thenAnswer( this );
+            long highId = 0;
+            for ( NodePropertyUpdate update : updates )
+            {
+                highId = Math.max( highId, update.getNodeId() + 1 );
+            }
+            when( mock.nodeHighId() ).thenReturn( highId );
+            when( mock.visitNodesInRange( anyLong(), anyLong(), any( int[].class ), any( int[].class ),
+                    visitor( any( Visitor.class ) ) ) ).thenAnswer( this );
         }
 
         @Override
         public StoreScan<RuntimeException> answer( InvocationOnMock invocation ) throws Throwable
         {
-            final Visitor<NodePropertyUpdate, RuntimeException> visitor = visitor( invocation.getArguments()[1] );
+            final long fromNodeId = (Long) invocation.getArguments()[0];
+            final long toNodeId = (Long) invocation.getArguments()[1];
+            final Visitor<NodePropertyUpdate, RuntimeException> visitor = visitor( invocation.getArguments()[4] );
             return new StoreScan<RuntimeException>()
             {
                 @Override
@@ -847,7 +856,10 @@ public class IndexingServiceTest
                 {
                     for ( NodePropertyUpdate update : updates )
                     {
-                        visitor.visit( update );
+                        if ( update.getNodeId() >= fromNodeId && update.getNodeId() < toNodeId )
+                        {
+                            visitor.visit( update );
+                        }
                     }
                 }
 
@@ -74,6 +74,45 @@ class HashBasedIndex extends InMemoryIndexImplementation
         return nodes == null ? PrimitiveLongCollections.emptyIterator() : toPrimitiveIterator( nodes.iterator() );
     }
 
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        Set<Long> nodeIds = new HashSet<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data().entrySet() )
+        {
+            Object key = entry.getKey();
+            if ( key instanceof Number )
+            {
+                double value = ((Number) key).doubleValue();
+                boolean aboveLower = lower == null ||
+                        (includeLower ? value >= lower.doubleValue() : value > lower.doubleValue());
+                boolean belowUpper = upper == null ||
+                        (includeUpper ? value <= upper.doubleValue() : value < upper.doubleValue());
+                if ( aboveLower && belowUpper )
+                {
+                    nodeIds.addAll( entry.getValue() );
+                }
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        Set<Long> nodeIds = new HashSet<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data().entrySet() )
+        {
+            Object key = entry.getKey();
+            if ( key instanceof String && ((String) key).startsWith( prefix ) )
+            {
+                nodeIds.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
     @Override
     public PrimitiveLongIterator scan()
     {
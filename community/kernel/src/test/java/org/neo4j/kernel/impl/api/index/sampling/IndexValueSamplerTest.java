@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.index.IndexHistogram;
+import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.register.Registers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexValueSamplerTest
+{
+    @Test
+    public void shouldSampleAllValuesWhileTheyFitInTheSample()
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 10, new Random( 1 ) );
+
+        // when
+        sampler.include( 1 );
+        sampler.include( 2 );
+        sampler.include( 2 );
+        sampler.include( new long[]{3} );
+
+        // then
+        IndexHistogram histogram = sampler.histogram( 10 );
+        assertEquals( 3, histogram.indexSize() );
+        assertEquals( 3, histogram.sampleSize() );
+        assertEquals( 2d / 3, histogram.equalitySelectivity( 2 ), 0.0001 );
+    }
+
+    @Test
+    public void shouldKeepTheSampleSizeBoundedAsValuesAreIncluded()
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 100, new Random( 1 ) );
+
+        // when
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            sampler.include( i );
+        }
+
+        // then
+        IndexHistogram histogram = sampler.histogram( 10 );
+        assertEquals( 10_000, histogram.indexSize() );
+        assertEquals( 100, histogram.sampleSize() );
+        assertEquals( 0.5, histogram.rangeSelectivity( null, false, 5_000, false ), 0.15 );
+    }
+
+    @Test
+    public void shouldRefillTheSampleWithValuesIncludedAfterValuesWereExcluded()
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 10, new Random( 1 ) );
+        for ( int i = 0; i < 10; i++ )
+        {
+            sampler.include( "old" );
+        }
+
+        // when
+        for ( int i = 0; i < 10; i++ )
+        {
+            sampler.exclude( "old" );
+            sampler.include( "new" );
+        }
+
+        // then
+        IndexHistogram histogram = sampler.histogram( 10 );
+        assertEquals( 10, histogram.indexSize() );
+        assertEquals( 10, histogram.sampleSize() );
+        assertEquals( 0d, histogram.equalitySelectivity( "old" ), 0d );
+        assertEquals( 1d, histogram.equalitySelectivity( "new" ), 0d );
+    }
+
+    @Test
+    public void shouldCountTheUniqueValuesOfTheSampleTheWayAFullSamplingDoes()
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 10, new Random( 1 ) );
+        sampler.include( 1 );
+        sampler.include( 2 );
+        sampler.include( 2 );
+        sampler.include( new long[]{3} );
+        sampler.include( new long[]{3} );
+        sampler.exclude( 1 );
+
+        // when
+        DoubleLongRegister result = Registers.newDoubleLongRegister();
+        long indexSize = sampler.sampleIndex( result );
+
+        // then
+        assertEquals( 4, indexSize );
+        assertEquals( 2, result.readFirst() );
+        assertEquals( 4, result.readSecond() );
+    }
+
+    @Test
+    public void shouldRemoveExcludedValuesFromTheSample()
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 10, new Random( 1 ) );
+        for ( int i = 0; i < 10; i++ )
+        {
+            sampler.include( i % 2 == 0 ? "even" : new int[]{i} );
+        }
+
+        // when
+        for ( int i = 1; i < 10; i += 2 )
+        {
+            sampler.exclude( new int[]{i} );
+        }
+        sampler.exclude( "even" );
+
+        // then
+        DoubleLongRegister result = Registers.newDoubleLongRegister();
+        assertEquals( 4, sampler.sampleIndex( result ) );
+        assertEquals( 1, result.readFirst() );
+        assertEquals( 4, result.readSecond() );
+        assertEquals( 1d, sampler.histogram( 10 ).equalitySelectivity( "even" ), 0d );
+    }
+
+    @Test
+    public void shouldReadBackTheSampleThatItWrote() throws Exception
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 20, new Random( 1 ) );
+        Object[] values = {true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, "eight", new String[]{"nine"},
+                new double[]{10d}};
+        for ( Object value : values )
+        {
+            sampler.include( value );
+        }
+        sampler.exclude( 4 );
+        sampler.markComplete();
+
+        // when
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sampler.writeTo( new DataOutputStream( bytes ) );
+        IndexValueSampler read = IndexValueSampler.readFrom(
+                new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), 20 );
+
+        // then
+        assertTrue( read.isComplete() );
+        DoubleLongRegister result = Registers.newDoubleLongRegister();
+        assertEquals( 10, read.sampleIndex( result ) );
+        assertEquals( 10, result.readFirst() );
+        assertEquals( 10, result.readSecond() );
+        read.exclude( new String[]{"nine"} );
+        read.exclude( "eight" );
+        assertEquals( 8, read.sampleIndex( result ) );
+        assertEquals( 8, result.readSecond() );
+        assertEquals( 0d, read.histogram( 10 ).equalitySelectivity( "eight" ), 0d );
+    }
+
+    @Test
+    public void shouldNotReadBackASampleWrittenForAnotherSampleSize() throws Exception
+    {
+        // given
+        IndexValueSampler sampler = new IndexValueSampler( 10, new Random( 1 ) );
+        sampler.include( 1 );
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sampler.writeTo( new DataOutputStream( bytes ) );
+
+        // when
+        IndexValueSampler read = IndexValueSampler.readFrom(
+                new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), 20 );
+
+        // then
+        assertNull( read );
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.sampling;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.api.index.IndexStoreView;
+import org.neo4j.kernel.impl.api.index.StoreScan;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.register.Registers;
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class IndexValueSamplesTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+
+    private final File file = new File( "schema/index/valuesamples.db" );
+    private final IndexDescriptor index = new IndexDescriptor( 1, 2 );
+    private final IndexDescriptor otherIndex = new IndexDescriptor( 1, 3 );
+    private final IndexStoreView storeView = mock( IndexStoreView.class );
+
+    @Before
+    public void setup()
+    {
+        when( storeView.visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ), any( Visitor.class ) ) )
+                .thenReturn( mock( StoreScan.class ) );
+    }
+
+    @Test
+    public void shouldKeepTheSamplesBetweenRestarts() throws Exception
+    {
+        // given
+        IndexValueSamples samples = newSamples();
+        samples.sample( index, storeView );
+        samples.update( index, NodePropertyUpdate.add( 1, 2, "a", new long[]{1} ) );
+        samples.update( index, NodePropertyUpdate.add( 2, 2, "b", new long[]{1} ) );
+        samples.update( index, NodePropertyUpdate.add( 3, 2, "b", new long[]{1} ) );
+
+        // when
+        samples.store();
+        samples = newSamples();
+        samples.load( asSet( index ) );
+
+        // then
+        assertTrue( samples.isSampled( index ) );
+        DoubleLongRegister result = Registers.newDoubleLongRegister();
+        assertEquals( 3, samples.sampleIndex( index, result ) );
+        assertEquals( 2, result.readFirst() );
+        assertEquals( 3, result.readSecond() );
+    }
+
+    @Test
+    public void shouldOnlyReadBackTheSamplesOfTheGivenIndexes() throws Exception
+    {
+        // given
+        IndexValueSamples samples = newSamples();
+        samples.sample( index, storeView );
+        samples.sample( otherIndex, storeView );
+        samples.store();
+
+        // when
+        samples = newSamples();
+        samples.load( asSet( otherIndex ) );
+
+        // then
+        assertFalse( samples.isSampled( index ) );
+        assertTrue( samples.isSampled( otherIndex ) );
+    }
+
+    @Test
+    public void shouldNotReadBackTheSamplesAfterACrash() throws Exception
+    {
+        // given the samples were read back at the last start
+        IndexValueSamples samples = newSamples();
+        samples.sample( index, storeView );
+        samples.store();
+        newSamples().load( asSet( index ) );
+
+        // when the database crashes and starts again
+        samples = newSamples();
+        samples.load( asSet( index ) );
+
+        // then
+        assertFalse( samples.isSampled( index ) );
+        assertFalse( fs.get().fileExists( file ) );
+    }
+
+    @Test
+    public void shouldSampleAgainIfTheSamplesCantBeRead() throws Exception
+    {
+        // given
+        IndexValueSamples samples = newSamples();
+        samples.sample( index, storeView );
+        samples.store();
+        try ( StoreChannel channel = fs.get().open( file, "rw" ) )
+        {
+            channel.truncate( channel.size() - 1 );
+        }
+
+        // when
+        samples = newSamples();
+        samples.load( asSet( index ) );
+
+        // then
+        assertFalse( samples.isSampled( index ) );
+        assertEquals( asList(), asList( fs.get().listFiles( file.getParentFile() ) ) );
+    }
+
+    private IndexValueSamples newSamples()
+    {
+        return new IndexValueSamples( 10, 10, fs.get(), file, NullLogProvider.getInstance() );
+    }
+}
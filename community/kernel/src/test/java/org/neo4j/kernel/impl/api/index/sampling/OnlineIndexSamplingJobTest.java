@@ -24,10 +24,8 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
-import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
-import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.api.index.IndexProxy;
 import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.logging.LogProvider;
@@ -36,6 +34,7 @@ import org.neo4j.logging.NullLogProvider;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -46,25 +45,46 @@ import static org.neo4j.register.Register.DoubleLong;
 public class OnlineIndexSamplingJobTest
 {
     @Test
-    public void shouldSampleTheIndexAndStoreTheValueWhenTheIndexIsOnline()
+    public void shouldSampleTheValuesFromTheStoreTheFirstTimeAndStoreTheCountsWhenTheIndexIsOnline()
     {
         // given
-        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, "Foo", logProvider );
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, valueSamples, "Foo",
+                logProvider );
         when( indexProxy.getState() ).thenReturn( ONLINE );
 
         // when
         job.run();
 
         // then
-        verify( indexStoreView ).replaceIndexCounts( indexDescriptor, indexUniqueValues, indexSize, indexSize );
+        verify( valueSamples ).sample( indexDescriptor, indexStoreView );
+        verify( indexStoreView ).replaceIndexCounts( indexDescriptor, indexUniqueValues, sampleSize, indexSize );
         verifyNoMoreInteractions( indexStoreView );
     }
 
     @Test
-    public void shouldSampleTheIndexButDoNotStoreTheValuesIfTheIndexIsNotOnline()
+    public void shouldSampleTheIndexFromItsValueSampleWithoutScanningOnceTheValuesAreKeptUpToDate()
     {
         // given
-        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, "Foo", logProvider );
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, valueSamples, "Foo",
+                logProvider );
+        when( indexProxy.getState() ).thenReturn( ONLINE );
+        when( valueSamples.isSampled( indexDescriptor ) ).thenReturn( true );
+
+        // when
+        job.run();
+
+        // then
+        verify( valueSamples, never() ).sample( indexDescriptor, indexStoreView );
+        verify( indexStoreView ).replaceIndexCounts( indexDescriptor, indexUniqueValues, sampleSize, indexSize );
+        verifyNoMoreInteractions( indexStoreView );
+    }
+
+    @Test
+    public void shouldNotStoreTheCountsIfTheIndexIsNotOnline()
+    {
+        // given
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, valueSamples, "Foo",
+                logProvider );
         when( indexProxy.getState() ).thenReturn( FAILED );
 
         // when
@@ -74,35 +94,51 @@ public class OnlineIndexSamplingJobTest
         verifyNoMoreInteractions( indexStoreView );
     }
 
+    @Test
+    public void shouldNotStoreTheCountsIfTheValuesOfTheIndexAreNoLongerSampled()
+    {
+        // given the index was dropped while it was being sampled
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexProxy, indexStoreView, valueSamples, "Foo",
+                logProvider );
+        when( indexProxy.getState() ).thenReturn( ONLINE );
+        doAnswer( answerWith( 0, 0, -1 ) ).when( valueSamples )
+                .sampleIndex( any( IndexDescriptor.class ), any( DoubleLong.Out.class ) );
+
+        // when
+        job.run();
+
+        // then
+        verifyNoMoreInteractions( indexStoreView );
+    }
+
     private final LogProvider logProvider = NullLogProvider.getInstance();
     private final IndexProxy indexProxy = mock( IndexProxy.class );
     private final IndexStoreView indexStoreView = mock( IndexStoreView.class );
+    private final IndexValueSamples valueSamples = mock( IndexValueSamples.class );
     private final IndexDescriptor indexDescriptor = new IndexDescriptor( 1, 2 );
-    private final IndexReader indexReader = mock( IndexReader.class );
 
     private final long indexUniqueValues = 21l;
+    private final long sampleSize = 22l;
     private final long indexSize = 23l;
 
     @Before
-    public void setup() throws IndexNotFoundKernelException
+    public void setup()
     {
         when( indexProxy.getDescriptor() ).thenReturn( indexDescriptor );
         when( indexProxy.config() ).thenReturn( new IndexConfiguration( false ) );
-        when( indexProxy.newReader() ).thenReturn( indexReader );
-        doAnswer( answerWith( indexUniqueValues, indexSize ) ).when( indexReader )
-                                                              .sampleIndex( any( DoubleLong.Out.class ) );
-
+        doAnswer( answerWith( indexUniqueValues, sampleSize, indexSize ) ).when( valueSamples )
+                .sampleIndex( any( IndexDescriptor.class ), any( DoubleLong.Out.class ) );
     }
 
-    private Answer<Long> answerWith( final long indexUniqueValues, final long indexSize )
+    private Answer<Long> answerWith( final long indexUniqueValues, final long sampleSize, final long indexSize )
     {
         return new Answer<Long>()
         {
             @Override
             public Long answer( InvocationOnMock invocationOnMock ) throws Throwable
             {
-                final DoubleLong.Out result = (DoubleLong.Out) invocationOnMock.getArguments()[0];
-                result.write( indexUniqueValues, indexSize );
+                final DoubleLong.Out result = (DoubleLong.Out) invocationOnMock.getArguments()[1];
+                result.write( indexUniqueValues, sampleSize );
                 return indexSize;
             }
         };
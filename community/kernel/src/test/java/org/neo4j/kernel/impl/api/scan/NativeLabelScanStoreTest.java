@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.helpers.collection.IteratorUtil.single;
+import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
+
+public class NativeLabelScanStoreTest
+{
+    private static final long[] NO_LABELS = new long[0];
+
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File storeFile = new File( "schema/label/native/labelscan.db" );
+    private PageCache pageCache;
+    private LifeSupport life;
+    private NativeLabelScanStore store;
+
+    @Test
+    public void shouldAddAndRemoveLabelsOfNodes() throws Exception
+    {
+        // GIVEN
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+        write( labelChanges( 10, NO_LABELS, new long[]{1, 2} ),
+               labelChanges( 11, NO_LABELS, new long[]{1} ) );
+
+        // WHEN
+        write( labelChanges( 10, new long[]{1, 2}, new long[]{2} ) );
+
+        // THEN
+        assertNodesForLabel( 1, 11 );
+        assertNodesForLabel( 2, 10 );
+        assertNodesForLabel( 3 );
+        assertEquals( asSet( 2L ), asSet( store.newReader().labelsForNode( 10 ) ) );
+    }
+
+    @Test
+    public void shouldFindNodesOfALabelInOrderAcrossRanges() throws Exception
+    {
+        // GIVEN
+        long[] nodeIds = {3, 64, 1023, 1024, 5000, 4096 * 1024 + 7};
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+
+        // WHEN
+        for ( int i = nodeIds.length - 1; i >= 0; i-- )
+        {
+            write( labelChanges( nodeIds[i], NO_LABELS, new long[]{5} ) );
+        }
+
+        // THEN
+        assertNodesForLabel( 5, nodeIds );
+    }
+
+    @Test
+    public void shouldReuseTheEntriesOfRangesThatBecameEmpty() throws Exception
+    {
+        // GIVEN
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+        write( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+        write( labelChanges( 1, new long[]{1}, NO_LABELS ) );
+
+        // WHEN
+        write( labelChanges( 2000, NO_LABELS, new long[]{2} ) );
+
+        // THEN
+        assertNodesForLabel( 1 );
+        assertNodesForLabel( 2, 2000 );
+    }
+
+    @Test
+    public void shouldScanAllEntriesOneRangeAtATime() throws Exception
+    {
+        // GIVEN
+        start( asList(
+                labelChanges( 10, NO_LABELS, new long[]{1} ),
+                labelChanges( 2000, NO_LABELS, new long[]{1, 2} ) ) );
+
+        // WHEN
+        Iterator<NodeLabelRange> ranges = store.newAllEntriesReader().iterator();
+        NodeLabelRange range1 = ranges.next();
+        NodeLabelRange range2 = ranges.next();
+
+        // THEN
+        assertFalse( ranges.hasNext() );
+        assertArrayEquals( new long[]{10}, range1.nodes() );
+        assertArrayEquals( new long[]{1}, range1.labels( 10 ) );
+        assertArrayEquals( new long[]{2000}, range2.nodes() );
+        assertArrayEquals( new long[]{1, 2}, range2.labels( 2000 ) );
+    }
+
+    @Test
+    public void shouldKeepLabelsOfNodesBetweenRestarts() throws Exception
+    {
+        // GIVEN
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+        write( labelChanges( 10, NO_LABELS, new long[]{1} ),
+               labelChanges( 3000, NO_LABELS, new long[]{1, 2} ) );
+        write( labelChanges( 10, new long[]{1}, NO_LABELS ) );
+
+        // WHEN
+        life.shutdown();
+        start( asList( labelChanges( 4, NO_LABELS, new long[]{1} ) ) );
+
+        // THEN the store wasn't rebuilt from the node store
+        assertNodesForLabel( 1, 3000 );
+        assertNodesForLabel( 2, 3000 );
+    }
+
+    @Test
+    public void shouldRebuildFromTheNodeStoreIfMissing() throws Exception
+    {
+        // WHEN
+        start( asList(
+                labelChanges( 1, NO_LABELS, new long[]{1} ),
+                labelChanges( 2, NO_LABELS, new long[]{1, 2} ) ) );
+
+        // THEN
+        assertNodesForLabel( 1, 1, 2 );
+        assertNodesForLabel( 2, 2 );
+        assertEquals( storeFile, single( store.snapshotStoreFiles() ) );
+    }
+
+    @Test
+    public void shouldRebuildFromTheNodeStoreAfterACrash() throws Exception
+    {
+        // GIVEN
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+        write( labelChanges( 10, NO_LABELS, new long[]{1} ),
+               labelChanges( 3000, NO_LABELS, new long[]{1} ) );
+        store.force();
+
+        // WHEN the power goes out before the store is shut down
+        fs.snapshot( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                life.shutdown();
+            }
+        } );
+        pageCache = null;
+        start( asList( labelChanges( 4, NO_LABELS, new long[]{1} ) ) );
+
+        // THEN the store was rebuilt from the node store, rather than trusting entries that may be half written
+        assertNodesForLabel( 1, 4 );
+    }
+
+    @Test
+    public void shouldRebuildFromTheNodeStoreIfTwoEntriesHaveTheSameLabelAndRange() throws Exception
+    {
+        // GIVEN
+        start( NativeLabelScanStoreTest.<NodeLabelUpdate>noData() );
+        write( labelChanges( 10, NO_LABELS, new long[]{1} ),
+               labelChanges( 3000, NO_LABELS, new long[]{1} ) );
+        life.shutdown();
+
+        // WHEN the second entry claims to be of the same label and range as the first one
+        copyEntryHeader( 1, 2 );
+        start( asList( labelChanges( 4, NO_LABELS, new long[]{1} ) ) );
+
+        // THEN
+        assertNodesForLabel( 1, 4 );
+    }
+
+    @After
+    public void shutdown()
+    {
+        life.shutdown();
+    }
+
+    private void start( List<NodeLabelUpdate> existingData )
+    {
+        if ( pageCache == null )
+        {
+            pageCache = pageCacheRule.getPageCache( fs.get() );
+        }
+        life = new LifeSupport();
+        store = life.add( new NativeLabelScanStore( pageCache, fs.get(), storeFile, asStream( existingData ),
+                NullLogProvider.getInstance() ) );
+        life.start();
+    }
+
+    private void copyEntryHeader( int fromSlot, int toSlot ) throws Exception
+    {
+        try ( StoreChannel channel = fs.get().open( storeFile, "rw" ) )
+        {
+            ByteBuffer header = ByteBuffer.allocate( 16 );
+            channel.read( header, fromSlot * NativeLabelScanStore.ENTRY_SIZE );
+            header.flip();
+            channel.writeAll( header, toSlot * NativeLabelScanStore.ENTRY_SIZE );
+        }
+    }
+
+    private void write( NodeLabelUpdate... updates ) throws Exception
+    {
+        try ( LabelScanWriter writer = store.newWriter() )
+        {
+            for ( NodeLabelUpdate update : updates )
+            {
+                writer.write( update );
+            }
+        }
+    }
+
+    private void assertNodesForLabel( int labelId, long... expectedNodeIds )
+    {
+        PrimitiveLongIterator nodes = store.newReader().nodesWithLabel( labelId );
+        assertArrayEquals( expectedNodeIds, asArray( nodes ) );
+    }
+
+    private static <T> List<T> noData()
+    {
+        return emptyList();
+    }
+
+    private static FullStoreChangeStream asStream( final List<NodeLabelUpdate> existingData )
+    {
+        return new FullStoreChangeStream()
+        {
+            @Override
+            public Iterator<NodeLabelUpdate> iterator()
+            {
+                return existingData.iterator();
+            }
+
+            @Override
+            public long highestNodeId()
+            {
+                return existingData.size();
+            }
+
+            @Override
+            public PrimitiveLongIterator labelIds()
+            {
+                return PrimitiveLongCollections.emptyIterator();
+            }
+        };
+    }
+}
@@ -102,7 +102,7 @@ public class IndexQueryTransactionStateTest
         when( store.nodesGetFromIndexLookup( state, indexDescriptor, value ) )
                 .then( answerAsPrimitiveLongIteratorFrom( asList( 2l, 3l ) ) );
 
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( false );
         state.txState().nodeDoReplaceProperty( 1l, Property.noNodeProperty( 1l, propertyKeyId ),
                 Property.intProperty( propertyKeyId, 10 ) );
 
@@ -119,7 +119,7 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodeGetUniqueFromIndexLookup( state, indexDescriptor, value ) ).thenReturn(
                 asPrimitiveResourceIterator() );
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( false );
         state.txState().nodeDoReplaceProperty( 1l, Property.noNodeProperty( 1l, propertyKeyId ),
                 Property.intProperty( propertyKeyId, 10 ) );
 
@@ -136,11 +136,11 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodesGetFromIndexLookup( state, indexDescriptor, value ) )
                 .then( answerAsPrimitiveLongIteratorFrom( asList( 2l, 3l ) ) );
-        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+        when( store.nodeGetProperty( eq( state ), anyLong(), eq( propertyKeyId ) ) ).thenReturn(
                 noNodeProperty( 1, propertyKeyId ) );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
                 .<DefinedProperty>emptyIterator() );
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( false );
 
         state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
                                                    stringProperty( propertyKeyId, value ) );
@@ -159,11 +159,11 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodeGetUniqueFromIndexLookup( state, indexDescriptor, value ) ).thenReturn(
                 asPrimitiveResourceIterator() );
-        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+        when( store.nodeGetProperty( eq( state ), anyLong(), eq( propertyKeyId ) ) ).thenReturn(
                 noNodeProperty( 1, propertyKeyId ) );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
                 .<DefinedProperty>emptyIterator() );
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( false );
 
         state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
                                                    stringProperty( propertyKeyId, value ) );
@@ -183,9 +183,9 @@ public class IndexQueryTransactionStateTest
         when( store.nodesGetFromIndexLookup( state, indexDescriptor, value ) )
                 .then( answerAsPrimitiveLongIteratorFrom( asList( 2l, 3l ) ) );
 
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( false );
         DefinedProperty stringProperty = stringProperty( propertyKeyId, value );
-        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( stringProperty );
+        when( store.nodeGetProperty( state, 1l, propertyKeyId ) ).thenReturn( stringProperty );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( iterator( stringProperty ) );
 
         txContext.nodeAddLabel( state, 1l, labelId );
@@ -203,10 +203,10 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodeGetUniqueFromIndexLookup( state, indexDescriptor, value ) ).thenReturn(
                 asPrimitiveResourceIterator() );
-        when( store.nodeHasLabel( 2l, labelId ) ).thenReturn( false );
+        when( store.nodeHasLabel( state, 2l, labelId ) ).thenReturn( false );
 
         DefinedProperty stringProperty = stringProperty( propertyKeyId, value );
-        when( store.nodeGetProperty( 2l, propertyKeyId ) ).thenReturn( stringProperty );
+        when( store.nodeGetProperty( state, 2l, propertyKeyId ) ).thenReturn( stringProperty );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( iterator( stringProperty ) );
 
         txContext.nodeAddLabel( state, 2l, labelId );
@@ -224,10 +224,10 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodesGetFromIndexLookup( state, indexDescriptor, value ) )
                 .then( answerAsPrimitiveLongIteratorFrom( asList( 1l, 2l, 3l ) ) );
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( true );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( true );
 
         DefinedProperty stringProperty = stringProperty( propertyKeyId, value );
-        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( stringProperty );
+        when( store.nodeGetProperty( state, 1l, propertyKeyId ) ).thenReturn( stringProperty );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( iterator( stringProperty ) );
 
         txContext.nodeRemoveLabel( state, 1l, labelId );
@@ -245,10 +245,10 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodeGetUniqueFromIndexLookup( state, indexDescriptor, value ) ).thenReturn(
                 asPrimitiveResourceIterator( 1l ) );
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( true );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( true );
 
         DefinedProperty stringProperty = stringProperty( propertyKeyId, value );
-        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( stringProperty );
+        when( store.nodeGetProperty( state, 1l, propertyKeyId ) ).thenReturn( stringProperty );
         when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( iterator( stringProperty ) );
 
         txContext.nodeRemoveLabel( state, 1l, labelId );
@@ -267,7 +267,7 @@ public class IndexQueryTransactionStateTest
         when( store.nodesGetFromIndexLookup( state, indexDescriptor, value ) )
                 .then( answerAsPrimitiveLongIteratorFrom( asList( 2l, 3l ) ) );
 
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( true );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( true );
         state.txState().nodeDoReplaceProperty( 1l, Property.noNodeProperty( 1l, propertyKeyId ),
                 Property.intProperty( propertyKeyId, 10 ) );
 
@@ -286,9 +286,10 @@ public class IndexQueryTransactionStateTest
         // Given
         when( store.nodeGetUniqueFromIndexLookup( state, indexDescriptor, value ) ).thenReturn(
                 asPrimitiveResourceIterator( 1l ) );
-        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( stringProperty( propertyKeyId, value ) );
+        when( store.nodeGetProperty( state, 1l, propertyKeyId ) )
+                .thenReturn( stringProperty( propertyKeyId, value ) );
 
-        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( true );
+        when( store.nodeHasLabel( state, 1l, labelId ) ).thenReturn( true );
         when( store.nodeGetLabels( 1l ) ).thenReturn( PrimitiveIntCollections.iterator( labelId ) );
         txContext.nodeRemoveProperty( state, 1l, propertyKeyId );
 
@@ -88,7 +88,7 @@ public class StateHandlingStatementOperationsTest
         // ctx.getOrCreatePropertyKeyId("0");
 
         verify( inner, times( 1 ) ).nodeGetAllProperties( 0 );
-        verify( inner, times( 2 ) ).nodeHasLabel( 0, 0 );
+        verify( inner, times( 2 ) ).nodeHasLabel( state, 0, 0 );
         verifyNoMoreInteractions( inner );
     }
 
@@ -34,6 +34,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.helpers.collection.IteratorUtil;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
+import org.neo4j.kernel.api.exceptions.TransactionStateSizeExceededException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -47,6 +48,7 @@ import org.neo4j.test.RepeatRule;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -55,6 +57,7 @@ import static org.neo4j.graphdb.Direction.BOTH;
 import static org.neo4j.graphdb.Direction.INCOMING;
 import static org.neo4j.graphdb.Direction.OUTGOING;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.kernel.api.properties.Property.intProperty;
 import static org.neo4j.kernel.api.properties.Property.noNodeProperty;
 import static org.neo4j.kernel.api.properties.Property.stringProperty;
 import static org.neo4j.kernel.impl.util.PrimitiveIteratorMatchers.containsLongs;
@@ -220,6 +223,45 @@ public class TxStateTest
         assertEquals( asSet( nodeIds[0], nodeIds[1] ), diffSets.getAdded() );
     }
 
+    @Test
+    public void shouldComputeIndexUpdatesForRangeSeekByNumber() throws Exception
+    {
+        // GIVEN
+        int propertyKeyId = 3;
+        IndexDescriptor rule = new IndexDescriptor( 2, propertyKeyId );
+        // moved within the range, out of the range, into the range, and added a string
+        state.indexDoUpdateProperty( rule, 1, intProperty( propertyKeyId, 10 ), intProperty( propertyKeyId, 15 ) );
+        state.indexDoUpdateProperty( rule, 2, intProperty( propertyKeyId, 11 ), intProperty( propertyKeyId, 50 ) );
+        state.indexDoUpdateProperty( rule, 3, intProperty( propertyKeyId, 60 ), intProperty( propertyKeyId, 20 ) );
+        state.indexDoUpdateProperty( rule, 4, null, stringProperty( propertyKeyId, "12" ) );
+
+        // WHEN
+        ReadableDiffSets<Long> diffSets = state.indexUpdatesForRangeSeekByNumber( rule, 10, true, 20, true );
+
+        // THEN
+        assertEquals( asSet( 1L, 3L ), diffSets.getAdded() );
+        assertEquals( asSet( 2L ), diffSets.getRemoved() );
+    }
+
+    @Test
+    public void shouldComputeIndexUpdatesForRangeSeekByPrefix() throws Exception
+    {
+        // GIVEN
+        int propertyKeyId = 3;
+        IndexDescriptor rule = new IndexDescriptor( 2, propertyKeyId );
+        state.indexDoUpdateProperty( rule, 1, null, stringProperty( propertyKeyId, "apa" ) );
+        state.indexDoUpdateProperty( rule, 2, stringProperty( propertyKeyId, "apabanan" ),
+                stringProperty( propertyKeyId, "banan" ) );
+        state.indexDoUpdateProperty( rule, 3, null, stringProperty( propertyKeyId, "bapa" ) );
+
+        // WHEN
+        ReadableDiffSets<Long> diffSets = state.indexUpdatesForRangeSeekByPrefix( rule, "apa" );
+
+        // THEN
+        assertEquals( asSet( 1L ), diffSets.getAdded() );
+        assertEquals( asSet( 2L ), diffSets.getRemoved() );
+    }
+
     @Test
     public void shouldIncludeAddedNodesWithCorrectProperty() throws Exception
     {
@@ -624,6 +666,79 @@ public class TxStateTest
         } );
     }
 
+    @Test
+    public void shouldKnowEntitiesCreatedAndDeletedInSameTxAreDeleted() throws Exception
+    {
+        // GIVEN
+        state.nodeDoCreate( 1 );
+        state.nodeDoCreate( 2 );
+        state.relationshipDoCreate( 10, 0, 1, 2 );
+
+        // WHEN
+        state.relationshipDoDelete( 10, 0, 1, 2 );
+        state.nodeDoDelete( 1 );
+
+        // THEN
+        assertTrue( state.nodeIsDeletedInThisTx( 1 ) );
+        assertFalse( state.nodeIsDeletedInThisTx( 2 ) );
+        assertTrue( state.relationshipIsDeletedInThisTx( 10 ) );
+        assertFalse( state.relationshipIsDeletedInThisTx( 11 ) );
+        assertFalse( state.nodeModifiedInThisTx( 3 ) );
+    }
+
+    @Test
+    public void shouldKeepSeeingCreatedAndDeletedEntitiesMovedOffHeap() throws Exception
+    {
+        // GIVEN
+        TxState spillingState = new TxState( 2, -1 );
+        try
+        {
+            // WHEN
+            for ( long id = 0; id < 10; id++ )
+            {
+                spillingState.nodeDoCreate( id );
+                spillingState.relationshipDoCreate( id, 0, id, id );
+            }
+            spillingState.nodeDoDelete( 3 );
+            spillingState.nodeDoDelete( 20 );
+            spillingState.relationshipDoDelete( 21, 0, 1, 2 );
+
+            // THEN
+            assertEquals( 9, spillingState.addedAndRemovedNodes().getAdded().size() );
+            assertTrue( spillingState.nodeIsAddedInThisTx( 9 ) );
+            assertFalse( spillingState.nodeIsAddedInThisTx( 3 ) );
+            assertTrue( spillingState.nodeIsDeletedInThisTx( 20 ) );
+            assertTrue( spillingState.relationshipIsAddedInThisTx( 5 ) );
+            assertTrue( spillingState.relationshipIsDeletedInThisTx( 21 ) );
+        }
+        finally
+        {
+            spillingState.release();
+        }
+    }
+
+    @Test
+    public void shouldCountPropertyAndLabelChangesTowardsTheChangeLimit() throws Exception
+    {
+        // GIVEN
+        TxState limitedState = new TxState( -1, 3 );
+        limitedState.nodeDoCreate( 1 );
+        limitedState.nodeDoAddLabel( 5, 1 );
+        limitedState.nodeDoReplaceProperty( 1, noNodeProperty( 1, 7 ), intProperty( 7, 10 ) );
+        assertFalse( limitedState.hasExceededChangeLimit() );
+
+        // WHEN
+        try
+        {
+            limitedState.nodeDoReplaceProperty( 1, intProperty( 7, 10 ), intProperty( 7, 11 ) );
+            fail( "Should have failed" );
+        }
+        catch ( TransactionStateSizeExceededException e )
+        {   // THEN good
+        }
+        assertTrue( limitedState.hasExceededChangeLimit() );
+    }
+
     abstract class VisitationOrder extends TxStateVisitor.Adapter
     {
         private final Set<String> visitMethods = new HashSet<>();
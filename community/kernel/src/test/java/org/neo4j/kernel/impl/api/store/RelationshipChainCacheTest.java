@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class RelationshipChainCacheTest
+{
+    private static final long NODE = 1;
+    // relationship id, type, start node, end node
+    private static final long[][] RELATIONSHIPS = {
+            {10, 0, NODE, 2},
+            {11, 0, 3, NODE},
+            {12, 1, NODE, NODE},
+            {13, 1, NODE, 4},
+    };
+
+    private final StoreReadLayer store = mock( StoreReadLayer.class );
+    private final RelationshipChainCache cache = new RelationshipChainCache( 10 );
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when( store.nodeListRelationships( NODE, Direction.BOTH ) ).thenAnswer( new Answer<RelationshipIterator>()
+        {
+            @Override
+            public RelationshipIterator answer( InvocationOnMock invocation )
+            {
+                return new StubRelationshipIterator();
+            }
+        } );
+    }
+
+    @Test
+    public void shouldListRelationshipsByDirection() throws Exception
+    {
+        RelationshipChainCache.Chains chains = cache.chains( NODE, store );
+
+        assertThat( asSet( chains.relationships( Direction.BOTH ) ), equalTo( asSet( 10L, 11L, 12L, 13L ) ) );
+        assertThat( asSet( chains.relationships( Direction.OUTGOING ) ), equalTo( asSet( 10L, 12L, 13L ) ) );
+        assertThat( asSet( chains.relationships( Direction.INCOMING ) ), equalTo( asSet( 11L, 12L ) ) );
+    }
+
+    @Test
+    public void shouldListRelationshipsByTypeAndDirection() throws Exception
+    {
+        RelationshipChainCache.Chains chains = cache.chains( NODE, store );
+
+        assertThat( asSet( chains.relationships( Direction.OUTGOING, new int[] {1} ) ),
+                equalTo( asSet( 12L, 13L ) ) );
+        assertThat( asSet( chains.relationships( Direction.INCOMING, new int[] {0, 5} ) ),
+                equalTo( asSet( 11L ) ) );
+        assertFalse( chains.relationships( Direction.BOTH, new int[] {5} ).hasNext() );
+    }
+
+    @Test
+    public void shouldVisitRelationshipsWithTheirTypeAndNodes() throws Exception
+    {
+        RelationshipIterator relationships = cache.chains( NODE, store ).relationships( Direction.BOTH );
+
+        while ( relationships.hasNext() )
+        {
+            final long[] expected = RELATIONSHIPS[(int) (relationships.next() - 10)];
+            relationships.relationshipVisit( expected[0], new RelationshipVisitor<RuntimeException>()
+            {
+                @Override
+                public void visit( long relId, int type, long startNode, long endNode )
+                {
+                    assertThat( new long[] {relId, type, startNode, endNode}, equalTo( expected ) );
+                }
+            } );
+        }
+    }
+
+    @Test
+    public void shouldCountDegrees() throws Exception
+    {
+        RelationshipChainCache.Chains chains = cache.chains( NODE, store );
+
+        assertThat( chains.degree( Direction.BOTH ), equalTo( 4 ) );
+        assertThat( chains.degree( Direction.OUTGOING ), equalTo( 3 ) );
+        assertThat( chains.degree( Direction.INCOMING, 1 ), equalTo( 1 ) );
+        assertThat( chains.degree( Direction.OUTGOING, 5 ), equalTo( 0 ) );
+    }
+
+    @Test
+    public void shouldOnlyLoadChainsAgainAfterInvalidation() throws Exception
+    {
+        cache.chains( NODE, store );
+        cache.chains( NODE, store );
+        verify( store, times( 1 ) ).nodeListRelationships( NODE, Direction.BOTH );
+
+        cache.invalidate( NODE );
+        assertThat( cache.cachedChains( NODE ), nullValue() );
+        cache.chains( NODE, store );
+        verify( store, times( 2 ) ).nodeListRelationships( NODE, Direction.BOTH );
+    }
+
+    @Test
+    public void disabledCacheShouldNotCacheAnything() throws Exception
+    {
+        RelationshipChainCache disabled = RelationshipChainCache.DISABLED;
+        disabled.invalidate( NODE );
+
+        assertFalse( disabled.isEnabled() );
+        assertThat( disabled.cachedChains( NODE ), nullValue() );
+    }
+
+    private static class StubRelationshipIterator extends RelationshipIterator.BaseIterator
+    {
+        private int index = -1;
+
+        @Override
+        protected boolean fetchNext()
+        {
+            return ++index < RELATIONSHIPS.length && next( RELATIONSHIPS[index][0] );
+        }
+
+        @Override
+        public <EXCEPTION extends Exception> boolean relationshipVisit( long relationshipId,
+                RelationshipVisitor<EXCEPTION> visitor ) throws EXCEPTION
+        {
+            long[] relationship = RELATIONSHIPS[index];
+            visitor.visit( relationship[0], (int) relationship[1], relationship[2], relationship[3] );
+            return false;
+        }
+    }
+}
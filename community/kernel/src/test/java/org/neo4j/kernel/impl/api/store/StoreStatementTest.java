@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveIntCollections;
+import org.neo4j.function.IntPredicate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.store.InvalidRecordException;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.transaction.state.NeoStoreSupplier;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.function.IntPredicates.alwaysTrue;
+import static org.neo4j.graphdb.DynamicLabel.label;
+import static org.neo4j.graphdb.DynamicRelationshipType.withName;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+/**
+ * Test read access to committed data through the cursors of a {@link StoreStatement}.
+ */
+public class StoreStatementTest extends DiskLayerTest
+{
+    @Test
+    public void shouldReadAllPropertiesOfNodeAcrossPropertyRecords() throws Exception
+    {
+        // GIVEN
+        Map<String,Object> properties = new HashMap<>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            properties.put( "short" + i, i );
+            properties.put( "string" + i, "a long string that does not fit in the property record " + i );
+            properties.put( "array" + i, new long[] {i, i + 1, Long.MAX_VALUE} );
+        }
+        long nodeId = createLabeledNode( db, properties, label1 ).getId();
+
+        // WHEN
+        Map<Integer,Object> read = new HashMap<>();
+        try ( StoreStatement statement = disk.acquireStatement();
+              StorePropertyCursor cursor = statement.nodeGetProperties( nodeId ) )
+        {
+            while ( cursor.next() )
+            {
+                read.put( cursor.propertyKeyId(), cursor.value() );
+            }
+        }
+
+        // THEN
+        assertThat( read.size(), equalTo( properties.size() ) );
+        for ( Map.Entry<String,Object> property : properties.entrySet() )
+        {
+            int propertyKeyId = disk.propertyKeyGetForName( property.getKey() );
+            Property expected = Property.property( propertyKeyId, property.getValue() );
+            assertTrue( expected + " was " + read.get( propertyKeyId ),
+                    expected.valueEquals( read.get( propertyKeyId ) ) );
+        }
+    }
+
+    @Test
+    public void shouldGetSinglePropertyFromTheMiddleOfThePropertyChain() throws Exception
+    {
+        // GIVEN
+        Map<String,Object> properties = new HashMap<>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            properties.put( "key" + i, "value" + i );
+        }
+        long nodeId = createLabeledNode( db, properties, label1 ).getId();
+
+        // WHEN
+        Property property = disk.nodeGetProperty( state, nodeId, disk.propertyKeyGetForName( "key10" ) );
+
+        // THEN
+        assertTrue( property.valueEquals( "value10" ) );
+    }
+
+    @Test
+    public void shouldReadInlinedAndDynamicLabels() throws Exception
+    {
+        // GIVEN
+        Label[] manyLabels = new Label[20];
+        for ( int i = 0; i < manyLabels.length; i++ )
+        {
+            manyLabels[i] = label( "label" + i );
+        }
+        long fewLabelsNode = createLabeledNode( db, singletonMap( "prop", (Object) 1 ), label1, label2 ).getId();
+        long manyLabelsNode = createLabeledNode( db, singletonMap( "prop", (Object) 1 ), manyLabels ).getId();
+
+        // WHEN
+        try ( StoreStatement statement = disk.acquireStatement() )
+        {
+            // THEN
+            assertThat( labels( statement, fewLabelsNode ), equalTo( asSet( disk.nodeGetLabels( fewLabelsNode ) ) ) );
+            assertThat( labels( statement, manyLabelsNode ),
+                    equalTo( asSet( disk.nodeGetLabels( manyLabelsNode ) ) ) );
+            assertThat( labels( statement, manyLabelsNode ).size(), equalTo( manyLabels.length ) );
+        }
+        assertTrue( disk.nodeHasLabel( state, manyLabelsNode, disk.labelGetForName( "label13" ) ) );
+        assertFalse( disk.nodeHasLabel( state, fewLabelsNode, disk.labelGetForName( "label13" ) ) );
+    }
+
+    @Test
+    public void shouldReuseClosedCursors() throws Exception
+    {
+        // GIVEN
+        long nodeId = createLabeledNode( db, singletonMap( "prop", (Object) 1 ), label1 ).getId();
+
+        try ( StoreStatement statement = disk.acquireStatement() )
+        {
+            // WHEN
+            StorePropertyCursor first = statement.nodeGetProperties( nodeId );
+            first.close();
+            StorePropertyCursor second = statement.nodeGetProperties( nodeId );
+
+            // THEN
+            assertThat( second, sameInstance( first ) );
+            assertTrue( second.next() );
+            assertFalse( second.next() );
+            second.close();
+        }
+    }
+
+    @Test( expected = InvalidRecordException.class )
+    public void shouldNotReadPropertyBlocksOfRecordsThatAreNotInUse() throws Exception
+    {
+        // GIVEN
+        createLabeledNode( db, singletonMap( "prop", (Object) 1 ), label1 );
+        PropertyStore propertyStore =
+                db.getDependencyResolver().resolveDependency( NeoStoreSupplier.class ).get().getPropertyStore();
+
+        // WHEN
+        propertyStore.readPropertyBlocks( propertyStore.getHighId(), new long[PropertyType.getPayloadSizeLongs()] );
+    }
+
+    @Test
+    public void shouldReadSinglePropertiesAndLabelsThroughThePooledCursorsOfTheStatement() throws Exception
+    {
+        // GIVEN
+        long nodeId = createLabeledNode( db, singletonMap( "prop", (Object) 1 ), label1 ).getId();
+        StoreStatement statement = state.getStoreStatement();
+        StorePropertyCursor properties = statement.nodeGetProperties( nodeId );
+        properties.close();
+        StoreLabelCursor labels = statement.nodeGetLabels( nodeId );
+        labels.close();
+
+        // WHEN
+        disk.nodeGetProperty( state, nodeId, disk.propertyKeyGetForName( "prop" ) );
+        disk.nodeHasLabel( state, nodeId, disk.labelGetForName( label1.name() ) );
+
+        // THEN
+        assertThat( statement.nodeGetProperties( nodeId ), sameInstance( properties ) );
+        assertThat( statement.nodeGetLabels( nodeId ), sameInstance( labels ) );
+    }
+
+    @Test
+    public void shouldReadSingleNodeAndRelationship() throws Exception
+    {
+        // GIVEN
+        long nodeId, otherNodeId, relationshipId;
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode( label1 );
+            node.setProperty( "prop", 1 );
+            Node other = db.createNode();
+            Relationship relationship = node.createRelationshipTo( other, withName( "KNOWS" ) );
+            relationship.setProperty( "since", 2015 );
+            nodeId = node.getId();
+            otherNodeId = other.getId();
+            relationshipId = relationship.getId();
+            tx.success();
+        }
+
+        try ( StoreStatement statement = disk.acquireStatement() )
+        {
+            // WHEN
+            try ( StoreSingleNodeCursor node = statement.acquireSingleNodeCursor( nodeId ) )
+            {
+                // THEN
+                assertTrue( node.next() );
+                assertThat( node.id(), equalTo( nodeId ) );
+                try ( StoreLabelCursor labels = node.labels() )
+                {
+                    assertTrue( labels.seek( disk.labelGetForName( label1.name() ) ) );
+                }
+                try ( StorePropertyCursor properties = node.properties() )
+                {
+                    assertTrue( properties.next() );
+                    assertThat( properties.value(), equalTo( (Object) 1 ) );
+                    assertFalse( properties.next() );
+                }
+                assertFalse( node.next() );
+            }
+
+            // WHEN
+            try ( StoreSingleRelationshipCursor relationship =
+                          statement.acquireSingleRelationshipCursor( relationshipId ) )
+            {
+                // THEN
+                assertTrue( relationship.next() );
+                assertThat( relationship.id(), equalTo( relationshipId ) );
+                assertThat( relationship.type(), equalTo( disk.relationshipTypeGetForName( "KNOWS" ) ) );
+                assertThat( relationship.startNode(), equalTo( nodeId ) );
+                assertThat( relationship.endNode(), equalTo( otherNodeId ) );
+                try ( StorePropertyCursor properties = relationship.properties() )
+                {
+                    assertTrue( properties.next() );
+                    assertThat( properties.value(), equalTo( (Object) 2015 ) );
+                }
+                assertFalse( relationship.next() );
+            }
+
+            // WHEN
+            try ( StoreSingleNodeCursor missing = statement.acquireSingleNodeCursor( otherNodeId + 1 ) )
+            {
+                // THEN
+                assertFalse( missing.next() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldTraverseRelationshipsOfSparseAndDenseNodes() throws Exception
+    {
+        // GIVEN
+        int others = 100;
+        long sparseNode = createNodeWithRelationships( 0 );
+        long denseNode = createNodeWithRelationships( others );
+        assertFalse( isDense( sparseNode ) );
+        assertTrue( isDense( denseNode ) );
+
+        // WHEN/THEN
+        assertThat( count( sparseNode, Direction.OUTGOING, type( "KNOWS" ) ), equalTo( 1 ) );
+        assertThat( count( sparseNode, Direction.INCOMING, alwaysTrue() ), equalTo( 1 ) );
+        assertThat( count( sparseNode, Direction.BOTH, type( "KNOWS" ) ), equalTo( 2 ) );
+        assertThat( count( sparseNode, Direction.BOTH, type( "LIKES" ) ), equalTo( 1 ) );
+        assertThat( count( sparseNode, Direction.BOTH, alwaysTrue() ), equalTo( 3 ) );
+
+        assertThat( count( denseNode, Direction.OUTGOING, type( "KNOWS" ) ), equalTo( 1 ) );
+        assertThat( count( denseNode, Direction.INCOMING, alwaysTrue() ), equalTo( 1 ) );
+        assertThat( count( denseNode, Direction.BOTH, type( "KNOWS" ) ), equalTo( 2 ) );
+        assertThat( count( denseNode, Direction.BOTH, type( "LIKES" ) ), equalTo( 1 ) );
+        assertThat( count( denseNode, Direction.BOTH, alwaysTrue() ), equalTo( 3 + others ) );
+
+        int knows = disk.relationshipTypeGetForName( "KNOWS" );
+        assertThat( disk.nodeGetDegree( state, sparseNode, Direction.BOTH, knows ), equalTo( 2 ) );
+        assertThat( disk.nodeGetDegree( state, sparseNode, Direction.OUTGOING ), equalTo( 2 ) );
+        assertThat( disk.nodeGetDegree( state, denseNode, Direction.BOTH, knows ), equalTo( 2 ) );
+        assertThat( disk.nodeGetDegree( state, denseNode, Direction.OUTGOING ), equalTo( 2 + others ) );
+    }
+
+    @Test
+    public void shouldVisitRelationshipThroughTheStatement() throws Exception
+    {
+        // GIVEN
+        long nodeId = createNodeWithRelationships( 0 );
+        final long relationshipId;
+        try ( Transaction tx = db.beginTx() )
+        {
+            relationshipId = db.getNodeById( nodeId ).getRelationships( Direction.OUTGOING, withName( "LIKES" ) )
+                    .iterator().next().getId();
+            tx.success();
+        }
+        final long[] visited = new long[4];
+
+        // WHEN
+        disk.relationshipVisit( state, relationshipId, new RelationshipVisitor<RuntimeException>()
+        {
+            @Override
+            public void visit( long relId, int type, long startNode, long endNode )
+            {
+                visited[0] = relId;
+                visited[1] = type;
+                visited[2] = startNode;
+                visited[3] = endNode;
+            }
+        } );
+
+        // THEN
+        assertThat( visited[0], equalTo( relationshipId ) );
+        assertThat( visited[1], equalTo( (long) disk.relationshipTypeGetForName( "LIKES" ) ) );
+        assertThat( visited[2], equalTo( nodeId ) );
+        assertThat( visited[3], not( equalTo( nodeId ) ) );
+    }
+
+    @Test( expected = EntityNotFoundException.class )
+    public void shouldNotVisitMissingRelationshipThroughTheStatement() throws Exception
+    {
+        // WHEN
+        disk.relationshipVisit( state, 1_000_000, new RelationshipVisitor<RuntimeException>()
+        {
+            @Override
+            public void visit( long relId, int type, long startNode, long endNode )
+            {
+                fail( "should not have visited a missing relationship" );
+            }
+        } );
+    }
+
+    private long createNodeWithRelationships( int others )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode();
+            node.createRelationshipTo( db.createNode(), withName( "KNOWS" ) );
+            db.createNode().createRelationshipTo( node, withName( "KNOWS" ) );
+            node.createRelationshipTo( db.createNode(), withName( "LIKES" ) );
+            for ( int i = 0; i < others; i++ )
+            {
+                node.createRelationshipTo( db.createNode(), withName( "OTHER" ) );
+            }
+            tx.success();
+            return node.getId();
+        }
+    }
+
+    private boolean isDense( long nodeId )
+    {
+        try ( StoreStatement statement = disk.acquireStatement();
+              StoreSingleNodeCursor node = statement.acquireSingleNodeCursor( nodeId ) )
+        {
+            assertTrue( node.next() );
+            return node.isDense();
+        }
+    }
+
+    private IntPredicate type( String name )
+    {
+        return PrimitiveIntCollections.asSet( new int[] {disk.relationshipTypeGetForName( name )} );
+    }
+
+    private int count( long nodeId, Direction direction, IntPredicate types )
+    {
+        int count = 0;
+        try ( StoreStatement statement = disk.acquireStatement();
+              StoreSingleNodeCursor node = statement.acquireSingleNodeCursor( nodeId ) )
+        {
+            assertTrue( node.next() );
+            try ( StoreNodeRelationshipCursor relationships = node.relationships( direction, types ) )
+            {
+                while ( relationships.next() )
+                {
+                    assertThat( relationships.otherNode(), not( equalTo( nodeId ) ) );
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private Set<Integer> labels( StoreStatement statement, long nodeId ) throws Exception
+    {
+        Set<Integer> labels = new HashSet<>();
+        try ( StoreLabelCursor cursor = statement.nodeGetLabels( nodeId ) )
+        {
+            while ( cursor.next() )
+            {
+                labels.add( cursor.labelId() );
+            }
+        }
+        return labels;
+    }
+}
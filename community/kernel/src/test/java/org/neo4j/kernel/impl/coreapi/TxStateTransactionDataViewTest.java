@@ -41,6 +41,7 @@ import org.neo4j.kernel.api.properties.Property;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.impl.api.state.TxState;
 import org.neo4j.kernel.impl.api.store.StoreReadLayer;
+import org.neo4j.kernel.impl.api.store.StoreStatement;
 import org.neo4j.kernel.impl.core.NodeProxy;
 import org.neo4j.kernel.impl.core.RelationshipProxy;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
@@ -61,6 +62,7 @@ public class TxStateTransactionDataViewTest
     private final ThreadToStatementContextBridge bridge = mock(ThreadToStatementContextBridge.class);
     private final Statement stmt = mock(Statement.class);
     private final StoreReadLayer ops = mock(StoreReadLayer.class);
+    private final StoreStatement storeStatement = mock( StoreStatement.class );
     private final TransactionState state = new TxState();
 
 
@@ -68,6 +70,7 @@ public class TxStateTransactionDataViewTest
     public void setup()
     {
         when(bridge.get()).thenReturn( stmt );
+        when( ops.acquireStatement() ).thenReturn( storeStatement );
     }
 
     @Test
@@ -164,7 +167,7 @@ public class TxStateTransactionDataViewTest
         DefinedProperty prevProp = stringProperty( 1, "prevValue" );
         state.nodeDoReplaceProperty( 1l, prevProp, stringProperty(1, "newValue") );
         when( ops.propertyKeyGetName( 1 ) ).thenReturn( "theKey" );
-        when(ops.nodeGetProperty( 1, 1 )).thenReturn( prevProp );
+        when( storeStatement.nodeGetProperty( 1, 1 ) ).thenReturn( prevProp );
 
         // When
         Iterable<PropertyEntry<Node>> propertyEntries = snapshot().assignedNodeProperties();
@@ -184,7 +187,7 @@ public class TxStateTransactionDataViewTest
         DefinedProperty prevProp = stringProperty( 1, "prevValue" );
         state.nodeDoRemoveProperty( 1l, prevProp );
         when( ops.propertyKeyGetName( 1 ) ).thenReturn( "theKey" );
-        when(ops.nodeGetProperty( 1, 1 )).thenReturn( prevProp );
+        when( storeStatement.nodeGetProperty( 1, 1 ) ).thenReturn( prevProp );
 
         // When
         Iterable<PropertyEntry<Node>> propertyEntries = snapshot().removedNodeProperties();
@@ -203,7 +206,7 @@ public class TxStateTransactionDataViewTest
         DefinedProperty prevValue = stringProperty( 1, "prevValue" );
         state.relationshipDoRemoveProperty( 1l, prevValue );
         when( ops.propertyKeyGetName( 1 ) ).thenReturn( "theKey" );
-        when( ops.relationshipGetProperty( 1, 1 ) ).thenReturn( prevValue );
+        when( storeStatement.relationshipGetProperty( 1, 1 ) ).thenReturn( prevValue );
 
         // When
         Iterable<PropertyEntry<Relationship>> propertyEntries = snapshot().removedRelationshipProperties();
@@ -223,7 +226,7 @@ public class TxStateTransactionDataViewTest
         state.relationshipDoReplaceProperty( 1l, prevProp, stringProperty(1, "newValue") );
 
         when( ops.propertyKeyGetName( 1 ) ).thenReturn( "theKey" );
-        when(ops.relationshipGetProperty( 1, 1 )).thenReturn( prevProp );
+        when( storeStatement.relationshipGetProperty( 1, 1 ) ).thenReturn( prevProp );
 
         // When
         Iterable<PropertyEntry<Relationship>> propertyEntries = snapshot().assignedRelationshipProperties();
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+
+public class PageCacheWarmerTest
+{
+    @Rule
+    public EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File storeDir = new File( "store" );
+    private final File file = new File( storeDir, "neostore.nodestore.db" );
+    private final Config config = new Config( stringMap( pagecache_warmup_enabled.name(), "true" ) );
+    private Neo4jJobScheduler scheduler;
+    private FileSystemAbstraction fs;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        fs = fsRule.get();
+        fs.mkdirs( storeDir );
+        scheduler = new Neo4jJobScheduler();
+        scheduler.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void mustReheatPagesRecordedInTheProfile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+
+            newWarmer( pageCache ).profile();
+        }
+        assertTrue( fs.fileExists( PageCacheWarmer.profileFile( file ) ) );
+
+        // Starting over with a new and empty page cache
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( newWarmer( pageCache ).reheat(), is( 10L ) );
+        }
+    }
+
+    @Test
+    public void mustNotReheatFilesWithoutProfile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() );
+              PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( 1 );
+        }
+
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( newWarmer( pageCache ).reheat(), is( 0L ) );
+        }
+    }
+
+    private PageCacheWarmer newWarmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, storeDir, config, NullLog.getInstance() );
+    }
+}
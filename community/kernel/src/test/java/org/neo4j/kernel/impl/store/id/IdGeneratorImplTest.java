@@ -20,16 +20,25 @@
 package org.neo4j.kernel.impl.store.id;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Rule;
 import org.junit.Test;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.test.EphemeralFileSystemRule;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class IdGeneratorImplTest
@@ -87,4 +96,73 @@ public class IdGeneratorImplTest
         // Then
         assertThat( idGenerator.getHighId(), equalTo( 42L ) );
     }
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentCallers() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        final IdGeneratorImpl idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 1_000_000, false, 0 );
+        final int threads = 4;
+        final int idsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // WHEN
+        List<Future<long[]>> futures = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            futures.add( executor.submit( new Callable<long[]>()
+            {
+                @Override
+                public long[] call() throws Exception
+                {
+                    long[] ids = new long[idsPerThread];
+                    for ( int j = 0; j < idsPerThread; j++ )
+                    {
+                        ids[j] = idGenerator.nextId();
+                    }
+                    return ids;
+                }
+            } ) );
+        }
+
+        // THEN
+        PrimitiveLongSet seen = Primitive.longSet( threads * idsPerThread );
+        for ( Future<long[]> future : futures )
+        {
+            for ( long id : future.get() )
+            {
+                assertTrue( "Id " + id + " handed out twice", seen.add( id ) );
+            }
+        }
+        executor.shutdown();
+        assertEquals( threads * idsPerThread, idGenerator.getHighId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldReuseIdsFreedInPreviousSession() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGeneratorImpl idGenerator = new IdGeneratorImpl( fsr.get(), file, 2, 100, false, 0 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            idGenerator.nextId();
+        }
+        idGenerator.freeId( 3 );
+        idGenerator.freeId( 5 );
+        idGenerator.freeId( 7 );
+        idGenerator.close();
+
+        // WHEN
+        idGenerator = new IdGeneratorImpl( fsr.get(), file, 2, 100, false, 0 );
+
+        // THEN
+        assertEquals( 3L, idGenerator.nextId() );
+        assertEquals( 5L, idGenerator.nextId() );
+        assertEquals( 7L, idGenerator.nextId() );
+        assertEquals( 10L, idGenerator.nextId() );
+        idGenerator.close();
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IdQueueTest
+{
+    @Test
+    public void shouldKeepInsertionOrderWhenGrowingAroundTheEndOfTheBuffer() throws Exception
+    {
+        // GIVEN
+        IdQueue queue = new IdQueue( 4 );
+        queue.add( 0 );
+        queue.add( 1 );
+        queue.add( 2 );
+        queue.removeFirst();
+        queue.removeFirst();
+
+        // WHEN
+        for ( long id = 3; id < 10; id++ )
+        {
+            queue.add( id );
+        }
+
+        // THEN
+        assertEquals( 8, queue.size() );
+        for ( long id = 2; id < 10; id++ )
+        {
+            assertEquals( id, queue.removeFirst() );
+        }
+        assertTrue( queue.isEmpty() );
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.kvstore;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class OffHeapTableStateTest
+{
+    private final File file = mock( File.class );
+    private final Lock lock = mock( Lock.class );
+
+    @Test
+    public void shouldApplyUpdatesWhenTheUpdaterIsClosed() throws Exception
+    {
+        // given
+        OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+        EntryUpdater<Long> updater = state.updater( 43, lock );
+
+        // when
+        updater.apply( 7L, increment( 5 ) );
+
+        // then
+        assertEquals( -1, valueOf( state, 7L ) );
+        assertFalse( state.hasChanges() );
+
+        // when
+        updater.close();
+
+        // then
+        assertEquals( 5, valueOf( state, 7L ) );
+        assertTrue( state.hasChanges() );
+        assertEquals( 1, state.applied() );
+    }
+
+    @Test
+    public void shouldAccumulateUpdatesOfTheSameKey() throws Exception
+    {
+        // given
+        OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+
+        // when
+        try ( EntryUpdater<Long> updater = state.updater( 43, lock ) )
+        {
+            updater.apply( 7L, increment( 5 ) );
+            updater.apply( 7L, increment( 3 ) );
+        }
+        try ( EntryUpdater<Long> updater = state.updater( 44, lock ) )
+        {
+            updater.apply( 7L, increment( -2 ) );
+        }
+
+        // then
+        assertEquals( 6, valueOf( state, 7L ) );
+        assertEquals( 2, state.applied() );
+    }
+
+    @Test
+    public void shouldKeepAllKeysWhenGrowing() throws Exception
+    {
+        // given
+        OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+
+        // when
+        try ( EntryUpdater<Long> updater = state.updater( 43, lock ) )
+        {
+            for ( long key = 0; key < 10_000; key++ )
+            {
+                updater.apply( key, increment( key * 3 ) );
+            }
+        }
+
+        // then
+        for ( long key = 0; key < 10_000; key++ )
+        {
+            assertEquals( key * 3, valueOf( state, key ) );
+        }
+    }
+
+    @Test
+    public void shouldLetReadersSeeAllPublishedKeysWhileTheTableGrows() throws Exception
+    {
+        // given
+        final OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+        final AtomicLong published = new AtomicLong();
+        final int keys = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            List<Future<Long>> readers = new ArrayList<>();
+            for ( int i = 0; i < 3; i++ )
+            {
+                readers.add( executor.submit( new Callable<Long>()
+                {
+                    @Override
+                    public Long call() throws Exception
+                    {
+                        long reads = 0;
+                        long seen;
+                        while ( (seen = published.get()) < keys )
+                        {
+                            if ( seen > 0 )
+                            {
+                                long key = ThreadLocalRandom.current().nextLong( seen );
+                                assertEquals( key * 3, valueOf( state, key ) );
+                                reads++;
+                            }
+                        }
+                        return reads;
+                    }
+                } ) );
+            }
+
+            // when the writer grows the table many times over, while the readers read
+            long version = 43;
+            for ( long key = 0; key < keys; key++ )
+            {
+                try ( EntryUpdater<Long> updater = state.updater( version++, lock ) )
+                {
+                    updater.apply( key, increment( key * 3 ) );
+                }
+                published.set( key + 1 );
+                if ( key % 10_000 == 0 )
+                {   // so that the memory of the tables that were grown out of is freed
+                    System.gc();
+                }
+            }
+
+            // then
+            for ( Future<Long> reader : readers )
+            {
+                assertTrue( reader.get() > 0 );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldProvideChangesInKeyOrder() throws Exception
+    {
+        // given
+        OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+        try ( EntryUpdater<Long> updater = state.updater( 43, lock ) )
+        {
+            updater.apply( 300L, increment( 3 ) );
+            updater.apply( 100L, increment( 1 ) );
+            updater.apply( 200L, increment( 2 ) );
+        }
+
+        // when
+        DataProvider provider = state.dataProvider();
+
+        // then
+        BigEndianByteArrayBuffer key = BigEndianByteArrayBuffer.buffer( KEYS.keySize() );
+        BigEndianByteArrayBuffer value = BigEndianByteArrayBuffer.buffer( KEYS.valueSize() );
+        for ( long expected = 1; expected <= 3; expected++ )
+        {
+            assertTrue( provider.visit( key, value ) );
+            assertEquals( expected * 100, key.getLong( 4 ) );
+            assertEquals( expected, value.getLong( 8 ) );
+        }
+        assertFalse( provider.visit( key, value ) );
+    }
+
+    @Test
+    public void shouldFailIfApplyingAVersionUpdateTwiceWithSameVersion() throws Exception
+    {
+        // given
+        OffHeapTableState<Long> state = new OffHeapTableState<>( ReadableState.empty( KEYS, 42 ), file );
+        state.updater( 45, lock ).close();
+
+        try
+        {
+            // when
+            state.updater( 45, lock );
+            fail( "should have thrown" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            // then
+            assertEquals( "Cannot apply update with given version 45 when base version is 42", ex.getMessage() );
+        }
+    }
+
+    private static long valueOf( ReadableState<Long> state, long key ) throws IOException
+    {
+        final long[] value = {-1};
+        state.lookup( key, new ValueSink()
+        {
+            @Override
+            protected void value( ReadableBuffer buffer )
+            {
+                value[0] = buffer.getLong( 8 );
+            }
+        } );
+        return value[0];
+    }
+
+    private static ValueUpdate increment( final long delta )
+    {
+        return new ValueUpdate()
+        {
+            @Override
+            public void update( WritableBuffer target )
+            {
+                target.putLong( 8, target.getLong( 8 ) + delta );
+            }
+        };
+    }
+
+    // a key size that is not a multiple of eight, to exercise the padding of the last word
+    private static final KeyFormat<Long> KEYS = new KeyFormat<Long>()
+    {
+        @Override
+        public void writeKey( Long key, WritableBuffer buffer )
+        {
+            buffer.putInt( 0, 1 ).putLong( 4, key );
+        }
+
+        @Override
+        public int keySize()
+        {
+            return 12;
+        }
+
+        @Override
+        public int valueSize()
+        {
+            return 16;
+        }
+
+        @Override
+        public long version( Headers headers )
+        {
+            return 0;
+        }
+
+        @Override
+        public DataProvider filter( DataProvider provider )
+        {
+            return provider;
+        }
+    };
+}
@@ -56,6 +56,12 @@ public class DeadSimpleTransactionIdStore implements TransactionIdStore
         return committingTransactionId.incrementAndGet();
     }
 
+    @Override
+    public long getLastCommittingTransactionId()
+    {
+        return committingTransactionId.get();
+    }
+
     @Override
     public void transactionCommitted( long transactionId, long checksum )
     {
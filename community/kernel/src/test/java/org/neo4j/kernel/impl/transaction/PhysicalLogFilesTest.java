@@ -20,21 +20,27 @@
 package org.neo4j.kernel.impl.transaction;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.DEFAULT_VERSION_SUFFIX;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
 
 public class PhysicalLogFilesTest
 {
@@ -180,4 +186,50 @@ public class PhysicalLogFilesTest
         // when
         PhysicalLogFiles.getLogVersion( file );
     }
+
+    @Test
+    public void shouldNotConsiderAPreAllocatedLogAsHavingTransactions() throws Exception
+    {
+        // given
+        EphemeralFileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+        fileSystem.mkdirs( tmpDirectory );
+        PhysicalLogFiles files = new PhysicalLogFiles( tmpDirectory, filename, fileSystem );
+        File logFile = files.getLogFileForVersion( 1 );
+        writeLogHeader( fileSystem, logFile, 1, 0 );
+        try ( StoreChannel channel = fileSystem.open( logFile, "rw" ) )
+        {
+            channel.position( channel.size() );
+            channel.write( ByteBuffer.allocate( 1024 ) );
+        }
+
+        // when
+        boolean hasAnyTransaction = files.hasAnyTransaction( 1 );
+
+        // then
+        assertFalse( hasAnyTransaction );
+        fileSystem.shutdown();
+    }
+
+    @Test
+    public void shouldConsiderALogWithEntriesAfterTheHeaderAsHavingTransactions() throws Exception
+    {
+        // given
+        EphemeralFileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+        fileSystem.mkdirs( tmpDirectory );
+        PhysicalLogFiles files = new PhysicalLogFiles( tmpDirectory, filename, fileSystem );
+        File logFile = files.getLogFileForVersion( 1 );
+        writeLogHeader( fileSystem, logFile, 1, 0 );
+        try ( StoreChannel channel = fileSystem.open( logFile, "rw" ) )
+        {
+            channel.position( channel.size() );
+            channel.write( ByteBuffer.wrap( new byte[]{1, 1, 1, 1} ) );
+        }
+
+        // when
+        boolean hasAnyTransaction = files.hasAnyTransaction( 1 );
+
+        // then
+        assertTrue( hasAnyTransaction );
+        fileSystem.shutdown();
+    }
 }
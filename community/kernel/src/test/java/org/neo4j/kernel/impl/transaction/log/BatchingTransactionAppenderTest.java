@@ -38,6 +38,7 @@ import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.impl.index.IndexDefineCommand;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionCounters;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
@@ -71,6 +72,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 import static org.neo4j.helpers.Exceptions.contains;
 import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
@@ -343,6 +345,35 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @SuppressWarnings( "rawtypes" )
+    @Test
+    public void shouldCoverConcurrentAppendsWithOneForceWithinGroupCommitWindow() throws Exception
+    {
+        // GIVEN
+        LogFile logFile = mock( LogFile.class );
+        WritableLogChannel channel = spy( new InMemoryLogChannel() );
+        when( logFile.getWriter() ).thenReturn( channel );
+        TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 1L, 2L, 3L );
+        TransactionCounters counters = new TransactionCounters();
+        TransactionAppender appender = new BatchingTransactionAppender( logFile, LogRotation.NO_ROTATION,
+                new TransactionMetadataCache( 10, 100 ), transactionIdStore, BYPASS, mock( KernelHealth.class ),
+                counters, MINUTES.toMillis( 1 ), 3 );
+
+        // WHEN
+        Future[] committers = committersStartYourEngines( appender, false, false, false );
+        for ( Future committer : committers )
+        {
+            committer.get();
+        }
+
+        // THEN
+        verify( channel, times( 1 ) ).force();
+        assertEquals( 1, counters.getNumberOfLogForces() );
+        assertEquals( 3, counters.getNumberOfForcedTransactions() );
+        assertEquals( 3, counters.getPeakLogForceBatchSize() );
+    }
+
     private TransactionRepresentation transactionWithLegacyIndexCommand()
     {
         Collection<Command> commands = new ArrayList<>();
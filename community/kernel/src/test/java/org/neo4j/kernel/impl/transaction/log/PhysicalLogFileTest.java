@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Rule;
@@ -28,22 +29,30 @@ import org.junit.Test;
 
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.DefaultFileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.LogFile.LogFileVisitor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReaderFactory;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.OnDemandJobScheduler;
 import org.neo4j.test.TargetDirectory;
 import org.neo4j.test.TargetDirectory.TestDirectory;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
 public class PhysicalLogFileTest
@@ -112,6 +121,45 @@ public class PhysicalLogFileTest
         }
     }
 
+    @Test
+    public void shouldCarryCheckPointOverIntoNewLogFileWhenRotating() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore, logVersionRepository, mock( Monitor.class ),
+                new TransactionMetadataCache( 10, 100 ) ) );
+        life.start();
+        try
+        {
+            LogPosition checkPoint = new LogPosition( 1L, LOG_HEADER_SIZE );
+            WritableLogChannel writer = logFile.getWriter();
+            writer.putLong( 123 );
+
+            // WHEN
+            logFile.rotate( checkPoint );
+
+            // THEN the data appended before rotation made it into the old log file
+            assertEquals( 2L, logVersionRepository.getCurrentLogVersion() );
+            try ( ReadableLogChannel reader = logFile.getReader( checkPoint ) )
+            {
+                assertEquals( 123, reader.getLong() );
+            }
+            // and the new log file starts with the check point
+            try ( ReadableVersionableLogChannel reader = logFile.getReader( new LogPosition( 2L, LOG_HEADER_SIZE ) ) )
+            {
+                LogEntry entry = new LogEntryReaderFactory().versionable().readLogEntry( reader );
+                assertEquals( new CheckPoint( checkPoint ), entry );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
     @Test
     public void shouldReadOlderLogs() throws Exception
     {
@@ -207,6 +255,82 @@ public class PhysicalLogFileTest
         life.shutdown();
     }
 
+    @Test
+    public void shouldRotateToPreallocatedFileAndTruncateTheOneRotatedAwayFrom() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LogFilePreallocator preallocator = life.add( new LogFilePreallocator( fs, scheduler, directory.directory(),
+                name, 1000, true, NullLog.getInstance() ) );
+        LogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore, logVersionRepository, mock( Monitor.class ),
+                new TransactionMetadataCache( 10, 100 ), preallocator ) );
+        life.start();
+        try
+        {
+            scheduler.runJob();
+            WritableLogChannel writer = logFile.getWriter();
+            byte[] someBytes = someBytes( 40 );
+            writer.put( someBytes, someBytes.length );
+            writer.emptyBufferIntoChannelAndClearIt();
+
+            // WHEN
+            logFile.rotate();
+
+            // THEN
+            assertEquals( LOG_HEADER_SIZE + someBytes.length, fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+            File rotatedTo = logFiles.getLogFileForVersion( 2 );
+            assertEquals( 1000, fs.getFileSize( rotatedTo ) );
+            assertEquals( 2L, readLogHeader( fs, rotatedTo ).logVersion );
+            try ( StoreChannel channel = fs.open( rotatedTo, "r" ) )
+            {
+                assertFalse( LogRecoveryCheck.hasAnyEntries( channel ) );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        assertEquals( LOG_HEADER_SIZE, fs.getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+    }
+
+    @Test
+    public void shouldZeroFillRecycledLogFile() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LogFilePreallocator preallocator = new LogFilePreallocator( fs, scheduler, directory.directory(),
+                name, 1000, true, NullLog.getInstance() );
+        File pruned = logFiles.getLogFileForVersion( 0 );
+        try ( StoreChannel channel = fs.open( pruned, "rw" ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( someBytes( 1500 ) ) );
+        }
+
+        preallocator.start();
+
+        // WHEN
+        assertTrue( preallocator.recycle( pruned ) );
+        scheduler.runJob();
+        File taken = logFiles.getLogFileForVersion( 1 );
+        assertTrue( preallocator.takePreallocatedFile( taken ) );
+
+        // THEN
+        assertFalse( fs.fileExists( pruned ) );
+        assertEquals( 1000, fs.getFileSize( taken ) );
+        try ( StoreChannel channel = fs.open( taken, "r" ) )
+        {
+            ByteBuffer content = ByteBuffer.allocate( 1000 );
+            channel.read( content );
+            assertArrayEquals( new byte[1000], content.array() );
+        }
+    }
+
     private byte[] readBytes( ReadableLogChannel reader, int length ) throws IOException
     {
         byte[] result = new byte[length];
@@ -32,12 +32,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.helpers.collection.CloseableVisitor;
 import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.KernelHealth;
 import org.neo4j.kernel.Recovery;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
@@ -46,6 +48,8 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReaderFactory;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.OnDemandJobScheduler;
 import org.neo4j.test.TargetDirectory;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -57,6 +61,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.DEFAULT_NAME;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
 import static org.neo4j.test.TargetDirectory.testDirForTest;
 
@@ -171,6 +176,23 @@ public class PhysicalLogicalTransactionStoreTest
                 return 0;
             }
 
+            @Override
+            public long getHighestLogVersion()
+            {
+                return getCurrentLogVersion();
+            }
+
+            @Override
+            public void setCurrentLogVersion( long version )
+            {
+            }
+
+            @Override
+            public LogPosition getLastCheckPoint( LogVersionedStoreChannel channel )
+            {
+                return null;
+            }
+
             @Override
             public Visitor<LogVersionedStoreChannel, IOException> getRecoverer()
             {
@@ -198,6 +220,95 @@ public class PhysicalLogicalTransactionStoreTest
         assertEquals( 1, recoveredTransactions.get() );
     }
 
+    @Test
+    public void shouldAppendAfterRecoveredTransactionsInPreallocatedLogFile() throws Exception
+    {
+        // GIVEN a crash while appending to a pre-allocated log file, leaving its zero filled tail in place
+        EphemeralFileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+        fileSystem.mkdirs( testDir );
+        TransactionIdStore transactionIdStore = new DeadSimpleTransactionIdStore();
+        TransactionMetadataCache positionCache = new TransactionMetadataCache( 10, 100 );
+        LogVersionRepository logVersionRepository = new DeadSimpleLogVersionRepository( 0 );
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( testDir, DEFAULT_NAME, fileSystem );
+        OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+        LifeSupport life = new LifeSupport();
+        LogFilePreallocator preallocator = life.add( new LogFilePreallocator( fileSystem, scheduler, testDir,
+                DEFAULT_NAME, 1000, true, NullLog.getInstance() ) );
+        LogFile logFile = life.add( new PhysicalLogFile( fileSystem, logFiles, 1000, transactionIdStore,
+                logVersionRepository, mock( Monitor.class ), positionCache, preallocator ) );
+        EphemeralFileSystemAbstraction crashedFs;
+        life.start();
+        try
+        {
+            scheduler.runJob();
+            logFile.rotate();
+            addATransactionAndRewind( logFile, positionCache, transactionIdStore,
+                    new byte[0], 1, 1, 1, 0, 2 );
+            addATransactionAndRewind( logFile, positionCache, transactionIdStore,
+                    new byte[0], 1, 1, 3, 1, 4 );
+            crashedFs = fileSystem.snapshot();
+        }
+        finally
+        {
+            life.shutdown();
+            fileSystem.shutdown();
+        }
+        PhysicalLogFiles crashedLogFiles = new PhysicalLogFiles( testDir, DEFAULT_NAME, crashedFs );
+        assertEquals( 1000, crashedFs.getFileSize( crashedLogFiles.getLogFileForVersion( 1 ) ) );
+
+        // WHEN recovering and then appending another transaction
+        final AtomicInteger recoveredTransactions = new AtomicInteger();
+        LogFileRecoverer recoverer = new LogFileRecoverer( new LogEntryReaderFactory().versionable(),
+                new CloseableVisitor<CommittedTransactionRepresentation,IOException>()
+                {
+                    @Override
+                    public boolean visit( CommittedTransactionRepresentation committedTx ) throws IOException
+                    {
+                        recoveredTransactions.incrementAndGet();
+                        return false;
+                    }
+
+                    @Override
+                    public void close() throws IOException
+                    {
+                        // nothing to do
+                    }
+                } );
+        scheduler = new OnDemandJobScheduler();
+        life = new LifeSupport();
+        preallocator = life.add( new LogFilePreallocator( crashedFs, scheduler, testDir,
+                DEFAULT_NAME, 1000, true, NullLog.getInstance() ) );
+        logFile = life.add( new PhysicalLogFile( crashedFs, crashedLogFiles, 1000, transactionIdStore,
+                logVersionRepository, mock( Monitor.class ), positionCache, preallocator ) );
+        life.add( new Recovery( new SingleVersionRecoverySPI( crashedFs, crashedLogFiles, logVersionRepository,
+                recoverer ), mock( Recovery.Monitor.class ) ) );
+        life.start();
+        try
+        {
+            addATransactionAndRewind( logFile, positionCache, transactionIdStore,
+                    new byte[0], 1, 1, 5, 2, 6 );
+
+            // THEN all transactions, including the one appended after recovery, can be read back
+            assertEquals( 2, recoveredTransactions.get() );
+            int readTransactions = 0;
+            try ( IOCursor<CommittedTransactionRepresentation> cursor = new PhysicalTransactionCursor<>(
+                    logFile.getReader( new LogPosition( 1, LOG_HEADER_SIZE ) ),
+                    new LogEntryReaderFactory().versionable() ) )
+            {
+                while ( cursor.next() )
+                {
+                    readTransactions++;
+                }
+            }
+            assertEquals( 3, readTransactions );
+        }
+        finally
+        {
+            life.shutdown();
+            crashedFs.shutdown();
+        }
+    }
+
     @Test
     public void shouldExtractMetadataFromExistingTransaction() throws Exception
     {
@@ -359,4 +470,61 @@ public class PhysicalLogicalTransactionStoreTest
         commands.add( command );
         return commands;
     }
+
+    private static class SingleVersionRecoverySPI implements Recovery.SPI
+    {
+        private final FileSystemAbstraction fs;
+        private final PhysicalLogFiles logFiles;
+        private final LogVersionRepository logVersionRepository;
+        private final Visitor<LogVersionedStoreChannel,IOException> recoverer;
+
+        SingleVersionRecoverySPI( FileSystemAbstraction fs, PhysicalLogFiles logFiles,
+                LogVersionRepository logVersionRepository, Visitor<LogVersionedStoreChannel,IOException> recoverer )
+        {
+            this.fs = fs;
+            this.logFiles = logFiles;
+            this.logVersionRepository = logVersionRepository;
+            this.recoverer = recoverer;
+        }
+
+        @Override
+        public void forceEverything()
+        {
+        }
+
+        @Override
+        public long getCurrentLogVersion()
+        {
+            return logVersionRepository.getCurrentLogVersion();
+        }
+
+        @Override
+        public long getHighestLogVersion()
+        {
+            return getCurrentLogVersion();
+        }
+
+        @Override
+        public void setCurrentLogVersion( long version )
+        {
+        }
+
+        @Override
+        public LogPosition getLastCheckPoint( LogVersionedStoreChannel channel )
+        {
+            return null;
+        }
+
+        @Override
+        public Visitor<LogVersionedStoreChannel,IOException> getRecoverer()
+        {
+            return recoverer;
+        }
+
+        @Override
+        public LogVersionedStoreChannel getLogFile( long recoveryVersion ) throws IOException
+        {
+            return PhysicalLogFile.openForVersion( logFiles, fs, recoveryVersion );
+        }
+    }
 }
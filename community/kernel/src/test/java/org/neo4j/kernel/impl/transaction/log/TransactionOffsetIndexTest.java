@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.DEFAULT_NAME;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+
+public class TransactionOffsetIndexTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    private final File directory = new File( "dir" );
+
+    @Test
+    public void shouldFindClosestIndexedTransactionInCurrentLogVersion() throws Exception
+    {
+        // GIVEN
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory, DEFAULT_NAME, fs.get() );
+        TransactionOffsetIndex index = new TransactionOffsetIndex( fs.get(), logFiles, 100 );
+
+        // WHEN
+        appendTransactions( index, 0 );
+
+        // THEN
+        assertEquals( new LogPosition( 0, LOG_HEADER_SIZE ), index.lookup( 0, 0, 2 ) );
+        assertEquals( new LogPosition( 0, LOG_HEADER_SIZE + 104 ), index.lookup( 0, 0, 3 ) );
+        assertEquals( new LogPosition( 0, LOG_HEADER_SIZE + 104 ), index.lookup( 0, 0, 4 ) );
+        assertEquals( new LogPosition( 0, LOG_HEADER_SIZE + 244 ), index.lookup( 0, 0, 10 ) );
+    }
+
+    @Test
+    public void shouldWriteIndexOfLogVersionWhenMovingOnToTheNext() throws Exception
+    {
+        // GIVEN
+        fs.get().mkdirs( directory );
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory, DEFAULT_NAME, fs.get() );
+        writeLogHeader( fs.get(), logFiles.getLogFileForVersion( 0 ), 0, 0 );
+        TransactionOffsetIndex index = new TransactionOffsetIndex( fs.get(), logFiles, 100 );
+        appendTransactions( index, 0 );
+
+        // WHEN
+        index.transactionAppended( 6, new LogPosition( 1, LOG_HEADER_SIZE ) );
+
+        // THEN
+        assertTrue( fs.get().fileExists( logFiles.getOffsetIndexFileForVersion( 0 ) ) );
+        TransactionOffsetIndex reopened = new TransactionOffsetIndex( fs.get(), logFiles, 100 );
+        assertEquals( new LogPosition( 0, LOG_HEADER_SIZE + 104 ), reopened.lookup( 0, 0, 4 ) );
+        assertNull( reopened.lookup( 1, 5, 6 ) );
+    }
+
+    @Test
+    public void shouldNotUseIndexThatBelongsToAnotherLogFile() throws Exception
+    {
+        // GIVEN
+        fs.get().mkdirs( directory );
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory, DEFAULT_NAME, fs.get() );
+        writeLogHeader( fs.get(), logFiles.getLogFileForVersion( 0 ), 0, 0 );
+        TransactionOffsetIndex index = new TransactionOffsetIndex( fs.get(), logFiles, 100 );
+        appendTransactions( index, 0 );
+        index.transactionAppended( 6, new LogPosition( 1, LOG_HEADER_SIZE ) );
+
+        // WHEN
+        TransactionOffsetIndex reopened = new TransactionOffsetIndex( fs.get(), logFiles, 100 );
+        LogPosition position = reopened.lookup( 0, 42, 44 );
+
+        // THEN
+        assertNull( position );
+    }
+
+    private void appendTransactions( TransactionOffsetIndex index, long logVersion )
+    {
+        // transactions 1, 3 and 5 start at least 100 bytes after the previously indexed one
+        long[] offsets = {0, 50, 104, 180, 244};
+        for ( int i = 0; i < offsets.length; i++ )
+        {
+            index.transactionAppended( i + 1, new LogPosition( logVersion, LOG_HEADER_SIZE + offsets[i] ) );
+        }
+    }
+}
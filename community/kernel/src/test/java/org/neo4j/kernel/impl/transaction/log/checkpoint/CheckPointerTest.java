@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.kernel.KernelHealth;
+import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.InMemoryVersionableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.LogFile;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogRotationControl;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReaderFactory;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.OnDemandJobScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CheckPointerTest
+{
+    private final LogFile logFile = mock( LogFile.class );
+    private final InMemoryVersionableLogChannel channel = new InMemoryVersionableLogChannel();
+    private final TransactionIdStore transactionIdStore = new DeadSimpleTransactionIdStore( 5L, 0 );
+    private final LogRotationControl logRotationControl = mock( LogRotationControl.class );
+    private final OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+    private final IOPSLimiter limiter = new IOPSLimiter( 100 );
+    private CheckPointer checkPointer;
+
+    @Before
+    public void setup()
+    {
+        when( logFile.getWriter() ).thenReturn( channel );
+        checkPointer = new CheckPointer( logFile, transactionIdStore, logRotationControl, mock( KernelHealth.class ),
+                scheduler, 1000, limiter, NullLog.getInstance() );
+    }
+
+    @Test
+    public void shouldNotCheckPointIfNothingHasBeenCommittedSinceTheLastOne() throws Throwable
+    {
+        // GIVEN
+        checkPointer.start();
+
+        // WHEN
+        boolean checkPointed = checkPointer.checkPoint();
+
+        // THEN
+        assertFalse( checkPointed );
+        verify( logRotationControl, never() ).forceEverything( any( IOLimiter.class ) );
+        assertEquals( new LogPosition( 0, 0 ), checkPointer.lastCheckPoint() );
+    }
+
+    @Test
+    public void shouldFlushStoreAndAppendCheckPointForCommittedTransactions() throws Throwable
+    {
+        // GIVEN
+        checkPointer.start();
+        LogPosition position = commitAndCloseTransaction();
+
+        // WHEN
+        boolean checkPointed = checkPointer.checkPoint();
+
+        // THEN
+        assertTrue( checkPointed );
+        verify( logRotationControl ).forceEverything( limiter );
+        assertEquals( position, checkPointer.lastCheckPoint() );
+        channel.positionReader( (int) position.getByteOffset() );
+        LogEntry entry = new LogEntryReaderFactory().versionable().readLogEntry( channel );
+        assertTrue( entry instanceof CheckPoint );
+        assertEquals( position, ((CheckPoint) entry).getLogPosition() );
+        assertNull( new LogEntryReaderFactory().versionable().readLogEntry( channel ) );
+
+        // and WHEN nothing has been committed since
+        assertFalse( checkPointer.checkPoint() );
+    }
+
+    @Test
+    public void shouldCheckPointFromScheduledJob() throws Throwable
+    {
+        // GIVEN
+        checkPointer.start();
+        LogPosition position = commitAndCloseTransaction();
+
+        // WHEN
+        scheduler.runJob();
+
+        // THEN
+        verify( logRotationControl ).forceEverything( limiter );
+        assertEquals( position, checkPointer.lastCheckPoint() );
+    }
+
+    @Test
+    public void shouldNotCheckPointAfterBeingStopped() throws Throwable
+    {
+        // GIVEN
+        checkPointer.start();
+        commitAndCloseTransaction();
+
+        // WHEN
+        checkPointer.stop();
+
+        // THEN
+        assertFalse( checkPointer.checkPoint() );
+        verify( logRotationControl, never() ).forceEverything( any( IOLimiter.class ) );
+        assertNull( scheduler.getJob() );
+    }
+
+    @Test
+    public void shouldAppendCheckPointWhenStartingOnLogWithEntries() throws Throwable
+    {
+        // GIVEN a log that has been recovered, i.e. where the store is flushed up to its end
+        LogPosition position = commitAndCloseTransaction();
+
+        // WHEN
+        checkPointer.start();
+
+        // THEN
+        assertEquals( position, checkPointer.lastCheckPoint() );
+        channel.positionReader( (int) position.getByteOffset() );
+        LogEntry entry = new LogEntryReaderFactory().versionable().readLogEntry( channel );
+        assertEquals( position, ((CheckPoint) entry).getLogPosition() );
+    }
+
+    private LogPosition commitAndCloseTransaction() throws Exception
+    {
+        // Just something that takes up space in the log, past where the log header would be
+        channel.put( new byte[100], 100 );
+        long transactionId = transactionIdStore.nextCommittingTransactionId();
+        transactionIdStore.transactionCommitted( transactionId, 0 );
+        transactionIdStore.transactionClosed( transactionId );
+        return new LogPosition( 0, 100 );
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2002-2015 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.io.pagecache.IOLimiter.INITIAL_STAMP;
+
+public class IOPSLimiterTest
+{
+    @Test
+    public void shouldNotBlockOnFirstCallOfAFlush() throws Exception
+    {
+        // GIVEN
+        IOPSLimiter limiter = new IOPSLimiter( 1 );
+
+        // WHEN
+        long start = System.nanoTime();
+        limiter.maybeLimitIO( INITIAL_STAMP, 1000 );
+
+        // THEN
+        assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 1 ) );
+    }
+
+    @Test
+    public void shouldBlockUntilCompletedIOsAreWithinTheLimit() throws Exception
+    {
+        // GIVEN
+        IOPSLimiter limiter = new IOPSLimiter( 100 );
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 0 );
+
+        // WHEN 10 IOs completed right away, i.e. 100 ms worth of IOs at 100 IOPS
+        long start = System.nanoTime();
+        long nextStamp = limiter.maybeLimitIO( stamp, 10 );
+
+        // THEN
+        long blocked = System.nanoTime() - start;
+        assertTrue( "Blocked for only " + blocked + " ns", blocked >= TimeUnit.MILLISECONDS.toNanos( 50 ) );
+        assertTrue( nextStamp - stamp >= TimeUnit.MILLISECONDS.toNanos( 100 ) );
+    }
+
+    @Test
+    public void shouldNotBlockWhenIOsAreAlreadyWithinTheLimit() throws Exception
+    {
+        // GIVEN
+        IOPSLimiter limiter = new IOPSLimiter( 1000 );
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 0 );
+        Thread.sleep( 20 );
+
+        // WHEN 10 IOs completed in 20 ms, at a limit of 1000 IOPS
+        long start = System.nanoTime();
+        limiter.maybeLimitIO( stamp, 10 );
+
+        // THEN
+        assertTrue( System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos( 10 ) );
+    }
+
+    @Test
+    public void shouldNotBlockWhenDisabled() throws Exception
+    {
+        // GIVEN
+        IOPSLimiter limiter = new IOPSLimiter( 1 );
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 0 );
+
+        // WHEN
+        limiter.disable();
+        long start = System.nanoTime();
+        limiter.maybeLimitIO( stamp, 1000 );
+
+        // THEN
+        assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 1 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotAcceptNonPositiveLimit() throws Exception
+    {
+        new IOPSLimiter( 0 );
+    }
+}
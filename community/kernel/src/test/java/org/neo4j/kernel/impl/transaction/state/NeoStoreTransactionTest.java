@@ -63,6 +63,7 @@ import org.neo4j.kernel.impl.api.TransactionRepresentationCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionRepresentationStoreApplier;
 import org.neo4j.kernel.impl.api.UpdateableSchemaState;
 import org.neo4j.kernel.impl.api.index.IndexMapReference;
+import org.neo4j.kernel.impl.api.index.IndexPopulationScanner;
 import org.neo4j.kernel.impl.api.index.IndexProxySetup;
 import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.kernel.impl.api.index.IndexUpdatesValidator;
@@ -72,6 +73,7 @@ import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingController;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingControllerFactory;
+import org.neo4j.kernel.impl.api.index.sampling.IndexValueSamples;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.locking.Lock;
 import org.neo4j.kernel.impl.locking.LockGroup;
@@ -102,6 +104,7 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.kernel.monitoring.Monitors;
@@ -1558,8 +1561,8 @@ public class NeoStoreTransactionTest
                                          Iterable<IndexRule> indexRules, IndexSamplingController samplingController,
                                          LogProvider logProvider, Monitor monitor )
         {
-            super( proxySetup, providerMap, indexMapRef, storeView, indexRules, samplingController, null, logProvider,
-                    monitor );
+            super( proxySetup, providerMap, indexMapRef, storeView, indexRules, samplingController,
+                    new IndexValueSamples( 1, 1 ), null, logProvider, monitor );
         }
 
         @Override
@@ -1581,10 +1584,12 @@ public class NeoStoreTransactionTest
         IndexMapReference indexMapRef = new IndexMapReference();
         IndexSamplingControllerFactory
                 samplingFactory = new IndexSamplingControllerFactory(
-                samplingConfig, storeView, null, tokenNameLookup, NULL_LOG_PROVIDER
+                samplingConfig, new IndexValueSamples( samplingConfig ), storeView, null, tokenNameLookup,
+                NULL_LOG_PROVIDER
         );
         IndexProxySetup proxySetup =
-                new IndexProxySetup( samplingConfig, storeView, providerMap, schemaState, null, null, NULL_LOG_PROVIDER );
+                new IndexProxySetup( samplingConfig, storeView, new IndexPopulationScanner( storeView, mock( JobScheduler.class ), 1 ),
+                        providerMap, schemaState, null, null, NULL_LOG_PROVIDER );
         IndexSamplingController samplingController = samplingFactory.create( indexMapRef );
         return new CapturingIndexingService(
                 proxySetup,
@@ -20,14 +20,20 @@
 package org.neo4j.kernel.impl.transaction.state;
 
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.neo4j.kernel.impl.api.TransactionRepresentationStoreApplier;
 import org.neo4j.kernel.impl.api.index.IndexUpdatesValidator;
 import org.neo4j.kernel.impl.api.index.ValidatedIndexUpdates;
 import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
@@ -38,11 +44,13 @@ import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -94,4 +102,47 @@ public class RecoveryVisitorTest
         verify( store, times( 1 ) ).setLastCommittedAndClosedTransactionId( commitEntry.getTxId(),
                 LogEntryStart.checksum( startEntry ) );
     }
+
+    @Test
+    public void shouldApplyTransactionsWritingTheSameRecordsInOrderWhenRecoveringInParallel() throws Exception
+    {
+        // GIVEN
+        final List<Long> applied = Collections.synchronizedList( new ArrayList<Long>() );
+        doAnswer( new Answer<Void>()
+        {
+            @Override
+            public Void answer( InvocationOnMock invocation ) throws Throwable
+            {
+                long txId = (Long) invocation.getArguments()[3];
+                if ( txId == 1 )
+                {   // Give the second transaction every chance to overtake the first one
+                    Thread.sleep( 100 );
+                }
+                applied.add( txId );
+                return null;
+            }
+        } ).when( storeApplier ).apply( any( TransactionRepresentation.class ), any( ValidatedIndexUpdates.class ),
+                any( LockGroup.class ), anyLong(), eq( RECOVERY ) );
+        RecoveryVisitor visitor = new RecoveryVisitor( store, storeApplier, indexUpdatesValidator, monitor, 4 );
+
+        // WHEN
+        visitor.visit( nodeTransaction( 1, 10 ) );
+        visitor.visit( nodeTransaction( 2, 10 ) );
+        visitor.close();
+
+        // THEN
+        assertEquals( Arrays.asList( 1L, 2L ), applied );
+        verify( monitor ).transactionRecovered( 1 );
+        verify( monitor ).transactionRecovered( 2 );
+        verify( store, times( 1 ) ).setLastCommittedAndClosedTransactionId( 2, LogEntryStart.checksum( startEntry ) );
+    }
+
+    private CommittedTransactionRepresentation nodeTransaction( long txId, long nodeId )
+    {
+        Command command = new Command.NodeCommand().init( new NodeRecord( nodeId ),
+                new NodeRecord( nodeId, false, -1, -1, true ) );
+        TransactionRepresentation representation =
+                new PhysicalTransactionRepresentation( Collections.singletonList( command ) );
+        return new CommittedTransactionRepresentation( startEntry, representation, new OnePhaseCommit( txId, 0 ) );
+    }
 }
@@ -21,13 +21,16 @@ package org.neo4j.test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
@@ -167,12 +170,29 @@ public class PageCacheRule extends ExternalResource
             return new PossiblyInconsistentPagedFile( pagedFile, decision );
         }
 
+        @Override
+        public List<PagedFile> listExistingMappings() throws IOException
+        {
+            List<PagedFile> list = new ArrayList<>();
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                list.add( new PossiblyInconsistentPagedFile( pagedFile, decision ) );
+            }
+            return list;
+        }
+
         @Override
         public void flushAndForce() throws IOException
         {
             pageCache.flushAndForce();
         }
 
+        @Override
+        public void flushAndForce( IOLimiter limiter ) throws IOException
+        {
+            pageCache.flushAndForce( limiter );
+        }
+
         @Override
         public void close() throws IOException
         {
@@ -227,6 +247,12 @@ public class PageCacheRule extends ExternalResource
             return pagedFile.pageSize();
         }
 
+        @Override
+        public File file()
+        {
+            return pagedFile.file();
+        }
+
         @Override
         public void flushAndForce() throws IOException
         {
@@ -438,6 +464,12 @@ public class PageCacheRule extends ExternalResource
             return cursor.next( pageId );
         }
 
+        @Override
+        public boolean isPinned()
+        {
+            return cursor.isPinned();
+        }
+
         @Override
         public void close()
         {
@@ -25,6 +25,8 @@ import org.apache.lucene.document.Fieldable;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.NumericUtils;
@@ -230,6 +232,22 @@ public class LuceneDocumentStructure
         throw new IllegalArgumentException( format( "Unable to create newQuery for %s", value ) );
     }
 
+    /**
+     * Numbers are indexed as a single full precision term, so the range query must only ever look at shift 0 terms,
+     * hence the precision step wide enough to cover the whole 64 bit value.
+     */
+    public Query newRangeSeekByNumberQuery( Number lower, boolean includeLower, Number upper, boolean includeUpper )
+    {
+        return NumericRangeQuery.newDoubleRange( ValueEncoding.Number.key(), 64,
+                lower == null ? null : lower.doubleValue(), upper == null ? null : upper.doubleValue(),
+                includeLower, includeUpper );
+    }
+
+    public Query newRangeSeekByPrefixQuery( String prefix )
+    {
+        return new PrefixQuery( new Term( ValueEncoding.String.key(), prefix ) );
+    }
+
     public Term newQueryForChangeOrRemove( long nodeId )
     {
         return new Term( NODE_ID_KEY, "" + nodeId );
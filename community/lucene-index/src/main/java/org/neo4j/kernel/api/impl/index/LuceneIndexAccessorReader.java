@@ -90,23 +90,33 @@ class LuceneIndexAccessorReader implements IndexReader
     @Override
     public PrimitiveLongIterator lookup( Object value )
     {
-        try
-        {
-            Hits hits = new Hits( searcher, documentLogic.newQuery( value ), null );
-            return new HitsPrimitiveLongIterator( hits, documentLogic );
-        }
-        catch ( IOException e )
-        {
-            throw new RuntimeException( e );
-        }
+        return query( documentLogic.newQuery( value ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        return query( documentLogic.newRangeSeekByNumberQuery( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return query( documentLogic.newRangeSeekByPrefixQuery( prefix ) );
     }
 
     @Override
     public PrimitiveLongIterator scan()
+    {
+        return query( documentLogic.newMatchAllQuery() );
+    }
+
+    private PrimitiveLongIterator query( Query query )
     {
         try
         {
-            Hits hits = new Hits( searcher, documentLogic.newMatchAllQuery(), null );
+            Hits hits = new Hits( searcher, query, null );
             return new HitsPrimitiveLongIterator( hits, documentLogic );
         }
         catch ( IOException e )
@@ -77,6 +77,43 @@ public class LuceneIndexAccessorTest
         reader.close();
     }
 
+    @Test
+    public void indexReaderShouldSupportRangeSeekByNumber() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( nodeId, 10 ),
+                add( nodeId2, 20.5 ),
+                add( 3, 30L ),
+                add( 4, "30" ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // WHEN/THEN
+        assertEquals( asSet( nodeId, nodeId2 ), asUniqueSet( reader.rangeSeekByNumber( 10, true, 30, false ) ) );
+        assertEquals( asSet( nodeId2, 3L ), asUniqueSet( reader.rangeSeekByNumber( 10, false, 30, true ) ) );
+        assertEquals( asSet( nodeId2, 3L ), asUniqueSet( reader.rangeSeekByNumber( 20.5, true, null, false ) ) );
+        assertEquals( asSet( nodeId ), asUniqueSet( reader.rangeSeekByNumber( null, false, 20.5, false ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void indexReaderShouldSupportRangeSeekByPrefix() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( nodeId, "apa" ),
+                add( nodeId2, "apalong" ),
+                add( 3, "bapa" ),
+                add( 4, 10 ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // WHEN/THEN
+        assertEquals( asSet( nodeId, nodeId2 ), asUniqueSet( reader.rangeSeekByPrefix( "apa" ) ) );
+        assertEquals( asSet( nodeId2 ), asUniqueSet( reader.rangeSeekByPrefix( "apal" ) ) );
+        assertEquals( asSet( nodeId, nodeId2, 3L ), asUniqueSet( reader.rangeSeekByPrefix( "" ) ) );
+        reader.close();
+    }
+
     @Test
     public void indexReaderShouldHonorRepeatableReads() throws Exception
     {
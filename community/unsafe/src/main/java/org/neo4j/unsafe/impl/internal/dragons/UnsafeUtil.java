@@ -21,11 +21,13 @@ package org.neo4j.unsafe.impl.internal.dragons;
 
 import sun.misc.Unsafe;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -435,6 +437,58 @@ public final class UnsafeUtil
         unsafe.setMemory( address, bytes, value );
     }
 
+    /**
+     * Copy the given number of bytes from the source address, to the destination address.
+     */
+    public static void copyMemory( long srcAddress, long destAddress, long bytes )
+    {
+        unsafe.copyMemory( srcAddress, destAddress, bytes );
+    }
+
+    /**
+     * Get the native memory address of the given direct, or memory mapped, ByteBuffer.
+     */
+    public static long getDirectByteBufferAddress( ByteBuffer dbb )
+    {
+        if ( !dbb.isDirect() )
+        {
+            throw new IllegalArgumentException( "Not a direct ByteBuffer: " + dbb );
+        }
+        return unsafe.getLong( dbb, directByteBufferAddressOffset );
+    }
+
+    /**
+     * Release the native memory, or the memory mapping, behind the given direct ByteBuffer right away, instead of
+     * waiting for the buffer to be garbage collected.
+     *
+     * The buffer must not be accessed after this call, and neither may any address obtained from it, because the
+     * memory is no longer there. Callers are responsible for making sure that no other thread is using it.
+     */
+    public static void freeDirectByteBuffer( ByteBuffer dbb ) throws IOException
+    {
+        if ( !dbb.isDirect() )
+        {
+            throw new IllegalArgumentException( "Not a direct ByteBuffer: " + dbb );
+        }
+        try
+        {
+            // The cleaner is reached reflectively, because its type is internal to the JDK.
+            Method cleanerMethod = dbb.getClass().getMethod( "cleaner" );
+            cleanerMethod.setAccessible( true );
+            Object cleaner = cleanerMethod.invoke( dbb );
+            if ( cleaner != null )
+            {
+                Method cleanMethod = cleaner.getClass().getMethod( "clean" );
+                cleanMethod.setAccessible( true );
+                cleanMethod.invoke( cleaner );
+            }
+        }
+        catch ( ReflectiveOperationException | RuntimeException e )
+        {
+            throw new IOException( "Cannot release the memory of " + dbb, e );
+        }
+    }
+
     /**
      * Create a new DirectByteBuffer that wraps the given address and has the given capacity.
      *
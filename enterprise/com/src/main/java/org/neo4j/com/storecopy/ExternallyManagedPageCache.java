@@ -21,11 +21,13 @@ package org.neo4j.com.storecopy;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.impl.factory.CommunityFacadeFactory;
@@ -63,12 +65,24 @@ public class ExternallyManagedPageCache implements PageCache
         return delegate.map( file, pageSize );
     }
 
+    @Override
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        return delegate.listExistingMappings();
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
         delegate.flushAndForce();
     }
 
+    @Override
+    public void flushAndForce( IOLimiter limiter ) throws IOException
+    {
+        delegate.flushAndForce( limiter );
+    }
+
     @Override
     public int pageSize()
     {
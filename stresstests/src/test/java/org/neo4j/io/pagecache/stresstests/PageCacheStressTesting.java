@@ -21,6 +21,9 @@ package org.neo4j.io.pagecache.stresstests;
 
 import org.junit.Test;
 
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.MemoryMappedPageSwapperFactory;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.stress.PageCacheStressTest;
 
@@ -53,6 +56,7 @@ public class PageCacheStressTesting
         int numberOfCachePages = parseInt( fromEnvironmentOrDefault( "PAGE_CACHE_STRESS_NUMBER_OF_CACHE_PAGES", "1000" ) );
 
         String workingDirectory = fromEnvironmentOrDefault( "PAGE_CACHE_STRESS_WORKING_DIRECTORY", getProperty( "java.io.tmpdir" ) );
+        String swapper = fromEnvironmentOrDefault( "PAGE_CACHE_STRESS_SWAPPER", "striped" );
 
         DefaultPageCacheTracer monitor = new DefaultPageCacheTracer();
 
@@ -65,17 +69,36 @@ public class PageCacheStressTesting
                 .withNumberOfCachePages( numberOfCachePages )
                 .withWorkingDirectory(workingDirectory)
                 .with( monitor )
+                .with( swapperFactory( swapper ) )
                 .build();
 
+        long startMillis = System.currentTimeMillis();
         runner.run();
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
 
         long faults = monitor.countFaults();
         long evictions = monitor.countEvictions();
         long pins = monitor.countPins();
         long unpins = monitor.countUnpins();
         long flushes = monitor.countFlushes();
-        System.out.printf( " - page faults: %d%n - evictions: %d%n - pins: %d%n - unpins: %d%n - flushes: %d%n",
-                faults, evictions, pins, unpins, flushes );
+        System.out.printf( " - swapper: %s%n - page faults: %d%n - evictions: %d%n - pins: %d%n - unpins: %d%n" +
+                           " - flushes: %d%n - faults per second: %d%n",
+                swapper, faults, evictions, pins, unpins, flushes, faults * 1000 / Math.max( 1, elapsedMillis ) );
+    }
+
+    private static PageSwapperFactory swapperFactory( String implementationName )
+    {
+        PageSwapperFactory[] factories = {
+                new SingleFilePageSwapperFactory(),
+                new MemoryMappedPageSwapperFactory() };
+        for ( PageSwapperFactory factory : factories )
+        {
+            if ( factory.implementationName().equals( implementationName ) )
+            {
+                return factory;
+            }
+        }
+        throw new IllegalArgumentException( "Unknown page swapper: " + implementationName );
     }
 
     private static String fromEnvironmentOrDefault( String environmentVariableName, String defaultValue )